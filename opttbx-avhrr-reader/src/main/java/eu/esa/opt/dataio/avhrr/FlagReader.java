@@ -18,18 +18,21 @@ package eu.esa.opt.dataio.avhrr;
 import com.bc.ceres.core.ProgressMonitor;
 import org.esa.snap.core.datamodel.ProductData;
 
-import javax.imageio.stream.ImageInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 public class FlagReader implements BandReader {
 
+    // the quality indicators, the scan line quality flags, the calibration quality flags and the bit error count
+    private static final int QUALITY_BLOCK_SIZE = 16;
+
     private AvhrrFile avhrrFile;
 
-    private ImageInputStream inputStream;
+    private RecordFile records;
 
-    public FlagReader(AvhrrFile avhrrFile, ImageInputStream inputStream) {
+    public FlagReader(AvhrrFile avhrrFile, RecordFile records) {
         this.avhrrFile = avhrrFile;
-        this.inputStream = inputStream;
+        this.records = records;
     }
 
     @Override
@@ -58,7 +61,7 @@ public class FlagReader implements BandReader {
     }
 
     @Override
-    public synchronized void readBandRasterData(int sourceOffsetX, int sourceOffsetY, int sourceWidth, int sourceHeight,
+    public void readBandRasterData(int sourceOffsetX, int sourceOffsetY, int sourceWidth, int sourceHeight,
                                    int sourceStepX, int sourceStepY, ProductData destBuffer, ProgressMonitor pm) throws
                                                                                                                  IOException {
 
@@ -90,17 +93,15 @@ public class FlagReader implements BandReader {
 
     private byte readFlags(int rawY) throws IOException {
         long[] flags = new long[6];
-        int dataSetOffset = avhrrFile.getFlagOffset(rawY);
-
-        synchronized (inputStream) {
-            inputStream.seek(dataSetOffset);
-            flags[0] = inputStream.readUnsignedInt();   //Quality Indicator Bit Field
-            flags[1] = inputStream.readUnsignedInt();   //Scan Line Quality Flags
-            flags[2] = inputStream.readUnsignedShort(); //Calibration Quality Flags 3b
-            flags[3] = inputStream.readUnsignedShort(); //Calibration Quality Flags 4
-            flags[4] = inputStream.readUnsignedShort(); //Calibration Quality Flags 5
-            flags[5] = inputStream.readUnsignedShort(); //Count of Bit Errors in Frame Sync
-        }
+        int dataSetOffset = avhrrFile.getFlagOffset(rawY) - avhrrFile.getScanLineOffset(rawY);
+
+        final ByteBuffer block = records.getBytes(rawY, dataSetOffset, QUALITY_BLOCK_SIZE);
+        flags[0] = block.getInt(0);    //Quality Indicator Bit Field
+        flags[1] = block.getInt(4);    //Scan Line Quality Flags
+        flags[2] = block.getShort(8);  //Calibration Quality Flags 3b
+        flags[3] = block.getShort(10); //Calibration Quality Flags 4
+        flags[4] = block.getShort(12); //Calibration Quality Flags 5
+        flags[5] = block.getShort(14); //Count of Bit Errors in Frame Sync
 
         byte flag = 0;
         for (int i = 0; i < flags.length; i++) {
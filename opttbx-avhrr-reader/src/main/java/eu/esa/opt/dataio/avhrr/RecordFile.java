@@ -0,0 +1,158 @@
+package eu.esa.opt.dataio.avhrr;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of the fixed size records of a file, e.g. the scan lines of an AVHRR product.
+ * <br>The values are read with positional reads of the file channel, without seeking a shared stream: the records
+ * can therefore be read by several threads at the same time, without locking. The file is released as soon as the
+ * records are closed.
+ *
+ * @since 14.0.0
+ */
+public final class RecordFile implements Closeable {
+
+    private final FileChannel channel;
+    private final long firstRecordOffset;
+    private final int recordSize;
+    private final int recordCount;
+    private final ByteOrder byteOrder;
+    private volatile boolean closed;
+
+    private RecordFile(FileChannel channel, long firstRecordOffset, int recordSize, int recordCount, ByteOrder byteOrder) {
+        this.channel = channel;
+        this.firstRecordOffset = firstRecordOffset;
+        this.recordSize = recordSize;
+        this.recordCount = recordCount;
+        this.byteOrder = byteOrder;
+    }
+
+    /**
+     * Opens the records of a file. The records which are not completely contained in the file are not readable.
+     *
+     * @param file              the file
+     * @param firstRecordOffset the offset of the first record in the file
+     * @param recordSize        the size of a record, in bytes
+     * @param recordCount       the number of records
+     * @param byteOrder         the byte order of the values in the records
+     * @return the records
+     * @throws IOException if the file can not be opened
+     */
+    public static RecordFile open(File file, long firstRecordOffset, int recordSize, int recordCount,
+                                  ByteOrder byteOrder) throws IOException {
+        if (recordSize <= 0 || recordCount < 0 || firstRecordOffset < 0) {
+            throw new IllegalArgumentException("Invalid record layout: offset " + firstRecordOffset + ", size "
+                                                       + recordSize + ", count " + recordCount);
+        }
+        final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            final long availableCount = Math.max(0, (channel.size() - firstRecordOffset) / recordSize);
+            final int readableCount = (int) Math.min(recordCount, availableCount);
+            return new RecordFile(channel, firstRecordOffset, recordSize, readableCount, byteOrder);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    /**
+     * Returns the number of readable records, which is smaller than the requested number if the file is truncated.
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public byte getByte(int recordIndex, int offset) throws IOException {
+        return read(recordIndex, offset, 1).get(0);
+    }
+
+    public short getShort(int recordIndex, int offset) throws IOException {
+        return read(recordIndex, offset, 2).getShort(0);
+    }
+
+    public int getInt(int recordIndex, int offset) throws IOException {
+        return read(recordIndex, offset, 4).getInt(0);
+    }
+
+    /**
+     * Reads consecutive bytes of a record with a single read, e.g. a block of values which are decoded together.
+     *
+     * @param recordIndex the index of the record
+     * @param offset      the offset of the first byte in the record
+     * @param length      the number of bytes
+     * @return a new buffer holding the bytes from the position 0 to its limit, in the byte order of the records
+     */
+    public ByteBuffer getBytes(int recordIndex, int offset, int length) throws IOException {
+        return read(recordIndex, offset, length);
+    }
+
+    /**
+     * Copies consecutive 16 bit values of a record.
+     *
+     * @param recordIndex the index of the record
+     * @param offset      the offset of the first value in the record
+     * @param target      the array receiving the values
+     * @param targetIndex the index of the first value in the array
+     * @param length      the number of values
+     */
+    public void getShorts(int recordIndex, int offset, short[] target, int targetIndex, int length) throws IOException {
+        read(recordIndex, offset, 2 * length).asShortBuffer().get(target, targetIndex, length);
+    }
+
+    /**
+     * Copies consecutive 32 bit values of a record.
+     *
+     * @param recordIndex the index of the record
+     * @param offset      the offset of the first value in the record
+     * @param target      the array receiving the values
+     * @param targetIndex the index of the first value in the array
+     * @param length      the number of values
+     */
+    public void getInts(int recordIndex, int offset, int[] target, int targetIndex, int length) throws IOException {
+        read(recordIndex, offset, 4 * length).asIntBuffer().get(target, targetIndex, length);
+    }
+
+    /**
+     * Closes the file. The reads still in progress fail.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+
+    private ByteBuffer read(int recordIndex, int offset, int length) throws IOException {
+        if (closed) {
+            throw new IOException("The records are closed.");
+        }
+        if (recordIndex < 0 || recordIndex >= recordCount) {
+            throw new EOFException("Record " + recordIndex + " is not contained in the file, which has " + recordCount + " records.");
+        }
+        if (offset < 0 || length < 0 || offset + length > recordSize) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + length) + ") is not within a record of "
+                                                        + recordSize + " bytes.");
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(byteOrder);
+        long position = firstRecordOffset + (long) recordIndex * recordSize + offset;
+        while (buffer.hasRemaining()) {
+            final int count = channel.read(buffer, position);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of file at the position " + position);
+            }
+            position += count;
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -21,10 +21,10 @@ package eu.esa.opt.dataio.avhrr.metop;
 import com.bc.ceres.core.ProgressMonitor;
 import eu.esa.opt.dataio.avhrr.AvhrrConstants;
 import eu.esa.opt.dataio.avhrr.AvhrrFile;
+import eu.esa.opt.dataio.avhrr.RecordFile;
 import eu.esa.opt.dataio.avhrr.calibration.RadianceCalibrator;
 import org.esa.snap.core.datamodel.ProductData;
 
-import javax.imageio.stream.ImageInputStream;
 import java.io.IOException;
 import java.text.MessageFormat;
 
@@ -40,8 +40,8 @@ class CalibratedBandReader extends PlainBandReader {
     private final RadianceCalibrator calibrator;
 
     public CalibratedBandReader(int channel, MetopFile metopFile,
-                                ImageInputStream inputStream, RadianceCalibrator radianceCalibrator) {
-        super(channel, metopFile, inputStream);
+                                RecordFile records, RadianceCalibrator radianceCalibrator) {
+        super(channel, metopFile, records);
         calibrator = radianceCalibrator;
     }
 
@@ -98,6 +98,7 @@ class CalibratedBandReader extends PlainBandReader {
                                                                         sourceWidth, sourceHeight);
         final float[] targetData = (float[]) destBuffer.getElems();
         final float scalingFactor = (float) super.getScalingFactor();
+        final short[] radianceScanLine = new short[sourceWidth];
 
         pm.beginTask(MessageFormat.format("Reading AVHRR band ''{0}''...", getBandName()), rawCoord.maxY - rawCoord.minY);
 
@@ -108,16 +109,12 @@ class CalibratedBandReader extends PlainBandReader {
             }
 
             if (hasData(sourceY)) {
-                final int dataOffset = getDataOffset(sourceOffsetX, sourceY);
-                synchronized (inputStream) {
-                    final short[] radianceScanLine = new short[metopFile.getProductWidth()];
-                    inputStream.seek(dataOffset);
-                    inputStream.readFully(radianceScanLine, 0, sourceWidth);
-
-                    for (int sourceX = 0; sourceX <= sourceWidth - 1; sourceX++) {
-                        targetData[targetIdx] = calibrator.calibrate(radianceScanLine[sourceX] * scalingFactor);
-                        targetIdx += rawCoord.targetIncrement;
-                    }
+                final int dataOffset = getDataOffset(sourceOffsetX);
+                records.getShorts(sourceY, dataOffset, radianceScanLine, 0, sourceWidth);
+
+                for (int sourceX = 0; sourceX <= sourceWidth - 1; sourceX++) {
+                    targetData[targetIdx] = calibrator.calibrate(radianceScanLine[sourceX] * scalingFactor);
+                    targetIdx += rawCoord.targetIncrement;
                 }
             } else {
                 for (int sourceX = rawCoord.minX; sourceX <= rawCoord.maxX; sourceX += sourceStepX) {
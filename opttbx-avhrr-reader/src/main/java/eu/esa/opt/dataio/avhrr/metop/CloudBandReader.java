@@ -21,9 +21,9 @@ package eu.esa.opt.dataio.avhrr.metop;
 import com.bc.ceres.core.ProgressMonitor;
 import eu.esa.opt.dataio.avhrr.AvhrrFile;
 import eu.esa.opt.dataio.avhrr.BandReader;
+import eu.esa.opt.dataio.avhrr.RecordFile;
 import org.esa.snap.core.datamodel.ProductData;
 
-import javax.imageio.stream.ImageInputStream;
 import java.io.IOException;
 import java.text.MessageFormat;
 
@@ -36,12 +36,12 @@ class CloudBandReader implements BandReader {
 
     protected MetopFile metopFile;
 
-    protected final ImageInputStream inputStream;
+    protected final RecordFile records;
 
     public CloudBandReader(MetopFile metopFile,
-                           ImageInputStream inputStream) {
+                           RecordFile records) {
         this.metopFile = metopFile;
-        this.inputStream = inputStream;
+        this.records = records;
     }
 
     @Override
@@ -92,11 +92,8 @@ class CloudBandReader implements BandReader {
                 break;
             }
 
-            final int dataOffset = getDataOffset(sourceOffsetX, sourceY);
-            synchronized (inputStream) {
-                inputStream.seek(dataOffset);
-                inputStream.readFully(targetData, targetIdx, sourceWidth);
-            }
+            final int dataOffset = getDataOffset(sourceOffsetX);
+            records.getShorts(sourceY, dataOffset, targetData, targetIdx, sourceWidth);
             targetIdx += sourceWidth;
             pm.worked(1);
         }
@@ -104,7 +101,10 @@ class CloudBandReader implements BandReader {
 
     }
 
-    protected int getDataOffset(int sourceOffsetX, int sourceY) {
-        return metopFile.getScanLineOffset(sourceY) + 22472  + ((metopFile.getNumTrimX() + sourceOffsetX) * 2);
+    /**
+     * Returns the offset of the first cloud information to read in the scan line record.
+     */
+    protected int getDataOffset(int sourceOffsetX) {
+        return 22472 + ((metopFile.getNumTrimX() + sourceOffsetX) * 2);
     }
 }
\ No newline at end of file
@@ -23,6 +23,7 @@ import eu.esa.opt.dataio.avhrr.AvhrrFile;
 import eu.esa.opt.dataio.avhrr.BandReader;
 import eu.esa.opt.dataio.avhrr.FlagReader;
 import eu.esa.opt.dataio.avhrr.HeaderUtil;
+import eu.esa.opt.dataio.avhrr.RecordFile;
 import eu.esa.opt.dataio.avhrr.calibration.RadianceCalibrator;
 import eu.esa.opt.dataio.avhrr.calibration.Radiance2TemperatureCalibrator;
 import org.esa.snap.core.datamodel.MetadataElement;
@@ -32,6 +33,7 @@ import javax.imageio.stream.FileImageInputStream;
 import javax.imageio.stream.ImageInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -76,6 +78,10 @@ class MetopFile extends AvhrrFile {
 
     private ImageInputStream inputStream;
 
+    private final File file;
+
+    private RecordFile records;
+
     private GenericRecordHeader mphrHeader;
 
     private AsciiRecord mainProductHeaderRecord;
@@ -97,8 +103,9 @@ class MetopFile extends AvhrrFile {
     private MetadataElement geadrMetadata;
     private MetadataElement readerInfo;
 
-    public MetopFile(ImageInputStream imageInputStream) {
+    public MetopFile(ImageInputStream imageInputStream, File file) {
         this.inputStream = imageInputStream;
+        this.file = file;
         readerInfo = new MetadataElement("READER_INFO");
     }
 
@@ -200,6 +207,7 @@ class MetopFile extends AvhrrFile {
         }
         productHeight = mainProductHeaderRecord.getIntValue("TOTAL_MDR");
         int toSkip = checkMdrs(navSampleRate);
+        records = RecordFile.open(file, firstMdrOffset, mdrSize, productHeight, ByteOrder.BIG_ENDIAN);
         analyzeFrameIndicator();
 
         readerInfo.addAttribute(HeaderUtil.createAttribute("TRIM_BOTTOM", toSkip, "pixel", "Number of lines cut from the end of the product to match the tie-points."));
@@ -233,19 +241,19 @@ class MetopFile extends AvhrrFile {
 
     @Override
     public BandReader createVisibleRadianceBandReader(int channel) {
-        return new PlainBandReader(channel, this, inputStream);
+        return new PlainBandReader(channel, this, records);
     }
 
     @Override
     public BandReader createIrRadianceBandReader(int channel) {
-        return new PlainBandReader(channel, this, inputStream);
+        return new PlainBandReader(channel, this, records);
     }
 
     @Override
     public BandReader createReflectanceFactorBandReader(int channel) {
         RadianceCalibrator radianceCalibrator = new MetopRad2ReflFactorCalibrator(giadrRadiance.getSolarIrradiance(channel), 1);
         //TODO this 1 should be the earth-sun-distance-ratio, but this ratio is always 0.
-        return new CalibratedBandReader(channel, this, inputStream, radianceCalibrator);
+        return new CalibratedBandReader(channel, this, records, radianceCalibrator);
     }
 
     @Override
@@ -254,12 +262,12 @@ class MetopFile extends AvhrrFile {
                 giadrRadiance.getConstant1(channel), giadrRadiance.getConstant2(channel),
                 giadrRadiance.getCentralWavenumber(channel));
 
-        return new CalibratedBandReader(channel, this, inputStream, radianceCalibrator);
+        return new CalibratedBandReader(channel, this, records, radianceCalibrator);
     }
 
     @Override
     public BandReader createFlagBandReader() {
-        return new FlagReader(this, inputStream);
+        return new FlagReader(this, records);
     }
 
     @Override
@@ -269,7 +277,7 @@ class MetopFile extends AvhrrFile {
 
     @Override
     public BandReader createCloudBandReader() {
-        return new CloudBandReader(this, inputStream);
+        return new CloudBandReader(this, records);
     }
 
     public int getNumNavPoints() {
@@ -310,12 +318,8 @@ class MetopFile extends AvhrrFile {
         int targetIncr = 1;
 
         for (int scanLine = 0; scanLine < getProductHeight(); scanLine += navSampleRate) {
-            final int scanLineOffset = getScanLineOffset(scanLine);
-            synchronized (inputStream) {
-                inputStream.seek(scanLineOffset + TIE_POINT_OFFSET);
-                inputStream.readFully(rawAngles, 0, numRawAngles);
-                inputStream.readFully(rawLatLon, 0, numRawLatLon);
-            }
+            records.getShorts(scanLine, TIE_POINT_OFFSET, rawAngles, 0, numRawAngles);
+            records.getInts(scanLine, TIE_POINT_OFFSET + numRawAngles * 2, rawLatLon, 0, numRawLatLon);
             for (int scanPoint = 0; scanPoint < numNavPoints; scanPoint++) {
                 tiePointData[0][targetIndex] = rawAngles[scanPoint * 4] * 1E-2f;
                 tiePointData[1][targetIndex] = rawAngles[scanPoint * 4 + 1] * 1E-2f;
@@ -356,16 +360,11 @@ class MetopFile extends AvhrrFile {
     }
 
     int readFrameIndicator(int rawY) throws IOException {
-        int flagOffset = getScanLineOffset(rawY) + FRAME_INDICATOR_OFFSET + 1;
+        int flagOffset = FRAME_INDICATOR_OFFSET + 1;
         if (numNavPoints == LOW_PRECISION_TIE_POINT_WIDTH) {
             flagOffset = flagOffset - TIE_POINT_DIFFERENCE;
         }
-        byte flag;
-        synchronized (inputStream) {
-            inputStream.seek(flagOffset);
-            flag = inputStream.readByte();
-        }
-        return flag;
+        return records.getByte(rawY, flagOffset);
     }
 
     public static boolean canOpenFile(File file) throws IOException {
@@ -475,6 +474,10 @@ class MetopFile extends AvhrrFile {
 
     @Override
     public void dispose() throws IOException {
+        if (records != null) {
+            records.close();
+            records = null;
+        }
         if (inputStream != null) {
             inputStream.close();
             inputStream = null;
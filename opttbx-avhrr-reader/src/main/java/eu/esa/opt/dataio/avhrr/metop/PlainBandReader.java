@@ -22,9 +22,9 @@ import com.bc.ceres.core.ProgressMonitor;
 import eu.esa.opt.dataio.avhrr.AvhrrConstants;
 import eu.esa.opt.dataio.avhrr.AvhrrFile;
 import eu.esa.opt.dataio.avhrr.BandReader;
+import eu.esa.opt.dataio.avhrr.RecordFile;
 import org.esa.snap.core.datamodel.ProductData;
 
-import javax.imageio.stream.ImageInputStream;
 import java.io.IOException;
 import java.text.MessageFormat;
 
@@ -42,13 +42,13 @@ class PlainBandReader implements BandReader {
 
     protected MetopFile metopFile;
 
-    protected final ImageInputStream inputStream;
+    protected final RecordFile records;
 
     public PlainBandReader(int channel, MetopFile metopFile,
-                           ImageInputStream inputStream) {
+                           RecordFile records) {
         this.channel = channel;
         this.metopFile = metopFile;
-        this.inputStream = inputStream;
+        this.records = records;
     }
 
     @Override
@@ -115,11 +115,8 @@ class PlainBandReader implements BandReader {
             }
 
             if (hasData(sourceY)) {
-                final int dataOffset = getDataOffset(sourceOffsetX, sourceY);
-                synchronized (inputStream) {
-                    inputStream.seek(dataOffset);
-                    inputStream.readFully(targetData, targetIdx, sourceWidth);
-                }
+                final int dataOffset = getDataOffset(sourceOffsetX);
+                records.getShorts(sourceY, dataOffset, targetData, targetIdx, sourceWidth);
                 targetIdx += sourceWidth;
             } else {
                 for (int sourceX = rawCoord.minX; sourceX <= rawCoord.maxX; sourceX += sourceStepX) {
@@ -133,9 +130,11 @@ class PlainBandReader implements BandReader {
 
     }
 
-    protected int getDataOffset(int sourceOffsetX, int sourceY) {
-        return metopFile.getScanLineOffset(sourceY)
-                + 24
+    /**
+     * Returns the offset of the first radiance to read in the scan line record.
+     */
+    protected int getDataOffset(int sourceOffsetX) {
+        return 24
                 + (AvhrrConstants.RAW_SCENE_RASTER_WIDTH * AvhrrConstants.CH_DATASET_INDEXES[channel] * 2)
                 + ((metopFile.getNumTrimX() + sourceOffsetX) * 2);
     }
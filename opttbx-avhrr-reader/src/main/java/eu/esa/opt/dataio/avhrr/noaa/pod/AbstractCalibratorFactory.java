@@ -1,7 +1,5 @@
 package eu.esa.opt.dataio.avhrr.noaa.pod;
 
-import com.bc.ceres.binio.CompoundData;
-import com.bc.ceres.binio.SequenceData;
 import eu.esa.opt.dataio.avhrr.calibration.Calibrator;
 
 import java.io.IOException;
@@ -25,10 +23,8 @@ abstract class AbstractCalibratorFactory implements CalibratorFactory {
 
     @Override
     public final Calibrator createCalibrator(int i) throws IOException {
-        final SequenceData coefficientsSequence = provider.getCalibrationCoefficients(i);
-        final CompoundData coefficients = coefficientsSequence.getCompound(channelIndex);
-        final double slope = coefficients.getInt(0) * slopeScaleFactor;
-        final double intercept = coefficients.getInt(1) * interceptScaleFactor;
+        final double slope = provider.getRawSlope(i, channelIndex) * slopeScaleFactor;
+        final double intercept = provider.getRawIntercept(i, channelIndex) * interceptScaleFactor;
 
         return new CoefficientCalibrator(this, slope, intercept);
     }
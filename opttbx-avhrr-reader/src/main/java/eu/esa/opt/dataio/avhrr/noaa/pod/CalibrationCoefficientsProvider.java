@@ -1,7 +1,5 @@
 package eu.esa.opt.dataio.avhrr.noaa.pod;
 
-import com.bc.ceres.binio.SequenceData;
-
 import java.io.IOException;
 
 /**
@@ -9,7 +7,9 @@ import java.io.IOException;
  */
 interface CalibrationCoefficientsProvider {
 
-    SequenceData getCalibrationCoefficients(int recordIndex) throws IOException;
+    int getRawSlope(int recordIndex, int channelIndex) throws IOException;
+
+    int getRawIntercept(int recordIndex, int channelIndex) throws IOException;
 
     double getSlopeScaleFactor();
 
@@ -24,6 +24,7 @@ import com.bc.ceres.binio.SequenceData;
 import eu.esa.opt.dataio.avhrr.AvhrrConstants;
 import eu.esa.opt.dataio.avhrr.BandReader;
 import eu.esa.opt.dataio.avhrr.HeaderUtil;
+import eu.esa.opt.dataio.avhrr.RecordFile;
 import eu.esa.opt.dataio.avhrr.noaa.HeaderWrapper;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.MetadataElement;
@@ -32,6 +33,7 @@ import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.datamodel.TiePointGrid;
 
 import java.awt.Dimension;
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteOrder;
 import java.util.HashMap;
@@ -39,6 +41,9 @@ import java.util.Map;
 
 /**
  * Represents a NOAA POD AVHRR HRPT file.
+ * <p>The headers, times and tie-points are decoded through the binio types, whereas the video data, quality indicators
+ * and calibration coefficients of the scan lines are read from the data records with positional reads, so that the
+ * bands can be read concurrently.
  *
  * @author Ralf Quast
  */
@@ -59,43 +64,53 @@ final class PodAvhrrFile implements VideoDataProvider, CalibrationCoefficientsPr
     private final int tbmHeaderRecordIndex;
     private final int datasetHeaderRecordIndex;
     private final int dataRecordsIndex;
-    private final int videoDataIndex;
-    private final int qualityDataIndex;
-    private final int calibrationCofficientsIndex;
+    private final int videoDataOffset;
+    private final int qualityDataOffset;
+    private final int calibrationCoefficientsOffset;
+    private final int calibrationCoefficientsSize;
     private final Map<Band, BandReader> bandReaderMap;
     private final String productName;
+    private final File file;
+    private RecordFile dataRecords;
 
     static boolean canDecode(IOHandler ioHandler) {
         return new PodFormatDetector().canDecode(ioHandler);
     }
 
-    PodAvhrrFile(IOHandler ioHandler, String productName) {
+    PodAvhrrFile(IOHandler ioHandler, String productName, File file) {
         this.productName = productName;
+        this.file = file;
         final DataFormat dataFormat = new DataFormat(PodTypes.HRPT_TYPE, ByteOrder.BIG_ENDIAN);
         context = dataFormat.createContext(ioHandler);
         data = context.getData();
         tbmHeaderRecordIndex = PodTypes.HRPT_TYPE.getMemberIndex("TBM_HEADER_RECORD");
         datasetHeaderRecordIndex = PodTypes.HRPT_TYPE.getMemberIndex("DATASET_HEADER_RECORD");
         dataRecordsIndex = PodTypes.HRPT_TYPE.getMemberIndex("DATA_RECORDS");
-        videoDataIndex = PodTypes.DATA_RECORD_TYPE.getMemberIndex("VIDEO_DATA");
-        qualityDataIndex = PodTypes.DATA_RECORD_TYPE.getMemberIndex("QUALITY_INDICATORS");
-        calibrationCofficientsIndex = PodTypes.DATA_RECORD_TYPE.getMemberIndex("CALIBRATION_COEFFICIENTS");
+        videoDataOffset = PodTypes.getMemberOffset(PodTypes.DATA_RECORD_TYPE, "VIDEO_DATA");
+        qualityDataOffset = PodTypes.getMemberOffset(PodTypes.DATA_RECORD_TYPE, "QUALITY_INDICATORS");
+        calibrationCoefficientsOffset = PodTypes.getMemberOffset(PodTypes.DATA_RECORD_TYPE, "CALIBRATION_COEFFICIENTS");
+        calibrationCoefficientsSize = PodTypes.getCalibrationCoefficientsSize();
         bandReaderMap = new HashMap<>(15);
     }
 
     @Override
-    public SequenceData getVideoData(int recordIndex) throws IOException {
-        return getDataRecord(recordIndex).getSequence(videoDataIndex);
+    public void readVideoData(int recordIndex, int[] videoData) throws IOException {
+        dataRecords.getInts(recordIndex, videoDataOffset, videoData, 0, videoData.length);
     }
 
     @Override
     public boolean isValid(int recordIndex) throws IOException {
-        return (getDataRecord(recordIndex).getInt(qualityDataIndex) & QUALITY_INDICATOR_BIT_MASK) == 0;
+        return (dataRecords.getInt(recordIndex, qualityDataOffset) & QUALITY_INDICATOR_BIT_MASK) == 0;
     }
 
     @Override
-    public SequenceData getCalibrationCoefficients(int recordIndex) throws IOException {
-        return getDataRecord(recordIndex).getSequence(calibrationCofficientsIndex);
+    public int getRawSlope(int recordIndex, int channelIndex) throws IOException {
+        return dataRecords.getInt(recordIndex, calibrationCoefficientsOffset + channelIndex * calibrationCoefficientsSize);
+    }
+
+    @Override
+    public int getRawIntercept(int recordIndex, int channelIndex) throws IOException {
+        return dataRecords.getInt(recordIndex, calibrationCoefficientsOffset + channelIndex * calibrationCoefficientsSize + 4);
     }
 
     @Override
@@ -109,6 +124,10 @@ final class PodAvhrrFile implements VideoDataProvider, CalibrationCoefficientsPr
     }
 
     void dispose() throws IOException {
+        if (dataRecords != null) {
+            dataRecords.close();
+            dataRecords = null;
+        }
         context.dispose();
     }
 
@@ -119,6 +138,8 @@ final class PodAvhrrFile implements VideoDataProvider, CalibrationCoefficientsPr
     Product createProduct() throws IOException {
         final String productType = "NOAA_POD_AVHRR_HRPT";
         final int dataRecordCount = data.getUShort("NUMBER_OF_SCANS");
+        dataRecords = RecordFile.open(file, PodTypes.getMemberOffset(PodTypes.HRPT_TYPE, "DATA_RECORDS"),
+                                      PodTypes.DATA_RECORD_TYPE.getSize(), dataRecordCount, ByteOrder.BIG_ENDIAN);
         final Product product = new Product(productName, productType, PRODUCT_WIDTH, dataRecordCount);
         product.setPreferredTileSize(new Dimension(PRODUCT_WIDTH / 2, PRODUCT_WIDTH / 2));
 
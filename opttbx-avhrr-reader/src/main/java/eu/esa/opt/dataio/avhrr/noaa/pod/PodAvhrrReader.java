@@ -64,7 +64,7 @@ final class PodAvhrrReader extends AbstractProductReader {
 
         final Product product;
         try {
-            avhrrFile = new PodAvhrrFile(ioHandler, productName);
+            avhrrFile = new PodAvhrrFile(ioHandler, productName, file);
             product = avhrrFile.createProduct();
             if (file != null) {
                 product.setFileLocation(file);
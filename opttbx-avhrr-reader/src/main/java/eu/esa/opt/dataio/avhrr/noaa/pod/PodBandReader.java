@@ -1,6 +1,5 @@
 package eu.esa.opt.dataio.avhrr.noaa.pod;
 
-import com.bc.ceres.binio.SequenceData;
 import com.bc.ceres.core.ProgressMonitor;
 import eu.esa.opt.dataio.avhrr.BandReader;
 import eu.esa.opt.dataio.avhrr.calibration.Calibrator;
@@ -84,7 +83,7 @@ final class PodBandReader implements BandReader {
                 }
                 boolean valid = videoDataProvider.isValid(y);
                 if (valid) {
-                    readVideoData(y, videoData);
+                    videoDataProvider.readVideoData(y, videoData);
                     decodeVideoData(channelIndex, videoData, countData);
                     try {
                         final Calibrator calibrator = calibratorFactory.createCalibrator(y);
@@ -109,13 +108,6 @@ final class PodBandReader implements BandReader {
         }
     }
 
-    private void readVideoData(int y, int[] videoData) throws IOException {
-        final SequenceData videoDataSequence = videoDataProvider.getVideoData(y);
-        for (int i = 0; i < videoDataSequence.getElementCount(); i++) {
-            videoData[i] = videoDataSequence.getInt(i);
-        }
-    }
-
     private void decodeVideoData(int channelIndex, int[] videoData, int[] countData) {
         final int[] shifts = SHIFT[channelIndex];
         final int[] increments = INCREMENT[channelIndex];
@@ -156,6 +156,25 @@ final class PodTypes {
                      MEMBER("DATA_RECORDS", VAR_SEQUENCE(PodTypes.DATA_RECORD_TYPE, "NUMBER_OF_SCANS"))
             );
 
+    /**
+     * Returns the offset, in bytes, of a member of a compound type whose preceding members have a fixed size.
+     */
+    static int getMemberOffset(CompoundType type, String memberName) {
+        final int memberIndex = type.getMemberIndex(memberName);
+        if (memberIndex < 0) {
+            throw new IllegalArgumentException("No member '" + memberName + "' in type '" + type.getName() + "'.");
+        }
+        int offset = 0;
+        for (int i = 0; i < memberIndex; i++) {
+            offset += type.getMember(i).getType().getSize();
+        }
+        return offset;
+    }
+
+    static int getCalibrationCoefficientsSize() {
+        return CALIBRATION_COEFFICIENTS_TYPE.getSize();
+    }
+
     static FormatMetadata getSolarZenithAnglesMetadata() {
         return (FormatMetadata) DATA_RECORD_TYPE.getMember(5).getMetadata();
     }
@@ -1,7 +1,5 @@
 package eu.esa.opt.dataio.avhrr.noaa.pod;
 
-import com.bc.ceres.binio.SequenceData;
-
 import java.io.IOException;
 
 /**
@@ -9,7 +7,13 @@ import java.io.IOException;
  */
 interface VideoDataProvider {
 
-    SequenceData getVideoData(int i) throws IOException;
+    /**
+     * Copies the video data words of a scan line.
+     *
+     * @param i         the index of the scan line
+     * @param videoData the array receiving the words
+     */
+    void readVideoData(int i, int[] videoData) throws IOException;
 
     boolean isValid(int i) throws IOException;
 }
@@ -0,0 +1,178 @@
+package eu.esa.opt.dataio.avhrr;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class RecordFileTest {
+
+    private static final int HEADER_SIZE = 10;
+    private static final int RECORD_SIZE = 16;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("records", ".bin");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.write(new byte[HEADER_SIZE]);
+            for (int record = 0; record < 3; record++) {
+                out.writeByte(record);
+                out.writeByte(-1);
+                out.writeShort(100 * record + 1);
+                out.writeShort(100 * record + 2);
+                out.writeShort(-(100 * record + 3));
+                out.writeInt(1000 * record + 4);
+                out.writeInt(-(1000 * record + 5));
+            }
+            // an incomplete record
+            out.write(new byte[RECORD_SIZE / 2]);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testGetValues() throws IOException {
+        try (RecordFile records = RecordFile.open(file, HEADER_SIZE, RECORD_SIZE, 3, ByteOrder.BIG_ENDIAN)) {
+            assertEquals(RECORD_SIZE, records.getRecordSize());
+            assertEquals(3, records.getRecordCount());
+
+            assertEquals(2, records.getByte(2, 0));
+            assertEquals(-1, records.getByte(2, 1));
+            assertEquals(201, records.getShort(2, 2));
+            assertEquals(-103, records.getShort(1, 6));
+            assertEquals(4, records.getInt(0, 8));
+            assertEquals(-2005, records.getInt(2, 12));
+        }
+    }
+
+    @Test
+    public void testGetArrays() throws IOException {
+        try (RecordFile records = RecordFile.open(file, HEADER_SIZE, RECORD_SIZE, 3, ByteOrder.BIG_ENDIAN)) {
+            final short[] shorts = new short[4];
+            records.getShorts(1, 2, shorts, 1, 3);
+            assertArrayEquals(new short[]{0, 101, 102, -103}, shorts);
+
+            final int[] ints = new int[2];
+            records.getInts(2, 8, ints, 0, 2);
+            assertArrayEquals(new int[]{2004, -2005}, ints);
+        }
+    }
+
+    @Test
+    public void testGetBytes() throws IOException {
+        try (RecordFile records = RecordFile.open(file, HEADER_SIZE, RECORD_SIZE, 3, ByteOrder.BIG_ENDIAN)) {
+            final ByteBuffer block = records.getBytes(1, 2, 14);
+            assertEquals(ByteOrder.BIG_ENDIAN, block.order());
+            assertEquals(0, block.position());
+            assertEquals(14, block.remaining());
+            assertEquals(101, block.getShort(0));
+            assertEquals(102, block.getShort(2));
+            assertEquals(-103, block.getShort(4));
+            assertEquals(1004, block.getInt(6));
+            assertEquals(-1005, block.getInt(10));
+        }
+        try (RecordFile records = RecordFile.open(file, HEADER_SIZE, RECORD_SIZE, 3, ByteOrder.LITTLE_ENDIAN)) {
+            final ByteBuffer block = records.getBytes(2, 0, RECORD_SIZE);
+            assertEquals(ByteOrder.LITTLE_ENDIAN, block.order());
+            assertEquals(Integer.reverseBytes(2004), block.getInt(8));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testBytesOutsideOfRecord() throws IOException {
+        try (RecordFile records = RecordFile.open(file, HEADER_SIZE, RECORD_SIZE, 3, ByteOrder.BIG_ENDIAN)) {
+            records.getBytes(0, 8, RECORD_SIZE - 7);
+        }
+    }
+
+    @Test
+    public void testLittleEndian() throws IOException {
+        try (RecordFile records = RecordFile.open(file, HEADER_SIZE, RECORD_SIZE, 3, ByteOrder.LITTLE_ENDIAN)) {
+            assertEquals(Short.reverseBytes((short) 101), records.getShort(1, 2));
+
+            final int[] ints = new int[1];
+            records.getInts(1, 8, ints, 0, 1);
+            assertEquals(Integer.reverseBytes(1004), ints[0]);
+        }
+    }
+
+    @Test
+    public void testIncompleteRecordsAreNotReadable() throws IOException {
+        try (RecordFile records = RecordFile.open(file, HEADER_SIZE, RECORD_SIZE, 5, ByteOrder.BIG_ENDIAN)) {
+            assertEquals(3, records.getRecordCount());
+            try {
+                records.getInt(3, 0);
+                fail("EOFException expected");
+            } catch (EOFException expected) {
+                // ok
+            }
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOffsetOutsideOfRecord() throws IOException {
+        try (RecordFile records = RecordFile.open(file, HEADER_SIZE, RECORD_SIZE, 3, ByteOrder.BIG_ENDIAN)) {
+            records.getInt(0, RECORD_SIZE - 2);
+        }
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        try (RecordFile records = RecordFile.open(file, HEADER_SIZE, RECORD_SIZE, 3, ByteOrder.BIG_ENDIAN)) {
+            final ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                final List<Future<?>> futures = new ArrayList<>();
+                for (int task = 0; task < 8; task++) {
+                    futures.add(executor.submit(() -> {
+                        final short[] shorts = new short[3];
+                        for (int i = 0; i < 1000; i++) {
+                            final int record = i % 3;
+                            records.getShorts(record, 2, shorts, 0, 3);
+                            assertArrayEquals(new short[]{(short) (100 * record + 1), (short) (100 * record + 2),
+                                    (short) -(100 * record + 3)}, shorts);
+                            assertEquals(1000 * record + 4, records.getInt(record, 8));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testClosed() throws IOException {
+        final RecordFile records = RecordFile.open(file, HEADER_SIZE, RECORD_SIZE, 3, ByteOrder.BIG_ENDIAN);
+        records.close();
+        try {
+            records.getShort(0, 2);
+            fail("IOException expected");
+        } catch (IOException expected) {
+            // ok
+        }
+    }
+}
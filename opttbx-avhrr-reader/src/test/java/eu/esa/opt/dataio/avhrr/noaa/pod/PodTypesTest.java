@@ -33,4 +33,23 @@ public class PodTypesTest {
     public void testInterceptScaleFactor() throws Exception {
         assertEquals(1.0 / (1 << 22), PodTypes.getInterceptMetadata().getScalingFactor(), 0.0);
     }
+
+    @Test
+    public void testDataRecordMemberOffsets() throws Exception {
+        assertEquals(14800, PodTypes.DATA_RECORD_TYPE.getSize());
+        assertEquals(8, PodTypes.getMemberOffset(PodTypes.DATA_RECORD_TYPE, "QUALITY_INDICATORS"));
+        assertEquals(12, PodTypes.getMemberOffset(PodTypes.DATA_RECORD_TYPE, "CALIBRATION_COEFFICIENTS"));
+        assertEquals(448, PodTypes.getMemberOffset(PodTypes.DATA_RECORD_TYPE, "VIDEO_DATA"));
+        assertEquals(8, PodTypes.getCalibrationCoefficientsSize());
+    }
+
+    @Test
+    public void testDataRecordsOffset() throws Exception {
+        assertEquals(14922, PodTypes.getMemberOffset(PodTypes.HRPT_TYPE, "DATA_RECORDS"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMemberOffsetOfUnknownMember() throws Exception {
+        PodTypes.getMemberOffset(PodTypes.DATA_RECORD_TYPE, "UNKNOWN");
+    }
 }
@@ -0,0 +1,79 @@
+package eu.esa.opt.c2rcc.ancillary;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.GeoCoding;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.util.SystemUtils;
+
+import java.io.IOException;
+
+/**
+ * The decoded geophysical values of an ancillary band together with the geo-coding used to look them up.
+ * Once created, a grid is immutable and can be shared between threads.
+ */
+class AncGrid {
+
+    private final int width;
+    private final double[] data;
+    private final GeoCoding geoCoding;
+    private final double constantValue;
+
+    private AncGrid(int width, double[] data, GeoCoding geoCoding, double constantValue) {
+        this.width = width;
+        this.data = data;
+        this.geoCoding = geoCoding;
+        this.constantValue = constantValue;
+    }
+
+    /**
+     * Decodes the given band of the product.
+     *
+     * @return the grid or {@code null} if the band does not exist or can not be read
+     */
+    static AncGrid decode(Product product, String bandName) {
+        final Band band = product != null ? product.getBand(bandName) : null;
+        if (band == null) {
+            return null;
+        }
+        final int width = band.getRasterWidth();
+        final int height = band.getRasterHeight();
+        final double[] data = new double[width * height];
+        try {
+            band.readPixels(0, 0, width, height, data);
+        } catch (IOException e) {
+            SystemUtils.LOG.warning("Unable to read raster data of " + bandName + " band.");
+            return null;
+        }
+        return new AncGrid(width, data, DataInterpolator.ensureGeocoding(product), Double.NaN);
+    }
+
+    /**
+     * Creates a grid which returns the same value at every location.
+     */
+    static AncGrid constant(double value) {
+        return new AncGrid(0, null, null, value);
+    }
+
+    /**
+     * Decodes the given band of the product, falling back to the default value if this is not possible.
+     */
+    static AncGrid create(String startOrEnd, Product product, String bandName, double defaultValue) {
+        final AncGrid grid = decode(product, bandName);
+        return grid != null ? grid : fallback(startOrEnd, bandName, defaultValue);
+    }
+
+    static AncGrid fallback(String startOrEnd, String bandName, double defaultValue) {
+        SystemUtils.LOG.warning("Fallback interpolation " + startOrEnd + " for " + bandName + " --> default value = " + defaultValue);
+        return constant(defaultValue);
+    }
+
+    double getValue(double latitude, double longitude) {
+        if (data == null) {
+            return constantValue;
+        }
+        final PixelPos pp = geoCoding.getPixelPos(new GeoPos(latitude, longitude), null);
+        return data[(int) pp.y * width + (int) pp.x];
+    }
+}
@@ -0,0 +1,269 @@
+package eu.esa.opt.c2rcc.ancillary;
+
+import org.esa.snap.core.dataio.ProductIO;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.util.SystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Process-wide cache of opened ancillary products, shared by all {@link AncRepository} instances.
+ * <p>
+ * Products are reference counted. A product which is not used by any repository anymore stays open until it is
+ * evicted, either because more than {@code maxProducts} products are cached or because it has not been used for
+ * longer than {@code maxIdleMillis}. Evicted products are disposed. Products still in use are never evicted.
+ * <p>
+ * Products are opened outside of the lock of the cache, so opening a slow file does not block the hits on other
+ * files. Concurrent requests for a file which is being opened wait for that single opening.
+ * <p>
+ * Optionally the cache also keeps the decoded values of the ancillary bands as {@link AncGrid}s, so the data is
+ * read only once per product, no matter how many interpolators use it.
+ */
+class AncProductCache {
+
+    static final String PROPERTY_KEY_MAX_PRODUCTS = "snap.c2rcc.anc.cache.maxProducts";
+    static final String PROPERTY_KEY_MAX_IDLE_SECONDS = "snap.c2rcc.anc.cache.maxIdleSeconds";
+    static final String PROPERTY_KEY_DECODED_GRIDS = "snap.c2rcc.anc.cache.decodedGrids";
+
+    private static final AncProductCache INSTANCE = new AncProductCache(
+            Integer.getInteger(PROPERTY_KEY_MAX_PRODUCTS, 32),
+            Long.getLong(PROPERTY_KEY_MAX_IDLE_SECONDS, 600L) * 1000L,
+            Boolean.parseBoolean(System.getProperty(PROPERTY_KEY_DECODED_GRIDS, "true")),
+            ProductIO::readProduct);
+
+    private final int maxProducts;
+    private final long maxIdleMillis;
+    private final boolean decodedGrids;
+    private final ProductOpener opener;
+    // access ordered, the first entry is the least recently used one
+    private final LinkedHashMap<File, Entry> entries;
+    private final Map<Product, Entry> entriesByProduct;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    AncProductCache(int maxProducts, long maxIdleMillis, boolean decodedGrids, ProductOpener opener) {
+        this.maxProducts = maxProducts;
+        this.maxIdleMillis = maxIdleMillis;
+        this.decodedGrids = decodedGrids;
+        this.opener = opener;
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+        entriesByProduct = new ConcurrentHashMap<>();
+    }
+
+    static AncProductCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the product for the given file and increments its reference count. Each successful call must be
+     * followed by a call to {@link #release(Product)}.
+     *
+     * @param productFile the ancillary product file
+     * @return the product or {@code null} if no reader is available for the file
+     * @throws IOException if the product could not be read
+     */
+    Product acquire(File productFile) throws IOException {
+        final Entry entry;
+        final boolean opening;
+        final List<Product> evicted;
+        synchronized (this) {
+            final File key = productFile.getAbsoluteFile();
+            Entry cached = entries.get(key);
+            if (cached != null) {
+                hitCount++;
+                opening = false;
+            } else {
+                missCount++;
+                // placeholder, the reference taken below keeps it from being evicted while the product is opened
+                cached = new Entry(key);
+                entries.put(key, cached);
+                opening = true;
+            }
+            entry = cached;
+            entry.refCount++;
+            entry.lastAccess = System.currentTimeMillis();
+            evicted = evict();
+        }
+        disposeAll(evicted);
+
+        if (opening) {
+            open(entry, productFile);
+        }
+        try {
+            return entry.future.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+    }
+
+    private void open(Entry entry, File productFile) {
+        final Product product;
+        try {
+            product = opener.open(productFile);
+        } catch (IOException e) {
+            discard(entry);
+            entry.future.completeExceptionally(new UncheckedIOException(e));
+            return;
+        } catch (RuntimeException | Error e) {
+            discard(entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+        if (product == null) {
+            discard(entry);
+        } else {
+            synchronized (this) {
+                entry.product = product;
+                entriesByProduct.put(product, entry);
+            }
+        }
+        entry.future.complete(product);
+    }
+
+    // removes the placeholder of a product which could not be opened, so that the next request tries again
+    private synchronized void discard(Entry entry) {
+        entries.remove(entry.key, entry);
+    }
+
+    /**
+     * Decrements the reference count of a product previously returned by {@link #acquire(File)}.
+     */
+    void release(Product product) {
+        final List<Product> evicted;
+        synchronized (this) {
+            final Entry entry = entriesByProduct.get(product);
+            if (entry == null || entry.refCount == 0) {
+                return;
+            }
+            entry.refCount--;
+            entry.lastAccess = System.currentTimeMillis();
+            evicted = evict();
+        }
+        disposeAll(evicted);
+    }
+
+    /**
+     * Returns the decoded values of a band of a cached product. If the product is not part of this cache or the
+     * decoded grids are disabled, the band is decoded for this call only.
+     *
+     * @return the grid or {@code null} if the band does not exist or can not be read
+     */
+    AncGrid getGrid(Product product, String bandName) {
+        final Entry entry = decodedGrids ? entriesByProduct.get(product) : null;
+        if (entry == null) {
+            return AncGrid.decode(product, bandName);
+        }
+        return entry.grids.computeIfAbsent(bandName, name -> AncGrid.decode(product, name));
+    }
+
+    synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    synchronized long getMissCount() {
+        return missCount;
+    }
+
+    synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Disposes all products which are currently not in use.
+     */
+    void clear() {
+        final List<Product> evicted = new ArrayList<>();
+        synchronized (this) {
+            final Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                final Entry entry = iterator.next();
+                if (entry.refCount == 0 && entry.product != null) {
+                    iterator.remove();
+                    entriesByProduct.remove(entry.product);
+                    evicted.add(entry.product);
+                    evictionCount++;
+                }
+            }
+        }
+        disposeAll(evicted);
+    }
+
+    // must be called while holding the lock, returns the products to be disposed
+    private List<Product> evict() {
+        final List<Product> evicted = new ArrayList<>();
+        final long now = System.currentTimeMillis();
+        int excess = entries.size() - maxProducts;
+        final Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            if (entry.refCount > 0 || entry.product == null) {
+                continue;
+            }
+            if (excess > 0 || now - entry.lastAccess > maxIdleMillis) {
+                iterator.remove();
+                entriesByProduct.remove(entry.product);
+                evicted.add(entry.product);
+                evictionCount++;
+                excess--;
+            }
+        }
+        return evicted;
+    }
+
+    private static void disposeAll(List<Product> products) {
+        for (Product product : products) {
+            try {
+                product.dispose();
+            } catch (Exception e) {
+                SystemUtils.LOG.log(Level.WARNING, "Unable to dispose ancillary product " + product.getName(), e);
+            }
+        }
+    }
+
+    interface ProductOpener {
+
+        Product open(File productFile) throws IOException;
+    }
+
+    private static class Entry {
+
+        private final File key;
+        // completed with the product, or with null if no reader is available for the file
+        private final CompletableFuture<Product> future;
+        private final Map<String, AncGrid> grids;
+        // set once the product has been opened
+        private Product product;
+        private int refCount;
+        private long lastAccess;
+
+        private Entry(File key) {
+            this.key = key;
+            future = new CompletableFuture<>();
+            grids = new ConcurrentHashMap<>();
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package eu.esa.opt.c2rcc.ancillary;
 
-import org.esa.snap.core.dataio.ProductIO;
 import org.esa.snap.core.datamodel.Product;
 
 import java.io.File;
@@ -12,6 +11,7 @@ class AncRepository {
 
     private final File repsitoryRoot;
     private final AncDownloader ancDownloader;
+    private final AncProductCache productCache;
     private final Map<String, Product> productMap;
 
     public AncRepository(File repsitoryRoot) {
@@ -19,12 +19,17 @@ class AncRepository {
     }
 
     public AncRepository(File repsitoryRoot, AncDownloader ancDownloader) {
+        this(repsitoryRoot, ancDownloader, AncProductCache.getInstance());
+    }
+
+    AncRepository(File repsitoryRoot, AncDownloader ancDownloader, AncProductCache productCache) {
         this.repsitoryRoot = repsitoryRoot;
         this.ancDownloader = ancDownloader;
+        this.productCache = productCache;
         productMap = new HashMap<>();
     }
 
-    public Product getProduct(String[] filenames) throws IOException {
+    public synchronized Product getProduct(String[] filenames) throws IOException {
         Product product;
         product = findProductInMap(filenames);
         if (product != null) {
@@ -45,6 +50,16 @@ class AncRepository {
         return loadProduct(productFile);
     }
 
+    /**
+     * Returns the decoded values of a band of a product provided by this repository.
+     *
+     * @return the grid, or a constant grid providing the default value if the band is not available
+     */
+    AncGrid getGrid(String startOrEnd, Product product, String bandName, double defaultValue) {
+        final AncGrid grid = productCache.getGrid(product, bandName);
+        return grid != null ? grid : AncGrid.fallback(startOrEnd, bandName, defaultValue);
+    }
+
     private Product findProductInArchive(File[] productFiles) throws IOException {
         for (File productFile : productFiles) {
             if (productFile.exists()) {
@@ -56,9 +71,12 @@ class AncRepository {
 
     private Product loadProduct(File productFile) throws IOException {
         final String filename = productFile.getName();
-        final Product product = ProductIO.readProduct(productFile);
+        final Product product = productCache.acquire(productFile);
         if (product != null) {
-            productMap.put(filename, product);
+            final Product previous = productMap.put(filename, product);
+            if (previous != null) {
+                productCache.release(previous);
+            }
         }
         return product;
     }
@@ -88,9 +106,10 @@ class AncRepository {
         return null;
     }
 
-    public void dispose() {
+    public synchronized void dispose() {
         for (Product product : productMap.values()) {
-            product.dispose();
+            productCache.release(product);
         }
+        productMap.clear();
     }
-}
\ No newline at end of file
+}
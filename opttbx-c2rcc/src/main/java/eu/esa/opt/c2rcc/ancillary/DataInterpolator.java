@@ -2,15 +2,12 @@ package eu.esa.opt.c2rcc.ancillary;
 
 import org.esa.snap.core.dataio.ProductSubsetDef;
 import org.esa.snap.core.datamodel.AbstractGeoCoding;
-import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.GeoCoding;
 import org.esa.snap.core.datamodel.GeoPos;
 import org.esa.snap.core.datamodel.PixelPos;
 import org.esa.snap.core.datamodel.Product;
-import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.datamodel.Scene;
 import org.esa.snap.core.dataop.maptransf.Datum;
-import org.esa.snap.core.util.SystemUtils;
 
 import java.io.IOException;
 
@@ -20,33 +17,6 @@ abstract class DataInterpolator {
 
     abstract void dispose();
 
-    protected static Band ensureInterpolation(final String startOrEnd, Product product, final String bandName, final double defaultValue) {
-        final Band band = product != null ? product.getBand(bandName) : null;
-        if (band != null) {
-            if (band.hasRasterData()) {
-                return band;
-            }
-            try {
-                band.readRasterDataFully();
-                return band;
-            } catch (IOException e) {
-                SystemUtils.LOG.warning("Unable to read raster data of " + bandName + startOrEnd + "band.");
-            }
-        }
-        SystemUtils.LOG.warning("Fallback interpolation " + startOrEnd + " for " + bandName + " --> default value = " + defaultValue);
-        return new Band(bandName, ProductData.TYPE_FLOAT64, 1, 1) {
-            @Override
-            public double getPixelDouble(int x, int y) {
-                return defaultValue;
-            }
-        };
-    }
-
-    protected static double getValue(Band band, GeoCoding geoCoding, double latitude, double longitude) {
-        final PixelPos pp = geoCoding.getPixelPos(new GeoPos(latitude, longitude), null);
-        return band.getPixelDouble((int) pp.x, (int) pp.y);
-    }
-
     protected static GeoCoding ensureGeocoding(Product product) {
         final int width;
         final int height;
@@ -40,13 +40,13 @@ class DataInterpolatorDynamic extends DataInterpolator {
         }
         final String[] startFilenames = ancDataFormat.getFilenames(ibc.getStartAncFilePrefix());
         final String[] endFilenames = ancDataFormat.getFilenames(ibc.getEndAncFilePrefix());
+        final String bandName = ancDataFormat.getBandName();
+        final double defaultValue = ancDataFormat.getDefaultValue();
         currentDataInterpolator = new DataInterpolatorStatic
                     (
                                 startBorderTimeMDJ, ibc.getEndBorderTimeMJD(),
-                                ancRepository.getProduct(startFilenames),
-                                ancRepository.getProduct(endFilenames),
-                                ancDataFormat.getBandName(),
-                                ancDataFormat.getDefaultValue()
+                                ancRepository.getGrid("start", ancRepository.getProduct(startFilenames), bandName, defaultValue),
+                                ancRepository.getGrid("end", ancRepository.getProduct(endFilenames), bandName, defaultValue)
                     );
         interpolatorMap.put(startBorderTimeMDJ, currentDataInterpolator);
         currentBorderTime = startBorderTimeMDJ;
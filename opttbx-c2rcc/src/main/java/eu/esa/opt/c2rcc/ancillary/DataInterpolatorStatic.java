@@ -1,25 +1,25 @@
 package eu.esa.opt.c2rcc.ancillary;
 
-import org.esa.snap.core.datamodel.Band;
-import org.esa.snap.core.datamodel.GeoCoding;
 import org.esa.snap.core.datamodel.Product;
 
 class DataInterpolatorStatic extends DataInterpolator {
 
     private final double startTimeMJD;
     private final double endTimeMJD;
-    private Band startBand;
-    private Band endBand;
-    private final GeoCoding startGC;
-    private final GeoCoding endGC;
+    private AncGrid startGrid;
+    private AncGrid endGrid;
 
     public DataInterpolatorStatic(double startTimeMJD, double endTimeMJD, Product startProduct, Product endProduct, final String bandName, double defaultValue) {
+        this(startTimeMJD, endTimeMJD,
+             AncGrid.create("start", startProduct, bandName, defaultValue),
+             AncGrid.create("end", endProduct, bandName, defaultValue));
+    }
+
+    DataInterpolatorStatic(double startTimeMJD, double endTimeMJD, AncGrid startGrid, AncGrid endGrid) {
         this.startTimeMJD = startTimeMJD;
         this.endTimeMJD = endTimeMJD;
-        this.startBand = ensureInterpolation("start", startProduct, bandName, defaultValue);
-        this.endBand = ensureInterpolation("end", endProduct, bandName, defaultValue);
-        this.startGC = ensureGeocoding(startProduct);
-        this.endGC = ensureGeocoding(endProduct);
+        this.startGrid = startGrid;
+        this.endGrid = endGrid;
     }
 
     @Override
@@ -31,17 +31,16 @@ class DataInterpolatorStatic extends DataInterpolator {
 
     @Override
     public void dispose() {
-        startGC.dispose();
-        endGC.dispose();
-        endBand = null;
-        startBand = null;
+        // the grids may be shared with other interpolators, the geo-codings are owned by the products
+        endGrid = null;
+        startGrid = null;
     }
 
     protected double getStartValue(double latitude, double longitude) {
-        return getValue(startBand, startGC, latitude, longitude);
+        return startGrid.getValue(latitude, longitude);
     }
 
     protected double getEndValue(double latitude, double longitude) {
-        return getValue(endBand, endGC, latitude, longitude);
+        return endGrid.getValue(latitude, longitude);
     }
 }
@@ -1,6 +1,6 @@
 package eu.esa.opt.c2rcc.olci;
 
-import org.esa.snap.core.nn.NNffbpAlphaTabFast;
+import eu.esa.opt.c2rcc.util.NNBatchEvaluator;
 import org.esa.snap.core.util.BitSetter;
 
 import java.io.BufferedReader;
@@ -12,7 +12,6 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
 
 import static java.lang.Math.PI;
 import static java.lang.Math.abs;
@@ -23,9 +22,6 @@ import static java.lang.Math.max;
 import static java.lang.Math.pow;
 import static java.lang.Math.sin;
 import static java.lang.Math.toRadians;
-import static eu.esa.opt.c2rcc.util.ArrayMath.a_abs;
-import static eu.esa.opt.c2rcc.util.ArrayMath.a_exp;
-import static eu.esa.opt.c2rcc.util.ArrayMath.a_sumx;
 
 /**
  * @author Roland Doerffer
@@ -105,17 +101,18 @@ public class C2rccOlciAlgorithm {
 
     private static final double[] h2o_cor_poly = {0.3832989, 1.6527957, -1.5635101, 0.5311913};
 
-    private final ThreadLocal<NNffbpAlphaTabFast> nn_rw_iop; // NN Rw -< IOPs input 10 bands, 5 IOPs
-    private final ThreadLocal<NNffbpAlphaTabFast> nn_rtosa_rw; // NN Rtosa -> Rw 12 bands
-    private final ThreadLocal<NNffbpAlphaTabFast> nn_rtosa_aann; // Rtosa -> Rtosa' 12 bands
-    private final ThreadLocal<NNffbpAlphaTabFast> nn_rtosa_rpath; //Rtosa -> Rpath 12 bands
-    private final ThreadLocal<NNffbpAlphaTabFast> nn_rtosa_trans; // Rtosa -> transd, transu 12 bands
-    private final ThreadLocal<NNffbpAlphaTabFast> nn_iop_rw; // IOPs(5) -> Rw' (10 bands)
-    private final ThreadLocal<NNffbpAlphaTabFast> nn_rw_kd; // Rw (10 bands) -> kd489, kdmin
-    private final ThreadLocal<NNffbpAlphaTabFast> nn_iop_unciop; // IOPs (5) -> uncertainties of IOPs (5)
-    private final ThreadLocal<NNffbpAlphaTabFast> nn_iop_uncsumiop_unckd; // IOPs (5) -> unc_adg, unc_atot, unc_btot, unc_kd489, unc_kdmin
-    private final ThreadLocal<NNffbpAlphaTabFast> nn_rw_rwnorm; // Rw (10) -> Rwn (10)
+    private final NNBatchEvaluator nn_rw_iop; // NN Rw -< IOPs input 10 bands, 5 IOPs
+    private final NNBatchEvaluator nn_rtosa_rw; // NN Rtosa -> Rw 12 bands
+    private final NNBatchEvaluator nn_rtosa_aann; // Rtosa -> Rtosa' 12 bands
+    private final NNBatchEvaluator nn_rtosa_rpath; //Rtosa -> Rpath 12 bands
+    private final NNBatchEvaluator nn_rtosa_trans; // Rtosa -> transd, transu 12 bands
+    private final NNBatchEvaluator nn_iop_rw; // IOPs(5) -> Rw' (10 bands)
+    private final NNBatchEvaluator nn_rw_kd; // Rw (10 bands) -> kd489, kdmin
+    private final NNBatchEvaluator nn_iop_unciop; // IOPs (5) -> uncertainties of IOPs (5)
+    private final NNBatchEvaluator nn_iop_uncsumiop_unckd; // IOPs (5) -> unc_adg, unc_atot, unc_btot, unc_kd489, unc_kdmin
+    private final NNBatchEvaluator nn_rw_rwnorm; // Rw (10) -> Rwn (10)
     private final ArrayList<String> nnNames;
+    private final ThreadLocal<Workspace> resultWorkspaces = ThreadLocal.withInitial(this::createWorkspace);
     private double salinity = 35.0;
     private double temperature = 15.0;
 
@@ -235,6 +232,28 @@ public class C2rccOlciAlgorithm {
         this.salinity = salinity;
     }
 
+    /**
+     * Creates a new workspace holding all buffers needed by
+     * {@link #processPixel(int, int, double, double, double[], double[], double, double, double, double, double, boolean, double, double, Workspace)}.
+     * The workspace is sized for the current settings of this algorithm and must not be shared between threads.
+     *
+     * @return a new workspace sized for the neural nets of this algorithm
+     */
+    public Workspace createWorkspace() {
+        return new Workspace(createBatch(1));
+    }
+
+    /**
+     * Creates a new batch for {@link #processPixels(Batch, int)}, e.g. for the pixels of a tile row.
+     * The batch is sized for the current settings of this algorithm and must not be shared between threads.
+     *
+     * @param capacity the maximum number of pixels processed at once
+     * @return a new batch
+     */
+    public Batch createBatch(int capacity) {
+        return new Batch(capacity, this);
+    }
+
     public Result processPixel(int px, int py,
                                double lat, double lon,
                                double[] toa_rad,
@@ -247,142 +266,281 @@ public class C2rccOlciAlgorithm {
                                boolean validPixel,
                                double atm_press,
                                double ozone) {
+        final Workspace ws = resultWorkspaces.get();
+        processPixel(px, py, lat, lon, toa_rad, solflux, sun_zeni, sun_azi, view_zeni, view_azi, dem_alt, validPixel,
+                     atm_press, ozone, ws);
+        return ws.toResult();
+    }
 
-        //  (9.2) compute angles
-        double cos_sun = cos(toRadians(sun_zeni));
-        double cos_view = cos(toRadians(view_zeni));
-//        double sin_sun = sin(toRadians(sun_zeni));
-        double sin_view = sin(toRadians(view_zeni));
+    /**
+     * Processes a single pixel and writes the results into the given workspace. No arrays are allocated,
+     * so this method is suited for processing whole tiles with one workspace per thread.
+     * For many pixels at once, {@link #processPixels(Batch, int)} is faster.
+     *
+     * @param ws the workspace receiving the results, see {@link #createWorkspace()}
+     */
+    public void processPixel(int px, int py,
+                             double lat, double lon,
+                             double[] toa_rad,
+                             double[] solflux,
+                             double sun_zeni,
+                             double sun_azi,
+                             double view_zeni,
+                             double view_azi,
+                             double dem_alt,
+                             boolean validPixel,
+                             double atm_press,
+                             double ozone,
+                             Workspace ws) {
+        final Batch batch = ws.batch;
+        System.arraycopy(toa_rad, 0, batch.toa_rad, 0, batch.numToaBands);
+        System.arraycopy(solflux, 0, batch.solflux, 0, batch.numToaBands);
+        batch.sun_zeni[0] = sun_zeni;
+        batch.sun_azi[0] = sun_azi;
+        batch.view_zeni[0] = view_zeni;
+        batch.view_azi[0] = view_azi;
+        batch.dem_alt[0] = dem_alt;
+        batch.validPixel[0] = validPixel;
+        batch.atm_press[0] = atm_press;
+        batch.ozone[0] = ozone;
+        processPixels(batch, 1);
+
+        ws.reset();
+        if (validPixel) {
+            ws.r_tosa = batch.r_tosa;
+            ws.rtosa_aann = batch.rtosa_aann;
+            if (outputRpath || deriveRwFromPathAndTransmittance) {
+                ws.rpath_nn = batch.rpath_nn;
+            }
+            if (outputTdown || deriveRwFromPathAndTransmittance) {
+                ws.transd_nn = batch.transd_nn;
+            }
+            if (outputTup || deriveRwFromPathAndTransmittance) {
+                ws.transu_nn = batch.transu_nn;
+            }
+            if (outputRwa) {
+                ws.rwa = batch.rwa;
+            }
+            if (outputRwn) {
+                ws.rwn = batch.rwn;
+            }
+            ws.iops_nn = batch.iops_nn;
+            if (outputUncertainties) {
+                ws.unc_iop_abs = batch.unc_iop_abs;
+            }
+        }
+        ws.rtosa_oos = batch.rtosa_oos[0];
+        ws.rwa_oos = batch.rwa_oos[0];
+        ws.kd489_nn = batch.kd489_nn[0];
+        ws.kdmin_nn = batch.kdmin_nn[0];
+        ws.unc_abs_adg = batch.unc_abs_adg[0];
+        ws.unc_abs_atot = batch.unc_abs_atot[0];
+        ws.unc_abs_btot = batch.unc_abs_btot[0];
+        ws.unc_abs_chl = batch.unc_abs_chl[0];
+        ws.unc_abs_tsm = batch.unc_abs_tsm[0];
+        ws.unc_abs_kd489 = batch.unc_abs_kd489[0];
+        ws.unc_abs_kdmin = batch.unc_abs_kdmin[0];
+        ws.flags = batch.flags[0];
+    }
 
+    /**
+     * Processes the first {@code count} pixels of a batch. The inputs are taken from the input arrays of the batch,
+     * the results are written into its result arrays.
+     * <br>The pixel wise parts of the algorithm are computed pixel by pixel, but each neural net is evaluated for
+     * all valid pixels of the batch at once, as a matrix-matrix product.
+     *
+     * @param batch the batch, see {@link #createBatch(int)}
+     * @param count the number of pixels, not larger than the capacity of the batch
+     */
+    public void processPixels(Batch batch, int count) {
+        if (count > batch.capacity) {
+            throw new IllegalArgumentException("The batch holds only " + batch.capacity + " pixels, not " + count);
+        }
+        final int numValid = prepareAtmosphereInput(batch, count);
+        final NNBatchEvaluator.Scratch scratch = batch.scratch;
+
+        // (9.4.2), (9.4.4), (9.4.5), (9.4.6) atmosphere NNs
+        nn_rtosa_aann.calc(batch.nn_in, batch.aann_out, numValid, scratch);
+        if (outputRpath || deriveRwFromPathAndTransmittance) {
+            nn_rtosa_rpath.calc(batch.nn_in, batch.rpath_out, numValid, scratch);
+        }
+        nn_rtosa_trans.calc(batch.nn_in, batch.trans_out, numValid, scratch);
+        if (!deriveRwFromPathAndTransmittance) {
+            nn_rtosa_rw.calc(batch.nn_in, batch.log_rw, numValid, scratch);
+        }
+        prepareWaterInput(batch, numValid);
 
-        double azi_diff_deg = abs(180 + view_azi - sun_azi);
-        if (azi_diff_deg > 180) {
-            azi_diff_deg = 360 - azi_diff_deg;
+        // (9.x.x.), (9.10.1), (9.5.8) water NNs
+        if (outputRwn) {
+            nn_rw_rwnorm.calc(batch.nn_in_inv, batch.rwn_out, numValid, scratch);
         }
-        double azi_diff_rad = toRadians(azi_diff_deg);
-        double cos_azi_diff = cos(azi_diff_rad);
-        double sin_azi_diff = sin(azi_diff_rad);
-
-        double x = sin_view * cos_azi_diff;
-        double y = sin_view * sin_azi_diff;
-        double z = cos_view;
-
-        double[] r_toa = new double[toa_rad.length];
-        for (int i = 0; i < toa_rad.length; i++) {
-            // r_toa =toa_rad'./solflux'.*%pi./cos_sun;
-            r_toa[i] = PI * toa_rad[i] / solflux[i] / cos_sun;
+        nn_rw_iop.calc(batch.nn_in_inv, batch.iop_out, numValid, scratch);
+        if (outputKd || outputUncertainties) {
+            nn_rw_kd.calc(batch.nn_in_inv, batch.kd_out, numValid, scratch);
         }
+        prepareForwardInput(batch, numValid);
 
-        double[] r_tosa = new double[0];
-        int flags = 0;
-        double[] rtosa_aann = new double[0];
-        double rtosa_oos = 0;
-        double[] rpath_nn = new double[0];
-        double[] transd_nn = new double[0];
-        double[] transu_nn = new double[0];
-        double[] rwa = new double[0];
-        double[] rwn = new double[0];
-        double[] iops_nn = new double[0];
-        double rwa_oos = 0;
-        double kdmin_nn = 0;
-        double kd489_nn = 0;
-        double unc_iop_abs[] = new double[0];
-        double unc_abs_chl = 0;
-        double unc_abs_adg = 0;
-        double unc_abs_atot = 0;
-        double unc_abs_btot = 0;
-        double unc_abs_kd489 = 0;
-        double unc_abs_kdmin = 0;
-        double unc_abs_tsm = 0;
+        // (9.5.6) forward NN and (9.6) uncertainty NNs
+        nn_iop_rw.calc(batch.nn_in_for, batch.iop_rw_out, numValid, scratch);
+        if (outputUncertainties) {
+            nn_iop_unciop.calc(batch.iop_out, batch.unc_iop_out, numValid, scratch);
+            nn_iop_uncsumiop_unckd.calc(batch.iop_out, batch.unc_sum_out, numValid, scratch);
+        }
+        completePixels(batch, numValid);
+    }
 
-        if (validPixel) {
-            double[] r_tosa_ur = new double[olciband16_ix.length];
-            for (int i = 0; i < olciband16_ix.length; i++) {
-                r_tosa_ur[i] = r_toa[olciband16_ix[i] - 1]; // -1 because counts in Scilab start at 1 not 0
+    // computes the reflectances of all pixels and the input of the atmosphere NNs of the valid ones,
+    // returns the number of valid pixels
+    private int prepareAtmosphereInput(Batch batch, int count) {
+        final int numToaBands = batch.numToaBands;
+        final int numTosaBands = batch.numTosaBands;
+        final int numIn = batch.numAtmosphereIn;
+        final double[] mi = nn_rtosa_aann.getInmin();
+        final double[] ma = nn_rtosa_aann.getInmax();
+        int numValid = 0;
+        for (int p = 0; p < count; p++) {
+            final double sun_zeni = batch.sun_zeni[p];
+            final double view_zeni = batch.view_zeni[p];
+
+            //  (9.2) compute angles
+            double cos_sun = cos(toRadians(sun_zeni));
+            double cos_view = cos(toRadians(view_zeni));
+//            double sin_sun = sin(toRadians(sun_zeni));
+            double sin_view = sin(toRadians(view_zeni));
+
+
+            double azi_diff_deg = abs(180 + batch.view_azi[p] - batch.sun_azi[p]);
+            if (azi_diff_deg > 180) {
+                azi_diff_deg = 360 - azi_diff_deg;
             }
+            double azi_diff_rad = toRadians(azi_diff_deg);
+            double cos_azi_diff = cos(azi_diff_rad);
+            double sin_azi_diff = sin(azi_diff_rad);
+
+            double x = sin_view * cos_azi_diff;
+            double y = sin_view * sin_azi_diff;
+            double z = cos_view;
+
+            final double[] r_toa = batch.r_toa;
+            final int toaOffset = p * numToaBands;
+            for (int i = 0; i < numToaBands; i++) {
+                // r_toa =toa_rad'./solflux'.*%pi./cos_sun;
+                r_toa[toaOffset + i] = PI * batch.toa_rad[toaOffset + i] / batch.solflux[toaOffset + i] / cos_sun;
+            }
+
+            batch.reset(p);
+            if (!batch.validPixel[p]) {
+                continue;
+            }
+            final int v = numValid++;
+            batch.validIndex[v] = p;
+            batch.azi_diff_deg[v] = azi_diff_deg;
 
             // @todo discuss with Carsten and Roland
             // (9.3.0) +++ water vapour correction for band 9 +++++ */
             //X2=rho_900/rho_885;
-            double X2 = r_toa[18] / r_toa[17];
+            double X2 = r_toa[toaOffset + 18] / r_toa[toaOffset + 17];
             double trans708 = h2o_cor_poly[0] + (h2o_cor_poly[1] + (h2o_cor_poly[2] + h2o_cor_poly[3] * X2) * X2) * X2;
-            r_tosa_ur[10] /= trans708;
 
             //*** (9.3.1) ozone correction ***/
             double model_ozone = 0;
+            final double ozone = batch.ozone[p];
 
-            r_tosa = new double[r_tosa_ur.length];
-            double[] log_rtosa = new double[r_tosa_ur.length];
-            for (int i = 0; i < r_tosa_ur.length; i++) {
+            final double[] r_tosa = batch.r_tosa;
+            final int tosaOffset = p * numTosaBands;
+            // (9.4) )set input to all atmosphere NNs
+            //nn_in=[sun_zeni,x,y,z,temperature, salinity, alti_press, log_rtosa];
+            final double[] nn_in = batch.nn_in;
+            final int inOffset = v * numIn;
+            for (int i = 0; i < numTosaBands; i++) {
+                double r_tosa_ur = r_toa[toaOffset + olciband16_ix[i] - 1]; // -1 because counts in Scilab start at 1 not 0
+                if (i == 10) {
+                    r_tosa_ur /= trans708;
+                }
 
                 double trans_ozoned = exp(-(absorb_ozon[i] * ozone / 1000.0 - model_ozone) / cos_sun);
                 double trans_ozoneu = exp(-(absorb_ozon[i] * ozone / 1000.0 - model_ozone) / cos_view);
                 double trans_ozone = trans_ozoned * trans_ozoneu;
 
-                double r_tosa_oz = r_tosa_ur[i] / trans_ozone;
+                double r_tosa_oz = r_tosa_ur / trans_ozone;
 
-                r_tosa[i] = r_tosa_oz;
-                log_rtosa[i] = log(r_tosa[i]);
+                r_tosa[tosaOffset + i] = r_tosa_oz;
+                nn_in[inOffset + 7 + i] = log(r_tosa_oz);
             }
 
             // (9.3.2) altitude pressure correction
             // this is only a very simplified formula, later use more exact one
             // also for larger lakes the dem_alt presently provideds the altitude of the lake bottom
             // will be changed later to altitude of the lake surface
+            final double dem_alt = batch.dem_alt[p];
             double alti_press;
             if (dem_alt > 10.0) {
-                alti_press = atm_press * exp(-dem_alt / 8000.0);
+                alti_press = batch.atm_press[p] * exp(-dem_alt / 8000.0);
             } else {
-                alti_press = atm_press;
+                alti_press = batch.atm_press[p];
             }
 
-            // (9.4) )set input to all atmosphere NNs
-            //nn_in=[sun_zeni,x,y,z,temperature, salinity, alti_press, log_rtosa];
-            double[] nn_in = new double[7 + log_rtosa.length];
-            nn_in[0] = sun_zeni;
-            nn_in[1] = x;
-            nn_in[2] = y;
-            nn_in[3] = z;
-            nn_in[4] = temperature;
-            nn_in[5] = salinity;
-            nn_in[6] = alti_press;
-            System.arraycopy(log_rtosa, 0, nn_in, 7, log_rtosa.length);
-
-            flags = 0;
+            nn_in[inOffset] = sun_zeni;
+            nn_in[inOffset + 1] = x;
+            nn_in[inOffset + 2] = y;
+            nn_in[inOffset + 3] = z;
+            nn_in[inOffset + 4] = temperature;
+            nn_in[inOffset + 5] = salinity;
+            nn_in[inOffset + 6] = alti_press;
 
             // (9.4.1) test if input tosa spectrum is out of range
             // mima=aa_rtosa_nn_bn7_9(5); // minima and maxima of aaNN input
-            double[] mi = nn_rtosa_aann.get().getInmin();
-            double[] ma = nn_rtosa_aann.get().getInmax();
             boolean rtosa_oor_flag = false; // (ipix)
             // for iv=1:19,// variables
-            for (int iv = 0; iv < nn_in.length; iv++) { // variables
-                if (nn_in[iv] < mi[iv] || nn_in[iv] > ma[iv]) {
+            for (int iv = 0; iv < numIn; iv++) { // variables
+                final double value = nn_in[inOffset + iv];
+                if (value < mi[iv] || value > ma[iv]) {
                     rtosa_oor_flag = true; // (ipix)
                 }
             }
-            flags = BitSetter.setFlag(flags, FLAG_INDEX_RTOSA_OOR, rtosa_oor_flag);
+            batch.flags[p] = BitSetter.setFlag(0, FLAG_INDEX_RTOSA_OOR, rtosa_oor_flag);
+        }
+        return numValid;
+    }
 
+    // evaluates the atmosphere NNs of the valid pixels and computes the input of the water NNs
+    private void prepareWaterInput(Batch batch, int numValid) {
+        final int numTosaBands = batch.numTosaBands;
+        final int numAann = batch.numAann;
+        final int numRpath = batch.numRpath;
+        final int numTrans = batch.numTrans;
+        final int numTransOut = nn_rtosa_trans.getOutputCount();
+        final int numRw = batch.numRw;
+        final int numInInv = batch.numWaterIn;
+        final double[] mi = nn_rw_iop.getInmin();
+        final double[] ma = nn_rw_iop.getInmax();
+        for (int v = 0; v < numValid; v++) {
+            final int p = batch.validIndex[v];
+            int flags = batch.flags[p];
+            final int tosaOffset = p * numTosaBands;
 
             // (9.4.2) test out of scope spectra with autoassociative neural network
-            rtosa_aann = new double[0];
-            double[] log_rtosa_aann = new double[0];
             //if (outputRtoaGcAann || outputOos) {
-                log_rtosa_aann = this.nn_rtosa_aann.get().calc(nn_in);
-                rtosa_aann = a_exp(log_rtosa_aann);
+                final double[] rtosa_aann = batch.rtosa_aann;
+                final int aannOffset = p * numAann;
+                for (int i = 0; i < numAann; i++) {
+                    rtosa_aann[aannOffset + i] = exp(batch.aann_out[v * numAann + i]);
+                }
             //}
             //double[] rtosa_aaNNrat = adiv(rtosa_aann, r_tosa);
             //rtosa_aaNNrat_a(ipix,:)=rtosa_aaNNrat;
-            rtosa_oos = 0;
+            double rtosa_oos = 0;
             //if (outputOos) {
             //    double[] abs_diff_log_rtosa = a_abs(log_rtosa, log_rtosa_aann);
             //    rtosa_oos = a_max(abs_diff_log_rtosa);
             //}
             // RD20161103 changed to sum of differences of bands 9-12
             //if (outputOos) {
-            double[] abs_diff_rtosa = a_abs(r_tosa, rtosa_aann);
-            rtosa_oos = a_sumx(abs_diff_rtosa,12,15);
+            for (int i = 12; i <= 15; i++) {
+                rtosa_oos += abs(batch.r_tosa[tosaOffset + i] - rtosa_aann[aannOffset + i]);
+            }
             //}
+            batch.rtosa_oos[p] = rtosa_oos;
 
             // (9.6.1) set rho_toa out of scope flag
             // double rtosa_aaNNrat_min = amin(rtosa_aaNNrat);
@@ -403,106 +561,96 @@ public class C2rccOlciAlgorithm {
             flags = BitSetter.setFlag(flags, FLAG_INDEX_RTOSA_OOS, rtosa_oos_flag);
 
             // (9.4.4) NN compute rpath from rtosa
-            rpath_nn = new double[0];
+            final int rpathOffset = p * numRpath;
             if (outputRpath || deriveRwFromPathAndTransmittance) {
-                double[] log_rpath_nn = nn_rtosa_rpath.get().calc(nn_in);
-                rpath_nn = a_exp(log_rpath_nn);
+                for (int i = 0; i < numRpath; i++) {
+                    batch.rpath_nn[rpathOffset + i] = exp(batch.rpath_out[v * numRpath + i]);
+                }
             }
 
             // (9.4.5) NN compute transmittance from rtosa
-            transd_nn = new double[0];
-            transu_nn = new double[0];
-            double[] trans_nn = nn_rtosa_trans.get().calc(nn_in);
+            final int transOutOffset = v * numTransOut;
             // cloud flag test @865
-            flags = BitSetter.setFlag(flags, FLAG_INDEX_CLOUD, trans_nn[13] < thresh_cloudTransD);
+            flags = BitSetter.setFlag(flags, FLAG_INDEX_CLOUD, batch.trans_out[transOutOffset + 13] < thresh_cloudTransD);
+            final int transOffset = p * numTrans;
             if (outputTdown || deriveRwFromPathAndTransmittance) {
-                transd_nn = Arrays.copyOfRange(trans_nn, 0, 16);
+                System.arraycopy(batch.trans_out, transOutOffset, batch.transd_nn, transOffset, numTrans);
             }
             if (outputTup || deriveRwFromPathAndTransmittance) {
-                transu_nn = Arrays.copyOfRange(trans_nn, 16, 32);
+                System.arraycopy(batch.trans_out, transOutOffset + 16, batch.transu_nn, transOffset, numTrans);
             }
 
             // (9.4.6)
-            double[] log_rw;
-            if(deriveRwFromPathAndTransmittance) {
+            final double[] log_rw = batch.log_rw;
+            final int rwOffset = v * numRw;
+            if (deriveRwFromPathAndTransmittance) {
                 // needs outputRpath & outputTdown & outputTup
-                log_rw = new double[r_tosa.length];
-                for (int i = 0; i < r_tosa.length; i++) {
-                    log_rw[i] = r_tosa[i] - rpath_nn[i] / (transu_nn[i] * transd_nn[i]);
+                for (int i = 0; i < numTosaBands; i++) {
+                    log_rw[rwOffset + i] = batch.r_tosa[tosaOffset + i]
+                            - batch.rpath_nn[rpathOffset + i] / (batch.transu_nn[transOffset + i] * batch.transd_nn[transOffset + i]);
                 }
-            }else {
-                log_rw = nn_rtosa_rw.get().calc(nn_in);
             }
 
-            rwa = new double[0];
             if (outputRwa) {
-                rwa = a_exp(log_rw);
+                for (int i = 0; i < numRw; i++) {
+                    batch.rwa[p * numRw + i] = exp(log_rw[rwOffset + i]);
+                }
             }
 
             // (9.5) water part
 
             // define input to water NNs
             //nn_in_inv=[sun_zeni view_zeni azi_diff_deg temperature salinity log_rw(1:10)];
-            double[] nn_in_inv = new double[5 + 12];
-            nn_in_inv[0] = sun_zeni;
-            nn_in_inv[1] = view_zeni;
-            nn_in_inv[2] = azi_diff_deg;
-            nn_in_inv[3] = temperature;
-            nn_in_inv[4] = salinity;
-            System.arraycopy(log_rw, 0, nn_in_inv, 5, 12);
+            final double[] nn_in_inv = batch.nn_in_inv;
+            final int inOffset = v * numInInv;
+            nn_in_inv[inOffset] = batch.sun_zeni[p];
+            nn_in_inv[inOffset + 1] = batch.view_zeni[p];
+            nn_in_inv[inOffset + 2] = batch.azi_diff_deg[v];
+            nn_in_inv[inOffset + 3] = temperature;
+            nn_in_inv[inOffset + 4] = salinity;
+            System.arraycopy(log_rw, rwOffset, nn_in_inv, inOffset + 5, 12);
 
             // (9.5.1)check input to rw -> IOP NN out of range
-            mi = nn_rw_iop.get().getInmin();
-            ma = nn_rw_iop.get().getInmax();
             boolean rwa_oor_flag = false;
-            for (int iv = 0; iv < nn_in_inv.length; iv++) {
-                if (nn_in_inv[iv] < mi[iv] | nn_in_inv[iv] > ma[iv]) {
+            for (int iv = 0; iv < numInInv; iv++) {
+                final double value = nn_in_inv[inOffset + iv];
+                if (value < mi[iv] | value > ma[iv]) {
                     rwa_oor_flag = true; // (ipix)
                 }
             }
-            flags = BitSetter.setFlag(flags, FLAG_INDEX_RHOW_OOR, rwa_oor_flag);
+            batch.flags[p] = BitSetter.setFlag(flags, FLAG_INDEX_RHOW_OOR, rwa_oor_flag);
+        }
+    }
+
+    // evaluates the water NNs of the valid pixels and computes the input of the forward NN
+    private void prepareForwardInput(Batch batch, int numValid) {
+        final int numRwn = batch.numRwn;
+        final int numIops = batch.numIops;
+        final int numInFor = batch.numForwardIn;
+        final double[] mi = nn_rw_iop.getOutmin();
+        final double[] ma = nn_rw_iop.getOutmax();
+        for (int v = 0; v < numValid; v++) {
+            final int p = batch.validIndex[v];
+            int flags = batch.flags[p];
 
             // (9.x.x.) NN compute Rwn from Rw
-            rwn = new double[0];
             if (outputRwn) {
-                double[] log_rwn = nn_rw_rwnorm.get().calc(nn_in_inv);
-                rwn = a_exp(log_rwn);
+                for (int i = 0; i < numRwn; i++) {
+                    batch.rwn[p * numRwn + i] = exp(batch.rwn_out[v * numRwn + i]);
+                }
             }
 
             // (9.10.1) NN compute IOPs from rw
-            double[] log_iops_nn1 = nn_rw_iop.get().calc(nn_in_inv);
-            iops_nn = a_exp(log_iops_nn1);
-
-            // (9.14) compute combined IOPs and concentrations
-            // split IOPs
-            double log_conc_ap_nn1 = log_iops_nn1[0];
-            double log_conc_ad_nn1 = log_iops_nn1[1];
-            double log_conc_ag_nn1 = log_iops_nn1[2];
-            double log_conc_bp_nn1 = log_iops_nn1[3];
-            double log_conc_bw_nn1 = log_iops_nn1[4];
-
-            double ap_nn1 = exp(log_conc_ap_nn1);
-            double ad_nn1 = exp(log_conc_ad_nn1);
-            double ag_nn1 = exp(log_conc_ag_nn1);
-            double bp_nn1 = exp(log_conc_bp_nn1);
-            double bw_nn1 = exp(log_conc_bw_nn1);
-
-            // combine IOPs
-            double adg_nn1 = ad_nn1 + ag_nn1;
-            double atot_nn1 = adg_nn1 + ap_nn1;
-            double btot_nn1 = bp_nn1 + bw_nn1;
-
-            // compute concentrations
-            // todo Roland fragen ... CHLfaktor wirklich 21.o oder 20.0 ?
-//        double chl_nn1 = 21.0 * pow(ap_nn1, 1.04);
-//        double tsm_nn1 = btot_nn1 * 1.73;
+            final int iopOutOffset = v * numIops;
+            for (int i = 0; i < numIops; i++) {
+                batch.iops_nn[p * numIops + i] = exp(batch.iop_out[iopOutOffset + i]);
+            }
 
             // (9.5.4) check if log_IOPs out of range
-            mi = nn_rw_iop.get().getOutmin();
-            ma = nn_rw_iop.get().getOutmax();
             boolean iop_oor_flag = false;
-            for (int iv = 0; iv < log_iops_nn1.length; iv++) {
-                if (log_iops_nn1[iv] < mi[iv] | log_iops_nn1[iv] > ma[iv]) {
+            for (int iv = 0; iv < numIops; iv++) {
+                final double log_iop = batch.iop_out[iopOutOffset + iv];
+                if (log_iop < mi[iv] | log_iop > ma[iv]) {
                     iop_oor_flag = true;
                 }
             }
@@ -510,47 +658,66 @@ public class C2rccOlciAlgorithm {
 
             // (9.5.5)check if log_IOPs at limit
             int firstIopMaxFlagIndex = FLAG_INDEX_APIG_AT_MAX;
-            for (int i = 0; i < log_iops_nn1.length; i++) {
-                final boolean iopAtMax = log_iops_nn1[i] > (ma[i] - log_threshfak_oor);
+            for (int i = 0; i < numIops; i++) {
+                final boolean iopAtMax = batch.iop_out[iopOutOffset + i] > (ma[i] - log_threshfak_oor);
                 flags = BitSetter.setFlag(flags, i + firstIopMaxFlagIndex, iopAtMax);
             }
 
             int firstIopMinFlagIndex = FLAG_INDEX_APIG_AT_MIN;
-            for (int i = 0; i < log_iops_nn1.length; i++) {
-                final boolean iopAtMin = log_iops_nn1[i] < (mi[i] + log_threshfak_oor);
+            for (int i = 0; i < numIops; i++) {
+                final boolean iopAtMin = batch.iop_out[iopOutOffset + i] < (mi[i] + log_threshfak_oor);
                 flags = BitSetter.setFlag(flags, i + firstIopMinFlagIndex, iopAtMin);
             }
+            batch.flags[p] = flags;
 
             // (9.5.6) compute Rw out of scope
             //nn_in_for=[sun_zeni view_zeni azi_diff_deg temperature salinity log_iops_nn1];// input to forward water NN
+            final double[] nn_in_for = batch.nn_in_for;
+            final int inOffset = v * numInFor;
+            nn_in_for[inOffset] = batch.sun_zeni[p];
+            nn_in_for[inOffset + 1] = batch.view_zeni[p];
+            nn_in_for[inOffset + 2] = batch.azi_diff_deg[v];
+            nn_in_for[inOffset + 3] = temperature;
+            nn_in_for[inOffset + 4] = salinity;
+            System.arraycopy(batch.iop_out, iopOutOffset, nn_in_for, inOffset + 5, 5);
+        }
+    }
 
-            double[] nn_in_for = new double[5 + 5];
-            nn_in_for[0] = sun_zeni;
-            nn_in_for[1] = view_zeni;
-            nn_in_for[2] = azi_diff_deg;
-            nn_in_for[3] = temperature;
-            nn_in_for[4] = salinity;
-            System.arraycopy(log_iops_nn1, 0, nn_in_for, 5, 5);
+    // evaluates the forward and uncertainty NNs of the valid pixels and completes their results
+    private void completePixels(Batch batch, int numValid) {
+        final int numRw = batch.numRw;
+        final int numIops = batch.numIops;
+        final int numUncIops = batch.numUncIops;
+        final int numRwOut = nn_iop_rw.getOutputCount();
+        final int numKdOut = nn_rw_kd.getOutputCount();
+        final int numUncSumOut = nn_iop_uncsumiop_unckd.getOutputCount();
+        final double[] mi = nn_rw_kd.getOutmin();
+        final double[] ma = nn_rw_kd.getOutmax();
+        for (int v = 0; v < numValid; v++) {
+            final int p = batch.validIndex[v];
+            int flags = batch.flags[p];
 
             //log_rw_nn2 = nnhs_ff(for_nn9b,nn_in_for); // compute rho_w from IOPs
-
-            rwa_oos = 0;
             // RD20161103 no if, because this process should be performed always for the flag
             //if (outputOos) {
-            double[] log_rw_nn2 = nn_iop_rw.get().calc(nn_in_for);
+            final double[] log_rw = batch.log_rw;
+            final int rwOffset = v * numRw;
+            final double[] log_rw_nn2 = batch.iop_rw_out;
+            final int rw2Offset = v * numRwOut;
 
             // (9.5.7) test out of scope of rho_w by combining inverse and forward NN
             //  compute the test and set rw is out of scope flag
             int wvl_442_idx = 2;
             int wvl_560_idx = 5;
             int wvl_620_idx = 6;
-            double s1_mess = abs(log_rw[wvl_560_idx] - log_rw[wvl_442_idx]); // s1_mess and s2_mess are the band ratios of Rw
-            double s2_mess = abs(log_rw[wvl_620_idx] - log_rw[wvl_560_idx]);
-            double s1_nn2 = abs(log_rw_nn2[wvl_560_idx] - log_rw_nn2[wvl_442_idx]);// s1_nn2 is the band ratios of Rw'
-            double s2_nn2 = abs(log_rw_nn2[wvl_620_idx] - log_rw_nn2[wvl_560_idx]);
+            double s1_mess = abs(log_rw[rwOffset + wvl_560_idx] - log_rw[rwOffset + wvl_442_idx]); // s1_mess and s2_mess are the band ratios of Rw
+            double s2_mess = abs(log_rw[rwOffset + wvl_620_idx] - log_rw[rwOffset + wvl_560_idx]);
+            double s1_nn2 = abs(log_rw_nn2[rw2Offset + wvl_560_idx] - log_rw_nn2[rw2Offset + wvl_442_idx]);// s1_nn2 is the band ratios of Rw'
+            double s2_nn2 = abs(log_rw_nn2[rw2Offset + wvl_620_idx] - log_rw_nn2[rw2Offset + wvl_560_idx]);
             double s1_test = abs(s1_nn2 - s1_mess); // relative deviation for band ratio 5/2 (diff on log)
             double s2_test = abs(s2_nn2 - s2_mess); // relative deviation for band ratio 6/5 (diff on log)
-            rwa_oos = max(s1_test, s2_test);// maximum deviation output as quality indicator
+            double rwa_oos = max(s1_test, s2_test);// maximum deviation output as quality indicator
+            batch.rwa_oos[p] = rwa_oos;
             boolean rwa_oos_flag = false;
             if (rwa_oos > thresh_rwlogslope) {
                 rwa_oos_flag = true;
@@ -559,90 +726,93 @@ public class C2rccOlciAlgorithm {
             //}
 
             // (9.5.8) NN compute kd from rw
-            kdmin_nn = 0;
-            kd489_nn = 0;
             if (outputKd || outputUncertainties) {
-                double[] log_kd2_nn = nn_rw_kd.get().calc(nn_in_inv);
-                kdmin_nn = exp(log_kd2_nn[0]);
-                kd489_nn = exp(log_kd2_nn[1]);
+                final double log_kdmin = batch.kd_out[v * numKdOut];
+                final double log_kd489 = batch.kd_out[v * numKdOut + 1];
+                batch.kdmin_nn[p] = exp(log_kdmin);
+                batch.kd489_nn[p] = exp(log_kd489);
                 //            double z90max = 1.0 / kdmin_nn;
 
                 // (9.5.9) test if kd is at nn limits
-                mi = nn_rw_kd.get().getOutmin();
-                ma = nn_rw_kd.get().getOutmax();
                 boolean kdmin_oor_flag = false;
-                if (log_kd2_nn[0] < mi[0] | log_kd2_nn[0] > ma[0]) {
+                if (log_kdmin < mi[0] | log_kdmin > ma[0]) {
                     kdmin_oor_flag = true;
                 }
                 flags = BitSetter.setFlag(flags, FLAG_INDEX_KDMIN_OOR, kdmin_oor_flag);
 
                 boolean kd489_oor_flag = false;
-                if (log_kd2_nn[1] < mi[1] | log_kd2_nn[1] > ma[1]) {
+                if (log_kd489 < mi[1] | log_kd489 > ma[1]) {
                     kd489_oor_flag = true;
                 }
                 flags = BitSetter.setFlag(flags, FLAG_INDEX_KD489_OOR, kd489_oor_flag);
 
                 boolean kdmin_at_max_flag = false;
-                if (log_kd2_nn[1] > ma[1] - log_threshfak_oor) {
+                if (log_kd489 > ma[1] - log_threshfak_oor) {
                     kdmin_at_max_flag = true;
                 }
                 flags = BitSetter.setFlag(flags, FLAG_INDEX_KDMIN_AT_MAX, kdmin_at_max_flag);
 
                 boolean kd489_at_max_flag = false;
-                if (log_kd2_nn[1] > ma[1] - log_threshfak_oor) {
+                if (log_kd489 > ma[1] - log_threshfak_oor) {
                     kd489_at_max_flag = true;
                 }
                 flags = BitSetter.setFlag(flags, FLAG_INDEX_KD489_AT_MAX, kd489_at_max_flag);
             }
 
             // (9.6) )NN compute uncertainties
-            unc_iop_abs = new double[0];
-            unc_abs_chl = 0;
-            unc_abs_adg = 0;
-            unc_abs_atot = 0;
-            unc_abs_btot = 0;
-            unc_abs_kd489 = 0;
-            unc_abs_kdmin = 0;
-            unc_abs_tsm = 0;
             if (outputUncertainties) {
-                double[] diff_log_abs_iop = nn_iop_unciop.get().calc(log_iops_nn1);
+                // (9.14) compute combined IOPs and concentrations
+                // split IOPs
+                final int iopOffset = p * numIops;
+                double ap_nn1 = batch.iops_nn[iopOffset];
+                double ad_nn1 = batch.iops_nn[iopOffset + 1];
+                double ag_nn1 = batch.iops_nn[iopOffset + 2];
+                double bp_nn1 = batch.iops_nn[iopOffset + 3];
+                double bw_nn1 = batch.iops_nn[iopOffset + 4];
+
+                // combine IOPs
+                double adg_nn1 = ad_nn1 + ag_nn1;
+                double atot_nn1 = adg_nn1 + ap_nn1;
+                double btot_nn1 = bp_nn1 + bw_nn1;
+
+                // compute concentrations
+                // todo Roland fragen ... CHLfaktor wirklich 21.o oder 20.0 ?
+//        double chl_nn1 = 21.0 * pow(ap_nn1, 1.04);
+//        double tsm_nn1 = btot_nn1 * 1.73;
 
-                unc_iop_abs = new double[diff_log_abs_iop.length];
-                for (int iv = 0; iv < diff_log_abs_iop.length; iv++) {
-                    unc_iop_abs[iv] = iops_nn[iv] * (1.0 - exp(-diff_log_abs_iop[iv]));
+                final int uncOffset = p * numUncIops;
+                for (int iv = 0; iv < numUncIops; iv++) {
+                    final double diff_log_abs_iop = batch.unc_iop_out[v * numUncIops + iv];
+                    batch.unc_iop_abs[uncOffset + iv] = batch.iops_nn[iopOffset + iv] * (1.0 - exp(-diff_log_abs_iop));
                 }
 
-                unc_abs_chl = 21.0 * pow(unc_iop_abs[1], 1.04);
+                batch.unc_abs_chl[p] = 21.0 * pow(batch.unc_iop_abs[uncOffset + 1], 1.04);
 
                 // (9.16) NN compute uncertainties for combined IOPs and kd
-                double[] diff_log_abs_combi_kd = nn_iop_uncsumiop_unckd.get().calc(log_iops_nn1);
-                double diff_log_abs_adg = diff_log_abs_combi_kd[0];
-                double diff_log_abs_atot = diff_log_abs_combi_kd[1];
-                double diff_log_abs_btot = diff_log_abs_combi_kd[2];
-                double diff_log_abs_kd489 = diff_log_abs_combi_kd[3];
+                final int uncSumOffset = v * numUncSumOut;
+                double diff_log_abs_adg = batch.unc_sum_out[uncSumOffset];
+                double diff_log_abs_atot = batch.unc_sum_out[uncSumOffset + 1];
+                double diff_log_abs_btot = batch.unc_sum_out[uncSumOffset + 2];
+                double diff_log_abs_kd489 = batch.unc_sum_out[uncSumOffset + 3];
 //                double diff_log_abs_kdmin = diff_log_abs_combi_kd[4];
-                unc_abs_adg = (1.0 - exp(-diff_log_abs_adg)) * adg_nn1;
-                unc_abs_atot = (1.0 - exp(-diff_log_abs_atot)) * atot_nn1;
-                unc_abs_btot = (1.0 - exp(-diff_log_abs_btot)) * btot_nn1;
-                unc_abs_kd489 = (1.0 - exp(-diff_log_abs_kd489)) * kd489_nn;
-                unc_abs_kdmin = (1.0 - exp(-diff_log_abs_kd489)) * kdmin_nn;
+                batch.unc_abs_adg[p] = (1.0 - exp(-diff_log_abs_adg)) * adg_nn1;
+                batch.unc_abs_atot[p] = (1.0 - exp(-diff_log_abs_atot)) * atot_nn1;
+                batch.unc_abs_btot[p] = (1.0 - exp(-diff_log_abs_btot)) * btot_nn1;
+                batch.unc_abs_kd489[p] = (1.0 - exp(-diff_log_abs_kd489)) * batch.kd489_nn[p];
+                batch.unc_abs_kdmin[p] = (1.0 - exp(-diff_log_abs_kd489)) * batch.kdmin_nn[p];
                 //        double unc_z90max = abs(z90max - 1.0 / abs(kdmin_nn - unc_abs_kdmin));
-                unc_abs_tsm = 1.73 * unc_abs_btot;
+                batch.unc_abs_tsm[p] = 1.73 * batch.unc_abs_btot[p];
             }
-        }
-
-        flags = BitSetter.setFlag(flags, FLAG_INDEX_VALID_PE, validPixel);
 
-        return new Result(r_toa, r_tosa, rtosa_aann, rpath_nn, transd_nn, transu_nn, rwa, rwn, rtosa_oos, rwa_oos,
-                          iops_nn, kd489_nn, kdmin_nn, unc_iop_abs, unc_abs_adg, unc_abs_atot, unc_abs_btot,
-                          unc_abs_chl, unc_abs_tsm, unc_abs_kd489, unc_abs_kdmin, flags);
+            batch.flags[p] = BitSetter.setFlag(flags, FLAG_INDEX_VALID_PE, true);
+        }
     }
 
     public String[] getUsedNeuronalNetNames() {
         return nnNames.toArray(new String[nnNames.size()]);
     }
 
-    private ThreadLocal<NNffbpAlphaTabFast> nnhs(String sourcePath, boolean loadFromResource) throws IOException {
+    private NNBatchEvaluator nnhs(String sourcePath, boolean loadFromResource) throws IOException {
 
 //        Files.
 
@@ -663,16 +833,7 @@ public class C2rccOlciAlgorithm {
             nnNames.add(path.toString());
         }
         final String nnCode = readFully(stream);
-        return new ThreadLocal<NNffbpAlphaTabFast>() {
-            @Override
-            protected NNffbpAlphaTabFast initialValue() {
-                try {
-                    return new NNffbpAlphaTabFast(nnCode);
-                } catch (IOException e) {
-                    throw new IllegalStateException(e);
-                }
-            }
-        };
+        return NNBatchEvaluator.create(nnCode);
     }
 
     private String readFully(InputStream stream) throws IOException {
@@ -690,6 +851,248 @@ public class C2rccOlciAlgorithm {
         return text;
     }
 
+    /**
+     * Reusable per-thread buffers and results of the algorithm. The public array fields have the same meaning
+     * as in {@link Result}; arrays which have not been computed for the last pixel are empty.
+     */
+    public static final class Workspace {
+
+        private static final double[] EMPTY = new double[0];
+
+        public final double[] toa_rad;
+        public final double[] solflux;
+
+        public final double[] r_toa;
+        public double[] r_tosa;
+        public double[] rtosa_aann;
+        public double rtosa_oos;
+        public double[] rpath_nn;
+        public double[] transd_nn;
+        public double[] transu_nn;
+        public double[] rwa;
+        public double rwa_oos;
+        public double[] rwn;
+        public double[] iops_nn;
+        public double kd489_nn;
+        public double kdmin_nn;
+        public double[] unc_iop_abs;
+        public double unc_abs_adg;
+        public double unc_abs_atot;
+        public double unc_abs_btot;
+        public double unc_abs_chl;
+        public double unc_abs_tsm;
+        public double unc_abs_kd489;
+        public double unc_abs_kdmin;
+        public int flags;
+
+        // a batch of a single pixel, its arrays are the buffers of the results
+        private final Batch batch;
+
+        private Workspace(Batch batch) {
+            this.batch = batch;
+            toa_rad = batch.toa_rad;
+            solflux = batch.solflux;
+            r_toa = batch.r_toa;
+            reset();
+        }
+
+        private void reset() {
+            r_tosa = EMPTY;
+            rtosa_aann = EMPTY;
+            rtosa_oos = 0;
+            rpath_nn = EMPTY;
+            transd_nn = EMPTY;
+            transu_nn = EMPTY;
+            rwa = EMPTY;
+            rwa_oos = 0;
+            rwn = EMPTY;
+            iops_nn = EMPTY;
+            kd489_nn = 0;
+            kdmin_nn = 0;
+            unc_iop_abs = EMPTY;
+            unc_abs_adg = 0;
+            unc_abs_atot = 0;
+            unc_abs_btot = 0;
+            unc_abs_chl = 0;
+            unc_abs_tsm = 0;
+            unc_abs_kd489 = 0;
+            unc_abs_kdmin = 0;
+            flags = 0;
+        }
+
+        /**
+         * @return a copy of the current content as an immutable {@link Result}
+         */
+        public Result toResult() {
+            return new Result(r_toa.clone(), r_tosa.clone(), rtosa_aann.clone(), rpath_nn.clone(), transd_nn.clone(),
+                              transu_nn.clone(), rwa.clone(), rwn.clone(), rtosa_oos, rwa_oos, iops_nn.clone(),
+                              kd489_nn, kdmin_nn, unc_iop_abs.clone(), unc_abs_adg, unc_abs_atot, unc_abs_btot,
+                              unc_abs_chl, unc_abs_tsm, unc_abs_kd489, unc_abs_kdmin, flags);
+        }
+    }
+
+    /**
+     * Inputs and results of a run of pixels, e.g. of a tile row, in pre-sized primitive arrays. The fields have
+     * the same meaning as the parameters of {@link #processPixel} and the fields of {@link Result}. Arrays holding
+     * several values per pixel are pixel interleaved: the {@code numRw} values of {@code rwa} for the pixel
+     * {@code p} start at the index {@code p * numRw}.
+     * <br>The scalar results of pixels without results are zero, as in {@link Workspace}. Array results which have
+     * not been computed for a pixel, e.g. all but {@code r_toa} of an invalid pixel, keep their previous values.
+     */
+    public static final class Batch {
+
+        public final int capacity;
+        public final int numToaBands;
+        public final int numTosaBands;
+        public final int numAann;
+        public final int numRpath;
+        public final int numTrans;
+        public final int numRw;
+        public final int numRwn;
+        public final int numIops;
+        public final int numUncIops;
+
+        public final double[] toa_rad;
+        public final double[] solflux;
+        public final double[] sun_zeni;
+        public final double[] sun_azi;
+        public final double[] view_zeni;
+        public final double[] view_azi;
+        public final double[] dem_alt;
+        public final boolean[] validPixel;
+        public final double[] atm_press;
+        public final double[] ozone;
+
+        public final double[] r_toa;
+        public final double[] r_tosa;
+        public final double[] rtosa_aann;
+        public final double[] rtosa_oos;
+        public final double[] rpath_nn;
+        public final double[] transd_nn;
+        public final double[] transu_nn;
+        public final double[] rwa;
+        public final double[] rwa_oos;
+        public final double[] rwn;
+        public final double[] iops_nn;
+        public final double[] kd489_nn;
+        public final double[] kdmin_nn;
+        public final double[] unc_iop_abs;
+        public final double[] unc_abs_adg;
+        public final double[] unc_abs_atot;
+        public final double[] unc_abs_btot;
+        public final double[] unc_abs_chl;
+        public final double[] unc_abs_tsm;
+        public final double[] unc_abs_kd489;
+        public final double[] unc_abs_kdmin;
+        public final int[] flags;
+
+        // the valid pixels and the inputs and outputs of the neural nets, one row per valid pixel
+        private final int numAtmosphereIn;
+        private final int numWaterIn;
+        private final int numForwardIn;
+        private final int[] validIndex;
+        private final double[] azi_diff_deg;
+        private final double[] nn_in;
+        private final double[] aann_out;
+        private final double[] rpath_out;
+        private final double[] trans_out;
+        private final double[] log_rw;
+        private final double[] nn_in_inv;
+        private final double[] rwn_out;
+        private final double[] iop_out;
+        private final double[] kd_out;
+        private final double[] nn_in_for;
+        private final double[] iop_rw_out;
+        private final double[] unc_iop_out;
+        private final double[] unc_sum_out;
+        private final NNBatchEvaluator.Scratch scratch;
+
+        private Batch(int capacity, C2rccOlciAlgorithm algorithm) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+            }
+            this.capacity = capacity;
+            this.numToaBands = olciband21_ix.length;
+            this.numTosaBands = olciband16_ix.length;
+            this.numAann = algorithm.nn_rtosa_aann.getOutputCount();
+            this.numRpath = algorithm.nn_rtosa_rpath.getOutputCount();
+            this.numTrans = 16;
+            this.numRw = algorithm.deriveRwFromPathAndTransmittance ? numTosaBands : algorithm.nn_rtosa_rw.getOutputCount();
+            this.numRwn = algorithm.nn_rw_rwnorm.getOutputCount();
+            this.numIops = algorithm.nn_rw_iop.getOutputCount();
+            this.numUncIops = algorithm.nn_iop_unciop.getOutputCount();
+
+            toa_rad = new double[capacity * numToaBands];
+            solflux = new double[capacity * numToaBands];
+            sun_zeni = new double[capacity];
+            sun_azi = new double[capacity];
+            view_zeni = new double[capacity];
+            view_azi = new double[capacity];
+            dem_alt = new double[capacity];
+            validPixel = new boolean[capacity];
+            atm_press = new double[capacity];
+            ozone = new double[capacity];
+
+            r_toa = new double[capacity * numToaBands];
+            r_tosa = new double[capacity * numTosaBands];
+            rtosa_aann = new double[capacity * numAann];
+            rtosa_oos = new double[capacity];
+            rpath_nn = new double[capacity * numRpath];
+            transd_nn = new double[capacity * numTrans];
+            transu_nn = new double[capacity * numTrans];
+            rwa = new double[capacity * numRw];
+            rwa_oos = new double[capacity];
+            rwn = new double[capacity * numRwn];
+            iops_nn = new double[capacity * numIops];
+            kd489_nn = new double[capacity];
+            kdmin_nn = new double[capacity];
+            unc_iop_abs = new double[capacity * numUncIops];
+            unc_abs_adg = new double[capacity];
+            unc_abs_atot = new double[capacity];
+            unc_abs_btot = new double[capacity];
+            unc_abs_chl = new double[capacity];
+            unc_abs_tsm = new double[capacity];
+            unc_abs_kd489 = new double[capacity];
+            unc_abs_kdmin = new double[capacity];
+            flags = new int[capacity];
+
+            numAtmosphereIn = algorithm.nn_rtosa_aann.getInputCount();
+            numWaterIn = algorithm.nn_rw_iop.getInputCount();
+            numForwardIn = algorithm.nn_iop_rw.getInputCount();
+            validIndex = new int[capacity];
+            azi_diff_deg = new double[capacity];
+            nn_in = new double[capacity * numAtmosphereIn];
+            aann_out = new double[capacity * numAann];
+            rpath_out = new double[capacity * numRpath];
+            trans_out = new double[capacity * algorithm.nn_rtosa_trans.getOutputCount()];
+            log_rw = new double[capacity * numRw];
+            nn_in_inv = new double[capacity * numWaterIn];
+            rwn_out = new double[capacity * numRwn];
+            iop_out = new double[capacity * numIops];
+            kd_out = new double[capacity * algorithm.nn_rw_kd.getOutputCount()];
+            nn_in_for = new double[capacity * numForwardIn];
+            iop_rw_out = new double[capacity * algorithm.nn_iop_rw.getOutputCount()];
+            unc_iop_out = new double[capacity * numUncIops];
+            unc_sum_out = new double[capacity * algorithm.nn_iop_uncsumiop_unckd.getOutputCount()];
+            scratch = new NNBatchEvaluator.Scratch();
+        }
+
+        private void reset(int p) {
+            rtosa_oos[p] = 0;
+            rwa_oos[p] = 0;
+            kd489_nn[p] = 0;
+            kdmin_nn[p] = 0;
+            unc_abs_adg[p] = 0;
+            unc_abs_atot[p] = 0;
+            unc_abs_btot[p] = 0;
+            unc_abs_chl[p] = 0;
+            unc_abs_tsm[p] = 0;
+            unc_abs_kd489[p] = 0;
+            unc_abs_kdmin[p] = 0;
+            flags[p] = 0;
+        }
+    }
+
     /**
      * Structure for returning the algorithm's result.
      */
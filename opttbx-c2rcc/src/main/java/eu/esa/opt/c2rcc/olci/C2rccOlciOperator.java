@@ -5,7 +5,7 @@ import eu.esa.opt.c2rcc.C2rccCommons;
 import eu.esa.opt.c2rcc.C2rccConfigurable;
 import eu.esa.opt.c2rcc.ancillary.AtmosphericAuxdata;
 import eu.esa.opt.c2rcc.ancillary.AtmosphericAuxdataBuilder;
-import eu.esa.opt.c2rcc.olci.C2rccOlciAlgorithm.Result;
+import eu.esa.opt.c2rcc.olci.C2rccOlciAlgorithm.Batch;
 import eu.esa.opt.c2rcc.util.NNUtils;
 import eu.esa.opt.c2rcc.util.RgbProfiles;
 import org.esa.snap.core.datamodel.Band;
@@ -25,6 +25,7 @@ import org.esa.snap.core.dataop.resamp.Resampling;
 import org.esa.snap.core.gpf.Operator;
 import org.esa.snap.core.gpf.OperatorException;
 import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.gpf.Tile;
 import org.esa.snap.core.gpf.annotations.OperatorMetadata;
 import org.esa.snap.core.gpf.annotations.Parameter;
 import org.esa.snap.core.gpf.annotations.SourceProduct;
@@ -41,6 +42,7 @@ import org.esa.snap.core.util.converters.BooleanExpressionConverter;
 
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.io.IOException;
 import java.nio.file.Paths;
@@ -114,14 +116,6 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
 
     // OLCI sources
     static final int BAND_COUNT = 21;
-    private static final int RADIANCE_START_IX = 0;
-    private static final int SOLAR_FLUX_START_IX = BAND_COUNT;
-    private static final int DEM_ALT_IX = BAND_COUNT * 2;
-    private static final int SUN_ZEN_IX = DEM_ALT_IX + 1;
-    private static final int SUN_AZI_IX = DEM_ALT_IX + 2;
-    private static final int VIEW_ZEN_IX = DEM_ALT_IX + 3;
-    private static final int VIEW_AZI_IX = DEM_ALT_IX + 4;
-    private static final int VALID_PIXEL_IX = DEM_ALT_IX + 5;
 
     // OLCI targets
     private static final int BC_16 = olciband16_ix.length; // Band count 16
@@ -323,6 +317,8 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
     private boolean outputUncertainties;
 
     private C2rccOlciAlgorithm algorithm;
+    private ThreadLocal<RowSegment> rowSegments;
+    private VirtualBand validPixelBand;
     private AtmosphericAuxdata atmosphericAuxdata;
     private boolean useSnapDem;
     private ElevationModel elevationModel;
@@ -462,134 +458,145 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
 
     @Override
     protected void computePixel(int x, int y, Sample[] sourceSamples, WritableSample[] targetSamples) {
-        final double[] radiances = new double[BAND_COUNT];
-        final double[] solflux = new double[BAND_COUNT];
-        for (int i = 0; i < BAND_COUNT; i++) {
-            radiances[i] = sourceSamples[i].getDouble();
-            Sample solFluxSample = sourceSamples[i + SOLAR_FLUX_START_IX];
-            solflux[i] = solFluxSample.getNode().isPixelValid(x, y) ? solFluxSample.getDouble() : Double.NaN;
+        final RowSegment segment = rowSegments.get();
+        if (!segment.contains(x, y)) {
+            computeRowSegment(segment, x, y);
         }
-
-        final PixelPos pixelPos = new PixelPos(x + 0.5f, y + 0.5f);
-        final double mjd = timeCoding.getMJD(pixelPos);
-
-        GeoPos geoPos = sourceProduct.getSceneGeoCoding().getGeoPos(pixelPos, null);
-        double lat = geoPos.getLat();
-        double lon = geoPos.getLon();
-        double atmPress = fetchSurfacePressure(atmosphericAuxdata, mjd, x, y, lat, lon);
-        double ozone = fetchOzone(atmosphericAuxdata, mjd, x, y, lat, lon);
-
-        final double altitude = getAltitude(geoPos, sourceSamples);
-
-        Result result = algorithm.processPixel(x, y, lat, lon,
-                radiances,
-                solflux,
-                sourceSamples[SUN_ZEN_IX].getDouble(),
-                sourceSamples[SUN_AZI_IX].getDouble(),
-                sourceSamples[VIEW_ZEN_IX].getDouble(),
-                sourceSamples[VIEW_AZI_IX].getDouble(),
-                altitude,
-                sourceSamples[VALID_PIXEL_IX].getBoolean(),
-                atmPress,
-                ozone);
+        final Batch batch = segment.batch;
+        final int p = x - segment.x;
+        // except of r_toa, the spectra are only computed for valid pixels
+        final boolean validPixel = batch.validPixel[p];
 
         if (outputRtoa) {
-            for (int i = 0; i < result.r_toa.length; i++) {
-                targetSamples[RTOA_IX + i].set(result.r_toa[i]);
-            }
+            setSamples(targetSamples, RTOA_IX, batch.r_toa, p, batch.numToaBands);
         }
 
-        if (outputRtosaGc) {
-            for (int i = 0; i < result.r_tosa.length; i++) {
-                targetSamples[RTOSA_IX + i].set(result.r_tosa[i]);
-            }
+        if (outputRtosaGc && validPixel) {
+            setSamples(targetSamples, RTOSA_IX, batch.r_tosa, p, batch.numTosaBands);
         }
 
-        if (outputRtosaGcAann) {
-            for (int i = 0; i < result.rtosa_aann.length; i++) {
-                targetSamples[RTOSA_AANN_IX + i].set(result.rtosa_aann[i]);
-            }
+        if (outputRtosaGcAann && validPixel) {
+            setSamples(targetSamples, RTOSA_AANN_IX, batch.rtosa_aann, p, batch.numAann);
         }
 
-        if (outputRpath) {
-            for (int i = 0; i < result.rpath_nn.length; i++) {
-                targetSamples[RPATH_IX + i].set(result.rpath_nn[i]);
-            }
+        if (outputRpath && validPixel) {
+            setSamples(targetSamples, RPATH_IX, batch.rpath_nn, p, batch.numRpath);
         }
 
-        if (outputTdown) {
-            for (int i = 0; i < result.transd_nn.length; i++) {
-                targetSamples[TDOWN_IX + i].set(result.transd_nn[i]);
-            }
+        if (outputTdown && validPixel) {
+            setSamples(targetSamples, TDOWN_IX, batch.transd_nn, p, batch.numTrans);
         }
 
-        if (outputTup) {
-            for (int i = 0; i < result.transu_nn.length; i++) {
-                targetSamples[TUP_IX + i].set(result.transu_nn[i]);
-            }
+        if (outputTup && validPixel) {
+            setSamples(targetSamples, TUP_IX, batch.transu_nn, p, batch.numTrans);
         }
 
-        if (outputAcReflectance) {
-            for (int i = 0; i < result.rwa.length; i++) {
-                targetSamples[AC_REFLEC_IX + i].set(outputAsRrs ? result.rwa[i] / Math.PI : result.rwa[i]);
+        if (outputAcReflectance && validPixel) {
+            final int offset = p * batch.numRw;
+            for (int i = 0; i < batch.numRw; i++) {
+                final double rwa = batch.rwa[offset + i];
+                targetSamples[AC_REFLEC_IX + i].set(outputAsRrs ? rwa / Math.PI : rwa);
             }
         }
 
-        if (outputRhown) {
-            for (int i = 0; i < result.rwn.length; i++) {
-                targetSamples[RHOWN_IX + i].set(result.rwn[i]);
-            }
+        if (outputRhown && validPixel) {
+            setSamples(targetSamples, RHOWN_IX, batch.rwn, p, batch.numRwn);
         }
 
         if (outputOos) {
-            targetSamples[OOS_RTOSA_IX].set(result.rtosa_oos);
-            targetSamples[OOS_AC_REFLEC_IX].set(result.rwa_oos);
+            targetSamples[OOS_RTOSA_IX].set(batch.rtosa_oos[p]);
+            targetSamples[OOS_AC_REFLEC_IX].set(batch.rwa_oos[p]);
         }
 
-        for (int i = 0; i < result.iops_nn.length; i++) {
-            targetSamples[IOP_APIG_IX + i].set(result.iops_nn[i]);
+        if (validPixel) {
+            setSamples(targetSamples, IOP_APIG_IX, batch.iops_nn, p, batch.numIops);
         }
 
         if (outputKd) {
-            targetSamples[KD489_IX].set(result.kd489_nn);
-            targetSamples[KDMIN_IX].set(result.kdmin_nn);
+            targetSamples[KD489_IX].set(batch.kd489_nn[p]);
+            targetSamples[KDMIN_IX].set(batch.kdmin_nn[p]);
         }
 
         if (outputUncertainties) {
-            for (int i = 0; i < result.unc_iop_abs.length; i++) {
-                targetSamples[UNC_APIG_IX + i].set(result.unc_iop_abs[i]);
+            if (validPixel) {
+                setSamples(targetSamples, UNC_APIG_IX, batch.unc_iop_abs, p, batch.numUncIops);
             }
-            targetSamples[UNC_ADG_IX].set(result.unc_abs_adg);
-            targetSamples[UNC_ATOT_IX].set(result.unc_abs_atot);
-            targetSamples[UNC_BTOT_IX].set(result.unc_abs_btot);
+            targetSamples[UNC_ADG_IX].set(batch.unc_abs_adg[p]);
+            targetSamples[UNC_ATOT_IX].set(batch.unc_abs_atot[p]);
+            targetSamples[UNC_BTOT_IX].set(batch.unc_abs_btot[p]);
             if (outputKd) {
-                targetSamples[UNC_KD489_IX].set(result.unc_abs_kd489);
-                targetSamples[UNC_KDMIN_IX].set(result.unc_abs_kdmin);
+                targetSamples[UNC_KD489_IX].set(batch.unc_abs_kd489[p]);
+                targetSamples[UNC_KDMIN_IX].set(batch.unc_abs_kdmin[p]);
             }
         }
 
-        targetSamples[C2RCC_FLAGS_IX].set(result.flags);
+        targetSamples[C2RCC_FLAGS_IX].set(batch.flags[p]);
     }
 
-    @Override
-    protected void configureSourceSamples(SourceSampleConfigurer sc) throws OperatorException {
-        for (int i = 0; i < BAND_COUNT; i++) {
-            sc.defineSample(i + RADIANCE_START_IX, getRadianceBandName(i + 1));
-            sc.defineSample(i + SOLAR_FLUX_START_IX, getSolarFluxBandname(i + 1));
+    /**
+     * Computes the pixels from x to the end of the target tile in the row y at once. The pixels of a tile are
+     * computed row by row, so the following pixels of the row are taken from the segment.
+     */
+    private void computeRowSegment(RowSegment segment, int x, int y) {
+        final Batch batch = segment.batch;
+        final int tileWidth = batch.capacity;
+        final int width = Math.min(sourceProduct.getSceneRasterWidth(), (x / tileWidth + 1) * tileWidth) - x;
+        final Rectangle rectangle = new Rectangle(x, y, width, 1);
+
+        final int numBands = batch.numToaBands;
+        for (int i = 0; i < numBands; i++) {
+            final Tile radianceTile = getSourceTile(sourceProduct.getBand(getRadianceBandName(i + 1)), rectangle);
+            final Tile solarFluxTile = getSourceTile(sourceProduct.getBand(getSolarFluxBandname(i + 1)), rectangle);
+            for (int p = 0; p < width; p++) {
+                batch.toa_rad[p * numBands + i] = radianceTile.getSampleDouble(x + p, y);
+                batch.solflux[p * numBands + i] = solarFluxTile.isSampleValid(x + p, y) ? solarFluxTile.getSampleDouble(x + p, y) : Double.NaN;
+            }
         }
+        readSamples(RASTER_NAME_SUN_ZENITH, rectangle, batch.sun_zeni);
+        readSamples(RASTER_NAME_SUN_AZIMUTH, rectangle, batch.sun_azi);
+        readSamples(RASTER_NAME_VIEWING_ZENITH, rectangle, batch.view_zeni);
+        readSamples(RASTER_NAME_VIEWING_AZIMUTH, rectangle, batch.view_azi);
         if (!useSnapDem) {
-            sc.defineSample(DEM_ALT_IX, RASTER_NAME_ALTITUDE);
+            readSamples(RASTER_NAME_ALTITUDE, rectangle, batch.dem_alt);
         }
-        sc.defineSample(SUN_ZEN_IX, RASTER_NAME_SUN_ZENITH);
-        sc.defineSample(SUN_AZI_IX, RASTER_NAME_SUN_AZIMUTH);
-        sc.defineSample(VIEW_ZEN_IX, RASTER_NAME_VIEWING_ZENITH);
-        sc.defineSample(VIEW_AZI_IX, RASTER_NAME_VIEWING_AZIMUTH);
-        if (StringUtils.isNotNullAndNotEmpty(validPixelExpression)) {
-            sc.defineComputedSample(VALID_PIXEL_IX, ProductData.TYPE_UINT8, validPixelExpression);
-        } else {
-            sc.defineComputedSample(VALID_PIXEL_IX, ProductData.TYPE_UINT8, "true");
+        final Tile validPixelTile = getSourceTile(validPixelBand, rectangle);
+
+        for (int p = 0; p < width; p++) {
+            final PixelPos pixelPos = new PixelPos(x + p + 0.5f, y + 0.5f);
+            final double mjd = timeCoding.getMJD(pixelPos);
+
+            GeoPos geoPos = sourceProduct.getSceneGeoCoding().getGeoPos(pixelPos, null);
+            double lat = geoPos.getLat();
+            double lon = geoPos.getLon();
+            batch.atm_press[p] = fetchSurfacePressure(atmosphericAuxdata, mjd, x + p, y, lat, lon);
+            batch.ozone[p] = fetchOzone(atmosphericAuxdata, mjd, x + p, y, lat, lon);
+            batch.dem_alt[p] = getAltitude(geoPos, batch.dem_alt[p]);
+            batch.validPixel[p] = validPixelTile.getSampleBoolean(x + p, y);
         }
 
+        algorithm.processPixels(batch, width);
+        segment.x = x;
+        segment.y = y;
+        segment.width = width;
+    }
+
+    private void readSamples(String rasterName, Rectangle rectangle, double[] samples) {
+        final Tile tile = getSourceTile(sourceProduct.getRasterDataNode(rasterName), rectangle);
+        for (int p = 0; p < rectangle.width; p++) {
+            samples[p] = tile.getSampleDouble(rectangle.x + p, rectangle.y);
+        }
+    }
+
+    private static void setSamples(WritableSample[] targetSamples, int targetIndex, double[] values, int p, int count) {
+        final int offset = p * count;
+        for (int i = 0; i < count; i++) {
+            targetSamples[targetIndex + i].set(values[offset + i]);
+        }
+    }
+
+    @Override
+    protected void configureSourceSamples(SourceSampleConfigurer sc) throws OperatorException {
+        // the source samples are read for whole row segments, see computeRowSegment
     }
 
     @Override
@@ -1004,6 +1011,9 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
             algorithm.setOutputKd(outputKd);
             algorithm.setOutputUncertainties(outputUncertainties);
             algorithm.setDeriveRwFromPathAndTransmittance(deriveRwFromPathAndTransmittance);
+            final int tileWidth = getTargetProduct().getPreferredTileSize().width;
+            rowSegments = ThreadLocal.withInitial(() -> new RowSegment(algorithm.createBatch(tileWidth)));
+            initValidPixelBand();
             addNnNamesMetadata();
             pm.worked(1);
             pm.setSubTaskName("Initialising atmospheric auxiliary data");
@@ -1052,6 +1062,16 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
         }
     }
 
+    private void initValidPixelBand() {
+        final String expression = StringUtils.isNotNullAndNotEmpty(validPixelExpression) ? validPixelExpression : "true";
+        validPixelBand = new VirtualBand("__valid_pixel_",
+                ProductData.TYPE_UINT8,
+                sourceProduct.getSceneRasterWidth(),
+                sourceProduct.getSceneRasterHeight(),
+                expression);
+        validPixelBand.setOwner(sourceProduct);
+    }
+
     private void initAtmosphericAuxdata() {
         AtmosphericAuxdataBuilder auxdataBuilder = new AtmosphericAuxdataBuilder();
         auxdataBuilder.setOzone(ozone);
@@ -1134,7 +1154,7 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
         }
     }
 
-    public double getAltitude(GeoPos geoPos, Sample[] sourceSamples) {
+    public double getAltitude(GeoPos geoPos, double productAltitude) {
         double altitude;
         if (useSnapDem) {
             try {
@@ -1143,8 +1163,28 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
                 throw new OperatorException("Unable to compute altitude.", e);
             }
         } else {
-            altitude = sourceSamples[DEM_ALT_IX].getDouble();
+            altitude = productAltitude;
         }
         return altitude;
     }
+
+    /**
+     * The results of the pixels of a tile row, computed at once when the first of them is requested.
+     * A segment is owned by one thread.
+     */
+    private static final class RowSegment {
+
+        private final Batch batch;
+        private int x = -1;
+        private int y = -1;
+        private int width;
+
+        private RowSegment(Batch batch) {
+            this.batch = batch;
+        }
+
+        private boolean contains(int x, int y) {
+            return y == this.y && x >= this.x && x < this.x + width;
+        }
+    }
 }
@@ -0,0 +1,277 @@
+package eu.esa.opt.c2rcc.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Evaluates a feed-forward neural net given in the format read by
+ * {@link org.esa.snap.core.nn.NNffbpAlphaTabFast} for many input vectors at once.
+ * <p>
+ * The weights of each layer are kept in one contiguous row-major matrix, and a layer is computed for
+ * a block of input vectors as a matrix-matrix product, so every weight row is loaded once per block
+ * instead of once per pixel. As in {@code NNffbpAlphaTabFast}, the activation is a tabulated
+ * logistic function.
+ * <p>
+ * Instances are immutable and can be shared between threads. All intermediate values are kept
+ * in a {@link Scratch} which must be owned by the calling thread.
+ */
+public class NNBatchEvaluator {
+
+    private static final double ALPHA_START = -10.0;
+    private static final int NUM_ALPHA = 100000;
+    private static final double[] ALPHA_TAB = new double[NUM_ALPHA];
+    private static final double ALPHA_FACTOR;
+
+    static {
+        final double delta = -2.0 * ALPHA_START / (NUM_ALPHA - 1.0);
+        double sum = ALPHA_START + 0.5 * delta;
+        for (int i = 0; i < NUM_ALPHA; i++) {
+            ALPHA_TAB[i] = 1.0 / (1.0 + Math.exp(-sum));
+            sum += delta;
+        }
+        ALPHA_FACTOR = 1.0 / delta;
+    }
+
+    private final double[] inmin;
+    private final double[] inmax;
+    private final double[] outmin;
+    private final double[] outmax;
+    private final int[] size;
+    private final double[][] wgt;
+    private final double[][] bias;
+    private final int maxLayerSize;
+
+    private NNBatchEvaluator(double[] inmin, double[] inmax, double[] outmin, double[] outmax, int[] size,
+                             double[][] wgt, double[][] bias) {
+        this.inmin = inmin;
+        this.inmax = inmax;
+        this.outmin = outmin;
+        this.outmax = outmax;
+        this.size = size;
+        this.wgt = wgt;
+        this.bias = bias;
+        int max = 0;
+        for (int s : size) {
+            max = Math.max(max, s);
+        }
+        this.maxLayerSize = max;
+    }
+
+    /**
+     * Creates an evaluator from the textual representation of a neural net.
+     *
+     * @param nnCode the content of a {@code .net} file
+     * @return the evaluator
+     * @throws IOException if the net could not be parsed
+     */
+    public static NNBatchEvaluator create(String nnCode) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new StringReader(nnCode))) {
+            skipUntil(reader, "#");
+            final int numIn = Integer.parseInt(nextLine(reader).trim());
+            final double[] inmin = new double[numIn];
+            final double[] inmax = new double[numIn];
+            readRanges(reader, inmin, inmax);
+            final int numOut = Integer.parseInt(nextLine(reader).trim());
+            final double[] outmin = new double[numOut];
+            final double[] outmax = new double[numOut];
+            readRanges(reader, outmin, outmax);
+
+            final String planesLine = skipUntil(reader, "#planes=");
+            final String[] planeTokens = planesLine.substring("#planes=".length()).trim().split("\\s+");
+            final int numPlanes = Integer.parseInt(planeTokens[0]);
+            final int[] size = new int[numPlanes];
+            for (int i = 0; i < numPlanes; i++) {
+                size[i] = Integer.parseInt(planeTokens[i + 1]);
+            }
+            if (size[0] != numIn || size[numPlanes - 1] != numOut) {
+                throw new IOException("Number of inputs or outputs does not match the size of the planes");
+            }
+
+            final double[][] bias = new double[numPlanes - 1][];
+            for (int pl = 0; pl < numPlanes - 1; pl++) {
+                skipUntil(reader, "bias");
+                bias[pl] = new double[size[pl + 1]];
+                for (int i = 0; i < size[pl + 1]; i++) {
+                    bias[pl][i] = Double.parseDouble(nextLine(reader).trim());
+                }
+            }
+            final double[][] wgt = new double[numPlanes - 1][];
+            for (int pl = 0; pl < numPlanes - 1; pl++) {
+                skipUntil(reader, "wgt");
+                wgt[pl] = new double[size[pl + 1] * size[pl]];
+                for (int i = 0; i < wgt[pl].length; i++) {
+                    wgt[pl][i] = Double.parseDouble(nextLine(reader).trim());
+                }
+            }
+            return new NNBatchEvaluator(inmin, inmax, outmin, outmax, size, wgt, bias);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Invalid neural net definition", e);
+        }
+    }
+
+    public int getInputCount() {
+        return size[0];
+    }
+
+    public int getOutputCount() {
+        return size[size.length - 1];
+    }
+
+    public double[] getInmin() {
+        return inmin;
+    }
+
+    public double[] getInmax() {
+        return inmax;
+    }
+
+    public double[] getOutmin() {
+        return outmin;
+    }
+
+    public double[] getOutmax() {
+        return outmax;
+    }
+
+    /**
+     * Evaluates the net for a single input vector.
+     *
+     * @param in      the input vector, at least {@link #getInputCount()} values
+     * @param out     receives the {@link #getOutputCount()} output values
+     * @param scratch the thread owned scratch buffers
+     */
+    public void calc(double[] in, double[] out, Scratch scratch) {
+        calc(in, out, 1, scratch);
+    }
+
+    /**
+     * Evaluates the net for {@code count} input vectors at once.
+     *
+     * @param in      the input vectors in row-major order, {@code count * getInputCount()} values
+     * @param out     receives the output vectors in row-major order, {@code count * getOutputCount()} values
+     * @param count   the number of input vectors
+     * @param scratch the thread owned scratch buffers
+     */
+    public void calc(double[] in, double[] out, int count, Scratch scratch) {
+        scratch.ensureCapacity(count * maxLayerSize);
+        double[] act = scratch.a;
+        double[] next = scratch.b;
+
+        final int numIn = size[0];
+        for (int p = 0; p < count; p++) {
+            final int offset = p * numIn;
+            for (int i = 0; i < numIn; i++) {
+                act[offset + i] = (in[offset + i] - inmin[i]) / (inmax[i] - inmin[i]);
+            }
+        }
+
+        for (int pl = 0; pl < size.length - 1; pl++) {
+            computePlane(wgt[pl], bias[pl], size[pl], size[pl + 1], act, next, count);
+            final double[] tmp = act;
+            act = next;
+            next = tmp;
+        }
+
+        final int numOut = getOutputCount();
+        for (int p = 0; p < count; p++) {
+            final int offset = p * numOut;
+            for (int i = 0; i < numOut; i++) {
+                out[offset + i] = outmin[i] + act[offset + i] * (outmax[i] - outmin[i]);
+            }
+        }
+    }
+
+    // next[p][i] = activation(bias[i] + sum_j(w[i][j] * act[p][j])), four input vectors share one pass over a weight row
+    private static void computePlane(double[] w, double[] bias, int numFrom, int numTo, double[] act, double[] next, int count) {
+        int p = 0;
+        for (; p + 4 <= count; p += 4) {
+            final int a0 = p * numFrom;
+            final int a1 = a0 + numFrom;
+            final int a2 = a1 + numFrom;
+            final int a3 = a2 + numFrom;
+            final int n0 = p * numTo;
+            for (int i = 0; i < numTo; i++) {
+                final int wOffset = i * numFrom;
+                double s0 = bias[i];
+                double s1 = s0;
+                double s2 = s0;
+                double s3 = s0;
+                for (int j = 0; j < numFrom; j++) {
+                    final double wij = w[wOffset + j];
+                    s0 += wij * act[a0 + j];
+                    s1 += wij * act[a1 + j];
+                    s2 += wij * act[a2 + j];
+                    s3 += wij * act[a3 + j];
+                }
+                next[n0 + i] = activation(s0);
+                next[n0 + numTo + i] = activation(s1);
+                next[n0 + 2 * numTo + i] = activation(s2);
+                next[n0 + 3 * numTo + i] = activation(s3);
+            }
+        }
+        for (; p < count; p++) {
+            final int a0 = p * numFrom;
+            final int n0 = p * numTo;
+            for (int i = 0; i < numTo; i++) {
+                final int wOffset = i * numFrom;
+                double s0 = bias[i];
+                for (int j = 0; j < numFrom; j++) {
+                    s0 += w[wOffset + j] * act[a0 + j];
+                }
+                next[n0 + i] = activation(s0);
+            }
+        }
+    }
+
+    private static double activation(double x) {
+        int index = (int) ((x - ALPHA_START) * ALPHA_FACTOR);
+        if (index < 0) {
+            index = 0;
+        } else if (index >= NUM_ALPHA) {
+            index = NUM_ALPHA - 1;
+        }
+        return ALPHA_TAB[index];
+    }
+
+    private static void readRanges(BufferedReader reader, double[] min, double[] max) throws IOException {
+        for (int i = 0; i < min.length; i++) {
+            final String[] tokens = nextLine(reader).trim().split("\\s+");
+            min[i] = Double.parseDouble(tokens[0]);
+            max[i] = Double.parseDouble(tokens[1]);
+        }
+    }
+
+    private static String skipUntil(BufferedReader reader, String prefix) throws IOException {
+        String line;
+        do {
+            line = nextLine(reader);
+        } while (!line.startsWith(prefix));
+        return line;
+    }
+
+    private static String nextLine(BufferedReader reader) throws IOException {
+        final String line = reader.readLine();
+        if (line == null) {
+            throw new IOException("Unexpected end of neural net definition");
+        }
+        return line;
+    }
+
+    /**
+     * Intermediate layer values of an evaluation. The buffers grow on demand and are reused afterwards,
+     * so a scratch must not be shared between threads.
+     */
+    public static final class Scratch {
+
+        private double[] a = new double[0];
+        private double[] b = new double[0];
+
+        private void ensureCapacity(int length) {
+            if (a.length < length) {
+                a = new double[length];
+                b = new double[length];
+            }
+        }
+    }
+}
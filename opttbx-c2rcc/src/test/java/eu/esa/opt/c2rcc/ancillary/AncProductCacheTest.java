@@ -0,0 +1,215 @@
+package eu.esa.opt.c2rcc.ancillary;
+
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AncProductCacheTest {
+
+    private List<Product> openedProducts;
+    private List<Product> disposedProducts;
+
+    @Before
+    public void setUp() throws Exception {
+        openedProducts = Collections.synchronizedList(new ArrayList<>());
+        disposedProducts = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @Test
+    public void testAcquire_sameFileIsOpenedOnce() throws Exception {
+        final AncProductCache cache = new AncProductCache(4, 60000, true, this::openProduct);
+
+        final Product p1 = cache.acquire(new File("N201500100_MET_NCEPR2_6h.hdf"));
+        final Product p2 = cache.acquire(new File("N201500100_MET_NCEPR2_6h.hdf"));
+
+        assertSame(p1, p2);
+        assertEquals(1, openedProducts.size());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testAcquire_slowOpeningDoesNotBlockOtherFiles() throws Exception {
+        final File slowFile = new File("N201500106_MET_NCEPR2_6h.hdf");
+        final CountDownLatch openingStarted = new CountDownLatch(1);
+        final CountDownLatch openingReleased = new CountDownLatch(1);
+        final AncProductCache cache = new AncProductCache(4, 60000, true, file -> {
+            if (file.equals(slowFile)) {
+                openingStarted.countDown();
+                await(openingReleased);
+            }
+            return openProduct(file);
+        });
+        final Product cached = cache.acquire(new File("N201500100_MET_NCEPR2_6h.hdf"));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<Product> slow = executor.submit(() -> cache.acquire(slowFile));
+            assertTrue(openingStarted.await(10, TimeUnit.SECONDS));
+
+            final Future<Product> hit = executor.submit(() -> cache.acquire(new File("N201500100_MET_NCEPR2_6h.hdf")));
+            assertSame(cached, hit.get(10, TimeUnit.SECONDS));
+            assertFalse(slow.isDone());
+
+            openingReleased.countDown();
+            assertNotNull(slow.get(10, TimeUnit.SECONDS));
+        } finally {
+            openingReleased.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAcquire_concurrentRequestsShareOneOpening() throws Exception {
+        final CountDownLatch openingStarted = new CountDownLatch(1);
+        final CountDownLatch openingReleased = new CountDownLatch(1);
+        final AncProductCache cache = new AncProductCache(4, 60000, true, file -> {
+            openingStarted.countDown();
+            await(openingReleased);
+            return openProduct(file);
+        });
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final File file = new File("N201500100_MET_NCEPR2_6h.hdf");
+            final Future<Product> first = executor.submit(() -> cache.acquire(file));
+            assertTrue(openingStarted.await(10, TimeUnit.SECONDS));
+            final Future<Product> second = executor.submit(() -> cache.acquire(file));
+            // the second request is counted as a hit before it waits for the opening
+            while (cache.getHitCount() == 0) {
+                Thread.sleep(1);
+            }
+
+            openingReleased.countDown();
+            assertSame(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, openedProducts.size());
+            assertEquals(1, cache.size());
+        } finally {
+            openingReleased.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAcquire_failedOpeningIsRetried() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        final AncProductCache cache = new AncProductCache(4, 60000, true, file -> {
+            if (attempts.getAndIncrement() == 0) {
+                throw new IOException("not yet available");
+            }
+            return openProduct(file);
+        });
+        final File file = new File("N201500100_MET_NCEPR2_6h.hdf");
+
+        try {
+            cache.acquire(file);
+            fail("IOException expected");
+        } catch (IOException expected) {
+            assertEquals("not yet available", expected.getMessage());
+        }
+        assertEquals(0, cache.size());
+
+        assertNotNull(cache.acquire(file));
+        assertEquals(2, attempts.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testRelease_leastRecentlyUsedIdleProductIsEvicted() throws Exception {
+        final AncProductCache cache = new AncProductCache(2, 60000, true, this::openProduct);
+
+        final Product p1 = cache.acquire(new File("N201500100_MET_NCEPR2_6h.hdf"));
+        final Product p2 = cache.acquire(new File("N201500106_MET_NCEPR2_6h.hdf"));
+        final Product p3 = cache.acquire(new File("N201500112_MET_NCEPR2_6h.hdf"));
+        // all products are in use, nothing can be evicted
+        assertEquals(3, cache.size());
+
+        cache.release(p1);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(disposedProducts.contains(p1));
+        assertFalse(disposedProducts.contains(p2));
+
+        cache.release(p2);
+        cache.release(p3);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testClear_productsInUseAreKept() throws Exception {
+        final AncProductCache cache = new AncProductCache(4, 60000, true, this::openProduct);
+
+        final Product p1 = cache.acquire(new File("N201500100_MET_NCEPR2_6h.hdf"));
+        final Product p2 = cache.acquire(new File("N201500106_MET_NCEPR2_6h.hdf"));
+        cache.release(p1);
+        cache.clear();
+
+        assertEquals(1, cache.size());
+        assertTrue(disposedProducts.contains(p1));
+        assertFalse(disposedProducts.contains(p2));
+    }
+
+    @Test
+    public void testGetGrid() throws Exception {
+        final AncProductCache cache = new AncProductCache(4, 60000, true, this::openProduct);
+
+        final Product product = cache.acquire(new File("N201500100_MET_NCEPR2_6h.hdf"));
+        final AncGrid grid = cache.getGrid(product, "press");
+
+        assertNotNull(grid);
+        assertSame(grid, cache.getGrid(product, "press"));
+        assertEquals(1000.0, grid.getValue(45, -90), 1.0e-8);
+        assertEquals(1003.0, grid.getValue(-45, 90), 1.0e-8);
+        assertNull(cache.getGrid(product, "ozone"));
+    }
+
+    @Test
+    public void testGetGrid_decodedGridsDisabled() throws Exception {
+        final AncProductCache cache = new AncProductCache(4, 60000, false, this::openProduct);
+
+        final Product product = cache.acquire(new File("N201500100_MET_NCEPR2_6h.hdf"));
+        final AncGrid grid = cache.getGrid(product, "press");
+
+        assertNotNull(grid);
+        assertNotSame(grid, cache.getGrid(product, "press"));
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IOException("timeout");
+            }
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private Product openProduct(File file) {
+        final Product product = new Product(file.getName(), "NCEP", 2, 2) {
+            @Override
+            public void dispose() {
+                disposedProducts.add(this);
+                super.dispose();
+            }
+        };
+        product.addBand("press", ProductData.TYPE_FLOAT64).setDataElems(new double[]{1000, 1001, 1002, 1003});
+        openedProducts.add(product);
+        return product;
+    }
+}
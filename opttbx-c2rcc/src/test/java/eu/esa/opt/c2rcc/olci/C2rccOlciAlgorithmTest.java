@@ -0,0 +1,418 @@
+package eu.esa.opt.c2rcc.olci;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static eu.esa.opt.c2rcc.olci.C2rccOlciAlgorithm.*;
+import static org.junit.Assert.*;
+
+public class C2rccOlciAlgorithmTest {
+
+    private static final double[] TOA_RAD = {
+            58.2, 56.3, 49.1, 40.5, 35.2, 26.9, 18.1, 15.2, 14.8, 14.5, 12.9, 9.7, 3.2, 4.1, 6.0, 9.2,
+            7.5, 7.1, 5.3, 3.9, 4.4
+    };
+    private static final double[] SOLAR_FLUX = {
+            1714.9, 1742.9, 1876.4, 1929.0, 1926.6, 1800.4, 1650.8, 1531.4, 1472.6, 1408.9, 1265.5, 1108.0,
+            1082.2, 1075.8, 1070.5, 1049.4, 952.1, 925.9, 899.5, 809.3, 699.8
+    };
+
+    // results of the original per pixel implementation of the algorithm, for the sun zenith angles 35 and 60 degrees
+    private static final Golden SZA_35 = new Golden(
+            new double[]{
+                    0.13015760167997534, 0.12388572827441603, 0.1003555559344152, 0.08052081256068154,
+                    0.07007070076140436, 0.05730184809212522, 0.04205033576649616, 0.038066267789003384,
+                    0.03854448723358886, 0.03947055075325454, 0.03909425253944921, 0.033575100950810725,
+                    0.01134038508147726, 0.014616307461370675, 0.021495617822001444, 0.03362266401146106,
+                    0.03021092700143439, 0.029408956697449883, 0.022597482315323048, 0.018481636316562654,
+                    0.02411371321929866
+            },
+            new double[]{
+                    0.13015760167997534, 0.12390603816129854, 0.10061656806088225, 0.08177927419063673,
+                    0.07221705367094393, 0.0620439357199767, 0.0456241790995327, 0.03953369923055769,
+                    0.03975546308131416, 0.04052508784687925, 0.040828966667801295, 0.033794353213248585,
+                    0.03383882546539251, 0.030254112411286838, 0.029436398196920576, 0.024114600544862638
+            },
+            new double[]{
+                    0.1314296265032403, 0.12182399798697173, 0.10099983644228387, 0.08004138878254938,
+                    0.07286582131217814, 0.060437601571555984, 0.04774308976674693, 0.0408221708238115,
+                    0.03948621385235372, 0.039125044322607265, 0.03957299950836711, 0.03510320177910246,
+                    0.03425724449000468, 0.030152418430920168, 0.029457971444947367, 0.024307977418023995
+            },
+            new double[]{
+                    0.13872549346569088, 0.1255029707996129, 0.09651107735949138, 0.06962307974948137,
+                    0.06141494812844159, 0.04808588441138203, 0.038480099029396315, 0.0338213976216894,
+                    0.033038401312698064, 0.032562188342418766, 0.030538298992121845, 0.028234276962698108,
+                    0.027054583216095728, 0.024298186372302653, 0.023854246806316, 0.021770423207926985
+            },
+            new double[]{
+                    0.8221070963937387, 0.8365702620611275, 0.8753834147364823, 0.917884355229784,
+                    0.9311514714236002, 0.95332429524647, 0.969225742003857, 0.9763613552218866, 0.9774703885729772,
+                    0.9783694951308153, 0.9811671929097776, 0.984774039787034, 0.9862560569056957,
+                    0.9898774110679222, 0.9907730444815739, 0.9941729190211068
+            },
+            new double[]{
+                    0.8273328267321063, 0.839603793895671, 0.8728545367640578, 0.9114854573780461,
+                    0.9242851765381097, 0.947302442881492, 0.96543322473277, 0.974042542359651, 0.9754504125492057,
+                    0.9764197029528292, 0.9799258198150587, 0.9838871200521057, 0.9855574505382804,
+                    0.9898069512507843, 0.9904545062782264, 0.9940840662910576
+            },
+            new double[]{
+                    0.004517256069970958, 0.004742448431836667, 0.005644092247895209, 0.008206711820566464,
+                    0.010127337009039276, 0.0139948358819486, 0.013452192855555324, 0.010083502309863174,
+                    0.009378184056367044, 0.00993861068079725, 0.012904614741412168, 0.006011225345366313,
+                    0.006644424593659073, 0.0030786016909271578, 0.0026050791709806742, 4.5915819502105685E-4
+            },
+            new double[]{
+                    0.00431728298716981, 0.00468854198256911, 0.005726834565357922, 0.00791749846680336,
+                    0.009020384045808892, 0.01219242570402667, 0.012382522498816, 0.009206029052428942,
+                    0.00840049974995911, 0.008954583670583322, 0.01195221010778169, 0.005313776851329909
+            },
+            new double[]{
+                    1.1582516122545186, 2.192413270477165, 0.9798772001203087, 4.048282703910197, 22.572084047325102
+            },
+            new double[]{
+                    0.10327390738367175, 0.1894366615744945, 0.1379869751014605, 0.817893295464456,
+                    2.3548340473233496
+            },
+            7.350631261669877E-4, 0.13652668488043584, 4.143153922419901, 2.3247794284435614,
+            0.2215295371576507, 0.23295394617984613, 2.312625137022904, 3.722047297463025,
+            4.000841487049623, 0.18317214239675897, 0.10278035440672251,
+            -2147450880);
+
+    private static final Golden SZA_60 = new Golden(
+            new double[]{
+                    0.21323773099180818, 0.20296249514843684, 0.16441291759886892, 0.131917576433786,
+                    0.11479711554693316, 0.09387785201240324, 0.06889123701232766, 0.06236412215562863,
+                    0.0631475910269305, 0.06466476467748171, 0.06404827377527984, 0.05500622516213174,
+                    0.01857899924503296, 0.023945956273876457, 0.03521635856429473, 0.05508414791886046,
+                    0.049494685226180946, 0.048180813998245, 0.03702154766876242, 0.030278540341035935,
+                    0.03950559495797396
+            },
+            new double[]{
+                    0.21323773099180818, 0.20300711734728677, 0.16498661707959109, 0.13468976772339003,
+                    0.1195371323494933, 0.10444067805283418, 0.07685472713037317, 0.06560909334479781,
+                    0.06582226828330422, 0.0669920826665721, 0.06721354165650087, 0.05548845938188269,
+                    0.05555957589341416, 0.049589586966802365, 0.04824111273869287, 0.03950754443015302
+            },
+            new double[]{
+                    0.21487732113621325, 0.20028098228855654, 0.16691820584491823, 0.13314715677018166,
+                    0.12141340812214535, 0.10186266623726345, 0.08015716135816817, 0.06752235819558583,
+                    0.06508596575940052, 0.0644474216107882, 0.06515442471442696, 0.05744057934604931,
+                    0.05587075175367575, 0.04940380556444119, 0.048130108716606265, 0.039762947181890274
+            },
+            new double[]{
+                    0.2098561044653942, 0.19410136717092033, 0.15817473507747112, 0.11839538008619593,
+                    0.10514640069691344, 0.08201886100443928, 0.06421342706194633, 0.05527317953531917,
+                    0.053749232595386, 0.05280431148540104, 0.04938483712317862, 0.04567057075714502,
+                    0.04407935396924656, 0.04118172239503405, 0.04062244532982517, 0.03788978422134762
+            },
+            new double[]{
+                    0.7182527688895052, 0.7335826363976181, 0.7752294300152971, 0.8264005867369416,
+                    0.8439839508850406, 0.8757594476027182, 0.9011957619534124, 0.9140700771785009,
+                    0.9161246600346127, 0.9175465680694254, 0.9220915638009468, 0.9272474268293824,
+                    0.9292281084270794, 0.9348028334373293, 0.9354842027927804, 0.9397598669612217
+            },
+            new double[]{
+                    0.8162193608089406, 0.8277300057967538, 0.8586215386591027, 0.8946790569950409,
+                    0.9068374016880572, 0.9283587550764478, 0.9452671983420131, 0.9537029545122533,
+                    0.9550631873165359, 0.9559885065720243, 0.9590867277200907, 0.9626531585681334,
+                    0.9641741715925636, 0.9678415376000343, 0.9683728266749403, 0.9718727698375689
+            },
+            new double[]{
+                    0.008537894652152052, 0.009036102155728995, 0.01103170747589085, 0.016568005689121233,
+                    0.020873413989058825, 0.029638740060035446, 0.02820560554472134, 0.020130131488964368,
+                    0.01825132509373448, 0.019227348151137708, 0.025946169787458832, 0.011794094449096841,
+                    0.01302662383456568, 0.005842933948811571, 0.0049111816336816876, 8.207795333525825E-4
+            },
+            new double[]{
+                    0.007536329414605599, 0.008233459128357955, 0.01027290631891562, 0.014863719315087872,
+                    0.017239873898951145, 0.024177635806089094, 0.024127623244693443, 0.017024124702795126,
+                    0.015201534604555152, 0.016245154924686533, 0.022876480832550904, 0.009477311677727985
+            },
+            new double[]{
+                    1.2318226686087508, 2.247329590843569, 1.1422195949298828, 7.458782607602305, 38.110616974195246
+            },
+            new double[]{
+                    0.10459498013066038, 0.19432795480672607, 0.15988789867925227, 1.5116829034179222,
+                    4.011019668492387
+            },
+            8.633640364466219E-4, 0.17435264994006872, 5.297200934295568, 3.0093000059307555,
+            0.24005064320858274, 0.25517121501634854, 3.9670094882212723, 3.822046671008231,
+            6.862926414622801, 0.2385223831881521, 0.13550277175547176,
+            -2147450872);
+
+    private static final double DELTA = 1.0e-12;
+
+    private C2rccOlciAlgorithm algorithm;
+
+    @Before
+    public void setUp() throws Exception {
+        final String[] paths = new String[10];
+        paths[IDX_iop_rw] = "olci/iop_rw/77x77x77_1798.8.net";
+        paths[IDX_iop_unciop] = "olci/iop_unciop/77x77x77_309240.3.net";
+        paths[IDX_iop_uncsumiop_unckd] = "olci/iop_uncsumiop_unckd/77x77x77_242297.3.net";
+        paths[IDX_rtosa_aann] = "olci/rtosa_aann/31x7x31_1159.4.net";
+        paths[IDX_rtosa_rpath] = "olci/rtosa_rpath/31x37x37_17175.9.net";
+        paths[IDX_rtosa_rw] = "olci/rtosa_rw/33x23x13_2131677.4.net";
+        paths[IDX_rtosa_trans] = "olci/rtosa_trans/57x57x57_369970.5.net";
+        paths[IDX_rw_iop] = "olci/rw_iop/37x37x37_596495.4.net";
+        paths[IDX_rw_kd] = "olci/rw_kd/97x77x77_4669.6.net";
+        paths[IDX_rw_rwnorm] = "olci/rw_rwnorm/77x77x77_34029.1.net";
+        algorithm = new C2rccOlciAlgorithm(paths, true);
+        algorithm.setThresh_absd_log_rtosa(0.05);
+        algorithm.setThresh_rwlogslope(0.05);
+        algorithm.setThresh_cloudTransD(0.955);
+        algorithm.setOutputRtoaGcAann(true);
+        algorithm.setOutputRpath(true);
+        algorithm.setOutputTdown(true);
+        algorithm.setOutputTup(true);
+        algorithm.setOutputRhow(true);
+        algorithm.setOutputRhown(true);
+        algorithm.setOutputOos(true);
+        algorithm.setOutputKd(true);
+        algorithm.setOutputUncertainties(true);
+    }
+
+    @Test
+    public void testResult() {
+        assertResult(SZA_35, process(35.0, true));
+        assertResult(SZA_60, process(60.0, true));
+    }
+
+    @Test
+    public void testResultOfInvalidPixel() {
+        final Result result = process(35.0, false);
+        assertArrayEquals(SZA_35.r_toa, result.r_toa, DELTA);
+        assertEquals(0, result.r_tosa.length);
+        assertEquals(0, result.rwa.length);
+        assertEquals(0, result.iops_nn.length);
+        assertEquals(0.0, result.kd489_nn, 0.0);
+        assertEquals(0, result.flags);
+    }
+
+    @Test
+    public void testWorkspace() {
+        final Workspace ws = algorithm.createWorkspace();
+        algorithm.processPixel(10, 0, 54.0, 8.0, TOA_RAD, SOLAR_FLUX, 35.0, 150.0, 20.0, 100.0, 0.0, true, 1013.0, 330.0, ws);
+        assertResult(SZA_35, ws.toResult());
+
+        algorithm.processPixel(10, 1, 54.0, 8.0, TOA_RAD, SOLAR_FLUX, 35.0, 150.0, 20.0, 100.0, 0.0, false, 1013.0, 330.0, ws);
+        assertEquals(0, ws.rwa.length);
+        assertEquals(0, ws.iops_nn.length);
+        assertEquals(0.0, ws.unc_abs_chl, 0.0);
+        assertEquals(0, ws.flags);
+
+        algorithm.processPixel(10, 2, 54.0, 8.0, TOA_RAD, SOLAR_FLUX, 60.0, 150.0, 20.0, 100.0, 0.0, true, 1013.0, 330.0, ws);
+        assertResult(SZA_60, ws.toResult());
+    }
+
+    @Test
+    public void testBatch() {
+        final Batch batch = algorithm.createBatch(4);
+        setInput(batch, 0, 35.0, true);
+        setInput(batch, 1, 35.0, false);
+        setInput(batch, 2, 60.0, true);
+        algorithm.processPixels(batch, 3);
+
+        assertBatchPixel(SZA_35, batch, 0);
+        assertBatchPixel(SZA_60, batch, 2);
+
+        assertArrayEquals(SZA_35.r_toa, copyOfPixel(batch.r_toa, 1, batch.numToaBands), DELTA);
+        assertEquals(0.0, batch.rtosa_oos[1], 0.0);
+        assertEquals(0.0, batch.kd489_nn[1], 0.0);
+        assertEquals(0.0, batch.unc_abs_tsm[1], 0.0);
+        assertEquals(0, batch.flags[1]);
+    }
+
+    @Test
+    public void testBatchOfSeveralNetBlocks() {
+        final Batch batch = algorithm.createBatch(11);
+        for (int p = 0; p < 11; p++) {
+            setInput(batch, p, (p % 3 == 0) ? 60.0 : 35.0, p != 5);
+        }
+        algorithm.processPixels(batch, 11);
+
+        for (int p = 0; p < 11; p++) {
+            if (p == 5) {
+                assertEquals(0, batch.flags[p]);
+            } else {
+                assertBatchPixel((p % 3 == 0) ? SZA_60 : SZA_35, batch, p);
+            }
+        }
+    }
+
+    @Test
+    public void testRwDerivedFromPathAndTransmittance() {
+        algorithm.setDeriveRwFromPathAndTransmittance(true);
+        final Result result = process(35.0, true);
+        assertArrayEquals(new double[]{
+                0.9288540755006093, 0.9466986279683827, 0.974634050586379, 0.9985626445456066,
+                1.0008585843575497, 1.0088365902641279, 1.0045109241423564, 1.003978210333789,
+                1.005117958517475, 1.00646001289808, 1.0091081384022742, 1.0046648471971487,
+                1.0060233034614594, 1.0054695721153024, 1.0051411340284189, 1.0020884353059583
+        }, result.rwa, DELTA);
+        assertArrayEquals(new double[]{
+                0.9301751727572035, 2.975885013171766, 1.75710618852009, 301.6179289523383, 95.94675415210418
+        }, result.iops_nn, DELTA);
+        assertEquals(0.3262480111114155, result.rwa_oos, DELTA);
+        assertEquals(56.47809319818757, result.kd489_nn, DELTA);
+        assertEquals(5.701134065005063, result.unc_abs_chl, DELTA);
+        assertEquals(-2147450620, result.flags);
+    }
+
+    @Test
+    public void testBatchIsReusable() {
+        final Batch batch = algorithm.createBatch(2);
+        setInput(batch, 0, 60.0, true);
+        setInput(batch, 1, 35.0, true);
+        algorithm.processPixels(batch, 2);
+
+        setInput(batch, 0, 35.0, true);
+        algorithm.processPixels(batch, 1);
+        assertBatchPixel(SZA_35, batch, 0);
+        assertBatchPixel(SZA_35, batch, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchCapacityIsChecked() {
+        algorithm.processPixels(algorithm.createBatch(2), 3);
+    }
+
+    @Test
+    public void testResultsAreNotSharedBetweenCalls() {
+        final Result first = process(35.0, true);
+        process(60.0, true);
+        assertArrayEquals(SZA_35.rwa, first.rwa, DELTA);
+    }
+
+    private Result process(double sunZenith, boolean validPixel) {
+        return algorithm.processPixel(10, 0, 54.0, 8.0, TOA_RAD, SOLAR_FLUX,
+                                      sunZenith, 150.0, 20.0, 100.0, 0.0, validPixel, 1013.0, 330.0);
+    }
+
+    private static void setInput(Batch batch, int p, double sunZenith, boolean validPixel) {
+        System.arraycopy(TOA_RAD, 0, batch.toa_rad, p * batch.numToaBands, batch.numToaBands);
+        System.arraycopy(SOLAR_FLUX, 0, batch.solflux, p * batch.numToaBands, batch.numToaBands);
+        batch.sun_zeni[p] = sunZenith;
+        batch.sun_azi[p] = 150.0;
+        batch.view_zeni[p] = 20.0;
+        batch.view_azi[p] = 100.0;
+        batch.dem_alt[p] = 0.0;
+        batch.validPixel[p] = validPixel;
+        batch.atm_press[p] = 1013.0;
+        batch.ozone[p] = 330.0;
+    }
+
+    private static void assertResult(Golden expected, Result actual) {
+        assertArrayEquals(expected.r_toa, actual.r_toa, DELTA);
+        assertArrayEquals(expected.r_tosa, actual.r_tosa, DELTA);
+        assertArrayEquals(expected.rtosa_aann, actual.rtosa_aann, DELTA);
+        assertArrayEquals(expected.rpath_nn, actual.rpath_nn, DELTA);
+        assertArrayEquals(expected.transd_nn, actual.transd_nn, DELTA);
+        assertArrayEquals(expected.transu_nn, actual.transu_nn, DELTA);
+        assertArrayEquals(expected.rwa, actual.rwa, DELTA);
+        assertArrayEquals(expected.rwn, actual.rwn, DELTA);
+        assertArrayEquals(expected.iops_nn, actual.iops_nn, DELTA);
+        assertArrayEquals(expected.unc_iop_abs, actual.unc_iop_abs, DELTA);
+        assertEquals(expected.rtosa_oos, actual.rtosa_oos, DELTA);
+        assertEquals(expected.rwa_oos, actual.rwa_oos, DELTA);
+        assertEquals(expected.kd489_nn, actual.kd489_nn, DELTA);
+        assertEquals(expected.kdmin_nn, actual.kdmin_nn, DELTA);
+        assertEquals(expected.unc_abs_adg, actual.unc_abs_adg, DELTA);
+        assertEquals(expected.unc_abs_atot, actual.unc_abs_atot, DELTA);
+        assertEquals(expected.unc_abs_btot, actual.unc_abs_btot, DELTA);
+        assertEquals(expected.unc_abs_chl, actual.unc_abs_chl, DELTA);
+        assertEquals(expected.unc_abs_tsm, actual.unc_abs_tsm, DELTA);
+        assertEquals(expected.unc_abs_kd489, actual.unc_abs_kd489, DELTA);
+        assertEquals(expected.unc_abs_kdmin, actual.unc_abs_kdmin, DELTA);
+        assertEquals(expected.flags, actual.flags);
+    }
+
+    private static void assertBatchPixel(Golden expected, Batch batch, int p) {
+        assertArrayEquals(expected.r_toa, copyOfPixel(batch.r_toa, p, batch.numToaBands), DELTA);
+        assertArrayEquals(expected.r_tosa, copyOfPixel(batch.r_tosa, p, batch.numTosaBands), DELTA);
+        assertArrayEquals(expected.rtosa_aann, copyOfPixel(batch.rtosa_aann, p, batch.numAann), DELTA);
+        assertArrayEquals(expected.rpath_nn, copyOfPixel(batch.rpath_nn, p, batch.numRpath), DELTA);
+        assertArrayEquals(expected.transd_nn, copyOfPixel(batch.transd_nn, p, batch.numTrans), DELTA);
+        assertArrayEquals(expected.transu_nn, copyOfPixel(batch.transu_nn, p, batch.numTrans), DELTA);
+        assertArrayEquals(expected.rwa, copyOfPixel(batch.rwa, p, batch.numRw), DELTA);
+        assertArrayEquals(expected.rwn, copyOfPixel(batch.rwn, p, batch.numRwn), DELTA);
+        assertArrayEquals(expected.iops_nn, copyOfPixel(batch.iops_nn, p, batch.numIops), DELTA);
+        assertArrayEquals(expected.unc_iop_abs, copyOfPixel(batch.unc_iop_abs, p, batch.numUncIops), DELTA);
+        assertEquals(expected.rtosa_oos, batch.rtosa_oos[p], DELTA);
+        assertEquals(expected.rwa_oos, batch.rwa_oos[p], DELTA);
+        assertEquals(expected.kd489_nn, batch.kd489_nn[p], DELTA);
+        assertEquals(expected.kdmin_nn, batch.kdmin_nn[p], DELTA);
+        assertEquals(expected.unc_abs_adg, batch.unc_abs_adg[p], DELTA);
+        assertEquals(expected.unc_abs_atot, batch.unc_abs_atot[p], DELTA);
+        assertEquals(expected.unc_abs_btot, batch.unc_abs_btot[p], DELTA);
+        assertEquals(expected.unc_abs_chl, batch.unc_abs_chl[p], DELTA);
+        assertEquals(expected.unc_abs_tsm, batch.unc_abs_tsm[p], DELTA);
+        assertEquals(expected.unc_abs_kd489, batch.unc_abs_kd489[p], DELTA);
+        assertEquals(expected.unc_abs_kdmin, batch.unc_abs_kdmin[p], DELTA);
+        assertEquals(expected.flags, batch.flags[p]);
+    }
+
+    private static double[] copyOfPixel(double[] values, int p, int count) {
+        final double[] copy = new double[count];
+        System.arraycopy(values, p * count, copy, 0, count);
+        return copy;
+    }
+
+    private static final class Golden {
+
+        final double[] r_toa;
+        final double[] r_tosa;
+        final double[] rtosa_aann;
+        final double[] rpath_nn;
+        final double[] transd_nn;
+        final double[] transu_nn;
+        final double[] rwa;
+        final double[] rwn;
+        final double[] iops_nn;
+        final double[] unc_iop_abs;
+        final double rtosa_oos;
+        final double rwa_oos;
+        final double kd489_nn;
+        final double kdmin_nn;
+        final double unc_abs_adg;
+        final double unc_abs_atot;
+        final double unc_abs_btot;
+        final double unc_abs_chl;
+        final double unc_abs_tsm;
+        final double unc_abs_kd489;
+        final double unc_abs_kdmin;
+        final int flags;
+
+        Golden(double[] r_toa, double[] r_tosa, double[] rtosa_aann, double[] rpath_nn, double[] transd_nn,
+               double[] transu_nn, double[] rwa, double[] rwn, double[] iops_nn, double[] unc_iop_abs,
+               double rtosa_oos, double rwa_oos, double kd489_nn, double kdmin_nn,
+               double unc_abs_adg, double unc_abs_atot, double unc_abs_btot, double unc_abs_chl,
+               double unc_abs_tsm, double unc_abs_kd489, double unc_abs_kdmin,
+               int flags) {
+            this.r_toa = r_toa;
+            this.r_tosa = r_tosa;
+            this.rtosa_aann = rtosa_aann;
+            this.rpath_nn = rpath_nn;
+            this.transd_nn = transd_nn;
+            this.transu_nn = transu_nn;
+            this.rwa = rwa;
+            this.rwn = rwn;
+            this.iops_nn = iops_nn;
+            this.unc_iop_abs = unc_iop_abs;
+            this.rtosa_oos = rtosa_oos;
+            this.rwa_oos = rwa_oos;
+            this.kd489_nn = kd489_nn;
+            this.kdmin_nn = kdmin_nn;
+            this.unc_abs_adg = unc_abs_adg;
+            this.unc_abs_atot = unc_abs_atot;
+            this.unc_abs_btot = unc_abs_btot;
+            this.unc_abs_chl = unc_abs_chl;
+            this.unc_abs_tsm = unc_abs_tsm;
+            this.unc_abs_kd489 = unc_abs_kd489;
+            this.unc_abs_kdmin = unc_abs_kdmin;
+            this.flags = flags;
+        }
+    }
+}
@@ -2,11 +2,9 @@ package eu.esa.opt.c2rcc.olci;
 
 import com.bc.ceres.annotation.STTM;
 import com.bc.ceres.test.LongTestRunner;
-import eu.esa.opt.c2rcc.util.TestSample;
 import org.esa.snap.core.datamodel.GeoPos;
 import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.dataop.dem.ElevationModel;
-import org.esa.snap.core.gpf.pointop.Sample;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -20,15 +18,10 @@ public class C2rccOlciDEMTest {
 
     final C2rccOlciOperator operator = initOperator();
     private final GeoPos geoPos = new GeoPos(72.1, 24.34);
-    Sample[] sourceSamples;
     final double expectedAltitude = 300;
 
     @Before
     public void setUp() throws FactoryException, TransformException {
-        final int index = C2rccOlciOperator.BAND_COUNT;
-        this.sourceSamples = new Sample[index * 3];
-        this.sourceSamples[index * 2] = new TestSample(this.expectedAltitude);
-
         operator.setSourceProduct(OlciTestProduct.create());
         Product targetProduct = operator.getTargetProduct();
     }
@@ -40,11 +33,10 @@ public class C2rccOlciDEMTest {
         operator.initialiseElevationModel();
 
         final ElevationModel elevationModel = operator.getElevationModel();
-        final double actual = operator.getAltitude(geoPos, this.sourceSamples);
-        final double expected = this.sourceSamples[C2rccOlciOperator.BAND_COUNT * 2].getDouble();
+        final double actual = operator.getAltitude(geoPos, this.expectedAltitude);
 
         assertNull(elevationModel);
-        assertEquals(expected, actual, .0001);
+        assertEquals(this.expectedAltitude, actual, .0001);
     }
 
     @Test
@@ -56,7 +48,7 @@ public class C2rccOlciDEMTest {
 
         final ElevationModel elevationModel = operator.getElevationModel();
         final double expected = elevationModel.getElevation(geoPos);
-        final double actual = operator.getAltitude(geoPos, this.sourceSamples);
+        final double actual = operator.getAltitude(geoPos, this.expectedAltitude);
 
         assertEquals("Copernicus90mElevationModel", elevationModel.getClass().getSimpleName());
         assertEquals(expected, actual, .0001);
@@ -71,7 +63,7 @@ public class C2rccOlciDEMTest {
 
         final ElevationModel elevationModel = operator.getElevationModel();
         final double expected = elevationModel.getElevation(geoPos);
-        final double actual = operator.getAltitude(geoPos, this.sourceSamples);
+        final double actual = operator.getAltitude(geoPos, this.expectedAltitude);
 
         assertEquals("Copernicus30mElevationModel", elevationModel.getClass().getSimpleName());
         assertEquals(expected, actual, .0001);
@@ -86,7 +78,7 @@ public class C2rccOlciDEMTest {
 
         final ElevationModel elevationModel = operator.getElevationModel();
         final double expected = elevationModel.getElevation(geoPos);
-        final double actual = operator.getAltitude(geoPos, this.sourceSamples);
+        final double actual = operator.getAltitude(geoPos, this.expectedAltitude);
 
         assertEquals("GETASSE30ElevationModel", elevationModel.getClass().getSimpleName());
         assertEquals(expected, actual, .0001);
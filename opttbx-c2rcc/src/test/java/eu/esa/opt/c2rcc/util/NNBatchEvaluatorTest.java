@@ -0,0 +1,98 @@
+package eu.esa.opt.c2rcc.util;
+
+import org.esa.snap.core.nn.NNffbpAlphaTabFast;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NNBatchEvaluatorTest {
+
+    private static final String NET_RESOURCE = "/auxdata/nets/test_meris/inv_meris_logrw_logiop_20140318_noise_p5_fl/97x77x37_11671.0.net";
+
+    private String nnCode;
+
+    @Before
+    public void setUp() throws Exception {
+        try (InputStream stream = NNBatchEvaluatorTest.class.getResourceAsStream(NET_RESOURCE)) {
+            assertNotNull(stream);
+            nnCode = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testCreate() throws Exception {
+        final NNBatchEvaluator evaluator = NNBatchEvaluator.create(nnCode);
+        assertEquals(15, evaluator.getInputCount());
+        assertEquals(5, evaluator.getOutputCount());
+        assertEquals(0.000133, evaluator.getInmin()[0], 1.0e-9);
+        assertEquals(75.0, evaluator.getInmax()[0], 1.0e-9);
+        assertEquals(-13.17, evaluator.getOutmin()[0], 1.0e-9);
+        assertEquals(4.076, evaluator.getOutmax()[4], 1.0e-9);
+    }
+
+    @Test(expected = IOException.class)
+    public void testCreate_invalidNet() throws Exception {
+        NNBatchEvaluator.create(nnCode.substring(0, nnCode.length() / 2));
+    }
+
+    @Test
+    public void testCalc_sameAsNNffbpAlphaTabFast() throws Exception {
+        final NNBatchEvaluator evaluator = NNBatchEvaluator.create(nnCode);
+        final NNffbpAlphaTabFast nn = new NNffbpAlphaTabFast(nnCode);
+        final NNBatchEvaluator.Scratch scratch = new NNBatchEvaluator.Scratch();
+        final Random random = new Random(42);
+        final double[] output = new double[evaluator.getOutputCount()];
+
+        for (int n = 0; n < 50; n++) {
+            final double[] input = createInput(evaluator, 1, random);
+            evaluator.calc(input, output, scratch);
+            final double[] expected = nn.calc(input);
+            for (int i = 0; i < expected.length; i++) {
+                final double range = evaluator.getOutmax()[i] - evaluator.getOutmin()[i];
+                assertEquals(expected[i], output[i], 1.0e-3 * range);
+            }
+        }
+    }
+
+    @Test
+    public void testCalc_batchSameAsSingle() throws Exception {
+        final NNBatchEvaluator evaluator = NNBatchEvaluator.create(nnCode);
+        final NNBatchEvaluator.Scratch scratch = new NNBatchEvaluator.Scratch();
+        final int numIn = evaluator.getInputCount();
+        final int numOut = evaluator.getOutputCount();
+        final int count = 23;  // not a multiple of the block size
+        final double[] input = createInput(evaluator, count, new Random(17));
+        final double[] batchOutput = new double[count * numOut];
+
+        evaluator.calc(input, batchOutput, count, scratch);
+
+        final double[] singleInput = new double[numIn];
+        final double[] singleOutput = new double[numOut];
+        for (int p = 0; p < count; p++) {
+            System.arraycopy(input, p * numIn, singleInput, 0, numIn);
+            evaluator.calc(singleInput, singleOutput, scratch);
+            for (int i = 0; i < numOut; i++) {
+                assertEquals(singleOutput[i], batchOutput[p * numOut + i], 0.0);
+            }
+        }
+    }
+
+    private static double[] createInput(NNBatchEvaluator evaluator, int count, Random random) {
+        final int numIn = evaluator.getInputCount();
+        final double[] input = new double[count * numIn];
+        for (int p = 0; p < count; p++) {
+            for (int i = 0; i < numIn; i++) {
+                final double min = evaluator.getInmin()[i];
+                final double max = evaluator.getInmax()[i];
+                input[p * numIn + i] = min + random.nextDouble() * (max - min);
+            }
+        }
+        return input;
+    }
+}
@@ -0,0 +1,501 @@
+package eu.esa.opt.dataio;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * Seek points of a gzip file, allowing to decompress its content from an arbitrary offset.
+ * <br>A seek point is the start of a deflate block, given by its offset in bits in the gzip file, with the 32 KiB of
+ * uncompressed data preceding it, which are the dictionary of the back references of the block. The seek points are
+ * found by decoding the whole file once, since the block boundaries are not exposed by {@link java.util.zip.Inflater}.
+ *
+ * @since 14.0.0
+ */
+final class GzipIndex {
+
+    static final int WINDOW_SIZE = 32 * 1024;
+
+    private final long uncompressedSize;
+    private final List<SeekPoint> seekPoints;
+
+    private GzipIndex(long uncompressedSize, List<SeekPoint> seekPoints) {
+        this.uncompressedSize = uncompressedSize;
+        this.seekPoints = Collections.unmodifiableList(seekPoints);
+    }
+
+    /**
+     * Decodes a gzip file to find its seek points.
+     *
+     * @param gzipFile the gzip file, possibly made of several members
+     * @param span     the minimum number of uncompressed bytes between two seek points of a member
+     */
+    static GzipIndex build(Path gzipFile, long span) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(gzipFile)) {
+            return new Scanner(inputStream, span).scan();
+        }
+    }
+
+    static GzipIndex read(DataInput input) throws IOException {
+        long uncompressedSize = input.readLong();
+        int count = input.readInt();
+        List<SeekPoint> seekPoints = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long uncompressedOffset = input.readLong();
+            long bitOffset = input.readLong();
+            boolean memberStart = input.readBoolean();
+            byte[] window = new byte[input.readInt()];
+            input.readFully(window);
+            seekPoints.add(new SeekPoint(uncompressedOffset, bitOffset, memberStart, window));
+        }
+        return new GzipIndex(uncompressedSize, seekPoints);
+    }
+
+    void write(DataOutput output) throws IOException {
+        output.writeLong(this.uncompressedSize);
+        output.writeInt(this.seekPoints.size());
+        for (SeekPoint seekPoint : this.seekPoints) {
+            output.writeLong(seekPoint.uncompressedOffset);
+            output.writeLong(seekPoint.bitOffset);
+            output.writeBoolean(seekPoint.memberStart);
+            output.writeInt(seekPoint.window.length);
+            output.write(seekPoint.window);
+        }
+    }
+
+    long getUncompressedSize() {
+        return this.uncompressedSize;
+    }
+
+    List<SeekPoint> getSeekPoints() {
+        return this.seekPoints;
+    }
+
+    /**
+     * Returns the last seek point at or before an uncompressed offset.
+     */
+    SeekPoint findSeekPoint(long uncompressedOffset) {
+        int low = 0;
+        int high = this.seekPoints.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (this.seekPoints.get(mid).uncompressedOffset <= uncompressedOffset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return this.seekPoints.get(low);
+    }
+
+    /**
+     * Returns the seek point of the gzip member starting at an uncompressed offset, or <code>null</code> if no
+     * member starts there.
+     */
+    SeekPoint findMemberStart(long uncompressedOffset) {
+        for (SeekPoint seekPoint : this.seekPoints) {
+            if (seekPoint.memberStart && seekPoint.uncompressedOffset == uncompressedOffset) {
+                return seekPoint;
+            }
+        }
+        return null;
+    }
+
+    static final class SeekPoint {
+
+        final long uncompressedOffset;
+        // the offset in bits in the gzip file of the first block
+        final long bitOffset;
+        final boolean memberStart;
+        // the uncompressed data of the member preceding the point, at most 32 KiB
+        final byte[] window;
+
+        SeekPoint(long uncompressedOffset, long bitOffset, boolean memberStart, byte[] window) {
+            this.uncompressedOffset = uncompressedOffset;
+            this.bitOffset = bitOffset;
+            this.memberStart = memberStart;
+            this.window = window;
+        }
+    }
+
+    /**
+     * Decoder of the deflate streams (RFC 1951) of the gzip members (RFC 1952), keeping only the last 32 KiB of
+     * uncompressed data.
+     */
+    private static final class Scanner {
+
+        private static final int HISTORY_SIZE = 2 * WINDOW_SIZE;
+        private static final int HISTORY_MASK = HISTORY_SIZE - 1;
+
+        private static final int[] LENGTH_BASE = {3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31, 35, 43, 51,
+                59, 67, 83, 99, 115, 131, 163, 195, 227, 258};
+        private static final int[] LENGTH_EXTRA = {0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 4,
+                5, 5, 5, 5, 0};
+        private static final int[] DISTANCE_BASE = {1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193, 257, 385,
+                513, 769, 1025, 1537, 2049, 3073, 4097, 6145, 8193, 12289, 16385, 24577};
+        private static final int[] DISTANCE_EXTRA = {0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7, 8, 8, 9, 9, 10,
+                10, 11, 11, 12, 12, 13, 13};
+        private static final int[] CODE_LENGTH_ORDER = {16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11, 4, 12, 3, 13, 2, 14, 1, 15};
+
+        private static final HuffmanTable FIXED_LITERALS;
+        private static final HuffmanTable FIXED_DISTANCES;
+
+        static {
+            int[] literalLengths = new int[288];
+            for (int i = 0; i < 288; i++) {
+                literalLengths[i] = (i < 144) ? 8 : (i < 256) ? 9 : (i < 280) ? 7 : 8;
+            }
+            int[] distanceLengths = new int[30];
+            Arrays.fill(distanceLengths, 5);
+            try {
+                FIXED_LITERALS = new HuffmanTable(literalLengths, 288);
+                FIXED_DISTANCES = new HuffmanTable(distanceLengths, 30);
+            } catch (ZipException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private final InputStream inputStream;
+        private final byte[] buffer;
+        private final long span;
+        private final byte[] history;
+        private final List<SeekPoint> seekPoints;
+
+        private int bufferPosition;
+        private int bufferLength;
+        private long consumedBytes;
+        private long bitBuffer;
+        private int bitCount;
+        private long outputSize;
+        private long memberStart;
+
+        private Scanner(InputStream inputStream, long span) {
+            this.inputStream = inputStream;
+            this.buffer = new byte[1024 * 1024];
+            this.span = span;
+            this.history = new byte[HISTORY_SIZE];
+            this.seekPoints = new ArrayList<>();
+        }
+
+        private GzipIndex scan() throws IOException {
+            int firstByte = readByteOrEnd();
+            while (firstByte != -1) {
+                readMemberHeader(firstByte);
+                this.memberStart = this.outputSize;
+                long lastSeekPoint = this.outputSize;
+                this.seekPoints.add(new SeekPoint(this.outputSize, getBitOffset(), true, new byte[0]));
+                boolean lastBlock;
+                do {
+                    if (this.outputSize - lastSeekPoint >= this.span) {
+                        this.seekPoints.add(new SeekPoint(this.outputSize, getBitOffset(), false, copyWindow()));
+                        lastSeekPoint = this.outputSize;
+                    }
+                    lastBlock = readBits(1) == 1;
+                    int blockType = readBits(2);
+                    if (blockType == 0) {
+                        readStoredBlock();
+                    } else if (blockType == 1) {
+                        readCompressedBlock(FIXED_LITERALS, FIXED_DISTANCES);
+                    } else if (blockType == 2) {
+                        readDynamicBlock();
+                    } else {
+                        throw new ZipException("Invalid deflate block type");
+                    }
+                } while (!lastBlock);
+                // the CRC-32 and the size of the member follow the byte aligned end of the deflate stream
+                alignToByte();
+                for (int i = 0; i < 8; i++) {
+                    readByte();
+                }
+                firstByte = readByteOrEnd();
+                if (firstByte != 0x1f) {
+                    // end of the file, or padding after the last member
+                    break;
+                }
+            }
+            if (this.seekPoints.isEmpty()) {
+                throw new ZipException("Not in gzip format");
+            }
+            return new GzipIndex(this.outputSize, this.seekPoints);
+        }
+
+        private void readMemberHeader(int firstByte) throws IOException {
+            if (firstByte != 0x1f || readByte() != 0x8b || readByte() != 8) {
+                throw new ZipException("Not in gzip format");
+            }
+            int flags = readByte();
+            for (int i = 0; i < 6; i++) {
+                readByte(); // modification time, extra flags, operating system
+            }
+            if ((flags & 4) != 0) {
+                int extraLength = readByte() | (readByte() << 8);
+                for (int i = 0; i < extraLength; i++) {
+                    readByte();
+                }
+            }
+            if ((flags & 8) != 0) {
+                while (readByte() != 0) {
+                    // file name
+                }
+            }
+            if ((flags & 16) != 0) {
+                while (readByte() != 0) {
+                    // comment
+                }
+            }
+            if ((flags & 2) != 0) {
+                readByte();
+                readByte();
+            }
+        }
+
+        private void readStoredBlock() throws IOException {
+            alignToByte();
+            int length = readBits(16);
+            int complement = readBits(16);
+            if ((length ^ 0xffff) != complement) {
+                throw new ZipException("Invalid stored block length");
+            }
+            while (length > 0 && this.bitCount >= 8) {
+                write((byte) readBits(8));
+                length--;
+            }
+            while (length > 0) {
+                if (this.bufferPosition == this.bufferLength && !fillBuffer()) {
+                    throw new EOFException("Unexpected end of gzip stream");
+                }
+                int count = Math.min(length, this.bufferLength - this.bufferPosition);
+                count = Math.min(count, HISTORY_SIZE - ((int) this.outputSize & HISTORY_MASK));
+                System.arraycopy(this.buffer, this.bufferPosition, this.history, (int) this.outputSize & HISTORY_MASK, count);
+                this.bufferPosition += count;
+                this.consumedBytes += count;
+                this.outputSize += count;
+                length -= count;
+            }
+        }
+
+        private void readDynamicBlock() throws IOException {
+            int literalCount = readBits(5) + 257;
+            int distanceCount = readBits(5) + 1;
+            int codeLengthCount = readBits(4) + 4;
+            int[] codeLengthLengths = new int[19];
+            for (int i = 0; i < codeLengthCount; i++) {
+                codeLengthLengths[CODE_LENGTH_ORDER[i]] = readBits(3);
+            }
+            HuffmanTable codeLengthTable = new HuffmanTable(codeLengthLengths, 19);
+            int[] lengths = new int[literalCount + distanceCount];
+            int index = 0;
+            while (index < lengths.length) {
+                int symbol = decode(codeLengthTable);
+                if (symbol < 16) {
+                    lengths[index++] = symbol;
+                } else {
+                    int repeatedLength = 0;
+                    int repeatCount;
+                    if (symbol == 16) {
+                        if (index == 0) {
+                            throw new ZipException("Invalid repeated code length");
+                        }
+                        repeatedLength = lengths[index - 1];
+                        repeatCount = 3 + readBits(2);
+                    } else if (symbol == 17) {
+                        repeatCount = 3 + readBits(3);
+                    } else {
+                        repeatCount = 11 + readBits(7);
+                    }
+                    if (index + repeatCount > lengths.length) {
+                        throw new ZipException("Invalid code lengths");
+                    }
+                    for (int i = 0; i < repeatCount; i++) {
+                        lengths[index++] = repeatedLength;
+                    }
+                }
+            }
+            int[] literalLengths = Arrays.copyOfRange(lengths, 0, literalCount);
+            int[] distanceLengths = Arrays.copyOfRange(lengths, literalCount, lengths.length);
+            readCompressedBlock(new HuffmanTable(literalLengths, literalCount), new HuffmanTable(distanceLengths, distanceCount));
+        }
+
+        private void readCompressedBlock(HuffmanTable literals, HuffmanTable distances) throws IOException {
+            byte[] history = this.history;
+            while (true) {
+                int symbol = decode(literals);
+                if (symbol < 256) {
+                    history[(int) this.outputSize & HISTORY_MASK] = (byte) symbol;
+                    this.outputSize++;
+                } else if (symbol == 256) {
+                    return;
+                } else {
+                    symbol -= 257;
+                    if (symbol >= LENGTH_BASE.length) {
+                        throw new ZipException("Invalid literal/length code");
+                    }
+                    int length = LENGTH_BASE[symbol] + readBits(LENGTH_EXTRA[symbol]);
+                    int distanceSymbol = decode(distances);
+                    if (distanceSymbol >= DISTANCE_BASE.length) {
+                        throw new ZipException("Invalid distance code");
+                    }
+                    int distance = DISTANCE_BASE[distanceSymbol] + readBits(DISTANCE_EXTRA[distanceSymbol]);
+                    if (distance > this.outputSize - this.memberStart) {
+                        throw new ZipException("Invalid distance too far back");
+                    }
+                    long position = this.outputSize;
+                    for (int i = 0; i < length; i++, position++) {
+                        history[(int) position & HISTORY_MASK] = history[(int) (position - distance) & HISTORY_MASK];
+                    }
+                    this.outputSize = position;
+                }
+            }
+        }
+
+        private void write(byte value) {
+            this.history[(int) this.outputSize & HISTORY_MASK] = value;
+            this.outputSize++;
+        }
+
+        private byte[] copyWindow() {
+            int length = (int) Math.min(WINDOW_SIZE, this.outputSize - this.memberStart);
+            byte[] window = new byte[length];
+            long start = this.outputSize - length;
+            for (int i = 0; i < length; i++) {
+                window[i] = this.history[(int) (start + i) & HISTORY_MASK];
+            }
+            return window;
+        }
+
+        private long getBitOffset() {
+            return this.consumedBytes * 8 - this.bitCount;
+        }
+
+        private int decode(HuffmanTable table) throws IOException {
+            fillBits(table.maximumLength);
+            int entry = table.entries[(int) this.bitBuffer & table.mask];
+            int length = entry & 15;
+            if (length == 0 || length > this.bitCount) {
+                throw (length == 0) ? new ZipException("Invalid Huffman code") : new EOFException("Unexpected end of gzip stream");
+            }
+            this.bitBuffer >>>= length;
+            this.bitCount -= length;
+            return entry >>> 4;
+        }
+
+        private int readBits(int count) throws IOException {
+            if (count == 0) {
+                return 0;
+            }
+            fillBits(count);
+            if (this.bitCount < count) {
+                throw new EOFException("Unexpected end of gzip stream");
+            }
+            int value = (int) this.bitBuffer & ((1 << count) - 1);
+            this.bitBuffer >>>= count;
+            this.bitCount -= count;
+            return value;
+        }
+
+        private void alignToByte() {
+            this.bitBuffer >>>= (this.bitCount & 7);
+            this.bitCount -= (this.bitCount & 7);
+        }
+
+        // the bit buffer being byte aligned
+        private int readByte() throws IOException {
+            int value = readByteOrEnd();
+            if (value < 0) {
+                throw new EOFException("Unexpected end of gzip stream");
+            }
+            return value;
+        }
+
+        private int readByteOrEnd() throws IOException {
+            if (this.bitCount >= 8) {
+                return readBits(8);
+            }
+            if (this.bufferPosition == this.bufferLength && !fillBuffer()) {
+                return -1;
+            }
+            this.consumedBytes++;
+            return this.buffer[this.bufferPosition++] & 0xff;
+        }
+
+        // loads at least the given number of bits in the bit buffer, unless the end of the file is reached
+        private void fillBits(int count) throws IOException {
+            if (this.bitCount >= count) {
+                return;
+            }
+            // whole bytes are loaded, up to 56 bits
+            while (this.bitCount <= 48) {
+                if (this.bufferPosition == this.bufferLength && !fillBuffer()) {
+                    return;
+                }
+                this.consumedBytes++;
+                this.bitBuffer |= ((long) (this.buffer[this.bufferPosition++] & 0xff)) << this.bitCount;
+                this.bitCount += 8;
+            }
+        }
+
+        private boolean fillBuffer() throws IOException {
+            int count = this.inputStream.read(this.buffer);
+            if (count <= 0) {
+                return false;
+            }
+            this.bufferPosition = 0;
+            this.bufferLength = count;
+            return true;
+        }
+    }
+
+    /**
+     * Canonical Huffman code, decoded by a lookup of the next bits of the stream.
+     */
+    private static final class HuffmanTable {
+
+        // the symbol shifted by 4 bits, with the length of its code
+        private final int[] entries;
+        private final int maximumLength;
+        private final int mask;
+
+        private HuffmanTable(int[] lengths, int count) throws ZipException {
+            int maximumLength = 0;
+            int[] lengthCounts = new int[16];
+            for (int i = 0; i < count; i++) {
+                lengthCounts[lengths[i]]++;
+                maximumLength = Math.max(maximumLength, lengths[i]);
+            }
+            lengthCounts[0] = 0;
+            int[] nextCodes = new int[16];
+            int code = 0;
+            for (int length = 1; length <= 15; length++) {
+                code = (code + lengthCounts[length - 1]) << 1;
+                nextCodes[length] = code;
+                if (code + lengthCounts[length] > (1 << length)) {
+                    throw new ZipException("Invalid Huffman code lengths");
+                }
+            }
+            this.maximumLength = Math.max(1, maximumLength);
+            this.mask = (1 << this.maximumLength) - 1;
+            this.entries = new int[1 << this.maximumLength];
+            for (int symbol = 0; symbol < count; symbol++) {
+                int length = lengths[symbol];
+                if (length == 0) {
+                    continue;
+                }
+                // the codes are stored from their most significant bit in the least significant bits of the stream
+                int reversed = Integer.reverse(nextCodes[length]++) >>> (32 - length);
+                int entry = (symbol << 4) | length;
+                for (int index = reversed; index < this.entries.length; index += (1 << length)) {
+                    this.entries[index] = entry;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package eu.esa.opt.dataio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Read only channel over the uncompressed content of a gzip file, positioned by the seek points of a {@link GzipIndex}.
+ * <br>A read at a new position restarts the decompression from the last seek point before it, unless the position
+ * is a little after the current one, in which case the data in between is decompressed and skipped.
+ * <br>A seek point starts at an arbitrary bit of the file, which {@link Inflater} can not be primed with: the
+ * inflater is given empty deflate blocks whose length in bits is the bit offset of the point in its byte, followed
+ * by the bits of the point, so that the stored blocks stay aligned on the bytes of the file.
+ *
+ * @since 14.0.0
+ */
+final class GzipSeekableChannel implements SeekableByteChannel {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // positions closer than this are reached by skipping rather than by restarting from a seek point
+    private static final long MAXIMUM_SKIP = 4L * 1024 * 1024;
+    // the empty deflate blocks preceding a seek point, by bit offset of the point in its byte
+    private static final byte[][] PREFIXES = buildPrefixes();
+
+    private final FileChannel fileChannel;
+    private final GzipIndex index;
+    private final byte[] inputBuffer;
+    private final byte[] outputBuffer;
+
+    private long position;
+    private Inflater inflater;
+    // the uncompressed offset of the next byte returned by the inflater
+    private long inflaterOffset;
+    // the next byte of the file to read, after the first input of the seek point
+    private long filePosition;
+    private int bitOffset;
+    private boolean seekPointInput;
+
+    GzipSeekableChannel(Path gzipFile, GzipIndex index) throws IOException {
+        this.fileChannel = FileChannel.open(gzipFile, StandardOpenOption.READ);
+        this.index = index;
+        this.inputBuffer = new byte[BUFFER_SIZE];
+        this.outputBuffer = new byte[BUFFER_SIZE];
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer destination) throws IOException {
+        ensureOpen();
+        if (this.position >= this.index.getUncompressedSize()) {
+            return -1;
+        }
+        if (!destination.hasRemaining()) {
+            return 0;
+        }
+        if (this.inflater == null || this.position < this.inflaterOffset || this.position - this.inflaterOffset > MAXIMUM_SKIP) {
+            restart(this.index.findSeekPoint(this.position));
+        }
+        while (this.inflaterOffset < this.position) {
+            int count = inflate(this.outputBuffer, (int) Math.min(this.outputBuffer.length, this.position - this.inflaterOffset));
+            if (count < 0) {
+                return -1;
+            }
+        }
+        int count = inflate(this.outputBuffer, Math.min(this.outputBuffer.length, destination.remaining()));
+        if (count < 0) {
+            return -1;
+        }
+        destination.put(this.outputBuffer, 0, count);
+        this.position += count;
+        return count;
+    }
+
+    @Override
+    public int write(ByteBuffer source) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return this.position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position");
+        }
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return this.index.getUncompressedSize();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return this.fileChannel.isOpen();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.inflater != null) {
+            this.inflater.end();
+            this.inflater = null;
+        }
+        this.fileChannel.close();
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!this.fileChannel.isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private void restart(GzipIndex.SeekPoint seekPoint) {
+        if (this.inflater == null) {
+            this.inflater = new Inflater(true);
+        } else {
+            this.inflater.reset();
+        }
+        if (seekPoint.window.length > 0) {
+            this.inflater.setDictionary(seekPoint.window);
+        }
+        this.inflaterOffset = seekPoint.uncompressedOffset;
+        this.filePosition = seekPoint.bitOffset >>> 3;
+        this.bitOffset = (int) (seekPoint.bitOffset & 7);
+        this.seekPointInput = true;
+    }
+
+    private int inflate(byte[] output, int length) throws IOException {
+        while (true) {
+            if (this.inflater.finished()) {
+                // the next gzip member, if any, starts at the current offset
+                GzipIndex.SeekPoint memberStart = this.index.findMemberStart(this.inflaterOffset);
+                if (memberStart == null) {
+                    return -1;
+                }
+                restart(memberStart);
+            }
+            if (this.inflater.needsInput()) {
+                int count = readInput();
+                if (count < 0) {
+                    throw new EOFException("Unexpected end of gzip stream");
+                }
+                this.inflater.setInput(this.inputBuffer, 0, count);
+            }
+            try {
+                int count = this.inflater.inflate(output, 0, length);
+                if (count > 0) {
+                    this.inflaterOffset += count;
+                    return count;
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            }
+            if (this.inflater.needsDictionary()) {
+                throw new ZipException("Unexpected preset dictionary in gzip stream");
+            }
+        }
+    }
+
+    /**
+     * Reads the next bytes of the deflate stream, the first input of a seek point starting with its prefix.
+     */
+    private int readInput() throws IOException {
+        int offset = 0;
+        if (this.seekPointInput) {
+            this.seekPointInput = false;
+            if (this.bitOffset > 0) {
+                // the last byte of the prefix holds its last bits, then the bits of the point in the current byte
+                byte[] prefix = PREFIXES[this.bitOffset];
+                ByteBuffer firstByte = ByteBuffer.allocate(1);
+                if (this.fileChannel.read(firstByte, this.filePosition) <= 0) {
+                    return -1;
+                }
+                int mask = (1 << this.bitOffset) - 1;
+                System.arraycopy(prefix, 0, this.inputBuffer, 0, prefix.length);
+                offset = prefix.length;
+                this.inputBuffer[offset - 1] = (byte) ((prefix[offset - 1] & mask) | (firstByte.get(0) & ~mask));
+                this.filePosition++;
+            }
+        }
+        int count = this.fileChannel.read(ByteBuffer.wrap(this.inputBuffer, offset, this.inputBuffer.length - offset), this.filePosition);
+        if (count > 0) {
+            this.filePosition += count;
+            return offset + count;
+        }
+        return (offset > 0) ? offset : -1;
+    }
+
+    /**
+     * Builds, for each bit offset, non final empty deflate blocks whose length in bits is equal to the offset modulo 8:
+     * a fixed Huffman block is 10 bits long, the dynamic Huffman block coding only the end of block is 95 bits long.
+     */
+    private static byte[][] buildPrefixes() {
+        byte[][] prefixes = new byte[8][];
+        for (int bitOffset = 1; bitOffset < 8; bitOffset++) {
+            int dynamicBlockCount = (bitOffset % 2 == 1) ? 1 : 0;
+            int fixedBlockCount = 0;
+            while ((95 * dynamicBlockCount + 10 * fixedBlockCount) % 8 != bitOffset) {
+                fixedBlockCount++;
+            }
+            BitWriter writer = new BitWriter();
+            for (int i = 0; i < dynamicBlockCount; i++) {
+                writer.write(0, 1); // not the last block
+                writer.write(2, 2); // dynamic Huffman codes
+                writer.write(0, 5); // 257 literal/length codes
+                writer.write(0, 5); // 1 distance code
+                writer.write(15, 4); // 19 code length codes
+                // the code length codes 18, 0 and 1 are 0, 10 and 11, in the order 16, 17, 18, 0, 8, 7, 9, 6, 10, 5,
+                // 11, 4, 12, 3, 13, 2, 14, 1, 15
+                int[] codeLengthLengths = {0, 0, 1, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0};
+                for (int length : codeLengthLengths) {
+                    writer.write(length, 3);
+                }
+                writer.write(0, 1); // 138 zero lengths
+                writer.write(127, 7);
+                writer.write(0, 1); // 118 zero lengths
+                writer.write(107, 7);
+                writer.write(3, 2); // the end of block code has the length 1
+                writer.write(1, 2); // no distance code
+                writer.write(0, 1); // end of block
+            }
+            for (int i = 0; i < fixedBlockCount; i++) {
+                writer.write(0, 1); // not the last block
+                writer.write(1, 2); // fixed Huffman codes
+                writer.write(0, 7); // end of block
+            }
+            prefixes[bitOffset] = writer.toByteArray();
+        }
+        return prefixes;
+    }
+
+    private static final class BitWriter {
+
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private int bitBuffer;
+        private int bitCount;
+
+        private void write(int value, int count) {
+            for (int i = 0; i < count; i++) {
+                this.bitBuffer |= ((value >>> i) & 1) << this.bitCount;
+                if (++this.bitCount == 8) {
+                    this.output.write(this.bitBuffer);
+                    this.bitBuffer = 0;
+                    this.bitCount = 0;
+                }
+            }
+        }
+
+        // the last partial byte is completed by the caller
+        private byte[] toByteArray() {
+            this.output.write(this.bitBuffer);
+            return this.output.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package eu.esa.opt.dataio;
+
+import org.esa.snap.dataio.netcdf.util.NetcdfFileOpener;
+import org.esa.snap.runtime.Config;
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Section;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.Variable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of independent handles on the same NetCDF file, shared by the NetCDF based product readers.
+ * <br>The NetCDF library does not allow concurrent reads on one <code>NetcdfFile</code>, so without a pool all the
+ * reads of a file are serialized on the file opened by the reader. The pool opens additional handles lazily, up to
+ * the configured maximum, so that as many blocks as handles can be read at the same time. The handles are never used
+ * for anything else than reading variable data.
+ * <br>There is one pool per file location, shared by all the readers which have opened the file. The pool counts
+ * these readers and is closed when the last of them closes the file.
+ * <br>The pools are enabled by setting the preference {@link #PROPERTY_KEY_HANDLES} to the maximum number of handles
+ * per file. With the default value of zero no pool is created and {@link #read(Variable, Section)} reads from the
+ * file of the reader.
+ *
+ * @since 14.0.0
+ */
+public class NetcdfFilePool implements Closeable {
+
+    public static final String PROPERTY_KEY_HANDLES = "opttbx.reader.netcdfHandles";
+
+    private static final Logger logger = Logger.getLogger(NetcdfFilePool.class.getName());
+    private static final Map<String, NetcdfFilePool> pools = new ConcurrentHashMap<>();
+
+    private final String location;
+    private final int maxHandles;
+    private final HandleFactory handleFactory;
+    private final Deque<NetcdfFile> idleHandles;
+    private int handleCount;
+    private boolean closed;
+    // the number of readers which have registered the file, guarded by the lock of the pools
+    private int readerCount;
+
+    private long acquisitions;
+    private long contendedAcquisitions;
+    private long waitNanos;
+    private int busyHandles;
+    private int peakBusyHandles;
+
+    NetcdfFilePool(String location, int maxHandles, HandleFactory handleFactory) {
+        if (maxHandles < 1) {
+            throw new IllegalArgumentException("The pool must allow at least one handle.");
+        }
+        this.location = location;
+        this.maxHandles = maxHandles;
+        this.handleFactory = handleFactory;
+        this.idleHandles = new ArrayDeque<>();
+    }
+
+    /**
+     * Registers a reader of the given NetCDF file with the pool of the file, creating the pool if it does not exist
+     * yet. Readers call this method when they open the file and must call {@link #close(NetcdfFile)} when they close
+     * it. The pool is closed once the last of its readers has closed the file.
+     *
+     * @param netcdfFile a NetCDF file opened by a reader
+     */
+    public static void open(NetcdfFile netcdfFile) {
+        open(netcdfFile, getMaxHandles(), NetcdfFileOpener::open);
+    }
+
+    static void open(NetcdfFile netcdfFile, int maxHandles, HandleFactory handleFactory) {
+        if (maxHandles <= 0 || netcdfFile.getLocation() == null) {
+            return;
+        }
+        synchronized (pools) {
+            pools.computeIfAbsent(netcdfFile.getLocation(), key -> new NetcdfFilePool(key, maxHandles, handleFactory)).readerCount++;
+        }
+    }
+
+    /**
+     * Unregisters a reader of the given NetCDF file and closes the pool of the file if no other reader uses it.
+     */
+    public static void close(NetcdfFile netcdfFile) {
+        if (netcdfFile.getLocation() == null) {
+            return;
+        }
+        final NetcdfFilePool pool;
+        synchronized (pools) {
+            pool = pools.get(netcdfFile.getLocation());
+            if (pool == null || --pool.readerCount > 0) {
+                return;
+            }
+            pools.remove(netcdfFile.getLocation());
+        }
+        pool.close();
+    }
+
+    /**
+     * Returns the pool of the file to which the given NetCDF file is opened. The callers look the pool up for each
+     * read, so they never use a pool which has been closed in the meantime.
+     *
+     * @param netcdfFile a NetCDF file opened by a reader
+     * @return the pool, or <code>null</code> if the pools are disabled or no reader has registered the file
+     */
+    public static NetcdfFilePool get(NetcdfFile netcdfFile) {
+        final String location = netcdfFile.getLocation();
+        return location != null ? pools.get(location) : null;
+    }
+
+    /**
+     * Reads a section of a variable through a handle of the pool of its file. If the file has no pool, the section
+     * is read from the file of the reader, the reads being serialized on it.
+     *
+     * @param variable the variable, as found in the file opened by the reader
+     * @param section  the section to read
+     * @return the data of the section
+     * @throws IOException if the section can not be read
+     */
+    public static Array read(Variable variable, Section section) throws IOException {
+        final NetcdfFile netcdfFile = variable.getParentGroup().getNetcdfFile();
+        final NetcdfFilePool filePool = get(netcdfFile);
+        try {
+            if (filePool == null) {
+                synchronized (netcdfFile) {
+                    return variable.read(section);
+                }
+            }
+            // each pooled handle has its own file channel, so no lock is needed
+            final NetcdfFile handle = filePool.acquire();
+            try {
+                final Variable pooledVariable = handle.findVariable(variable.getFullNameEscaped());
+                if (pooledVariable == null) {
+                    throw new IOException("Variable '" + variable.getFullName() + "' not found in '" + handle.getLocation() + "'.");
+                }
+                return pooledVariable.read(section);
+            } finally {
+                filePool.release(handle);
+            }
+        } catch (InvalidRangeException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    static int getMaxHandles() {
+        return Config.instance("opttbx").load().preferences().getInt(PROPERTY_KEY_HANDLES, 0);
+    }
+
+    /**
+     * Takes a handle from the pool, opening a new one if all the handles are busy and the maximum is not reached,
+     * or waiting for a handle to be released otherwise.
+     */
+    public NetcdfFile acquire() throws IOException {
+        synchronized (this) {
+            ensureOpen();
+            this.acquisitions++;
+            if (this.idleHandles.isEmpty() && this.handleCount >= this.maxHandles) {
+                this.contendedAcquisitions++;
+                final long start = System.nanoTime();
+                try {
+                    while (this.idleHandles.isEmpty() && this.handleCount >= this.maxHandles) {
+                        wait();
+                        ensureOpen();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for a handle of the file '" + this.location + "'.");
+                } finally {
+                    this.waitNanos += System.nanoTime() - start;
+                }
+            }
+            this.busyHandles++;
+            this.peakBusyHandles = Math.max(this.peakBusyHandles, this.busyHandles);
+            final NetcdfFile handle = this.idleHandles.poll();
+            if (handle != null) {
+                return handle;
+            }
+            // reserve the slot, the file is opened outside of the lock
+            this.handleCount++;
+        }
+        final NetcdfFile handle;
+        try {
+            handle = this.handleFactory.open(this.location);
+            if (handle == null) {
+                throw new IOException("Not able to open the file '" + this.location + "'.");
+            }
+        } catch (IOException | RuntimeException e) {
+            discardHandle();
+            throw e;
+        }
+        if (!isClosed()) {
+            return handle;
+        }
+        discardHandle();
+        closeHandle(handle);
+        throw new IOException("The handles of the file '" + this.location + "' have been closed.");
+    }
+
+    /**
+     * Returns a handle obtained by {@link #acquire()} to the pool.
+     */
+    public void release(NetcdfFile handle) {
+        synchronized (this) {
+            if (!this.closed) {
+                this.busyHandles--;
+                this.idleHandles.push(handle);
+                notifyAll();
+                return;
+            }
+        }
+        discardHandle();
+        closeHandle(handle);
+    }
+
+    public synchronized boolean isClosed() {
+        return this.closed;
+    }
+
+    public synchronized int getOpenedHandleCount() {
+        return this.handleCount;
+    }
+
+    /**
+     * Returns the usage statistics of the pool, which show how often the readers had to wait for a handle.
+     */
+    public synchronized Statistics getStatistics() {
+        return new Statistics(this.acquisitions, this.contendedAcquisitions, this.waitNanos, this.peakBusyHandles, getOpenedHandleCount());
+    }
+
+    /**
+     * Closes the idle handles of the pool, those still busy being closed when they are released. The readers waiting
+     * for a handle fail.
+     */
+    @Override
+    public void close() {
+        final List<NetcdfFile> handles;
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            handles = new ArrayList<>(this.idleHandles);
+            this.handleCount -= handles.size();
+            this.idleHandles.clear();
+            notifyAll();
+        }
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("NetCDF handles of '" + this.location + "': " + getStatistics());
+        }
+        for (NetcdfFile handle : handles) {
+            closeHandle(handle);
+        }
+    }
+
+    private synchronized void discardHandle() {
+        this.handleCount--;
+        this.busyHandles--;
+        notifyAll();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.closed) {
+            throw new IOException("The handles of the file '" + this.location + "' have been closed.");
+        }
+    }
+
+    private void closeHandle(NetcdfFile handle) {
+        try {
+            handle.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to close the file '" + this.location + "'.", e);
+        }
+    }
+
+    /**
+     * Opens a new handle on a file.
+     */
+    interface HandleFactory {
+
+        NetcdfFile open(String location) throws IOException;
+    }
+
+    /**
+     * Usage statistics of a pool.
+     */
+    public static class Statistics {
+
+        private final long acquisitions;
+        private final long contendedAcquisitions;
+        private final long waitNanos;
+        private final int peakBusyHandles;
+        private final int openedHandles;
+
+        Statistics(long acquisitions, long contendedAcquisitions, long waitNanos, int peakBusyHandles, int openedHandles) {
+            this.acquisitions = acquisitions;
+            this.contendedAcquisitions = contendedAcquisitions;
+            this.waitNanos = waitNanos;
+            this.peakBusyHandles = peakBusyHandles;
+            this.openedHandles = openedHandles;
+        }
+
+        public long getAcquisitions() {
+            return acquisitions;
+        }
+
+        /**
+         * Returns the number of acquisitions which had to wait because all the handles were busy.
+         */
+        public long getContendedAcquisitions() {
+            return contendedAcquisitions;
+        }
+
+        public long getWaitNanos() {
+            return waitNanos;
+        }
+
+        public int getPeakBusyHandles() {
+            return peakBusyHandles;
+        }
+
+        public int getOpenedHandles() {
+            return openedHandles;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d acquisitions, %d contended, %.1f ms waiting, %d busy at most, %d opened",
+                                 acquisitions, contendedAcquisitions, waitNanos / 1.0e6, peakBusyHandles, openedHandles);
+        }
+    }
+}
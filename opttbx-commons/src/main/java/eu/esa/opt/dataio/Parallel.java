@@ -17,15 +17,15 @@
 
 package eu.esa.opt.dataio;
 
-import java.util.LinkedList;
-import java.util.List;
+import org.esa.snap.utils.SharedExecutor;
+
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Helper class to execute loops in parallel.
+ * <br>The loops run on the {@link SharedExecutor}, and an exception thrown by the loop code is rethrown by the
+ * calling method once the iterations already started have finished.
  */
 public class Parallel {
     static final int PARALLELISM = Math.max(Runtime.getRuntime().availableProcessors() - 1, 2);
@@ -57,16 +57,15 @@ public class Parallel {
      * @param <T>       The type of items
      */
     public static <T> void ForEach(Iterable <T> params, int parallelism, final Runnable<T> code) {
-        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
-        List<Future<?>> tasks  = new LinkedList<>();
-        for (final T param : params) {
-            tasks.add(executor.submit(() -> code.run(param)));
+        SharedExecutor.TaskGroup group = SharedExecutor.newTaskGroup("Parallel.ForEach", parallelism, SharedExecutor.Mode.COMPUTE);
+        try {
+            for (final T param : params) {
+                group.execute(() -> code.run(param));
+            }
+        } catch (RejectedExecutionException ignored) {
+            // a previous iteration has failed, the failure is rethrown below
         }
-        tasks.stream().forEach(task -> {
-            try   { task.get(); }
-            catch (InterruptedException | ExecutionException ignored) { }
-        });
-        executor.shutdown();
+        awaitCompletion(group);
     }
 
     /**
@@ -89,16 +88,32 @@ public class Parallel {
      * @param code      The loop code
      */
     public static void For(int start, int stop, int parallelism, final Runnable<Integer> code) {
-        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
-        List<Future<?>> tasks  = new LinkedList<>();
-        for (int i = start; i < stop; i++) {
-            final Integer index = i;
-            tasks.add(executor.submit(() -> code.run(index)));
+        SharedExecutor.TaskGroup group = SharedExecutor.newTaskGroup("Parallel.For", parallelism, SharedExecutor.Mode.COMPUTE);
+        try {
+            for (int i = start; i < stop; i++) {
+                final Integer index = i;
+                group.execute(() -> code.run(index));
+            }
+        } catch (RejectedExecutionException ignored) {
+            // a previous iteration has failed, the failure is rethrown below
+        }
+        awaitCompletion(group);
+    }
+
+    private static void awaitCompletion(SharedExecutor.TaskGroup group) {
+        try {
+            group.awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the parallel loop.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
         }
-        tasks.stream().forEach(task -> {
-            try   { task.get(); }
-            catch (InterruptedException | ExecutionException ignored) { }
-        });
-        executor.shutdown();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,359 @@
+package eu.esa.opt.dataio;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarFile;
+import org.esa.snap.core.util.SystemUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Table of the entries of a tar or a tar-gz archive, with the seek points of its gzip compression, allowing to
+ * read an entry without extracting the archive.
+ * <br>The index is built by reading the archive once, then persisted in a cache folder and reused as long as the
+ * size and the modification time of the archive do not change.
+ *
+ * @since 14.0.0
+ */
+final class TarIndex {
+
+    private static final Logger logger = Logger.getLogger(TarIndex.class.getName());
+
+    private static final int MAGIC = 0x54415249; // TARI
+    private static final int VERSION = 1;
+    // the uncompressed bytes between two seek points, each point keeping 32 KiB of data
+    static final long SEEK_POINT_SPAN = 16L * 1024 * 1024;
+
+    private final Path archiveFile;
+    private final GzipIndex gzipIndex;
+    private final Map<String, Entry> entries;
+
+    private TarIndex(Path archiveFile, GzipIndex gzipIndex, Map<String, Entry> entries) {
+        this.archiveFile = archiveFile;
+        this.gzipIndex = gzipIndex;
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the index of an archive, read from the default cache folder or built if needed.
+     */
+    static TarIndex open(Path archiveFile) throws IOException {
+        return open(archiveFile, SystemUtils.getCacheDir().toPath().resolve("tar-index"));
+    }
+
+    /**
+     * Returns the index of an archive, read from a cache folder or built if needed.
+     *
+     * @return the index, or <code>null</code> if the archive is neither a tar nor a tar-gz archive, or is empty
+     */
+    static TarIndex open(Path archiveFile, Path cacheFolder) throws IOException {
+        Path absoluteFile = archiveFile.toAbsolutePath().normalize();
+        Path indexFile = cacheFolder.resolve(Integer.toHexString(absoluteFile.toString().hashCode()) + "_"
+                                                     + absoluteFile.getFileName() + ".idx");
+        long size = Files.size(absoluteFile);
+        long lastModified = Files.getLastModifiedTime(absoluteFile).toMillis();
+        if (Files.isRegularFile(indexFile)) {
+            try {
+                TarIndex index = read(indexFile, absoluteFile, size, lastModified);
+                if (index != null) {
+                    return index;
+                }
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Failed to read the index " + indexFile + ", the index is built again.", e);
+            }
+        }
+        TarIndex index = build(absoluteFile);
+        if (index != null) {
+            try {
+                index.write(indexFile, size, lastModified);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to write the index of the archive " + absoluteFile + " in " + indexFile, e);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Builds the index of an archive.
+     *
+     * @return the index, or <code>null</code> if the archive is neither a tar nor a tar-gz archive, or is empty
+     */
+    static TarIndex build(Path archiveFile) throws IOException {
+        return build(archiveFile, SEEK_POINT_SPAN);
+    }
+
+    /**
+     * Builds the index of an archive, with the given minimum number of uncompressed bytes between two seek points.
+     *
+     * @return the index, or <code>null</code> if the archive is neither a tar nor a tar-gz archive, or is empty
+     */
+    static TarIndex build(Path archiveFile, long seekPointSpan) throws IOException {
+        GzipIndex gzipIndex = null;
+        if (isGzipFile(archiveFile)) {
+            long startTime = System.currentTimeMillis();
+            gzipIndex = GzipIndex.build(archiveFile, seekPointSpan);
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Built the " + gzipIndex.getSeekPoints().size() + " seek points of the archive "
+                        + archiveFile + " in " + (System.currentTimeMillis() - startTime) + " ms.");
+            }
+        }
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        SeekableByteChannel channel = (gzipIndex == null) ? Files.newByteChannel(archiveFile) : new GzipSeekableChannel(archiveFile, gzipIndex);
+        try (TarFile tarFile = new TarFile(channel)) {
+            for (TarArchiveEntry tarEntry : tarFile.getEntries()) {
+                // the links and the sparse files are only available by extraction
+                boolean readable = tarEntry.isFile() && !tarEntry.isLink() && !tarEntry.isSparse();
+                Entry entry = new Entry(tarEntry.getName(), tarEntry.isDirectory(), readable,
+                                        readable ? tarEntry.getDataOffset() : -1, tarEntry.getSize());
+                entries.putIfAbsent(normalizePath(entry.name), entry);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            if (gzipIndex != null) {
+                throw new IOException("Failed to read the entries of the archive " + archiveFile, e);
+            }
+            // neither a tar nor a tar-gz archive
+            return null;
+        }
+        // a file shorter than a tar record is read as an empty archive
+        return entries.isEmpty() ? null : new TarIndex(archiveFile, gzipIndex, entries);
+    }
+
+    /**
+     * Normalizes a path of the archive: '/' separators, without the leading './' and '/', nor the trailing '/'.
+     */
+    static String normalizePath(String path) {
+        String normalizedPath = path.replace('\\', '/');
+        while (normalizedPath.startsWith("./") || normalizedPath.startsWith("/")) {
+            normalizedPath = normalizedPath.substring(normalizedPath.startsWith("./") ? 2 : 1);
+        }
+        normalizedPath = normalizedPath.replace("/./", "/");
+        while (normalizedPath.endsWith("/")) {
+            normalizedPath = normalizedPath.substring(0, normalizedPath.length() - 1);
+        }
+        return normalizedPath;
+    }
+
+    /**
+     * Returns the entry of a path of the archive, or <code>null</code> if the archive has no such entry.
+     */
+    Entry getEntry(String path) {
+        return this.entries.get(normalizePath(path));
+    }
+
+    /**
+     * Returns the entries of the archive, in their order in the archive.
+     */
+    List<Entry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(this.entries.values()));
+    }
+
+    /**
+     * Returns the names of the files and folders directly contained in a folder of the archive, the folders being
+     * implied by the paths of the entries, or <code>null</code> if the folder does not exist.
+     */
+    String[] list(String folderPath) {
+        String prefix = normalizePath(folderPath);
+        if (!prefix.isEmpty()) {
+            prefix += "/";
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String path : this.entries.keySet()) {
+            if (path.startsWith(prefix) && path.length() > prefix.length()) {
+                String childPath = path.substring(prefix.length());
+                int separatorIndex = childPath.indexOf('/');
+                names.add((separatorIndex < 0) ? childPath : childPath.substring(0, separatorIndex));
+            }
+        }
+        if (names.isEmpty()) {
+            Entry entry = getEntry(folderPath);
+            return (entry != null && entry.directory) ? new String[0] : null;
+        }
+        return names.toArray(new String[0]);
+    }
+
+    boolean isCompressed() {
+        return this.gzipIndex != null;
+    }
+
+    /**
+     * Opens the content of a readable entry of the archive.
+     */
+    InputStream openEntry(Entry entry) throws IOException {
+        if (!entry.readable) {
+            throw new IOException("The entry '" + entry.name + "' can not be read from the archive " + this.archiveFile + ".");
+        }
+        SeekableByteChannel channel;
+        if (this.gzipIndex == null) {
+            channel = FileChannel.open(this.archiveFile, StandardOpenOption.READ);
+        } else {
+            channel = new GzipSeekableChannel(this.archiveFile, this.gzipIndex);
+        }
+        return new BufferedInputStream(new EntryInputStream(channel, entry.dataOffset, entry.size), 64 * 1024);
+    }
+
+    /**
+     * Copies the content of a readable entry of the archive to a file.
+     */
+    void extractEntry(Entry entry, Path targetFile) throws IOException {
+        // written aside then moved, the file being possibly extracted by another thread at the same time
+        Path temporaryFile = Files.createTempFile(targetFile.getParent(), targetFile.getFileName().toString(), ".part");
+        try {
+            try (InputStream inputStream = openEntry(entry)) {
+                Files.copy(inputStream, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(temporaryFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static boolean isGzipFile(Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return inputStream.read() == 0x1f && inputStream.read() == 0x8b;
+        }
+    }
+
+    private static TarIndex read(Path indexFile, Path archiveFile, long size, long lastModified) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(indexFile))))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION || !input.readUTF().equals(archiveFile.toString())
+                    || input.readLong() != size || input.readLong() != lastModified) {
+                return null;
+            }
+            GzipIndex gzipIndex = input.readBoolean() ? GzipIndex.read(input) : null;
+            int count = input.readInt();
+            Map<String, Entry> entries = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                Entry entry = new Entry(input.readUTF(), input.readBoolean(), input.readBoolean(), input.readLong(), input.readLong());
+                entries.putIfAbsent(normalizePath(entry.name), entry);
+            }
+            return new TarIndex(archiveFile, gzipIndex, entries);
+        }
+    }
+
+    private void write(Path indexFile, long size, long lastModified) throws IOException {
+        Files.createDirectories(indexFile.getParent());
+        // written aside then moved, the index being possibly read by another process
+        Path temporaryFile = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".part");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temporaryFile))))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeUTF(this.archiveFile.toString());
+                output.writeLong(size);
+                output.writeLong(lastModified);
+                output.writeBoolean(this.gzipIndex != null);
+                if (this.gzipIndex != null) {
+                    this.gzipIndex.write(output);
+                }
+                output.writeInt(this.entries.size());
+                for (Entry entry : this.entries.values()) {
+                    output.writeUTF(entry.name);
+                    output.writeBoolean(entry.directory);
+                    output.writeBoolean(entry.readable);
+                    output.writeLong(entry.dataOffset);
+                    output.writeLong(entry.size);
+                }
+            }
+            Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    static final class Entry {
+
+        // the name of the entry in the archive
+        final String name;
+        final boolean directory;
+        // true for the regular files, whose content is read from the archive
+        final boolean readable;
+        // the offset of the content in the uncompressed archive
+        final long dataOffset;
+        final long size;
+
+        private Entry(String name, boolean directory, boolean readable, long dataOffset, long size) {
+            this.name = name;
+            this.directory = directory;
+            this.readable = readable;
+            this.dataOffset = dataOffset;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Stream of the content of an entry, read from a channel over the uncompressed archive.
+     */
+    private static final class EntryInputStream extends InputStream {
+
+        private final SeekableByteChannel channel;
+        private long remaining;
+
+        private EntryInputStream(SeekableByteChannel channel, long offset, long size) throws IOException {
+            this.channel = channel;
+            this.remaining = size;
+            channel.position(offset);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] value = new byte[1];
+            return (read(value, 0, 1) < 0) ? -1 : (value[0] & 0xff);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (this.remaining <= 0) {
+                return -1;
+            }
+            int count = this.channel.read(ByteBuffer.wrap(buffer, offset, (int) Math.min(length, this.remaining)));
+            if (count < 0) {
+                throw new IOException("Unexpected end of the archive");
+            }
+            this.remaining -= count;
+            return count;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            long skipped = Math.max(0, Math.min(count, this.remaining));
+            this.channel.position(this.channel.position() + skipped);
+            this.remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, this.remaining);
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+    }
+}
@@ -24,18 +24,27 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
 /**
  * Implementation of a virtual directory representing the contents of a tar or a tar-gz file.
+ * <br>The entries of a tar or a tar-gz file are read through a {@link TarIndex}, without unpacking the whole archive:
+ * an input stream reads the entry from the archive and a file is extracted alone. The other archives, and the
+ * entries which are not regular files, are unpacked entirely.
  * @deprecated since 10.0.0, use {@link org.esa.snap.engine_utilities.dataio.VirtualDirTgz} instead
  */
 public class VirtualDirTgz extends VirtualDirEx {
 
+    private static final Logger logger = Logger.getLogger(VirtualDirTgz.class.getName());
+
     private static final int TRANSFER_BUFFER_SIZE = 1024 * 1024;
 
     private final Path archiveFile;
     private final VirtualDirTgzState state;
+    private TarIndex index;
+    private boolean indexLoaded;
 
     public VirtualDirTgz(File tgz) {
         if (tgz == null) {
@@ -106,6 +115,11 @@ public class VirtualDirTgz extends VirtualDirEx {
 
     @Override
     public FilePathInputStream getInputStream(String childRelativePath) throws IOException {
+        TarIndex.Entry entry = findReadableEntry(childRelativePath);
+        if (entry != null) {
+            Path file = this.archiveFile.resolve(TarIndex.normalizePath(childRelativePath));
+            return new FilePathInputStream(file, this.index.openEntry(entry), null);
+        }
         Path file = getFile(childRelativePath).toPath();
         InputStream inputStream = Files.newInputStream(file);
         BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
@@ -120,6 +134,15 @@ public class VirtualDirTgz extends VirtualDirEx {
 
     @Override
     public File getFile(String childRelativePath) throws IOException {
+        TarIndex.Entry entry = findReadableEntry(childRelativePath);
+        if (entry != null) {
+            File file = new File(makeLocalTempFolder().toFile(), TarIndex.normalizePath(childRelativePath));
+            if (!file.isFile()) {
+                ensureDirectory(file.getParentFile());
+                this.index.extractEntry(entry, file.toPath());
+            }
+            return file;
+        }
         ensureUnpacked(null);
         File file = new File(state.extractDir, childRelativePath);
         if (!(file.isFile() || file.isDirectory())) {
@@ -130,12 +153,28 @@ public class VirtualDirTgz extends VirtualDirEx {
 
     @Override
     public String[] list(String path) throws IOException {
+        if (!isUnpacked() && getIndex() != null) {
+            String[] names = this.index.list(path);
+            if (names == null) {
+                throw new FileNotFoundException("The path '" + path + "' does not exist in the archive '" + this.archiveFile + "'.");
+            }
+            return names;
+        }
         final File file = getFile(path);
         return file.list();
     }
 
     @Override
     public String[] listAllFiles() throws IOException {
+        if (getIndex() != null) {
+            List<String> entryNames = new ArrayList<>();
+            for (TarIndex.Entry entry : this.index.getEntries()) {
+                if (!entry.directory) {
+                    entryNames.add(entry.name);
+                }
+            }
+            return entryNames.toArray(new String[0]);
+        }
         try (TarArchiveInputStream tarStream = buildTarInputStream()) {
 
             TarArchiveEntry entry;
@@ -177,16 +216,22 @@ public class VirtualDirTgz extends VirtualDirEx {
 
     @Override
     public Path makeLocalTempFolder() throws IOException {
-        if (state.extractDir == null) {
-            state.extractDir = VirtualDir.createUniqueTempDir();
+        synchronized (state) {
+            if (state.extractDir == null) {
+                state.extractDir = VirtualDir.createUniqueTempDir();
+            }
+            return state.extractDir.toPath();
         }
-        return state.extractDir.toPath();
     }
 
     public void ensureUnpacked(File unpackFolder) throws IOException {
-        if (state.extractDir == null) {
-            state.extractDir = (unpackFolder == null) ? VirtualDir.createUniqueTempDir() : unpackFolder;
-
+        synchronized (state) {
+            if (state.unpacked) {
+                return;
+            }
+            if (state.extractDir == null) {
+                state.extractDir = (unpackFolder == null) ? VirtualDir.createUniqueTempDir() : unpackFolder;
+            }
             try (TarArchiveInputStream tarStream = buildTarInputStream()) {
                 byte[] data = new byte[TRANSFER_BUFFER_SIZE];
                 TarArchiveEntry entry;
@@ -249,7 +294,42 @@ public class VirtualDirTgz extends VirtualDirEx {
                     }
                 }
             }
+            state.unpacked = true;
+        }
+    }
+
+    private boolean isUnpacked() {
+        synchronized (state) {
+            return state.unpacked;
+        }
+    }
+
+    /**
+     * Returns the index of the entries of the archive, or <code>null</code> if the archive is not indexed.
+     */
+    private synchronized TarIndex getIndex() {
+        if (!this.indexLoaded) {
+            this.indexLoaded = true;
+            if (!isTbz(this.archiveFile.getFileName().toString())) {
+                try {
+                    this.index = TarIndex.open(this.archiveFile);
+                } catch (IOException | RuntimeException e) {
+                    logger.log(Level.WARNING, "Failed to index the archive " + this.archiveFile + ", the archive is unpacked.", e);
+                }
+            }
+        }
+        return this.index;
+    }
+
+    /**
+     * Returns the indexed regular file of a path, or <code>null</code> if the path must be read from the unpacked archive.
+     */
+    private TarIndex.Entry findReadableEntry(String childRelativePath) {
+        if (isUnpacked() || getIndex() == null) {
+            return null;
         }
+        TarIndex.Entry entry = this.index.getEntry(childRelativePath);
+        return (entry != null && entry.readable) ? entry : null;
     }
 
     private TarArchiveInputStream buildTarInputStream() throws IOException {
@@ -318,6 +398,7 @@ public class VirtualDirTgz extends VirtualDirEx {
 
     private static final class VirtualDirTgzState implements CleanUpState {
         private File extractDir;
+        private boolean unpacked;
 
         @Override
         public synchronized void run() {
@@ -325,6 +406,7 @@ public class VirtualDirTgz extends VirtualDirEx {
                 FileUtils.deleteTree(extractDir);
                 extractDir = null;
             }
+            unpacked = false;
         }
     }
 }
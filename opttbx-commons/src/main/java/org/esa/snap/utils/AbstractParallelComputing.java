@@ -1,59 +1,98 @@
 package org.esa.snap.utils;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * @author Jean Coravu
  */
 public abstract class AbstractParallelComputing {
 
-    private int threadCounter;
-    protected Exception threadException;
+    private static final AtomicReferenceFieldUpdater<AbstractParallelComputing, Exception> EXCEPTION_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(AbstractParallelComputing.class, Exception.class, "threadException");
+
+    private final AtomicInteger runningThreads;
+    private final Object finishLock;
+    private volatile boolean finished;
+    protected volatile Exception threadException;
 
     protected AbstractParallelComputing() {
-        this.threadCounter = 0;
+        this.runningThreads = new AtomicInteger();
+        this.finishLock = new Object();
     }
 
     protected abstract void execute() throws Exception;
 
+    /**
+     * Runs the items on the current thread and on the given number of additional threads.
+     * <br>The current thread also processes the items, so the method does not depend on the threads of the pool
+     * being available: the runnables which have not started when the current thread runs out of items are skipped.
+     */
     public final void executeInParallel(int threadCount, Executor threadPool) throws Exception {
+        this.finished = false;
         for (int i=0; i<threadCount; i++) {
-            ItemRunnable runnable = new ItemRunnable(this);
-            threadPool.execute(runnable);
+            threadPool.execute(new ItemRunnable(this));
         }
         try {
             execute();
         } catch (Exception exception) {
-            synchronized (this) {
-                this.threadException = exception;
-            }
+            setThreadException(exception);
         } catch (Throwable throwable) {
-            synchronized (this) {
-                this.threadException = new Exception(throwable);
-            }
+            setThreadException(new Exception(throwable));
         } finally {
             waitToFinish();
         }
     }
 
-    private synchronized void incrementThreadCounter() {
-        this.threadCounter++;
+    /**
+     * Runs the items on the current thread and on the shared executor.
+     */
+    public final void executeInParallel(int threadCount) throws Exception {
+        executeInParallel(threadCount, SharedExecutor.getComputeExecutor());
     }
 
-    private synchronized void decrementThreadCounter(Exception threadException) {
-        this.threadCounter--;
-        if (this.threadException == null) {
-            this.threadException = threadException;
-        }
-        if (this.threadCounter <= 0) {
-            notifyAll();
+    private void setThreadException(Exception exception) {
+        EXCEPTION_UPDATER.compareAndSet(this, null, exception);
+    }
+
+    private boolean startThread() {
+        this.runningThreads.incrementAndGet();
+        if (this.finished) {
+            finishThread();
+            return false;
         }
+        return true;
     }
 
-    private synchronized void waitToFinish() throws Exception {
-        if (this.threadCounter > 0) {
-            wait();
+    private void finishThread() {
+        if (this.runningThreads.decrementAndGet() == 0) {
+            synchronized (this.finishLock) {
+                this.finishLock.notifyAll();
+            }
         }
+    }
+
+    private void waitToFinish() throws Exception {
+        // the runnables which start from now on have no item left to process
+        this.finished = true;
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+            @Override
+            public boolean block() throws InterruptedException {
+                synchronized (finishLock) {
+                    while (runningThreads.get() > 0) {
+                        finishLock.wait();
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return runningThreads.get() <= 0;
+            }
+        });
         if (this.threadException != null) {
             throw this.threadException;
         }
@@ -66,22 +105,23 @@ public abstract class AbstractParallelComputing {
 
         public ItemRunnable(AbstractParallelComputing imageTilesHelper) {
             this.itemHelper = imageTilesHelper;
-            this.itemHelper.incrementThreadCounter();
         }
 
         @Override
         public void run() {
-            Exception threadException = null;
+            if (!this.itemHelper.startThread()) {
+                return;
+            }
             try {
                 this.itemHelper.execute();
             } catch (Exception exception) {
-                threadException = exception;
+                this.itemHelper.setThreadException(exception);
                 //logger.log(Level.SEVERE, "Failed to execute the image tiles.", threadException);
             } catch (Throwable throwable) {
-                threadException = new Exception(throwable);
+                this.itemHelper.setThreadException(new Exception(throwable));
                 //logger.log(Level.SEVERE, "Failed to execute the image tiles.", threadException);
             } finally {
-                this.itemHelper.decrementThreadCounter(threadException);
+                this.itemHelper.finishThread();
             }
         }
     }
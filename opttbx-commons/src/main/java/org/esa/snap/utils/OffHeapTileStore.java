@@ -0,0 +1,113 @@
+package org.esa.snap.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Store of binary tiles shared by the steps of a processing chain, kept outside the Java heap.
+ * <br>The tiles are copied into direct buffers as long as the memory budget of the store allows it; the tiles which
+ * do not fit anymore are written into files of the spill folder, so the store holds any amount of data. The
+ * sub stores created with {@link #createSubStore(String)} share the memory budget and the spill folder of their
+ * parent, with their own names for the tiles.
+ * <br>The tiles can be written and read concurrently, each tile being written once before being read.
+ *
+ * @since 14.0.0
+ */
+public class OffHeapTileStore {
+
+    private final Path spillFolder;
+    private final long memoryBudget;
+    private final AtomicLong memoryUsed;
+    private final ConcurrentHashMap<String, ByteBuffer> memoryTiles;
+    private final String keyPrefix;
+
+    /**
+     * @param spillFolder  the folder receiving the tiles exceeding the memory budget, created when needed
+     * @param memoryBudget the maximum number of bytes kept in memory
+     */
+    public OffHeapTileStore(Path spillFolder, long memoryBudget) {
+        this(spillFolder, memoryBudget, new AtomicLong(), new ConcurrentHashMap<>(), "");
+    }
+
+    private OffHeapTileStore(Path spillFolder, long memoryBudget, AtomicLong memoryUsed, ConcurrentHashMap<String, ByteBuffer> memoryTiles, String keyPrefix) {
+        this.spillFolder = spillFolder;
+        this.memoryBudget = memoryBudget;
+        this.memoryUsed = memoryUsed;
+        this.memoryTiles = memoryTiles;
+        this.keyPrefix = keyPrefix;
+    }
+
+    /**
+     * Creates a store sharing the memory and the spill folder of this store, whose tiles are distinct from the tiles
+     * of this store and of the other sub stores.
+     */
+    public OffHeapTileStore createSubStore(String name) {
+        return new OffHeapTileStore(this.spillFolder, this.memoryBudget, this.memoryUsed, this.memoryTiles, this.keyPrefix + name + "-");
+    }
+
+    /**
+     * Stores the remaining bytes of a buffer as the content of a tile.
+     *
+     * @param tileName the name of the tile, usable as a file name
+     * @param content  the content of the tile, from its position to its limit
+     */
+    public void putTile(String tileName, ByteBuffer content) throws IOException {
+        String key = this.keyPrefix + tileName;
+        int size = content.remaining();
+        if (this.memoryUsed.addAndGet(size) <= this.memoryBudget) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+            buffer.put(content.duplicate());
+            buffer.flip();
+            ByteBuffer previousBuffer = this.memoryTiles.put(key, buffer);
+            if (previousBuffer != null) {
+                this.memoryUsed.addAndGet(-previousBuffer.capacity());
+            }
+        } else {
+            this.memoryUsed.addAndGet(-size);
+            ByteBuffer previousBuffer = this.memoryTiles.remove(key);
+            if (previousBuffer != null) {
+                this.memoryUsed.addAndGet(-previousBuffer.capacity());
+            }
+            Files.createDirectories(this.spillFolder);
+            byte[] bytes = new byte[size];
+            content.duplicate().get(bytes);
+            Files.write(this.spillFolder.resolve(key), bytes);
+        }
+    }
+
+    /**
+     * Returns the content of a tile, as a read only buffer positioned at the first byte of the tile.
+     *
+     * @param tileName the name of the tile
+     * @throws NoSuchFileException if the tile has not been stored
+     */
+    public ByteBuffer getTile(String tileName) throws IOException {
+        String key = this.keyPrefix + tileName;
+        ByteBuffer buffer = this.memoryTiles.get(key);
+        if (buffer != null) {
+            return buffer.asReadOnlyBuffer();
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(this.spillFolder.resolve(key))).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the number of bytes kept in memory by this store, its parent and its sub stores.
+     */
+    public long getMemoryUsed() {
+        return this.memoryUsed.get();
+    }
+
+    /**
+     * Releases the memory of all the tiles of this store, its parent and its sub stores. The spilled tiles are left
+     * in the spill folder.
+     */
+    public void clear() {
+        this.memoryTiles.clear();
+        this.memoryUsed.set(0);
+    }
+}
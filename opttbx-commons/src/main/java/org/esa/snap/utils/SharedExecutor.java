@@ -0,0 +1,383 @@
+package org.esa.snap.utils;
+
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide execution service shared by the readers and the tile computations of the toolbox.
+ * <br>The CPU-bound tasks run on a single work-stealing pool whose size is bounded by the number of processors
+ * (or by the system property {@link #PROPERTY_KEY_PARALLELISM}), so that several readers or operators running at
+ * the same time do not create their own threads and oversubscribe the machine. The I/O-bound tasks can run on
+ * virtual threads instead.
+ * <br>The tasks are submitted through a {@link TaskGroup}, which limits the number of tasks of the group running
+ * at the same time, propagates the first failure, supports the cancellation of the pending tasks and collects
+ * per-task metrics.
+ *
+ * @since 14.0.0
+ */
+public final class SharedExecutor {
+
+    public static final String PROPERTY_KEY_PARALLELISM = "opttbx.parallelism";
+
+    /**
+     * The kind of work done by the tasks of a group.
+     */
+    public enum Mode {
+        /**
+         * CPU-bound tasks, run on the shared work-stealing pool.
+         */
+        COMPUTE,
+        /**
+         * I/O-bound tasks, each run on its own virtual thread.
+         */
+        IO
+    }
+
+    private static final TaskMetrics globalMetrics = new TaskMetrics();
+
+    private SharedExecutor() {
+    }
+
+    /**
+     * Returns the number of threads of the shared work-stealing pool.
+     */
+    public static int getParallelism() {
+        return ComputePoolHolder.POOL.getParallelism();
+    }
+
+    /**
+     * Returns the shared work-stealing pool, for the code which expects an executor. The pool must not be shut down.
+     */
+    public static Executor getComputeExecutor() {
+        return ComputePoolHolder.POOL;
+    }
+
+    /**
+     * Creates a group of CPU-bound tasks which may use all the threads of the shared pool.
+     */
+    public static TaskGroup newTaskGroup(String name) {
+        return newTaskGroup(name, getParallelism(), Mode.COMPUTE);
+    }
+
+    /**
+     * Creates a group of tasks.
+     *
+     * @param name           the name of the group, used in the error messages
+     * @param maxParallelism the maximum number of tasks of the group running at the same time
+     * @param mode           the kind of work done by the tasks
+     */
+    public static TaskGroup newTaskGroup(String name, int maxParallelism, Mode mode) {
+        if (maxParallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be at least 1.");
+        }
+        final Executor executor = (mode == Mode.IO) ? VirtualThreadsHolder.EXECUTOR : ComputePoolHolder.POOL;
+        return new TaskGroup(name, maxParallelism, executor);
+    }
+
+    /**
+     * Returns the metrics of all the tasks run through the task groups since the start of the application.
+     */
+    public static TaskMetrics getGlobalMetrics() {
+        return globalMetrics;
+    }
+
+    private static final class ComputePoolHolder {
+
+        private static final ForkJoinPool POOL = createPool();
+
+        private static ForkJoinPool createPool() {
+            final int defaultParallelism = Runtime.getRuntime().availableProcessors();
+            final int parallelism = Math.max(1, Integer.getInteger(PROPERTY_KEY_PARALLELISM, defaultParallelism));
+            final ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+                final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("opttbx-worker-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return new ForkJoinPool(parallelism, factory, null, true);
+        }
+    }
+
+    private static final class VirtualThreadsHolder {
+
+        private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("opttbx-io-", 0).factory());
+    }
+
+    /**
+     * Group of tasks run on the shared executor.
+     * <br>The tasks are queued in the group and at most <code>maxParallelism</code> of them run at the same time.
+     * The first failure cancels the tasks which have not started yet and is rethrown by {@link #awaitCompletion()}.
+     * The thread waiting for the completion runs the queued tasks itself, so nested groups cannot starve the pool.
+     */
+    public static final class TaskGroup implements Executor {
+
+        private final String name;
+        private final int maxParallelism;
+        private final Executor executor;
+        private final Queue<Task> queue;
+        private final AtomicInteger activeWorkers;
+        private final AtomicInteger pendingTasks;
+        private final AtomicReference<Throwable> failure;
+        private final TaskMetrics metrics;
+        private final Object completionLock;
+        private volatile boolean cancelled;
+
+        private TaskGroup(String name, int maxParallelism, Executor executor) {
+            this.name = name;
+            this.maxParallelism = maxParallelism;
+            this.executor = executor;
+            this.queue = new ConcurrentLinkedQueue<>();
+            this.activeWorkers = new AtomicInteger();
+            this.pendingTasks = new AtomicInteger();
+            this.failure = new AtomicReference<>();
+            this.metrics = new TaskMetrics();
+            this.completionLock = new Object();
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Queues a task of the group.
+         *
+         * @throws RejectedExecutionException if the group has been cancelled
+         */
+        @Override
+        public void execute(Runnable task) {
+            if (this.cancelled) {
+                throw new RejectedExecutionException("The task group '" + this.name + "' has been cancelled.");
+            }
+            this.pendingTasks.incrementAndGet();
+            this.metrics.submitted.increment();
+            globalMetrics.submitted.increment();
+            this.queue.add(new Task(task, System.nanoTime()));
+            startWorker();
+        }
+
+        /**
+         * Waits until all the tasks of the group have finished. While waiting, the calling thread runs the queued
+         * tasks itself.
+         *
+         * @throws ExecutionException    if a task has failed; the cause is the first failure
+         * @throws CancellationException if the group has been cancelled
+         * @throws InterruptedException  if the calling thread is interrupted, in which case the group is cancelled
+         */
+        public void awaitCompletion() throws ExecutionException, InterruptedException {
+            Task task;
+            while ((task = this.queue.poll()) != null) {
+                run(task);
+            }
+            try {
+                ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                    @Override
+                    public boolean block() throws InterruptedException {
+                        synchronized (completionLock) {
+                            while (pendingTasks.get() > 0) {
+                                completionLock.wait();
+                            }
+                        }
+                        return true;
+                    }
+
+                    @Override
+                    public boolean isReleasable() {
+                        return pendingTasks.get() <= 0;
+                    }
+                });
+            } catch (InterruptedException e) {
+                cancel();
+                throw e;
+            }
+            final Throwable cause = this.failure.get();
+            if (cause != null) {
+                throw new ExecutionException("A task of the group '" + this.name + "' has failed.", cause);
+            }
+            if (this.cancelled) {
+                throw new CancellationException("The task group '" + this.name + "' has been cancelled.");
+            }
+        }
+
+        /**
+         * Cancels the tasks which have not started yet. The running tasks are not interrupted, they can check
+         * {@link #isCancelled()} to stop early.
+         */
+        public void cancel() {
+            this.cancelled = true;
+            Task task;
+            while ((task = this.queue.poll()) != null) {
+                this.metrics.cancelled.increment();
+                globalMetrics.cancelled.increment();
+                finishTask();
+            }
+        }
+
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        public TaskMetrics getMetrics() {
+            return this.metrics;
+        }
+
+        private void startWorker() {
+            while (true) {
+                final int active = this.activeWorkers.get();
+                if (active >= this.maxParallelism || this.queue.isEmpty()) {
+                    return;
+                }
+                if (this.activeWorkers.compareAndSet(active, active + 1)) {
+                    try {
+                        this.executor.execute(this::drain);
+                    } catch (RejectedExecutionException e) {
+                        this.activeWorkers.decrementAndGet();
+                        throw e;
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                final Task task = this.queue.poll();
+                if (task != null) {
+                    run(task);
+                    continue;
+                }
+                this.activeWorkers.decrementAndGet();
+                // a task may have been queued after the poll and before the decrement
+                final int active = this.activeWorkers.get();
+                if (this.queue.isEmpty() || active >= this.maxParallelism || !this.activeWorkers.compareAndSet(active, active + 1)) {
+                    return;
+                }
+            }
+        }
+
+        private void run(Task task) {
+            if (this.cancelled) {
+                this.metrics.cancelled.increment();
+                globalMetrics.cancelled.increment();
+                finishTask();
+                return;
+            }
+            final long start = System.nanoTime();
+            this.metrics.recordQueueTime(start - task.queuedNanos);
+            globalMetrics.recordQueueTime(start - task.queuedNanos);
+            try {
+                task.runnable.run();
+                this.metrics.completed.increment();
+                globalMetrics.completed.increment();
+            } catch (Throwable throwable) {
+                this.metrics.failed.increment();
+                globalMetrics.failed.increment();
+                if (this.failure.compareAndSet(null, throwable)) {
+                    cancel();
+                }
+            } finally {
+                final long duration = System.nanoTime() - start;
+                this.metrics.recordRunTime(duration);
+                globalMetrics.recordRunTime(duration);
+                finishTask();
+            }
+        }
+
+        private void finishTask() {
+            if (this.pendingTasks.decrementAndGet() == 0) {
+                synchronized (this.completionLock) {
+                    this.completionLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Counters of the tasks run by one group, or by all the groups.
+     */
+    public static final class TaskMetrics {
+
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder cancelled = new LongAdder();
+        private final LongAdder runNanos = new LongAdder();
+        private final LongAdder queueNanos = new LongAdder();
+        private final AtomicLong maxRunNanos = new AtomicLong();
+
+        private TaskMetrics() {
+        }
+
+        public long getSubmittedCount() {
+            return this.submitted.sum();
+        }
+
+        public long getCompletedCount() {
+            return this.completed.sum();
+        }
+
+        public long getFailedCount() {
+            return this.failed.sum();
+        }
+
+        public long getCancelledCount() {
+            return this.cancelled.sum();
+        }
+
+        /**
+         * Returns the total time spent running the tasks.
+         */
+        public long getRunNanos() {
+            return this.runNanos.sum();
+        }
+
+        /**
+         * Returns the total time the tasks have waited in the queue before running.
+         */
+        public long getQueueNanos() {
+            return this.queueNanos.sum();
+        }
+
+        public long getMaxRunNanos() {
+            return this.maxRunNanos.get();
+        }
+
+        private void recordRunTime(long nanos) {
+            this.runNanos.add(nanos);
+            this.maxRunNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private void recordQueueTime(long nanos) {
+            this.queueNanos.add(nanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d submitted, %d completed, %d failed, %d cancelled, %.1f ms running (max %.1f ms), %.1f ms queued",
+                                 getSubmittedCount(), getCompletedCount(), getFailedCount(), getCancelledCount(),
+                                 getRunNanos() / 1.0e6, getMaxRunNanos() / 1.0e6, getQueueNanos() / 1.0e6);
+        }
+    }
+
+    private static final class Task {
+
+        private final Runnable runnable;
+        private final long queuedNanos;
+
+        private Task(Runnable runnable, long queuedNanos) {
+            this.runnable = runnable;
+            this.queuedNanos = queuedNanos;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package eu.esa.opt.dataio;
+
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.Section;
+import ucar.nc2.Group;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.Variable;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NetcdfFilePoolTest {
+
+    @Test
+    public void testHandlesAreOpenedLazilyAndReused() throws Exception {
+        final AtomicInteger openCount = new AtomicInteger();
+        final NetcdfFilePool pool = new NetcdfFilePool("test.nc", 2, location -> {
+            openCount.incrementAndGet();
+            return mock(NetcdfFile.class);
+        });
+        assertEquals(0, pool.getOpenedHandleCount());
+
+        final NetcdfFile first = pool.acquire();
+        pool.release(first);
+        assertSame(first, pool.acquire());
+        final NetcdfFile second = pool.acquire();
+        assertNotSame(first, second);
+        assertEquals(2, openCount.get());
+
+        final NetcdfFilePool.Statistics statistics = pool.getStatistics();
+        assertEquals(3, statistics.getAcquisitions());
+        assertEquals(0, statistics.getContendedAcquisitions());
+        assertEquals(2, statistics.getPeakBusyHandles());
+        assertEquals(2, statistics.getOpenedHandles());
+    }
+
+    @Test
+    public void testAcquireWaitsWhenAllHandlesAreBusy() throws Exception {
+        final NetcdfFilePool pool = new NetcdfFilePool("test.nc", 1, location -> mock(NetcdfFile.class));
+        final NetcdfFile handle = pool.acquire();
+
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final Thread thread = new Thread(() -> {
+            try {
+                pool.release(pool.acquire());
+                acquired.countDown();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+
+        pool.release(handle);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        thread.join();
+
+        assertEquals(1, pool.getOpenedHandleCount());
+        assertEquals(1, pool.getStatistics().getContendedAcquisitions());
+        assertTrue(pool.getStatistics().getWaitNanos() > 0);
+    }
+
+    @Test
+    public void testCloseClosesIdleAndReleasedHandles() throws Exception {
+        final NetcdfFilePool pool = new NetcdfFilePool("test.nc", 2, location -> mock(NetcdfFile.class));
+        final NetcdfFile idle = pool.acquire();
+        final NetcdfFile busy = pool.acquire();
+        pool.release(idle);
+
+        pool.close();
+        verify(idle).close();
+        verify(busy, never()).close();
+
+        pool.release(busy);
+        verify(busy).close();
+        assertEquals(0, pool.getOpenedHandleCount());
+        try {
+            pool.acquire();
+            fail("IOException expected");
+        } catch (IOException expected) {
+            assertTrue(pool.isClosed());
+        }
+    }
+
+    @Test
+    public void testCloseWakesUpWaitingReaders() throws Exception {
+        final NetcdfFilePool pool = new NetcdfFilePool("test.nc", 1, location -> mock(NetcdfFile.class));
+        final NetcdfFile handle = pool.acquire();
+
+        final AtomicInteger failures = new AtomicInteger();
+        final Thread thread = new Thread(() -> {
+            try {
+                pool.acquire();
+            } catch (IOException e) {
+                failures.incrementAndGet();
+            }
+        });
+        thread.start();
+        thread.join(200);
+        assertTrue(thread.isAlive());
+
+        pool.close();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertEquals(1, failures.get());
+        pool.release(handle);
+        verify(handle).close();
+    }
+
+    @Test
+    public void testFailedOpenFreesTheSlot() throws Exception {
+        final AtomicInteger openCount = new AtomicInteger();
+        final NetcdfFilePool pool = new NetcdfFilePool("test.nc", 1, location -> {
+            if (openCount.incrementAndGet() == 1) {
+                throw new IOException("corrupted");
+            }
+            return mock(NetcdfFile.class);
+        });
+        try {
+            pool.acquire();
+            fail("IOException expected");
+        } catch (IOException expected) {
+            assertEquals(0, pool.getOpenedHandleCount());
+        }
+        assertNotNull(pool.acquire());
+        assertEquals(1, pool.getOpenedHandleCount());
+    }
+
+    @Test
+    public void testPoolIsClosedWhenTheLastReaderClosesTheFile() throws Exception {
+        final NetcdfFile firstReaderFile = mock(NetcdfFile.class);
+        final NetcdfFile secondReaderFile = mock(NetcdfFile.class);
+        when(firstReaderFile.getLocation()).thenReturn("shared.nc");
+        when(secondReaderFile.getLocation()).thenReturn("shared.nc");
+        final NetcdfFilePool.HandleFactory handleFactory = location -> mock(NetcdfFile.class);
+
+        assertNull(NetcdfFilePool.get(firstReaderFile));
+        NetcdfFilePool.open(firstReaderFile, 2, handleFactory);
+        NetcdfFilePool.open(secondReaderFile, 2, handleFactory);
+        final NetcdfFilePool pool = NetcdfFilePool.get(firstReaderFile);
+        assertNotNull(pool);
+        assertSame(pool, NetcdfFilePool.get(secondReaderFile));
+        final NetcdfFile handle = pool.acquire();
+        pool.release(handle);
+
+        NetcdfFilePool.close(firstReaderFile);
+        assertFalse(pool.isClosed());
+        assertSame(pool, NetcdfFilePool.get(secondReaderFile));
+        verify(handle, never()).close();
+
+        NetcdfFilePool.close(secondReaderFile);
+        assertTrue(pool.isClosed());
+        assertNull(NetcdfFilePool.get(secondReaderFile));
+        verify(handle).close();
+
+        // closing an unregistered file does nothing
+        NetcdfFilePool.close(secondReaderFile);
+    }
+
+    @Test
+    public void testNoPoolWhenDisabled() {
+        final NetcdfFile readerFile = mock(NetcdfFile.class);
+        when(readerFile.getLocation()).thenReturn("disabled.nc");
+
+        NetcdfFilePool.open(readerFile, 0, location -> mock(NetcdfFile.class));
+        assertNull(NetcdfFilePool.get(readerFile));
+        NetcdfFilePool.close(readerFile);
+    }
+
+    @Test
+    public void testReadWithoutPoolUsesTheReaderFile() throws Exception {
+        final NetcdfFile readerFile = mock(NetcdfFile.class);
+        when(readerFile.getLocation()).thenReturn("unpooled.nc");
+        final Variable variable = createVariable(readerFile);
+        final Section section = new Section(new int[]{0, 0}, new int[]{2, 2});
+        final Array data = mock(Array.class);
+        when(variable.read(section)).thenReturn(data);
+
+        assertSame(data, NetcdfFilePool.read(variable, section));
+    }
+
+    @Test
+    public void testReadThroughPooledHandle() throws Exception {
+        final NetcdfFile readerFile = mock(NetcdfFile.class);
+        when(readerFile.getLocation()).thenReturn("pooled.nc");
+        final Variable variable = createVariable(readerFile);
+        final Section section = new Section(new int[]{0, 0}, new int[]{2, 2});
+
+        final NetcdfFile handle = mock(NetcdfFile.class);
+        final Variable pooledVariable = mock(Variable.class);
+        final Array data = mock(Array.class);
+        when(handle.findVariable("band")).thenReturn(pooledVariable);
+        when(pooledVariable.read(section)).thenReturn(data);
+
+        NetcdfFilePool.open(readerFile, 1, location -> handle);
+        try {
+            assertSame(data, NetcdfFilePool.read(variable, section));
+            verify(variable, never()).read(section);
+            final NetcdfFilePool pool = NetcdfFilePool.get(readerFile);
+            assertEquals(1, pool.getStatistics().getAcquisitions());
+
+            when(handle.findVariable("band")).thenReturn(null);
+            try {
+                NetcdfFilePool.read(variable, section);
+                fail("IOException expected");
+            } catch (IOException expected) {
+                // the handle is returned to the pool
+                assertEquals(1, pool.getOpenedHandleCount());
+                assertEquals(0, pool.getStatistics().getContendedAcquisitions());
+            }
+        } finally {
+            NetcdfFilePool.close(readerFile);
+        }
+    }
+
+    private static Variable createVariable(NetcdfFile readerFile) {
+        final Group group = mock(Group.class);
+        when(group.getNetcdfFile()).thenReturn(readerFile);
+        final Variable variable = mock(Variable.class);
+        when(variable.getParentGroup()).thenReturn(group);
+        when(variable.getFullNameEscaped()).thenReturn("band");
+        when(variable.getFullName()).thenReturn("band");
+        return variable;
+    }
+}
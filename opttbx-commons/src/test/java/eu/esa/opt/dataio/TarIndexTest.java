@@ -0,0 +1,216 @@
+package eu.esa.opt.dataio;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class TarIndexTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testNormalizePath() {
+        assertEquals("folder/a.txt", TarIndex.normalizePath("./folder/a.txt"));
+        assertEquals("folder/a.txt", TarIndex.normalizePath("/folder/./a.txt"));
+        assertEquals("folder", TarIndex.normalizePath("folder/"));
+        assertEquals("folder/a.txt", TarIndex.normalizePath("folder\\a.txt"));
+        assertEquals("", TarIndex.normalizePath("./"));
+    }
+
+    @Test
+    public void testReadEntriesOfTarGz() throws Exception {
+        Map<String, byte[]> files = buildFiles();
+        Path archive = tempFolder.getRoot().toPath().resolve("test.tar.gz");
+        writeArchive(archive, files, true);
+        Path cacheFolder = tempFolder.newFolder("cache").toPath();
+
+        TarIndex index = TarIndex.open(archive, cacheFolder);
+        assertNotNull(index);
+        assertTrue(index.isCompressed());
+        assertEntries(index, files);
+        try (Stream<Path> indexFiles = Files.list(cacheFolder)) {
+            assertEquals(1, indexFiles.count());
+        }
+
+        // the second index is read from the cache folder
+        TarIndex cachedIndex = TarIndex.open(archive, cacheFolder);
+        assertNotNull(cachedIndex);
+        assertEntries(cachedIndex, files);
+    }
+
+    @Test
+    public void testReadEntriesOfTar() throws Exception {
+        Map<String, byte[]> files = buildFiles();
+        Path archive = tempFolder.getRoot().toPath().resolve("test.tar");
+        writeArchive(archive, files, false);
+
+        TarIndex index = TarIndex.open(archive, tempFolder.newFolder("cache").toPath());
+        assertNotNull(index);
+        assertFalse(index.isCompressed());
+        assertEntries(index, files);
+    }
+
+    @Test
+    public void testList() throws Exception {
+        Path archive = tempFolder.getRoot().toPath().resolve("test.tgz");
+        writeArchive(archive, buildFiles(), true);
+
+        TarIndex index = TarIndex.build(archive);
+        assertNotNull(index);
+        assertArrayEquals(new String[]{"folder", "LC08_MTL.txt"}, index.list(""));
+        assertArrayEquals(new String[]{"band_1.tif", "sub"}, index.list("folder"));
+        assertArrayEquals(new String[]{"band_1.tif", "sub"}, index.list("./folder/"));
+        assertNull(index.list("missing"));
+    }
+
+    @Test
+    public void testExtractEntry() throws Exception {
+        Map<String, byte[]> files = buildFiles();
+        Path archive = tempFolder.getRoot().toPath().resolve("test.tar.gz");
+        writeArchive(archive, files, true);
+
+        TarIndex index = TarIndex.build(archive);
+        assertNotNull(index);
+        Path target = tempFolder.newFolder("extract").toPath().resolve("band_1.tif");
+        index.extractEntry(index.getEntry("folder/band_1.tif"), target);
+        assertArrayEquals(files.get("folder/band_1.tif"), Files.readAllBytes(target));
+        try (Stream<Path> extractedFiles = Files.list(target.getParent())) {
+            assertEquals(1, extractedFiles.count());
+        }
+    }
+
+    @Test
+    public void testReadRandomPositionsFromSmallSeekPointSpan() throws Exception {
+        Path archive = tempFolder.getRoot().toPath().resolve("test.tar.gz");
+        writeArchive(archive, buildFiles(), true);
+        byte[] tarContent;
+        try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(archive))) {
+            tarContent = readAll(inputStream);
+        }
+        long seekPointSpan = 16 * 1024;
+
+        TarIndex index = TarIndex.build(archive, seekPointSpan);
+        assertNotNull(index);
+        TarIndex.Entry entry = index.getEntry("folder/band_1.tif");
+        // the seek points of the index, one for each bit offset in its first byte
+        List<GzipIndex.SeekPoint> seekPoints = GzipIndex.build(archive, seekPointSpan).getSeekPoints();
+        List<Long> positions = new ArrayList<>();
+        for (int bitOffset = 0; bitOffset < 8; bitOffset++) {
+            GzipIndex.SeekPoint bitOffsetPoint = null;
+            for (GzipIndex.SeekPoint seekPoint : seekPoints) {
+                if ((seekPoint.bitOffset & 7) == bitOffset && seekPoint.window.length > 0
+                        && seekPoint.uncompressedOffset > entry.dataOffset && seekPoint.uncompressedOffset < entry.dataOffset + entry.size - 100) {
+                    bitOffsetPoint = seekPoint;
+                    break;
+                }
+            }
+            assertNotNull("No seek point at bit offset " + bitOffset, bitOffsetPoint);
+            positions.add(bitOffsetPoint.uncompressedOffset - entry.dataOffset);
+            positions.add(bitOffsetPoint.uncompressedOffset - entry.dataOffset + 37);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 20; i++) {
+            positions.add((long) random.nextInt((int) entry.size - 100));
+        }
+
+        for (long position : positions) {
+            // a new stream for each position, so that the reading starts from a seek point
+            try (InputStream inputStream = index.openEntry(entry)) {
+                assertEquals(position, inputStream.skip(position));
+                byte[] actual = new byte[100];
+                assertEquals(actual.length, inputStream.read(actual));
+                int offset = (int) (entry.dataOffset + position);
+                assertArrayEquals("position " + position, Arrays.copyOfRange(tarContent, offset, offset + actual.length), actual);
+            }
+        }
+    }
+
+    @Test
+    public void testNotAnArchive() throws Exception {
+        Path file = tempFolder.newFile("test.tar").toPath();
+        Files.write(file, "not a tar archive".getBytes());
+
+        assertNull(TarIndex.build(file));
+    }
+
+    private static void assertEntries(TarIndex index, Map<String, byte[]> files) throws Exception {
+        List<TarIndex.Entry> entries = index.getEntries();
+        assertEquals(files.size() + 1, entries.size());
+        assertTrue(index.getEntry("folder").directory);
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            TarIndex.Entry entry = index.getEntry(file.getKey());
+            assertNotNull(file.getKey(), entry);
+            assertTrue(entry.readable);
+            assertEquals(file.getValue().length, entry.size);
+            try (InputStream inputStream = index.openEntry(entry)) {
+                assertTrue(file.getKey(), Arrays.equals(file.getValue(), readAll(inputStream)));
+            }
+        }
+    }
+
+    private static byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = inputStream.read(buffer)) > 0) {
+            content.write(buffer, 0, count);
+        }
+        return content.toByteArray();
+    }
+
+    private static Map<String, byte[]> buildFiles() {
+        Random random = new Random(42);
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("LC08_MTL.txt", "GROUP = L1_METADATA_FILE\nEND_GROUP = L1_METADATA_FILE\nEND\n".getBytes());
+        byte[] band = new byte[3 * 1024 * 1024 + 17];
+        for (int i = 0; i < band.length; i++) {
+            // compressible data, as the pixels of a band
+            band[i] = (byte) ((i / 1000) + random.nextInt(4));
+        }
+        files.put("folder/band_1.tif", band);
+        byte[] noise = new byte[200 * 1024];
+        random.nextBytes(noise);
+        files.put("folder/sub/" + String.join("", Collections.nCopies(20, "long_name_")) + ".bin", noise);
+        files.put("folder/sub/empty.txt", new byte[0]);
+        return files;
+    }
+
+    private static void writeArchive(Path archive, Map<String, byte[]> files, boolean compressed) throws Exception {
+        try (OutputStream outputStream = compressed ? new GZIPOutputStream(Files.newOutputStream(archive)) : Files.newOutputStream(archive);
+             TarArchiveOutputStream tarStream = new TarArchiveOutputStream(outputStream)) {
+            tarStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+            tarStream.putArchiveEntry(new TarArchiveEntry("./folder/"));
+            tarStream.closeArchiveEntry();
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                TarArchiveEntry entry = new TarArchiveEntry(file.getKey());
+                entry.setSize(file.getValue().length);
+                tarStream.putArchiveEntry(entry);
+                tarStream.write(file.getValue());
+                tarStream.closeArchiveEntry();
+            }
+            tarStream.finish();
+        }
+    }
+}
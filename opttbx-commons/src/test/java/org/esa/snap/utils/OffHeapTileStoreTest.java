@@ -0,0 +1,92 @@
+package org.esa.snap.utils;
+
+import org.esa.snap.core.util.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class OffHeapTileStoreTest {
+
+    private Path spillFolder;
+
+    @Before
+    public void setUp() throws Exception {
+        this.spillFolder = Files.createTempDirectory("tile-store-test").resolve("spill");
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteTree(this.spillFolder.getParent().toFile());
+    }
+
+    @Test
+    public void testTilesWithinTheBudgetAreKeptInMemory() throws Exception {
+        OffHeapTileStore store = new OffHeapTileStore(this.spillFolder, 1024);
+        store.putTile("first", buildContent(100, 1));
+        store.putTile("second", buildContent(200, 2));
+
+        assertEquals(300, store.getMemoryUsed());
+        assertFalse(Files.exists(this.spillFolder));
+        assertContent(store.getTile("first"), 100, 1);
+        assertContent(store.getTile("second"), 200, 2);
+        // the tiles can be read several times
+        assertContent(store.getTile("first"), 100, 1);
+    }
+
+    @Test
+    public void testTilesExceedingTheBudgetAreSpilled() throws Exception {
+        OffHeapTileStore store = new OffHeapTileStore(this.spillFolder, 250);
+        store.putTile("first", buildContent(200, 1));
+        store.putTile("second", buildContent(100, 2));
+
+        assertEquals(200, store.getMemoryUsed());
+        assertTrue(Files.exists(this.spillFolder.resolve("second")));
+        assertContent(store.getTile("first"), 200, 1);
+        assertContent(store.getTile("second"), 100, 2);
+    }
+
+    @Test
+    public void testSubStoresShareTheBudget() throws Exception {
+        OffHeapTileStore store = new OffHeapTileStore(this.spillFolder, 250);
+        OffHeapTileStore currentStore = store.createSubStore("current");
+        OffHeapTileStore previousStore = store.createSubStore("previous");
+        currentStore.putTile("tile", buildContent(200, 1));
+        previousStore.putTile("tile", buildContent(200, 2));
+
+        assertEquals(200, store.getMemoryUsed());
+        assertContent(currentStore.getTile("tile"), 200, 1);
+        assertContent(previousStore.getTile("tile"), 200, 2);
+
+        store.clear();
+        assertEquals(0, store.getMemoryUsed());
+    }
+
+    @Test(expected = NoSuchFileException.class)
+    public void testMissingTile() throws Exception {
+        OffHeapTileStore store = new OffHeapTileStore(this.spillFolder, 1024);
+        store.getTile("missing");
+    }
+
+    private static ByteBuffer buildContent(int size, int seed) {
+        ByteBuffer content = ByteBuffer.allocate(size);
+        for (int i = 0; i < size; i++) {
+            content.put((byte) (i * seed));
+        }
+        content.flip();
+        return content;
+    }
+
+    private static void assertContent(ByteBuffer content, int size, int seed) {
+        assertEquals(size, content.remaining());
+        for (int i = 0; i < size; i++) {
+            assertEquals((byte) (i * seed), content.get());
+        }
+    }
+}
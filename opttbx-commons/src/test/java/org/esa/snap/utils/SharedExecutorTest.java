@@ -0,0 +1,128 @@
+package org.esa.snap.utils;
+
+import eu.esa.opt.dataio.Parallel;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SharedExecutorTest {
+
+    @Test
+    public void testGroupRespectsMaxParallelism() throws Exception {
+        final SharedExecutor.TaskGroup group = SharedExecutor.newTaskGroup("test", 2, SharedExecutor.Mode.COMPUTE);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        for (int i = 0; i < 50; i++) {
+            group.execute(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            });
+        }
+        group.awaitCompletion();
+
+        // the waiting thread helps, so one more task than the limit may run
+        assertTrue(peak.get() <= 3);
+        assertEquals(50, group.getMetrics().getSubmittedCount());
+        assertEquals(50, group.getMetrics().getCompletedCount());
+        assertEquals(0, group.getMetrics().getFailedCount());
+    }
+
+    @Test
+    public void testFirstFailureCancelsTheGroup() throws Exception {
+        final SharedExecutor.TaskGroup group = SharedExecutor.newTaskGroup("test", 1, SharedExecutor.Mode.COMPUTE);
+        final IllegalStateException failure = new IllegalStateException("failed");
+        final CountDownLatch release = new CountDownLatch(1);
+        group.execute(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw failure;
+        });
+        final AtomicInteger executed = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            group.execute(executed::incrementAndGet);
+        }
+        release.countDown();
+        try {
+            group.awaitCompletion();
+            fail("ExecutionException expected");
+        } catch (ExecutionException expected) {
+            assertSame(failure, expected.getCause());
+        }
+        assertTrue(group.isCancelled());
+        assertEquals(1, group.getMetrics().getFailedCount());
+        assertEquals(11, group.getMetrics().getCompletedCount() + group.getMetrics().getFailedCount() + group.getMetrics().getCancelledCount());
+        try {
+            group.execute(executed::incrementAndGet);
+            fail("RejectedExecutionException expected");
+        } catch (RejectedExecutionException expected) {
+            // the group does not accept tasks anymore
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final SharedExecutor.TaskGroup group = SharedExecutor.newTaskGroup("test", 1, SharedExecutor.Mode.COMPUTE);
+        group.cancel();
+        try {
+            group.awaitCompletion();
+            fail("CancellationException expected");
+        } catch (CancellationException expected) {
+            assertTrue(group.isCancelled());
+        }
+    }
+
+    @Test
+    public void testNestedGroupsDoNotStarveThePool() throws Exception {
+        final int outerCount = 4 * SharedExecutor.getParallelism();
+        final AtomicInteger innerCount = new AtomicInteger();
+        final SharedExecutor.TaskGroup outer = SharedExecutor.newTaskGroup("outer");
+        for (int i = 0; i < outerCount; i++) {
+            outer.execute(() -> {
+                final SharedExecutor.TaskGroup inner = SharedExecutor.newTaskGroup("inner");
+                for (int j = 0; j < 10; j++) {
+                    inner.execute(innerCount::incrementAndGet);
+                }
+                try {
+                    inner.awaitCompletion();
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        outer.awaitCompletion();
+        assertEquals(10 * outerCount, innerCount.get());
+    }
+
+    @Test
+    public void testParallelForRethrowsTheFailure() {
+        final AtomicInteger sum = new AtomicInteger();
+        Parallel.For(0, 100, 4, sum::addAndGet);
+        assertEquals(4950, sum.get());
+
+        try {
+            Parallel.For(0, 100, 4, index -> {
+                if (index == 42) {
+                    throw new IllegalArgumentException("index " + index);
+                }
+            });
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+            assertEquals("index 42", expected.getMessage());
+        }
+    }
+}
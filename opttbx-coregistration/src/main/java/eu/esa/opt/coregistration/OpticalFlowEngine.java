@@ -0,0 +1,543 @@
+package eu.esa.opt.coregistration;
+
+import eu.esa.opt.coregistration.operators.ImageOperations;
+import eu.esa.opt.coregistration.operators.ScratchStore;
+import org.esa.snap.utils.SharedExecutor;
+
+import javax.media.jai.Interpolation;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Multi-level optical flow computation used by the coregistration operator.
+ * <br>The pyramid levels, the flow fields and the gradients are kept as float arrays in a {@link ScratchStore},
+ * which spills them to disk only when the memory budget is exceeded. Each step of a level is computed on horizontal
+ * stripes of the image, which are run on a shared executor. The engine does not create threads of its own.
+ *
+ * @since 14.0.0
+ */
+public class OpticalFlowEngine implements Closeable {
+
+    static final int TILE_HEIGHT = 64;
+
+    private static final float[] BURT_KERNEL = new float[]{0.05f, 0.25f, 0.4f, 0.25f, 0.05f};
+
+    private final int levels;
+    private final int rank;
+    private final int iterations;
+    private final int[] radius;
+    private final boolean contrast;
+    private final ScratchStore store;
+    private final Executor executor;
+
+    /**
+     * Creates an engine which computes the stripes of the image on the compute pool of the {@link SharedExecutor}.
+     */
+    public OpticalFlowEngine(int levels, int rank, int iterations, int[] radius, boolean contrast, long memoryBudget) {
+        this(levels, rank, iterations, radius, contrast, memoryBudget, SharedExecutor.getComputeExecutor());
+    }
+
+    OpticalFlowEngine(int levels, int rank, int iterations, int[] radius, boolean contrast, long memoryBudget, Executor executor) {
+        if (levels < 0) {
+            throw new IllegalArgumentException("The number of levels must be positive.");
+        }
+        if (radius == null || radius.length == 0) {
+            throw new IllegalArgumentException("At least one radius value is required.");
+        }
+        this.levels = levels;
+        this.rank = rank;
+        this.iterations = iterations;
+        this.radius = radius;
+        this.contrast = contrast;
+        this.store = new ScratchStore(memoryBudget);
+        this.executor = executor;
+    }
+
+    /**
+     * Computes the flow field which maps the slave image onto the master image.
+     *
+     * @param master      the master samples, row by row
+     * @param slave       the slave samples, row by row, having the same size as the master
+     * @param width       the width of the images
+     * @param height      the height of the images
+     * @param stepMonitor called after each radius of each level, it may throw an exception to cancel the computation
+     * @return the flow field of the first level
+     */
+    public FlowField compute(float[] master, float[] slave, int width, int height, Runnable stepMonitor) throws IOException {
+        if (master.length != width * height || slave.length != width * height) {
+            throw new IllegalArgumentException("The master and slave samples do not match the image size.");
+        }
+        int[] widths = new int[this.levels + 1];
+        int[] heights = new int[this.levels + 1];
+        buildPyramid("master", master, width, height, widths, heights);
+        buildPyramid("slave", slave, width, height, widths, heights);
+
+        float[] u = null;
+        float[] v = null;
+        for (int k = this.levels; k >= 0; k--) {
+            int levelWidth = widths[k];
+            int levelHeight = heights[k];
+            if (k == this.levels) {
+                u = new float[levelWidth * levelHeight];
+                v = new float[levelWidth * levelHeight];
+            } else {
+                u = upsampleField(u, widths[k + 1], heights[k + 1], levelWidth, levelHeight);
+                v = upsampleField(v, widths[k + 1], heights[k + 1], levelWidth, levelHeight);
+            }
+            this.store.put("u", u);
+            this.store.put("v", v);
+            u = null;
+            v = null;
+
+            prepareLevel(k, levelWidth, levelHeight);
+            this.store.remove("master" + k);
+            this.store.remove("slave" + k);
+
+            for (int r : this.radius) {
+                computeRadius(r, levelWidth, levelHeight);
+                if (stepMonitor != null) {
+                    stepMonitor.run();
+                }
+            }
+            u = this.store.get("u");
+            v = this.store.get("v");
+        }
+        return new FlowField(width, height, u, v);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.store.close();
+    }
+
+    ScratchStore getStore() {
+        return this.store;
+    }
+
+    private void buildPyramid(String prefix, float[] image, int width, int height, int[] widths, int[] heights) throws IOException {
+        widths[0] = width;
+        heights[0] = height;
+        this.store.put(prefix + 0, image);
+        float[] previous = image;
+        for (int k = 1; k <= this.levels; k++) {
+            int previousWidth = widths[k - 1];
+            int previousHeight = heights[k - 1];
+            float[] convolved = convolve(previous, previousWidth, previousHeight, BURT_KERNEL);
+            int levelWidth = (previousWidth + 1) / 2;
+            int levelHeight = (previousHeight + 1) / 2;
+            float[] current = new float[levelWidth * levelHeight];
+            forEachTile(levelHeight, (y0, y1) -> {
+                for (int i = y0; i < y1; i++) {
+                    for (int j = 0; j < levelWidth; j++) {
+                        current[i * levelWidth + j] = convolved[(2 * i) * previousWidth + 2 * j];
+                    }
+                }
+            });
+            widths[k] = levelWidth;
+            heights[k] = levelHeight;
+            this.store.put(prefix + k, current);
+            previous = current;
+        }
+    }
+
+    private void prepareLevel(int k, int width, int height) throws IOException {
+        float[] levelMaster = this.store.get("master" + k);
+        float[] levelSlave = this.store.get("slave" + k);
+        float[] i0;
+        float[] i1sup;
+        float[] i1inf;
+        if (this.rank != 0) {
+            i0 = toArray(MatrixUtils.rank_sup(toMatrix(levelMaster, width, height), this.rank));
+            i1sup = toArray(MatrixUtils.rank_sup(toMatrix(levelSlave, width, height), this.rank));
+            i1inf = toArray(MatrixUtils.rank_inf(toMatrix(levelSlave, width, height), this.rank));
+        } else {
+            i0 = levelMaster;
+            i1sup = levelSlave;
+            i1inf = new float[levelSlave.length];
+            forEachTile(height, (y0, y1) -> {
+                for (int p = y0 * width; p < y1 * width; p++) {
+                    i1inf[p] = 1.0f - levelSlave[p];
+                }
+            });
+        }
+        if (this.contrast) {
+            this.store.put("masterEq", equalize(levelMaster, width, height));
+            this.store.put("slaveEq", equalize(levelSlave, width, height));
+        }
+
+        float[] ix = new float[width * height];
+        float[] iy = new float[width * height];
+        float[] ixx = new float[width * height];
+        float[] iyy = new float[width * height];
+        float[] ixy = new float[width * height];
+        forEachTile(height, (y0, y1) -> {
+            for (int i = y0; i < y1; i++) {
+                int row = i * width;
+                for (int j = 0; j < width; j++) {
+                    int p = row + j;
+                    float gx;
+                    if (j == 0) {
+                        gx = (width > 1) ? i0[p + 1] - i0[p] : 0.0f;
+                    } else if (j == width - 1) {
+                        gx = i0[p] - i0[p - 1];
+                    } else {
+                        gx = (i0[p + 1] - i0[p - 1]) / 2;
+                    }
+                    float gy;
+                    if (i == 0) {
+                        gy = (height > 1) ? i0[p + width] - i0[p] : 0.0f;
+                    } else if (i == height - 1) {
+                        gy = i0[p] - i0[p - width];
+                    } else {
+                        gy = (i0[p + width] - i0[p - width]) / 2;
+                    }
+                    ix[p] = gx;
+                    iy[p] = gy;
+                    ixx[p] = gx * gx;
+                    iyy[p] = gy * gy;
+                    ixy[p] = gx * gy;
+                }
+            }
+        });
+        this.store.put("I0", i0);
+        this.store.put("I1sup", i1sup);
+        this.store.put("I1inf", i1inf);
+        this.store.put("Ix", ix);
+        this.store.put("Iy", iy);
+        this.store.put("Ixx", ixx);
+        this.store.put("Iyy", iyy);
+        this.store.put("Ixy", ixy);
+    }
+
+    private void computeRadius(int r, int width, int height) throws IOException {
+        float[] sumXX = boxFilter(this.store.get("Ixx"), width, height, r);
+        float[] sumYY = boxFilter(this.store.get("Iyy"), width, height, r);
+        float[] sumXY = boxFilter(this.store.get("Ixy"), width, height, r);
+        float[] determinant = new float[width * height];
+        forEachTile(height, (y0, y1) -> {
+            for (int p = y0 * width; p < y1 * width; p++) {
+                determinant[p] = sumXX[p] * sumYY[p] - sumXY[p] * sumXY[p];
+            }
+        });
+        this.store.put("A", sumXX);
+        this.store.put("B", sumYY);
+        this.store.put("C", sumXY);
+        this.store.put("D", determinant);
+
+        for (int iter = 0; iter < this.iterations; iter++) {
+            float[] u = this.store.get("u");
+            float[] v = this.store.get("v");
+            float[] warped = warp(this.store.get("I1sup"), u, v, width, height);
+            if (this.contrast) {
+                warped = compareWarped(warped, u, v, width, height);
+            }
+
+            float[] i0 = this.store.get("I0");
+            float[] ix = this.store.get("Ix");
+            float[] iy = this.store.get("Iy");
+            float[] itx = new float[width * height];
+            float[] ity = new float[width * height];
+            float[] i1w = warped;
+            forEachTile(height, (y0, y1) -> {
+                for (int p = y0 * width; p < y1 * width; p++) {
+                    float it = ((i0[p] - i1w[p]) + u[p] * ix[p]) + v[p] * iy[p];
+                    itx[p] = it * ix[p];
+                    ity[p] = it * iy[p];
+                }
+            });
+            float[] g = boxFilter(itx, width, height, r);
+            float[] h = boxFilter(ity, width, height, r);
+
+            float[] a = this.store.get("A");
+            float[] b = this.store.get("B");
+            float[] c = this.store.get("C");
+            float[] d = this.store.get("D");
+            float[] newU = new float[width * height];
+            float[] newV = new float[width * height];
+            forEachTile(height, (y0, y1) -> {
+                for (int p = y0 * width; p < y1 * width; p++) {
+                    float valueU = (g[p] * b[p] - c[p] * h[p]) / d[p];
+                    float valueV = (a[p] * h[p] - c[p] * g[p]) / d[p];
+                    newU[p] = Float.isNaN(valueU) ? 0.0f : valueU;
+                    newV[p] = Float.isNaN(valueV) ? 0.0f : valueV;
+                }
+            });
+            this.store.put("u", newU);
+            this.store.put("v", newV);
+        }
+    }
+
+    private float[] compareWarped(float[] warped, float[] u, float[] v, int width, int height) throws IOException {
+        float[] masterEq = this.store.get("masterEq");
+        float[] h1w = warp(this.store.get("slaveEq"), u, v, width, height);
+        float[] difference = new float[width * height];
+        float[] inverse = new float[width * height];
+        forEachTile(height, (y0, y1) -> {
+            for (int p = y0 * width; p < y1 * width; p++) {
+                difference[p] = masterEq[p] - h1w[p];
+                inverse[p] = 1.0f - (masterEq[p] + h1w[p]);
+            }
+        });
+        float[] crit1 = boxFilter(difference, width, height, this.rank);
+        float[] crit2 = boxFilter(inverse, width, height, this.rank);
+        float[] warpedInf = warp(this.store.get("I1inf"), u, v, width, height);
+        forEachTile(height, (y0, y1) -> {
+            for (int p = y0 * width; p < y1 * width; p++) {
+                if (crit1[p] > crit2[p]) {
+                    warped[p] = warpedInf[p];
+                }
+            }
+        });
+        return warped;
+    }
+
+    private float[] warp(float[] source, float[] u, float[] v, int width, int height) {
+        float[] result = new float[width * height];
+        float maxX = width - 1;
+        float maxY = height - 1;
+        forEachTile(height, (y0, y1) -> {
+            for (int i = y0; i < y1; i++) {
+                for (int j = 0; j < width; j++) {
+                    int p = i * width + j;
+                    float x = Math.min(Math.max(j + u[p], 0.0f), maxX);
+                    float y = Math.min(Math.max(i + v[p], 0.0f), maxY);
+                    result[p] = interpolate(source, width, height, x, y);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Bilinear interpolation with the same conventions as {@link MatrixUtils#interp2(float[][], float[][], float[][])}.
+     */
+    static float interpolate(float[] source, int width, int height, float srcX, float srcY) {
+        if (srcX < 0 || srcX >= width || srcY < 0 || srcY >= height) {
+            return Float.NaN;
+        }
+        int x0 = (int) srcX;
+        int y0 = (int) srcY;
+        int x1 = x0 + 1;
+        int y1 = y0 + 1;
+        float fracX = srcX - x0;
+        float fracY = srcY - y0;
+        if (fracX == 0.0f && fracY == 0.0f) {
+            return source[y0 * width + x0];
+        }
+        if (fracX == 0.0f) {
+            x1 = x0;
+        }
+        if (fracY == 0.0f) {
+            y1 = y0;
+        }
+        if (x1 >= width || y1 >= height) {
+            return Float.NaN;
+        }
+        float s00 = source[y0 * width + x0];
+        float s01 = source[y0 * width + x1];
+        float s10 = source[y1 * width + x0];
+        float s11 = source[y1 * width + x1];
+        float s0 = (s01 - s00) * fracX + s00;
+        float s1 = (s11 - s10) * fracX + s10;
+        return (s1 - s0) * fracY + s0;
+    }
+
+    /**
+     * Computes the sum of the values in the (2r+1)x(2r+1) window around each pixel, considering zero outside the image.
+     */
+    float[] boxFilter(float[] source, int width, int height, int r) {
+        float[] rowSums = new float[width * height];
+        forEachTile(height, (y0, y1) -> {
+            for (int i = y0; i < y1; i++) {
+                int row = i * width;
+                double sum = 0.0d;
+                for (int j = 0; j <= r && j < width; j++) {
+                    sum += source[row + j];
+                }
+                for (int j = 0; j < width; j++) {
+                    rowSums[row + j] = (float) sum;
+                    if (j + r + 1 < width) {
+                        sum += source[row + j + r + 1];
+                    }
+                    if (j - r >= 0) {
+                        sum -= source[row + j - r];
+                    }
+                }
+            }
+        });
+        float[] result = new float[width * height];
+        forEachTile(height, (y0, y1) -> {
+            double[] columnSums = new double[width];
+            for (int i = Math.max(0, y0 - r); i <= y0 + r && i < height; i++) {
+                int row = i * width;
+                for (int j = 0; j < width; j++) {
+                    columnSums[j] += rowSums[row + j];
+                }
+            }
+            for (int i = y0; i < y1; i++) {
+                int row = i * width;
+                int addedRow = (i + r + 1) * width;
+                int removedRow = (i - r) * width;
+                for (int j = 0; j < width; j++) {
+                    result[row + j] = (float) columnSums[j];
+                    if (i + r + 1 < height) {
+                        columnSums[j] += rowSums[addedRow + j];
+                    }
+                    if (i - r >= 0) {
+                        columnSums[j] -= rowSums[removedRow + j];
+                    }
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Applies the given symmetric kernel on both directions, considering zero outside the image.
+     */
+    float[] convolve(float[] source, int width, int height, float[] kernel) {
+        int r = (kernel.length - 1) / 2;
+        float[] rowValues = new float[width * height];
+        forEachTile(height, (y0, y1) -> {
+            for (int i = y0; i < y1; i++) {
+                int row = i * width;
+                for (int j = 0; j < width; j++) {
+                    float sum = 0.0f;
+                    for (int t = -r; t <= r; t++) {
+                        int x = j + t;
+                        if (x >= 0 && x < width) {
+                            sum += kernel[t + r] * source[row + x];
+                        }
+                    }
+                    rowValues[row + j] = sum;
+                }
+            }
+        });
+        float[] result = new float[width * height];
+        forEachTile(height, (y0, y1) -> {
+            for (int i = y0; i < y1; i++) {
+                for (int j = 0; j < width; j++) {
+                    float sum = 0.0f;
+                    for (int t = -r; t <= r; t++) {
+                        int y = i + t;
+                        if (y >= 0 && y < height) {
+                            sum += kernel[t + r] * rowValues[y * width + j];
+                        }
+                    }
+                    result[i * width + j] = sum;
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Resizes a flow field of the previous level to the size of the current level and doubles its values.
+     */
+    private static float[] upsampleField(float[] field, int width, int height, int newWidth, int newHeight) {
+        BufferedImage image = ImageOperations.imageFromArray(field, width, height);
+        RenderedImage resized = ImageOperations.resize(image, (float) newWidth / width, (float) newHeight / height,
+                                                       Interpolation.getInstance(Interpolation.INTERP_BICUBIC));
+        float[] result = new float[newWidth * newHeight];
+        Rectangle bounds = new Rectangle(0, 0, newWidth, newHeight).intersection(
+                new Rectangle(resized.getMinX(), resized.getMinY(), resized.getWidth(), resized.getHeight()));
+        if (!bounds.isEmpty()) {
+            Raster raster = resized.getData(bounds);
+            float[] values = raster.getSamples(bounds.x, bounds.y, bounds.width, bounds.height, 0, (float[]) null);
+            for (int i = 0; i < bounds.height; i++) {
+                int row = (bounds.y + i) * newWidth + bounds.x;
+                for (int j = 0; j < bounds.width; j++) {
+                    result[row + j] = 2.0f * values[i * bounds.width + j];
+                }
+            }
+        }
+        return result;
+    }
+
+    private static float[] equalize(float[] values, int width, int height) {
+        return ImageOperations.arrayFromImage(ImageOperations.equalize(ImageOperations.imageFromArray(values, width, height)));
+    }
+
+    private static float[][] toMatrix(float[] values, int width, int height) {
+        float[][] matrix = new float[height][width];
+        for (int i = 0; i < height; i++) {
+            System.arraycopy(values, i * width, matrix[i], 0, width);
+        }
+        return matrix;
+    }
+
+    private static float[] toArray(float[][] matrix) {
+        int height = matrix.length;
+        int width = matrix[0].length;
+        float[] values = new float[width * height];
+        for (int i = 0; i < height; i++) {
+            System.arraycopy(matrix[i], 0, values, i * width, width);
+        }
+        return values;
+    }
+
+    private void forEachTile(int height, TileTask task) {
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[(height + TILE_HEIGHT - 1) / TILE_HEIGHT];
+        for (int y0 = 0, t = 0; y0 < height; y0 += TILE_HEIGHT, t++) {
+            int tileStart = y0;
+            int tileEnd = Math.min(height, y0 + TILE_HEIGHT);
+            tasks[t] = CompletableFuture.runAsync(() -> task.run(tileStart, tileEnd), this.executor);
+        }
+        try {
+            CompletableFuture.allOf(tasks).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private interface TileTask {
+        void run(int y0, int y1);
+    }
+
+    /**
+     * The horizontal and vertical displacements of each pixel.
+     */
+    public static class FlowField {
+        private final int width;
+        private final int height;
+        private final float[] u;
+        private final float[] v;
+
+        FlowField(int width, int height, float[] u, float[] v) {
+            this.width = width;
+            this.height = height;
+            this.u = u;
+            this.v = v;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public float[] getU() {
+            return u;
+        }
+
+        public float[] getV() {
+            return v;
+        }
+    }
+}
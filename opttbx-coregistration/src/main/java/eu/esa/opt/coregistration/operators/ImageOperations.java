@@ -89,6 +89,17 @@ public class ImageOperations {
         return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), null);
     }
 
+    public static float[] arrayFromImage(BufferedImage img) {
+        int width = img.getWidth();
+        int height = img.getHeight();
+        float[][] matrix = matrixFromImage(img);
+        float[] values = new float[width * height];
+        for (int i = 0; i < height; i++) {
+            System.arraycopy(matrix[i], 0, values, i * width, width);
+        }
+        return values;
+    }
+
     public static float[][] matrixFromImage(BufferedImage img) {
         int imgHeight = img.getHeight();
         int imgWidth = img.getWidth();
@@ -0,0 +1,171 @@
+package eu.esa.opt.coregistration.operators;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Store for named float rasters which keeps the rasters in memory as long as their total size does not exceed
+ * the given budget. When the budget is exceeded, the least recently used rasters are spilled to a temporary folder
+ * and loaded back on demand.
+ * <br>The rasters must not be modified after they have been put in the store, because a spilled copy may be reused.
+ */
+public class ScratchStore implements Closeable {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final long memoryBudget;
+    private final LinkedHashMap<String, float[]> memoryRasters;
+    private final Map<String, Path> spilledRasters;
+    private long memoryUsage;
+    private Path folder;
+    private int spillCount;
+
+    public ScratchStore(long memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("The memory budget must be positive.");
+        }
+        this.memoryBudget = memoryBudget;
+        this.memoryRasters = new LinkedHashMap<>(16, 0.75f, true);
+        this.spilledRasters = new HashMap<>();
+    }
+
+    public synchronized void put(String name, float[] raster) throws IOException {
+        remove(name);
+        this.memoryRasters.put(name, raster);
+        this.memoryUsage += byteCount(raster);
+        spill(name);
+    }
+
+    public synchronized float[] get(String name) throws IOException {
+        float[] raster = this.memoryRasters.get(name);
+        if (raster == null) {
+            Path file = this.spilledRasters.get(name);
+            if (file == null) {
+                return null;
+            }
+            raster = readRaster(file);
+            this.memoryRasters.put(name, raster);
+            this.memoryUsage += byteCount(raster);
+            spill(name);
+        }
+        return raster;
+    }
+
+    public synchronized boolean contains(String name) {
+        return this.memoryRasters.containsKey(name) || this.spilledRasters.containsKey(name);
+    }
+
+    public synchronized void remove(String name) throws IOException {
+        float[] raster = this.memoryRasters.remove(name);
+        if (raster != null) {
+            this.memoryUsage -= byteCount(raster);
+        }
+        Path file = this.spilledRasters.remove(name);
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public synchronized long getMemoryUsage() {
+        return this.memoryUsage;
+    }
+
+    public synchronized int getSpillCount() {
+        return this.spillCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.memoryRasters.clear();
+        this.memoryUsage = 0;
+        for (Path file : this.spilledRasters.values()) {
+            Files.deleteIfExists(file);
+        }
+        this.spilledRasters.clear();
+        if (this.folder != null) {
+            Files.deleteIfExists(this.folder);
+            this.folder = null;
+        }
+    }
+
+    private void spill(String keptName) throws IOException {
+        Iterator<Map.Entry<String, float[]>> it = this.memoryRasters.entrySet().iterator();
+        while (this.memoryUsage > this.memoryBudget && it.hasNext()) {
+            Map.Entry<String, float[]> entry = it.next();
+            if (entry.getKey().equals(keptName)) {
+                continue;
+            }
+            if (!this.spilledRasters.containsKey(entry.getKey())) {
+                if (this.folder == null) {
+                    this.folder = Files.createTempDirectory("coregistration");
+                }
+                Path file = Files.createTempFile(this.folder, "raster", ".bin");
+                writeRaster(file, entry.getValue());
+                this.spilledRasters.put(entry.getKey(), file);
+                this.spillCount++;
+            }
+            this.memoryUsage -= byteCount(entry.getValue());
+            it.remove();
+        }
+    }
+
+    private static void writeRaster(Path file, float[] raster) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.min(raster.length, CHUNK_SIZE) * Float.BYTES).order(ByteOrder.nativeOrder());
+        FloatBuffer floatBuffer = buffer.asFloatBuffer();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.nativeOrder()).putInt(0, raster.length));
+            for (int offset = 0; offset < raster.length; offset += CHUNK_SIZE) {
+                int count = Math.min(CHUNK_SIZE, raster.length - offset);
+                floatBuffer.clear();
+                floatBuffer.put(raster, offset, count);
+                buffer.clear();
+                buffer.limit(count * Float.BYTES);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    private static float[] readRaster(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.nativeOrder());
+            readFully(channel, header);
+            float[] raster = new float[header.getInt(0)];
+            ByteBuffer buffer = ByteBuffer.allocate(Math.min(raster.length, CHUNK_SIZE) * Float.BYTES).order(ByteOrder.nativeOrder());
+            FloatBuffer floatBuffer = buffer.asFloatBuffer();
+            for (int offset = 0; offset < raster.length; offset += CHUNK_SIZE) {
+                int count = Math.min(CHUNK_SIZE, raster.length - offset);
+                buffer.clear();
+                buffer.limit(count * Float.BYTES);
+                readFully(channel, buffer);
+                floatBuffer.clear();
+                floatBuffer.get(raster, offset, count);
+            }
+            return raster;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of the scratch file.");
+            }
+        }
+    }
+
+    private static long byteCount(float[] raster) {
+        return (long) raster.length * Float.BYTES;
+    }
+}
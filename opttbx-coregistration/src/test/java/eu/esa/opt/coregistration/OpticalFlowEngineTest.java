@@ -0,0 +1,127 @@
+package eu.esa.opt.coregistration;
+
+import eu.esa.opt.coregistration.operators.ScratchStore;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class OpticalFlowEngineTest {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 160;
+
+    @Test
+    public void testRecoverTranslation() throws IOException {
+        OpticalFlowEngine.FlowField flow = computeTranslationFlow(1L << 30, null);
+
+        assertEquals(WIDTH, flow.getWidth());
+        assertEquals(HEIGHT, flow.getHeight());
+        assertEquals(1.5, meanInside(flow.getU()), 0.05);
+        assertEquals(-1.0, meanInside(flow.getV()), 0.05);
+    }
+
+    @Test
+    public void testSpilledRastersGiveSameFlow() throws IOException {
+        OpticalFlowEngine.FlowField inMemory = computeTranslationFlow(1L << 30, null);
+        OpticalFlowEngine.FlowField spilled = computeTranslationFlow(200000, null);
+
+        assertArrayEquals(inMemory.getU(), spilled.getU(), 0.0f);
+        assertArrayEquals(inMemory.getV(), spilled.getV(), 0.0f);
+    }
+
+    @Test
+    public void testCallerExecutorGivesSameFlow() throws IOException {
+        OpticalFlowEngine.FlowField shared = computeTranslationFlow(1L << 30, null);
+        // the stripes run one after the other on the calling thread
+        OpticalFlowEngine.FlowField sequential = computeTranslationFlow(1L << 30, Runnable::run);
+
+        assertArrayEquals(shared.getU(), sequential.getU(), 0.0f);
+        assertArrayEquals(shared.getV(), sequential.getV(), 0.0f);
+    }
+
+    @Test
+    public void testBoxFilter() throws IOException {
+        int width = 37;
+        int height = 29;
+        float[] values = new float[width * height];
+        Random random = new Random(3);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextFloat() * 10.0f;
+        }
+        try (OpticalFlowEngine engine = new OpticalFlowEngine(1, 0, 1, new int[]{1}, false, 1L << 20)) {
+            for (int r : new int[]{0, 2, 20}) {
+                float[] result = engine.boxFilter(values, width, height, r);
+                for (int i = 0; i < height; i++) {
+                    for (int j = 0; j < width; j++) {
+                        double expected = 0.0d;
+                        for (int y = Math.max(0, i - r); y <= Math.min(height - 1, i + r); y++) {
+                            for (int x = Math.max(0, j - r); x <= Math.min(width - 1, j + r); x++) {
+                                expected += values[y * width + x];
+                            }
+                        }
+                        assertEquals(expected, result[i * width + j], 1.0e-3);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testScratchStoreSpill() throws IOException {
+        try (ScratchStore store = new ScratchStore(1024)) {
+            float[] first = new float[1000];
+            for (int i = 0; i < first.length; i++) {
+                first[i] = i * 0.5f;
+            }
+            store.put("first", first);
+            store.put("second", new float[100]);
+
+            assertEquals(1, store.getSpillCount());
+            assertEquals(400, store.getMemoryUsage());
+            assertArrayEquals(first, store.get("first"), 0.0f);
+            assertTrue(store.contains("second"));
+
+            store.remove("first");
+            assertFalse(store.contains("first"));
+            assertNull(store.get("first"));
+        }
+    }
+
+    private static OpticalFlowEngine.FlowField computeTranslationFlow(long memoryBudget, Executor executor) throws IOException {
+        float[] master = new float[WIDTH * HEIGHT];
+        float[] slave = new float[WIDTH * HEIGHT];
+        for (int i = 0; i < HEIGHT; i++) {
+            for (int j = 0; j < WIDTH; j++) {
+                master[i * WIDTH + j] = pattern(j, i);
+                slave[i * WIDTH + j] = pattern(j - 1.5, i + 1.0);
+            }
+        }
+        try (OpticalFlowEngine engine = (executor != null) ? new OpticalFlowEngine(3, 0, 3, new int[]{12, 8}, false, memoryBudget, executor)
+                                                           : new OpticalFlowEngine(3, 0, 3, new int[]{12, 8}, false, memoryBudget)) {
+            int[] steps = new int[1];
+            OpticalFlowEngine.FlowField flow = engine.compute(master, slave, WIDTH, HEIGHT, () -> steps[0]++);
+            assertEquals(8, steps[0]);
+            return flow;
+        }
+    }
+
+    private static float pattern(double x, double y) {
+        return (float) (50.0 * Math.sin(x / 9.0) * Math.cos(y / 7.0) + 30.0 * Math.sin((x + y) / 13.0));
+    }
+
+    private static double meanInside(float[] values) {
+        double sum = 0.0d;
+        int count = 0;
+        for (int i = 40; i < HEIGHT - 40; i++) {
+            for (int j = 40; j < WIDTH - 40; j++) {
+                sum += values[i * WIDTH + j];
+                count++;
+            }
+        }
+        return sum / count;
+    }
+}
@@ -44,6 +44,8 @@ import org.esa.snap.core.util.io.FileUtils;
 import org.esa.snap.landcover.dataio.LandCoverFactory;
 import org.esa.snap.landcover.gpf.AddLandCoverOp;
 import org.esa.snap.core.util.StringUtils;
+import org.esa.snap.utils.OffHeapTileStore;
+import org.esa.snap.utils.SharedExecutor;
 import org.esa.snap.utils.matrix.IntMatrix;
 
 import javax.media.jai.JAI;
@@ -57,8 +59,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.StringTokenizer;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -146,11 +147,18 @@ public class ForestCoverChangeOp extends Operator {
     @Parameter(label = "Previous Date Product Mask", description = "A binary raster file to be added as mask to the output product")
     private File previousProductSourceMaskFile;
 
+    @Parameter(label = "Tile Store Memory (MB)", defaultValue = "0", interval = "[0,*)",
+            description = "The memory used to keep the band and mask tiles off-heap, shared by the segmentation, the trimming and the masks, " +
+                          "instead of writing them to temporary files. The tiles exceeding it are written to the temporary folder. " +
+                          "0 writes all the tiles to temporary files.")
+    private int tileStoreMemorySize;
+
     private String[] currentProductBandsNames;
     private String[] previousProductBandsNames;
 
     private int threadCount;
-    private ExecutorService threadPool;
+    private Executor threadPool;
+    private OffHeapTileStore tileStore;
 
     public ForestCoverChangeOp() {
         super();
@@ -179,7 +187,7 @@ public class ForestCoverChangeOp extends Operator {
         this.targetProduct.addBand(targetBand);
 
         this.threadCount = Runtime.getRuntime().availableProcessors() - 1;
-        this.threadPool = Executors.newCachedThreadPool();
+        this.threadPool = SharedExecutor.getComputeExecutor();
     }
 
     @Override
@@ -218,6 +226,10 @@ public class ForestCoverChangeOp extends Operator {
             // create the temporary folder
             Files.createDirectories(temporaryFolder);
 
+            if (this.tileStoreMemorySize > 0) {
+                this.tileStore = new OffHeapTileStore(temporaryFolder.resolve("tile-store"), this.tileStoreMemorySize * 1024L * 1024L);
+            }
+
             ProductData productData = computeFinalProductData(currentExternalMaskProduct, previousExternalMaskProduct, temporaryFolder);
 
             Band targetBand = this.targetProduct.getBandAt(0);
@@ -245,15 +257,18 @@ public class ForestCoverChangeOp extends Operator {
         } catch (Exception ex) {
             throw new OperatorException(ex);
         } finally {
-            this.threadPool.shutdown();
+            if (this.tileStore != null) {
+                this.tileStore.clear();
+                this.tileStore = null;
+            }
             FileUtils.deleteTree(temporaryFolder.toFile());
         }
     }
 
     private ProductData computeFinalProductData(Product currentExternalMaskProduct, Product previousExternalMaskProduct, Path temporaryParentFolder) throws Exception {
-        FolderPathsResults currentFolderPathsResult = extractBands(this.currentSourceProduct, this.currentProductBandsNames, currentExternalMaskProduct, temporaryParentFolder);
+        FolderPathsResults currentFolderPathsResult = extractBands(this.currentSourceProduct, this.currentProductBandsNames, currentExternalMaskProduct, temporaryParentFolder, "current");
 
-        FolderPathsResults previousFolderPathsResult = extractBands(this.previousSourceProduct, this.previousProductBandsNames, previousExternalMaskProduct, temporaryParentFolder);
+        FolderPathsResults previousFolderPathsResult = extractBands(this.previousSourceProduct, this.previousProductBandsNames, previousExternalMaskProduct, temporaryParentFolder, "previous");
 
         IntMatrix colorFillerMatrix = computeColorFillerMatrix(temporaryParentFolder, currentFolderPathsResult, previousFolderPathsResult);
 
@@ -268,11 +283,9 @@ public class ForestCoverChangeOp extends Operator {
         int movingStepHeight = 500;//tileSize.height / 2;
         Dimension movingStepSize = new Dimension(movingStepWidth, movingStepHeight);
 
-        Path currentSourceSegmentationTilesFolder = currentFolderPathsResult.getTemporaryBandsFolder();
-        IntSet currentTrimmingRegionKeys = computeMovingTrimming(colorFillerMatrix, movingWindowSize, movingStepSize, tileSize, currentSourceSegmentationTilesFolder, sourceBandIndices);
+        IntSet currentTrimmingRegionKeys = computeMovingTrimming(colorFillerMatrix, movingWindowSize, movingStepSize, tileSize, currentFolderPathsResult, sourceBandIndices);
 
-        Path previousSourceSegmentationTilesFolder = previousFolderPathsResult.getTemporaryBandsFolder();
-        IntSet previousTrimmingRegionKeys = computeMovingTrimming(colorFillerMatrix, movingWindowSize, movingStepSize, tileSize, previousSourceSegmentationTilesFolder, sourceBandIndices);
+        IntSet previousTrimmingRegionKeys = computeMovingTrimming(colorFillerMatrix, movingWindowSize, movingStepSize, tileSize, previousFolderPathsResult, sourceBandIndices);
 
         // run union masks
         ProductData productData = computeUnionMask(currentTrimmingRegionKeys, previousTrimmingRegionKeys, colorFillerMatrix);
@@ -289,20 +302,23 @@ public class ForestCoverChangeOp extends Operator {
     }
 
     private IntSet computeMovingTrimming(IntMatrix colorFillerMatrix, Dimension movingWindowSize, Dimension movingStepSize, Dimension tileSize,
-                                       Path temporarySourceSegmentationTilesFolder, int[] sourceBandIndices)
+                                       FolderPathsResults folderPathsResult, int[] sourceBandIndices)
                                        throws Exception {
 
-        MovingWindowTileParallelComputing movingWindowTiles = new MovingWindowTileParallelComputing(colorFillerMatrix, movingWindowSize, movingStepSize, tileSize,
-                                                                                                temporarySourceSegmentationTilesFolder, sourceBandIndices, this.degreesOfFreedom);
+        MovingWindowTileParallelComputing movingWindowTiles;
+        if (folderPathsResult.getBandsTileStore() == null) {
+            movingWindowTiles = new MovingWindowTileParallelComputing(colorFillerMatrix, movingWindowSize, movingStepSize, tileSize,
+                                                                      folderPathsResult.getTemporaryBandsFolder(), sourceBandIndices, this.degreesOfFreedom);
+        } else {
+            movingWindowTiles = new MovingWindowTileParallelComputing(colorFillerMatrix, movingWindowSize, movingStepSize, tileSize,
+                                                                      folderPathsResult.getBandsTileStore(), sourceBandIndices, this.degreesOfFreedom);
+        }
         return movingWindowTiles.runTilesInParallel(this.threadCount, this.threadPool);
     }
 
     private IntMatrix computeColorFillerMatrix(Path temporaryParentFolder, FolderPathsResults currentFolderPathsResult, FolderPathsResults previousFolderPathsResult)
                                                throws Exception {
 
-        Path currentSourceSegmentationTilesFolder = currentFolderPathsResult.getTemporaryBandsFolder();
-        Path previousSourceSegmentationTilesFolder = previousFolderPathsResult.getTemporaryBandsFolder();
-
         Dimension tileSize = getPreferredTileSize();
 
         RegionMergingProcessingParameters processingParameters = new RegionMergingProcessingParameters(this.threadCount, this.threadPool, this.targetProduct.getSceneRasterWidth(),
@@ -311,7 +327,12 @@ public class ForestCoverChangeOp extends Operator {
         RegionMergingInputParameters inputParameters = new RegionMergingInputParameters(mergingCostCriterion, regionMergingCriterion,
                                                                                 totalIterationsForSecondSegmentation, threshold, spectralWeight, shapeWeight);
 
-        SegmentationSourceProductPair segmentationSourcePairs = new SegmentationSourceProductPair(currentSourceSegmentationTilesFolder, previousSourceSegmentationTilesFolder);
+        SegmentationSourceProductPair segmentationSourcePairs;
+        if (this.tileStore == null) {
+            segmentationSourcePairs = new SegmentationSourceProductPair(currentFolderPathsResult.getTemporaryBandsFolder(), previousFolderPathsResult.getTemporaryBandsFolder());
+        } else {
+            segmentationSourcePairs = new SegmentationSourceProductPair(currentFolderPathsResult.getBandsTileStore(), previousFolderPathsResult.getBandsTileStore());
+        }
 
         IntMatrix segmentationMatrix = GenericRegionMergingOp.computeSegmentation(processingParameters, inputParameters, segmentationSourcePairs, temporaryParentFolder);
 
@@ -323,11 +344,14 @@ public class ForestCoverChangeOp extends Operator {
 
         IntSet validRegionsWith95Percentage = computeObjectsSelection(segmentationMatrix, this.currentSourceProduct, this.forestCoverPercentage, tileSize);
 
-        Path currentMaskTilesFolder = currentFolderPathsResult.getTemporaryMaskFolder();
-        Path previousMaskTilesFolder = previousFolderPathsResult.getTemporaryMaskFolder();
-
-        ColorFillerTilesComputing tilesComputing = new ColorFillerTilesComputing(segmentationMatrix, validRegionsWith95Percentage, currentMaskTilesFolder,
-                                                                                 previousMaskTilesFolder, tileSize.width, tileSize.height);
+        ColorFillerTilesComputing tilesComputing;
+        if (this.tileStore == null) {
+            tilesComputing = new ColorFillerTilesComputing(segmentationMatrix, validRegionsWith95Percentage, currentFolderPathsResult.getTemporaryMaskFolder(),
+                                                           previousFolderPathsResult.getTemporaryMaskFolder(), tileSize.width, tileSize.height);
+        } else {
+            tilesComputing = new ColorFillerTilesComputing(segmentationMatrix, validRegionsWith95Percentage, tileSize.width, tileSize.height,
+                                                           currentFolderPathsResult.getMaskTileStore(), previousFolderPathsResult.getMaskTileStore());
+        }
 
         IntMatrix colorFillerMatrix = tilesComputing.runTilesInParallel(this.threadCount, this.threadPool);
 
@@ -391,7 +415,8 @@ public class ForestCoverChangeOp extends Operator {
         return landCoverProduct;
     }
 
-    private FolderPathsResults extractBands(Product sourceProduct, String[] sourceBandNames, Product externalMaskProduct, Path temporaryParentFolder) throws Exception {
+    private FolderPathsResults extractBands(Product sourceProduct, String[] sourceBandNames, Product externalMaskProduct, Path temporaryParentFolder,
+                                            String tileStoreName) throws Exception {
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, ""); // add an empty line
             logger.log(Level.FINE, "Extract "+sourceBandNames.length+" bands for source product '" + sourceProduct.getName()+"'");
@@ -401,15 +426,30 @@ public class ForestCoverChangeOp extends Operator {
 
         Dimension tileSize = getPreferredTileSize();
 
-        WriteProductBandsTilesComputing bandsTilesComputing = new WriteProductBandsTilesComputing(resampledSourceProduct, sourceBandNames, tileSize.width, tileSize.height, temporaryParentFolder);
+        OffHeapTileStore bandsTileStore = null;
+        OffHeapTileStore maskTileStore = null;
+        WriteProductBandsTilesComputing bandsTilesComputing;
+        if (this.tileStore == null) {
+            bandsTilesComputing = new WriteProductBandsTilesComputing(resampledSourceProduct, sourceBandNames, tileSize.width, tileSize.height, temporaryParentFolder);
+        } else {
+            bandsTileStore = this.tileStore.createSubStore(tileStoreName + "-bands");
+            bandsTilesComputing = new WriteProductBandsTilesComputing(resampledSourceProduct, sourceBandNames, tileSize.width, tileSize.height, bandsTileStore);
+        }
         Path temporaryFolder = bandsTilesComputing.runTilesInParallel(this.threadCount, this.threadPool);
 
         Path temporaryMaskFolder = null;
         if (externalMaskProduct == null) {
             if (isSentinelProduct(sourceProduct)) {
                 if(productContainsMasks(sourceProduct)) {
-                    WriteCombinedMasksTilesComputing writeMaskTilesComputing = new WriteCombinedMasksTilesComputing(resampledSourceProduct, ForestCoverChangeConstants.SENTINEL_MASK_NAMES,
-                            tileSize.width, tileSize.height, temporaryParentFolder);
+                    WriteCombinedMasksTilesComputing writeMaskTilesComputing;
+                    if (this.tileStore == null) {
+                        writeMaskTilesComputing = new WriteCombinedMasksTilesComputing(resampledSourceProduct, ForestCoverChangeConstants.SENTINEL_MASK_NAMES,
+                                tileSize.width, tileSize.height, temporaryParentFolder);
+                    } else {
+                        maskTileStore = this.tileStore.createSubStore(tileStoreName + "-masks");
+                        writeMaskTilesComputing = new WriteCombinedMasksTilesComputing(resampledSourceProduct, ForestCoverChangeConstants.SENTINEL_MASK_NAMES,
+                                tileSize.width, tileSize.height, maskTileStore);
+                    }
                     temporaryMaskFolder = writeMaskTilesComputing.runTilesInParallel(this.threadCount, this.threadPool);
                 }
             }
@@ -425,7 +465,13 @@ public class ForestCoverChangeOp extends Operator {
             Product resampledMaskProduct = resampleAllBands(externalMaskProduct, sourceProduct.getSceneRasterWidth(), sourceProduct.getSceneRasterHeight());
 
             Band band = resampledMaskProduct.getBandGroup().get(0);
-            WriteMaskTilesComputing writeMaskTilesComputing = new WriteMaskTilesComputing(band, tileSize.width, tileSize.height, temporaryParentFolder);
+            WriteMaskTilesComputing writeMaskTilesComputing;
+            if (this.tileStore == null) {
+                writeMaskTilesComputing = new WriteMaskTilesComputing(band, tileSize.width, tileSize.height, temporaryParentFolder);
+            } else {
+                maskTileStore = this.tileStore.createSubStore(tileStoreName + "-masks");
+                writeMaskTilesComputing = new WriteMaskTilesComputing(band, tileSize.width, tileSize.height, maskTileStore);
+            }
             temporaryMaskFolder = writeMaskTilesComputing.runTilesInParallel(this.threadCount, this.threadPool);
 
             // reset the references
@@ -435,7 +481,7 @@ public class ForestCoverChangeOp extends Operator {
             referenceResampleMaskProduct.clear();
         }
 
-        return new FolderPathsResults(temporaryFolder, temporaryMaskFolder);
+        return new FolderPathsResults(temporaryFolder, temporaryMaskFolder, bandsTileStore, maskTileStore);
     }
 
     private static boolean productContainsMasks(Product sourceProduct) {
@@ -563,10 +609,14 @@ public class ForestCoverChangeOp extends Operator {
     private static class FolderPathsResults {
         private final Path temporaryBandsFolder;
         private final Path temporaryMaskFolder;
+        private final OffHeapTileStore bandsTileStore;
+        private final OffHeapTileStore maskTileStore;
 
-        FolderPathsResults(Path temporaryBandsFolder, Path temporaryMaskFolder) {
+        FolderPathsResults(Path temporaryBandsFolder, Path temporaryMaskFolder, OffHeapTileStore bandsTileStore, OffHeapTileStore maskTileStore) {
             this.temporaryBandsFolder = temporaryBandsFolder;
             this.temporaryMaskFolder = temporaryMaskFolder;
+            this.bandsTileStore = bandsTileStore;
+            this.maskTileStore = maskTileStore;
         }
 
         public Path getTemporaryBandsFolder() {
@@ -576,6 +626,14 @@ public class ForestCoverChangeOp extends Operator {
         public Path getTemporaryMaskFolder() {
             return temporaryMaskFolder;
         }
+
+        public OffHeapTileStore getBandsTileStore() {
+            return bandsTileStore;
+        }
+
+        public OffHeapTileStore getMaskTileStore() {
+            return maskTileStore;
+        }
     }
 
     public static class Spi extends OperatorSpi {
@@ -3,10 +3,12 @@ package eu.esa.opt.fcc.common;
 import org.esa.snap.utils.AbstractImageTilesParallelComputing;
 import org.esa.snap.utils.BufferedInputStreamWrapper;
 import org.esa.snap.utils.BufferedOutputStreamWrapper;
+import org.esa.snap.utils.OffHeapTileStore;
 import org.esa.snap.utils.matrix.ByteMatrix;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.Executor;
@@ -21,12 +23,24 @@ public abstract class AbstractWriteMasksTilesComputing extends AbstractImageTile
     private static final Logger logger = Logger.getLogger(AbstractWriteMasksTilesComputing.class.getName());
 
     private final Path temporaryFolder;
+    private final OffHeapTileStore tileStore;
 
     public AbstractWriteMasksTilesComputing(int imageWidth, int imageHeight, int tileWidth, int tileHeight, Path temporaryParentFolder) throws IOException {
         super(imageWidth, imageHeight, tileWidth, tileHeight);
 
         String temporaryFolderName = "product-masks" + Long.toString(System.currentTimeMillis());
         this.temporaryFolder = Files.createDirectories(temporaryParentFolder.resolve(temporaryFolderName));
+        this.tileStore = null;
+    }
+
+    /**
+     * Writes the mask tiles into a tile store instead of a temporary folder.
+     */
+    public AbstractWriteMasksTilesComputing(int imageWidth, int imageHeight, int tileWidth, int tileHeight, OffHeapTileStore tileStore) {
+        super(imageWidth, imageHeight, tileWidth, tileHeight);
+
+        this.temporaryFolder = null;
+        this.tileStore = tileStore;
     }
 
     protected abstract boolean isValidMaskPixel(int x, int y);
@@ -40,6 +54,20 @@ public abstract class AbstractWriteMasksTilesComputing extends AbstractImageTile
             logger.log(Level.FINE, "Write mask values for tile region: row index: "+ localRowIndex+", column index: "+localColumnIndex+", bounds [x=" + tileLeftX+", y="+tileTopY+", width="+tileWidth+", height="+tileHeight+"]");
         }
 
+        if (this.tileStore != null) {
+            ByteBuffer content = ByteBuffer.allocate(tileWidth * tileHeight);
+            int tileBottomY = tileTopY + tileHeight;
+            int tileRightX = tileLeftX + tileWidth;
+            for (int y = tileTopY; y < tileBottomY; y++) {
+                for (int x = tileLeftX; x < tileRightX; x++) {
+                    content.put(isValidMaskPixel(x, y) ? (byte) 1 : (byte) 0);
+                }
+            }
+            content.flip();
+            this.tileStore.putTile(computeMaskTileName(tileLeftX, tileTopY, tileWidth, tileHeight), content);
+            return;
+        }
+
         File nodesFile = AbstractWriteMasksTilesComputing.computeMaskTilePath(this.temporaryFolder, tileLeftX, tileTopY, tileWidth, tileHeight).toFile();
 
         BufferedOutputStreamWrapper outputFileStream = null;
@@ -64,6 +92,10 @@ public abstract class AbstractWriteMasksTilesComputing extends AbstractImageTile
         }
     }
 
+    /**
+     * Writes the mask tiles and returns the temporary folder containing them, or <code>null</code> when the tiles are
+     * written into a tile store.
+     */
     public final Path runTilesInParallel(int threadCount, Executor threadPool) throws Exception {
         super.executeInParallel(threadCount, threadPool);
 
@@ -101,8 +133,25 @@ public abstract class AbstractWriteMasksTilesComputing extends AbstractImageTile
         }
     }
 
+    public static ByteMatrix readMaskTile(OffHeapTileStore tileStore, int tileLeftX, int tileTopY, int tileWidth, int tileHeight)
+            throws IOException {
+
+        ByteBuffer content = tileStore.getTile(computeMaskTileName(tileLeftX, tileTopY, tileWidth, tileHeight));
+
+        ByteMatrix maskTilePixels = new ByteMatrix(tileHeight, tileWidth);
+        for (int y = 0; y < tileHeight; y++) {
+            for (int x = 0; x < tileWidth; x++) {
+                maskTilePixels.setValueAt(y, x, (content.get() != 0) ? 1 : (byte)ForestCoverChangeConstants.NO_DATA_VALUE);
+            }
+        }
+        return maskTilePixels;
+    }
+
     public static Path computeMaskTilePath(Path parentFolderPath, int tileLeftX, int tileTopY, int tileWidth, int tileHeight) {
-        String tileFileName = "maskTile-"+ tileLeftX +"-"+tileTopY+"-"+tileWidth+"-"+tileHeight+".bin";
-        return parentFolderPath.resolve(tileFileName);
+        return parentFolderPath.resolve(computeMaskTileName(tileLeftX, tileTopY, tileWidth, tileHeight));
+    }
+
+    private static String computeMaskTileName(int tileLeftX, int tileTopY, int tileWidth, int tileHeight) {
+        return "maskTile-"+ tileLeftX +"-"+tileTopY+"-"+tileWidth+"-"+tileHeight+".bin";
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package eu.esa.opt.fcc.common;
 
 import org.esa.snap.core.datamodel.Mask;
 import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.utils.OffHeapTileStore;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -21,6 +22,13 @@ public class WriteCombinedMasksTilesComputing extends AbstractWriteMasksTilesCom
         this.maskNamesToCombine = maskNamesToCombine;
     }
 
+    public WriteCombinedMasksTilesComputing(Product product, String[] maskNamesToCombine, int tileWidth, int tileHeight, OffHeapTileStore tileStore) {
+        super(product.getSceneRasterWidth(), product.getSceneRasterHeight(), tileWidth, tileHeight, tileStore);
+
+        this.product = product;
+        this.maskNamesToCombine = maskNamesToCombine;
+    }
+
     @Override
     protected boolean isValidMaskPixel(int x, int y) {
         boolean isValidMaskPixel = false;
@@ -1,6 +1,7 @@
 package eu.esa.opt.fcc.common;
 
 import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.utils.OffHeapTileStore;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -18,6 +19,12 @@ public class WriteMaskTilesComputing extends AbstractWriteMasksTilesComputing {
         this.band = band;
     }
 
+    public WriteMaskTilesComputing(Band band, int tileWidth, int tileHeight, OffHeapTileStore tileStore) {
+        super(band.getRasterWidth(), band.getRasterHeight(), tileWidth, tileHeight, tileStore);
+
+        this.band = band;
+    }
+
     @Override
     protected boolean isValidMaskPixel(int x, int y) {
         return (this.band.getSampleInt(x, y) != ForestCoverChangeConstants.NO_DATA_VALUE);
@@ -0,0 +1,137 @@
+package eu.esa.opt.fcc.mahalanobis;
+
+/**
+ * Streaming mean and covariance of vectors, accumulated with the Welford algorithm in a single pass.
+ * <br>The covariance is inverted with the Cholesky decomposition, which costs O(n^3) operations for n variables
+ * and detects the singular matrices without computing any determinant.
+ *
+ * @since 14.0.0
+ */
+public class CovarianceStatistics {
+
+    // relative size of the smallest Cholesky pivot of an invertible covariance matrix
+    private static final double SINGULARITY_TOLERANCE = 1.0e-10;
+
+    private final int variableCount;
+    private final double[] mean;
+    private final double[] comoments;
+    private final double[] delta;
+    private long count;
+
+    public CovarianceStatistics(int variableCount) {
+        this.variableCount = variableCount;
+        this.mean = new double[variableCount];
+        this.comoments = new double[variableCount * variableCount];
+        this.delta = new double[variableCount];
+        this.count = 0;
+    }
+
+    /**
+     * Adds a vector to the statistics.
+     *
+     * @param values the values of the vector
+     * @param offset the index of the first variable of the vector in the values
+     */
+    public void add(float[] values, int offset) {
+        this.count++;
+        for (int i = 0; i < this.variableCount; i++) {
+            this.delta[i] = values[offset + i] - this.mean[i];
+            this.mean[i] += this.delta[i] / this.count;
+        }
+        for (int i = 0; i < this.variableCount; i++) {
+            // the second factor is the distance to the updated mean
+            double factor = values[offset + i] - this.mean[i];
+            for (int j = 0; j <= i; j++) {
+                this.comoments[i * this.variableCount + j] += this.delta[j] * factor;
+            }
+        }
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    public double[] getMean() {
+        return this.mean.clone();
+    }
+
+    /**
+     * Returns the sample covariance matrix, stored line by line.
+     */
+    public double[] getCovariance() {
+        double[] covariance = new double[this.variableCount * this.variableCount];
+        double factor = 1.0d / (this.count - 1);
+        for (int i = 0; i < this.variableCount; i++) {
+            for (int j = 0; j <= i; j++) {
+                double value = this.comoments[i * this.variableCount + j] * factor;
+                covariance[i * this.variableCount + j] = value;
+                covariance[j * this.variableCount + i] = value;
+            }
+        }
+        return covariance;
+    }
+
+    /**
+     * Returns the inverse of the sample covariance matrix, stored line by line, or <code>null</code> if the
+     * covariance matrix is singular.
+     */
+    public double[] computeInverseCovariance() {
+        if (this.count < 2) {
+            return null;
+        }
+        return invertPositiveDefinite(getCovariance(), this.variableCount);
+    }
+
+    /**
+     * Inverts a symmetric positive definite matrix with the Cholesky decomposition.
+     *
+     * @param matrix the matrix, stored line by line
+     * @param size   the number of lines of the matrix
+     * @return the inverse matrix, stored line by line, or <code>null</code> if the matrix is not positive definite
+     */
+    public static double[] invertPositiveDefinite(double[] matrix, int size) {
+        // decompose the matrix as L * L^T
+        double[] lower = new double[size * size];
+        for (int j = 0; j < size; j++) {
+            double pivot = matrix[j * size + j];
+            for (int k = 0; k < j; k++) {
+                pivot -= lower[j * size + k] * lower[j * size + k];
+            }
+            if (!(pivot > SINGULARITY_TOLERANCE * Math.abs(matrix[j * size + j]))) {
+                return null;
+            }
+            double diagonal = Math.sqrt(pivot);
+            lower[j * size + j] = diagonal;
+            for (int i = j + 1; i < size; i++) {
+                double value = matrix[i * size + j];
+                for (int k = 0; k < j; k++) {
+                    value -= lower[i * size + k] * lower[j * size + k];
+                }
+                lower[i * size + j] = value / diagonal;
+            }
+        }
+        // invert L in place, then compute the inverse matrix as L^-T * L^-1
+        for (int j = 0; j < size; j++) {
+            lower[j * size + j] = 1.0d / lower[j * size + j];
+            for (int i = j + 1; i < size; i++) {
+                double sum = 0.0d;
+                for (int k = j; k < i; k++) {
+                    sum -= lower[i * size + k] * lower[k * size + j];
+                }
+                lower[i * size + j] = sum / lower[i * size + i];
+            }
+        }
+        double[] inverse = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = 0.0d;
+                for (int k = i; k < size; k++) {
+                    sum += lower[k * size + i] * lower[k * size + j];
+                }
+                inverse[i * size + j] = sum;
+                inverse[j * size + i] = sum;
+            }
+        }
+        return inverse;
+    }
+}
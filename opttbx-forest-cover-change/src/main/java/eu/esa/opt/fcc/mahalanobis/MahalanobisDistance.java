@@ -3,11 +3,9 @@ package eu.esa.opt.fcc.mahalanobis;
 import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import eu.esa.opt.fcc.trimming.PixelSourceBands;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import org.esa.snap.utils.AbstractArrayCellsParallelComputing;
-import org.esa.snap.utils.AbstractMatrixCellsParallelComputing;
 
-import java.io.IOException;
-import java.lang.ref.WeakReference;
 import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -18,6 +16,9 @@ import java.util.logging.Logger;
 public class MahalanobisDistance {
     private static final Logger logger = Logger.getLogger(MahalanobisDistance.class.getName());
 
+    // the mean values of the B4, B8 and B11 bands and the standard deviation of the B8 band
+    private static final int VARIABLE_COUNT = 4;
+
     public static Int2ObjectMap<PixelSourceBands> computeValidRegionsInParallel(int threadCount, Executor threadPool,
                                                                      Int2ObjectMap<PixelSourceBands> validRegionStatistics, double cumulativeProbability)
                                                                      throws Exception {
@@ -27,9 +28,28 @@ public class MahalanobisDistance {
             logger.log(Level.FINE, "Start computing the Mahalanobis distance: valid region count: " + validRegionStatistics.size() + ", Chi distribution: "+cumulativeProbability+ ", thread count: " + threadCount);
         }
 
-        TrimmingStatisticsMatrix trimmingStatisticsMatrix = new TrimmingStatisticsMatrix(validRegionStatistics);
+        int regionCount = validRegionStatistics.size();
+        int[] regionKeys = new int[regionCount];
+        PixelSourceBands[] regionPixels = new PixelSourceBands[regionCount];
+        float[] regionValues = new float[regionCount * VARIABLE_COUNT];
+        CovarianceStatistics covarianceStatistics = new CovarianceStatistics(VARIABLE_COUNT);
+        int index = 0;
+        ObjectIterator<Int2ObjectMap.Entry<PixelSourceBands>> it = validRegionStatistics.int2ObjectEntrySet().iterator();
+        while (it.hasNext()) {
+            Int2ObjectMap.Entry<PixelSourceBands> entry = it.next();
+            PixelSourceBands point = entry.getValue();
+            int offset = index * VARIABLE_COUNT;
+            regionKeys[index] = entry.getIntKey();
+            regionPixels[index] = point;
+            regionValues[offset] = point.getMeanValueB4Band();
+            regionValues[offset + 1] = point.getMeanValueB8Band();
+            regionValues[offset + 2] = point.getMeanValueB11Band();
+            regionValues[offset + 3] = point.getStandardDeviationValueB8Band();
+            covarianceStatistics.add(regionValues, offset);
+            index++;
+        }
 
-        Matrix inverseMatrix = computeInverseMatrix(threadCount, threadPool, trimmingStatisticsMatrix);
+        double[] inverseMatrix = covarianceStatistics.computeInverseCovariance();
         Int2ObjectMap<PixelSourceBands> result = null;
         if (inverseMatrix == null) {
             if (logger.isLoggable(Level.FINE)) {
@@ -37,111 +57,72 @@ public class MahalanobisDistance {
                 logger.log(Level.FINE, "Finish computing the Mahalanobis distance: valid region count: " + validRegionStatistics.size() + ", removed region count: "+0+", Chi distribution: "+cumulativeProbability+ ", thread count: " + threadCount+", no inverse matrix");
             }
         } else {
-            MahalanobisDistanceHelper mahalanobisDistanceHelper = new MahalanobisDistanceHelper(trimmingStatisticsMatrix, inverseMatrix, cumulativeProbability);
-            result = mahalanobisDistanceHelper.computeCellsInParallel(threadCount, threadPool);
+            MahalanobisDistanceHelper mahalanobisDistanceHelper = new MahalanobisDistanceHelper(regionValues, covarianceStatistics.getMean(), inverseMatrix, cumulativeProbability);
+            boolean[] validRegions = mahalanobisDistanceHelper.computeCellsInParallel(threadCount, threadPool);
+
+            // keep the valid regions in the order of the input regions
+            result = new Int2ObjectLinkedOpenHashMap<PixelSourceBands>();
+            for (int i = 0; i < regionCount; i++) {
+                if (validRegions[i]) {
+                    result.put(regionKeys[i], regionPixels[i]);
+                }
+            }
 
             if (logger.isLoggable(Level.FINE)) {
                 int removedRegionCount = validRegionStatistics.size() - result.size();
                 logger.log(Level.FINE, ""); // add an empty line
                 logger.log(Level.FINE, "Finish computing the Mahalanobis distance: valid region count: " + result.size() + ", removed region count: "+removedRegionCount+ ", Chi distribution: "+cumulativeProbability+ ", thread count: " + threadCount);
             }
-
-            WeakReference<Matrix> reference = new WeakReference<Matrix>(inverseMatrix);
-            reference.clear();
         }
 
-        WeakReference<TrimmingStatisticsMatrix> reference = new WeakReference<TrimmingStatisticsMatrix>(trimmingStatisticsMatrix);
-        reference.clear();
-
         return result;
     }
 
-    private static Matrix computeInverseMatrix(int threadCount, Executor threadPool, Matrix matrix) throws Exception {
-        TransposeMatrix transposeMatrix = new TransposeMatrix(matrix);
-        MultiplyMatrix quadraticMatrix = new MultiplyMatrix(transposeMatrix, matrix);
-        float value = 1.0f / (float)(matrix.getRowCount() - 1);
-        MultiplyByConstantMatrix covarianceMatrix = new MultiplyByConstantMatrix(quadraticMatrix, value);
-
-        float matrixDeterminant = covarianceMatrix.computeDeterminant();
-        if (matrixDeterminant == 0.0f) {
-            return null;
-        }
-        CofactorMatrix cofactorMatrix = new CofactorMatrix(covarianceMatrix);
-        TransposeMatrix transposeCofactorMatrix = new TransposeMatrix(cofactorMatrix);
-        float constant = 1.0f / matrixDeterminant;
-        Matrix result = new MultiplyByConstantMatrix(transposeCofactorMatrix, constant);
-
-        StorageMatrixHelper storageMatrixHelper = new StorageMatrixHelper(result);
-        return storageMatrixHelper.computeMatrixCellsInParallel(threadCount, threadPool);
-    }
-
-    private static class StorageMatrixHelper extends AbstractMatrixCellsParallelComputing {
-        private final Matrix inputMatrix;
-        private final StorageMatrix storageMatrix;
-
-        StorageMatrixHelper(Matrix inputMatrix) {
-            super(inputMatrix.getRowCount(), inputMatrix.getColumnCount());
-
-            this.inputMatrix = inputMatrix;
-            this.storageMatrix = new StorageMatrix(this.inputMatrix.getRowCount(), this.inputMatrix.getColumnCount());
-        }
-
-        @Override
-        protected final void runTile(int localRowIndex, int localColumnIndex) throws IOException, IllegalAccessException, InterruptedException {
-            float cellValue = this.inputMatrix.getValueAt(localRowIndex, localColumnIndex);
-            this.storageMatrix.setValueAt(localRowIndex, localColumnIndex, cellValue);
-        }
-
-        StorageMatrix computeMatrixCellsInParallel(int threadCount, Executor threadPool) throws Exception {
-            super.executeInParallel(threadCount, threadPool);
-
-            return this.storageMatrix;
-        }
-    }
-
     private static class MahalanobisDistanceHelper extends AbstractArrayCellsParallelComputing {
-        private final TrimmingStatisticsMatrix trimmingStatisticsMatrix;
-        private final MultiplyMatrix squaredMahalanobisMatrix;
-        private final Int2ObjectMap<PixelSourceBands> validStatistics;
+        private final float[] regionValues;
+        private final double[] meanValues;
+        private final double[] inverseMatrix;
         private final double cumulativeProbability;
+        private final boolean[] validRegions;
 
-        MahalanobisDistanceHelper(TrimmingStatisticsMatrix trimmingStatisticsMatrix, Matrix inverseMatrix, double cumulativeProbability) {
-            super(trimmingStatisticsMatrix.getRowCount());
-
-            MultiplyMatrix resultMatrix = new MultiplyMatrix(trimmingStatisticsMatrix, inverseMatrix);
-            TransposeMatrix transposeMatrix = new TransposeMatrix(trimmingStatisticsMatrix);
-            this.squaredMahalanobisMatrix = new MultiplyMatrix(resultMatrix, transposeMatrix);
-            if (this.squaredMahalanobisMatrix.getRowCount() != trimmingStatisticsMatrix.getRowCount()) {
-                throw new IllegalArgumentException("Wrong size");
-            }
-            if (!this.squaredMahalanobisMatrix.isSquare()) {
-                throw new IllegalArgumentException("The Mahalanobis matrix is not a squared matrix.");
-            }
+        MahalanobisDistanceHelper(float[] regionValues, double[] meanValues, double[] inverseMatrix, double cumulativeProbability) {
+            super(regionValues.length / VARIABLE_COUNT);
 
-            this.trimmingStatisticsMatrix = trimmingStatisticsMatrix;
+            this.regionValues = regionValues;
+            this.meanValues = meanValues;
+            this.inverseMatrix = inverseMatrix;
             this.cumulativeProbability = cumulativeProbability;
-            this.validStatistics = new Int2ObjectLinkedOpenHashMap<PixelSourceBands>();
+            this.validRegions = new boolean[regionValues.length / VARIABLE_COUNT];
         }
 
         @Override
         protected void computeCell(int localIndex) {
-            float squareDistance = this.squaredMahalanobisMatrix.getValueAt(localIndex, localIndex);
-            if (Math.sqrt(squareDistance) <= this.cumulativeProbability) {
-                synchronized (this.validStatistics) {
-                    this.validStatistics.put(this.trimmingStatisticsMatrix.getRegionKeyAt(localIndex), this.trimmingStatisticsMatrix.getRegionMeanPixelsAt(localIndex));
+            double[] difference = new double[VARIABLE_COUNT];
+            int offset = localIndex * VARIABLE_COUNT;
+            for (int i = 0; i < VARIABLE_COUNT; i++) {
+                difference[i] = this.regionValues[offset + i] - this.meanValues[i];
+            }
+            double squareDistance = 0.0d;
+            for (int i = 0; i < VARIABLE_COUNT; i++) {
+                double value = 0.0d;
+                for (int j = 0; j < VARIABLE_COUNT; j++) {
+                    value += this.inverseMatrix[i * VARIABLE_COUNT + j] * difference[j];
                 }
+                squareDistance += difference[i] * value;
             }
+            // each thread writes distinct cells, the array is read after all the threads have finished
+            this.validRegions[localIndex] = (Math.sqrt(squareDistance) <= this.cumulativeProbability);
 
             if (localIndex % 1000 == 0 && logger.isLoggable(Level.FINER)) {
                 logger.log(Level.FINER, ""); // add an empty line
-                logger.log(Level.FINER, "Mahalanobis distance computation: index: "+localIndex+", total regions: "+this.trimmingStatisticsMatrix.getRowCount()+", distance: " +Math.sqrt(squareDistance)+", chi distribution: "+this.cumulativeProbability);
+                logger.log(Level.FINER, "Mahalanobis distance computation: index: "+localIndex+", total regions: "+this.validRegions.length+", distance: " +Math.sqrt(squareDistance)+", chi distribution: "+this.cumulativeProbability);
             }
         }
 
-        public Int2ObjectMap<PixelSourceBands> computeCellsInParallel(int threadCount, Executor threadPool) throws Exception {
+        public boolean[] computeCellsInParallel(int threadCount, Executor threadPool) throws Exception {
             super.executeInParallel(threadCount, threadPool);
 
-            return this.validStatistics;
+            return this.validRegions;
         }
     }
 }
@@ -1,56 +1,49 @@
 package eu.esa.opt.fcc.trimming;
 
-import it.unimi.dsi.fastutil.floats.FloatArrayList;
-
 /**
  * @author Razvan Dumitrascu
  * @since 5.0.6
  */
 
 public class AveragePixelsSourceBands {
-    //list containing the values used to compute standard deviation
-    private final FloatArrayList standardDeviationPixelValues;
-
-    private float sumValueB4Band;
-    private float sumValueB8Band;
-    private float sumValueB11Band;
+    private int pixelCount;
+    private double sumValueB4Band;
+    private double sumValueB11Band;
+    // the mean and the sum of the squared deviations of the B8 band, updated with the Welford algorithm
+    private double meanValueB8Band;
+    private double squaredDeviationsB8Band;
 
     public AveragePixelsSourceBands() {
-        this.standardDeviationPixelValues = new FloatArrayList();
-        this.sumValueB4Band = 0.0f;
-        this.sumValueB8Band = 0.0f;
-        this.sumValueB11Band = 0.0f;
+        this.pixelCount = 0;
+        this.sumValueB4Band = 0.0d;
+        this.sumValueB11Band = 0.0d;
+        this.meanValueB8Band = 0.0d;
+        this.squaredDeviationsB8Band = 0.0d;
     }
 
     public void addPixelValuesBands(float valueB4Band, float valueB8Band, float valueB11Band){
+        this.pixelCount++;
         this.sumValueB4Band += valueB4Band;
-        this.sumValueB8Band += valueB8Band;
         this.sumValueB11Band += valueB11Band;
-        this.standardDeviationPixelValues.add(valueB8Band);
+        double delta = valueB8Band - this.meanValueB8Band;
+        this.meanValueB8Band += delta / this.pixelCount;
+        this.squaredDeviationsB8Band += delta * (valueB8Band - this.meanValueB8Band);
     }
 
     public float getMeanValueB4Band(){
-        return this.sumValueB4Band/(float)standardDeviationPixelValues.size();
+        return (float)(this.sumValueB4Band / this.pixelCount);
     }
 
     public float getMeanValueB8Band(){
-        return this.sumValueB8Band/(float)standardDeviationPixelValues.size();
+        return (float)this.meanValueB8Band;
     }
 
     public float getMeanValueB11Band(){
-        return this.sumValueB11Band/(float)standardDeviationPixelValues.size();
+        return (float)(this.sumValueB11Band / this.pixelCount);
     }
 
     public float getMeanStandardDeviationB8Band(){
-        // compute the standard deviation
-        float averageStandardDeviationB8PixelValue = getMeanValueB8Band();
-        float sum = 0.0f;
-        for (float pixelValue : standardDeviationPixelValues) {
-            float value = pixelValue - averageStandardDeviationB8PixelValue;
-            sum += Math.pow((value), 2);
-        }
-        float average = sum / (float)standardDeviationPixelValues.size();
-        return (float)Math.sqrt(average);
+        return (float)Math.sqrt(this.squaredDeviationsB8Band / this.pixelCount);
     }
 
 }
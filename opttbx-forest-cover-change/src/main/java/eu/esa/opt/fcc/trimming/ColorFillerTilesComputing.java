@@ -4,6 +4,7 @@ import eu.esa.opt.fcc.common.AbstractWriteMasksTilesComputing;
 import eu.esa.opt.fcc.common.ForestCoverChangeConstants;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import org.esa.snap.utils.AbstractImageTilesParallelComputing;
+import org.esa.snap.utils.OffHeapTileStore;
 import org.esa.snap.utils.matrix.ByteMatrix;
 import org.esa.snap.utils.matrix.IntMatrix;
 
@@ -25,16 +26,35 @@ public class ColorFillerTilesComputing extends AbstractImageTilesParallelComputi
     private final IntMatrix result;
     private final Path currentMaskTilesFolder;
     private final Path previousMaskTilesFolder;
+    private final OffHeapTileStore currentMaskTileStore;
+    private final OffHeapTileStore previousMaskTileStore;
 
     public ColorFillerTilesComputing(IntMatrix segmentationMatrix, IntSet validRegions, Path currentMaskTilesFolder,
                                      Path previousMaskTilesFolder, int tileWidth, int tileHeight) {
 
+        this(segmentationMatrix, validRegions, currentMaskTilesFolder, previousMaskTilesFolder, null, null, tileWidth, tileHeight);
+    }
+
+    /**
+     * Reads the mask tiles from tile stores instead of temporary folders; a <code>null</code> store means no mask.
+     */
+    public ColorFillerTilesComputing(IntMatrix segmentationMatrix, IntSet validRegions, int tileWidth, int tileHeight,
+                                     OffHeapTileStore currentMaskTileStore, OffHeapTileStore previousMaskTileStore) {
+
+        this(segmentationMatrix, validRegions, null, null, currentMaskTileStore, previousMaskTileStore, tileWidth, tileHeight);
+    }
+
+    private ColorFillerTilesComputing(IntMatrix segmentationMatrix, IntSet validRegions, Path currentMaskTilesFolder, Path previousMaskTilesFolder,
+                                      OffHeapTileStore currentMaskTileStore, OffHeapTileStore previousMaskTileStore, int tileWidth, int tileHeight) {
+
         super(segmentationMatrix.getColumnCount(), segmentationMatrix.getRowCount(), tileWidth, tileHeight);
 
         this.segmentationMatrix = segmentationMatrix;
         this.validRegions = validRegions;
         this.currentMaskTilesFolder = currentMaskTilesFolder;
         this.previousMaskTilesFolder = previousMaskTilesFolder;
+        this.currentMaskTileStore = currentMaskTileStore;
+        this.previousMaskTileStore = previousMaskTileStore;
 
         int sceneWidth = this.segmentationMatrix.getColumnCount();
         int sceneHeight = this.segmentationMatrix.getRowCount();
@@ -53,10 +73,14 @@ public class ColorFillerTilesComputing extends AbstractImageTilesParallelComputi
         ByteMatrix currentMaskTilePixels = null;
         if (this.currentMaskTilesFolder != null) {
             currentMaskTilePixels = AbstractWriteMasksTilesComputing.readMaskTile(this.currentMaskTilesFolder, tileLeftX, tileTopY, tileWidth, tileHeight);
+        } else if (this.currentMaskTileStore != null) {
+            currentMaskTilePixels = AbstractWriteMasksTilesComputing.readMaskTile(this.currentMaskTileStore, tileLeftX, tileTopY, tileWidth, tileHeight);
         }
         ByteMatrix previousMaskTilePixels = null;
         if (this.previousMaskTilesFolder != null) {
             previousMaskTilePixels = AbstractWriteMasksTilesComputing.readMaskTile(this.previousMaskTilesFolder, tileLeftX, tileTopY, tileWidth, tileHeight);
+        } else if (this.previousMaskTileStore != null) {
+            previousMaskTilePixels = AbstractWriteMasksTilesComputing.readMaskTile(this.previousMaskTileStore, tileLeftX, tileTopY, tileWidth, tileHeight);
         }
 
         int tileBottomY = tileTopY + tileHeight;
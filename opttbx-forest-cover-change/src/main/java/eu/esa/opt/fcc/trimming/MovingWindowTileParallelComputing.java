@@ -8,6 +8,7 @@ import eu.esa.opt.grm.segmentation.tiles.AbstractTileSegmenter;
 import eu.esa.opt.grm.segmentation.tiles.ProcessingTile;
 import eu.esa.opt.grm.segmentation.tiles.SegmentationSourceProductPair;
 import org.esa.snap.utils.AbstractParallelComputing;
+import org.esa.snap.utils.OffHeapTileStore;
 import org.esa.snap.utils.matrix.IntMatrix;
 
 import java.awt.Dimension;
@@ -28,6 +29,7 @@ public class MovingWindowTileParallelComputing extends AbstractParallelComputing
     private final IntMatrix colorFillerMatrix;
     private final int segmentationTileMargin;
     private final Path temporarySourceSegmentationTilesFolder;
+    private final OffHeapTileStore sourceSegmentationTileStore;
     private final int[] sourceBandIndices;
     private final MajorityVotingValidSegments majorityVotingValidSegments;
     private final Dimension movingStepSize;
@@ -41,12 +43,30 @@ public class MovingWindowTileParallelComputing extends AbstractParallelComputing
     public MovingWindowTileParallelComputing(IntMatrix colorFillerMatrix, Dimension movingWindowSize, Dimension movingStepSize, Dimension tileSize,
                                              Path temporarySourceSegmentationTilesFolder, int[] sourceBandIndices, double degreesOfFreedom) {
 
+        this(colorFillerMatrix, movingWindowSize, movingStepSize, tileSize, temporarySourceSegmentationTilesFolder, null, sourceBandIndices, degreesOfFreedom);
+    }
+
+    /**
+     * Reads the source tiles from the tile store filled by <code>WriteProductBandsTilesComputing</code> instead of a
+     * temporary folder.
+     */
+    public MovingWindowTileParallelComputing(IntMatrix colorFillerMatrix, Dimension movingWindowSize, Dimension movingStepSize, Dimension tileSize,
+                                             OffHeapTileStore sourceSegmentationTileStore, int[] sourceBandIndices, double degreesOfFreedom) {
+
+        this(colorFillerMatrix, movingWindowSize, movingStepSize, tileSize, null, sourceSegmentationTileStore, sourceBandIndices, degreesOfFreedom);
+    }
+
+    private MovingWindowTileParallelComputing(IntMatrix colorFillerMatrix, Dimension movingWindowSize, Dimension movingStepSize, Dimension tileSize,
+                                              Path temporarySourceSegmentationTilesFolder, OffHeapTileStore sourceSegmentationTileStore,
+                                              int[] sourceBandIndices, double degreesOfFreedom) {
+
         this.colorFillerMatrix = colorFillerMatrix;
         this.movingWindowSize = movingWindowSize;
         this.movingStepSize = movingStepSize;
         this.tileSize = tileSize;
 
         this.temporarySourceSegmentationTilesFolder = temporarySourceSegmentationTilesFolder;
+        this.sourceSegmentationTileStore = sourceSegmentationTileStore;
         this.sourceBandIndices = sourceBandIndices;
 
         this.degreesOfFreedom = degreesOfFreedom;
@@ -140,7 +160,11 @@ public class MovingWindowTileParallelComputing extends AbstractParallelComputing
                     if (inputDataSource == null) {
                         ProcessingTile segmentationProcessingTile = AbstractTileSegmenter.buildTile(localTileLeftX, localTileTopY, localTileWidth, localTileHeight, this.segmentationTileMargin, imageWidth, imageHeight);
                         BoundingBox segmentationTileBounds = segmentationProcessingTile.getRegion();
-                        inputDataSource = SegmentationSourceProductPair.buildSourceTiles(segmentationTileBounds, this.temporarySourceSegmentationTilesFolder);
+                        if (this.sourceSegmentationTileStore == null) {
+                            inputDataSource = SegmentationSourceProductPair.buildSourceTiles(segmentationTileBounds, this.temporarySourceSegmentationTilesFolder);
+                        } else {
+                            inputDataSource = SegmentationSourceProductPair.buildSourceTiles(segmentationTileBounds, this.sourceSegmentationTileStore);
+                        }
                         inputProductBandsMap.put(mapKey, inputDataSource);
                     }
 
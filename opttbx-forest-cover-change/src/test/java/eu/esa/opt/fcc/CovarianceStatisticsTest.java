@@ -0,0 +1,82 @@
+package eu.esa.opt.fcc;
+
+import eu.esa.opt.fcc.mahalanobis.CovarianceStatistics;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CovarianceStatisticsTest {
+
+    @Test
+    public void testMeanAndCovariance() {
+        float[] values = new float[] {
+                1.0f, 2.0f,
+                3.0f, 1.0f,
+                2.0f, 5.0f,
+                6.0f, 4.0f
+        };
+        CovarianceStatistics statistics = new CovarianceStatistics(2);
+        for (int offset = 0; offset < values.length; offset += 2) {
+            statistics.add(values, offset);
+        }
+
+        assertEquals(4, statistics.getCount());
+        double[] mean = statistics.getMean();
+        assertEquals(3.0d, mean[0], 1.0e-12);
+        assertEquals(3.0d, mean[1], 1.0e-12);
+
+        double[] covariance = statistics.getCovariance();
+        assertEquals(14.0d / 3.0d, covariance[0], 1.0e-12);
+        assertEquals(1.0d, covariance[1], 1.0e-12);
+        assertEquals(1.0d, covariance[2], 1.0e-12);
+        assertEquals(10.0d / 3.0d, covariance[3], 1.0e-12);
+    }
+
+    @Test
+    public void testInverseCovariance() {
+        float[] values = new float[] {
+                1.0f, 2.0f, 0.5f,
+                3.0f, 1.0f, 0.0f,
+                2.0f, 5.0f, 1.5f,
+                6.0f, 4.0f, 2.0f,
+                4.0f, 0.0f, 3.5f
+        };
+        CovarianceStatistics statistics = new CovarianceStatistics(3);
+        for (int offset = 0; offset < values.length; offset += 3) {
+            statistics.add(values, offset);
+        }
+
+        double[] covariance = statistics.getCovariance();
+        double[] inverse = statistics.computeInverseCovariance();
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                double value = 0.0d;
+                for (int k = 0; k < 3; k++) {
+                    value += covariance[i * 3 + k] * inverse[k * 3 + j];
+                }
+                assertEquals((i == j) ? 1.0d : 0.0d, value, 1.0e-10);
+            }
+        }
+    }
+
+    @Test
+    public void testSingularCovariance() {
+        // the third variable is the sum of the first two
+        float[] values = new float[] {
+                1.0f, 2.0f, 3.0f,
+                3.0f, 1.0f, 4.0f,
+                2.0f, 5.0f, 7.0f,
+                6.0f, 4.0f, 10.0f
+        };
+        CovarianceStatistics statistics = new CovarianceStatistics(3);
+        for (int offset = 0; offset < values.length; offset += 3) {
+            statistics.add(values, offset);
+        }
+        assertNull(statistics.computeInverseCovariance());
+
+        CovarianceStatistics singleVector = new CovarianceStatistics(3);
+        singleVector.add(values, 0);
+        assertNull(singleVector.computeInverseCovariance());
+    }
+}
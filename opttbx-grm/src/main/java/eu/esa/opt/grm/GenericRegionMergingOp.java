@@ -26,6 +26,7 @@ import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.core.util.math.MathUtils;
+import org.esa.snap.utils.SharedExecutor;
 import org.esa.snap.utils.matrix.IntMatrix;
 
 import javax.media.jai.JAI;
@@ -37,8 +38,7 @@ import java.nio.file.Paths;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -92,6 +92,9 @@ public class GenericRegionMergingOp extends Operator {
     @Parameter(defaultValue = DEFAULT_SHAPE_WEIGHT, label = "Shape weight", description = "The shape weight.")
     protected float shapeWeight;
 
+    @Parameter(defaultValue = "false", label = "Primitive graph", description = "Perform the first segmentation of each tile on a compact graph of primitive arrays, which needs less memory and time.")
+    protected boolean primitiveGraph;
+
     @SourceProduct(alias = "source", description = "The source product.")
     private Product sourceProduct;
 
@@ -111,7 +114,7 @@ public class GenericRegionMergingOp extends Operator {
     private AbstractSegmenter segmenter;
     private ProductData grmData = null;
 
-    private ExecutorService threadPool;
+    private Executor threadPool;
 
     public GenericRegionMergingOp() {
     }
@@ -341,9 +344,6 @@ public class GenericRegionMergingOp extends Operator {
         WeakReference<OutputMarkerMatrixHelper> referenceMarkerMatrix = new WeakReference<OutputMarkerMatrixHelper>(outputMarkerMatrix);
         referenceMarkerMatrix.clear();
 
-        // there is a waiting time of approx 60 sec after the processing, until the operator execution is finished, due to this threadPool
-        threadPool.shutdownNow();
-
         if (logger.isLoggable(Level.FINE)) {
             int imageWidth = tileSegmenter.getImageWidth();
             int imageHeight = tileSegmenter.getImageHeight();
@@ -375,7 +375,7 @@ public class GenericRegionMergingOp extends Operator {
         this.totalTileCount = tileCountX * tileCountY;
 
         int threadCount = Runtime.getRuntime().availableProcessors() - 1;
-        threadPool = Executors.newCachedThreadPool();
+        threadPool = SharedExecutor.getComputeExecutor();
 
         String folderPath = System.getProperty("grm.temp.folder.path");
         if (folderPath == null) {
@@ -387,7 +387,7 @@ public class GenericRegionMergingOp extends Operator {
                 tileSize.width, tileSize.height);
 
         RegionMergingInputParameters inputParameters = new RegionMergingInputParameters(mergingCostCriterion, regionMergingCriterion, totalIterationsForSecondSegmentation,
-                threshold, spectralWeight, shapeWeight);
+                threshold, spectralWeight, shapeWeight, primitiveGraph);
 
         try {
             this.tileSegmenter = buildTileSegmenter(processingParameters, inputParameters, temporaryParentFolder);
@@ -433,6 +433,7 @@ public class GenericRegionMergingOp extends Operator {
         } else {
             throw new IllegalArgumentException("Unknown merging cost criterion '" + inputParameters.getMergingCostCriterion() + "'.");
         }
+        tileSegmenter.setPrimitiveGraph(inputParameters.isPrimitiveGraph());
         return tileSegmenter;
     }
 
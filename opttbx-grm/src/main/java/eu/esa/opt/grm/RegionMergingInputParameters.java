@@ -10,16 +10,24 @@ public class RegionMergingInputParameters {
     private float threshold;
     private float spectralWeight;
     private float shapeWeight;
+    private boolean primitiveGraph;
 
     public RegionMergingInputParameters(String mergingCostCriterion, String regionMergingCriterion, int totalIterationsForSecondSegmentation,
                                         float threshold, float spectralWeight, float shapeWeight) {
 
+        this(mergingCostCriterion, regionMergingCriterion, totalIterationsForSecondSegmentation, threshold, spectralWeight, shapeWeight, false);
+    }
+
+    public RegionMergingInputParameters(String mergingCostCriterion, String regionMergingCriterion, int totalIterationsForSecondSegmentation,
+                                        float threshold, float spectralWeight, float shapeWeight, boolean primitiveGraph) {
+
         this.mergingCostCriterion = mergingCostCriterion;
         this.regionMergingCriterion = regionMergingCriterion;
         this.totalIterationsForSecondSegmentation = totalIterationsForSecondSegmentation;
         this.threshold = threshold;
         this.spectralWeight = spectralWeight;
         this.shapeWeight = shapeWeight;
+        this.primitiveGraph = primitiveGraph;
     }
 
     public String getMergingCostCriterion() {
@@ -45,4 +53,8 @@ public class RegionMergingInputParameters {
     public float getShapeWeight() {
         return shapeWeight;
     }
+
+    public boolean isPrimitiveGraph() {
+        return primitiveGraph;
+    }
 }
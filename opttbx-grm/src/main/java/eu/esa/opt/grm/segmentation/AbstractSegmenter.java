@@ -25,14 +25,47 @@ public abstract class AbstractSegmenter {
 
     protected abstract Node buildNode(int id, int upperLeftX, int upperLeftY, int numberOfComponentsPerPixel);
 
+    /**
+     * Creates the graph of primitive arrays used by the segmentation when the primitive graph is selected.
+     */
+    protected abstract PrimitiveGraph buildPrimitiveGraph(int width, int height, int numberOfComponentsPerPixel);
+
     public final boolean update(TileDataSource[] sourceTiles, BoundingBox rectange, int numberOfIterations, boolean fastSegmentation, boolean addFourNeighbors) {
-        initNodes(sourceTiles, rectange, addFourNeighbors);
+        return update(sourceTiles, rectange, numberOfIterations, fastSegmentation, addFourNeighbors, false);
+    }
+
+    /**
+     * Segments the rectangle of the source tiles.
+     *
+     * @param primitiveGraph if {@code true} the iterations are performed on a {@link PrimitiveGraph} and the
+     *                       remaining nodes are converted to objects afterwards, which produces the same graph
+     *                       using much less memory
+     * @return {@code true} if no more nodes can be merged
+     */
+    public final boolean update(TileDataSource[] sourceTiles, BoundingBox rectange, int numberOfIterations, boolean fastSegmentation,
+                                boolean addFourNeighbors, boolean primitiveGraph) {
 
         boolean merged;
-        if (fastSegmentation) {
-            merged = performAllIterationsWithBestFitting(numberOfIterations);
+        if (primitiveGraph) {
+            this.imageWidth = rectange.getWidth();
+            this.imageHeight = rectange.getHeight();
+
+            PrimitiveGraph nodes = buildPrimitiveGraph(this.imageWidth, this.imageHeight, sourceTiles.length);
+            nodes.initNodes(sourceTiles, rectange, addFourNeighbors);
+            if (fastSegmentation) {
+                merged = nodes.performAllIterationsWithBestFitting(numberOfIterations);
+            } else {
+                merged = nodes.performAllIterationsWithLMBF(numberOfIterations);
+            }
+            this.graph = nodes.buildGraph();
         } else {
-            merged = performAllIterationsWithLMBF(numberOfIterations);
+            initNodes(sourceTiles, rectange, addFourNeighbors);
+
+            if (fastSegmentation) {
+                merged = performAllIterationsWithBestFitting(numberOfIterations);
+            } else {
+                merged = performAllIterationsWithLMBF(numberOfIterations);
+            }
         }
 
         return !merged;
@@ -3,6 +3,8 @@ package eu.esa.opt.grm.segmentation;
 import eu.esa.opt.grm.segmentation.tiles.ProcessingTile;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,15 +15,18 @@ abstract class AbstractTileGraphNodesHelper<ResultType> {
     protected final Graph graph;
     protected final ProcessingTile tile;
 
-    private int threadCounter;
-    private int graphNodesCounter;
+    private final AtomicInteger runningThreads;
+    private final AtomicInteger graphNodesCounter;
+    private final Object finishLock;
+    private volatile boolean finished;
 
     protected AbstractTileGraphNodesHelper(Graph graph, ProcessingTile tile) {
         this.graph = graph;
         this.tile = tile;
 
-        this.threadCounter = 0;
-        this.graphNodesCounter = 0;
+        this.runningThreads = new AtomicInteger();
+        this.graphNodesCounter = new AtomicInteger();
+        this.finishLock = new Object();
     }
 
     protected abstract void processNode(Node node);
@@ -38,40 +43,51 @@ abstract class AbstractTileGraphNodesHelper<ResultType> {
         return finishProcesssing();
     }
 
-    private synchronized void incrementThreadCounter() {
-        this.threadCounter++;
-    }
-
-    private synchronized void decrementThreadCounter() {
-        this.threadCounter--;
-        if (this.threadCounter <= 0) {
-            notifyAll();
+    private boolean startThread() {
+        this.runningThreads.incrementAndGet();
+        if (this.finished) {
+            finishThread();
+            return false;
         }
+        return true;
     }
 
-    private synchronized void waitToFinish() throws InterruptedException {
-        if (this.threadCounter > 0) {
-            wait();
+    private void finishThread() {
+        if (this.runningThreads.decrementAndGet() == 0) {
+            synchronized (this.finishLock) {
+                this.finishLock.notifyAll();
+            }
         }
     }
 
-    private void computeBorderPixels() {
-        int nodeCount = this.graph.getNodeCount();
-        int index = -1;
-        do {
-            synchronized (this) {
-                if (this.graphNodesCounter < nodeCount) {
-                    index = this.graphNodesCounter;
-                    this.graphNodesCounter++;
-                } else {
-                    index = -1;
+    private void waitToFinish() throws InterruptedException {
+        // the current thread has processed the last node, the runnables which start from now on have nothing to do
+        this.finished = true;
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+            @Override
+            public boolean block() throws InterruptedException {
+                synchronized (finishLock) {
+                    while (runningThreads.get() > 0) {
+                        finishLock.wait();
+                    }
                 }
+                return true;
             }
-            if (index >= 0) {
-                Node node = this.graph.getNodeAt(index);
-                processNode(node);
+
+            @Override
+            public boolean isReleasable() {
+                return runningThreads.get() <= 0;
             }
-        } while (index >= 0);
+        });
+    }
+
+    private void computeBorderPixels() {
+        int nodeCount = this.graph.getNodeCount();
+        int index;
+        while ((index = this.graphNodesCounter.getAndIncrement()) < nodeCount) {
+            Node node = this.graph.getNodeAt(index);
+            processNode(node);
+        }
     }
 
     private static class TileGraphNodesRunnable implements Runnable {
@@ -81,17 +97,19 @@ abstract class AbstractTileGraphNodesHelper<ResultType> {
 
         TileGraphNodesRunnable(AbstractTileGraphNodesHelper tileBorderPixelsHelper) {
             this.tileBorderPixelsHelper = tileBorderPixelsHelper;
-            this.tileBorderPixelsHelper.incrementThreadCounter();
         }
 
         @Override
         public void run() {
+            if (!this.tileBorderPixelsHelper.startThread()) {
+                return;
+            }
             try {
                 this.tileBorderPixelsHelper.computeBorderPixels();
             } catch (Exception exception) {
                 logger.log(Level.SEVERE, "Failed to compute the border pixels.", exception);
             } finally {
-                this.tileBorderPixelsHelper.decrementThreadCounter();
+                this.tileBorderPixelsHelper.finishThread();
             }
         }
     }
@@ -0,0 +1,105 @@
+package eu.esa.opt.grm.segmentation;
+
+/**
+ * Primitive graph of the {@link BaatzSchapeSegmenter}.
+ */
+class BaatzSchapePrimitiveGraph extends PrimitiveGraph {
+    private final float spectralWeight;
+    private final float shapeWeight;
+    private final float[] squareMeans;
+    private final float[] spectralSum;
+    private final float[] std;
+
+    BaatzSchapePrimitiveGraph(int width, int height, int numberOfComponentsPerPixel, float threshold, float spectralWeight, float shapeWeight) {
+        super(width, height, numberOfComponentsPerPixel, threshold);
+
+        this.spectralWeight = spectralWeight;
+        this.shapeWeight = shapeWeight;
+        this.squareMeans = new float[this.means.length];
+        this.spectralSum = new float[this.means.length];
+        this.std = new float[this.means.length];
+    }
+
+    @Override
+    protected void initData(int nodeId, int index, float pixel) {
+        int offset = nodeId * this.numberOfComponentsPerPixel + index;
+        this.means[offset] = pixel;
+        this.squareMeans[offset] = pixel * pixel;
+        this.spectralSum[offset] = pixel;
+        this.std[offset] = 0.0f;
+    }
+
+    @Override
+    protected void updateSpecificAttributes(int nodeId, int targetNodeId) {
+        float a1 = getArea(nodeId);
+        float a2 = getArea(targetNodeId);
+        float a_sum = a1 + a2;
+        int offset1 = nodeId * this.numberOfComponentsPerPixel;
+        int offset2 = targetNodeId * this.numberOfComponentsPerPixel;
+        for (int b=0; b<this.numberOfComponentsPerPixel; b++) {
+            int i1 = offset1 + b;
+            int i2 = offset2 + b;
+            this.means[i1] = (a1 * this.means[i1] + a2 * this.means[i2]) / a_sum;
+            this.squareMeans[i1] += this.squareMeans[i2];
+            this.spectralSum[i1] += this.spectralSum[i2];
+            this.std[i1] = (float)Math.sqrt((this.squareMeans[i1] - 2 * this.means[i1] * this.spectralSum[i1]
+                                             + a_sum * this.means[i1] * this.means[i1]) / a_sum);
+        }
+    }
+
+    @Override
+    protected float computeMergingCost(int nodeId, int targetNodeId, int boundary) {
+        int a1 = getArea(nodeId);
+        int a2 = getArea(targetNodeId);
+        float a_sum = a1 + a2;
+        int offset1 = nodeId * this.numberOfComponentsPerPixel;
+        int offset2 = targetNodeId * this.numberOfComponentsPerPixel;
+
+        float spectralCost = 0.0f;
+        for (int b = 0; b < this.numberOfComponentsPerPixel; b++) {
+            int i1 = offset1 + b;
+            int i2 = offset2 + b;
+            float mean = ((a1 * this.means[i1]) + (a2 * this.means[i2])) / a_sum;
+            float squareMean = this.squareMeans[i1] + this.squareMeans[i2];
+            float sum = this.spectralSum[i1] + this.spectralSum[i2];
+            float std = (float)Math.sqrt((squareMean - 2*mean*sum + a_sum * mean* mean) / a_sum);
+            spectralCost += (a_sum * std - a1 * this.std[i1] - a2 * this.std[i2]);
+        }
+        spectralCost *= this.spectralWeight;
+
+        if (spectralCost < this.threshold) {
+            // compute the shape merging cost
+            float p1 = getPerimeter(nodeId);
+            float p2 = getPerimeter(targetNodeId);
+
+            float p3 = p1 + p2 - 2 * boundary;
+
+            float bb1_perimeter = (2*getBoxWidth(nodeId) + 2*getBoxHeight(nodeId));
+            float bb2_perimeter = (2*getBoxWidth(targetNodeId) + 2*getBoxHeight(targetNodeId));
+            float mbb_perimeter = (2 * getMergedBoxWidth(nodeId, targetNodeId) + 2 * getMergedBoxHeight(nodeId, targetNodeId));
+
+            float smooth_f = a_sum*p3/mbb_perimeter - a1*p1/bb1_perimeter - a2*p2/bb2_perimeter;
+
+            float compact_f = (float)(a_sum*p3/Math.sqrt(a_sum) - a1*p1/Math.sqrt(a1) - a2*p2/Math.sqrt(a2));
+
+            float shape_cost = this.shapeWeight * compact_f + (1.0f - this.shapeWeight) * smooth_f;
+
+            spectralCost = (float)(spectralCost + (1.0f - this.spectralWeight) * shape_cost);
+        }
+
+        return spectralCost;
+    }
+
+    @Override
+    protected Node buildNode(int nodeId, BoundingBox box, Contour contour, int perimeter, int area) {
+        BaatzSchapeNode node = new BaatzSchapeNode(nodeId, box, contour, perimeter, area, this.numberOfComponentsPerPixel);
+        int offset = nodeId * this.numberOfComponentsPerPixel;
+        for (int b=0; b<this.numberOfComponentsPerPixel; b++) {
+            node.setMeansAt(b, this.means[offset + b]);
+            node.setSquareMeansAt(b, this.squareMeans[offset + b]);
+            node.setSpectralSumAt(b, this.spectralSum[offset + b]);
+            node.setStdAt(b, this.std[offset + b]);
+        }
+        return node;
+    }
+}
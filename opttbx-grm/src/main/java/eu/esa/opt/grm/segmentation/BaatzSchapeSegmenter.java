@@ -19,6 +19,11 @@ public class BaatzSchapeSegmenter extends AbstractSegmenter {
         return new BaatzSchapeNode(id, upperLeftX, upperLeftY, numberOfComponentsPerPixel);
     }
 
+    @Override
+    protected PrimitiveGraph buildPrimitiveGraph(int width, int height, int numberOfComponentsPerPixel) {
+        return new BaatzSchapePrimitiveGraph(width, height, numberOfComponentsPerPixel, this.threshold, this.spectralWeight, this.shapeWeight);
+    }
+
     @Override
     protected float computeMergingCost(Node nn1, Node nn2) {
         BaatzSchapeNode n1 = (BaatzSchapeNode)nn1;
@@ -0,0 +1,52 @@
+package eu.esa.opt.grm.segmentation;
+
+/**
+ * Primitive graph of the {@link FullLambdaScheduleSegmenter}.
+ */
+class FullLambdaSchedulePrimitiveGraph extends PrimitiveGraph {
+
+    FullLambdaSchedulePrimitiveGraph(int width, int height, int numberOfComponentsPerPixel, float threshold) {
+        super(width, height, numberOfComponentsPerPixel, threshold);
+    }
+
+    @Override
+    protected void initData(int nodeId, int index, float pixel) {
+        this.means[nodeId * this.numberOfComponentsPerPixel + index] = pixel;
+    }
+
+    @Override
+    protected void updateSpecificAttributes(int nodeId, int targetNodeId) {
+        float a1 = getArea(nodeId);
+        float a2 = getArea(targetNodeId);
+        float a_sum = a1 + a2;
+        int offset1 = nodeId * this.numberOfComponentsPerPixel;
+        int offset2 = targetNodeId * this.numberOfComponentsPerPixel;
+        for (int b=0; b<this.numberOfComponentsPerPixel; b++) {
+            this.means[offset1 + b] = (a1 * this.means[offset1 + b] + a2 * this.means[offset2 + b]) / a_sum;
+        }
+    }
+
+    @Override
+    protected float computeMergingCost(int nodeId, int targetNodeId, int boundary) {
+        int offset1 = nodeId * this.numberOfComponentsPerPixel;
+        int offset2 = targetNodeId * this.numberOfComponentsPerPixel;
+        float eucDist = 0.0f;
+        float a1 = getArea(nodeId);
+        float a2 = getArea(targetNodeId);
+        float a_sum = a1 + a2;
+        for (int b = 0; b < this.numberOfComponentsPerPixel; b++) {
+            eucDist += (this.means[offset1 + b] - this.means[offset2 + b]) * (this.means[offset1 + b] - this.means[offset2 + b]);
+        }
+        return (((a1*a2)/a_sum)*eucDist) / (float)boundary;
+    }
+
+    @Override
+    protected Node buildNode(int nodeId, BoundingBox box, Contour contour, int perimeter, int area) {
+        FullLambdaScheduleNode node = new FullLambdaScheduleNode(nodeId, box, contour, perimeter, area, this.numberOfComponentsPerPixel);
+        int offset = nodeId * this.numberOfComponentsPerPixel;
+        for (int b=0; b<this.numberOfComponentsPerPixel; b++) {
+            node.setMeansAt(b, this.means[offset + b]);
+        }
+        return node;
+    }
+}
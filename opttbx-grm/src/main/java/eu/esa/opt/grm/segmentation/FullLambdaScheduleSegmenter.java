@@ -9,6 +9,11 @@ public class FullLambdaScheduleSegmenter extends AbstractSegmenter {
         super(threshold);
     }
 
+    @Override
+    protected PrimitiveGraph buildPrimitiveGraph(int width, int height, int numberOfComponentsPerPixel) {
+        return new FullLambdaSchedulePrimitiveGraph(width, height, numberOfComponentsPerPixel, this.threshold);
+    }
+
     @Override
     protected float computeMergingCost(Node nn1, Node nn2) {
         FullLambdaScheduleNode n1 = (FullLambdaScheduleNode)nn1;
@@ -6,6 +6,7 @@ import org.esa.snap.utils.ArrayListExtended;
 
 import java.lang.ref.WeakReference;
 import java.util.Objects;
+import java.util.function.IntPredicate;
 
 /**
  * @author Jean Coravu
@@ -333,7 +334,7 @@ public abstract class Node implements Comparable<Node>{
         targetNode.setExpired(true);
     }
 
-    private static Contour createNewContour(int nodeId, IntSet borderCells, int boxWidth, int boxHeight) {
+    static Contour createNewContour(int nodeId, IntPredicate borderCells, int boxWidth, int boxHeight) {
         Contour newContour = new Contour();
         // the first move is always to the right
         newContour.pushRight(); //Push1(newContour);
@@ -351,11 +352,11 @@ public abstract class Node implements Comparable<Node>{
             AbstractSegmenter.generateEightNeighborhood(neighbors, currentNodeId, boxWidth, boxHeight);
 
             if (currentMoveId == Contour.RIGHT_MOVE_INDEX) { // 1 => move to the right
-                if (neighbors[1] != -1 && borderCells.contains(neighbors[1])) { // array index = 1 => top right
+                if (neighbors[1] != -1 && borderCells.test(neighbors[1])) { // array index = 1 => top right
                     newContour.pushTop(); //Push0(newContour);
                     currentNodeId = currentNodeId - boxWidth + 1;
                     currentMoveId = Contour.TOP_MOVE_INDEX; // 0 => move to the top
-                } else if (neighbors[2] != -1 && borderCells.contains(neighbors[2])) { // array index = 2 => right
+                } else if (neighbors[2] != -1 && borderCells.test(neighbors[2])) { // array index = 2 => right
                     newContour.pushRight(); //Push1(newContour);
                     currentNodeId++;
                     currentMoveId = Contour.RIGHT_MOVE_INDEX; // 1 => move to the right
@@ -364,11 +365,11 @@ public abstract class Node implements Comparable<Node>{
                     currentMoveId = Contour.BOTTOM_MOVE_INDEX; // 2 => move to the bottom
                 }
             } else if (currentMoveId == Contour.BOTTOM_MOVE_INDEX) { // 2 => move to the bottom
-                if (neighbors[3] != -1 && borderCells.contains(neighbors[3])) { // array index = 3 => bottom right
+                if (neighbors[3] != -1 && borderCells.test(neighbors[3])) { // array index = 3 => bottom right
                     newContour.pushRight(); //Push1(newContour);
                     currentNodeId = currentNodeId + boxWidth + 1;
                     currentMoveId = Contour.RIGHT_MOVE_INDEX; // 1 => move to the right
-                } else if (neighbors[4] != -1 && borderCells.contains(neighbors[4])) { // array index = 4 => right
+                } else if (neighbors[4] != -1 && borderCells.test(neighbors[4])) { // array index = 4 => right
                     newContour.pushBottom(); //Push2(newContour);
                     currentNodeId += boxWidth;
                     currentMoveId = Contour.BOTTOM_MOVE_INDEX; // 2 => move to the bottom
@@ -377,11 +378,11 @@ public abstract class Node implements Comparable<Node>{
                     currentMoveId = Contour.LEFT_MOVE_INDEX; // 3 => move to the left
                 }
             } else if (currentMoveId == Contour.LEFT_MOVE_INDEX) { // 3 => move to the left
-                if (neighbors[5] != -1 && borderCells.contains(neighbors[5])) { // array index = 5 => bottom left
+                if (neighbors[5] != -1 && borderCells.test(neighbors[5])) { // array index = 5 => bottom left
                     newContour.pushBottom(); //Push2(newContour);
                     currentNodeId = currentNodeId + boxWidth - 1;
                     currentMoveId = Contour.BOTTOM_MOVE_INDEX; // 2 => move to the bottom
-                } else if (neighbors[6] != -1 && borderCells.contains(neighbors[6])) { // array index = 6 => left
+                } else if (neighbors[6] != -1 && borderCells.test(neighbors[6])) { // array index = 6 => left
                     newContour.pushLeft(); //Push3(newContour);
                     currentNodeId--;
                     currentMoveId = Contour.LEFT_MOVE_INDEX; // 3 => move to the left
@@ -392,11 +393,11 @@ public abstract class Node implements Comparable<Node>{
             } else { // previous move = 0 => move to the top
                 assert (currentMoveId == Contour.TOP_MOVE_INDEX);
 
-                if (neighbors[7] != -1 && borderCells.contains(neighbors[7])) { // array index = 7 => top left
+                if (neighbors[7] != -1 && borderCells.test(neighbors[7])) { // array index = 7 => top left
                     newContour.pushLeft(); //Push3(newContour);
                     currentNodeId = currentNodeId - boxWidth - 1;
                     currentMoveId = Contour.LEFT_MOVE_INDEX; // 3 => move to the left
-                } else if (neighbors[0] != -1 && borderCells.contains(neighbors[0])) { // array index = 0 => top
+                } else if (neighbors[0] != -1 && borderCells.test(neighbors[0])) { // array index = 0 => top
                     newContour.pushTop(); //Push0(newContour);
                     currentNodeId -= boxWidth;
                     currentMoveId = Contour.TOP_MOVE_INDEX; // 0 => move to the top
@@ -422,7 +423,7 @@ public abstract class Node implements Comparable<Node>{
         generateBorderCellsForContourFusion(borderCells, contour2, nodeId2, imageWidth, mergedBox);
         // create the new contour
         int id = gridToBBox(nodeId1, mergedBox, imageWidth);
-        return createNewContour(id, borderCells, mergedBox.getWidth(), mergedBox.getHeight());
+        return createNewContour(id, borderCells::contains, mergedBox.getWidth(), mergedBox.getHeight());
     }
 
     private static void generateBorderCellsForContourFusion(IntSet outputBorderCells, Contour contour, int startCellId, int width, BoundingBox mergedBox) {
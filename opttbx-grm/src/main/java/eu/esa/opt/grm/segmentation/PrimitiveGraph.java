@@ -0,0 +1,649 @@
+package eu.esa.opt.grm.segmentation;
+
+import java.util.Arrays;
+
+/**
+ * Region adjacency graph of a segmentation kept in primitive arrays instead of {@link Node} and {@link Edge} objects.
+ * <p>
+ * A node is identified by the index of its first pixel, the same as the id of a {@link Node}. The node attributes
+ * are stored in one array per attribute (the means of all nodes are packed in one array) and the edges of each node
+ * are stored in a contiguous block of a shared edge pool, initially in compressed sparse row layout. The pixels of
+ * the merged nodes are tracked with a union-find forest, so the contours are computed only once, when the remaining
+ * nodes are converted to a {@link Graph}.
+ * <p>
+ * The merging steps reproduce exactly the ones of the object graph used by {@link AbstractSegmenter}, including the
+ * order of the edges, so both representations produce the same segmentation.
+ *
+ * @see AbstractSegmenter#update(TileDataSource[], BoundingBox, int, boolean, boolean, boolean)
+ */
+public abstract class PrimitiveGraph {
+    private static final byte VALID_FLAG = 1;
+    private static final byte EXPIRED_FLAG = 2;
+    private static final byte MERGED_FLAG = 4;
+
+    protected final int numberOfComponentsPerPixel;
+    protected final float threshold;
+    protected final float[] means;
+
+    private final int width;
+    private final int height;
+    private final int[] area;
+    private final int[] perimeter;
+    private final int[] boxLeftX;
+    private final int[] boxTopY;
+    private final int[] boxWidth;
+    private final int[] boxHeight;
+    private final byte[] flags;
+    private final int[] parent;
+
+    private final int[] nodeIds;
+    private int nodeCount;
+
+    private final int[] edgeStart;
+    private final int[] edgeCount;
+    private final int[] edgeCapacity;
+    private int[] edgeTargets;
+    private int[] edgeBoundaries;
+    private float[] edgeCosts;
+    private boolean[] edgeCostUpdated;
+    private int edgePoolSize;
+    private int unusedEdgeSlots;
+
+    protected PrimitiveGraph(int width, int height, int numberOfComponentsPerPixel, float threshold) {
+        this.width = width;
+        this.height = height;
+        this.numberOfComponentsPerPixel = numberOfComponentsPerPixel;
+        this.threshold = threshold;
+
+        int numberOfNodes = width * height;
+        this.means = new float[numberOfNodes * numberOfComponentsPerPixel];
+        this.area = new int[numberOfNodes];
+        this.perimeter = new int[numberOfNodes];
+        this.boxLeftX = new int[numberOfNodes];
+        this.boxTopY = new int[numberOfNodes];
+        this.boxWidth = new int[numberOfNodes];
+        this.boxHeight = new int[numberOfNodes];
+        this.flags = new byte[numberOfNodes];
+        this.parent = new int[numberOfNodes];
+        this.nodeIds = new int[numberOfNodes];
+        this.edgeStart = new int[numberOfNodes];
+        this.edgeCount = new int[numberOfNodes];
+        this.edgeCapacity = new int[numberOfNodes];
+    }
+
+    protected abstract void initData(int nodeId, int index, float pixel);
+
+    protected abstract void updateSpecificAttributes(int nodeId, int targetNodeId);
+
+    protected abstract float computeMergingCost(int nodeId, int targetNodeId, int boundary);
+
+    /**
+     * Creates the node object with the segmenter specific attributes of a remaining node.
+     */
+    protected abstract Node buildNode(int nodeId, BoundingBox box, Contour contour, int perimeter, int area);
+
+    /**
+     * Initializes one node per pixel, connected to its four or eight neighbors.
+     */
+    public final void initNodes(TileDataSource[] sourceTiles, BoundingBox rectangle, boolean addFourNeighbors) {
+        int numberOfNodes = this.width * this.height;
+        int neighborCount = addFourNeighbors ? 4 : 8;
+        int[] neighborhood = new int[neighborCount];
+
+        this.edgeTargets = new int[numberOfNodes * neighborCount];
+        this.edgeBoundaries = new int[this.edgeTargets.length];
+        this.edgeCosts = new float[this.edgeTargets.length];
+        this.edgeCostUpdated = new boolean[this.edgeTargets.length];
+        this.edgePoolSize = 0;
+        this.unusedEdgeSlots = 0;
+
+        for (int i = 0; i < numberOfNodes; i++) {
+            this.nodeIds[i] = i;
+            this.parent[i] = i;
+            this.area[i] = 1;
+            this.perimeter[i] = 4;
+            this.boxLeftX[i] = i % this.width;
+            this.boxTopY[i] = i / this.width;
+            this.boxWidth[i] = 1;
+            this.boxHeight[i] = 1;
+            // merged = true => force to compute costs for the first iteration
+            this.flags[i] = VALID_FLAG | MERGED_FLAG;
+
+            if (addFourNeighbors) {
+                AbstractSegmenter.generateFourNeighborhood(neighborhood, i, this.width, this.height);
+            } else {
+                AbstractSegmenter.generateEightNeighborhood(neighborhood, i, this.width, this.height);
+            }
+            this.edgeStart[i] = this.edgePoolSize;
+            for (int j = 0; j < neighborhood.length; j++) {
+                if (neighborhood[j] > -1) {
+                    this.edgeTargets[this.edgePoolSize] = neighborhood[j];
+                    this.edgeBoundaries[this.edgePoolSize] = 1;
+                    this.edgePoolSize++;
+                }
+            }
+            this.edgeCount[i] = this.edgePoolSize - this.edgeStart[i];
+            this.edgeCapacity[i] = this.edgeCount[i];
+
+            int x = rectangle.getLeftX() + (i % this.width);
+            int y = rectangle.getTopY() + (i / this.width);
+            for (int b = 0; b < sourceTiles.length; b++) {
+                initData(i, b, sourceTiles[b].getSampleFloat(x, y));
+            }
+        }
+        this.nodeCount = numberOfNodes;
+    }
+
+    public final int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    protected final int getArea(int nodeId) {
+        return this.area[nodeId];
+    }
+
+    protected final int getPerimeter(int nodeId) {
+        return this.perimeter[nodeId];
+    }
+
+    protected final BoundingBox getBox(int nodeId) {
+        return new BoundingBox(this.boxLeftX[nodeId], this.boxTopY[nodeId], this.boxWidth[nodeId], this.boxHeight[nodeId]);
+    }
+
+    protected final int getBoxWidth(int nodeId) {
+        return this.boxWidth[nodeId];
+    }
+
+    protected final int getBoxHeight(int nodeId) {
+        return this.boxHeight[nodeId];
+    }
+
+    protected final int getMergedBoxWidth(int nodeId, int targetNodeId) {
+        int minimumLeftUpperX = Math.min(this.boxLeftX[nodeId], this.boxLeftX[targetNodeId]);
+        int maximumWidth = Math.max(this.boxLeftX[nodeId] + this.boxWidth[nodeId], this.boxLeftX[targetNodeId] + this.boxWidth[targetNodeId]);
+        return maximumWidth - minimumLeftUpperX;
+    }
+
+    protected final int getMergedBoxHeight(int nodeId, int targetNodeId) {
+        int minimumLeftUpperY = Math.min(this.boxTopY[nodeId], this.boxTopY[targetNodeId]);
+        int maximumHeight = Math.max(this.boxTopY[nodeId] + this.boxHeight[nodeId], this.boxTopY[targetNodeId] + this.boxHeight[targetNodeId]);
+        return maximumHeight - minimumLeftUpperY;
+    }
+
+    public final boolean performAllIterationsWithLMBF(int numberOfIterations) {
+        int iterations = 0;
+        boolean merged = true;
+        while (merged && (this.nodeCount > 1) && (numberOfIterations <= 0 || iterations < numberOfIterations)) {
+            iterations++;
+            merged = performOneIterationWithLocalMutualBestFitting();
+        }
+        return merged;
+    }
+
+    public final boolean performAllIterationsWithBestFitting(int numberOfIterations) {
+        int iterations = 0;
+        boolean merged = true;
+        while (merged && (this.nodeCount > 1) && (numberOfIterations <= 0 || iterations < numberOfIterations)) {
+            iterations++;
+            merged = performOneIterationWithBestFitting();
+        }
+        return merged;
+    }
+
+    /**
+     * Converts the remaining nodes and their edges to objects.
+     */
+    public final Graph buildGraph() {
+        int numberOfNodes = this.width * this.height;
+        int[] labels = new int[numberOfNodes];
+        for (int i = 0; i < numberOfNodes; i++) {
+            labels[i] = findRoot(i);
+        }
+
+        Node[] nodesById = new Node[numberOfNodes];
+        Graph graph = new Graph(this.nodeCount);
+        for (int k = 0; k < this.nodeCount; k++) {
+            int nodeId = this.nodeIds[k];
+            Contour contour = buildContour(nodeId, labels);
+            Node node = buildNode(nodeId, getBox(nodeId), contour, this.perimeter[nodeId], this.area[nodeId]);
+            node.setValid(isFlagSet(nodeId, VALID_FLAG));
+            node.setMerged(isFlagSet(nodeId, MERGED_FLAG));
+            node.setExpired(isFlagSet(nodeId, EXPIRED_FLAG));
+            nodesById[nodeId] = node;
+            graph.addNode(node);
+        }
+        for (int k = 0; k < this.nodeCount; k++) {
+            int nodeId = this.nodeIds[k];
+            Node node = nodesById[nodeId];
+            int start = this.edgeStart[nodeId];
+            for (int i = 0; i < this.edgeCount[nodeId]; i++) {
+                node.addEdge(nodesById[this.edgeTargets[start + i]], this.edgeBoundaries[start + i]);
+                Edge edge = node.getEdgeAt(i);
+                edge.setCost(this.edgeCosts[start + i]);
+                edge.setCostUpdated(this.edgeCostUpdated[start + i]);
+            }
+        }
+        return graph;
+    }
+
+    private Contour buildContour(int nodeId, int[] labels) {
+        int left = this.boxLeftX[nodeId];
+        int top = this.boxTopY[nodeId];
+        int localWidth = this.boxWidth[nodeId];
+        int imageWidth = this.width;
+        int localNodeId = ((nodeId / imageWidth) - top) * localWidth + ((nodeId % imageWidth) - left);
+        return Node.createNewContour(localNodeId, cellId -> {
+            int x = left + (cellId % localWidth);
+            int y = top + (cellId / localWidth);
+            return labels[y * imageWidth + x] == nodeId;
+        }, localWidth, this.boxHeight[nodeId]);
+    }
+
+    private int findRoot(int pixelId) {
+        int root = pixelId;
+        while (this.parent[root] != root) {
+            root = this.parent[root];
+        }
+        // path compression
+        int current = pixelId;
+        while (this.parent[current] != root) {
+            int next = this.parent[current];
+            this.parent[current] = root;
+            current = next;
+        }
+        return root;
+    }
+
+    private boolean performOneIterationWithBestFitting() {
+        boolean merged = false;
+
+        for (int k = 0; k < this.nodeCount; k++) {
+            int currentNode = this.nodeIds[k];
+            if (isFlagSet(currentNode, VALID_FLAG) && this.edgeCount[currentNode] > 0) {
+                // this segment is marked as used
+                setFlag(currentNode, VALID_FLAG, false);
+
+                // compute cost with all its neighbors
+                updateMergingCostsUsingBestFitting(currentNode);
+
+                // get the most similar segment
+                int firstEdge = this.edgeStart[currentNode];
+                int firstEdgeTarget = this.edgeTargets[firstEdge];
+
+                if (firstEdgeTarget != currentNode) {
+                    if (this.edgeCosts[firstEdge] < this.threshold && !isFlagSet(firstEdgeTarget, EXPIRED_FLAG)) {
+                        merged = true;
+
+                        int nodeToUpdate;
+                        int targetNode;
+                        if (currentNode < firstEdgeTarget) {
+                            nodeToUpdate = currentNode;
+                            targetNode = firstEdgeTarget;
+                        } else {
+                            nodeToUpdate = firstEdgeTarget;
+                            targetNode = currentNode;
+                        }
+                        updateInternalAttributes(nodeToUpdate, targetNode);
+                        resetCostUpdatedFlagToAllEdges(nodeToUpdate);
+                    }
+                }
+            }
+        }
+
+        int remainingNodes = removeExpiredNodes();
+        if (remainingNodes < 2) {
+            return false;
+        }
+        for (int k = 0; k < this.nodeCount; k++) {
+            setFlag(this.nodeIds[k], VALID_FLAG, true);
+        }
+        return merged;
+    }
+
+    private void updateMergingCostsUsingBestFitting(int node) {
+        float minimumCost = Float.MAX_VALUE;
+        int minimumIndex = -1;
+        for (int i = 0; i < this.edgeCount[node]; i++) {
+            int edge = this.edgeStart[node] + i;
+            int neighbor = this.edgeTargets[edge];
+            // compute the cost if the neighbor is not expired and the cost has to be updated
+            if (!isFlagSet(neighbor, EXPIRED_FLAG)) {
+                // compute the cost if necessary
+                if (!this.edgeCostUpdated[edge]) {
+                    float mergingCost = computeMergingCost(node, neighbor, this.edgeBoundaries[edge]);
+                    this.edgeCosts[edge] = mergingCost;
+                    this.edgeCostUpdated[edge] = true;
+
+                    int edgeFromNeighbor = findEdge(neighbor, node);
+                    this.edgeCosts[edgeFromNeighbor] = mergingCost;
+                    this.edgeCostUpdated[edgeFromNeighbor] = true;
+                }
+
+                // check if the cost of the edge is the minimum
+                if (minimumCost > this.edgeCosts[edge]) {
+                    minimumCost = this.edgeCosts[edge];
+                    minimumIndex = i;
+                }
+            }
+        }
+        if (minimumIndex > 0) {
+            swapEdges(node, 0, minimumIndex);
+        }
+    }
+
+    private void updateMergingCostsUsingLocalMutualBestFitting() {
+        for (int k = 0; k < this.nodeCount; k++) {
+            int node = this.nodeIds[k];
+            int start = this.edgeStart[node];
+            Arrays.fill(this.edgeCostUpdated, start, start + this.edgeCount[node], false);
+        }
+
+        int minimumId = 0;
+        for (int k = 0; k < this.nodeCount; k++) {
+            int node = this.nodeIds[k];
+            float minimumCost = Float.MAX_VALUE;
+            int minimumIndex = -1;
+
+            setFlag(node, EXPIRED_FLAG, false);
+            setFlag(node, VALID_FLAG, true);
+
+            for (int i = 0; i < this.edgeCount[node]; i++) {
+                int edge = this.edgeStart[node] + i;
+                int neighbor = this.edgeTargets[edge];
+
+                // compute the cost if necessary
+                if (!this.edgeCostUpdated[edge] && (isFlagSet(neighbor, MERGED_FLAG) || isFlagSet(node, MERGED_FLAG))) {
+                    float mergingCost = computeMergingCost(node, neighbor, this.edgeBoundaries[edge]);
+                    this.edgeCosts[edge] = mergingCost;
+                    this.edgeCostUpdated[edge] = true;
+
+                    int edgeFromNeighbor = findEdge(neighbor, node);
+                    if (edgeFromNeighbor > -1) {
+                        this.edgeCosts[edgeFromNeighbor] = mergingCost;
+                        this.edgeCostUpdated[edgeFromNeighbor] = true;
+                    }
+                }
+
+                // check if the cost of the edge is the minimum
+                float cost = this.edgeCosts[edge];
+                if (minimumCost > cost) {
+                    minimumCost = cost;
+                    minimumId = neighbor;
+                    minimumIndex = i;
+                } else if (minimumCost == cost) {
+                    if (minimumId > neighbor) {
+                        minimumId = neighbor;
+                        minimumIndex = i;
+                    }
+                }
+            }
+            if (minimumIndex > 0) {
+                swapEdges(node, 0, minimumIndex);
+            }
+        }
+
+        // reset the merge flag for all the regions
+        for (int k = 0; k < this.nodeCount; k++) {
+            setFlag(this.nodeIds[k], MERGED_FLAG, false);
+        }
+    }
+
+    private boolean performOneIterationWithLocalMutualBestFitting() {
+        updateMergingCostsUsingLocalMutualBestFitting(); // update the costs of merging between adjacent nodes
+
+        int count = this.nodeCount;
+        boolean merged = false;
+        for (int k = 0; k < count; k++) {
+            int resultNode = checkLocalMutualBestFitting(this.nodeIds[k]);
+            if (resultNode > -1) {
+                int firstEdgeTarget = this.edgeTargets[this.edgeStart[resultNode]];
+                if (firstEdgeTarget != resultNode) {
+                    updateInternalAttributes(resultNode, firstEdgeTarget);
+                    merged = true;
+                }
+            }
+        }
+        int remainingNodes = removeExpiredNodes();
+        if (remainingNodes < 2) {
+            return false;
+        }
+        return merged;
+    }
+
+    private int checkLocalMutualBestFitting(int node) {
+        if (isFlagSet(node, VALID_FLAG) && this.edgeCount[node] > 0) {
+            int firstEdge = this.edgeStart[node];
+            if (this.edgeCosts[firstEdge] < this.threshold) {
+                int firstEdgeTarget = this.edgeTargets[firstEdge];
+                if (isFlagSet(firstEdgeTarget, VALID_FLAG) && this.edgeCount[firstEdgeTarget] > 0) {
+                    int bestNode = this.edgeTargets[this.edgeStart[firstEdgeTarget]];
+                    if (node == bestNode) { // the same node
+                        return (node < firstEdgeTarget) ? node : firstEdgeTarget;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void updateInternalAttributes(int node, int targetNode) {
+        updateSpecificAttributes(node, targetNode);
+
+        // update the bounding box
+        int mergedWidth = getMergedBoxWidth(node, targetNode);
+        int mergedHeight = getMergedBoxHeight(node, targetNode);
+        this.boxLeftX[node] = Math.min(this.boxLeftX[node], this.boxLeftX[targetNode]);
+        this.boxTopY[node] = Math.min(this.boxTopY[node], this.boxTopY[targetNode]);
+        this.boxWidth[node] = mergedWidth;
+        this.boxHeight[node] = mergedHeight;
+
+        // the pixels of the target node belong now to this node, the contour is computed when building the graph
+        this.parent[targetNode] = node;
+
+        // update perimeter and area attributes
+        int toTarget = findEdge(node, targetNode);
+        this.perimeter[node] += (this.perimeter[targetNode] - (2 * this.edgeBoundaries[toTarget]));
+        this.area[node] += this.area[targetNode];
+
+        // update the neighborhood
+        updateNeighbors(node, targetNode);
+
+        // update the node' states
+        setFlag(node, VALID_FLAG, false);
+        setFlag(node, MERGED_FLAG, true);
+
+        setFlag(targetNode, VALID_FLAG, false);
+        setFlag(targetNode, EXPIRED_FLAG, true);
+    }
+
+    private void updateNeighbors(int node, int neighborToRemove) {
+        // explore the neighbors of 'neighborToRemove'
+        for (int i = 0; i < this.edgeCount[neighborToRemove]; i++) {
+            int currentEdge = this.edgeStart[neighborToRemove] + i;
+            int target = this.edgeTargets[currentEdge];
+            int boundary = this.edgeBoundaries[currentEdge];
+
+            int removedEdgeIndex = removeEdge(target, neighborToRemove);
+            // if the edge targeting to node b is the first then the corresponding node is not valid anymore
+            if (removedEdgeIndex == 0) {
+                setFlag(target, VALID_FLAG, false);
+            }
+
+            if (target != node) {
+                // retrieve the edge targeting to node a
+                int toThis = findEdge(target, node);
+                if (toThis < 0) {
+                    // no edge exists between node a and node neigh_b
+                    addEdge(target, node, boundary);
+                    addEdge(node, target, boundary);
+                } else {
+                    // an edge exists between node a and node neigh_b
+                    this.edgeBoundaries[toThis] += boundary;
+                    int toNeighbor = findEdge(node, target);
+                    if (toNeighbor > -1) {
+                        this.edgeBoundaries[toNeighbor] += boundary;
+                    }
+                }
+            }
+        }
+    }
+
+    private void resetCostUpdatedFlagToAllEdges(int node) {
+        for (int i = 0; i < this.edgeCount[node]; i++) {
+            int edge = this.edgeStart[node] + i;
+            this.edgeCostUpdated[edge] = false;
+            this.edgeCostUpdated[findEdge(this.edgeTargets[edge], node)] = false;
+        }
+    }
+
+    private int removeExpiredNodes() {
+        int remaining = 0;
+        for (int k = 0; k < this.nodeCount; k++) {
+            int node = this.nodeIds[k];
+            if (isFlagSet(node, EXPIRED_FLAG)) {
+                // the edges targeting this node have been removed when it was merged
+                this.unusedEdgeSlots += this.edgeCapacity[node];
+                this.edgeCount[node] = 0;
+                this.edgeCapacity[node] = 0;
+            } else {
+                this.nodeIds[remaining++] = node;
+            }
+        }
+        this.nodeCount = remaining;
+        return remaining;
+    }
+
+    private int findEdge(int node, int target) {
+        int start = this.edgeStart[node];
+        int end = start + this.edgeCount[node];
+        for (int edge = start; edge < end; edge++) {
+            if (this.edgeTargets[edge] == target) {
+                return edge;
+            }
+        }
+        return -1;
+    }
+
+    private int removeEdge(int node, int target) {
+        int start = this.edgeStart[node];
+        int count = this.edgeCount[node];
+        for (int i = 0; i < count; i++) {
+            if (this.edgeTargets[start + i] == target) {
+                // keep the order of the remaining edges
+                int moved = count - i - 1;
+                if (moved > 0) {
+                    System.arraycopy(this.edgeTargets, start + i + 1, this.edgeTargets, start + i, moved);
+                    System.arraycopy(this.edgeBoundaries, start + i + 1, this.edgeBoundaries, start + i, moved);
+                    System.arraycopy(this.edgeCosts, start + i + 1, this.edgeCosts, start + i, moved);
+                    System.arraycopy(this.edgeCostUpdated, start + i + 1, this.edgeCostUpdated, start + i, moved);
+                }
+                this.edgeCount[node] = count - 1;
+                return i;
+            }
+        }
+        return -1; // -1 => no edge removed
+    }
+
+    private void addEdge(int node, int target, int boundary) {
+        int count = this.edgeCount[node];
+        if (count == this.edgeCapacity[node]) {
+            relocateEdges(node, Math.max(4, 2 * count));
+        }
+        int edge = this.edgeStart[node] + count;
+        this.edgeTargets[edge] = target;
+        this.edgeBoundaries[edge] = boundary;
+        this.edgeCosts[edge] = 0.0f;
+        this.edgeCostUpdated[edge] = false;
+        this.edgeCount[node] = count + 1;
+    }
+
+    private void swapEdges(int node, int firstIndex, int secondIndex) {
+        int first = this.edgeStart[node] + firstIndex;
+        int second = this.edgeStart[node] + secondIndex;
+
+        int target = this.edgeTargets[first];
+        this.edgeTargets[first] = this.edgeTargets[second];
+        this.edgeTargets[second] = target;
+
+        int boundary = this.edgeBoundaries[first];
+        this.edgeBoundaries[first] = this.edgeBoundaries[second];
+        this.edgeBoundaries[second] = boundary;
+
+        float cost = this.edgeCosts[first];
+        this.edgeCosts[first] = this.edgeCosts[second];
+        this.edgeCosts[second] = cost;
+
+        boolean costUpdated = this.edgeCostUpdated[first];
+        this.edgeCostUpdated[first] = this.edgeCostUpdated[second];
+        this.edgeCostUpdated[second] = costUpdated;
+    }
+
+    // moves the edges of the node at the end of the edge pool
+    private void relocateEdges(int node, int newCapacity) {
+        if (this.edgePoolSize + newCapacity > this.edgeTargets.length) {
+            if (this.unusedEdgeSlots > this.edgeTargets.length / 2) {
+                compactEdgePool();
+            }
+            if (this.edgePoolSize + newCapacity > this.edgeTargets.length) {
+                int length = Math.max(this.edgePoolSize + newCapacity, this.edgeTargets.length + (this.edgeTargets.length >> 1));
+                this.edgeTargets = Arrays.copyOf(this.edgeTargets, length);
+                this.edgeBoundaries = Arrays.copyOf(this.edgeBoundaries, length);
+                this.edgeCosts = Arrays.copyOf(this.edgeCosts, length);
+                this.edgeCostUpdated = Arrays.copyOf(this.edgeCostUpdated, length);
+            }
+        }
+        int oldStart = this.edgeStart[node];
+        int count = this.edgeCount[node];
+        int newStart = this.edgePoolSize;
+        System.arraycopy(this.edgeTargets, oldStart, this.edgeTargets, newStart, count);
+        System.arraycopy(this.edgeBoundaries, oldStart, this.edgeBoundaries, newStart, count);
+        System.arraycopy(this.edgeCosts, oldStart, this.edgeCosts, newStart, count);
+        System.arraycopy(this.edgeCostUpdated, oldStart, this.edgeCostUpdated, newStart, count);
+
+        this.unusedEdgeSlots += this.edgeCapacity[node];
+        this.edgeStart[node] = newStart;
+        this.edgeCapacity[node] = newCapacity;
+        this.edgePoolSize += newCapacity;
+    }
+
+    // copies the edge blocks of the nodes in use to the beginning of the edge pool
+    private void compactEdgePool() {
+        int[] targets = new int[this.edgeTargets.length];
+        int[] boundaries = new int[this.edgeTargets.length];
+        float[] costs = new float[this.edgeTargets.length];
+        boolean[] costUpdated = new boolean[this.edgeTargets.length];
+        int poolSize = 0;
+        for (int k = 0; k < this.nodeCount; k++) {
+            int node = this.nodeIds[k];
+            int capacity = this.edgeCapacity[node];
+            if (capacity > 0) {
+                int start = this.edgeStart[node];
+                int count = this.edgeCount[node];
+                System.arraycopy(this.edgeTargets, start, targets, poolSize, count);
+                System.arraycopy(this.edgeBoundaries, start, boundaries, poolSize, count);
+                System.arraycopy(this.edgeCosts, start, costs, poolSize, count);
+                System.arraycopy(this.edgeCostUpdated, start, costUpdated, poolSize, count);
+                this.edgeStart[node] = poolSize;
+                poolSize += capacity;
+            }
+        }
+        this.edgeTargets = targets;
+        this.edgeBoundaries = boundaries;
+        this.edgeCosts = costs;
+        this.edgeCostUpdated = costUpdated;
+        this.edgePoolSize = poolSize;
+        this.unusedEdgeSlots = 0;
+    }
+
+    private boolean isFlagSet(int nodeId, byte flag) {
+        return ((this.flags[nodeId] & flag) != 0);
+    }
+
+    private void setFlag(int nodeId, byte flag, boolean value) {
+        if (value) {
+            this.flags[nodeId] = (byte) (this.flags[nodeId] | flag);
+        } else {
+            this.flags[nodeId] = (byte) (this.flags[nodeId] & ~flag);
+        }
+    }
+}
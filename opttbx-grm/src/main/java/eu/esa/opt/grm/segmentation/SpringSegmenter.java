@@ -14,6 +14,11 @@ public class SpringSegmenter extends AbstractSegmenter {
         return new SpringNode(id, upperLeftX, upperLeftY, numberOfComponentsPerPixel);
     }
 
+    @Override
+    protected PrimitiveGraph buildPrimitiveGraph(int width, int height, int numberOfComponentsPerPixel) {
+        return new SpringPrimitiveGraph(width, height, numberOfComponentsPerPixel, this.threshold);
+    }
+
     @Override
     protected float computeMergingCost(Node nn1, Node nn2) {
         SpringNode n1 = (SpringNode)nn1;
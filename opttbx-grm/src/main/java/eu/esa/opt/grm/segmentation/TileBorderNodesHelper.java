@@ -62,18 +62,7 @@ class TileBorderNodesHelper extends AbstractTileGraphNodesHelper<List<Node>> {
     }
 
     private boolean isBorderCell(int borderCellId) {
-        int rowPixelInImage = borderCellId / this.imageWidth;
-        int colPixelInImage = borderCellId % this.imageWidth;
-        if (this.tile.getImageTopY() > 0 && rowPixelInImage == this.tile.getImageTopY()) {
-            return true;
-        } else if (this.tile.getImageRightX() < this.imageWidth - 1 && colPixelInImage == this.tile.getImageRightX()) {
-            return true;
-        } else if (this.tile.getImageBottomY() < this.imageHeight - 1 && rowPixelInImage == this.tile.getImageBottomY()) {
-            return true;
-        } else if (this.tile.getImageLeftX() > 0 && colPixelInImage == this.tile.getImageLeftX()) {
-            return true;
-        }
-        return false;
+        return this.tile.isBorderCell(borderCellId, this.imageWidth, this.imageHeight);
     }
 
     private void addNode(Node analyzedNode) {
@@ -9,9 +9,12 @@ import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.util.io.FileUtils;
 import org.esa.snap.utils.AbstractImageTilesParallelComputing;
 import org.esa.snap.utils.BufferedOutputStreamWrapper;
+import org.esa.snap.utils.OffHeapTileStore;
 
+import java.awt.Rectangle;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Date;
@@ -29,6 +32,7 @@ public class WriteProductBandsTilesComputing extends AbstractImageTilesParallelC
     private final String[] sourceBandNames;
     private final int segmentationTileMargin;
     private final Path temporaryFolder;
+    private final OffHeapTileStore tileStore;
 
     public WriteProductBandsTilesComputing(Product sourceProduct, String[] sourceBandNames, int tileWidth, int tileHeight, Path temporaryParentFolder)
                                            throws IOException {
@@ -40,6 +44,21 @@ public class WriteProductBandsTilesComputing extends AbstractImageTilesParallelC
 
         String temporaryFolderName = "product-bands" + Long.toString(System.currentTimeMillis());
         this.temporaryFolder = Files.createDirectories(temporaryParentFolder.resolve(temporaryFolderName));
+        this.tileStore = null;
+
+        this.segmentationTileMargin = AbstractTileSegmenter.computeTileMargin(tileWidth, tileHeight);
+    }
+
+    /**
+     * Writes the tiles into a tile store instead of a temporary folder, with the same content as the tile files.
+     */
+    public WriteProductBandsTilesComputing(Product sourceProduct, String[] sourceBandNames, int tileWidth, int tileHeight, OffHeapTileStore tileStore) {
+        super(sourceProduct.getSceneRasterWidth(), sourceProduct.getSceneRasterHeight(), tileWidth, tileHeight);
+
+        this.sourceProduct = sourceProduct;
+        this.sourceBandNames = sourceBandNames;
+        this.temporaryFolder = null;
+        this.tileStore = tileStore;
 
         this.segmentationTileMargin = AbstractTileSegmenter.computeTileMargin(tileWidth, tileHeight);
     }
@@ -58,21 +77,29 @@ public class WriteProductBandsTilesComputing extends AbstractImageTilesParallelC
         ProcessingTile segmentationProcessingTile = AbstractTileSegmenter.buildTile(tileLeftX, tileTopY, tileWidth, tileHeight, this.segmentationTileMargin, imageWidth, imageHeight);
         BoundingBox segmentationTileBounds = segmentationProcessingTile.getRegion();
         String tileFileName = SegmentationSourceProductPair.buildSegmentationTileFileName(segmentationTileBounds);
+        Band[] bands = new Band[this.sourceBandNames.length];
+        for (int i=0; i<this.sourceBandNames.length; i++) {
+            bands[i] = this.sourceProduct.getBand(this.sourceBandNames[i]);
+        }
+        if (this.tileStore != null) {
+            writeTile(segmentationTileBounds, bands, tileFileName);
+            return;
+        }
+
         File nodesFile = this.temporaryFolder.resolve(tileFileName).toFile();
 
         BufferedOutputStreamWrapper outputFileStream = null;
         try {
             outputFileStream = new BufferedOutputStreamWrapper(nodesFile);
 
-            outputFileStream.writeInt(this.sourceBandNames.length);
+            outputFileStream.writeInt(bands.length);
 
             int segmentationTileBottomY = segmentationTileBounds.getTopY() + segmentationTileBounds.getHeight();
             int segmentationTileRightX = segmentationTileBounds.getLeftX() + segmentationTileBounds.getWidth();
             for (int y = segmentationTileBounds.getTopY(); y < segmentationTileBottomY; y++) {
                 for (int x = segmentationTileBounds.getLeftX(); x < segmentationTileRightX; x++) {
-                    for (int i=0; i<this.sourceBandNames.length; i++) {
-                        Band band = this.sourceProduct.getBand(this.sourceBandNames[i]);
-                        outputFileStream.writeFloat(band.getSampleFloat(x, y));
+                    for (int i=0; i<bands.length; i++) {
+                        outputFileStream.writeFloat(bands[i].getSampleFloat(x, y));
                     }
                 }
             }
@@ -87,13 +114,43 @@ public class WriteProductBandsTilesComputing extends AbstractImageTilesParallelC
         }
     }
 
+    private void writeTile(BoundingBox segmentationTileBounds, Band[] bands, String tileName) throws IOException {
+        int tileLeftX = segmentationTileBounds.getLeftX();
+        int tileTopY = segmentationTileBounds.getTopY();
+        int tileWidth = segmentationTileBounds.getWidth();
+        int tileHeight = segmentationTileBounds.getHeight();
+        int pixelCount = tileWidth * tileHeight;
+
+        // read the geophysical samples of each band at once, then interleave them as in the tile files
+        Rectangle tileBounds = new Rectangle(tileLeftX, tileTopY, tileWidth, tileHeight);
+        float[][] bandValues = new float[bands.length][];
+        for (int i=0; i<bands.length; i++) {
+            bandValues[i] = bands[i].getGeophysicalImage().getData(tileBounds).getSamples(tileLeftX, tileTopY, tileWidth, tileHeight, 0, (float[]) null);
+        }
+        ByteBuffer content = ByteBuffer.allocate(4 + 4 * bands.length * pixelCount);
+        content.putInt(bands.length);
+        for (int k=0; k<pixelCount; k++) {
+            for (int i=0; i<bands.length; i++) {
+                content.putFloat(bandValues[i][k]);
+            }
+        }
+        content.flip();
+        this.tileStore.putTile(tileName, content);
+    }
+
+    /**
+     * Writes the tiles and returns the temporary folder containing them, or <code>null</code> when the tiles are
+     * written into a tile store.
+     */
     public Path runTilesInParallel(int threadCount, Executor threadPool) throws Exception {
         long startTime = System.currentTimeMillis();
 
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, ""); // add an empty line
             logger.log(Level.FINE, "Start writing the product bands into local disk files: source product: '"+this.sourceProduct.getName()+"', image width: "+getImageWidth()+", image height: "+getImageHeight() + ", start time: " + new Date(startTime));
-            logger.log(Level.FINE, "Temporary folder path to store the binary files: '" + this.temporaryFolder.toFile().getAbsolutePath()+"'");
+            if (this.temporaryFolder != null) {
+                logger.log(Level.FINE, "Temporary folder path to store the binary files: '" + this.temporaryFolder.toFile().getAbsolutePath()+"'");
+            }
         }
 
         boolean success = false;
@@ -101,7 +158,7 @@ public class WriteProductBandsTilesComputing extends AbstractImageTilesParallelC
             super.executeInParallel(threadCount, threadPool);
             success = true;
         } finally {
-            if (!success) {
+            if (!success && this.temporaryFolder != null) {
                 // failed to copy the data and delete the folder
                 FileUtils.deleteTree(this.temporaryFolder.toFile());
             }
@@ -12,16 +12,18 @@ import eu.esa.opt.grm.segmentation.TileDataSource;
 import eu.esa.opt.grm.segmentation.*;
 import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.util.io.FileUtils;
-import org.esa.snap.utils.BufferedInputStreamWrapper;
-import org.esa.snap.utils.BufferedOutputStreamWrapper;
 import org.esa.snap.utils.ObjectMemory;
 
 import java.io.*;
 import java.lang.ref.WeakReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.function.IntPredicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,6 +37,7 @@ public abstract class AbstractTileSegmenter {
     private final float threshold;
     private final boolean addFourNeighbors;
     private final boolean fastSegmentation;
+    private boolean primitiveGraph;
     private final int imageWidth;
     private final int imageHeight;
     private final int totalIterationsForSecondSegmentation;
@@ -72,6 +75,13 @@ public abstract class AbstractTileSegmenter {
 
     public abstract AbstractSegmenter buildSegmenter(float threshold);
 
+    /**
+     * Sets whether the first segmentation of each tile is performed on a graph of primitive arrays.
+     */
+    public final void setPrimitiveGraph(boolean primitiveGraph) {
+        this.primitiveGraph = primitiveGraph;
+    }
+
     public final int computeTileMargin() {
         return computeTileMargin(this.tileWidth, this.tileHeight);
     }
@@ -266,7 +276,7 @@ public abstract class AbstractTileSegmenter {
                 AbstractSegmenter segmenter = buildSegmenter(this.threshold);
                 int iterationsForEachFirstSegmentation = computeNumberOfFirstIterations(this.tileWidth, this.tileHeight);
 
-                boolean complete = segmenter.update(sourceTiles, tileToProcess.getRegion(), iterationsForEachFirstSegmentation, this.fastSegmentation, this.addFourNeighbors);
+                boolean complete = segmenter.update(sourceTiles, tileToProcess.getRegion(), iterationsForEachFirstSegmentation, this.fastSegmentation, this.addFourNeighbors, this.primitiveGraph);
                 Graph graph = segmenter.getGraph();
 
                 if (logger.isLoggable(Level.FINEST)) {
@@ -346,46 +356,25 @@ public abstract class AbstractTileSegmenter {
         return computeNumberOfFirstIterations(this.tileWidth, this.tileHeight);
     }
 
-    protected void writeNode(BufferedOutputStreamWrapper nodesFileStream, Node nodeToWrite) throws IOException {
-        nodesFileStream.writeInt(nodeToWrite.getId());
-        nodesFileStream.writeInt(nodeToWrite.getPerimeter());
-        nodesFileStream.writeInt(nodeToWrite.getArea());
-
-        BoundingBox box = nodeToWrite.getBox();
-        nodesFileStream.writeInt(box.getLeftX());
-        nodesFileStream.writeInt(box.getTopY());
-        nodesFileStream.writeInt(box.getWidth());
-        nodesFileStream.writeInt(box.getHeight());
-
-        Contour contour = nodeToWrite.getContour();
-        nodesFileStream.writeInt(contour.size());
-        byte[] bits = contour.getBits();
-        nodesFileStream.writeInt(bits.length);
-        nodesFileStream.write(bits);
-
-        nodesFileStream.writeInt(nodeToWrite.getNumberOfComponentsPerPixel());
+    /**
+     * Returns the number of segmenter specific float attributes stored for each node. By default only the means are stored.
+     */
+    protected int getNodeAttributeCount(int numberOfComponentsPerPixel) {
+        return numberOfComponentsPerPixel;
     }
 
-    protected Node readNode(BufferedInputStreamWrapper nodesFileStream) throws IOException {
-        int nodeId = nodesFileStream.readInt();
-        int perimeter = nodesFileStream.readInt();
-        int area = nodesFileStream.readInt();
-
-        int upperLeftX = nodesFileStream.readInt();
-        int upperLeftY = nodesFileStream.readInt();
-        int width = nodesFileStream.readInt();
-        int height = nodesFileStream.readInt();
-        BoundingBox box = new BoundingBox(upperLeftX, upperLeftY, width, height);
-
-        int contourSize = nodesFileStream.readInt();
-        int byteCount = nodesFileStream.readInt();
-        byte[] bits = new byte[byteCount];
-        nodesFileStream.readFully(bits);
-        Contour contour = new Contour(contourSize, bits);
-
-        int numberOfComponentsPerPixel = nodesFileStream.readInt();
+    protected void writeNodeAttributes(Node node, float[] attributes) {
+        int count = node.getNumberOfComponentsPerPixel();
+        for (int i=0; i<count; i++) {
+            attributes[i] = node.getMeansAt(i);
+        }
+    }
 
-        return buildNode(nodeId, box, contour, perimeter, area, numberOfComponentsPerPixel);
+    protected void readNodeAttributes(Node node, float[] attributes) {
+        int count = node.getNumberOfComponentsPerPixel();
+        for (int i=0; i<count; i++) {
+            node.setMeansAt(i, attributes[i]);
+        }
     }
 
     private int computeNumberOfNeighborLayers() {
@@ -500,40 +489,27 @@ public abstract class AbstractTileSegmenter {
             logger.log(Level.FINE, "Second tile segmentation (extract the stability margin): row index: " + rowIndex + ", column index: " + columnIndex+", iteration: "+iteration+", tile region: " +tileRegionToString(currentTile.getRegion()));
         }
 
-        Graph graph = readGraph(currentTile.getNodeFileName(), currentTile.getEdgeFileName());
+        // the stability margin is extracted from the stored records, without building the nodes of the graph
+        TileGraphStore store = readGraphStore(currentTile.getNodeFileName(), currentTile.getEdgeFileName());
 
         if (logger.isLoggable(Level.FINEST)) {
-            logger.log(Level.FINEST, "Second tile segmentation (extract the stability margin - after read graph): row index: " + rowIndex + ", column index: " + columnIndex +", graph node count: "+graph.getNodeCount());
+            logger.log(Level.FINEST, "Second tile segmentation (extract the stability margin - after read graph): row index: " + rowIndex + ", column index: " + columnIndex +", graph node count: "+store.getNodeCount());
         }
 
-        List<Node> nodesToIterate = graph.detectBorderNodes(0, this.threadPool, currentTile, this.imageWidth, this.imageHeight);
+        IntList nodesToIterate = detectBorderNodes(store, currentTile, this.imageWidth, this.imageHeight);
 
         if (logger.isLoggable(Level.FINEST)) {
             logger.log(Level.FINEST, "Second tile segmentation (extract the stability margin - after detecting border nodes): row index: " + rowIndex + ", column index: " + columnIndex+", border node count: " + nodesToIterate.size());
         }
 
-        Int2ObjectMap<Node> borderNodes = extractStabilityMargin(nodesToIterate, numberOfNeighborLayers);
+        IntList borderNodes = extractStabilityMargin(store, nodesToIterate, numberOfNeighborLayers);
 
         if (logger.isLoggable(Level.FINEST)) {
             logger.log(Level.FINEST, "Second tile segmentation (extract the stability margin - after extracting border nodes): row index: " + rowIndex + ", column index: " + columnIndex+", node count to write for stability margin: " + borderNodes.size());
         }
 
-        writeStabilityMargin(borderNodes, currentTile.getNodeMarginFileName(), currentTile.getEdgeMarginFileName());
-
-        graph.doClose();
-
-        // reset the references
-        WeakReference<Graph> referenceGraph = new WeakReference<Graph>(graph);
-        referenceGraph.clear();
-        WeakReference<List<Node>> referenceNodesToIterate = new WeakReference<List<Node>>(nodesToIterate);
-        referenceNodesToIterate.clear();
-        WeakReference<Int2ObjectMap<Node>> referenceBorderNodes = new WeakReference<Int2ObjectMap<Node>>(borderNodes);
-        referenceBorderNodes.clear();
-
-//        graph = null;
-//        nodesToIterate = null;
-//        borderNodes = null;
-//        System.gc();
+        // write only edges pointing to nodes which are in the stability margin.
+        store.write(this.temporaryFolder.resolve(currentTile.getNodeMarginFileName()), this.temporaryFolder.resolve(currentTile.getEdgeMarginFileName()), borderNodes);
     }
 
     private AbstractSegmenter mergeGraphsAndAchieveSegmentation(int numberOfRemainingIterations) throws IOException, InterruptedException {
@@ -690,168 +666,66 @@ public abstract class AbstractTileSegmenter {
     }
 
     private void writeGraph(Graph graph, String nodesPath, String edgesPath) throws IOException {
-        BufferedOutputStreamWrapper nodesFileStream = null;
-        BufferedOutputStreamWrapper edgesFileStream = null;
-        try {
-            File nodesFile = this.temporaryFolder.resolve(nodesPath).toFile();
-            nodesFileStream = new BufferedOutputStreamWrapper(nodesFile);
-
-            File edgesFile = this.temporaryFolder.resolve(edgesPath).toFile();
-            edgesFileStream = new BufferedOutputStreamWrapper(edgesFile);
-
-            int nodeCount = graph.getNodeCount();
-            nodesFileStream.writeInt(nodeCount);
-
-            for (int i=0; i<nodeCount; i++) {
-                Node node = graph.getNodeAt(i);
-                writeNode(nodesFileStream, node);
+        int nodeCount = graph.getNodeCount();
+        List<Node> nodes = new ArrayList<Node>(nodeCount);
+        for (int i=0; i<nodeCount; i++) {
+            nodes.add(graph.getNodeAt(i));
+        }
+        writeNodes(nodes, null, nodesPath, edgesPath);
+    }
 
-                // write the node id in the edge file
-                edgesFileStream.writeInt(node.getId());
+    private void writeStabilityMargin(Int2ObjectMap<Node> borderNodes, String nodesPath, String edgesPath) throws IOException {
+        // write only edges pointing to nodes which are in the stability margin.
+        writeNodes(borderNodes.values(), borderNodes::containsKey, nodesPath, edgesPath);
+    }
 
-                int edgeCount = node.getEdgeCount();
-                edgesFileStream.writeInt(edgeCount);
-                for (int k=0; k<edgeCount; k++) {
-                    Edge edge = node.getEdgeAt(k);
-                    writeEdge(edgesFileStream, edge);
-                }
-            }
-        } finally {
-            if (nodesFileStream != null) {
-                try {
-                    nodesFileStream.close();
-                } catch (IOException exception) {
-                    // ignore exception
-                }
-            }
-            if (edgesFileStream != null) {
-                try {
-                    edgesFileStream.close();
-                } catch (IOException exception) {
-                    // ignore exception
-                }
-            }
+    private void writeNodes(Collection<Node> nodes, IntPredicate edgeFilter, String nodesPath, String edgesPath) throws IOException {
+        int attributeCount = 0;
+        if (!nodes.isEmpty()) {
+            attributeCount = getNodeAttributeCount(nodes.iterator().next().getNumberOfComponentsPerPixel());
         }
+        Path nodesFile = this.temporaryFolder.resolve(nodesPath);
+        Path edgesFile = this.temporaryFolder.resolve(edgesPath);
+        TileGraphStore.write(nodesFile, edgesFile, nodes, edgeFilter, attributeCount, this::writeNodeAttributes);
     }
 
-    private void writeEdge(BufferedOutputStreamWrapper edgesFileStream, Edge edge) throws IOException {
-        edgesFileStream.writeInt(edge.getTarget().getId());
-        edgesFileStream.writeInt(edge.getBoundary());
+    private TileGraphStore readGraphStore(String nodesPath, String edgesPath) throws IOException {
+        Path nodesFile = this.temporaryFolder.resolve(nodesPath);
+        Path edgesFile = this.temporaryFolder.resolve(edgesPath);
+        return TileGraphStore.open(nodesFile, edgesFile);
     }
 
     private Graph readGraph(String nodesPath, String edgesPath) throws IOException {
-        BufferedInputStreamWrapper nodesFileStream = null;
-        BufferedInputStreamWrapper edgesFileStream = null;
-        try {
-            File nodesFile = this.temporaryFolder.resolve(nodesPath).toFile();
-            nodesFileStream = new BufferedInputStreamWrapper(nodesFile);
-
-            int nodeCount = nodesFileStream.readInt();
-            Int2ObjectMap<Node> nodesMap = new Int2ObjectLinkedOpenHashMap<Node>(nodeCount);
-            Graph graph = new Graph(nodeCount);
-            for (int i=0; i<nodeCount; i++) {
-                Node node = readNode(nodesFileStream);
-                nodesMap.put(node.getId(), node);
-                graph.addNode(node);
-            }
-
-            File edgesFile = this.temporaryFolder.resolve(edgesPath).toFile();
-            edgesFileStream = new BufferedInputStreamWrapper(edgesFile);
-
-            for (int i=0; i<nodeCount; i++) {
-                Node node = graph.getNodeAt(i);
-                int nodeId = edgesFileStream.readInt();
-                assert(node.getId() == nodeId);
-
-                int edgeCount = edgesFileStream.readInt();
-                for (int k=0; k<edgeCount; k++) {
-                    int targetNodeId = edgesFileStream.readInt();
-                    int boundary = edgesFileStream.readInt();
-                    Node targetNode = nodesMap.get(targetNodeId);
-                    if (targetNode != null) {
-                        node.addEdge(targetNode, boundary);
-                    }
-                }
-            }
-
-            return graph;
-        } finally {
-            if (nodesFileStream != null) {
-                try {
-                    nodesFileStream.close();
-                } catch (IOException exception) {
-                    // ignore exception
-                }
-            }
-            if (edgesFileStream != null) {
-                try {
-                    edgesFileStream.close();
-                } catch (IOException exception) {
-                    // ignore exception
-                }
+        TileGraphStore store = readGraphStore(nodesPath, edgesPath);
+
+        int nodeCount = store.getNodeCount();
+        float[] attributes = new float[store.getAttributeCount()];
+        Int2ObjectMap<Node> nodesMap = new Int2ObjectLinkedOpenHashMap<Node>(nodeCount);
+        Graph graph = new Graph(nodeCount);
+        for (int i=0; i<nodeCount; i++) {
+            BoundingBox box = new BoundingBox(store.getBoxLeftX(i), store.getBoxTopY(i), store.getBoxWidth(i), store.getBoxHeight(i));
+            Contour contour = new Contour(store.getContourSize(i), store.readContourBits(i));
+            Node node = buildNode(store.getNodeId(i), box, contour, store.getPerimeter(i), store.getArea(i), store.getNumberOfComponentsPerPixel(i));
+            if (attributes.length > 0) {
+                store.readAttributes(i, attributes);
+                readNodeAttributes(node, attributes);
             }
+            nodesMap.put(node.getId(), node);
+            graph.addNode(node);
         }
-    }
-
-    private void writeStabilityMargin(Int2ObjectMap<Node> borderNodes, String nodesPath, String edgesPath) throws IOException {
-        BufferedOutputStreamWrapper nodesFileStream = null;
-        BufferedOutputStreamWrapper edgesFileStream = null;
-        try {
-            File nodesFile = this.temporaryFolder.resolve(nodesPath).toFile();
-            nodesFileStream = new BufferedOutputStreamWrapper(nodesFile);
-
-            File edgesFile = this.temporaryFolder.resolve(edgesPath).toFile();
-            edgesFileStream = new BufferedOutputStreamWrapper(edgesFile);
-
-            // write the number of nodes
-            nodesFileStream.writeInt(borderNodes.size());
-
-            ObjectIterator<Int2ObjectMap.Entry<Node>> it = borderNodes.int2ObjectEntrySet().iterator();
-            while (it.hasNext()) {
-                Int2ObjectMap.Entry<Node> entry = it.next();
-                Node node = entry.getValue();
-                writeNode(nodesFileStream, node);
-
-                // write the node id in the edge file
-                edgesFileStream.writeInt(node.getId());
-
-                int edgeCountToWrite = 0;
-                int edgeCount = node.getEdgeCount();
-                for (int k=0; k<edgeCount; k++) {
-                    Edge edge = node.getEdgeAt(k);
-                    Node targetNode = edge.getTarget();
-                    if (borderNodes.containsKey(targetNode.getId())) {
-                        edgeCountToWrite++;
-                    }
-                }
 
-                // write only edges pointing to nodes which are in the stability margin.
-                edgesFileStream.writeInt(edgeCountToWrite);
-
-                for (int k=0; k<edgeCount; k++) {
-                    Edge edge = node.getEdgeAt(k);
-                    Node targetNode = edge.getTarget();
-                    if (borderNodes.containsKey(targetNode.getId())) {
-                        writeEdge(edgesFileStream, edge);
-                    }
-                }
-            }
-        } finally {
-            if (nodesFileStream != null) {
-                try {
-                    nodesFileStream.close();
-                } catch (IOException exception) {
-                    // ignore exception
-                }
-            }
-            if (edgesFileStream != null) {
-                try {
-                    edgesFileStream.close();
-                } catch (IOException exception) {
-                    // ignore exception
+        for (int i=0; i<nodeCount; i++) {
+            Node node = graph.getNodeAt(i);
+            int edgeCount = store.getEdgeCount(i);
+            for (int k=0; k<edgeCount; k++) {
+                Node targetNode = nodesMap.get(store.getEdgeTargetId(i, k));
+                if (targetNode != null) {
+                    node.addEdge(targetNode, store.getEdgeBoundary(i, k));
                 }
             }
         }
+
+        return graph;
     }
 
     private String getTemporaryFolderPath() {
@@ -1067,6 +941,83 @@ public abstract class AbstractTileSegmenter {
         }
     }
 
+    private static IntList detectBorderNodes(TileGraphStore store, ProcessingTile tile, int imageWidth, int imageHeight) {
+        IntList borderNodes = new IntArrayList();
+        int nodeCount = store.getNodeCount();
+        for (int i=0; i<nodeCount; i++) {
+            if (tile.isRegionInside(store.getBoxLeftX(i), store.getBoxTopY(i), store.getBoxWidth(i), store.getBoxHeight(i))) {
+                continue; // the node is inside the tile
+            }
+            // the node is on the tile margin or outside the tile
+            int currentCellId = store.getNodeId(i);
+            if (tile.isBorderCell(currentCellId, imageWidth, imageHeight)) {
+                borderNodes.add(i);
+            } else if (store.getContourSize(i) > 8) {
+                // explore the contour, the same way as Contour.computeContourBorderSize()
+                int previousMoveId = store.getContourMove(i, 0);
+                int contourSize = store.getContourSize(i) / 2;
+                for (int moveIndex = 1; moveIndex < contourSize; moveIndex++) {
+                    int currentMoveId = store.getContourMove(i, moveIndex);
+                    int nextCellId = Contour.computeNextCellId(previousMoveId, currentMoveId, currentCellId, imageWidth);
+                    if (nextCellId != currentCellId) {
+                        currentCellId = nextCellId;
+                        if (tile.isBorderCell(currentCellId, imageWidth, imageHeight)) {
+                            borderNodes.add(i);
+                            break;
+                        }
+                    }
+                    previousMoveId = currentMoveId;
+                }
+            }
+        }
+        return borderNodes;
+    }
+
+    private static IntList extractStabilityMargin(TileGraphStore store, IntList nodesToIterate, int numberOfLayers) {
+        int nodeCount = store.getNodeCount();
+        Int2IntMap nodeIndices = new Int2IntOpenHashMap(nodeCount);
+        nodeIndices.defaultReturnValue(-1);
+        for (int i=0; i<nodeCount; i++) {
+            nodeIndices.put(store.getNodeId(i), i);
+        }
+        // the layer of each visited node, in the same order as the nodes are visited by the object based extraction
+        int[] layers = new int[nodeCount];
+        Arrays.fill(layers, -1);
+        IntList borderNodes = new IntArrayList(nodesToIterate.size());
+        for (int i=0; i<nodesToIterate.size(); i++) {
+            int nodeIndex = nodesToIterate.getInt(i);
+            if (layers[nodeIndex] < 0) {
+                borderNodes.add(nodeIndex);
+            }
+            layers[nodeIndex] = 0;
+        }
+        for (int i=0; i<nodesToIterate.size(); i++) {
+            exploreDFS(store, nodeIndices, nodesToIterate.getInt(i), 0, layers, borderNodes, numberOfLayers);
+        }
+        return borderNodes;
+    }
+
+    private static void exploreDFS(TileGraphStore store, Int2IntMap nodeIndices, int nodeIndex, int p, int[] layers, IntList borderNodes, int numberOfLayers) {
+        if (p > numberOfLayers) {
+            return;
+        }
+        int value = layers[nodeIndex];
+        if (value >= 0 && p > value) {
+            return;
+        }
+        if (value < 0) {
+            borderNodes.add(nodeIndex);
+        }
+        layers[nodeIndex] = p;
+        int edgeCount = store.getEdgeCount(nodeIndex);
+        for (int k=0; k<edgeCount; k++) {
+            int targetIndex = nodeIndices.get(store.getEdgeTargetId(nodeIndex, k));
+            if (targetIndex >= 0) {
+                exploreDFS(store, nodeIndices, targetIndex, p + 1, layers, borderNodes, numberOfLayers);
+            }
+        }
+    }
+
     private static int computeNumberOfFirstIterations(int tileWidth, int tileHeight) {
         int numberOfFirstIterations = 1;
         int maxMargin = Math.min(tileWidth, tileHeight) / 2;
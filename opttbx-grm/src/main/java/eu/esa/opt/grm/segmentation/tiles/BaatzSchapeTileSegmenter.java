@@ -7,8 +7,6 @@ import eu.esa.opt.grm.segmentation.BoundingBox;
 import eu.esa.opt.grm.segmentation.Contour;
 import eu.esa.opt.grm.segmentation.Node;
 import eu.esa.opt.grm.segmentation.*;
-import org.esa.snap.utils.BufferedInputStreamWrapper;
-import org.esa.snap.utils.BufferedOutputStreamWrapper;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -41,31 +39,31 @@ public class BaatzSchapeTileSegmenter extends AbstractTileSegmenter {
     }
 
     @Override
-    protected void writeNode(BufferedOutputStreamWrapper nodesFileStream, Node nodeToWrite) throws IOException {
-        super.writeNode(nodesFileStream, nodeToWrite);
+    protected int getNodeAttributeCount(int numberOfComponentsPerPixel) {
+        return 4 * numberOfComponentsPerPixel;
+    }
 
+    @Override
+    protected void writeNodeAttributes(Node nodeToWrite, float[] attributes) {
         BaatzSchapeNode node = (BaatzSchapeNode)nodeToWrite;
         int count = node.getNumberOfComponentsPerPixel();
-        for (int i=0; i<count; i++) {
-            nodesFileStream.writeFloat(node.getMeansAt(i));
-            nodesFileStream.writeFloat(node.getSpectralSumAt(i));
-            nodesFileStream.writeFloat(node.getSquareMeansAt(i));
-            nodesFileStream.writeFloat(node.getStdAt(i));
+        for (int i=0, k=0; i<count; i++) {
+            attributes[k++] = node.getMeansAt(i);
+            attributes[k++] = node.getSpectralSumAt(i);
+            attributes[k++] = node.getSquareMeansAt(i);
+            attributes[k++] = node.getStdAt(i);
         }
     }
 
     @Override
-    protected Node readNode(BufferedInputStreamWrapper nodesFileStream) throws IOException {
-        BaatzSchapeNode node = (BaatzSchapeNode)super.readNode(nodesFileStream);
-
+    protected void readNodeAttributes(Node nodeToRead, float[] attributes) {
+        BaatzSchapeNode node = (BaatzSchapeNode)nodeToRead;
         int count = node.getNumberOfComponentsPerPixel();
-        for (int i=0; i<count; i++) {
-            node.setMeansAt(i, nodesFileStream.readFloat());
-            node.setSpectralSumAt(i, nodesFileStream.readFloat());
-            node.setSquareMeansAt(i, nodesFileStream.readFloat());
-            node.setStdAt(i, nodesFileStream.readFloat());
+        for (int i=0, k=0; i<count; i++) {
+            node.setMeansAt(i, attributes[k++]);
+            node.setSpectralSumAt(i, attributes[k++]);
+            node.setSquareMeansAt(i, attributes[k++]);
+            node.setStdAt(i, attributes[k++]);
         }
-
-        return node;
     }
 }
@@ -150,6 +150,25 @@ public class ProcessingTile {
     }
 
     public boolean isRegionInside(BoundingBox box) {
-        return (box.getLeftX() > getImageLeftX() && box.getTopY() > getImageTopY() && box.getRightX() - 1 < getImageRightX() && box.getBottomY() - 1 < getImageBottomY());
+        return isRegionInside(box.getLeftX(), box.getTopY(), box.getWidth(), box.getHeight());
+    }
+
+    public boolean isRegionInside(int leftX, int topY, int width, int height) {
+        return (leftX > getImageLeftX() && topY > getImageTopY() && leftX + width - 1 < getImageRightX() && topY + height - 1 < getImageBottomY());
+    }
+
+    public boolean isBorderCell(int cellId, int imageWidth, int imageHeight) {
+        int rowPixelInImage = cellId / imageWidth;
+        int colPixelInImage = cellId % imageWidth;
+        if (getImageTopY() > 0 && rowPixelInImage == getImageTopY()) {
+            return true;
+        } else if (getImageRightX() < imageWidth - 1 && colPixelInImage == getImageRightX()) {
+            return true;
+        } else if (getImageBottomY() < imageHeight - 1 && rowPixelInImage == getImageBottomY()) {
+            return true;
+        } else if (getImageLeftX() > 0 && colPixelInImage == getImageLeftX()) {
+            return true;
+        }
+        return false;
     }
 }
@@ -3,10 +3,12 @@ package eu.esa.opt.grm.segmentation.tiles;
 import eu.esa.opt.grm.segmentation.TileDataSource;
 import eu.esa.opt.grm.segmentation.BoundingBox;
 import org.esa.snap.utils.BufferedInputStreamWrapper;
+import org.esa.snap.utils.OffHeapTileStore;
 import org.esa.snap.utils.matrix.FloatMatrix;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -19,10 +21,24 @@ public class SegmentationSourceProductPair {
 
     private final Path currentTemporaryFolder;
     private final Path previousTemporaryFolder;
+    private final OffHeapTileStore currentTileStore;
+    private final OffHeapTileStore previousTileStore;
 
     public SegmentationSourceProductPair(Path currentTemporaryFolder, Path previousTemporaryFolder) {
         this.currentTemporaryFolder = currentTemporaryFolder;
         this.previousTemporaryFolder = previousTemporaryFolder;
+        this.currentTileStore = null;
+        this.previousTileStore = null;
+    }
+
+    /**
+     * Reads the source tiles from the tile stores filled by <code>WriteProductBandsTilesComputing</code>.
+     */
+    public SegmentationSourceProductPair(OffHeapTileStore currentTileStore, OffHeapTileStore previousTileStore) {
+        this.currentTemporaryFolder = null;
+        this.previousTemporaryFolder = null;
+        this.currentTileStore = currentTileStore;
+        this.previousTileStore = previousTileStore;
     }
 
     public TileDataSource[] buildSourceTiles(int tileLeftX, int tileTopY, int tileWidth, int tileHeight, int localRowIndex,
@@ -34,8 +50,15 @@ public class SegmentationSourceProductPair {
             logger.log(Level.FINE, "Read bands values for tile region: row index: "+ localRowIndex+", column index: "+localColumnIndex+", bounds [x=" + tileLeftX+", y="+tileTopY+", width="+tileWidth+", height="+tileHeight+"]");
         }
 
-        TileDataSource[] currentSourceTiles = buildSourceTiles(segmentationTileBounds, this.currentTemporaryFolder);
-        TileDataSource[] previousSourceTiles = buildSourceTiles(segmentationTileBounds, this.previousTemporaryFolder);
+        TileDataSource[] currentSourceTiles;
+        TileDataSource[] previousSourceTiles;
+        if (this.currentTileStore == null) {
+            currentSourceTiles = buildSourceTiles(segmentationTileBounds, this.currentTemporaryFolder);
+            previousSourceTiles = buildSourceTiles(segmentationTileBounds, this.previousTemporaryFolder);
+        } else {
+            currentSourceTiles = buildSourceTiles(segmentationTileBounds, this.currentTileStore);
+            previousSourceTiles = buildSourceTiles(segmentationTileBounds, this.previousTileStore);
+        }
 
         int count = currentSourceTiles.length + previousSourceTiles.length + currentSourceTiles.length;
         TileDataSource[] output = new TileDataSource[count];
@@ -91,6 +114,32 @@ public class SegmentationSourceProductPair {
         }
     }
 
+    public static TileDataSource[] buildSourceTiles(BoundingBox segmentationTileBounds, OffHeapTileStore tileStore) throws IOException {
+        String tileName = buildSegmentationTileFileName(segmentationTileBounds);
+        ByteBuffer content = tileStore.getTile(tileName);
+
+        int bandCount = content.getInt();
+
+        int segmentationTileTopY = segmentationTileBounds.getTopY();
+        int segmentationTileLeftX = segmentationTileBounds.getLeftX();
+
+        TileDataSourceImplNew[] output = new TileDataSourceImplNew[bandCount];
+        for (int i=0; i<bandCount; i++) {
+            output[i] = new TileDataSourceImplNew(segmentationTileBounds.getHeight(), segmentationTileBounds.getWidth(), segmentationTileTopY, segmentationTileLeftX);
+        }
+
+        int segmentationTileBottomY = segmentationTileTopY + segmentationTileBounds.getHeight();
+        int segmentationTileRightX = segmentationTileLeftX + segmentationTileBounds.getWidth();
+        for (int y = segmentationTileTopY; y < segmentationTileBottomY; y++) {
+            for (int x = segmentationTileLeftX; x < segmentationTileRightX; x++) {
+                for (int i=0; i<bandCount; i++) {
+                    output[i].setValueAt(y, x, content.getFloat());
+                }
+            }
+        }
+        return output;
+    }
+
     private static class TileDataSourceImplNew extends FloatMatrix implements TileDataSource {
 
         private final int segmentationTileTopY;
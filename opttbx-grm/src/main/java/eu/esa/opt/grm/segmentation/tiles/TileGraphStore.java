@@ -0,0 +1,593 @@
+package eu.esa.opt.grm.segmentation.tiles;
+
+import eu.esa.opt.grm.segmentation.BoundingBox;
+import eu.esa.opt.grm.segmentation.Contour;
+import eu.esa.opt.grm.segmentation.Edge;
+import eu.esa.opt.grm.segmentation.Node;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Storage of a tile graph using a fixed binary layout.
+ * <p>
+ * The nodes file contains a header followed by one column per node property (struct of arrays):
+ * ids, perimeters, areas, the four bounding box values, the contour sizes, the number of components per pixel,
+ * the contour offsets, the segmenter specific float attributes (e.g. the means) and finally the contour bits.
+ * The edges file contains the edges in compressed sparse row layout: the edge offsets of each node followed
+ * by the target ids and the boundaries of all edges.
+ * <p>
+ * The files are written and read with positional channel operations and are closed before the methods return,
+ * so the files of a tile can be rewritten or deleted while a store read from them is still in use. The values of
+ * an opened store are accessed by node index, a reader does not need to materialize {@link Node} objects.
+ *
+ * @see AbstractTileSegmenter
+ */
+public class TileGraphStore {
+
+    private static final int NODES_MAGIC = 0x47524d4e; // GRMN
+    private static final int EDGES_MAGIC = 0x47524d45; // GRME
+    private static final int VERSION = 1;
+    private static final int NODES_HEADER_SIZE = 4 * Integer.BYTES;
+    private static final int EDGES_HEADER_SIZE = 4 * Integer.BYTES;
+    private static final int INT_COLUMN_COUNT = 9;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final int COLUMN_ID = 0;
+    private static final int COLUMN_PERIMETER = 1;
+    private static final int COLUMN_AREA = 2;
+    private static final int COLUMN_BOX_LEFT_X = 3;
+    private static final int COLUMN_BOX_TOP_Y = 4;
+    private static final int COLUMN_BOX_WIDTH = 5;
+    private static final int COLUMN_BOX_HEIGHT = 6;
+    private static final int COLUMN_CONTOUR_SIZE = 7;
+    private static final int COLUMN_COMPONENT_COUNT = 8;
+
+    private final ByteBuffer nodesBuffer;
+    private final ByteBuffer edgesBuffer;
+    private final int nodeCount;
+    private final int attributeCount;
+    private final int edgeCount;
+    private final int contourOffsetsPosition;
+    private final int attributesPosition;
+    private final int contourBitsPosition;
+    private final int edgeTargetsPosition;
+    private final int edgeBoundariesPosition;
+
+    private TileGraphStore(ByteBuffer nodesBuffer, ByteBuffer edgesBuffer) throws IOException {
+        this.nodesBuffer = nodesBuffer;
+        this.edgesBuffer = edgesBuffer;
+
+        checkHeader(nodesBuffer, NODES_MAGIC);
+        checkHeader(edgesBuffer, EDGES_MAGIC);
+        this.nodeCount = nodesBuffer.getInt(2 * Integer.BYTES);
+        this.attributeCount = nodesBuffer.getInt(3 * Integer.BYTES);
+        if (edgesBuffer.getInt(2 * Integer.BYTES) != this.nodeCount) {
+            throw new IOException("The node count of the edges file does not match the nodes file.");
+        }
+        this.edgeCount = edgesBuffer.getInt(3 * Integer.BYTES);
+
+        this.contourOffsetsPosition = NODES_HEADER_SIZE + INT_COLUMN_COUNT * this.nodeCount * Integer.BYTES;
+        this.attributesPosition = this.contourOffsetsPosition + (this.nodeCount + 1) * Integer.BYTES;
+        this.contourBitsPosition = this.attributesPosition + this.nodeCount * this.attributeCount * Float.BYTES;
+        this.edgeTargetsPosition = EDGES_HEADER_SIZE + (this.nodeCount + 1) * Integer.BYTES;
+        this.edgeBoundariesPosition = this.edgeTargetsPosition + this.edgeCount * Integer.BYTES;
+        if (nodesBuffer.capacity() < this.contourBitsPosition || edgesBuffer.capacity() < this.edgeBoundariesPosition + this.edgeCount * Integer.BYTES) {
+            throw new IOException("The tile graph files are truncated.");
+        }
+    }
+
+    /**
+     * Reads the files of a stored tile graph. The files are closed when the method returns.
+     *
+     * @param nodesFile the nodes file
+     * @param edgesFile the edges file
+     * @return the store
+     * @throws IOException if the files can not be read or do not contain a stored graph
+     */
+    public static TileGraphStore open(Path nodesFile, Path edgesFile) throws IOException {
+        return new TileGraphStore(readFile(nodesFile), readFile(edgesFile));
+    }
+
+    /**
+     * Writes the nodes and their edges into the given files. Existing files are replaced.
+     *
+     * @param nodesFile        the nodes file
+     * @param edgesFile        the edges file
+     * @param nodes            the nodes to write
+     * @param edgeFilter       accepts the target node ids of the edges to write, or {@code null} to write all edges
+     * @param attributeCount   the number of float attributes of each node
+     * @param attributesWriter copies the float attributes of a node into the given array
+     * @throws IOException if the files can not be written
+     */
+    public static void write(Path nodesFile, Path edgesFile, Collection<? extends Node> nodes, IntPredicate edgeFilter,
+                             int attributeCount, NodeAttributesWriter attributesWriter) throws IOException {
+
+        write(nodesFile, edgesFile, new NodeRecords(nodes, attributeCount, attributesWriter), edgeFilter);
+    }
+
+    /**
+     * Copies some nodes of this store into the given files. Only the edges between the copied nodes are written.
+     *
+     * @param nodesFile   the nodes file, must not be one of the files this store was read from
+     * @param edgesFile   the edges file, must not be one of the files this store was read from
+     * @param nodeIndices the indices of the nodes to copy, in the order they are written
+     * @throws IOException if the files can not be written
+     */
+    public void write(Path nodesFile, Path edgesFile, IntList nodeIndices) throws IOException {
+        IntSet nodeIds = new IntOpenHashSet(nodeIndices.size());
+        for (int i=0; i<nodeIndices.size(); i++) {
+            nodeIds.add(getNodeId(nodeIndices.getInt(i)));
+        }
+        write(nodesFile, edgesFile, new StoreRecords(this, nodeIndices), nodeIds::contains);
+    }
+
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    public int getAttributeCount() {
+        return this.attributeCount;
+    }
+
+    public int getTotalEdgeCount() {
+        return this.edgeCount;
+    }
+
+    public int getNodeId(int nodeIndex) {
+        return getIntColumn(COLUMN_ID, nodeIndex);
+    }
+
+    public int getPerimeter(int nodeIndex) {
+        return getIntColumn(COLUMN_PERIMETER, nodeIndex);
+    }
+
+    public int getArea(int nodeIndex) {
+        return getIntColumn(COLUMN_AREA, nodeIndex);
+    }
+
+    public int getBoxLeftX(int nodeIndex) {
+        return getIntColumn(COLUMN_BOX_LEFT_X, nodeIndex);
+    }
+
+    public int getBoxTopY(int nodeIndex) {
+        return getIntColumn(COLUMN_BOX_TOP_Y, nodeIndex);
+    }
+
+    public int getBoxWidth(int nodeIndex) {
+        return getIntColumn(COLUMN_BOX_WIDTH, nodeIndex);
+    }
+
+    public int getBoxHeight(int nodeIndex) {
+        return getIntColumn(COLUMN_BOX_HEIGHT, nodeIndex);
+    }
+
+    public int getContourSize(int nodeIndex) {
+        return getIntColumn(COLUMN_CONTOUR_SIZE, nodeIndex);
+    }
+
+    public int getNumberOfComponentsPerPixel(int nodeIndex) {
+        return getIntColumn(COLUMN_COMPONENT_COUNT, nodeIndex);
+    }
+
+    public int getContourByteCount(int nodeIndex) {
+        return getContourOffset(nodeIndex + 1) - getContourOffset(nodeIndex);
+    }
+
+    public byte getContourByte(int nodeIndex, int byteIndex) {
+        return this.nodesBuffer.get(this.contourBitsPosition + getContourOffset(nodeIndex) + byteIndex);
+    }
+
+    /**
+     * Returns a move of the contour of a node, using the same bit layout as {@link Contour#getMove(int)}.
+     */
+    public int getContourMove(int nodeIndex, int moveIndex) {
+        int contourPosition = this.contourBitsPosition + getContourOffset(nodeIndex);
+        int bitIndex = 2 * moveIndex;
+        int value = this.nodesBuffer.get(contourPosition + bitIndex / 8) >> (6 - (bitIndex % 8));
+        return value & 0x03;
+    }
+
+    /**
+     * Copies the contour bits of a node into a new array.
+     */
+    public byte[] readContourBits(int nodeIndex) {
+        int offset = getContourOffset(nodeIndex);
+        byte[] bits = new byte[getContourOffset(nodeIndex + 1) - offset];
+        ByteBuffer view = this.nodesBuffer.duplicate();
+        view.position(this.contourBitsPosition + offset);
+        view.get(bits);
+        return bits;
+    }
+
+    public float getAttribute(int nodeIndex, int attributeIndex) {
+        return this.nodesBuffer.getFloat(getAttributePosition(nodeIndex, attributeIndex));
+    }
+
+    public void readAttributes(int nodeIndex, float[] attributes) {
+        int position = getAttributePosition(nodeIndex, 0);
+        for (int k = 0; k < this.attributeCount; k++) {
+            attributes[k] = this.nodesBuffer.getFloat(position + k * Float.BYTES);
+        }
+    }
+
+    public int getEdgeCount(int nodeIndex) {
+        return getEdgeOffset(nodeIndex + 1) - getEdgeOffset(nodeIndex);
+    }
+
+    public int getEdgeTargetId(int nodeIndex, int edgeIndex) {
+        return this.edgesBuffer.getInt(this.edgeTargetsPosition + (getEdgeOffset(nodeIndex) + edgeIndex) * Integer.BYTES);
+    }
+
+    public int getEdgeBoundary(int nodeIndex, int edgeIndex) {
+        return this.edgesBuffer.getInt(this.edgeBoundariesPosition + (getEdgeOffset(nodeIndex) + edgeIndex) * Integer.BYTES);
+    }
+
+    private int getIntColumn(int column, int nodeIndex) {
+        return this.nodesBuffer.getInt(NODES_HEADER_SIZE + (column * this.nodeCount + nodeIndex) * Integer.BYTES);
+    }
+
+    private int getContourOffset(int nodeIndex) {
+        return this.nodesBuffer.getInt(this.contourOffsetsPosition + nodeIndex * Integer.BYTES);
+    }
+
+    private int getAttributePosition(int nodeIndex, int attributeIndex) {
+        return this.attributesPosition + (nodeIndex * this.attributeCount + attributeIndex) * Float.BYTES;
+    }
+
+    private int getEdgeOffset(int nodeIndex) {
+        return this.edgesBuffer.getInt(EDGES_HEADER_SIZE + nodeIndex * Integer.BYTES);
+    }
+
+    private static void write(Path nodesFile, Path edgesFile, Records records, IntPredicate edgeFilter) throws IOException {
+        int nodeCount = records.size();
+        int attributeCount = records.getAttributeCount();
+        long contourBitsSize = 0;
+        long totalEdgeCount = 0;
+        for (int i=0; i<nodeCount; i++) {
+            contourBitsSize += records.getContourByteCount(i);
+            totalEdgeCount += countEdges(records, i, edgeFilter);
+        }
+
+        long nodesFileSize = NODES_HEADER_SIZE + (long) INT_COLUMN_COUNT * nodeCount * Integer.BYTES + (nodeCount + 1L) * Integer.BYTES
+                             + (long) nodeCount * attributeCount * Float.BYTES + contourBitsSize;
+        long edgesFileSize = EDGES_HEADER_SIZE + (nodeCount + 1L) * Integer.BYTES + 2L * totalEdgeCount * Integer.BYTES;
+        if (nodesFileSize > Integer.MAX_VALUE || edgesFileSize > Integer.MAX_VALUE) {
+            throw new IOException("The tile graph is too large to be stored: " + nodeCount + " nodes, " + totalEdgeCount + " edges.");
+        }
+
+        // each section is written in a separate pass over the records, the columns are written sequentially
+        try (RecordWriter writer = new RecordWriter(nodesFile)) {
+            writer.putInt(NODES_MAGIC);
+            writer.putInt(VERSION);
+            writer.putInt(nodeCount);
+            writer.putInt(attributeCount);
+            for (int column=0; column<INT_COLUMN_COUNT; column++) {
+                for (int i=0; i<nodeCount; i++) {
+                    writer.putInt(records.getInt(column, i));
+                }
+            }
+            int contourOffset = 0;
+            for (int i=0; i<nodeCount; i++) {
+                writer.putInt(contourOffset);
+                contourOffset += records.getContourByteCount(i);
+            }
+            writer.putInt(contourOffset);
+            if (attributeCount > 0) {
+                float[] attributes = new float[attributeCount];
+                for (int i=0; i<nodeCount; i++) {
+                    records.readAttributes(i, attributes);
+                    for (int k=0; k<attributeCount; k++) {
+                        writer.putFloat(attributes[k]);
+                    }
+                }
+            }
+            for (int i=0; i<nodeCount; i++) {
+                writer.put(records.getContourBits(i));
+            }
+        }
+
+        try (RecordWriter writer = new RecordWriter(edgesFile)) {
+            writer.putInt(EDGES_MAGIC);
+            writer.putInt(VERSION);
+            writer.putInt(nodeCount);
+            writer.putInt((int) totalEdgeCount);
+            int edgeOffset = 0;
+            for (int i=0; i<nodeCount; i++) {
+                writer.putInt(edgeOffset);
+                edgeOffset += countEdges(records, i, edgeFilter);
+            }
+            writer.putInt(edgeOffset);
+            for (int i=0; i<nodeCount; i++) {
+                int count = records.getEdgeCount(i);
+                for (int k=0; k<count; k++) {
+                    int targetId = records.getEdgeTargetId(i, k);
+                    if (edgeFilter == null || edgeFilter.test(targetId)) {
+                        writer.putInt(targetId);
+                    }
+                }
+            }
+            for (int i=0; i<nodeCount; i++) {
+                int count = records.getEdgeCount(i);
+                for (int k=0; k<count; k++) {
+                    if (edgeFilter == null || edgeFilter.test(records.getEdgeTargetId(i, k))) {
+                        writer.putInt(records.getEdgeBoundary(i, k));
+                    }
+                }
+            }
+        }
+    }
+
+    private static int countEdges(Records records, int index, IntPredicate edgeFilter) {
+        int edgeCount = records.getEdgeCount(index);
+        if (edgeFilter == null) {
+            return edgeCount;
+        }
+        int count = 0;
+        for (int k = 0; k < edgeCount; k++) {
+            if (edgeFilter.test(records.getEdgeTargetId(index, k))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void checkHeader(ByteBuffer buffer, int magic) throws IOException {
+        if (buffer.capacity() < 4 * Integer.BYTES || buffer.getInt(0) != magic) {
+            throw new IOException("The file does not contain a stored tile graph.");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported tile graph version " + buffer.getInt(Integer.BYTES) + ".");
+        }
+    }
+
+    private static ByteBuffer readFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("The file '" + file + "' is too large to contain a stored tile graph.");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            buffer.order(ByteOrder.nativeOrder());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, buffer.position()) < 0) {
+                    throw new EOFException("Unexpected end of the file '" + file + "'.");
+                }
+            }
+            buffer.clear();
+            return buffer;
+        }
+    }
+
+    /**
+     * Copies the segmenter specific float attributes of a node.
+     */
+    public interface NodeAttributesWriter {
+
+        void writeAttributes(Node node, float[] attributes);
+    }
+
+    /**
+     * Writes the values sequentially, through a buffer, with positional writes.
+     */
+    private static class RecordWriter implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long position;
+
+        private RecordWriter(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            this.buffer.order(ByteOrder.nativeOrder());
+        }
+
+        private void putInt(int value) throws IOException {
+            if (this.buffer.remaining() < Integer.BYTES) {
+                flush();
+            }
+            this.buffer.putInt(value);
+        }
+
+        private void putFloat(float value) throws IOException {
+            if (this.buffer.remaining() < Float.BYTES) {
+                flush();
+            }
+            this.buffer.putFloat(value);
+        }
+
+        private void put(byte[] values) throws IOException {
+            int offset = 0;
+            while (offset < values.length) {
+                if (!this.buffer.hasRemaining()) {
+                    flush();
+                }
+                int length = Math.min(this.buffer.remaining(), values.length - offset);
+                this.buffer.put(values, offset, length);
+                offset += length;
+            }
+        }
+
+        private void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.position += this.channel.write(this.buffer, this.position);
+            }
+            this.buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                this.channel.close();
+            }
+        }
+    }
+
+    /**
+     * The values of the nodes to write, by record index.
+     */
+    private interface Records {
+
+        int size();
+
+        int getAttributeCount();
+
+        int getInt(int column, int index);
+
+        void readAttributes(int index, float[] attributes);
+
+        int getContourByteCount(int index);
+
+        byte[] getContourBits(int index);
+
+        int getEdgeCount(int index);
+
+        int getEdgeTargetId(int index, int edgeIndex);
+
+        int getEdgeBoundary(int index, int edgeIndex);
+    }
+
+    private static class NodeRecords implements Records {
+
+        private final List<? extends Node> nodes;
+        private final int attributeCount;
+        private final NodeAttributesWriter attributesWriter;
+
+        private NodeRecords(Collection<? extends Node> nodes, int attributeCount, NodeAttributesWriter attributesWriter) {
+            this.nodes = (nodes instanceof List) ? (List<? extends Node>) nodes : new ArrayList<Node>(nodes);
+            this.attributeCount = attributeCount;
+            this.attributesWriter = attributesWriter;
+        }
+
+        @Override
+        public int size() {
+            return this.nodes.size();
+        }
+
+        @Override
+        public int getAttributeCount() {
+            return this.attributeCount;
+        }
+
+        @Override
+        public int getInt(int column, int index) {
+            Node node = this.nodes.get(index);
+            BoundingBox box = node.getBox();
+            switch (column) {
+                case COLUMN_ID: return node.getId();
+                case COLUMN_PERIMETER: return node.getPerimeter();
+                case COLUMN_AREA: return node.getArea();
+                case COLUMN_BOX_LEFT_X: return box.getLeftX();
+                case COLUMN_BOX_TOP_Y: return box.getTopY();
+                case COLUMN_BOX_WIDTH: return box.getWidth();
+                case COLUMN_BOX_HEIGHT: return box.getHeight();
+                case COLUMN_CONTOUR_SIZE: return node.getContour().size();
+                case COLUMN_COMPONENT_COUNT: return node.getNumberOfComponentsPerPixel();
+                default: throw new IllegalArgumentException("Unknown column " + column + ".");
+            }
+        }
+
+        @Override
+        public void readAttributes(int index, float[] attributes) {
+            this.attributesWriter.writeAttributes(this.nodes.get(index), attributes);
+        }
+
+        @Override
+        public int getContourByteCount(int index) {
+            return this.nodes.get(index).getContour().getBits().length;
+        }
+
+        @Override
+        public byte[] getContourBits(int index) {
+            return this.nodes.get(index).getContour().getBits();
+        }
+
+        @Override
+        public int getEdgeCount(int index) {
+            return this.nodes.get(index).getEdgeCount();
+        }
+
+        @Override
+        public int getEdgeTargetId(int index, int edgeIndex) {
+            return this.nodes.get(index).getEdgeAt(edgeIndex).getTarget().getId();
+        }
+
+        @Override
+        public int getEdgeBoundary(int index, int edgeIndex) {
+            Edge edge = this.nodes.get(index).getEdgeAt(edgeIndex);
+            return edge.getBoundary();
+        }
+    }
+
+    private static class StoreRecords implements Records {
+
+        private final TileGraphStore store;
+        private final IntList nodeIndices;
+
+        private StoreRecords(TileGraphStore store, IntList nodeIndices) {
+            this.store = store;
+            this.nodeIndices = nodeIndices;
+        }
+
+        @Override
+        public int size() {
+            return this.nodeIndices.size();
+        }
+
+        @Override
+        public int getAttributeCount() {
+            return this.store.getAttributeCount();
+        }
+
+        @Override
+        public int getInt(int column, int index) {
+            return this.store.getIntColumn(column, this.nodeIndices.getInt(index));
+        }
+
+        @Override
+        public void readAttributes(int index, float[] attributes) {
+            this.store.readAttributes(this.nodeIndices.getInt(index), attributes);
+        }
+
+        @Override
+        public int getContourByteCount(int index) {
+            return this.store.getContourByteCount(this.nodeIndices.getInt(index));
+        }
+
+        @Override
+        public byte[] getContourBits(int index) {
+            return this.store.readContourBits(this.nodeIndices.getInt(index));
+        }
+
+        @Override
+        public int getEdgeCount(int index) {
+            return this.store.getEdgeCount(this.nodeIndices.getInt(index));
+        }
+
+        @Override
+        public int getEdgeTargetId(int index, int edgeIndex) {
+            return this.store.getEdgeTargetId(this.nodeIndices.getInt(index), edgeIndex);
+        }
+
+        @Override
+        public int getEdgeBoundary(int index, int edgeIndex) {
+            return this.store.getEdgeBoundary(this.nodeIndices.getInt(index), edgeIndex);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package eu.esa.opt.grm;
+
+import eu.esa.opt.grm.segmentation.AbstractSegmenter;
+import eu.esa.opt.grm.segmentation.BaatzSchapeNode;
+import eu.esa.opt.grm.segmentation.BaatzSchapeSegmenter;
+import eu.esa.opt.grm.segmentation.BoundingBox;
+import eu.esa.opt.grm.segmentation.Contour;
+import eu.esa.opt.grm.segmentation.Edge;
+import eu.esa.opt.grm.segmentation.FullLambdaScheduleSegmenter;
+import eu.esa.opt.grm.segmentation.Graph;
+import eu.esa.opt.grm.segmentation.Node;
+import eu.esa.opt.grm.segmentation.SpringSegmenter;
+import eu.esa.opt.grm.segmentation.TileDataSource;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveGraphTest {
+
+    public PrimitiveGraphTest() {
+    }
+
+    @Test
+    public void testSpringSegmenter() {
+        for (int i=0; i<2; i++) {
+            boolean fastSegmentation = (i == 1);
+            assertSameSegmentation(new SpringSegmenter(30.0f), new SpringSegmenter(30.0f), fastSegmentation, true, 0);
+            assertSameSegmentation(new SpringSegmenter(30.0f), new SpringSegmenter(30.0f), fastSegmentation, false, 5);
+        }
+    }
+
+    @Test
+    public void testBaatzSchapeSegmenter() {
+        for (int i=0; i<2; i++) {
+            boolean fastSegmentation = (i == 1);
+            assertSameSegmentation(new BaatzSchapeSegmenter(0.5f, 0.5f, 50.0f), new BaatzSchapeSegmenter(0.5f, 0.5f, 50.0f), fastSegmentation, true, 0);
+            assertSameSegmentation(new BaatzSchapeSegmenter(0.5f, 0.5f, 50.0f), new BaatzSchapeSegmenter(0.5f, 0.5f, 50.0f), fastSegmentation, false, 5);
+        }
+    }
+
+    @Test
+    public void testFullLambdaScheduleSegmenter() {
+        for (int i=0; i<2; i++) {
+            boolean fastSegmentation = (i == 1);
+            assertSameSegmentation(new FullLambdaScheduleSegmenter(1100.0f), new FullLambdaScheduleSegmenter(1100.0f), fastSegmentation, true, 0);
+            assertSameSegmentation(new FullLambdaScheduleSegmenter(1100.0f), new FullLambdaScheduleSegmenter(1100.0f), fastSegmentation, false, 5);
+        }
+    }
+
+    private static void assertSameSegmentation(AbstractSegmenter objectSegmenter, AbstractSegmenter primitiveSegmenter, boolean fastSegmentation,
+                                               boolean addFourNeighbors, int numberOfIterations) {
+
+        TileDataSource[] sourceTiles = buildSourceTiles(60, 50, 2);
+        BoundingBox region = new BoundingBox(3, 2, 52, 41);
+
+        boolean objectComplete = objectSegmenter.update(sourceTiles, region, numberOfIterations, fastSegmentation, addFourNeighbors, false);
+        boolean primitiveComplete = primitiveSegmenter.update(sourceTiles, region, numberOfIterations, fastSegmentation, addFourNeighbors, true);
+        assertEquals(objectComplete, primitiveComplete);
+
+        Graph expectedGraph = objectSegmenter.getGraph();
+        Graph graph = primitiveSegmenter.getGraph();
+        assertTrue(graph.getNodeCount() < region.getWidth() * region.getHeight());
+        assertEquals(expectedGraph.getNodeCount(), graph.getNodeCount());
+        for (int i=0; i<graph.getNodeCount(); i++) {
+            assertSameNode(expectedGraph.getNodeAt(i), graph.getNodeAt(i));
+        }
+    }
+
+    private static void assertSameNode(Node expected, Node node) {
+        assertEquals(expected.getClass(), node.getClass());
+        assertEquals(expected.getId(), node.getId());
+        assertEquals(expected.getArea(), node.getArea());
+        assertEquals(expected.getPerimeter(), node.getPerimeter());
+        assertEquals(expected.getBox().getLeftX(), node.getBox().getLeftX());
+        assertEquals(expected.getBox().getTopY(), node.getBox().getTopY());
+        assertEquals(expected.getBox().getWidth(), node.getBox().getWidth());
+        assertEquals(expected.getBox().getHeight(), node.getBox().getHeight());
+        assertEquals(expected.isValid(), node.isValid());
+        assertEquals(expected.isMerged(), node.isMerged());
+        assertEquals(expected.isExpired(), node.isExpired());
+        for (int b=0; b<expected.getNumberOfComponentsPerPixel(); b++) {
+            assertEquals(expected.getMeansAt(b), node.getMeansAt(b), 0.0f);
+            if (expected instanceof BaatzSchapeNode) {
+                assertEquals(((BaatzSchapeNode) expected).getStdAt(b), ((BaatzSchapeNode) node).getStdAt(b), 0.0f);
+                assertEquals(((BaatzSchapeNode) expected).getSquareMeansAt(b), ((BaatzSchapeNode) node).getSquareMeansAt(b), 0.0f);
+                assertEquals(((BaatzSchapeNode) expected).getSpectralSumAt(b), ((BaatzSchapeNode) node).getSpectralSumAt(b), 0.0f);
+            }
+        }
+
+        Contour expectedContour = expected.getContour();
+        Contour contour = node.getContour();
+        assertEquals(expectedContour.size(), contour.size());
+        for (int k=0; k<expectedContour.size() / 2; k++) {
+            assertEquals(expectedContour.getMove(k), contour.getMove(k));
+        }
+
+        assertEquals(expected.getEdgeCount(), node.getEdgeCount());
+        for (int k=0; k<expected.getEdgeCount(); k++) {
+            Edge expectedEdge = expected.getEdgeAt(k);
+            Edge edge = node.getEdgeAt(k);
+            assertEquals(expectedEdge.getTarget().getId(), edge.getTarget().getId());
+            assertEquals(expectedEdge.getBoundary(), edge.getBoundary());
+            assertEquals(expectedEdge.getCost(), edge.getCost(), 0.0f);
+            assertEquals(expectedEdge.isCostUpdated(), edge.isCostUpdated());
+        }
+    }
+
+    private static TileDataSource[] buildSourceTiles(int width, int height, int bandCount) {
+        Random random = new Random(7);
+        TileDataSource[] sourceTiles = new TileDataSource[bandCount];
+        for (int b = 0; b < bandCount; b++) {
+            float[] data = new float[width * height];
+            for (int i = 0; i < data.length; i++) {
+                int x = i % width;
+                int y = i / width;
+                data[i] = (float) (60.0 * ((x / 7 + y / 9 + b) % 3) + 30.0 * Math.sin(x / 5.0) + 4.0 * random.nextGaussian());
+            }
+            sourceTiles[b] = (x, y) -> data[y * width + x];
+        }
+        return sourceTiles;
+    }
+}
@@ -0,0 +1,104 @@
+package eu.esa.opt.grm;
+
+import eu.esa.opt.grm.segmentation.AbstractSegmenter;
+import eu.esa.opt.grm.segmentation.BaatzSchapeSegmenter;
+import eu.esa.opt.grm.segmentation.BoundingBox;
+import eu.esa.opt.grm.segmentation.FullLambdaScheduleSegmenter;
+import eu.esa.opt.grm.segmentation.SpringSegmenter;
+import eu.esa.opt.grm.segmentation.TileDataSource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Random;
+
+/**
+ * Compares the time and the peak heap usage of the first segmentation performed on the object graph and on the
+ * primitive graph. It is not run by the unit tests, start it with:
+ * <pre>
+ *     java -Xmx4g -cp ... eu.esa.opt.grm.SegmenterBenchmark [size] [bands] [iterations]
+ * </pre>
+ */
+public class SegmenterBenchmark {
+
+    public static void main(String[] args) {
+        int size = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+        int bandCount = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+        int iterations = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+
+        TileDataSource[] sourceTiles = buildSourceTiles(size, bandCount);
+        BoundingBox region = new BoundingBox(0, 0, size, size);
+
+        System.out.println("Image " + size + "x" + size + ", " + bandCount + " bands, " + iterations + " iterations");
+        for (String criterion : new String[] {"Spring", "Baatz & Schape", "Full Lamda Schedule"}) {
+            // warm up both implementations
+            run(criterion, sourceTiles, new BoundingBox(0, 0, 128, 128), iterations, false);
+            run(criterion, sourceTiles, new BoundingBox(0, 0, 128, 128), iterations, true);
+
+            Result objects = run(criterion, sourceTiles, region, iterations, false);
+            Result primitives = run(criterion, sourceTiles, region, iterations, true);
+            System.out.println(String.format("%-20s objects: %6d ms %6d MB, primitives: %6d ms %6d MB, remaining nodes: %d/%d",
+                                             criterion, objects.millis, objects.peakMegabytes, primitives.millis, primitives.peakMegabytes,
+                                             objects.nodeCount, primitives.nodeCount));
+        }
+    }
+
+    private static Result run(String criterion, TileDataSource[] sourceTiles, BoundingBox region, int iterations, boolean primitiveGraph) {
+        AbstractSegmenter segmenter = buildSegmenter(criterion);
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+
+        long startTime = System.nanoTime();
+        segmenter.update(sourceTiles, region, iterations, false, true, primitiveGraph);
+        long millis = (System.nanoTime() - startTime) / 1000000L;
+
+        long peakBytes = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakBytes += pool.getPeakUsage().getUsed();
+            }
+        }
+        int nodeCount = segmenter.getGraph().getNodeCount();
+        segmenter.doClose();
+        return new Result(millis, peakBytes / (1024 * 1024), nodeCount);
+    }
+
+    private static AbstractSegmenter buildSegmenter(String criterion) {
+        if (GenericRegionMergingOp.SPRING_MERGING_COST_CRITERION.equals(criterion)) {
+            return new SpringSegmenter(30.0f);
+        } else if (GenericRegionMergingOp.BAATZ_SCHAPE_MERGING_COST_CRITERION.equals(criterion)) {
+            return new BaatzSchapeSegmenter(0.5f, 0.5f, 50.0f);
+        }
+        return new FullLambdaScheduleSegmenter(1100.0f);
+    }
+
+    private static TileDataSource[] buildSourceTiles(int size, int bandCount) {
+        Random random = new Random(42);
+        TileDataSource[] sourceTiles = new TileDataSource[bandCount];
+        for (int b = 0; b < bandCount; b++) {
+            float[] data = new float[size * size];
+            for (int i = 0; i < data.length; i++) {
+                int x = i % size;
+                int y = i / size;
+                // smooth patches with some noise, similar to a reflectance band
+                data[i] = (float) (100.0 * ((x / 23 + y / 17 + b) % 4) + 20.0 * Math.sin(x / 11.0) + 5.0 * random.nextGaussian());
+            }
+            sourceTiles[b] = (x, y) -> data[y * size + x];
+        }
+        return sourceTiles;
+    }
+
+    private static class Result {
+        private final long millis;
+        private final long peakMegabytes;
+        private final int nodeCount;
+
+        private Result(long millis, long peakMegabytes, int nodeCount) {
+            this.millis = millis;
+            this.peakMegabytes = peakMegabytes;
+            this.nodeCount = nodeCount;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package eu.esa.opt.grm;
+
+import eu.esa.opt.grm.segmentation.Node;
+import eu.esa.opt.grm.segmentation.SpringNode;
+import eu.esa.opt.grm.segmentation.tiles.TileGraphStore;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TileGraphStoreTest {
+
+    private Path temporaryFolder;
+
+    public TileGraphStoreTest() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        this.temporaryFolder = Files.createTempDirectory("tile-graph-store");
+    }
+
+    @After
+    public void tearDown() {
+        this.temporaryFolder.resolve("nodes.bin").toFile().delete();
+        this.temporaryFolder.resolve("edges.bin").toFile().delete();
+        this.temporaryFolder.toFile().delete();
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        List<Node> nodes = buildNodes();
+        Path nodesFile = this.temporaryFolder.resolve("nodes.bin");
+        Path edgesFile = this.temporaryFolder.resolve("edges.bin");
+
+        TileGraphStore.write(nodesFile, edgesFile, nodes, null, 2, TileGraphStoreTest::writeMeans);
+        TileGraphStore store = TileGraphStore.open(nodesFile, edgesFile);
+
+        assertEquals(3, store.getNodeCount());
+        assertEquals(2, store.getAttributeCount());
+        assertEquals(4, store.getTotalEdgeCount());
+        for (int i=0; i<nodes.size(); i++) {
+            Node node = nodes.get(i);
+            assertEquals(node.getId(), store.getNodeId(i));
+            assertEquals(node.getPerimeter(), store.getPerimeter(i));
+            assertEquals(node.getArea(), store.getArea(i));
+            assertEquals(node.getBox().getLeftX(), store.getBoxLeftX(i));
+            assertEquals(node.getBox().getTopY(), store.getBoxTopY(i));
+            assertEquals(node.getBox().getWidth(), store.getBoxWidth(i));
+            assertEquals(node.getBox().getHeight(), store.getBoxHeight(i));
+            assertEquals(node.getContour().size(), store.getContourSize(i));
+            assertArrayEquals(node.getContour().getBits(), store.readContourBits(i));
+            assertEquals(node.getNumberOfComponentsPerPixel(), store.getNumberOfComponentsPerPixel(i));
+            assertEquals(node.getMeansAt(0), store.getAttribute(i, 0), 0.0f);
+            assertEquals(node.getMeansAt(1), store.getAttribute(i, 1), 0.0f);
+            assertEquals(node.getEdgeCount(), store.getEdgeCount(i));
+            for (int k=0; k<node.getEdgeCount(); k++) {
+                assertEquals(node.getEdgeAt(k).getTarget().getId(), store.getEdgeTargetId(i, k));
+                assertEquals(node.getEdgeAt(k).getBoundary(), store.getEdgeBoundary(i, k));
+            }
+        }
+    }
+
+    @Test
+    public void testWriteWithEdgeFilter() throws IOException {
+        List<Node> nodes = buildNodes();
+        Path nodesFile = this.temporaryFolder.resolve("nodes.bin");
+        Path edgesFile = this.temporaryFolder.resolve("edges.bin");
+
+        TileGraphStore.write(nodesFile, edgesFile, nodes, targetId -> targetId != 3, 2, TileGraphStoreTest::writeMeans);
+        TileGraphStore store = TileGraphStore.open(nodesFile, edgesFile);
+
+        assertEquals(2, store.getTotalEdgeCount());
+        assertEquals(1, store.getEdgeCount(0));
+        assertEquals(2, store.getEdgeTargetId(0, 0));
+        assertEquals(1, store.getEdgeCount(1));
+        assertEquals(1, store.getEdgeTargetId(1, 0));
+        assertEquals(0, store.getEdgeCount(2));
+    }
+
+    @Test
+    public void testRewriteAndDeleteFilesOfOpenedStore() throws IOException {
+        List<Node> nodes = buildNodes();
+        Path nodesFile = this.temporaryFolder.resolve("nodes.bin");
+        Path edgesFile = this.temporaryFolder.resolve("edges.bin");
+        TileGraphStore.write(nodesFile, edgesFile, nodes, null, 2, TileGraphStoreTest::writeMeans);
+        TileGraphStore store = TileGraphStore.open(nodesFile, edgesFile);
+
+        // the files of the next pass replace the files of the opened store
+        TileGraphStore.write(nodesFile, edgesFile, nodes.subList(0, 1), null, 2, TileGraphStoreTest::writeMeans);
+        TileGraphStore rewritten = TileGraphStore.open(nodesFile, edgesFile);
+
+        assertEquals(3, store.getNodeCount());
+        assertEquals(nodes.get(2).getMeansAt(1), store.getAttribute(2, 1), 0.0f);
+        assertEquals(1, rewritten.getNodeCount());
+        assertEquals(2, rewritten.getTotalEdgeCount());
+        float[] attributes = new float[2];
+        rewritten.readAttributes(0, attributes);
+        assertArrayEquals(new float[] {nodes.get(0).getMeansAt(0), nodes.get(0).getMeansAt(1)}, attributes, 0.0f);
+
+        // no file is kept open by the stores
+        Files.delete(nodesFile);
+        Files.delete(edgesFile);
+    }
+
+    @Test
+    public void testWriteNodesOfStore() throws IOException {
+        List<Node> nodes = buildNodes();
+        Path nodesFile = this.temporaryFolder.resolve("nodes.bin");
+        Path edgesFile = this.temporaryFolder.resolve("edges.bin");
+        Path marginNodesFile = this.temporaryFolder.resolve("margin-nodes.bin");
+        Path marginEdgesFile = this.temporaryFolder.resolve("margin-edges.bin");
+        TileGraphStore.write(nodesFile, edgesFile, nodes, null, 2, TileGraphStoreTest::writeMeans);
+        TileGraphStore store = TileGraphStore.open(nodesFile, edgesFile);
+
+        store.write(marginNodesFile, marginEdgesFile, IntArrayList.wrap(new int[] {2, 0}));
+        TileGraphStore margin = TileGraphStore.open(marginNodesFile, marginEdgesFile);
+        Files.delete(marginNodesFile);
+        Files.delete(marginEdgesFile);
+
+        assertEquals(2, margin.getNodeCount());
+        assertEquals(3, margin.getNodeId(0));
+        assertEquals(1, margin.getNodeId(1));
+        assertEquals(store.getContourSize(2), margin.getContourSize(0));
+        assertArrayEquals(store.readContourBits(2), margin.readContourBits(0));
+        assertEquals(store.getAttribute(0, 1), margin.getAttribute(1, 1), 0.0f);
+        // only the edge between the written nodes is kept
+        assertEquals(1, margin.getTotalEdgeCount());
+        assertEquals(0, margin.getEdgeCount(0));
+        assertEquals(1, margin.getEdgeCount(1));
+        assertEquals(3, margin.getEdgeTargetId(1, 0));
+        assertEquals(2, margin.getEdgeBoundary(1, 0));
+    }
+
+    @Test
+    public void testGetContourMove() throws IOException {
+        SpringNode node = new SpringNode(1, 0, 0, 1);
+        node.getContour().pushRight();
+        node.getContour().pushBottom();
+        node.getContour().pushLeft();
+        node.getContour().pushTop();
+        node.getContour().pushLeft();
+        Path nodesFile = this.temporaryFolder.resolve("nodes.bin");
+        Path edgesFile = this.temporaryFolder.resolve("edges.bin");
+        TileGraphStore.write(nodesFile, edgesFile, Arrays.asList(node), null, 0, null);
+        TileGraphStore store = TileGraphStore.open(nodesFile, edgesFile);
+
+        int moveCount = node.getContour().size() / 2;
+        for (int i=0; i<moveCount; i++) {
+            assertEquals(node.getContour().getMove(i), store.getContourMove(0, i));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpenInvalidFile() throws IOException {
+        Path nodesFile = this.temporaryFolder.resolve("nodes.bin");
+        Path edgesFile = this.temporaryFolder.resolve("edges.bin");
+        Files.write(nodesFile, new byte[32]);
+        Files.write(edgesFile, new byte[32]);
+
+        TileGraphStore.open(nodesFile, edgesFile);
+    }
+
+    private static List<Node> buildNodes() {
+        SpringNode firstNode = new SpringNode(1, 0, 0, 2);
+        SpringNode secondNode = new SpringNode(2, 1, 0, 2);
+        SpringNode thirdNode = new SpringNode(3, 2, 0, 2);
+        firstNode.setMeansAt(0, 0.25f);
+        firstNode.setMeansAt(1, 1.5f);
+        secondNode.setMeansAt(0, 2.0f);
+        secondNode.setMeansAt(1, -3.0f);
+        thirdNode.setMeansAt(0, 7.75f);
+        thirdNode.setMeansAt(1, 0.125f);
+        thirdNode.getContour().pushRight();
+
+        firstNode.addEdge(secondNode, 1);
+        firstNode.addEdge(thirdNode, 2);
+        secondNode.addEdge(firstNode, 1);
+        secondNode.addEdge(thirdNode, 3);
+
+        return Arrays.asList(firstNode, secondNode, thirdNode);
+    }
+
+    private static void writeMeans(Node node, float[] attributes) {
+        for (int i=0; i<node.getNumberOfComponentsPerPixel(); i++) {
+            attributes[i] = node.getMeansAt(i);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package eu.esa.opt.grm;
+
+import eu.esa.opt.grm.segmentation.product.WriteProductBandsTilesComputing;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.util.io.FileUtils;
+import org.esa.snap.utils.OffHeapTileStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class WriteProductBandsTilesComputingTest {
+
+    private static final int SIZE = 16;
+    private static final String TILE_NAME = "segmentationTile-0-0-16-16.bin";
+
+    private Path temporaryFolder;
+    private ExecutorService threadPool;
+
+    public WriteProductBandsTilesComputingTest() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        this.temporaryFolder = Files.createTempDirectory("product-bands-tiles");
+        this.threadPool = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        this.threadPool.shutdownNow();
+        FileUtils.deleteTree(this.temporaryFolder.toFile());
+    }
+
+    @Test
+    public void testTileStoreAndTileFilesContainTheSameGeophysicalValues() throws Exception {
+        Product product = new Product("test", "test", SIZE, SIZE);
+        short[] rawValues = new short[SIZE * SIZE];
+        float[] floatValues = new float[SIZE * SIZE];
+        for (int i=0; i<rawValues.length; i++) {
+            rawValues[i] = (short) (i % 97);
+            floatValues[i] = i * 0.25f;
+        }
+        Band scaledBand = new Band("scaled", ProductData.TYPE_INT16, SIZE, SIZE);
+        scaledBand.setScalingFactor(0.5);
+        scaledBand.setScalingOffset(3.0);
+        scaledBand.setRasterData(ProductData.createInstance(rawValues));
+        product.addBand(scaledBand);
+        Band floatBand = new Band("float", ProductData.TYPE_FLOAT32, SIZE, SIZE);
+        floatBand.setRasterData(ProductData.createInstance(floatValues));
+        product.addBand(floatBand);
+        String[] bandNames = {"scaled", "float"};
+
+        Path tilesFolder = new WriteProductBandsTilesComputing(product, bandNames, SIZE, SIZE, this.temporaryFolder).runTilesInParallel(1, this.threadPool);
+        byte[] fileContent = Files.readAllBytes(tilesFolder.resolve(TILE_NAME));
+
+        OffHeapTileStore tileStore = new OffHeapTileStore(this.temporaryFolder.resolve("spill"), 1024 * 1024);
+        new WriteProductBandsTilesComputing(product, bandNames, SIZE, SIZE, tileStore).runTilesInParallel(1, this.threadPool);
+        ByteBuffer storeContent = tileStore.getTile(TILE_NAME);
+
+        assertEquals(ByteBuffer.wrap(fileContent), storeContent);
+
+        assertEquals(2, storeContent.getInt(0));
+        for (int i=0; i<rawValues.length; i++) {
+            assertEquals(rawValues[i] * 0.5f + 3.0f, storeContent.getFloat(4 + 8 * i), 0.0f);
+            assertEquals(floatValues[i], storeContent.getFloat(8 + 8 * i), 0.0f);
+        }
+    }
+}
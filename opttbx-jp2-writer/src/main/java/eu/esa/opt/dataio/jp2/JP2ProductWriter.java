@@ -6,6 +6,7 @@ import eu.esa.opt.dataio.jp2.internal.GmlFeatureCollection;
 import eu.esa.opt.dataio.jp2.internal.GmlRectifiedGrid;
 import eu.esa.opt.dataio.jp2.internal.JP2Constants;
 import eu.esa.opt.dataio.jp2.internal.JP2ImageWriter;
+import eu.esa.opt.dataio.jp2.internal.JP2TileSpool;
 import eu.esa.opt.dataio.jp2.metadata.JP2Metadata;
 import org.esa.snap.core.dataio.AbstractProductWriter;
 import org.esa.snap.core.dataio.ProductWriterPlugIn;
@@ -26,6 +27,7 @@ import javax.media.jai.ImageLayout;
 import javax.media.jai.JAI;
 import javax.media.jai.RenderedOp;
 import javax.media.jai.operator.RescaleDescriptor;
+import java.awt.Dimension;
 import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
@@ -39,16 +41,27 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A product writer implementation for the JPEG-2000 format.
+ * <p>
+ * By default the writer encodes the source images of all the bands once every band has been seen. In streaming mode,
+ * enabled with the <code>snap.dataio.writer.jp2.streaming</code> system property or {@link #setStreaming(boolean)},
+ * the raster data passed to {@link #writeBandRasterData} is converted and spooled tile by tile, and the image is
+ * encoded from the spool once all the tiles have been received.
  *
  *  @author  Razvan Dumitrascu
  *  @since 5.0.2
  */
 public class JP2ProductWriter extends AbstractProductWriter {
 
+    public static final String PROPERTY_KEY_STREAMING = "snap.dataio.writer.jp2.streaming";
+
+    private static final int DEFAULT_TILE_SIZE = 512;
+
     private File outputFile;
     private GmlFeatureCollection metadata;
     private AtomicInteger processedCount = new AtomicInteger(0);
     private Map<Band, RenderedImage> processedBands = new HashMap<>();
+    private boolean streaming = Boolean.getBoolean(PROPERTY_KEY_STREAMING);
+    private JP2TileSpool tileSpool;
 
     /**
      * Constructs a <code>ProductWriter</code>. Since no output destination is set, the <code>setOutput</code>
@@ -81,6 +94,25 @@ public class JP2ProductWriter extends AbstractProductWriter {
         ensureNamingConvention();
         this.metadata = new GmlFeatureCollection();
         this.metadata.setNumBands(getSourceProduct().getNumBands());
+        if (this.streaming) {
+            closeTileSpool();
+            this.tileSpool = new JP2TileSpool(sourceProduct.getSceneRasterWidth(), sourceProduct.getSceneRasterHeight(),
+                                              sourceProduct.getNumBands());
+        }
+    }
+
+    /**
+     * Sets whether the raster data is spooled tile by tile instead of encoding the full source images.
+     * It has to be set before writing the product nodes.
+     *
+     * @param streaming <code>true</code> to enable the streaming mode
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public boolean isStreaming() {
+        return this.streaming;
     }
 
     private void ensureNamingConvention() {
@@ -91,6 +123,10 @@ public class JP2ProductWriter extends AbstractProductWriter {
 
     @Override
     public void writeBandRasterData(Band sourceBand, int sourceOffsetX, int sourceOffsetY, int sourceWidth, int sourceHeight, ProductData sourceBuffer, ProgressMonitor pm) throws IOException {
+        if (this.tileSpool != null) {
+            writeBandTile(sourceBand, sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight, sourceBuffer);
+            return;
+        }
         final Product sourceProduct = sourceBand.getProduct();
         final int numBands = sourceProduct.getNumBands();
         boolean shouldFinalize = numBands == processedCount.get();
@@ -106,6 +142,34 @@ public class JP2ProductWriter extends AbstractProductWriter {
         }
     }
 
+    private void writeBandTile(Band sourceBand, int sourceOffsetX, int sourceOffsetY, int sourceWidth, int sourceHeight, ProductData sourceBuffer) throws IOException {
+        final Product sourceProduct = getSourceProduct();
+        final int bandIndex = sourceProduct.getBandIndex(sourceBand.getName());
+        synchronized (this.tileSpool) {
+            if (!this.tileSpool.isBandInitialized(bandIndex)) {
+                final BandScaling scaling = computeScaling(sourceBand);
+                this.tileSpool.initBand(bandIndex, scaling.targetDataType, scaling.scale, scaling.offset, scaling.isRescaled());
+                if (scaling.isRescaled()) {
+                    this.metadata.setBandInfo(bandIndex, sourceBand.getName(), scaling.scale, scaling.offset);
+                } else {
+                    this.metadata.setBandInfo(bandIndex, sourceBand.getName(), 1, 0);
+                }
+            }
+        }
+        final boolean bandComplete = this.tileSpool.writeTile(bandIndex, sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight, sourceBuffer);
+        if (bandComplete && this.processedCount.incrementAndGet() == sourceProduct.getNumBands()) {
+            final Dimension tileSize = sourceProduct.getPreferredTileSize();
+            final int tileWidth = Math.min(tileSize != null ? tileSize.width : DEFAULT_TILE_SIZE, sourceProduct.getSceneRasterWidth());
+            final int tileHeight = Math.min(tileSize != null ? tileSize.height : DEFAULT_TILE_SIZE, sourceProduct.getSceneRasterHeight());
+            try {
+                encode(this.tileSpool.createImage(tileWidth, tileHeight));
+            } finally {
+                this.processedCount.set(0);
+                closeTileSpool();
+            }
+        }
+    }
+
     private void finalizeWrite() throws IOException {
         Product sourceProduct = getSourceProduct();
         final int numBands = sourceProduct.getNumBands();
@@ -119,6 +183,16 @@ public class JP2ProductWriter extends AbstractProductWriter {
         } else {
             writeImage = processedBands.get(sourceProduct.getBandAt(0));
         }
+        try {
+            encode(writeImage);
+        } finally {
+            processedCount.set(0);
+            processedBands.clear();
+        }
+    }
+
+    private void encode(RenderedImage writeImage) throws IOException {
+        final Product sourceProduct = getSourceProduct();
         IIOImage outputImage = new IIOImage(writeImage, null, null);
 
         final GeoCoding geoCoding = sourceProduct.getSceneGeoCoding();
@@ -167,8 +241,6 @@ public class JP2ProductWriter extends AbstractProductWriter {
                 imageWriter.write(null, outputImage, null);
             }
         } finally {
-            processedCount.set(0);
-            processedBands.clear();
             imageWriter.dispose();
         }
     }
@@ -179,6 +251,7 @@ public class JP2ProductWriter extends AbstractProductWriter {
 
     @Override
     public void close() throws IOException {
+        closeTileSpool();
     }
 
     @Override
@@ -188,47 +261,30 @@ public class JP2ProductWriter extends AbstractProductWriter {
         }
     }
 
+    private void closeTileSpool() throws IOException {
+        if (this.tileSpool != null) {
+            this.tileSpool.close();
+            this.tileSpool = null;
+        }
+    }
+
     private RenderedImage getScaledImage(Band srcBand) throws IOException {
         RenderedImage sourceImage = srcBand.getSourceImage();
-        /* This would be more rigorous, but may take a lot of time
-        final RenderedOp minMaxOp = ExtremaDescriptor.create(sourceImage, null, 1, 1, false, 1, null);
-        double[][] minMax = (double[][]) minMaxOp.getProperty("extrema");
-        double min = minMax[0][0];
-        double max = minMax[1][0];*/
-        final Stx stx = srcBand.getStx();
-        final double min = stx.getMinimum();
-        final double max = stx.getMaximum();
-        final double newMin = min < 0.0 ? Short.MIN_VALUE : 0;
-        final double newMax = min < 0.0 ? Short.MAX_VALUE : 65535;
-        final double offset = (newMin - min * (newMax - newMin) / (max - min));
-        final double scale = (newMax - newMin) / (max - min);
-        final int sourceDataType = srcBand.getDataType();
-        int targetDataType;
-        switch (sourceDataType) {
-            case ProductData.TYPE_INT8:
-            case ProductData.TYPE_UINT8:
-            case ProductData.TYPE_INT16:
-            case ProductData.TYPE_UINT16:
-                targetDataType = sourceDataType;
-                break;
-            default:
-                targetDataType = min < 0.0 ? ProductData.TYPE_INT16 : ProductData.TYPE_UINT16;
-                break;
-        }
-        if (sourceDataType != targetDataType) {
+        final BandScaling scaling = computeScaling(srcBand);
+        if (scaling.isRescaled()) {
             ImageLayout imageLayout = new ImageLayout(sourceImage.getMinX(), sourceImage.getMinY(),
                                                       sourceImage.getWidth(), sourceImage.getHeight());
             imageLayout.setSampleModel(
-                    new SingleBandedSampleModel(ImageManager.getDataBufferType(targetDataType), sourceImage.getWidth(), sourceImage.getHeight()));
+                    new SingleBandedSampleModel(ImageManager.getDataBufferType(scaling.targetDataType), sourceImage.getWidth(), sourceImage.getHeight()));
             Map<RenderingHints.Key, Object> map = new HashMap<>();
             map.put(JAI.KEY_IMAGE_LAYOUT, imageLayout);
             RenderingHints hints = new RenderingHints(map);
-            RenderedOp renderedOp = RescaleDescriptor.create(sourceImage, new double[] { scale }, new double[] { offset }, hints);
+            RenderedOp renderedOp = RescaleDescriptor.create(sourceImage, new double[] { scaling.scale }, new double[] { scaling.offset }, hints);
             sourceImage = renderedOp.getRendering();
             this.metadata.setBandInfo(getSourceProduct().getBandIndex(srcBand.getName()),
                                       srcBand.getName(),
-                                      scale,
-                                      offset);
+                                      scaling.scale,
+                                      scaling.offset);
         } else {
             srcBand.readRasterDataFully();
             this.metadata.setBandInfo(getSourceProduct().getBandIndex(srcBand.getName()),
@@ -237,4 +293,49 @@ public class JP2ProductWriter extends AbstractProductWriter {
         return sourceImage;
     }
 
+    private static BandScaling computeScaling(Band srcBand) {
+        /* This would be more rigorous, but may take a lot of time
+        final RenderedOp minMaxOp = ExtremaDescriptor.create(sourceImage, null, 1, 1, false, 1, null);
+        double[][] minMax = (double[][]) minMaxOp.getProperty("extrema");
+        double min = minMax[0][0];
+        double max = minMax[1][0];*/
+        final int sourceDataType = srcBand.getDataType();
+        switch (sourceDataType) {
+            case ProductData.TYPE_INT8:
+            case ProductData.TYPE_UINT8:
+            case ProductData.TYPE_INT16:
+            case ProductData.TYPE_UINT16:
+                return new BandScaling(sourceDataType, sourceDataType, 1, 0);
+            default:
+                break;
+        }
+        final Stx stx = srcBand.getStx();
+        final double min = stx.getMinimum();
+        final double max = stx.getMaximum();
+        final double newMin = min < 0.0 ? Short.MIN_VALUE : 0;
+        final double newMax = min < 0.0 ? Short.MAX_VALUE : 65535;
+        final double offset = (newMin - min * (newMax - newMin) / (max - min));
+        final double scale = (newMax - newMin) / (max - min);
+        final int targetDataType = min < 0.0 ? ProductData.TYPE_INT16 : ProductData.TYPE_UINT16;
+        return new BandScaling(sourceDataType, targetDataType, scale, offset);
+    }
+
+    private static class BandScaling {
+        private final int sourceDataType;
+        private final int targetDataType;
+        private final double scale;
+        private final double offset;
+
+        private BandScaling(int sourceDataType, int targetDataType, double scale, double offset) {
+            this.sourceDataType = sourceDataType;
+            this.targetDataType = targetDataType;
+            this.scale = scale;
+            this.offset = offset;
+        }
+
+        private boolean isRescaled() {
+            return this.sourceDataType != this.targetDataType;
+        }
+    }
+
 }
@@ -0,0 +1,241 @@
+package eu.esa.opt.dataio.jp2.internal;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.image.ImageManager;
+
+import javax.media.jai.ImageLayout;
+import javax.media.jai.PlanarImage;
+import javax.media.jai.RasterFactory;
+import javax.media.jai.SourcelessOpImage;
+import java.awt.Rectangle;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Temporary store for the band tiles received by the JP2 writer in streaming mode.
+ * <br>Each band is converted to its JP2 data type as soon as a tile arrives and is written to its own spool file,
+ * so the heap usage does not depend on the size of the product. Once all the tiles have been received, the spool
+ * is exposed as a tiled multi-band image which reads its tiles back from the spool files on demand.
+ *
+ * @since 14.0.0
+ */
+public class JP2TileSpool implements Closeable {
+
+    private final int width;
+    private final int height;
+    private final int[] dataTypes;
+    private final double[] scales;
+    private final double[] offsets;
+    private final boolean[] rescaled;
+    private final Path[] files;
+    private final FileChannel[] channels;
+    private final AtomicLong[] writtenPixels;
+    private final Set<Rectangle>[] writtenTiles;
+
+    @SuppressWarnings("unchecked")
+    public JP2TileSpool(int width, int height, int numBands) {
+        this.width = width;
+        this.height = height;
+        this.dataTypes = new int[numBands];
+        this.scales = new double[numBands];
+        this.offsets = new double[numBands];
+        this.rescaled = new boolean[numBands];
+        this.files = new Path[numBands];
+        this.channels = new FileChannel[numBands];
+        this.writtenPixels = new AtomicLong[numBands];
+        this.writtenTiles = new Set[numBands];
+        for (int i = 0; i < numBands; i++) {
+            this.writtenPixels[i] = new AtomicLong();
+            this.writtenTiles[i] = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    /**
+     * Prepares the spool file of a band.
+     *
+     * @param bandIndex      the index of the band
+     * @param targetDataType the product data type in which the samples are encoded (8 or 16 bits)
+     * @param scale          the scale applied to the source samples, used only if rescaled is set
+     * @param offset         the offset applied to the source samples, used only if rescaled is set
+     * @param rescaled       whether the source samples are rescaled before being converted to the target type
+     */
+    public synchronized void initBand(int bandIndex, int targetDataType, double scale, double offset, boolean rescaled) throws IOException {
+        if (this.channels[bandIndex] != null) {
+            return;
+        }
+        if (ProductData.getElemSize(targetDataType) > 2) {
+            throw new JP2DataException("Unsupported data type " + ProductData.getTypeString(targetDataType));
+        }
+        this.dataTypes[bandIndex] = targetDataType;
+        this.scales[bandIndex] = scale;
+        this.offsets[bandIndex] = offset;
+        this.rescaled[bandIndex] = rescaled;
+        this.files[bandIndex] = Files.createTempFile("jp2-band" + bandIndex + "-", ".spool");
+        this.channels[bandIndex] = FileChannel.open(this.files[bandIndex], StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    public synchronized boolean isBandInitialized(int bandIndex) {
+        return this.channels[bandIndex] != null;
+    }
+
+    /**
+     * Converts and stores a tile of a band. A tile which is written again replaces the stored samples, its pixels
+     * are counted only once.
+     *
+     * @return <code>true</code> if this tile completes the band
+     */
+    public boolean writeTile(int bandIndex, int x, int y, int tileWidth, int tileHeight, ProductData data) throws IOException {
+        FileChannel channel = this.channels[bandIndex];
+        if (channel == null) {
+            throw new IllegalStateException("The band " + bandIndex + " has not been initialized.");
+        }
+        int elemSize = ProductData.getElemSize(this.dataTypes[bandIndex]);
+        ByteBuffer row = ByteBuffer.allocate(tileWidth * elemSize);
+        for (int j = 0; j < tileHeight; j++) {
+            row.clear();
+            int index = j * tileWidth;
+            for (int i = 0; i < tileWidth; i++) {
+                long value = convert(bandIndex, data.getElemDoubleAt(index + i));
+                if (elemSize == 1) {
+                    row.put((byte) value);
+                } else {
+                    row.putShort((short) value);
+                }
+            }
+            row.flip();
+            long position = ((long) (y + j) * this.width + x) * elemSize;
+            while (row.hasRemaining()) {
+                position += channel.write(row, position);
+            }
+        }
+        if (!this.writtenTiles[bandIndex].add(new Rectangle(x, y, tileWidth, tileHeight))) {
+            return false;
+        }
+        long pixelCount = (long) this.width * this.height;
+        long previous = this.writtenPixels[bandIndex].getAndAdd((long) tileWidth * tileHeight);
+        return previous < pixelCount && previous + (long) tileWidth * tileHeight >= pixelCount;
+    }
+
+    /**
+     * Creates a tiled image which reads the stored samples of all the bands.
+     * If the bands have different data types, the samples are promoted to the largest one, as the band merge does.
+     * Signed bands mixed with unsigned 16 bit bands are promoted to 32 bit integers, which hold the values of both.
+     */
+    public RenderedImage createImage(int tileWidth, int tileHeight) {
+        int bufferType = DataBuffer.TYPE_BYTE;
+        boolean signed = false;
+        boolean unsigned16 = false;
+        for (int dataType : this.dataTypes) {
+            bufferType = Math.max(bufferType, ImageManager.getDataBufferType(dataType));
+            signed |= (dataType == ProductData.TYPE_INT8 || dataType == ProductData.TYPE_INT16);
+            unsigned16 |= (dataType == ProductData.TYPE_UINT16);
+        }
+        if (signed && unsigned16) {
+            bufferType = DataBuffer.TYPE_INT;
+        }
+        int numBands = this.dataTypes.length;
+        SampleModel sampleModel = RasterFactory.createBandedSampleModel(bufferType, tileWidth, tileHeight, numBands);
+        ColorModel colorModel = PlanarImage.createColorModel(sampleModel);
+        ImageLayout layout = new ImageLayout(0, 0, this.width, this.height, 0, 0, tileWidth, tileHeight, sampleModel, colorModel);
+        return new SpoolImage(layout, sampleModel);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (int i = 0; i < this.channels.length; i++) {
+            if (this.channels[i] != null) {
+                this.channels[i].close();
+                this.channels[i] = null;
+            }
+            if (this.files[i] != null) {
+                Files.deleteIfExists(this.files[i]);
+                this.files[i] = null;
+            }
+        }
+    }
+
+    private long convert(int bandIndex, double value) {
+        if (this.rescaled[bandIndex]) {
+            value = value * this.scales[bandIndex] + this.offsets[bandIndex];
+        }
+        long rounded = Math.round(value);
+        switch (this.dataTypes[bandIndex]) {
+            case ProductData.TYPE_INT8:
+                return Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, rounded));
+            case ProductData.TYPE_UINT8:
+                return Math.max(0, Math.min(255, rounded));
+            case ProductData.TYPE_INT16:
+                return Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, rounded));
+            default:
+                return Math.max(0, Math.min(65535, rounded));
+        }
+    }
+
+    private void readSamples(int bandIndex, int x, int y, int count, boolean rawBytes, int[] samples) throws IOException {
+        int dataType = this.dataTypes[bandIndex];
+        int elemSize = ProductData.getElemSize(dataType);
+        ByteBuffer row = ByteBuffer.allocate(count * elemSize);
+        long position = ((long) y * this.width + x) * elemSize;
+        while (row.hasRemaining()) {
+            int read = this.channels[bandIndex].read(row, position + row.position());
+            if (read < 0) {
+                throw new JP2DataException("The spool file of the band " + bandIndex + " is incomplete.");
+            }
+        }
+        row.flip();
+        for (int i = 0; i < count; i++) {
+            switch (dataType) {
+                case ProductData.TYPE_INT8:
+                    byte value = row.get();
+                    samples[i] = rawBytes ? (value & 0xff) : value;
+                    break;
+                case ProductData.TYPE_UINT8:
+                    samples[i] = row.get() & 0xff;
+                    break;
+                case ProductData.TYPE_INT16:
+                    samples[i] = row.getShort();
+                    break;
+                default:
+                    samples[i] = row.getShort() & 0xffff;
+                    break;
+            }
+        }
+    }
+
+    private class SpoolImage extends SourcelessOpImage {
+
+        private SpoolImage(ImageLayout layout, SampleModel sampleModel) {
+            super(layout, null, sampleModel, 0, 0, width, height);
+        }
+
+        @Override
+        protected void computeRect(PlanarImage[] sources, WritableRaster dest, Rectangle destRect) {
+            boolean rawBytes = (dest.getSampleModel().getDataType() == DataBuffer.TYPE_BYTE);
+            int[] samples = new int[destRect.width];
+            try {
+                for (int b = 0; b < dataTypes.length; b++) {
+                    for (int y = destRect.y; y < destRect.y + destRect.height; y++) {
+                        readSamples(b, destRect.x, y, destRect.width, rawBytes, samples);
+                        dest.setSamples(destRect.x, y, destRect.width, 1, b, samples);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -89,6 +89,28 @@ public class JP2ProductWriterTest {
         assertTrue(writtenFile.length() > 0);
     }
 
+    @Test
+    public void testStreamingWriteInTiles() throws IOException {
+        File writtenFile = new File(testsFolderPath.toFile(), FILE_NAME);
+        _productWriter.setStreaming(true);
+        _productWriter.writeProductNodes(_product, writtenFile);
+        final Band band = _product.getBand("band_01");
+        final ProductData firstRows = ProductData.createInstance(ProductData.TYPE_UINT16, 6);
+        final ProductData lastRow = ProductData.createInstance(ProductData.TYPE_UINT16, 3);
+        for (int i = 0; i < 6; i++) {
+            firstRows.setElemIntAt(i, band.getData().getElemIntAt(i));
+        }
+        for (int i = 0; i < 3; i++) {
+            lastRow.setElemIntAt(i, band.getData().getElemIntAt(6 + i));
+        }
+
+        _productWriter.writeBandRasterData(band, 0, 2, 3, 1, lastRow, ProgressMonitor.NULL);
+        assertTrue(writtenFile.length() == 0);
+        _productWriter.writeBandRasterData(band, 0, 0, 3, 2, firstRows, ProgressMonitor.NULL);
+        _productWriter.close();
+        assertTrue(writtenFile.length() > 0);
+    }
+
     private void fillBandWithData(final Band band, final int start)throws IOException {
         final ProductData data = band.createCompatibleRasterData();
         for (int i = 0; i < band.getRasterWidth() * band.getRasterHeight(); i++) {
@@ -0,0 +1,103 @@
+package eu.esa.opt.dataio.jp2;
+
+import eu.esa.opt.dataio.jp2.internal.JP2TileSpool;
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.Test;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JP2TileSpoolTest {
+
+    @Test
+    public void testWriteTilesAndReadImage() throws IOException {
+        try (JP2TileSpool spool = new JP2TileSpool(4, 3, 2)) {
+            spool.initBand(0, ProductData.TYPE_UINT16, 1, 0, false);
+            spool.initBand(1, ProductData.TYPE_UINT16, 100, 10, true);
+
+            ProductData left = ProductData.createInstance(ProductData.TYPE_UINT16, 6);
+            ProductData right = ProductData.createInstance(ProductData.TYPE_UINT16, 6);
+            for (int i = 0; i < 6; i++) {
+                left.setElemIntAt(i, 1000 + i);
+                right.setElemIntAt(i, 60000 + i);
+            }
+            assertFalse(spool.writeTile(0, 2, 0, 2, 3, right));
+            assertTrue(spool.writeTile(0, 0, 0, 2, 3, left));
+
+            ProductData values = ProductData.createInstance(ProductData.TYPE_FLOAT32, 12);
+            for (int i = 0; i < 12; i++) {
+                values.setElemFloatAt(i, i * 0.5f);
+            }
+            values.setElemFloatAt(11, 1000.0f);
+            assertTrue(spool.writeTile(1, 0, 0, 4, 3, values));
+
+            RenderedImage image = spool.createImage(3, 2);
+            assertEquals(4, image.getWidth());
+            assertEquals(3, image.getHeight());
+            assertEquals(2, image.getSampleModel().getNumBands());
+            assertEquals(DataBuffer.TYPE_USHORT, image.getSampleModel().getDataType());
+
+            Raster data = image.getData();
+            assertEquals(1000, data.getSample(0, 0, 0));
+            assertEquals(1003, data.getSample(1, 1, 0));
+            assertEquals(60002, data.getSample(2, 1, 0));
+            assertEquals(60005, data.getSample(3, 2, 0));
+            assertEquals(10, data.getSample(0, 0, 1));
+            assertEquals(360, data.getSample(3, 1, 1));
+            assertEquals(65535, data.getSample(3, 2, 1));
+        }
+    }
+
+    @Test
+    public void testTileWrittenTwiceDoesNotCompleteBand() throws IOException {
+        try (JP2TileSpool spool = new JP2TileSpool(4, 3, 1)) {
+            spool.initBand(0, ProductData.TYPE_UINT8, 1, 0, false);
+
+            ProductData first = ProductData.createInstance(ProductData.TYPE_UINT8, 6);
+            ProductData second = ProductData.createInstance(ProductData.TYPE_UINT8, 6);
+            for (int i = 0; i < 6; i++) {
+                first.setElemIntAt(i, 1);
+                second.setElemIntAt(i, 2);
+            }
+            assertFalse(spool.writeTile(0, 0, 0, 2, 3, first));
+            assertFalse(spool.writeTile(0, 0, 0, 2, 3, second));
+            assertTrue(spool.writeTile(0, 2, 0, 2, 3, first));
+            assertFalse(spool.writeTile(0, 2, 0, 2, 3, first));
+
+            Raster data = spool.createImage(4, 3).getData();
+            assertEquals(2, data.getSample(1, 2, 0));
+            assertEquals(1, data.getSample(2, 0, 0));
+        }
+    }
+
+    @Test
+    public void testSignedAndUnsignedBandsArePromotedToInt() throws IOException {
+        try (JP2TileSpool spool = new JP2TileSpool(2, 1, 2)) {
+            spool.initBand(0, ProductData.TYPE_INT16, 1, 0, false);
+            spool.initBand(1, ProductData.TYPE_UINT16, 1, 0, false);
+
+            ProductData signed = ProductData.createInstance(ProductData.TYPE_INT16, 2);
+            signed.setElemIntAt(0, -5);
+            signed.setElemIntAt(1, 32000);
+            ProductData unsigned = ProductData.createInstance(ProductData.TYPE_UINT16, 2);
+            unsigned.setElemIntAt(0, 60000);
+            unsigned.setElemIntAt(1, 7);
+            assertTrue(spool.writeTile(0, 0, 0, 2, 1, signed));
+            assertTrue(spool.writeTile(1, 0, 0, 2, 1, unsigned));
+
+            RenderedImage image = spool.createImage(2, 1);
+            assertEquals(DataBuffer.TYPE_INT, image.getSampleModel().getDataType());
+            Raster data = image.getData();
+            assertEquals(-5, data.getSample(0, 0, 0));
+            assertEquals(32000, data.getSample(1, 0, 0));
+            assertEquals(60000, data.getSample(0, 0, 1));
+            assertEquals(7, data.getSample(1, 0, 1));
+        }
+    }
+}
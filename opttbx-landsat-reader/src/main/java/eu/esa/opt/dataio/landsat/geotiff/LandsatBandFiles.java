@@ -0,0 +1,199 @@
+package eu.esa.opt.dataio.landsat.geotiff;
+
+import com.bc.ceres.core.VirtualDir;
+import com.bc.ceres.multilevel.support.DefaultMultiLevelImage;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.image.ImageManager;
+import org.esa.snap.dataio.geotiff.GeoTiffProductReaderPlugIn;
+import org.esa.snap.utils.SharedExecutor;
+
+import java.awt.Dimension;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Opens the GeoTIFF files of the bands of a Landsat product concurrently.
+ * <br>The geo-coding and the raster description of a band come from the GeoTIFF product reader, whereas its raster
+ * is read through a {@link LandsatTiffFile} when the layout of the file is supported: the GeoTIFF product reader is
+ * then closed, the tiles of all the bands are read and decoded concurrently, the overviews of the file are used for
+ * the lower resolution levels, and the decoded tiles are kept in the shared {@link LandsatTileCache}.
+ * <br>The overviews are not used for the flag bands, whose resampled values would mix the bits of several pixels:
+ * their lower resolution levels are subsampled from the full resolution image.
+ *
+ * @since 14.0.0
+ */
+final class LandsatBandFiles implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(LandsatBandFiles.class.getName());
+
+    private static final GeoTiffProductReaderPlugIn BAND_READER_PLUGIN = new GeoTiffProductReaderPlugIn();
+    // the band files are opened from a local folder or extracted from an archive
+    private static final int MAX_PARALLELISM = 8;
+
+    private final List<LandsatTiffFile> tiffFiles;
+
+    LandsatBandFiles() {
+        this.tiffFiles = new ArrayList<>();
+    }
+
+    /**
+     * Opens the band files of a product.
+     *
+     * @param virtualDir    the folder or the archive of the product
+     * @param filePaths     the paths of the files in the folder
+     * @param flagFilePaths the paths of the files of the flag bands
+     * @return the products of the files, in the order of the paths, <code>null</code> for the missing files
+     */
+    List<Product> open(VirtualDir virtualDir, List<String> filePaths, Set<String> flagFilePaths) throws IOException {
+        Product[] products = new Product[filePaths.size()];
+        if (filePaths.size() <= 1) {
+            for (int i = 0; i < products.length; i++) {
+                products[i] = openFile(virtualDir, filePaths.get(i), flagFilePaths.contains(filePaths.get(i)));
+            }
+            return Arrays.asList(products);
+        }
+        SharedExecutor.TaskGroup group = SharedExecutor.newTaskGroup("Landsat band files", Math.min(filePaths.size(), MAX_PARALLELISM),
+                                                                      SharedExecutor.Mode.IO);
+        for (int i = 0; i < products.length; i++) {
+            final int index = i;
+            group.execute(() -> {
+                try {
+                    String filePath = filePaths.get(index);
+                    products[index] = openFile(virtualDir, filePath, flagFilePaths.contains(filePath));
+                } catch (IOException e) {
+                    throw new OpeningException(e);
+                }
+            });
+        }
+        try {
+            group.awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discard(products);
+            throw new InterruptedIOException("The opening of the Landsat band files has been interrupted.");
+        } catch (ExecutionException e) {
+            discard(products);
+            Throwable cause = (e.getCause() instanceof OpeningException) ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("The opening of the Landsat band files has failed.", cause);
+        }
+        return Arrays.asList(products);
+    }
+
+    /**
+     * Closes the TIFF files read by the band images, and discards their cached tiles.
+     */
+    @Override
+    public void close() throws IOException {
+        List<LandsatTiffFile> files;
+        synchronized (this.tiffFiles) {
+            files = new ArrayList<>(this.tiffFiles);
+            this.tiffFiles.clear();
+        }
+        IOException exception = null;
+        for (LandsatTiffFile file : files) {
+            LandsatTileCache.getInstance().removeTiles(file);
+            try {
+                file.close();
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private Product openFile(VirtualDir virtualDir, String filePath, boolean flagBand) throws IOException {
+        File file = virtualDir.getFile(filePath);
+        if (!file.exists()) {
+            return null;
+        }
+        Product product = BAND_READER_PLUGIN.createReaderInstance().readProductNodes(file, null);
+        if (product != null && product.getNumBands() == 1 && setTiffImage(product, file, !flagBand)) {
+            // the raster is not read by the GeoTIFF product reader anymore
+            try {
+                product.getProductReader().close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Failed to close the GeoTIFF reader of the file " + file, e);
+            }
+        }
+        return product;
+    }
+
+    private boolean setTiffImage(Product product, File file, boolean useOverviews) {
+        Band band = product.getBandAt(0);
+        LandsatTiffFile tiffFile;
+        try {
+            tiffFile = LandsatTiffFile.open(file.toPath());
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.FINE, "The file " + file + " is read by the GeoTIFF reader.", e);
+            return false;
+        }
+        if (tiffFile == null) {
+            return false;
+        }
+        LandsatTiffFile.Image image = tiffFile.getImages().get(0);
+        if (image.width != band.getRasterWidth() || image.height != band.getRasterHeight()
+                || image.dataBufferType != ImageManager.getDataBufferType(band.getDataType())) {
+            try {
+                tiffFile.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Failed to close the file " + file, e);
+            }
+            return false;
+        }
+        Dimension tileSize;
+        if (image.tiled) {
+            tileSize = new Dimension(image.tileWidth, image.tileHeight);
+        } else {
+            tileSize = product.getPreferredTileSize();
+            if (tileSize == null) {
+                tileSize = ImageManager.getPreferredTileSize(product);
+            }
+        }
+        LandsatTiffMultiLevelSource source = new LandsatTiffMultiLevelSource(tiffFile, LandsatTileCache.getInstance(),
+                                                                             band.getMultiLevelModel(), tileSize, useOverviews);
+        band.setSourceImage(new DefaultMultiLevelImage(source));
+        synchronized (this.tiffFiles) {
+            this.tiffFiles.add(tiffFile);
+        }
+        return true;
+    }
+
+    private void discard(Product[] products) {
+        for (Product product : products) {
+            if (product != null) {
+                product.dispose();
+            }
+        }
+        try {
+            close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Failed to close the band files", e);
+        }
+    }
+
+    private static class OpeningException extends RuntimeException {
+
+        private OpeningException(IOException cause) {
+            super(cause);
+        }
+    }
+}
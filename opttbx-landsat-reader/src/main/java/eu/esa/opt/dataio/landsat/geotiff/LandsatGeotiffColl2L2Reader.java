@@ -28,15 +28,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import javax.media.jai.ImageLayout;
 
 import com.bc.ceres.multilevel.MultiLevelImage;
 import org.esa.snap.core.dataio.AbstractProductReader;
-import org.esa.snap.core.dataio.ProductReader;
 import org.esa.snap.core.dataio.ProductReaderPlugIn;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.FlagCoding;
@@ -46,7 +47,6 @@ import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.image.ImageManager;
 import org.esa.snap.core.util.io.FileUtils;
-import org.esa.snap.dataio.geotiff.GeoTiffProductReaderPlugIn;
 
 import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.core.VirtualDir;
@@ -276,6 +276,7 @@ public class LandsatGeotiffColl2L2Reader extends AbstractProductReader {
 //    }
 
     private List<Product> bandProducts;
+    private LandsatBandFiles bandFiles;
     private VirtualDir virtualDir;
     private String basePath;
 
@@ -378,23 +379,31 @@ public class LandsatGeotiffColl2L2Reader extends AbstractProductReader {
     
     
     private void addBands(Product product) throws IOException {
-        final GeoTiffProductReaderPlugIn geoTiffPlugIn = new GeoTiffProductReaderPlugIn();
         bandProducts = new ArrayList<>();
 
-        for (String tiffFile : getTiffFiles()) {
-            final String filenameWithoutExtension = FileUtils.getFilenameWithoutExtension(tiffFile);
-            final String key = CollectionTools.getPatternSubtractedFilename(filenameWithoutExtension);
-            String bandname = key.substring(1).toLowerCase();
+        // the band files are opened concurrently
+        final ArrayList<String> tiffFiles = getTiffFiles();
+        final List<String> tiffFilePaths = new ArrayList<>();
+        final Set<String> flagFilePaths = new HashSet<>();
+        for (String tiffFile : tiffFiles) {
+            tiffFilePaths.add(basePath + tiffFile);
+            if (productSpecs.getFlagCoding(getBandName(tiffFile)) != null) {
+                flagFilePaths.add(basePath + tiffFile);
+            }
+        }
+        bandFiles = new LandsatBandFiles();
+        final List<Product> tiffProducts = bandFiles.open(virtualDir, tiffFilePaths, flagFilePaths);
+
+        for (int i = 0; i < tiffFiles.size(); i++) {
+            String bandname = getBandName(tiffFiles.get(i));
 //            if (bandnames.containsKey(key)) {
 //                bandname = bandnames.get(key);
 //            }
-            final File geoTiffFile = virtualDir.getFile(basePath + tiffFile);
-            if (!geoTiffFile.exists()) {
-                LOG.warning("The expected geotiff file " + geoTiffFile.getAbsolutePath() + " does not exist.");
+            final Product bandProduct = tiffProducts.get(i);
+            if (bandProduct == null) {
+                LOG.warning("The expected geotiff file " + tiffFilePaths.get(i) + " does not exist.");
                 continue;
             }
-            final ProductReader geoTiffReader = geoTiffPlugIn.createReaderInstance();
-            final Product bandProduct = geoTiffReader.readProductNodes(geoTiffFile, null);
             bandProducts.add(bandProduct);
             final Band band = addBandToProduct(bandname, bandProduct.getBandAt(0), product);
             final String bandDescription = productSpecs.getBandDescription(bandname);
@@ -488,6 +497,12 @@ public class LandsatGeotiffColl2L2Reader extends AbstractProductReader {
         return tiffFiles;
     }
 
+    private static String getBandName(String tiffFile) {
+        final String filenameWithoutExtension = FileUtils.getFilenameWithoutExtension(tiffFile);
+        final String key = CollectionTools.getPatternSubtractedFilename(filenameWithoutExtension);
+        return key.substring(1).toLowerCase();
+    }
+
     private Band addBandToProduct(String bandName, Band srcBand, Product product) {
         Dimension bandDimension = srcBand.getRasterSize();
         Band band = new Band(bandName, srcBand.getDataType(), bandDimension.width, bandDimension.height);
@@ -510,6 +525,10 @@ public class LandsatGeotiffColl2L2Reader extends AbstractProductReader {
             bandProduct.closeIO();
         }
         bandProducts.clear();
+        if (bandFiles != null) {
+            bandFiles.close();
+            bandFiles = null;
+        }
         virtualDir.close();
         virtualDir = null;
         super.close();
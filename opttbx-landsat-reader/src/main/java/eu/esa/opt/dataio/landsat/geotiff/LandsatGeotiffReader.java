@@ -20,7 +20,6 @@ import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.core.VirtualDir;
 import com.bc.ceres.multilevel.MultiLevelImage;
 import org.esa.snap.core.dataio.AbstractProductReader;
-import org.esa.snap.core.dataio.ProductReader;
 import org.esa.snap.core.dataio.ProductReaderPlugIn;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.FlagCoding;
@@ -31,7 +30,6 @@ import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.image.ImageManager;
 import org.esa.snap.core.image.SourceImageScaler;
-import org.esa.snap.dataio.geotiff.GeoTiffProductReaderPlugIn;
 import org.esa.snap.runtime.Config;
 
 import javax.media.jai.ImageLayout;
@@ -43,7 +41,12 @@ import java.awt.RenderingHints;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
 import java.util.regex.Matcher;
@@ -57,7 +60,6 @@ public class LandsatGeotiffReader extends AbstractProductReader {
 
     public static final String SYSPROP_READ_AS = "opttbx.landsat.readAs";
     static final String READ_AS_REFLECTANCE = "reflectance";
-    private static final GeoTiffProductReaderPlugIn BAND_READER_PLUGIN = new GeoTiffProductReaderPlugIn();
 
     enum Resolution {
         DEFAULT,
@@ -76,6 +78,8 @@ public class LandsatGeotiffReader extends AbstractProductReader {
     private LandsatMetadata landsatMetadata;
     private LandsatQA landsatQA;
     private List<Product> bandProducts;
+    private LandsatBandFiles bandFiles;
+    private Map<String, Product> bandProductsByPath;
     private VirtualDir virtualDir;
     private String basePath;
 
@@ -169,6 +173,7 @@ public class LandsatGeotiffReader extends AbstractProductReader {
         final Pattern pattern = landsatMetadata.getOpticalBandFileNamePattern();
         product.setAutoGrouping("sun:view");
         bandProducts = new ArrayList<>();
+        openBandFiles(productAttributes, pattern);
         for (MetadataAttribute metadataAttribute : productAttributes) {
             String attributeName = metadataAttribute.getName();
             Matcher matcher = pattern.matcher(attributeName);
@@ -177,9 +182,7 @@ public class LandsatGeotiffReader extends AbstractProductReader {
                 String bandNumber = matcher.group(1);
                 String fileName = metadataAttribute.getData().getElemString();
 
-                File bandFile = virtualDir.getFile(basePath + fileName);
-                ProductReader productReader = BAND_READER_PLUGIN.createReaderInstance();
-                Product bandProduct = productReader.readProductNodes(bandFile, null);
+                Product bandProduct = bandProductsByPath.get(basePath + fileName);
                 if (bandProduct != null) {
                     bandProducts.add(bandProduct);
                     Band srcBand = bandProduct.getBandAt(0);
@@ -210,9 +213,7 @@ public class LandsatGeotiffReader extends AbstractProductReader {
                 }
             } else if (qualityBandNameKey != null && landsatQA != null && attributeName.startsWith(qualityBandNameKey)) {
                 String fileName = metadataAttribute.getData().getElemString();
-                File bandFile = virtualDir.getFile(basePath + fileName);
-                ProductReader productReader = BAND_READER_PLUGIN.createReaderInstance();
-                Product bandProduct = productReader.readProductNodes(bandFile, null);
+                Product bandProduct = bandProductsByPath.get(basePath + fileName);
                 if (bandProduct != null) {
                     bandProducts.add(bandProduct);
                     Band srcBand = bandProduct.getBandAt(0);
@@ -311,10 +312,43 @@ public class LandsatGeotiffReader extends AbstractProductReader {
         }
     }
 
+    /**
+     * Opens concurrently the GeoTIFF files of the bands, of the quality bands and of the angle bands.
+     */
+    private void openBandFiles(MetadataAttribute[] productAttributes, Pattern pattern) throws IOException {
+        final String qualityBandNameKey = landsatMetadata.getQualityBandNameKey();
+        Set<String> filePaths = new LinkedHashSet<>();
+        Set<String> flagFilePaths = new HashSet<>();
+        for (MetadataAttribute metadataAttribute : productAttributes) {
+            String attributeName = metadataAttribute.getName();
+            if (pattern.matcher(attributeName).matches()) {
+                filePaths.add(basePath + metadataAttribute.getData().getElemString());
+            } else if (qualityBandNameKey != null && landsatQA != null && attributeName.startsWith(qualityBandNameKey)) {
+                String filePath = basePath + metadataAttribute.getData().getElemString();
+                filePaths.add(filePath);
+                flagFilePaths.add(filePath);
+            }
+        }
+        String[] angleBandFileNames = {
+                landsatMetadata.getAngleSensorAzimuthBandName(), landsatMetadata.getAngleSensorZenithBandName(),
+                landsatMetadata.getAngleSolarAzimuthBandName(), landsatMetadata.getAngleSolarZenithBandName()
+        };
+        for (String angleBandFileName : angleBandFileNames) {
+            if (angleBandFileName != null) {
+                filePaths.add(basePath + angleBandFileName);
+            }
+        }
+        List<String> filePathList = new ArrayList<>(filePaths);
+        bandFiles = new LandsatBandFiles();
+        List<Product> openedProducts = bandFiles.open(virtualDir, filePathList, flagFilePaths);
+        bandProductsByPath = new HashMap<>();
+        for (int i = 0; i < filePathList.size(); i++) {
+            bandProductsByPath.put(filePathList.get(i), openedProducts.get(i));
+        }
+    }
+
     private void addAngleBand(String bandFileName, String bandName, Product product) throws IOException {
-        File bandFile = virtualDir.getFile(basePath + bandFileName);
-        ProductReader productReader = BAND_READER_PLUGIN.createReaderInstance();
-        Product bandProduct = productReader.readProductNodes(bandFile, null);
+        Product bandProduct = bandProductsByPath.get(basePath + bandFileName);
         if (bandProduct != null) {
             bandProducts.add(bandProduct);
             Band srcBand = bandProduct.getBandAt(0);
@@ -360,6 +394,10 @@ public class LandsatGeotiffReader extends AbstractProductReader {
             bandProduct.closeIO();
         }
         bandProducts.clear();
+        if (bandFiles != null) {
+            bandFiles.close();
+            bandFiles = null;
+        }
         virtualDir.close();
         virtualDir = null;
         super.close();
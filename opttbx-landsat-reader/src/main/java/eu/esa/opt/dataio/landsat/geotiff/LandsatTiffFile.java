@@ -0,0 +1,633 @@
+package eu.esa.opt.dataio.landsat.geotiff;
+
+import java.awt.image.DataBuffer;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reader of the strips or the tiles of a single band (Cloud Optimized) GeoTIFF file, using positional reads so that
+ * the tiles of a file are read and decoded concurrently.
+ * <br>The full resolution image and its reduced resolution images (the overviews of a COG) are exposed as a list of
+ * images. The uncompressed, PackBits, LZW and Deflate compressions are supported, with the horizontal predictor.
+ *
+ * @since 14.0.0
+ */
+final class LandsatTiffFile implements Closeable {
+
+    private static final int TAG_NEW_SUBFILE_TYPE = 254;
+    private static final int TAG_IMAGE_WIDTH = 256;
+    private static final int TAG_IMAGE_LENGTH = 257;
+    private static final int TAG_BITS_PER_SAMPLE = 258;
+    private static final int TAG_COMPRESSION = 259;
+    private static final int TAG_STRIP_OFFSETS = 273;
+    private static final int TAG_SAMPLES_PER_PIXEL = 277;
+    private static final int TAG_ROWS_PER_STRIP = 278;
+    private static final int TAG_STRIP_BYTE_COUNTS = 279;
+    private static final int TAG_PREDICTOR = 317;
+    private static final int TAG_TILE_WIDTH = 322;
+    private static final int TAG_TILE_LENGTH = 323;
+    private static final int TAG_TILE_OFFSETS = 324;
+    private static final int TAG_TILE_BYTE_COUNTS = 325;
+    private static final int TAG_SAMPLE_FORMAT = 339;
+
+    private static final int COMPRESSION_NONE = 1;
+    private static final int COMPRESSION_LZW = 5;
+    private static final int COMPRESSION_DEFLATE = 8;
+    private static final int COMPRESSION_PACKBITS = 32773;
+    private static final int COMPRESSION_DEFLATE_OBSOLETE = 32946;
+
+    private static final int PREDICTOR_NONE = 1;
+    private static final int PREDICTOR_HORIZONTAL = 2;
+
+    // a corrupted file could chain its IFDs in a loop or declare huge arrays
+    private static final int MAXIMUM_IMAGE_COUNT = 64;
+    private static final long MAXIMUM_ARRAY_LENGTH = 1L << 26;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteOrder byteOrder;
+    private final List<Image> images;
+
+    private LandsatTiffFile(Path path, FileChannel channel, ByteOrder byteOrder, List<Image> images) {
+        this.path = path;
+        this.channel = channel;
+        this.byteOrder = byteOrder;
+        this.images = images;
+    }
+
+    /**
+     * Opens a TIFF file.
+     *
+     * @return the file, or <code>null</code> if the layout or the compression of the file is not supported
+     */
+    static LandsatTiffFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            LandsatTiffFile file = readStructure(path, channel);
+            if (file == null) {
+                channel.close();
+            }
+            return file;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Returns the full resolution image, followed by the reduced resolution images in decreasing size.
+     */
+    List<Image> getImages() {
+        return this.images;
+    }
+
+    /**
+     * Reads and decodes a tile, or a strip, of an image.
+     *
+     * @return the samples of the tile, in an array of the data buffer type of the image, whose size is the one of a
+     * whole tile
+     */
+    Object readTile(Image image, int tileIndex) throws IOException {
+        int sampleCount = image.tileWidth * image.tileHeight;
+        long offset = image.offsets[tileIndex];
+        long byteCount = image.byteCounts[tileIndex];
+        if (offset == 0 || byteCount == 0) {
+            // a sparse tile, left empty by the writer
+            return createArray(image.dataBufferType, sampleCount);
+        }
+        if (byteCount > Integer.MAX_VALUE) {
+            throw new IOException("The tile " + tileIndex + " of the file " + this.path + " is too large.");
+        }
+        byte[] encoded = new byte[(int) byteCount];
+        readFully(this.channel, ByteBuffer.wrap(encoded), offset);
+
+        int rowCount = image.tileHeight;
+        if (!image.tiled) {
+            // the last strip is truncated to the height of the image
+            rowCount = Math.min(image.tileHeight, image.height - (tileIndex * image.tileHeight));
+        }
+        byte[] decoded = new byte[image.tileWidth * rowCount * image.bytesPerSample];
+        switch (image.compression) {
+            case COMPRESSION_NONE:
+                System.arraycopy(encoded, 0, decoded, 0, Math.min(encoded.length, decoded.length));
+                break;
+            case COMPRESSION_LZW:
+                decodeLzw(encoded, decoded);
+                break;
+            case COMPRESSION_DEFLATE:
+            case COMPRESSION_DEFLATE_OBSOLETE:
+                decodeDeflate(encoded, decoded);
+                break;
+            case COMPRESSION_PACKBITS:
+                decodePackBits(encoded, decoded);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported compression " + image.compression);
+        }
+        Object samples = createArray(image.dataBufferType, sampleCount);
+        ByteBuffer buffer = ByteBuffer.wrap(decoded).order(this.byteOrder);
+        switch (image.dataBufferType) {
+            case DataBuffer.TYPE_BYTE:
+                buffer.get((byte[]) samples, 0, decoded.length);
+                break;
+            case DataBuffer.TYPE_USHORT:
+            case DataBuffer.TYPE_SHORT:
+                buffer.asShortBuffer().get((short[]) samples, 0, decoded.length / 2);
+                break;
+            case DataBuffer.TYPE_INT:
+                buffer.asIntBuffer().get((int[]) samples, 0, decoded.length / 4);
+                break;
+            case DataBuffer.TYPE_FLOAT:
+                buffer.asFloatBuffer().get((float[]) samples, 0, decoded.length / 4);
+                break;
+            case DataBuffer.TYPE_DOUBLE:
+                buffer.asDoubleBuffer().get((double[]) samples, 0, decoded.length / 8);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported data buffer type " + image.dataBufferType);
+        }
+        if (image.predictor == PREDICTOR_HORIZONTAL) {
+            undoHorizontalDifferencing(samples, image.tileWidth, rowCount);
+        }
+        return samples;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    static Object createArray(int dataBufferType, int length) {
+        switch (dataBufferType) {
+            case DataBuffer.TYPE_BYTE:
+                return new byte[length];
+            case DataBuffer.TYPE_USHORT:
+            case DataBuffer.TYPE_SHORT:
+                return new short[length];
+            case DataBuffer.TYPE_INT:
+                return new int[length];
+            case DataBuffer.TYPE_FLOAT:
+                return new float[length];
+            case DataBuffer.TYPE_DOUBLE:
+                return new double[length];
+            default:
+                throw new IllegalArgumentException("Unsupported data buffer type " + dataBufferType);
+        }
+    }
+
+    private static LandsatTiffFile readStructure(Path path, FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(16);
+        readFully(channel, header, 0);
+        ByteOrder byteOrder;
+        if (header.get(0) == 'I' && header.get(1) == 'I') {
+            byteOrder = ByteOrder.LITTLE_ENDIAN;
+        } else if (header.get(0) == 'M' && header.get(1) == 'M') {
+            byteOrder = ByteOrder.BIG_ENDIAN;
+        } else {
+            return null;
+        }
+        header.order(byteOrder);
+        int version = header.getShort(2) & 0xffff;
+        boolean bigTiff;
+        long ifdOffset;
+        if (version == 42) {
+            bigTiff = false;
+            ifdOffset = header.getInt(4) & 0xffffffffL;
+        } else if (version == 43 && header.getShort(4) == 8) {
+            bigTiff = true;
+            ifdOffset = header.getLong(8);
+        } else {
+            return null;
+        }
+
+        List<Image> images = new ArrayList<>();
+        Set<Long> visitedOffsets = new HashSet<>();
+        while (ifdOffset != 0 && visitedOffsets.add(ifdOffset) && visitedOffsets.size() <= MAXIMUM_IMAGE_COUNT) {
+            Directory directory = Directory.read(channel, byteOrder, bigTiff, ifdOffset);
+            long subfileType = directory.getValue(TAG_NEW_SUBFILE_TYPE, 0);
+            if (images.isEmpty()) {
+                if (subfileType != 0) {
+                    return null;
+                }
+                Image image = buildImage(directory, -1);
+                if (image == null) {
+                    return null;
+                }
+                images.add(image);
+            } else if (subfileType == 1) {
+                // a reduced resolution image, the transparency masks (subfile type 4 or 5) being ignored
+                Image image = buildImage(directory, images.get(0).dataBufferType);
+                if (image != null && image.width < images.get(images.size() - 1).width) {
+                    images.add(image);
+                }
+            }
+            ifdOffset = directory.nextOffset;
+        }
+        if (images.isEmpty()) {
+            return null;
+        }
+        return new LandsatTiffFile(path, channel, byteOrder, Collections.unmodifiableList(images));
+    }
+
+    private static Image buildImage(Directory directory, int expectedDataBufferType) throws IOException {
+        int width = (int) directory.getValue(TAG_IMAGE_WIDTH, 0);
+        int height = (int) directory.getValue(TAG_IMAGE_LENGTH, 0);
+        int samplesPerPixel = (int) directory.getValue(TAG_SAMPLES_PER_PIXEL, 1);
+        int bitsPerSample = (int) directory.getValue(TAG_BITS_PER_SAMPLE, 1);
+        int sampleFormat = (int) directory.getValue(TAG_SAMPLE_FORMAT, 1);
+        int compression = (int) directory.getValue(TAG_COMPRESSION, COMPRESSION_NONE);
+        int predictor = (int) directory.getValue(TAG_PREDICTOR, PREDICTOR_NONE);
+        if (width <= 0 || height <= 0 || samplesPerPixel != 1) {
+            return null;
+        }
+        if (compression != COMPRESSION_NONE && compression != COMPRESSION_LZW && compression != COMPRESSION_DEFLATE
+                && compression != COMPRESSION_PACKBITS && compression != COMPRESSION_DEFLATE_OBSOLETE) {
+            return null;
+        }
+        int dataBufferType = getDataBufferType(bitsPerSample, sampleFormat);
+        if (dataBufferType < 0 || (expectedDataBufferType >= 0 && dataBufferType != expectedDataBufferType)) {
+            return null;
+        }
+        boolean floatingPoint = (dataBufferType == DataBuffer.TYPE_FLOAT || dataBufferType == DataBuffer.TYPE_DOUBLE);
+        if (predictor != PREDICTOR_NONE && (predictor != PREDICTOR_HORIZONTAL || floatingPoint)) {
+            return null;
+        }
+        boolean tiled = directory.contains(TAG_TILE_OFFSETS);
+        int tileWidth;
+        int tileHeight;
+        long[] offsets;
+        long[] byteCounts;
+        if (tiled) {
+            tileWidth = (int) directory.getValue(TAG_TILE_WIDTH, 0);
+            tileHeight = (int) directory.getValue(TAG_TILE_LENGTH, 0);
+            offsets = directory.getValues(TAG_TILE_OFFSETS);
+            byteCounts = directory.getValues(TAG_TILE_BYTE_COUNTS);
+        } else {
+            tileWidth = width;
+            tileHeight = (int) Math.min(height, directory.getValue(TAG_ROWS_PER_STRIP, height));
+            offsets = directory.getValues(TAG_STRIP_OFFSETS);
+            byteCounts = directory.getValues(TAG_STRIP_BYTE_COUNTS);
+        }
+        if (tileWidth <= 0 || tileHeight <= 0 || offsets == null || byteCounts == null) {
+            return null;
+        }
+        int bytesPerSample = bitsPerSample / 8;
+        if ((long) tileWidth * tileHeight * bytesPerSample > Integer.MAX_VALUE) {
+            return null;
+        }
+        Image image = new Image(width, height, tileWidth, tileHeight, tiled, dataBufferType, bytesPerSample,
+                                compression, predictor, offsets, byteCounts);
+        if (offsets.length < image.getTileCount() || byteCounts.length < image.getTileCount()) {
+            return null;
+        }
+        return image;
+    }
+
+    private static int getDataBufferType(int bitsPerSample, int sampleFormat) {
+        if (sampleFormat == 3) {
+            if (bitsPerSample == 32) {
+                return DataBuffer.TYPE_FLOAT;
+            }
+            return (bitsPerSample == 64) ? DataBuffer.TYPE_DOUBLE : -1;
+        }
+        if (sampleFormat != 1 && sampleFormat != 2) {
+            return -1;
+        }
+        switch (bitsPerSample) {
+            case 8:
+                return DataBuffer.TYPE_BYTE;
+            case 16:
+                return (sampleFormat == 1) ? DataBuffer.TYPE_USHORT : DataBuffer.TYPE_SHORT;
+            case 32:
+                return DataBuffer.TYPE_INT;
+            default:
+                return -1;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long currentPosition = position;
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, currentPosition);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of file at the position " + currentPosition);
+            }
+            currentPosition += count;
+        }
+    }
+
+    private static void undoHorizontalDifferencing(Object samples, int width, int rowCount) {
+        for (int y = 0; y < rowCount; y++) {
+            int start = y * width;
+            int end = start + width;
+            if (samples instanceof byte[]) {
+                byte[] values = (byte[]) samples;
+                for (int i = start + 1; i < end; i++) {
+                    values[i] += values[i - 1];
+                }
+            } else if (samples instanceof short[]) {
+                short[] values = (short[]) samples;
+                for (int i = start + 1; i < end; i++) {
+                    values[i] += values[i - 1];
+                }
+            } else {
+                int[] values = (int[]) samples;
+                for (int i = start + 1; i < end; i++) {
+                    values[i] += values[i - 1];
+                }
+            }
+        }
+    }
+
+    static void decodeDeflate(byte[] encoded, byte[] decoded) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(encoded);
+            int offset = 0;
+            while (offset < decoded.length && !inflater.finished()) {
+                int count = inflater.inflate(decoded, offset, decoded.length - offset);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += count;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid Deflate data: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    static void decodePackBits(byte[] encoded, byte[] decoded) {
+        int inputIndex = 0;
+        int outputIndex = 0;
+        while (inputIndex < encoded.length && outputIndex < decoded.length) {
+            int header = encoded[inputIndex++];
+            if (header >= 0) {
+                int count = Math.min(header + 1, Math.min(encoded.length - inputIndex, decoded.length - outputIndex));
+                System.arraycopy(encoded, inputIndex, decoded, outputIndex, count);
+                inputIndex += header + 1;
+                outputIndex += count;
+            } else if (header != -128 && inputIndex < encoded.length) {
+                int count = Math.min(1 - header, decoded.length - outputIndex);
+                byte value = encoded[inputIndex++];
+                for (int i = 0; i < count; i++) {
+                    decoded[outputIndex++] = value;
+                }
+            }
+        }
+    }
+
+    static void decodeLzw(byte[] encoded, byte[] decoded) throws IOException {
+        final int clearCode = 256;
+        final int endOfInformation = 257;
+        int[] prefixes = new int[4096];
+        byte[] suffixes = new byte[4096];
+        byte[] firstBytes = new byte[4096];
+        int[] lengths = new int[4096];
+        for (int i = 0; i < 256; i++) {
+            suffixes[i] = (byte) i;
+            firstBytes[i] = (byte) i;
+            lengths[i] = 1;
+        }
+        long bitCount = 8L * encoded.length;
+        long bitPosition = 0;
+        int codeLength = 9;
+        int nextCode = 258;
+        int previousCode = -1;
+        int outputIndex = 0;
+        while (bitPosition + codeLength <= bitCount && outputIndex < decoded.length) {
+            // the codes are stored from the most significant bit
+            int code = 0;
+            for (int i = 0; i < codeLength; i++, bitPosition++) {
+                code = (code << 1) | ((encoded[(int) (bitPosition >>> 3)] >>> (7 - (int) (bitPosition & 7))) & 1);
+            }
+            if (code == endOfInformation) {
+                break;
+            }
+            if (code == clearCode) {
+                codeLength = 9;
+                nextCode = 258;
+                previousCode = -1;
+                continue;
+            }
+            if (previousCode < 0) {
+                if (code > 255) {
+                    throw new IOException("Invalid LZW code " + code);
+                }
+                decoded[outputIndex++] = (byte) code;
+                previousCode = code;
+                continue;
+            }
+            if (code > nextCode || code >= 4096) {
+                throw new IOException("Invalid LZW code " + code);
+            }
+            if (nextCode < 4096) {
+                prefixes[nextCode] = previousCode;
+                firstBytes[nextCode] = firstBytes[previousCode];
+                // the new string ends with the first byte of the current one, which is its own first byte if not known yet
+                suffixes[nextCode] = (code < nextCode) ? firstBytes[code] : firstBytes[previousCode];
+                lengths[nextCode] = lengths[previousCode] + 1;
+                nextCode++;
+                // the code length is increased one code early
+                if (nextCode + 1 == (1 << codeLength) && codeLength < 12) {
+                    codeLength++;
+                }
+            }
+            int length = lengths[code];
+            int last = outputIndex + length - 1;
+            int stringCode = code;
+            for (int i = last; i >= outputIndex; i--) {
+                if (i < decoded.length) {
+                    decoded[i] = suffixes[stringCode];
+                }
+                stringCode = prefixes[stringCode];
+            }
+            outputIndex = Math.min(decoded.length, outputIndex + length);
+            previousCode = code;
+        }
+    }
+
+    /**
+     * An image of the file, with the layout of its tiles or strips.
+     */
+    static final class Image {
+
+        final int width;
+        final int height;
+        // the strips are handled as tiles of the width of the image
+        final int tileWidth;
+        final int tileHeight;
+        final boolean tiled;
+        final int dataBufferType;
+        final int bytesPerSample;
+        final int compression;
+        final int predictor;
+        private final long[] offsets;
+        private final long[] byteCounts;
+
+        private Image(int width, int height, int tileWidth, int tileHeight, boolean tiled, int dataBufferType, int bytesPerSample,
+                      int compression, int predictor, long[] offsets, long[] byteCounts) {
+            this.width = width;
+            this.height = height;
+            this.tileWidth = tileWidth;
+            this.tileHeight = tileHeight;
+            this.tiled = tiled;
+            this.dataBufferType = dataBufferType;
+            this.bytesPerSample = bytesPerSample;
+            this.compression = compression;
+            this.predictor = predictor;
+            this.offsets = offsets;
+            this.byteCounts = byteCounts;
+        }
+
+        int getTilesAcross() {
+            return (this.width + this.tileWidth - 1) / this.tileWidth;
+        }
+
+        int getTilesDown() {
+            return (this.height + this.tileHeight - 1) / this.tileHeight;
+        }
+
+        int getTileCount() {
+            return getTilesAcross() * getTilesDown();
+        }
+    }
+
+    /**
+     * The entries of an image file directory.
+     */
+    private static final class Directory {
+
+        private final ByteBuffer entries;
+        private final int entryCount;
+        private final int entrySize;
+        private final boolean bigTiff;
+        private final FileChannel channel;
+        private final long nextOffset;
+
+        private Directory(FileChannel channel, ByteBuffer entries, int entryCount, boolean bigTiff, long nextOffset) {
+            this.channel = channel;
+            this.entries = entries;
+            this.entryCount = entryCount;
+            this.entrySize = bigTiff ? 20 : 12;
+            this.bigTiff = bigTiff;
+            this.nextOffset = nextOffset;
+        }
+
+        private static Directory read(FileChannel channel, ByteOrder byteOrder, boolean bigTiff, long offset) throws IOException {
+            ByteBuffer countBuffer = ByteBuffer.allocate(bigTiff ? 8 : 2).order(byteOrder);
+            readFully(channel, countBuffer, offset);
+            long entryCount = bigTiff ? countBuffer.getLong(0) : (countBuffer.getShort(0) & 0xffff);
+            if (entryCount < 0 || entryCount > 4096) {
+                throw new IOException("Invalid TIFF directory at the offset " + offset);
+            }
+            int entrySize = bigTiff ? 20 : 12;
+            ByteBuffer entries = ByteBuffer.allocate((int) entryCount * entrySize + (bigTiff ? 8 : 4)).order(byteOrder);
+            readFully(channel, entries, offset + countBuffer.capacity());
+            long nextOffset = bigTiff ? entries.getLong((int) entryCount * entrySize) : (entries.getInt((int) entryCount * entrySize) & 0xffffffffL);
+            return new Directory(channel, entries, (int) entryCount, bigTiff, nextOffset);
+        }
+
+        private int find(int tag) {
+            for (int i = 0; i < this.entryCount; i++) {
+                if ((this.entries.getShort(i * this.entrySize) & 0xffff) == tag) {
+                    return i * this.entrySize;
+                }
+            }
+            return -1;
+        }
+
+        private boolean contains(int tag) {
+            return find(tag) >= 0;
+        }
+
+        private long getValue(int tag, long defaultValue) throws IOException {
+            long[] values = getValues(tag);
+            return (values == null || values.length == 0) ? defaultValue : values[0];
+        }
+
+        /**
+         * Returns the integer values of a tag, or <code>null</code> if the directory has no such tag.
+         */
+        private long[] getValues(int tag) throws IOException {
+            int entryOffset = find(tag);
+            if (entryOffset < 0) {
+                return null;
+            }
+            int type = this.entries.getShort(entryOffset + 2) & 0xffff;
+            long count = this.bigTiff ? this.entries.getLong(entryOffset + 4) : (this.entries.getInt(entryOffset + 4) & 0xffffffffL);
+            int typeSize;
+            switch (type) {
+                case 1: // BYTE
+                    typeSize = 1;
+                    break;
+                case 3: // SHORT
+                    typeSize = 2;
+                    break;
+                case 4: // LONG
+                case 13: // IFD
+                    typeSize = 4;
+                    break;
+                case 16: // LONG8
+                case 18: // IFD8
+                    typeSize = 8;
+                    break;
+                default:
+                    return null;
+            }
+            if (count < 0 || count > MAXIMUM_ARRAY_LENGTH) {
+                throw new IOException("Invalid length " + count + " of the TIFF tag " + tag);
+            }
+            int valueOffset = entryOffset + (this.bigTiff ? 12 : 8);
+            int inlineSize = this.bigTiff ? 8 : 4;
+            ByteBuffer data;
+            int dataOffset;
+            if (count * typeSize <= inlineSize) {
+                data = this.entries;
+                dataOffset = valueOffset;
+            } else {
+                long offset = this.bigTiff ? this.entries.getLong(valueOffset) : (this.entries.getInt(valueOffset) & 0xffffffffL);
+                data = ByteBuffer.allocate((int) count * typeSize).order(this.entries.order());
+                readFully(this.channel, data, offset);
+                dataOffset = 0;
+            }
+            long[] values = new long[(int) count];
+            for (int i = 0; i < values.length; i++) {
+                int position = dataOffset + i * typeSize;
+                switch (typeSize) {
+                    case 1:
+                        values[i] = data.get(position) & 0xff;
+                        break;
+                    case 2:
+                        values[i] = data.getShort(position) & 0xffff;
+                        break;
+                    case 4:
+                        values[i] = data.getInt(position) & 0xffffffffL;
+                        break;
+                    default:
+                        values[i] = data.getLong(position);
+                        break;
+                }
+            }
+            return values;
+        }
+    }
+}
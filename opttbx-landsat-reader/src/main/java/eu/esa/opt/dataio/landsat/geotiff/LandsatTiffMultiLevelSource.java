@@ -0,0 +1,194 @@
+package eu.esa.opt.dataio.landsat.geotiff;
+
+import com.bc.ceres.multilevel.MultiLevelModel;
+import com.bc.ceres.multilevel.support.AbstractMultiLevelSource;
+import org.esa.snap.core.image.ResolutionLevel;
+import org.esa.snap.core.image.SingleBandedOpImage;
+
+import javax.media.jai.PlanarImage;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Multi-level source of a band read through a {@link LandsatTiffFile}: a resolution level is read from the reduced
+ * resolution image of the file matching its scale, or subsampled from the closest larger one. Without the overviews,
+ * every level is subsampled from the full resolution image, which keeps the values of the flag bands.
+ *
+ * @since 14.0.0
+ */
+class LandsatTiffMultiLevelSource extends AbstractMultiLevelSource {
+
+    private final LandsatTiffFile tiffFile;
+    private final LandsatTileCache tileCache;
+    private final Dimension tileSize;
+    private final boolean useOverviews;
+
+    LandsatTiffMultiLevelSource(LandsatTiffFile tiffFile, LandsatTileCache tileCache, MultiLevelModel multiLevelModel, Dimension tileSize,
+                                boolean useOverviews) {
+        super(multiLevelModel);
+        this.tiffFile = tiffFile;
+        this.tileCache = tileCache;
+        this.tileSize = tileSize;
+        this.useOverviews = useOverviews;
+    }
+
+    @Override
+    protected RenderedImage createImage(int level) {
+        LandsatTiffFile.Image fullImage = this.tiffFile.getImages().get(0);
+        ResolutionLevel resolutionLevel = ResolutionLevel.create(getModel(), level);
+        return new LevelImage(this.tiffFile, this.tileCache, fullImage.width, fullImage.height, this.tileSize, resolutionLevel,
+                              this.useOverviews);
+    }
+
+    /**
+     * Returns the index of the image of a file to read a resolution level from, the decimation factor of the image
+     * being the largest one dividing the scale of the level.
+     */
+    static int findImageIndex(List<LandsatTiffFile.Image> images, int levelScale) {
+        LandsatTiffFile.Image fullImage = images.get(0);
+        int imageIndex = 0;
+        for (int i = 1; i < images.size(); i++) {
+            int decimation = getDecimation(fullImage, images.get(i));
+            if (decimation > 0 && levelScale % decimation == 0) {
+                imageIndex = i;
+            }
+        }
+        return imageIndex;
+    }
+
+    /**
+     * Returns the power of two by which a reduced resolution image divides the size of the full resolution image,
+     * or 0 if the size of the image does not match one.
+     */
+    static int getDecimation(LandsatTiffFile.Image fullImage, LandsatTiffFile.Image image) {
+        long decimation = Math.round(fullImage.width / (double) image.width);
+        if (decimation < 2 || Long.bitCount(decimation) != 1 || decimation > Integer.MAX_VALUE) {
+            return 0;
+        }
+        if (!matchesSize(fullImage.width, image.width, decimation) || !matchesSize(fullImage.height, image.height, decimation)) {
+            return 0;
+        }
+        return (int) decimation;
+    }
+
+    private static boolean matchesSize(int fullSize, int size, long decimation) {
+        // the writers round the size of the reduced images either down or up
+        return size == fullSize / decimation || size == (fullSize + decimation - 1) / decimation;
+    }
+
+    private static final class LevelImage extends SingleBandedOpImage {
+
+        private final LandsatTiffFile tiffFile;
+        private final LandsatTileCache tileCache;
+        private final LandsatTiffFile.Image image;
+        // the step between the pixels of the image read for the consecutive pixels of the level
+        private final int step;
+
+        private LevelImage(LandsatTiffFile tiffFile, LandsatTileCache tileCache, int sourceWidth, int sourceHeight,
+                           Dimension tileSize, ResolutionLevel level, boolean useOverviews) {
+            super(tiffFile.getImages().get(0).dataBufferType, sourceWidth, sourceHeight, tileSize, null, level);
+            this.tiffFile = tiffFile;
+            this.tileCache = tileCache;
+            int levelScale = (int) Math.round(getScale());
+            List<LandsatTiffFile.Image> images = tiffFile.getImages();
+            int imageIndex = useOverviews ? findImageIndex(images, levelScale) : 0;
+            this.image = images.get(imageIndex);
+            this.step = (imageIndex == 0) ? levelScale : levelScale / getDecimation(images.get(0), this.image);
+        }
+
+        @Override
+        protected void computeRect(PlanarImage[] sourceImages, WritableRaster tile, Rectangle rectangle) {
+            Object data;
+            try {
+                data = readRectangle(this.tiffFile, this.tileCache, this.image, this.step, rectangle);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read the file " + this.tiffFile.getPath() + ".", e);
+            }
+            tile.setDataElements(rectangle.x, rectangle.y, rectangle.width, rectangle.height, data);
+        }
+    }
+
+    /**
+     * Reads the pixels of a rectangle of a resolution level from an image of a file.
+     *
+     * @param step      the step between the pixels of the image read for the consecutive pixels of the level
+     * @param rectangle the rectangle, in the coordinates of the level
+     * @return the pixels of the rectangle, those outside of the image being 0
+     */
+    static Object readRectangle(LandsatTiffFile tiffFile, LandsatTileCache tileCache, LandsatTiffFile.Image image, int step,
+                                Rectangle rectangle) throws IOException {
+        Object data = LandsatTiffFile.createArray(image.dataBufferType, rectangle.width * rectangle.height);
+        // the pixels of the image, at the step of the level, covered by the rectangle
+        int firstX = rectangle.x * step;
+        int firstY = rectangle.y * step;
+        int lastX = Math.min(image.width - 1, (rectangle.x + rectangle.width - 1) * step);
+        int lastY = Math.min(image.height - 1, (rectangle.y + rectangle.height - 1) * step);
+        if (firstX > lastX || firstY > lastY) {
+            return data;
+        }
+        int tileWidth = image.tileWidth;
+        int tileHeight = image.tileHeight;
+        for (int tileY = firstY / tileHeight; tileY <= lastY / tileHeight; tileY++) {
+            int startRow = Math.max(0, ceilDiv(tileY * tileHeight, step) - rectangle.y);
+            int endRow = Math.min(rectangle.height, ceilDiv(Math.min((tileY + 1) * tileHeight, image.height), step) - rectangle.y);
+            for (int tileX = firstX / tileWidth; tileX <= lastX / tileWidth; tileX++) {
+                int startColumn = Math.max(0, ceilDiv(tileX * tileWidth, step) - rectangle.x);
+                int endColumn = Math.min(rectangle.width, ceilDiv(Math.min((tileX + 1) * tileWidth, image.width), step) - rectangle.x);
+                if (startRow >= endRow || startColumn >= endColumn) {
+                    continue;
+                }
+                Object tileData = tileCache.getTile(tiffFile, image, tileY * image.getTilesAcross() + tileX);
+                int tileColumn = (rectangle.x + startColumn) * step - tileX * tileWidth;
+                for (int row = startRow; row < endRow; row++) {
+                    int tileRow = (rectangle.y + row) * step - tileY * tileHeight;
+                    copy(tileData, tileRow * tileWidth + tileColumn, step, data, row * rectangle.width + startColumn, endColumn - startColumn);
+                }
+            }
+        }
+        return data;
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    private static void copy(Object source, int sourceIndex, int sourceStep, Object target, int targetIndex, int count) {
+        if (sourceStep == 1) {
+            System.arraycopy(source, sourceIndex, target, targetIndex, count);
+        } else if (source instanceof short[]) {
+            short[] sourceValues = (short[]) source;
+            short[] targetValues = (short[]) target;
+            for (int i = 0; i < count; i++) {
+                targetValues[targetIndex + i] = sourceValues[sourceIndex + i * sourceStep];
+            }
+        } else if (source instanceof byte[]) {
+            byte[] sourceValues = (byte[]) source;
+            byte[] targetValues = (byte[]) target;
+            for (int i = 0; i < count; i++) {
+                targetValues[targetIndex + i] = sourceValues[sourceIndex + i * sourceStep];
+            }
+        } else if (source instanceof int[]) {
+            int[] sourceValues = (int[]) source;
+            int[] targetValues = (int[]) target;
+            for (int i = 0; i < count; i++) {
+                targetValues[targetIndex + i] = sourceValues[sourceIndex + i * sourceStep];
+            }
+        } else if (source instanceof float[]) {
+            float[] sourceValues = (float[]) source;
+            float[] targetValues = (float[]) target;
+            for (int i = 0; i < count; i++) {
+                targetValues[targetIndex + i] = sourceValues[sourceIndex + i * sourceStep];
+            }
+        } else {
+            double[] sourceValues = (double[]) source;
+            double[] targetValues = (double[]) target;
+            for (int i = 0; i < count; i++) {
+                targetValues[targetIndex + i] = sourceValues[sourceIndex + i * sourceStep];
+            }
+        }
+    }
+}
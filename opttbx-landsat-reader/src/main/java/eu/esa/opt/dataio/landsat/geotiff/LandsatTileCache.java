@@ -0,0 +1,154 @@
+package eu.esa.opt.dataio.landsat.geotiff;
+
+import org.esa.snap.runtime.Config;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded cache of the tiles decoded from the Landsat GeoTIFF files, shared by the opened products.
+ * <br>A decoded tile, or strip, is usually larger than the part of it copied into an image tile: the neighbouring
+ * image tiles, and the images of the other resolution levels, reuse it instead of reading and decoding it again.
+ * The tiles are evicted in least recently used order when their total size exceeds the maximum size of the cache.
+ *
+ * @since 14.0.0
+ */
+final class LandsatTileCache {
+
+    static final String MAXIMUM_SIZE_PREFERENCE = "opttbx.dataio.landsat.tileCacheSize";
+    private static final long DEFAULT_MAXIMUM_SIZE_MB = 256;
+
+    private static LandsatTileCache instance;
+
+    private final long maximumSize;
+    private final LinkedHashMap<TileKey, Object> tiles;
+    private long size;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * @param maximumSize the maximum total size, in bytes, of the decoded tiles; 0 to disable the cache
+     */
+    LandsatTileCache(long maximumSize) {
+        this.maximumSize = maximumSize;
+        this.tiles = new LinkedHashMap<>(256, 0.75f, true);
+    }
+
+    /**
+     * Returns the cache shared by the products, whose maximum size in megabytes is given by the
+     * <code>opttbx.dataio.landsat.tileCacheSize</code> preference.
+     */
+    static synchronized LandsatTileCache getInstance() {
+        if (instance == null) {
+            long maximumSizeMB = Config.instance("opttbx").load().preferences().getLong(MAXIMUM_SIZE_PREFERENCE, DEFAULT_MAXIMUM_SIZE_MB);
+            instance = new LandsatTileCache(Math.max(0, maximumSizeMB) * 1024 * 1024);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns a decoded tile of a file, read and decoded if it is not in the cache.
+     * <br>The file is read outside of the lock of the cache, a tile requested by two threads at the same time being
+     * possibly decoded twice.
+     */
+    Object getTile(LandsatTiffFile file, LandsatTiffFile.Image image, int tileIndex) throws IOException {
+        TileKey key = new TileKey(file, image, tileIndex);
+        synchronized (this) {
+            Object tile = this.tiles.get(key);
+            if (tile != null) {
+                this.hitCount++;
+                return tile;
+            }
+            this.missCount++;
+        }
+        Object tile = file.readTile(image, tileIndex);
+        long tileSize = getSize(tile);
+        if (tileSize <= this.maximumSize) {
+            synchronized (this) {
+                Object previousTile = this.tiles.put(key, tile);
+                if (previousTile != null) {
+                    this.size -= getSize(previousTile);
+                }
+                this.size += tileSize;
+                Iterator<Object> iterator = this.tiles.values().iterator();
+                while (this.size > this.maximumSize && iterator.hasNext()) {
+                    this.size -= getSize(iterator.next());
+                    iterator.remove();
+                }
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * Removes the tiles of a file, when the file is closed.
+     */
+    synchronized void removeTiles(LandsatTiffFile file) {
+        Iterator<Map.Entry<TileKey, Object>> iterator = this.tiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<TileKey, Object> entry = iterator.next();
+            if (entry.getKey().file == file) {
+                this.size -= getSize(entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized long getSize() {
+        return this.size;
+    }
+
+    synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    private static long getSize(Object tile) {
+        int length = Array.getLength(tile);
+        if (tile instanceof byte[]) {
+            return length;
+        } else if (tile instanceof short[]) {
+            return 2L * length;
+        } else if (tile instanceof double[]) {
+            return 8L * length;
+        }
+        return 4L * length;
+    }
+
+    private static final class TileKey {
+
+        private final LandsatTiffFile file;
+        private final LandsatTiffFile.Image image;
+        private final int tileIndex;
+
+        private TileKey(LandsatTiffFile file, LandsatTiffFile.Image image, int tileIndex) {
+            this.file = file;
+            this.image = image;
+            this.tileIndex = tileIndex;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof TileKey)) {
+                return false;
+            }
+            TileKey other = (TileKey) object;
+            return this.file == other.file && this.image == other.image && this.tileIndex == other.tileIndex;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(this.file), System.identityHashCode(this.image), this.tileIndex);
+        }
+    }
+}
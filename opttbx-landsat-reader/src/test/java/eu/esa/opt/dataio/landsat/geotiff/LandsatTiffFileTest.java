@@ -0,0 +1,325 @@
+package eu.esa.opt.dataio.landsat.geotiff;
+
+import com.bc.ceres.multilevel.support.DefaultMultiLevelModel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+public class LandsatTiffFileTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testReadStripsAndTiles() throws Exception {
+        BufferedImage sourceImage = createImage(301, 203);
+        String[] compressions = {null, "LZW", "Deflate", "PackBits"};
+        for (String compression : compressions) {
+            for (boolean tiled : new boolean[]{false, true}) {
+                Path file = tempFolder.getRoot().toPath().resolve(compression + "_" + tiled + ".tif");
+                writeWithImageIO(sourceImage, file, compression, tiled);
+                try (LandsatTiffFile tiffFile = LandsatTiffFile.open(file)) {
+                    assertNotNull(tiffFile);
+                    List<LandsatTiffFile.Image> images = tiffFile.getImages();
+                    assertEquals(1, images.size());
+                    LandsatTiffFile.Image image = images.get(0);
+                    assertEquals(301, image.width);
+                    assertEquals(203, image.height);
+                    assertEquals(tiled, image.tiled);
+                    assertEquals(DataBuffer.TYPE_USHORT, image.dataBufferType);
+
+                    short[] pixels = (short[]) LandsatTiffMultiLevelSource.readRectangle(tiffFile, new LandsatTileCache(1024 * 1024), image, 1,
+                                                                                          new Rectangle(0, 0, 301, 203));
+                    assertPixels(sourceImage, pixels, 1, new Rectangle(0, 0, 301, 203), compression + " " + tiled);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadRectangleWithStep() throws Exception {
+        BufferedImage sourceImage = createImage(301, 203);
+        Path file = tempFolder.getRoot().toPath().resolve("tiled.tif");
+        writeWithImageIO(sourceImage, file, "Deflate", true);
+        try (LandsatTiffFile tiffFile = LandsatTiffFile.open(file)) {
+            assertNotNull(tiffFile);
+            LandsatTiffFile.Image image = tiffFile.getImages().get(0);
+            LandsatTileCache tileCache = new LandsatTileCache(1024 * 1024);
+            Rectangle[] rectangles = {new Rectangle(0, 0, 76, 51), new Rectangle(10, 20, 60, 31), new Rectangle(70, 45, 20, 20)};
+            for (int step : new int[]{1, 2, 4}) {
+                for (Rectangle rectangle : rectangles) {
+                    short[] pixels = (short[]) LandsatTiffMultiLevelSource.readRectangle(tiffFile, tileCache, image, step, rectangle);
+                    assertPixels(sourceImage, pixels, step, rectangle, "step " + step + " " + rectangle);
+                }
+            }
+            assertTrue(tileCache.getHitCount() > 0);
+        }
+    }
+
+    @Test
+    public void testHorizontalPredictorAndOverviews() throws Exception {
+        short[] fullPixels = createPixels(100, 70);
+        short[] overviewPixels = createPixels(50, 35);
+        short[] smallOverviewPixels = createPixels(25, 18);
+        Path file = tempFolder.getRoot().toPath().resolve("cog.tif");
+        writeCog(file, new int[][]{{100, 70}, {50, 35}, {25, 18}}, new short[][]{fullPixels, overviewPixels, smallOverviewPixels});
+
+        try (LandsatTiffFile tiffFile = LandsatTiffFile.open(file)) {
+            assertNotNull(tiffFile);
+            List<LandsatTiffFile.Image> images = tiffFile.getImages();
+            assertEquals(3, images.size());
+            assertEquals(2, LandsatTiffMultiLevelSource.getDecimation(images.get(0), images.get(1)));
+            assertEquals(4, LandsatTiffMultiLevelSource.getDecimation(images.get(0), images.get(2)));
+            assertEquals(0, LandsatTiffMultiLevelSource.findImageIndex(images, 1));
+            assertEquals(1, LandsatTiffMultiLevelSource.findImageIndex(images, 2));
+            assertEquals(2, LandsatTiffMultiLevelSource.findImageIndex(images, 4));
+            assertEquals(2, LandsatTiffMultiLevelSource.findImageIndex(images, 16));
+
+            LandsatTileCache tileCache = new LandsatTileCache(0);
+            short[][] expectedPixels = {fullPixels, overviewPixels, smallOverviewPixels};
+            for (int i = 0; i < images.size(); i++) {
+                LandsatTiffFile.Image image = images.get(i);
+                short[] pixels = (short[]) LandsatTiffMultiLevelSource.readRectangle(tiffFile, tileCache, image, 1,
+                                                                                      new Rectangle(0, 0, image.width, image.height));
+                assertArrayEquals("image " + i, expectedPixels[i], pixels);
+            }
+            assertEquals(0, tileCache.getSize());
+        }
+    }
+
+    @Test
+    public void testFlagBandLevelsAreNotReadFromOverviews() throws Exception {
+        short[] fullPixels = createPixels(100, 70);
+        // overview pixels resampled from several full resolution pixels, as the bits of the flags would be mixed
+        short[] overviewPixels = new short[50 * 35];
+        Arrays.fill(overviewPixels, (short) 0x5555);
+        Path file = tempFolder.getRoot().toPath().resolve("flags.tif");
+        writeCog(file, new int[][]{{100, 70}, {50, 35}}, new short[][]{fullPixels, overviewPixels});
+
+        try (LandsatTiffFile tiffFile = LandsatTiffFile.open(file)) {
+            assertNotNull(tiffFile);
+            DefaultMultiLevelModel model = new DefaultMultiLevelModel(3, new AffineTransform(), 100, 70);
+            Dimension tileSize = new Dimension(16, 16);
+            LandsatTileCache tileCache = new LandsatTileCache(1024 * 1024);
+
+            RenderedImage overviewLevel = new LandsatTiffMultiLevelSource(tiffFile, tileCache, model, tileSize, true).getImage(1);
+            assertArrayEquals(overviewPixels, getPixels(overviewLevel));
+
+            BufferedImage sourceImage = new BufferedImage(100, 70, BufferedImage.TYPE_USHORT_GRAY);
+            sourceImage.getRaster().setDataElements(0, 0, 100, 70, fullPixels);
+            for (int level = 1; level < 3; level++) {
+                RenderedImage flagLevel = new LandsatTiffMultiLevelSource(tiffFile, tileCache, model, tileSize, false).getImage(level);
+                assertPixels(sourceImage, getPixels(flagLevel), 1 << level,
+                             new Rectangle(0, 0, flagLevel.getWidth(), flagLevel.getHeight()), "level " + level);
+            }
+        }
+    }
+
+    @Test
+    public void testUnsupportedFile() throws Exception {
+        Path file = tempFolder.getRoot().toPath().resolve("not_a_tiff.tif");
+        Files.write(file, "GROUP = L1_METADATA_FILE".getBytes());
+        assertNull(LandsatTiffFile.open(file));
+
+        // an RGB image has 3 samples per pixel
+        BufferedImage rgbImage = new BufferedImage(16, 16, BufferedImage.TYPE_3BYTE_BGR);
+        Path rgbFile = tempFolder.getRoot().toPath().resolve("rgb.tif");
+        writeWithImageIO(rgbImage, rgbFile, null, false);
+        assertNull(LandsatTiffFile.open(rgbFile));
+    }
+
+    @Test
+    public void testTileCacheEviction() throws Exception {
+        BufferedImage sourceImage = createImage(128, 128);
+        Path file = tempFolder.getRoot().toPath().resolve("tiles.tif");
+        writeWithImageIO(sourceImage, file, "LZW", true);
+        try (LandsatTiffFile tiffFile = LandsatTiffFile.open(file)) {
+            assertNotNull(tiffFile);
+            LandsatTiffFile.Image image = tiffFile.getImages().get(0);
+            // 16 tiles of 32 x 32 pixels of 2 bytes, 2 tiles fit in the cache
+            long tileSize = 2L * image.tileWidth * image.tileHeight;
+            LandsatTileCache tileCache = new LandsatTileCache(2 * tileSize);
+            for (int i = 0; i < image.getTileCount(); i++) {
+                tileCache.getTile(tiffFile, image, i);
+            }
+            assertEquals(2 * tileSize, tileCache.getSize());
+            assertEquals(image.getTileCount(), tileCache.getMissCount());
+            tileCache.getTile(tiffFile, image, image.getTileCount() - 1);
+            assertEquals(1, tileCache.getHitCount());
+            tileCache.removeTiles(tiffFile);
+            assertEquals(0, tileCache.getSize());
+        }
+    }
+
+    private static short[] getPixels(RenderedImage image) {
+        return (short[]) image.getData().getDataElements(0, 0, image.getWidth(), image.getHeight(), null);
+    }
+
+    private static short[] createPixels(int width, int height) {
+        short[] pixels = new short[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            // smooth values, as the radiances of a band, with some noise and values above 32767
+            pixels[i] = (short) (30000 + (i % width) * 37 + (i / width) * 11 + (i * 7919) % 13);
+        }
+        return pixels;
+    }
+
+    private static BufferedImage createImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_USHORT_GRAY);
+        WritableRaster raster = image.getRaster();
+        raster.setDataElements(0, 0, width, height, createPixels(width, height));
+        return image;
+    }
+
+    private static void assertPixels(BufferedImage sourceImage, short[] pixels, int step, Rectangle rectangle, String message) {
+        for (int y = 0; y < rectangle.height; y++) {
+            for (int x = 0; x < rectangle.width; x++) {
+                int sourceX = (rectangle.x + x) * step;
+                int sourceY = (rectangle.y + y) * step;
+                int expected = 0;
+                if (sourceX < sourceImage.getWidth() && sourceY < sourceImage.getHeight()) {
+                    expected = sourceImage.getRaster().getSample(sourceX, sourceY, 0);
+                }
+                assertEquals(message + " at " + x + "," + y, expected, pixels[y * rectangle.width + x] & 0xffff);
+            }
+        }
+    }
+
+    private static void writeWithImageIO(BufferedImage image, Path file, String compression, boolean tiled) throws Exception {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (compression != null) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionType(compression);
+        }
+        if (tiled) {
+            param.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setTiling(32, 32, 0, 0);
+        }
+        Files.deleteIfExists(file);
+        try (ImageOutputStream outputStream = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(outputStream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Writes a little endian tiled TIFF file, with Deflate compression and the horizontal predictor, whose images
+     * after the first one are reduced resolution images.
+     */
+    private static void writeCog(Path file, int[][] sizes, short[][] pixels) throws Exception {
+        final int tileSize = 16;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(new byte[]{'I', 'I', 42, 0, 0, 0, 0, 0});
+        long[] ifdOffsets = new long[sizes.length];
+        byte[][] ifds = new byte[sizes.length][];
+        for (int i = 0; i < sizes.length; i++) {
+            int width = sizes[i][0];
+            int height = sizes[i][1];
+            int tilesAcross = (width + tileSize - 1) / tileSize;
+            int tilesDown = (height + tileSize - 1) / tileSize;
+            long[] offsets = new long[tilesAcross * tilesDown];
+            long[] byteCounts = new long[offsets.length];
+            for (int tileY = 0; tileY < tilesDown; tileY++) {
+                for (int tileX = 0; tileX < tilesAcross; tileX++) {
+                    ByteBuffer tile = ByteBuffer.allocate(2 * tileSize * tileSize).order(ByteOrder.LITTLE_ENDIAN);
+                    for (int y = 0; y < tileSize; y++) {
+                        short previous = 0;
+                        for (int x = 0; x < tileSize; x++) {
+                            int imageX = tileX * tileSize + x;
+                            int imageY = tileY * tileSize + y;
+                            short value = (imageX < width && imageY < height) ? pixels[i][imageY * width + imageX] : 0;
+                            tile.putShort((short) (value - previous));
+                            previous = value;
+                        }
+                    }
+                    Deflater deflater = new Deflater();
+                    deflater.setInput(tile.array());
+                    deflater.finish();
+                    byte[] buffer = new byte[tile.capacity() * 2 + 64];
+                    int length = deflater.deflate(buffer);
+                    deflater.end();
+                    int tileIndex = tileY * tilesAcross + tileX;
+                    offsets[tileIndex] = output.size();
+                    byteCounts[tileIndex] = length;
+                    output.write(buffer, 0, length);
+                }
+            }
+            ifdOffsets[i] = output.size() + ((output.size() % 2 == 1) ? 1 : 0);
+            if (output.size() % 2 == 1) {
+                output.write(0);
+            }
+            // the arrays of offsets and byte counts follow the 12 entries of the directory
+            int entryCount = 12;
+            long arraysOffset = ifdOffsets[i] + 2 + 12L * entryCount + 4;
+            ByteBuffer ifd = ByteBuffer.allocate(2 + 12 * entryCount + 4 + 8 * offsets.length).order(ByteOrder.LITTLE_ENDIAN);
+            ifd.putShort((short) entryCount);
+            putEntry(ifd, 254, 4, 1, (i == 0) ? 0 : 1);
+            putEntry(ifd, 256, 4, 1, width);
+            putEntry(ifd, 257, 4, 1, height);
+            putEntry(ifd, 258, 3, 1, 16);
+            putEntry(ifd, 259, 3, 1, 8);
+            putEntry(ifd, 262, 3, 1, 1);
+            putEntry(ifd, 277, 3, 1, 1);
+            putEntry(ifd, 317, 3, 1, 2);
+            putEntry(ifd, 322, 3, 1, tileSize);
+            putEntry(ifd, 323, 3, 1, tileSize);
+            putEntry(ifd, 324, 4, offsets.length, (offsets.length == 1) ? offsets[0] : arraysOffset);
+            putEntry(ifd, 325, 4, offsets.length, (offsets.length == 1) ? byteCounts[0] : arraysOffset + 4L * offsets.length);
+            ifd.putInt(0);
+            for (long offset : offsets) {
+                ifd.putInt((int) offset);
+            }
+            for (long byteCount : byteCounts) {
+                ifd.putInt((int) byteCount);
+            }
+            ifds[i] = ifd.array();
+            output.write(ifds[i]);
+        }
+        byte[] bytes = output.toByteArray();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(4, (int) ifdOffsets[0]);
+        for (int i = 0; i + 1 < ifdOffsets.length; i++) {
+            // the offset of the next directory follows the entries
+            buffer.putInt((int) ifdOffsets[i] + 2 + 12 * 12, (int) ifdOffsets[i + 1]);
+        }
+        Files.write(file, bytes);
+    }
+
+    private static void putEntry(ByteBuffer ifd, int tag, int type, int count, long value) {
+        ifd.putShort((short) tag);
+        ifd.putShort((short) type);
+        ifd.putInt(count);
+        if (type == 3 && count == 1) {
+            ifd.putShort((short) value);
+            ifd.putShort((short) 0);
+        } else {
+            ifd.putInt((int) value);
+        }
+    }
+}
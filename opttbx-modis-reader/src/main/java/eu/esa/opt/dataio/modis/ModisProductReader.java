@@ -16,6 +16,7 @@
 package eu.esa.opt.dataio.modis;
 
 import com.bc.ceres.core.ProgressMonitor;
+import eu.esa.opt.dataio.NetcdfFilePool;
 import eu.esa.opt.dataio.modis.attribute.DaacAttributes;
 import eu.esa.opt.dataio.modis.attribute.ImappAttributes;
 import eu.esa.opt.dataio.modis.bandreader.ModisBandReader;
@@ -69,6 +70,7 @@ public class ModisProductReader extends AbstractProductReader {
         }
 
         if (netcdfFile != null) {
+            NetcdfFilePool.close(netcdfFile);
             netcdfFile.close();
             netcdfFile = null;
         }
@@ -96,6 +98,9 @@ public class ModisProductReader extends AbstractProductReader {
      * parameters are already taken into acount in the <code>sourceOffsetX</code> and
      * <code>sourceOffsetY</code> parameters, an implementor of this method is free to
      * ignore them.
+     * <p>The bands are read concurrently through the handles of the {@link NetcdfFilePool} of the file. The number of
+     * handles is given by the preference <code>opttbx.reader.netcdfHandles</code>, which defaults to 0: unless it is
+     * raised, the reads of all the bands remain serialized on the file opened by this reader.
      *
      * @param sourceOffsetX the absolute X-offset in source raster co-ordinates
      * @param sourceOffsetY the absolute Y-offset in source raster co-ordinates
@@ -115,10 +120,10 @@ public class ModisProductReader extends AbstractProductReader {
      * @see #getSubsetDef
      */
     @Override
-    protected synchronized void readBandRasterDataImpl(int sourceOffsetX, int sourceOffsetY, int sourceWidth, int sourceHeight,
-                                                       int sourceStepX, int sourceStepY, Band destBand, int destOffsetX,
-                                                       int destOffsetY, int destWidth, int destHeight, ProductData destBuffer,
-                                                       ProgressMonitor pm) throws IOException {
+    protected void readBandRasterDataImpl(int sourceOffsetX, int sourceOffsetY, int sourceWidth, int sourceHeight,
+                                          int sourceStepX, int sourceStepY, Band destBand, int destOffsetX,
+                                          int destOffsetY, int destWidth, int destHeight, ProductData destBuffer,
+                                          ProgressMonitor pm) throws IOException {
 
         final ModisBandReader reader = fileReader.getBandReader(destBand);
 
@@ -149,6 +154,7 @@ public class ModisProductReader extends AbstractProductReader {
         if (netcdfFile == null) {
             throw new IOException("Failed top open file: " + inputFilePath);
         }
+        NetcdfFilePool.open(netcdfFile);
 
         readGlobalMetaData(inFile);
         checkProductType();
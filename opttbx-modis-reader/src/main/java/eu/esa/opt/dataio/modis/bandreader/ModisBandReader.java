@@ -18,9 +18,13 @@
 package eu.esa.opt.dataio.modis.bandreader;
 
 import com.bc.ceres.core.ProgressMonitor;
+import eu.esa.opt.dataio.NetcdfFilePool;
 import eu.esa.opt.dataio.modis.ModisConstants;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.util.math.Range;
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Section;
 import ucar.nc2.Variable;
 
 import java.io.IOException;
@@ -33,13 +37,14 @@ abstract public class ModisBandReader {
     public static final int SCALE_POW_10 = 3;
     public static final int SCALE_SLOPE_INTERCEPT = 4;
 
+    // the maximum number of values read at once, a block holding whole lines
+    private static final int MAX_BLOCK_SIZE = 1 << 20;
+
     protected int layer;
     protected float scale;
     protected float offset;
     private String name;
-    protected int[] start;
-    protected int[] stride;
-    protected int[] count;
+    protected int rank;
     protected int xCoord;
     protected int yCoord;
     protected Range validRange;
@@ -58,23 +63,11 @@ abstract public class ModisBandReader {
         this.layer = layer;
 
         if (is3d) {
-            count = new int[3];
-            stride = new int[3];
-            start = new int[3];
-            stride[0] = stride[1] = stride[2] = 1;
-            start[0] = layer;
-            count[0] = 1;
-
+            rank = 3;
             xCoord = 2;
             yCoord = 1;
         } else {
-            count = new int[2];
-            stride = new int[2];
-            start = new int[2];
-            start[0] = layer;
-            count[0] = 1;
-
-            stride[0] = stride[1] = 1;
+            rank = 2;
             xCoord = 1;
             yCoord = 0;
         }
@@ -141,16 +134,15 @@ abstract public class ModisBandReader {
         this.validRange = validRange;
     }
 
-    abstract protected void prepareForReading(final int sourceOffsetX, final int sourceOffsetY,
-                                              final int sourceWidth, final int sourceHeight,
-                                              final int sourceStepX, final int sourceStepY,
-                                              final ProductData destBuffer);
-
-    abstract protected void readLine() throws IOException;
-
-    abstract protected void validate(final int x);
-
-    abstract protected void assign(final int x);
+    /**
+     * Copies the raw values of a block read from the variable into the destination buffer, replacing the values
+     * outside of the valid range by the fill value and applying the scaling of the reader in the same pass.
+     *
+     * @param source     the raw values of the block, in row-major order
+     * @param destBuffer the destination buffer
+     * @param destOffset the index in the destination buffer of the first value of the block
+     */
+    abstract protected void copy(final Array source, final ProductData destBuffer, final int destOffset);
 
     /**
      * Sets the fill value, i.e. the value set where the measurement data is out-of-scope
@@ -174,6 +166,8 @@ abstract public class ModisBandReader {
      * the <code>destOffsetX</code> and <code>destOffsetY</code> parameters are already taken into acount in the
      * <code>sourceOffsetX</code> and <code>sourceOffsetY</code> parameters, an implementor of this method is free to
      * ignore them.
+     * <p>The region is read in blocks of lines, each one with a single read of the variable. The reader keeps no state
+     * between the calls, so that several regions can be read at the same time through the handles of the pool.
      *
      * @param sourceOffsetX the absolute X-offset in source raster co-ordinates
      * @param sourceOffsetY the absolute Y-offset in source raster co-ordinates
@@ -187,30 +181,39 @@ abstract public class ModisBandReader {
      */
     public void readBandData(int sourceOffsetX, int sourceOffsetY, int sourceWidth, int sourceHeight,
                              int sourceStepX, int sourceStepY, ProductData destBuffer, ProgressMonitor pm) throws IOException {
-        start[yCoord] = sourceOffsetY;
+        final int destWidth = (sourceWidth - 1) / sourceStepX + 1;
+        final int destHeight = (sourceHeight - 1) / sourceStepY + 1;
+        final int blockHeight = Math.max(1, Math.min(destHeight, MAX_BLOCK_SIZE / destWidth));
+
+        final int[] start = new int[rank];
+        final int[] count = new int[rank];
+        final int[] stride = new int[rank];
+        start[0] = layer;
+        count[0] = 1;
+        stride[0] = 1;
         start[xCoord] = sourceOffsetX;
-        count[yCoord] = 1;
-        count[xCoord] = sourceWidth;
-        stride[yCoord] = sourceStepY;
+        count[xCoord] = destWidth;
         stride[xCoord] = sourceStepX;
+        stride[yCoord] = sourceStepY;
 
-        prepareForReading(sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight,
-                          sourceStepX, sourceStepY, destBuffer);
-
-        pm.beginTask("Reading band '" + getName() + "'...", sourceHeight);
-        // loop over lines
+        pm.beginTask("Reading band '" + getName() + "'...", destHeight);
+        // loop over blocks of lines
         try {
-            for (int y = 0; y < sourceHeight; y += sourceStepY) {
+            for (int y = 0; y < destHeight; y += blockHeight) {
                 if (pm.isCanceled()) {
                     break;
                 }
-                readLine();
-                for (int x = 0; x < sourceWidth; x++) {
-                    validate(x);
-                    assign(x);
+                final int lineCount = Math.min(blockHeight, destHeight - y);
+                start[yCoord] = sourceOffsetY + y * sourceStepY;
+                count[yCoord] = lineCount;
+                final Section section;
+                try {
+                    section = new Section(start, count, stride);
+                } catch (InvalidRangeException e) {
+                    throw new IOException(e.getMessage());
                 }
-                start[yCoord] += sourceStepY;
-                pm.worked(1);
+                copy(NetcdfFilePool.read(variable, section), destBuffer, y * destWidth);
+                pm.worked(lineCount);
             }
         } finally {
             pm.done();
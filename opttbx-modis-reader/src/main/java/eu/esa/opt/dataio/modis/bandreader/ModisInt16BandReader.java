@@ -18,21 +18,11 @@ package eu.esa.opt.dataio.modis.bandreader;
 
 import org.esa.snap.core.datamodel.ProductData;
 import ucar.ma2.Array;
-import ucar.ma2.InvalidRangeException;
-import ucar.ma2.Section;
+import ucar.ma2.IndexIterator;
 import ucar.nc2.Variable;
 
-import java.io.IOException;
-
 public class ModisInt16BandReader extends ModisBandReader {
 
-    private short[] line;
-    private short min;
-    private short max;
-    private short fill;
-    private short[] targetData;
-    private int targetIdx;
-
     public ModisInt16BandReader(Variable variable, final int layer, final boolean is3d) {
         super(variable, layer, is3d);
     }
@@ -48,10 +38,10 @@ public class ModisInt16BandReader extends ModisBandReader {
     }
 
     @Override
-    protected void prepareForReading(final int sourceOffsetX, final int sourceOffsetY, final int sourceWidth,
-                                     final int sourceHeight, final int sourceStepX, final int sourceStepY,
-                                     final ProductData destBuffer) {
-        fill = (short) Math.round(fillValue);
+    protected void copy(final Array source, final ProductData destBuffer, final int destOffset) {
+        final short fill = (short) Math.round(fillValue);
+        final short min;
+        final short max;
         if (validRange == null) {
             min = Short.MIN_VALUE;
             max = Short.MAX_VALUE;
@@ -59,40 +49,12 @@ public class ModisInt16BandReader extends ModisBandReader {
             min = (short) Math.round(validRange.getMin());
             max = (short) Math.round(validRange.getMax());
         }
-        targetData = (short[]) destBuffer.getElems();
-        targetIdx = 0;
-        ensureLineWidth(sourceWidth);
-    }
-
-    @Override
-    protected void readLine() throws IOException {
-        try {
-            final Section section = new Section(start, count, stride);
-            final Array array = variable.read(section);
-            for (int i = 0; i < line.length; i++) {
-                line[i] = array.getShort(i);
-            }
-        } catch (InvalidRangeException e) {
-            throw new IOException(e.getMessage());
-        }
-    }
-
-    @Override
-    protected void validate(final int x) {
-        final short value = line[x];
-        if (value < min || value > max) {
-            line[x] = fill;
-        }
-    }
-
-    @Override
-    protected void assign(final int x) {
-        targetData[targetIdx++] = line[x];
-    }
-
-    private void ensureLineWidth(final int sourceWidth) {
-        if ((line == null) || (line.length != sourceWidth)) {
-            line = new short[sourceWidth];
+        final short[] targetData = (short[]) destBuffer.getElems();
+        final IndexIterator iterator = source.getIndexIterator();
+        int targetIdx = destOffset;
+        while (iterator.hasNext()) {
+            final short value = iterator.getShortNext();
+            targetData[targetIdx++] = (value < min || value > max) ? fill : value;
         }
     }
 }
@@ -17,22 +17,12 @@ package eu.esa.opt.dataio.modis.bandreader;
 
 import org.esa.snap.core.datamodel.ProductData;
 import ucar.ma2.Array;
-import ucar.ma2.InvalidRangeException;
-import ucar.ma2.Section;
+import ucar.ma2.IndexIterator;
 import ucar.nc2.Variable;
 
-import java.io.IOException;
-
 
 public class ModisInt8BandReader extends ModisBandReader {
 
-    private byte[] line;
-    private byte min;
-    private byte max;
-    private byte fill;
-    private byte[] targetData;
-    private int targetIdx;
-
     public ModisInt8BandReader(Variable variable, final int layer, final boolean is3d) {
         super(variable, layer, is3d);
     }
@@ -48,10 +38,10 @@ public class ModisInt8BandReader extends ModisBandReader {
     }
 
     @Override
-    protected void prepareForReading(final int sourceOffsetX, final int sourceOffsetY, final int sourceWidth,
-                                     final int sourceHeight, final int sourceStepX, final int sourceStepY,
-                                     final ProductData destBuffer) {
-        fill = (byte) Math.floor(fillValue + 0.5);
+    protected void copy(final Array source, final ProductData destBuffer, final int destOffset) {
+        final byte fill = (byte) Math.floor(fillValue + 0.5);
+        final byte min;
+        final byte max;
         if (validRange == null) {
             min = Byte.MIN_VALUE;
             max = Byte.MAX_VALUE;
@@ -59,40 +49,12 @@ public class ModisInt8BandReader extends ModisBandReader {
             min = (byte) Math.floor(validRange.getMin() + 0.5);
             max = (byte) Math.floor(validRange.getMax() + 0.5);
         }
-        targetData = (byte[]) destBuffer.getElems();
-        targetIdx = 0;
-        ensureLineWidth(sourceWidth);
-    }
-
-    @Override
-    protected void readLine() throws IOException {
-        try {
-            final Section section = new Section(start, count, stride);
-            final Array array = variable.read(section);
-            for (int i = 0; i < line.length; i++) {
-                line[i] = array.getByte(i);
-            }
-        } catch (InvalidRangeException e) {
-            throw new IOException(e.getMessage());
-        }
-    }
-
-    @Override
-    protected void validate(final int x) {
-        final byte value = line[x];
-        if (value < min || value > max) {
-            line[x] = fill;
-        }
-    }
-
-    @Override
-    protected void assign(final int x) {
-        targetData[targetIdx++] = line[x];
-    }
-
-    private void ensureLineWidth(final int sourceWidth) {
-        if ((line == null) || (line.length != sourceWidth)) {
-            line = new byte[sourceWidth];
+        final byte[] targetData = (byte[]) destBuffer.getElems();
+        final IndexIterator iterator = source.getIndexIterator();
+        int targetIdx = destOffset;
+        while (iterator.hasNext()) {
+            final byte value = iterator.getByteNext();
+            targetData[targetIdx++] = (value < min || value > max) ? fill : value;
         }
     }
 }
@@ -17,21 +17,11 @@ package eu.esa.opt.dataio.modis.bandreader;
 
 import org.esa.snap.core.datamodel.ProductData;
 import ucar.ma2.Array;
-import ucar.ma2.InvalidRangeException;
-import ucar.ma2.Section;
+import ucar.ma2.IndexIterator;
 import ucar.nc2.Variable;
 
-import java.io.IOException;
-
 public class ModisUint16PowBandReader extends ModisBandReader {
 
-    private short[] line;
-    private int min;
-    private int max;
-    private short fill;
-    private float[] targetData;
-    private int targetIdx;
-
     public ModisUint16PowBandReader(Variable variable, final int layer, final boolean is3d) {
         super(variable, layer, is3d);
     }
@@ -47,10 +37,10 @@ public class ModisUint16PowBandReader extends ModisBandReader {
     }
 
     @Override
-    protected void prepareForReading(final int sourceOffsetX, final int sourceOffsetY, final int sourceWidth,
-                                     final int sourceHeight, final int sourceStepX, final int sourceStepY,
-                                     final ProductData destBuffer) {
-        fill = (short) Math.floor(fillValue + 0.5);
+    protected void copy(final Array source, final ProductData destBuffer, final int destOffset) {
+        final short fill = (short) Math.floor(fillValue + 0.5);
+        final int min;
+        final int max;
         if (validRange == null) {
             min = 0;
             max = Short.MAX_VALUE * 2 + 1;
@@ -58,40 +48,14 @@ public class ModisUint16PowBandReader extends ModisBandReader {
             min = (int) Math.floor(validRange.getMin() + 0.5);
             max = (int) Math.floor(validRange.getMax() + 0.5);
         }
-        targetData = (float[]) destBuffer.getElems();
-        targetIdx = 0;
-        ensureLineWidth(sourceWidth);
-    }
-
-    @Override
-    protected void readLine() throws IOException {
-        try {
-            final Section section = new Section(start, count, stride);
-            final Array array = variable.read(section);
-            for (int i = 0; i < line.length; i++) {
-                line[i] = array.getShort(i);
-            }
-        } catch (InvalidRangeException e) {
-            throw new IOException(e.getMessage());
-        }
-    }
-
-    @Override
-    protected void validate(final int x) {
-        final int value = line[x] & 0xffff;
-        if (value < min || value > max) {
-            line[x] = fill;
-        }
-    }
-
-    @Override
-    protected void assign(final int x) {
-        targetData[targetIdx++] = (float) Math.pow(10.f, (scale * line[x] + offset));
-    }
-
-    private void ensureLineWidth(final int sourceWidth) {
-        if ((line == null) || (line.length != sourceWidth)) {
-            line = new short[sourceWidth];
+        final float[] targetData = (float[]) destBuffer.getElems();
+        final IndexIterator iterator = source.getIndexIterator();
+        int targetIdx = destOffset;
+        while (iterator.hasNext()) {
+            final short value = iterator.getShortNext();
+            final int unsigned = value & 0xffff;
+            final short valid = (unsigned < min || unsigned > max) ? fill : value;
+            targetData[targetIdx++] = (float) Math.pow(10.f, (scale * valid + offset));
         }
     }
 }
@@ -1,8 +1,13 @@
 package eu.esa.opt.dataio.modis.bandreader;
 
 import eu.esa.opt.dataio.modis.ModisConstants;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.util.math.Range;
 import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class ModisBandReaderTest {
@@ -17,4 +22,48 @@ public class ModisBandReaderTest {
         assertEquals(ModisBandReader.SCALE_POW_10, ModisBandReader.decodeScalingMethod(ModisConstants.POW_10_SCALE_NAME));
         assertEquals(ModisBandReader.SCALE_SLOPE_INTERCEPT, ModisBandReader.decodeScalingMethod(ModisConstants.SLOPE_INTERCEPT_SCALE_NAME));
     }
+
+    @Test
+    public void testCopyReplacesInvalidValuesAtOffset() {
+        final ModisUint16BandReader reader = new ModisUint16BandReader(null, 0, false);
+        reader.setValidRange(new Range(0, 40000));
+        reader.setFillValue(65535);
+
+        final Array source = Array.factory(DataType.SHORT, new int[]{2, 2}, new short[]{1, (short) 39000, (short) 60000, 5});
+        final ProductData destBuffer = ProductData.createInstance(new short[6]);
+        reader.copy(source, destBuffer, 2);
+
+        assertArrayEquals(new short[]{0, 0, 1, (short) 39000, (short) 65535, 5}, (short[]) destBuffer.getElems());
+    }
+
+    @Test
+    public void testCopyAppliesScaling() {
+        final ModisUint16PowBandReader powReader = new ModisUint16PowBandReader(null, 0, false);
+        powReader.setScaleAndOffset(1.f, -1.f);
+        final ProductData powBuffer = ProductData.createInstance(new float[3]);
+        powReader.copy(Array.factory(DataType.SHORT, new int[]{1, 3}, new short[]{0, 1, 3}), powBuffer, 0);
+        assertArrayEquals(new float[]{0.1f, 1.f, 100.f}, (float[]) powBuffer.getElems(), 1.0e-5f);
+
+        final ModisUint8ExpBandReader expReader = new ModisUint8ExpBandReader(null, 0, false);
+        expReader.setScaleAndOffset(2.f, 3.f);
+        expReader.setValidRange(new Range(0, 10));
+        expReader.setFillValue(0);
+        final ProductData expBuffer = ProductData.createInstance(new float[3]);
+        expReader.copy(Array.factory(DataType.BYTE, new int[]{1, 3}, new byte[]{0, 4, 20}), expBuffer, 0);
+        assertArrayEquals(new float[]{3.f, 3.f * (float) Math.exp(2.0), 3.f}, (float[]) expBuffer.getElems(), 1.0e-5f);
+    }
+
+    @Test
+    public void testCopyOfStridedSection() throws Exception {
+        final ModisUint32BandReader reader = new ModisUint32BandReader(null, 0, true);
+        reader.setFillValue(0);
+
+        final int[] values = {1, 2, 3, 4, 5, 6, (int) 3000000000L, 8};
+        final Array layers = Array.factory(DataType.INT, new int[]{2, 2, 2}, values);
+        final Array section = layers.section(new int[]{1, 0, 0}, new int[]{1, 2, 1}, new int[]{1, 1, 2});
+        final ProductData destBuffer = ProductData.createInstance(new int[2]);
+        reader.copy(section, destBuffer, 0);
+
+        assertArrayEquals(new int[]{5, (int) 3000000000L}, (int[]) destBuffer.getElems());
+    }
 }
@@ -4,6 +4,7 @@ import com.bc.ceres.binding.Converter;
 import com.bc.ceres.binding.ConverterRegistry;
 import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.multilevel.support.DefaultMultiLevelImage;
+import eu.esa.opt.mosaic.internal.DirectMosaicMultiLevelSource;
 import eu.esa.opt.mosaic.internal.MosaicOpConditionConverter;
 import eu.esa.opt.mosaic.internal.MosaicOpConditionDomConverter;
 import eu.esa.opt.mosaic.internal.MosaicOpVariableConverter;
@@ -132,9 +133,14 @@ public final class S2tbxMosaicOp extends Operator {
             defaultValue = "MOSAIC_TYPE_OVERLAY")
     String overlappingMethod;
 
+    @Parameter(description = "Whether the source products are warped and composited directly into the mosaic tiles, " +
+            "without intermediate resampled and reprojected products. Only used for map-projected source products " +
+            "which are not orthorectified.", defaultValue = "false")
+    boolean directMosaicking;
 
     private ReferencedEnvelope targetEnvelope;
     private CoordinateReferenceSystem targetCRS;
+    private boolean direct;
 
     @Override
     public void initialize() throws OperatorException {
@@ -157,17 +163,20 @@ public final class S2tbxMosaicOp extends Operator {
             }
         }
 
-        // STEP 2: reproject the source products
+        // STEP 2: reproject the source products, unless they are warped directly into the mosaic tiles
         loadBoundsWhenNeeded();
-        if(!nativeResolution){
-            this.targetEnvelope = computeReprojectedBounds();
-            final int width = MathUtils.floorInt(this.targetEnvelope.getSpan(0) / this.pixelSizeX);
-            final int height = MathUtils.floorInt(this.targetEnvelope.getSpan(1) / this.pixelSizeY);
-            this.sourceProducts = resample(this.sourceProducts, width, height);
-        }
-        for (int i = 0; i < this.sourceProducts.length; i++) {
-            this.sourceProducts[i] = reproject(this.sourceProducts[i],
-                    i > 0 ? this.sourceProducts[0] : null);
+        this.direct = this.directMosaicking && canMosaicDirectly();
+        if (!this.direct) {
+            if (!nativeResolution) {
+                this.targetEnvelope = computeReprojectedBounds();
+                final int width = MathUtils.floorInt(this.targetEnvelope.getSpan(0) / this.pixelSizeX);
+                final int height = MathUtils.floorInt(this.targetEnvelope.getSpan(1) / this.pixelSizeY);
+                this.sourceProducts = resample(this.sourceProducts, width, height);
+            }
+            for (int i = 0; i < this.sourceProducts.length; i++) {
+                this.sourceProducts[i] = reproject(this.sourceProducts[i],
+                        i > 0 ? this.sourceProducts[0] : null);
+            }
         }
 
         // STEP 3: subset, if needed, the reprojected products
@@ -300,6 +309,23 @@ public final class S2tbxMosaicOp extends Operator {
         return product;
     }
 
+    private boolean canMosaicDirectly() {
+        if (this.orthorectify) {
+            getLogger().info("The source products are orthorectified, the direct mosaicking is not used.");
+            return false;
+        }
+        for (Product product : this.sourceProducts) {
+            for (Band band : product.getBands()) {
+                if (!DirectMosaicMultiLevelSource.canMosaic(band)) {
+                    getLogger().info("The band '" + band.getName() + "' of the product '" + product.getName() +
+                            "' is not map-projected, the direct mosaicking is not used.");
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * STEP 3 methods
      */
@@ -421,7 +447,9 @@ public final class S2tbxMosaicOp extends Operator {
                 this.pixelSizeX = pixelSize[0];
                 this.pixelSizeY = pixelSize[1];
             }
-            final double[] maximumPixelSizeSourceProduct = computeSourceProductMaximumResolution(this.sourceProducts[0]);
+            final double[] maximumPixelSizeSourceProduct = this.direct ?
+                    computeSourceProductMaximumResolutionInTargetCRS(this.sourceProducts[0]) :
+                    computeSourceProductMaximumResolution(this.sourceProducts[0]);
             if(maximumPixelSizeSourceProduct[0] != this.pixelSizeX ||
                     maximumPixelSizeSourceProduct[1] != this.pixelSizeY) {
                 this.pixelSizeX = maximumPixelSizeSourceProduct[0];
@@ -462,6 +490,28 @@ public final class S2tbxMosaicOp extends Operator {
         return productResolution;
     }
 
+    private double[] computeSourceProductMaximumResolutionInTargetCRS(Product sourceProduct) {
+        double[] productResolution = null;
+        for (Band band : sourceProduct.getBands()) {
+            final double[] bandResolution = computeTargetPixelSize(band);
+            if (productResolution == null || bandResolution[0] < productResolution[0] || bandResolution[1] < productResolution[1]) {
+                productResolution = bandResolution;
+            }
+        }
+        return productResolution;
+    }
+
+    /**
+     * Returns the size, in target CRS units, of the pixels of the mosaic band made from the given source band
+     * when the sources are not reprojected.
+     */
+    private double[] computeTargetPixelSize(Band sourceBand) {
+        if (!this.nativeResolution) {
+            return new double[]{this.pixelSizeX, this.pixelSizeY};
+        }
+        return getPixelSize(sourceBand.getGeoCoding(), this.targetCRS);
+    }
+
     private void addTargetBands(Product product) {
         int sceneWidth = product.getSceneRasterWidth();
         int sceneHeight = product.getSceneRasterHeight();
@@ -473,10 +523,18 @@ public final class S2tbxMosaicOp extends Operator {
             } else {
                 targetDataType = firstSourceBand.getDataType();
             }
-            final AffineTransform affineTransformSourceBand =
-                    firstSourceBand.getSourceImage().getModel().getImageToModelTransform(0);
-            double stepX = Math.abs(affineTransformSourceBand.getScaleX());
-            double stepY = Math.abs(affineTransformSourceBand.getScaleY());
+            double stepX;
+            double stepY;
+            if (this.direct) {
+                final double[] pixelSize = computeTargetPixelSize(firstSourceBand);
+                stepX = pixelSize[0];
+                stepY = pixelSize[1];
+            } else {
+                final AffineTransform affineTransformSourceBand =
+                        firstSourceBand.getSourceImage().getModel().getImageToModelTransform(0);
+                stepX = Math.abs(affineTransformSourceBand.getScaleX());
+                stepY = Math.abs(affineTransformSourceBand.getScaleY());
+            }
             int bandWidth = MathUtils.floorInt(this.targetEnvelope.getSpan(0) / Math.abs(stepX));
             int bandHeight = MathUtils.floorInt(this.targetEnvelope.getSpan(1) / Math.abs(stepY));
             Band targetBand = new Band(outputVariable.getName(), targetDataType, bandWidth, bandHeight);
@@ -534,6 +592,16 @@ public final class S2tbxMosaicOp extends Operator {
                     levels = lowestLevel;
                 }
             }
+            if (this.direct) {
+                try {
+                    band.setSourceImage(new DefaultMultiLevelImage(
+                            new DirectMosaicMultiLevelSource(band, srcBands, levels, tileSize,
+                                    this.resamplingName, this.overlappingMethod)));
+                } catch (FactoryException e) {
+                    throw new OperatorException(e);
+                }
+                continue;
+            }
             MathTransform mapTransform = band.getGeoCoding().getImageToMapTransform();
             DirectPosition bandOrigin = mapTransform.transform(new DirectPosition2D(0, 0), null);
             S2MosaicMultiLevelSource bandSource =
@@ -789,8 +857,13 @@ public final class S2tbxMosaicOp extends Operator {
                 if (name.isEmpty()) {
                     name = field.getName();
                 }
+                final Object value = params.get(name);
+                if (value == null && field.getType().isPrimitive()) {
+                    // parameter added after the product has been created
+                    continue;
+                }
                 try {
-                    field.set(object, params.get(name));
+                    field.set(object, value);
                 } catch (Exception e) {
                     final String msg = String.format("Cannot initialise operator parameter '%s'", name);
                     throw new OperatorException(msg, e);
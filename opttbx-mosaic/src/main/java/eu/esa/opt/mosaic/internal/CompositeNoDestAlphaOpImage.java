@@ -120,30 +120,407 @@ final class CompositeNoDestAlphaOpImage extends PointOpImage {
                                    tags[4], getColorModel());
         }
 
-        switch (d.getDataType()) {
+        if (premultiplied) {
+            switch (d.getDataType()) {
+                case DataBuffer.TYPE_BYTE:
+                    bytePremultipliedLoop(s1, s2, a1, d);
+                    break;
+                case DataBuffer.TYPE_USHORT:
+                    ushortPremultipliedLoop(s1, s2, a1, d);
+                    break;
+                case DataBuffer.TYPE_SHORT:
+                    shortPremultipliedLoop(s1, s2, a1, d);
+                    break;
+                case DataBuffer.TYPE_INT:
+                    intPremultipliedLoop(s1, s2, a1, d);
+                    break;
+                case DataBuffer.TYPE_FLOAT:
+                    floatPremultipliedLoop(s1, s2, a1, d);
+                    break;
+                case DataBuffer.TYPE_DOUBLE:
+                    doublePremultipliedLoop(s1, s2, a1, d);
+                    break;
+            }
+        } else {
+            compositeRuns(s1, s2, a1, a2, d);
+        }
+
+        if (d.isDataCopy()) {
+            d.clampDataArrays();
+            d.copyDataToRaster();
+        }
+    }
+
+    /**
+     * Composites the sources whose alpha is not premultiplied.
+     * <br>The alpha values are usually constant over long runs of pixels (the mosaic composites with constant alpha
+     * images), so every line is split into runs of equal alpha values and the weights of the two sources are
+     * computed once per run, with the same arithmetic as for a single pixel. The integral runs having a single
+     * contributing source are copied from that source, without reading the other one.
+     */
+    private void compositeRuns(RasterAccessor s1, RasterAccessor s2,
+                               RasterAccessor a1, RasterAccessor a2,
+                               RasterAccessor d) {
+        int dataType = d.getDataType();
+        int dwidth = d.getWidth();
+        int dheight = d.getHeight();
+
+        double[] alpha1Line = new double[dwidth];
+        double[] alpha2Line = (a2 == null) ? null : new double[dwidth];
+        double[] weights = new double[2];
+
+        for (int h = 0; h < dheight; h++) {
+            readAlphaLine(a1, h, dataType, alpha1Line);
+            if (a2 != null) {
+                readAlphaLine(a2, h, dataType, alpha2Line);
+            }
+            int start = 0;
+            while (start < dwidth) {
+                double alpha1Value = alpha1Line[start];
+                double alpha2Value = (a2 == null) ? 0.0 : alpha2Line[start];
+                int end = start + 1;
+                while (end < dwidth && sameValue(alpha1Line[end], alpha1Value)
+                        && (a2 == null || sameValue(alpha2Line[end], alpha2Value))) {
+                    end++;
+                }
+                computeWeights(dataType, alpha1Value, alpha2Value, a2 != null, weights);
+                switch (dataType) {
+                    case DataBuffer.TYPE_BYTE:
+                        byteRun(s1, s2, d, h, start, end - start, (float) weights[0], (float) weights[1]);
+                        break;
+                    case DataBuffer.TYPE_USHORT:
+                        ushortRun(s1, s2, d, h, start, end - start, (float) weights[0], (float) weights[1]);
+                        break;
+                    case DataBuffer.TYPE_SHORT:
+                        shortRun(s1, s2, d, h, start, end - start, (float) weights[0], (float) weights[1]);
+                        break;
+                    case DataBuffer.TYPE_INT:
+                        intRun(s1, s2, d, h, start, end - start, (float) weights[0], (float) weights[1]);
+                        break;
+                    case DataBuffer.TYPE_FLOAT:
+                        // without second alpha the pixels having no value in both sources stay without value
+                        floatRun(s1, s2, d, h, start, end - start, (float) weights[0], (float) weights[1],
+                                 (a2 == null) ? Float.NaN : 0.0f);
+                        break;
+                    case DataBuffer.TYPE_DOUBLE:
+                        doubleRun(s1, s2, d, h, start, end - start, weights[0], weights[1]);
+                        break;
+                }
+                start = end;
+            }
+        }
+    }
+
+    private static void readAlphaLine(RasterAccessor a, int line, int dataType, double[] values) {
+        int pixelStride = a.getPixelStride();
+        int offset = line * a.getScanlineStride() + a.getBandOffset(0);
+        switch (dataType) {
+            case DataBuffer.TYPE_BYTE: {
+                byte[] data = a.getByteDataArray(0);
+                for (int w = 0; w < values.length; w++, offset += pixelStride) {
+                    values[w] = data[offset] & 0xFF;
+                }
+                break;
+            }
+            case DataBuffer.TYPE_USHORT: {
+                short[] data = a.getShortDataArray(0);
+                for (int w = 0; w < values.length; w++, offset += pixelStride) {
+                    values[w] = data[offset] & 0xFFFF;
+                }
+                break;
+            }
+            case DataBuffer.TYPE_SHORT: {
+                short[] data = a.getShortDataArray(0);
+                for (int w = 0; w < values.length; w++, offset += pixelStride) {
+                    values[w] = data[offset];
+                }
+                break;
+            }
+            case DataBuffer.TYPE_INT: {
+                int[] data = a.getIntDataArray(0);
+                for (int w = 0; w < values.length; w++, offset += pixelStride) {
+                    values[w] = data[offset];
+                }
+                break;
+            }
+            case DataBuffer.TYPE_FLOAT: {
+                float[] data = a.getFloatDataArray(0);
+                for (int w = 0; w < values.length; w++, offset += pixelStride) {
+                    values[w] = data[offset];
+                }
+                break;
+            }
+            case DataBuffer.TYPE_DOUBLE: {
+                double[] data = a.getDoubleDataArray(0);
+                for (int w = 0; w < values.length; w++, offset += pixelStride) {
+                    values[w] = data[offset];
+                }
+                break;
+            }
+        }
+    }
+
+    private static boolean sameValue(double value1, double value2) {
+        // compares the bits, the signed zeros giving different weights
+        return Double.doubleToRawLongBits(value1) == Double.doubleToRawLongBits(value2);
+    }
+
+    /**
+     * Computes the weights of the two sources for a pixel, in the precision of the data type: the integral and
+     * float weights are computed as floats, then stored as doubles without any rounding.
+     */
+    private static void computeWeights(int dataType, double alpha1Value, double alpha2Value, boolean hasAlpha2,
+                                       double[] weights) {
+        switch (dataType) {
             case DataBuffer.TYPE_BYTE:
-                byteLoop(s1, s2, a1, a2, d);
+                computeIntegralWeights((int) alpha1Value, (int) alpha2Value, hasAlpha2, 1.0F / 0xFF, weights);
                 break;
             case DataBuffer.TYPE_USHORT:
-                ushortLoop(s1, s2, a1, a2, d);
+                computeIntegralWeights((int) alpha1Value, (int) alpha2Value, hasAlpha2, 1.0F / 0xFFFF, weights);
                 break;
             case DataBuffer.TYPE_SHORT:
-                shortLoop(s1, s2, a1, a2, d);
+                computeIntegralWeights((int) alpha1Value, (int) alpha2Value, hasAlpha2, 1.0F / Short.MAX_VALUE, weights);
                 break;
             case DataBuffer.TYPE_INT:
-                intLoop(s1, s2, a1, a2, d);
+                computeIntegralWeights((int) alpha1Value, (int) alpha2Value, hasAlpha2, 1.0F / Integer.MAX_VALUE, weights);
                 break;
-            case DataBuffer.TYPE_FLOAT:
-                floatLoop(s1, s2, a1, a2, d);
+            case DataBuffer.TYPE_FLOAT: {
+                float t1 = (float) alpha1Value;
+                if (hasAlpha2) {
+                    float t2 = (float) alpha2Value * (1.0F - t1);
+                    float t3 = t1 + t2;
+                    weights[0] = (t3 == 0.0F) ? 0.0F : t1 / t3;
+                    weights[1] = (t3 == 0.0F) ? 0.0F : t2 / t3;
+                } else {
+                    weights[0] = t1;
+                    weights[1] = 1.0F - t1;
+                }
                 break;
-            case DataBuffer.TYPE_DOUBLE:
-                doubleLoop(s1, s2, a1, a2, d);
+            }
+            case DataBuffer.TYPE_DOUBLE: {
+                double t1 = alpha1Value;
+                if (hasAlpha2) {
+                    double t2 = alpha2Value * (1.0 - t1);
+                    double t3 = t1 + t2;
+                    weights[0] = (t3 == 0.0) ? 0.0 : t1 / t3;
+                    weights[1] = (t3 == 0.0) ? 0.0 : t2 / t3;
+                } else {
+                    weights[0] = t1;
+                    weights[1] = 1.0 - t1;
+                }
                 break;
+            }
         }
+    }
 
-        if (d.isDataCopy()) {
-            d.clampDataArrays();
-            d.copyDataToRaster();
+    private static void computeIntegralWeights(int t1, int alpha2Value, boolean hasAlpha2, float invMax,
+                                               double[] weights) {
+        if (hasAlpha2) {
+            float t2 = alpha2Value * (1.0F - t1 * invMax);
+            float t3 = t1 + t2;
+            weights[0] = (t3 == 0.0F) ? 0.0F : t1 / t3;
+            weights[1] = (t3 == 0.0F) ? 0.0F : t2 / t3;
+        } else {
+            float t = t1 * invMax;
+            weights[0] = t;
+            weights[1] = 1.0F - t;
+        }
+    }
+
+    /* dest = source1 * weight1 + source2 * weight2, for a run of pixels of a line */
+
+    private static void byteRun(RasterAccessor s1, RasterAccessor s2, RasterAccessor d,
+                                int line, int x, int count, float w1, float w2) {
+        int s1PixelStride = s1.getPixelStride();
+        int s2PixelStride = s2.getPixelStride();
+        int dPixelStride = d.getPixelStride();
+        int s1Offset = line * s1.getScanlineStride() + x * s1PixelStride;
+        int s2Offset = line * s2.getScanlineStride() + x * s2PixelStride;
+        int dOffset = line * d.getScanlineStride() + x * dPixelStride;
+        int dbands = d.getNumBands();
+        for (int b = 0; b < dbands; b++) {
+            byte[] s1Data = s1.getByteDataArray(b);
+            byte[] s2Data = s2.getByteDataArray(b);
+            byte[] dData = d.getByteDataArray(b);
+            int s1Index = s1Offset + s1.getBandOffset(b);
+            int s2Index = s2Offset + s2.getBandOffset(b);
+            int dIndex = dOffset + d.getBandOffset(b);
+            if (w1 == 1.0F && w2 == 0.0F) {
+                copyRun(s1Data, s1Index, s1PixelStride, dData, dIndex, dPixelStride, count);
+            } else if (w1 == 0.0F && w2 == 1.0F) {
+                copyRun(s2Data, s2Index, s2PixelStride, dData, dIndex, dPixelStride, count);
+            } else {
+                for (int w = 0; w < count; w++) {
+                    dData[dIndex] = (byte) ((s1Data[s1Index] & 0xFF) * w1 + (s2Data[s2Index] & 0xFF) * w2);
+                    s1Index += s1PixelStride;
+                    s2Index += s2PixelStride;
+                    dIndex += dPixelStride;
+                }
+            }
+        }
+    }
+
+    private static void ushortRun(RasterAccessor s1, RasterAccessor s2, RasterAccessor d,
+                                  int line, int x, int count, float w1, float w2) {
+        int s1PixelStride = s1.getPixelStride();
+        int s2PixelStride = s2.getPixelStride();
+        int dPixelStride = d.getPixelStride();
+        int s1Offset = line * s1.getScanlineStride() + x * s1PixelStride;
+        int s2Offset = line * s2.getScanlineStride() + x * s2PixelStride;
+        int dOffset = line * d.getScanlineStride() + x * dPixelStride;
+        int dbands = d.getNumBands();
+        for (int b = 0; b < dbands; b++) {
+            short[] s1Data = s1.getShortDataArray(b);
+            short[] s2Data = s2.getShortDataArray(b);
+            short[] dData = d.getShortDataArray(b);
+            int s1Index = s1Offset + s1.getBandOffset(b);
+            int s2Index = s2Offset + s2.getBandOffset(b);
+            int dIndex = dOffset + d.getBandOffset(b);
+            if (w1 == 1.0F && w2 == 0.0F) {
+                copyRun(s1Data, s1Index, s1PixelStride, dData, dIndex, dPixelStride, count);
+            } else if (w1 == 0.0F && w2 == 1.0F) {
+                copyRun(s2Data, s2Index, s2PixelStride, dData, dIndex, dPixelStride, count);
+            } else {
+                for (int w = 0; w < count; w++) {
+                    dData[dIndex] = (short) ((s1Data[s1Index] & 0xFFFF) * w1 + (s2Data[s2Index] & 0xFFFF) * w2);
+                    s1Index += s1PixelStride;
+                    s2Index += s2PixelStride;
+                    dIndex += dPixelStride;
+                }
+            }
+        }
+    }
+
+    private static void shortRun(RasterAccessor s1, RasterAccessor s2, RasterAccessor d,
+                                 int line, int x, int count, float w1, float w2) {
+        int s1PixelStride = s1.getPixelStride();
+        int s2PixelStride = s2.getPixelStride();
+        int dPixelStride = d.getPixelStride();
+        int s1Offset = line * s1.getScanlineStride() + x * s1PixelStride;
+        int s2Offset = line * s2.getScanlineStride() + x * s2PixelStride;
+        int dOffset = line * d.getScanlineStride() + x * dPixelStride;
+        int dbands = d.getNumBands();
+        for (int b = 0; b < dbands; b++) {
+            short[] s1Data = s1.getShortDataArray(b);
+            short[] s2Data = s2.getShortDataArray(b);
+            short[] dData = d.getShortDataArray(b);
+            int s1Index = s1Offset + s1.getBandOffset(b);
+            int s2Index = s2Offset + s2.getBandOffset(b);
+            int dIndex = dOffset + d.getBandOffset(b);
+            if (w1 == 1.0F && w2 == 0.0F) {
+                copyRun(s1Data, s1Index, s1PixelStride, dData, dIndex, dPixelStride, count);
+            } else if (w1 == 0.0F && w2 == 1.0F) {
+                copyRun(s2Data, s2Index, s2PixelStride, dData, dIndex, dPixelStride, count);
+            } else {
+                for (int w = 0; w < count; w++) {
+                    dData[dIndex] = (short) (s1Data[s1Index] * w1 + s2Data[s2Index] * w2);
+                    s1Index += s1PixelStride;
+                    s2Index += s2PixelStride;
+                    dIndex += dPixelStride;
+                }
+            }
+        }
+    }
+
+    private static void intRun(RasterAccessor s1, RasterAccessor s2, RasterAccessor d,
+                               int line, int x, int count, float w1, float w2) {
+        int s1PixelStride = s1.getPixelStride();
+        int s2PixelStride = s2.getPixelStride();
+        int dPixelStride = d.getPixelStride();
+        int s1Offset = line * s1.getScanlineStride() + x * s1PixelStride;
+        int s2Offset = line * s2.getScanlineStride() + x * s2PixelStride;
+        int dOffset = line * d.getScanlineStride() + x * dPixelStride;
+        int dbands = d.getNumBands();
+        for (int b = 0; b < dbands; b++) {
+            int[] s1Data = s1.getIntDataArray(b);
+            int[] s2Data = s2.getIntDataArray(b);
+            int[] dData = d.getIntDataArray(b);
+            int s1Index = s1Offset + s1.getBandOffset(b);
+            int s2Index = s2Offset + s2.getBandOffset(b);
+            int dIndex = dOffset + d.getBandOffset(b);
+            // the int samples are rounded to floats, even by a weight of one, so they are never copied
+            for (int w = 0; w < count; w++) {
+                dData[dIndex] = (int) (s1Data[s1Index] * w1 + s2Data[s2Index] * w2);
+                s1Index += s1PixelStride;
+                s2Index += s2PixelStride;
+                dIndex += dPixelStride;
+            }
+        }
+    }
+
+    private static void floatRun(RasterAccessor s1, RasterAccessor s2, RasterAccessor d,
+                                 int line, int x, int count, float w1, float w2, float fillValue) {
+        int s1PixelStride = s1.getPixelStride();
+        int s2PixelStride = s2.getPixelStride();
+        int dPixelStride = d.getPixelStride();
+        int s1Offset = line * s1.getScanlineStride() + x * s1PixelStride;
+        int s2Offset = line * s2.getScanlineStride() + x * s2PixelStride;
+        int dOffset = line * d.getScanlineStride() + x * dPixelStride;
+        int dbands = d.getNumBands();
+        for (int b = 0; b < dbands; b++) {
+            float[] s1Data = s1.getFloatDataArray(b);
+            float[] s2Data = s2.getFloatDataArray(b);
+            float[] dData = d.getFloatDataArray(b);
+            int s1Index = s1Offset + s1.getBandOffset(b);
+            int s2Index = s2Offset + s2.getBandOffset(b);
+            int dIndex = dOffset + d.getBandOffset(b);
+            for (int w = 0; w < count; w++) {
+                float value1 = s1Data[s1Index];
+                float value2 = s2Data[s2Index];
+                dData[dIndex] = Float.isNaN(value1) ?
+                        (Float.isNaN(value2) ? fillValue : value2) :
+                        (Float.isNaN(value2) ? value1 : value1 * w1 + value2 * w2);
+                s1Index += s1PixelStride;
+                s2Index += s2PixelStride;
+                dIndex += dPixelStride;
+            }
+        }
+    }
+
+    private static void doubleRun(RasterAccessor s1, RasterAccessor s2, RasterAccessor d,
+                                  int line, int x, int count, double w1, double w2) {
+        int s1PixelStride = s1.getPixelStride();
+        int s2PixelStride = s2.getPixelStride();
+        int dPixelStride = d.getPixelStride();
+        int s1Offset = line * s1.getScanlineStride() + x * s1PixelStride;
+        int s2Offset = line * s2.getScanlineStride() + x * s2PixelStride;
+        int dOffset = line * d.getScanlineStride() + x * dPixelStride;
+        int dbands = d.getNumBands();
+        for (int b = 0; b < dbands; b++) {
+            double[] s1Data = s1.getDoubleDataArray(b);
+            double[] s2Data = s2.getDoubleDataArray(b);
+            double[] dData = d.getDoubleDataArray(b);
+            int s1Index = s1Offset + s1.getBandOffset(b);
+            int s2Index = s2Offset + s2.getBandOffset(b);
+            int dIndex = dOffset + d.getBandOffset(b);
+            for (int w = 0; w < count; w++) {
+                dData[dIndex] = s1Data[s1Index] * w1 + s2Data[s2Index] * w2;
+                s1Index += s1PixelStride;
+                s2Index += s2PixelStride;
+                dIndex += dPixelStride;
+            }
+        }
+    }
+
+    private static void copyRun(byte[] source, int sourceIndex, int sourcePixelStride,
+                                byte[] dest, int destIndex, int destPixelStride, int count) {
+        if (sourcePixelStride == 1 && destPixelStride == 1) {
+            System.arraycopy(source, sourceIndex, dest, destIndex, count);
+        } else {
+            for (int w = 0; w < count; w++, sourceIndex += sourcePixelStride, destIndex += destPixelStride) {
+                dest[destIndex] = source[sourceIndex];
+            }
+        }
+    }
+
+    private static void copyRun(short[] source, int sourceIndex, int sourcePixelStride,
+                                short[] dest, int destIndex, int destPixelStride, int count) {
+        if (sourcePixelStride == 1 && destPixelStride == 1) {
+            System.arraycopy(source, sourceIndex, dest, destIndex, count);
+        } else {
+            for (int w = 0; w < count; w++, sourceIndex += sourcePixelStride, destIndex += destPixelStride) {
+                dest[destIndex] = source[sourceIndex];
+            }
         }
     }
 
@@ -164,8 +541,8 @@ final class CompositeNoDestAlphaOpImage extends PointOpImage {
      * }
      */
 
-    private void byteLoop(RasterAccessor s1, RasterAccessor s2,
-                          RasterAccessor a1, RasterAccessor a2,
+    private void bytePremultipliedLoop(RasterAccessor s1, RasterAccessor s2,
+                          RasterAccessor a1,
                           RasterAccessor d) {
         /* First source color channels. */
         int s1LineStride = s1.getScanlineStride();
@@ -185,18 +562,6 @@ final class CompositeNoDestAlphaOpImage extends PointOpImage {
         int a1BandOffset = a1.getBandOffset(0);
         byte[] a1Data = a1.getByteDataArray(0);
 
-        /* Second source alpha channel (if any). */
-        int a2LineStride = 0;
-        int a2PixelStride = 0;
-        int a2BandOffset = 0;
-        byte[] a2Data = null;
-        if (alpha2 != null) {
-            a2LineStride = a2.getScanlineStride();
-            a2PixelStride = a2.getPixelStride();
-            a2BandOffset = a2.getBandOffset(0);
-            a2Data = a2.getByteDataArray(0);
-        }
-
         /* Destination color channels. */
         int dLineStride = d.getScanlineStride();
         int dPixelStride = d.getPixelStride();
@@ -210,129 +575,45 @@ final class CompositeNoDestAlphaOpImage extends PointOpImage {
         float invMax = 1.0F / 0xFF;
 
         int s1LineOffset = 0, s2LineOffset = 0,
-                a1LineOffset = 0, a2LineOffset = 0,
+                a1LineOffset = 0,
                 dLineOffset = 0,
                 s1PixelOffset, s2PixelOffset,
-                a1PixelOffset, a2PixelOffset,
+                a1PixelOffset,
                 dPixelOffset;
 
-        if (premultiplied) {
-            /* dest = source1 + source2 * (1 - alpha1/max) */
-
-            for (int h = 0; h < dheight; h++) {
-                s1PixelOffset = s1LineOffset;
-                s2PixelOffset = s2LineOffset;
-                a1PixelOffset = a1LineOffset + a1BandOffset;
-                dPixelOffset = dLineOffset;
-
-                s1LineOffset += s1LineStride;
-                s2LineOffset += s2LineStride;
-                a1LineOffset += a1LineStride;
-                dLineOffset += dLineStride;
-
-                for (int w = 0; w < dwidth; w++) {
-                    float t = 1.0F - (a1Data[a1PixelOffset] & 0xFF) * invMax;
-
-                    /* Destination color channels. */
-                    for (int b = 0; b < dbands; b++) {
-                        dData[b][dPixelOffset+dBandOffsets[b]] = (byte)
-                                ((s1Data[b][s1PixelOffset+s1BandOffsets[b]] & 0xFF) +
-                                        (s2Data[b][s2PixelOffset+s2BandOffsets[b]] & 0xFF) * t);
-                    }
-
-                    s1PixelOffset += s1PixelStride;
-                    s2PixelOffset += s2PixelStride;
-                    a1PixelOffset += a1PixelStride;
-                    dPixelOffset += dPixelStride;
-                }
-            }
+        /* dest = source1 + source2 * (1 - alpha1/max) */
 
-        } else {
-            if (alpha2 == null) {
-                /* dest = source1 * alpha1/max + source2 * (1 - alpha1/max) */
-
-                for (int h = 0; h < dheight; h++) {
-                    s1PixelOffset = s1LineOffset;
-                    s2PixelOffset = s2LineOffset;
-                    a1PixelOffset = a1LineOffset + a1BandOffset;
-                    dPixelOffset = dLineOffset;
-
-                    s1LineOffset += s1LineStride;
-                    s2LineOffset += s2LineStride;
-                    a1LineOffset += a1LineStride;
-                    dLineOffset += dLineStride;
-
-                    for (int w = 0; w < dwidth; w++) {
-                        float t1 = (a1Data[a1PixelOffset] & 0xFF) * invMax;
-                        float t2 = 1.0F - t1;
-
-                        /* Destination color channels. */
-                        for (int b = 0; b < dbands; b++) {
-                            dData[b][dPixelOffset+dBandOffsets[b]] = (byte)
-                                    ((s1Data[b][s1PixelOffset+s1BandOffsets[b]] & 0xFF) * t1 +
-                                            (s2Data[b][s2PixelOffset+s2BandOffsets[b]] & 0xFF) * t2);
-                        }
-
-                        s1PixelOffset += s1PixelStride;
-                        s2PixelOffset += s2PixelStride;
-                        a1PixelOffset += a1PixelStride;
-                        dPixelOffset += dPixelStride;
-                    }
-                }
-            } else {
-                /*
-                 * dest = (source1 * alpha1 +
-                 *         source2 * alpha2 * (1 - alpha1/maxValue)) /
-                 *        (alpha1 + alpha2 * (1 - alpha1/maxValue))
-                 */
-
-                for (int h = 0; h < dheight; h++) {
-                    s1PixelOffset = s1LineOffset;
-                    s2PixelOffset = s2LineOffset;
-                    a1PixelOffset = a1LineOffset + a1BandOffset;
-                    a2PixelOffset = a2LineOffset + a2BandOffset;
-                    dPixelOffset = dLineOffset;
-
-                    s1LineOffset += s1LineStride;
-                    s2LineOffset += s2LineStride;
-                    a1LineOffset += a1LineStride;
-                    a2LineOffset += a2LineStride;
-                    dLineOffset += dLineStride;
-
-                    for (int w = 0; w < dwidth; w++) {
-                        int t1 = a1Data[a1PixelOffset] & 0xFF;
-                        float t2 = (a2Data[a2PixelOffset] & 0xFF) *
-                                (1.0F - t1 * invMax);
-                        float t3 = t1 + t2;
-                        float t4, t5;
-                        if (t3 == 0.0F) {
-                            t4 = 0.0F;
-                            t5 = 0.0F;
-                        } else {
-                            t4 = t1 / t3;
-                            t5 = t2 / t3;
-                        }
-
-                        /* Destination color channels. */
-                        for (int b = 0; b < dbands; b++) {
-                            dData[b][dPixelOffset+dBandOffsets[b]] = (byte)
-                                    ((s1Data[b][s1PixelOffset+s1BandOffsets[b]] & 0xFF) * t4 +
-                                            (s2Data[b][s2PixelOffset+s2BandOffsets[b]] & 0xFF) * t5);
-                        }
-
-                        s1PixelOffset += s1PixelStride;
-                        s2PixelOffset += s2PixelStride;
-                        a1PixelOffset += a1PixelStride;
-                        a2PixelOffset += a2PixelStride;
-                        dPixelOffset += dPixelStride;
-                    }
+        for (int h = 0; h < dheight; h++) {
+            s1PixelOffset = s1LineOffset;
+            s2PixelOffset = s2LineOffset;
+            a1PixelOffset = a1LineOffset + a1BandOffset;
+            dPixelOffset = dLineOffset;
+
+            s1LineOffset += s1LineStride;
+            s2LineOffset += s2LineStride;
+            a1LineOffset += a1LineStride;
+            dLineOffset += dLineStride;
+
+            for (int w = 0; w < dwidth; w++) {
+                float t = 1.0F - (a1Data[a1PixelOffset] & 0xFF) * invMax;
+
+                /* Destination color channels. */
+                for (int b = 0; b < dbands; b++) {
+                    dData[b][dPixelOffset+dBandOffsets[b]] = (byte)
+                            ((s1Data[b][s1PixelOffset+s1BandOffsets[b]] & 0xFF) +
+                                    (s2Data[b][s2PixelOffset+s2BandOffsets[b]] & 0xFF) * t);
                 }
+
+                s1PixelOffset += s1PixelStride;
+                s2PixelOffset += s2PixelStride;
+                a1PixelOffset += a1PixelStride;
+                dPixelOffset += dPixelStride;
             }
         }
     }
 
-    private void ushortLoop(RasterAccessor s1, RasterAccessor s2,
-                            RasterAccessor a1, RasterAccessor a2,
+    private void ushortPremultipliedLoop(RasterAccessor s1, RasterAccessor s2,
+                            RasterAccessor a1,
                             RasterAccessor d) {
         /* First source color channels. */
         int s1LineStride = s1.getScanlineStride();
@@ -352,18 +633,6 @@ final class CompositeNoDestAlphaOpImage extends PointOpImage {
         int a1BandOffset = a1.getBandOffset(0);
         short[] a1Data = a1.getShortDataArray(0);
 
-        /* Second source alpha channel (if any). */
-        int a2LineStride = 0;
-        int a2PixelStride = 0;
-        int a2BandOffset = 0;
-        short[] a2Data = null;
-        if (alpha2 != null) {
-            a2LineStride = a2.getScanlineStride();
-            a2PixelStride = a2.getPixelStride();
-            a2BandOffset = a2.getBandOffset(0);
-            a2Data = a2.getShortDataArray(0);
-        }
-
         /* Destination color channels. */
         int dLineStride = d.getScanlineStride();
         int dPixelStride = d.getPixelStride();
@@ -377,129 +646,45 @@ final class CompositeNoDestAlphaOpImage extends PointOpImage {
         float invMax = 1.0F / 0xFFFF;
 
         int s1LineOffset = 0, s2LineOffset = 0,
-                a1LineOffset = 0, a2LineOffset = 0,
+                a1LineOffset = 0,
                 dLineOffset = 0,
                 s1PixelOffset, s2PixelOffset,
-                a1PixelOffset, a2PixelOffset,
+                a1PixelOffset,
                 dPixelOffset;
 
-        if (premultiplied) {
-            /* dest = source1 + source2 * (1 - alpha1/max) */
-
-            for (int h = 0; h < dheight; h++) {
-                s1PixelOffset = s1LineOffset;
-                s2PixelOffset = s2LineOffset;
-                a1PixelOffset = a1LineOffset + a1BandOffset;
-                dPixelOffset = dLineOffset;
-
-                s1LineOffset += s1LineStride;
-                s2LineOffset += s2LineStride;
-                a1LineOffset += a1LineStride;
-                dLineOffset += dLineStride;
-
-                for (int w = 0; w < dwidth; w++) {
-                    float t = 1.0F - (a1Data[a1PixelOffset] & 0xFFFF) * invMax;
-
-                    /* Destination color channels. */
-                    for (int b = 0; b < dbands; b++) {
-                        dData[b][dPixelOffset+dBandOffsets[b]] = (short)
-                                ((s1Data[b][s1PixelOffset+s1BandOffsets[b]] & 0xFFFF) +
-                                        (s2Data[b][s2PixelOffset+s2BandOffsets[b]] & 0xFFFF) * t);
-                    }
-
-                    s1PixelOffset += s1PixelStride;
-                    s2PixelOffset += s2PixelStride;
-                    a1PixelOffset += a1PixelStride;
-                    dPixelOffset += dPixelStride;
-                }
-            }
+        /* dest = source1 + source2 * (1 - alpha1/max) */
 
-        } else {
-            if (alpha2 == null) {
-                /* dest = source1 * alpha1/max + source2 * (1 - alpha1/max) */
-
-                for (int h = 0; h < dheight; h++) {
-                    s1PixelOffset = s1LineOffset;
-                    s2PixelOffset = s2LineOffset;
-                    a1PixelOffset = a1LineOffset + a1BandOffset;
-                    dPixelOffset = dLineOffset;
-
-                    s1LineOffset += s1LineStride;
-                    s2LineOffset += s2LineStride;
-                    a1LineOffset += a1LineStride;
-                    dLineOffset += dLineStride;
-
-                    for (int w = 0; w < dwidth; w++) {
-                        float t1 = (a1Data[a1PixelOffset] & 0xFFFF) * invMax;
-                        float t2 = 1.0F - t1;
-
-                        /* Destination color channels. */
-                        for (int b = 0; b < dbands; b++) {
-                            dData[b][dPixelOffset+dBandOffsets[b]] = (short)
-                                    ((s1Data[b][s1PixelOffset+s1BandOffsets[b]] & 0xFFFF) * t1 +
-                                            (s2Data[b][s2PixelOffset+s2BandOffsets[b]] & 0xFFFF) * t2);
-                        }
-
-                        s1PixelOffset += s1PixelStride;
-                        s2PixelOffset += s2PixelStride;
-                        a1PixelOffset += a1PixelStride;
-                        dPixelOffset += dPixelStride;
-                    }
-                }
-            } else {
-                /*
-                 * dest = (source1 * alpha1 +
-                 *         source2 * alpha2 * (1 - alpha1/maxValue)) /
-                 *        (alpha1 + alpha2 * (1 - alpha1/maxValue))
-                 */
-
-                for (int h = 0; h < dheight; h++) {
-                    s1PixelOffset = s1LineOffset;
-                    s2PixelOffset = s2LineOffset;
-                    a1PixelOffset = a1LineOffset + a1BandOffset;
-                    a2PixelOffset = a2LineOffset + a2BandOffset;
-                    dPixelOffset = dLineOffset;
-
-                    s1LineOffset += s1LineStride;
-                    s2LineOffset += s2LineStride;
-                    a1LineOffset += a1LineStride;
-                    a2LineOffset += a2LineStride;
-                    dLineOffset += dLineStride;
-
-                    for (int w = 0; w < dwidth; w++) {
-                        int t1 = a1Data[a1PixelOffset] & 0xFFFF;
-                        float t2 = (a2Data[a2PixelOffset] & 0xFFFF) *
-                                (1.0F - t1 * invMax);
-                        float t3 = t1 + t2;
-                        float t4, t5;
-                        if (t3 == 0.0F) {
-                            t4 = 0.0F;
-                            t5 = 0.0F;
-                        } else {
-                            t4 = t1 / t3;
-                            t5 = t2 / t3;
-                        }
-
-                        /* Destination color channels. */
-                        for (int b = 0; b < dbands; b++) {
-                            dData[b][dPixelOffset+dBandOffsets[b]] = (short)
-                                    ((s1Data[b][s1PixelOffset+s1BandOffsets[b]] & 0xFFFF) * t4 +
-                                            (s2Data[b][s2PixelOffset+s2BandOffsets[b]] & 0xFFFF) * t5);
-                        }
-
-                        s1PixelOffset += s1PixelStride;
-                        s2PixelOffset += s2PixelStride;
-                        a1PixelOffset += a1PixelStride;
-                        a2PixelOffset += a2PixelStride;
-                        dPixelOffset += dPixelStride;
-                    }
+        for (int h = 0; h < dheight; h++) {
+            s1PixelOffset = s1LineOffset;
+            s2PixelOffset = s2LineOffset;
+            a1PixelOffset = a1LineOffset + a1BandOffset;
+            dPixelOffset = dLineOffset;
+
+            s1LineOffset += s1LineStride;
+            s2LineOffset += s2LineStride;
+            a1LineOffset += a1LineStride;
+            dLineOffset += dLineStride;
+
+            for (int w = 0; w < dwidth; w++) {
+                float t = 1.0F - (a1Data[a1PixelOffset] & 0xFFFF) * invMax;
+
+                /* Destination color channels. */
+                for (int b = 0; b < dbands; b++) {
+                    dData[b][dPixelOffset+dBandOffsets[b]] = (short)
+                            ((s1Data[b][s1PixelOffset+s1BandOffsets[b]] & 0xFFFF) +
+                                    (s2Data[b][s2PixelOffset+s2BandOffsets[b]] & 0xFFFF) * t);
                 }
+
+                s1PixelOffset += s1PixelStride;
+                s2PixelOffset += s2PixelStride;
+                a1PixelOffset += a1PixelStride;
+                dPixelOffset += dPixelStride;
             }
         }
     }
 
-    private void shortLoop(RasterAccessor s1, RasterAccessor s2,
-                           RasterAccessor a1, RasterAccessor a2,
+    private void shortPremultipliedLoop(RasterAccessor s1, RasterAccessor s2,
+                           RasterAccessor a1,
                            RasterAccessor d) {
         /* First source color channels. */
         int s1LineStride = s1.getScanlineStride();
@@ -519,18 +704,6 @@ final class CompositeNoDestAlphaOpImage extends PointOpImage {
         int a1BandOffset = a1.getBandOffset(0);
         short[] a1Data = a1.getShortDataArray(0);
 
-        /* Second source alpha channel (if any). */
-        int a2LineStride = 0;
-        int a2PixelStride = 0;
-        int a2BandOffset = 0;
-        short[] a2Data = null;
-        if (alpha2 != null) {
-            a2LineStride = a2.getScanlineStride();
-            a2PixelStride = a2.getPixelStride();
-            a2BandOffset = a2.getBandOffset(0);
-            a2Data = a2.getShortDataArray(0);
-        }
-
         /* Destination color channels. */
         int dLineStride = d.getScanlineStride();
         int dPixelStride = d.getPixelStride();
@@ -544,128 +717,45 @@ final class CompositeNoDestAlphaOpImage extends PointOpImage {
         float invMax = 1.0F / Short.MAX_VALUE;
 
         int s1LineOffset = 0, s2LineOffset = 0,
-                a1LineOffset = 0, a2LineOffset = 0,
+                a1LineOffset = 0,
                 dLineOffset = 0,
                 s1PixelOffset, s2PixelOffset,
-                a1PixelOffset, a2PixelOffset,
+                a1PixelOffset,
                 dPixelOffset;
 
-        if (premultiplied) {
-            /* dest = source1 + source2 * (1 - alpha1/max) */
-
-            for (int h = 0; h < dheight; h++) {
-                s1PixelOffset = s1LineOffset;
-                s2PixelOffset = s2LineOffset;
-                a1PixelOffset = a1LineOffset + a1BandOffset;
-                dPixelOffset = dLineOffset;
-
-                s1LineOffset += s1LineStride;
-                s2LineOffset += s2LineStride;
-                a1LineOffset += a1LineStride;
-                dLineOffset += dLineStride;
-
-                for (int w = 0; w < dwidth; w++) {
-                    float t = 1.0F - a1Data[a1PixelOffset] * invMax;
-
-                    /* Destination color channels. */
-                    for (int b = 0; b < dbands; b++) {
-                        dData[b][dPixelOffset+dBandOffsets[b]] = (short)
-                                (s1Data[b][s1PixelOffset+s1BandOffsets[b]] +
-                                        s2Data[b][s2PixelOffset+s2BandOffsets[b]] * t);
-                    }
-
-                    s1PixelOffset += s1PixelStride;
-                    s2PixelOffset += s2PixelStride;
-                    a1PixelOffset += a1PixelStride;
-                    dPixelOffset += dPixelStride;
-                }
-            }
+        /* dest = source1 + source2 * (1 - alpha1/max) */
 
-        } else {
-            if (alpha2 == null) {
-                /* dest = source1 * alpha1/max + source2 * (1 - alpha1/max) */
-
-                for (int h = 0; h < dheight; h++) {
-                    s1PixelOffset = s1LineOffset;
-                    s2PixelOffset = s2LineOffset;
-                    a1PixelOffset = a1LineOffset + a1BandOffset;
-                    dPixelOffset = dLineOffset;
-
-                    s1LineOffset += s1LineStride;
-                    s2LineOffset += s2LineStride;
-                    a1LineOffset += a1LineStride;
-                    dLineOffset += dLineStride;
-
-                    for (int w = 0; w < dwidth; w++) {
-                        float t1 = a1Data[a1PixelOffset] * invMax;
-                        float t2 = 1.0F - t1;
-
-                        /* Destination color channels. */
-                        for (int b = 0; b < dbands; b++) {
-                            dData[b][dPixelOffset+dBandOffsets[b]] = (short)
-                                    (s1Data[b][s1PixelOffset+s1BandOffsets[b]] * t1 +
-                                            s2Data[b][s2PixelOffset+s2BandOffsets[b]] * t2);
-                        }
-
-                        s1PixelOffset += s1PixelStride;
-                        s2PixelOffset += s2PixelStride;
-                        a1PixelOffset += a1PixelStride;
-                        dPixelOffset += dPixelStride;
-                    }
-                }
-            } else {
-                /*
-                 * dest = (source1 * alpha1 +
-                 *         source2 * alpha2 * (1 - alpha1/maxValue)) /
-                 *        (alpha1 + alpha2 * (1 - alpha1/maxValue))
-                 */
-
-                for (int h = 0; h < dheight; h++) {
-                    s1PixelOffset = s1LineOffset;
-                    s2PixelOffset = s2LineOffset;
-                    a1PixelOffset = a1LineOffset + a1BandOffset;
-                    a2PixelOffset = a2LineOffset + a2BandOffset;
-                    dPixelOffset = dLineOffset;
-
-                    s1LineOffset += s1LineStride;
-                    s2LineOffset += s2LineStride;
-                    a1LineOffset += a1LineStride;
-                    a2LineOffset += a2LineStride;
-                    dLineOffset += dLineStride;
-
-                    for (int w = 0; w < dwidth; w++) {
-                        int t1 = a1Data[a1PixelOffset];
-                        float t2 = a2Data[a2PixelOffset] * (1.0F - t1 * invMax);
-                        float t3 = t1 + t2;
-                        float t4, t5;
-                        if (t3 == 0.0F) {
-                            t4 = 0.0F;
-                            t5 = 0.0F;
-                        } else {
-                            t4 = t1 / t3;
-                            t5 = t2 / t3;
-                        }
-
-                        /* Destination color channels. */
-                        for (int b = 0; b < dbands; b++) {
-                            dData[b][dPixelOffset+dBandOffsets[b]] = (short)
-                                    (s1Data[b][s1PixelOffset+s1BandOffsets[b]] * t4 +
-                                            s2Data[b][s2PixelOffset+s2BandOffsets[b]] * t5);
-                        }
-
-                        s1PixelOffset += s1PixelStride;
-                        s2PixelOffset += s2PixelStride;
-                        a1PixelOffset += a1PixelStride;
-                        a2PixelOffset += a2PixelStride;
-                        dPixelOffset += dPixelStride;
-                    }
+        for (int h = 0; h < dheight; h++) {
+            s1PixelOffset = s1LineOffset;
+            s2PixelOffset = s2LineOffset;
+            a1PixelOffset = a1LineOffset + a1BandOffset;
+            dPixelOffset = dLineOffset;
+
+            s1LineOffset += s1LineStride;
+            s2LineOffset += s2LineStride;
+            a1LineOffset += a1LineStride;
+            dLineOffset += dLineStride;
+
+            for (int w = 0; w < dwidth; w++) {
+                float t = 1.0F - a1Data[a1PixelOffset] * invMax;
+
+                /* Destination color channels. */
+                for (int b = 0; b < dbands; b++) {
+                    dData[b][dPixelOffset+dBandOffsets[b]] = (short)
+                            (s1Data[b][s1PixelOffset+s1BandOffsets[b]] +
+                                    s2Data[b][s2PixelOffset+s2BandOffsets[b]] * t);
                 }
+
+                s1PixelOffset += s1PixelStride;
+                s2PixelOffset += s2PixelStride;
+                a1PixelOffset += a1PixelStride;
+                dPixelOffset += dPixelStride;
             }
         }
     }
 
-    private void intLoop(RasterAccessor s1, RasterAccessor s2,
-                         RasterAccessor a1, RasterAccessor a2,
+    private void intPremultipliedLoop(RasterAccessor s1, RasterAccessor s2,
+                         RasterAccessor a1,
                          RasterAccessor d) {
         /* First source color channels. */
         int s1LineStride = s1.getScanlineStride();
@@ -685,18 +775,6 @@ final class CompositeNoDestAlphaOpImage extends PointOpImage {
         int a1BandOffset = a1.getBandOffset(0);
         int[] a1Data = a1.getIntDataArray(0);
 
-        /* Second source alpha channel (if any). */
-        int a2LineStride = 0;
-        int a2PixelStride = 0;
-        int a2BandOffset = 0;
-        int[] a2Data = null;
-        if (alpha2 != null) {
-            a2LineStride = a2.getScanlineStride();
-            a2PixelStride = a2.getPixelStride();
-            a2BandOffset = a2.getBandOffset(0);
-            a2Data = a2.getIntDataArray(0);
-        }
-
         /* Destination color channels. */
         int dLineStride = d.getScanlineStride();
         int dPixelStride = d.getPixelStride();
@@ -710,128 +788,45 @@ final class CompositeNoDestAlphaOpImage extends PointOpImage {
         float invMax = 1.0F / Integer.MAX_VALUE;
 
         int s1LineOffset = 0, s2LineOffset = 0,
-                a1LineOffset = 0, a2LineOffset = 0,
+                a1LineOffset = 0,
                 dLineOffset = 0,
                 s1PixelOffset, s2PixelOffset,
-                a1PixelOffset, a2PixelOffset,
+                a1PixelOffset,
                 dPixelOffset;
 
-        if (premultiplied) {
-            /* dest = source1 + source2 * (1 - alpha1/max) */
-
-            for (int h = 0; h < dheight; h++) {
-                s1PixelOffset = s1LineOffset;
-                s2PixelOffset = s2LineOffset;
-                a1PixelOffset = a1LineOffset + a1BandOffset;
-                dPixelOffset = dLineOffset;
-
-                s1LineOffset += s1LineStride;
-                s2LineOffset += s2LineStride;
-                a1LineOffset += a1LineStride;
-                dLineOffset += dLineStride;
-
-                for (int w = 0; w < dwidth; w++) {
-                    float t = 1.0F - a1Data[a1PixelOffset] * invMax;
-
-                    /* Destination color channels. */
-                    for (int b = 0; b < dbands; b++) {
-                        dData[b][dPixelOffset+dBandOffsets[b]] = (int)
-                                (s1Data[b][s1PixelOffset+s1BandOffsets[b]] +
-                                        s2Data[b][s2PixelOffset+s2BandOffsets[b]] * t);
-                    }
-
-                    s1PixelOffset += s1PixelStride;
-                    s2PixelOffset += s2PixelStride;
-                    a1PixelOffset += a1PixelStride;
-                    dPixelOffset += dPixelStride;
-                }
-            }
+        /* dest = source1 + source2 * (1 - alpha1/max) */
 
-        } else {
-            if (alpha2 == null) {
-                /* dest = source1 * alpha1/max + source2 * (1 - alpha1/max) */
-
-                for (int h = 0; h < dheight; h++) {
-                    s1PixelOffset = s1LineOffset;
-                    s2PixelOffset = s2LineOffset;
-                    a1PixelOffset = a1LineOffset + a1BandOffset;
-                    dPixelOffset = dLineOffset;
-
-                    s1LineOffset += s1LineStride;
-                    s2LineOffset += s2LineStride;
-                    a1LineOffset += a1LineStride;
-                    dLineOffset += dLineStride;
-
-                    for (int w = 0; w < dwidth; w++) {
-                        float t1 = a1Data[a1PixelOffset] * invMax;
-                        float t2 = 1.0F - t1;
-
-                        /* Destination color channels. */
-                        for (int b = 0; b < dbands; b++) {
-                            dData[b][dPixelOffset+dBandOffsets[b]] = (int)
-                                    (s1Data[b][s1PixelOffset+s1BandOffsets[b]] * t1 +
-                                            s2Data[b][s2PixelOffset+s2BandOffsets[b]] * t2);
-                        }
-
-                        s1PixelOffset += s1PixelStride;
-                        s2PixelOffset += s2PixelStride;
-                        a1PixelOffset += a1PixelStride;
-                        dPixelOffset += dPixelStride;
-                    }
-                }
-            } else {
-                /*
-                 * dest = (source1 * alpha1 +
-                 *         source2 * alpha2 * (1 - alpha1/maxValue)) /
-                 *        (alpha1 + alpha2 * (1 - alpha1/maxValue))
-                 */
-
-                for (int h = 0; h < dheight; h++) {
-                    s1PixelOffset = s1LineOffset;
-                    s2PixelOffset = s2LineOffset;
-                    a1PixelOffset = a1LineOffset + a1BandOffset;
-                    a2PixelOffset = a2LineOffset + a2BandOffset;
-                    dPixelOffset = dLineOffset;
-
-                    s1LineOffset += s1LineStride;
-                    s2LineOffset += s2LineStride;
-                    a1LineOffset += a1LineStride;
-                    a2LineOffset += a2LineStride;
-                    dLineOffset += dLineStride;
-
-                    for (int w = 0; w < dwidth; w++) {
-                        int t1 = a1Data[a1PixelOffset];
-                        float t2 = a2Data[a2PixelOffset] * (1.0F - t1 * invMax);
-                        float t3 = t1 + t2;
-                        float t4, t5;
-                        if (t3 == 0.0F) {
-                            t4 = 0.0F;
-                            t5 = 0.0F;
-                        } else {
-                            t4 = t1 / t3;
-                            t5 = t2 / t3;
-                        }
-
-                        /* Destination color channels. */
-                        for (int b = 0; b < dbands; b++) {
-                            dData[b][dPixelOffset+dBandOffsets[b]] = (int)
-                                    (s1Data[b][s1PixelOffset+s1BandOffsets[b]] * t4 +
-                                            s2Data[b][s2PixelOffset+s2BandOffsets[b]] * t5);
-                        }
-
-                        s1PixelOffset += s1PixelStride;
-                        s2PixelOffset += s2PixelStride;
-                        a1PixelOffset += a1PixelStride;
-                        a2PixelOffset += a2PixelStride;
-                        dPixelOffset += dPixelStride;
-                    }
+        for (int h = 0; h < dheight; h++) {
+            s1PixelOffset = s1LineOffset;
+            s2PixelOffset = s2LineOffset;
+            a1PixelOffset = a1LineOffset + a1BandOffset;
+            dPixelOffset = dLineOffset;
+
+            s1LineOffset += s1LineStride;
+            s2LineOffset += s2LineStride;
+            a1LineOffset += a1LineStride;
+            dLineOffset += dLineStride;
+
+            for (int w = 0; w < dwidth; w++) {
+                float t = 1.0F - a1Data[a1PixelOffset] * invMax;
+
+                /* Destination color channels. */
+                for (int b = 0; b < dbands; b++) {
+                    dData[b][dPixelOffset+dBandOffsets[b]] = (int)
+                            (s1Data[b][s1PixelOffset+s1BandOffsets[b]] +
+                                    s2Data[b][s2PixelOffset+s2BandOffsets[b]] * t);
                 }
+
+                s1PixelOffset += s1PixelStride;
+                s2PixelOffset += s2PixelStride;
+                a1PixelOffset += a1PixelStride;
+                dPixelOffset += dPixelStride;
             }
         }
     }
 
-    private void floatLoop(RasterAccessor s1, RasterAccessor s2,
-                           RasterAccessor a1, RasterAccessor a2,
+    private void floatPremultipliedLoop(RasterAccessor s1, RasterAccessor s2,
+                           RasterAccessor a1,
                            RasterAccessor d) {
         /* First source color channels. */
         int s1LineStride = s1.getScanlineStride();
@@ -851,18 +846,6 @@ final class CompositeNoDestAlphaOpImage extends PointOpImage {
         int a1BandOffset = a1.getBandOffset(0);
         float[] a1Data = a1.getFloatDataArray(0);
 
-        /* Second source alpha channel (if any). */
-        int a2LineStride = 0;
-        int a2PixelStride = 0;
-        int a2BandOffset = 0;
-        float[] a2Data = null;
-        if (alpha2 != null) {
-            a2LineStride = a2.getScanlineStride();
-            a2PixelStride = a2.getPixelStride();
-            a2BandOffset = a2.getBandOffset(0);
-            a2Data = a2.getFloatDataArray(0);
-        }
-
         /* Destination color channels. */
         int dLineStride = d.getScanlineStride();
         int dPixelStride = d.getPixelStride();
@@ -874,143 +857,45 @@ final class CompositeNoDestAlphaOpImage extends PointOpImage {
         int dbands = d.getNumBands();
 
         int s1LineOffset = 0, s2LineOffset = 0,
-                a1LineOffset = 0, a2LineOffset = 0,
+                a1LineOffset = 0,
                 dLineOffset = 0,
                 s1PixelOffset, s2PixelOffset,
-                a1PixelOffset, a2PixelOffset,
+                a1PixelOffset,
                 dPixelOffset;
 
-        if (premultiplied) {
-            /* dest = source1 + source2 * (1 - alpha1) */
-
-            for (int h = 0; h < dheight; h++) {
-                s1PixelOffset = s1LineOffset;
-                s2PixelOffset = s2LineOffset;
-                a1PixelOffset = a1LineOffset + a1BandOffset;
-                dPixelOffset = dLineOffset;
-
-                s1LineOffset += s1LineStride;
-                s2LineOffset += s2LineStride;
-                a1LineOffset += a1LineStride;
-                dLineOffset += dLineStride;
-
-                for (int w = 0; w < dwidth; w++) {
-                    float t = 1.0F - a1Data[a1PixelOffset];
-
-                    /* Destination color channels. */
-                    for (int b = 0; b < dbands; b++) {
-                        dData[b][dPixelOffset+dBandOffsets[b]] =
-                                s1Data[b][s1PixelOffset+s1BandOffsets[b]] +
-                                        s2Data[b][s2PixelOffset+s2BandOffsets[b]] * t;
-                    }
-
-                    s1PixelOffset += s1PixelStride;
-                    s2PixelOffset += s2PixelStride;
-                    a1PixelOffset += a1PixelStride;
-                    dPixelOffset += dPixelStride;
-                }
-            }
+        /* dest = source1 + source2 * (1 - alpha1) */
 
-        } else {
-            if (alpha2 == null) {
-                /* dest = source1 * alpha1 + source2 * (1 - alpha1) */
-
-                for (int h = 0; h < dheight; h++) {
-                    s1PixelOffset = s1LineOffset;
-                    s2PixelOffset = s2LineOffset;
-                    a1PixelOffset = a1LineOffset + a1BandOffset;
-                    dPixelOffset = dLineOffset;
-
-                    s1LineOffset += s1LineStride;
-                    s2LineOffset += s2LineStride;
-                    a1LineOffset += a1LineStride;
-                    dLineOffset += dLineStride;
-
-                    int offset1, offset2;
-                    float value1, value2, expr;
-                    for (int w = 0; w < dwidth; w++) {
-                        float t1 = a1Data[a1PixelOffset];
-                        float t2 = 1.0F - t1;
-
-                        /* Destination color channels. */
-                        for (int b = 0; b < dbands; b++) {
-                            offset1 = s1PixelOffset+s1BandOffsets[b];
-                            offset2 = s2PixelOffset+s2BandOffsets[b];
-                            value1 = s1Data[b][offset1];
-                            value2 = s2Data[b][offset2];
-                            expr = Float.isNaN(value1) ?
-                                    (Float.isNaN(value2) ? Float.NaN : value2) :
-                                    (Float.isNaN(value2) ? value1 :
-                                            value1 * t1 + value2 * t2);
-                            dData[b][dPixelOffset+dBandOffsets[b]] = expr;
-                        }
-
-                        s1PixelOffset += s1PixelStride;
-                        s2PixelOffset += s2PixelStride;
-                        a1PixelOffset += a1PixelStride;
-                        dPixelOffset += dPixelStride;
-                    }
-                }
-            } else {
-                /*
-                 * dest = (source1 * alpha1 + source2 * alpha2 * (1 - alpha1)) /
-                 *        (alpha1 + alpha2 * (1 - alpha1))
-                 */
-
-                for (int h = 0; h < dheight; h++) {
-                    s1PixelOffset = s1LineOffset;
-                    s2PixelOffset = s2LineOffset;
-                    a1PixelOffset = a1LineOffset + a1BandOffset;
-                    a2PixelOffset = a2LineOffset + a2BandOffset;
-                    dPixelOffset = dLineOffset;
-
-                    s1LineOffset += s1LineStride;
-                    s2LineOffset += s2LineStride;
-                    a1LineOffset += a1LineStride;
-                    a2LineOffset += a2LineStride;
-                    dLineOffset += dLineStride;
-
-                    int offset1, offset2;
-                    float value1, value2, expr;
-                    for (int w = 0; w < dwidth; w++) {
-                        float t1 = a1Data[a1PixelOffset];
-                        float t2 = a2Data[a2PixelOffset] * (1.0F - t1);
-                        float t3 = t1 + t2;
-                        float t4, t5;
-                        if (t3 == 0.0F) {
-                            t4 = 0.0F;
-                            t5 = 0.0F;
-                        } else {
-                            t4 = t1 / t3;
-                            t5 = t2 / t3;
-                        }
-
-                        /* Destination color channels. */
-                        for (int b = 0; b < dbands; b++) {
-                            offset1 = s1PixelOffset+s1BandOffsets[b];
-                            offset2 = s2PixelOffset+s2BandOffsets[b];
-                            value1 = s1Data[b][offset1];
-                            value2 = s2Data[b][offset2];
-                            expr = Float.isNaN(value1) ?
-                                    (Float.isNaN(value2) ? 0.0f : value2) :
-                                    (Float.isNaN(value2) ? value1 :
-                                        value1 * t4 + value2 * t5);
-                            dData[b][dPixelOffset+dBandOffsets[b]] = expr;
-                        }
-
-                        s1PixelOffset += s1PixelStride;
-                        s2PixelOffset += s2PixelStride;
-                        a1PixelOffset += a1PixelStride;
-                        a2PixelOffset += a2PixelStride;
-                        dPixelOffset += dPixelStride;
-                    }
+        for (int h = 0; h < dheight; h++) {
+            s1PixelOffset = s1LineOffset;
+            s2PixelOffset = s2LineOffset;
+            a1PixelOffset = a1LineOffset + a1BandOffset;
+            dPixelOffset = dLineOffset;
+
+            s1LineOffset += s1LineStride;
+            s2LineOffset += s2LineStride;
+            a1LineOffset += a1LineStride;
+            dLineOffset += dLineStride;
+
+            for (int w = 0; w < dwidth; w++) {
+                float t = 1.0F - a1Data[a1PixelOffset];
+
+                /* Destination color channels. */
+                for (int b = 0; b < dbands; b++) {
+                    dData[b][dPixelOffset+dBandOffsets[b]] =
+                            s1Data[b][s1PixelOffset+s1BandOffsets[b]] +
+                                    s2Data[b][s2PixelOffset+s2BandOffsets[b]] * t;
                 }
+
+                s1PixelOffset += s1PixelStride;
+                s2PixelOffset += s2PixelStride;
+                a1PixelOffset += a1PixelStride;
+                dPixelOffset += dPixelStride;
             }
         }
     }
 
-    private void doubleLoop(RasterAccessor s1, RasterAccessor s2,
-                            RasterAccessor a1, RasterAccessor a2,
+    private void doublePremultipliedLoop(RasterAccessor s1, RasterAccessor s2,
+                            RasterAccessor a1,
                             RasterAccessor d) {
         /* First source color channels. */
         int s1LineStride = s1.getScanlineStride();
@@ -1030,18 +915,6 @@ final class CompositeNoDestAlphaOpImage extends PointOpImage {
         int a1BandOffset = a1.getBandOffset(0);
         double[] a1Data = a1.getDoubleDataArray(0);
 
-        /* Second source alpha channel (if any). */
-        int a2LineStride = 0;
-        int a2PixelStride = 0;
-        int a2BandOffset = 0;
-        double[] a2Data = null;
-        if (alpha2 != null) {
-            a2LineStride = a2.getScanlineStride();
-            a2PixelStride = a2.getPixelStride();
-            a2BandOffset = a2.getBandOffset(0);
-            a2Data = a2.getDoubleDataArray(0);
-        }
-
         /* Destination color channels. */
         int dLineStride = d.getScanlineStride();
         int dPixelStride = d.getPixelStride();
@@ -1053,121 +926,39 @@ final class CompositeNoDestAlphaOpImage extends PointOpImage {
         int dbands = d.getNumBands();
 
         int s1LineOffset = 0, s2LineOffset = 0,
-                a1LineOffset = 0, a2LineOffset = 0,
+                a1LineOffset = 0,
                 dLineOffset = 0,
                 s1PixelOffset, s2PixelOffset,
-                a1PixelOffset, a2PixelOffset,
+                a1PixelOffset,
                 dPixelOffset;
 
-        if (premultiplied) {
-            /* dest = source1 + source2 * (1 - alpha1) */
-
-            for (int h = 0; h < dheight; h++) {
-                s1PixelOffset = s1LineOffset;
-                s2PixelOffset = s2LineOffset;
-                a1PixelOffset = a1LineOffset + a1BandOffset;
-                dPixelOffset = dLineOffset;
-
-                s1LineOffset += s1LineStride;
-                s2LineOffset += s2LineStride;
-                a1LineOffset += a1LineStride;
-                dLineOffset += dLineStride;
-
-                for (int w = 0; w < dwidth; w++) {
-                    double t = 1.0 - a1Data[a1PixelOffset];
-
-                    /* Destination color channels. */
-                    for (int b = 0; b < dbands; b++) {
-                        dData[b][dPixelOffset+dBandOffsets[b]] =
-                                s1Data[b][s1PixelOffset+s1BandOffsets[b]] +
-                                        s2Data[b][s2PixelOffset+s2BandOffsets[b]] * t;
-                    }
-
-                    s1PixelOffset += s1PixelStride;
-                    s2PixelOffset += s2PixelStride;
-                    a1PixelOffset += a1PixelStride;
-                    dPixelOffset += dPixelStride;
-                }
-            }
+        /* dest = source1 + source2 * (1 - alpha1) */
 
-        } else {
-            if (alpha2 == null) {
-                /* dest = source1 * alpha1 + source2 * (1 - alpha1) */
-
-                for (int h = 0; h < dheight; h++) {
-                    s1PixelOffset = s1LineOffset;
-                    s2PixelOffset = s2LineOffset;
-                    a1PixelOffset = a1LineOffset + a1BandOffset;
-                    dPixelOffset = dLineOffset;
-
-                    s1LineOffset += s1LineStride;
-                    s2LineOffset += s2LineStride;
-                    a1LineOffset += a1LineStride;
-                    dLineOffset += dLineStride;
-
-                    for (int w = 0; w < dwidth; w++) {
-                        double t1 = a1Data[a1PixelOffset];
-                        double t2 = 1.0 - t1;
-
-                        /* Destination color channels. */
-                        for (int b = 0; b < dbands; b++) {
-                            dData[b][dPixelOffset+dBandOffsets[b]] =
-                                    s1Data[b][s1PixelOffset+s1BandOffsets[b]] * t1 +
-                                            s2Data[b][s2PixelOffset+s2BandOffsets[b]] * t2;
-                        }
-
-                        s1PixelOffset += s1PixelStride;
-                        s2PixelOffset += s2PixelStride;
-                        a1PixelOffset += a1PixelStride;
-                        dPixelOffset += dPixelStride;
-                    }
-                }
-            } else {
-                /*
-                 * dest = (source1 * alpha1 + source2 * alpha2 * (1 - alpha1)) /
-                 *        (alpha1 + alpha2 * (1 - alpha1))
-                 */
-
-                for (int h = 0; h < dheight; h++) {
-                    s1PixelOffset = s1LineOffset;
-                    s2PixelOffset = s2LineOffset;
-                    a1PixelOffset = a1LineOffset + a1BandOffset;
-                    a2PixelOffset = a2LineOffset + a2BandOffset;
-                    dPixelOffset = dLineOffset;
-
-                    s1LineOffset += s1LineStride;
-                    s2LineOffset += s2LineStride;
-                    a1LineOffset += a1LineStride;
-                    a2LineOffset += a2LineStride;
-                    dLineOffset += dLineStride;
-
-                    for (int w = 0; w < dwidth; w++) {
-                        double t1 = a1Data[a1PixelOffset];
-                        double t2 = a2Data[a2PixelOffset] * (1.0 - t1);
-                        double t3 = t1 + t2;
-                        double t4, t5;
-                        if (t3 == 0.0) {
-                            t4 = 0.0;
-                            t5 = 0.0;
-                        } else {
-                            t4 = t1 / t3;
-                            t5 = t2 / t3;
-                        }
-
-                        /* Destination color channels. */
-                        for (int b = 0; b < dbands; b++) {
-                            dData[b][dPixelOffset+dBandOffsets[b]] =
-                                    s1Data[b][s1PixelOffset+s1BandOffsets[b]] * t4 +
-                                            s2Data[b][s2PixelOffset+s2BandOffsets[b]] * t5;
-                        }
-
-                        s1PixelOffset += s1PixelStride;
-                        s2PixelOffset += s2PixelStride;
-                        a1PixelOffset += a1PixelStride;
-                        a2PixelOffset += a2PixelStride;
-                        dPixelOffset += dPixelStride;
-                    }
+        for (int h = 0; h < dheight; h++) {
+            s1PixelOffset = s1LineOffset;
+            s2PixelOffset = s2LineOffset;
+            a1PixelOffset = a1LineOffset + a1BandOffset;
+            dPixelOffset = dLineOffset;
+
+            s1LineOffset += s1LineStride;
+            s2LineOffset += s2LineStride;
+            a1LineOffset += a1LineStride;
+            dLineOffset += dLineStride;
+
+            for (int w = 0; w < dwidth; w++) {
+                double t = 1.0 - a1Data[a1PixelOffset];
+
+                /* Destination color channels. */
+                for (int b = 0; b < dbands; b++) {
+                    dData[b][dPixelOffset+dBandOffsets[b]] =
+                            s1Data[b][s1PixelOffset+s1BandOffsets[b]] +
+                                    s2Data[b][s2PixelOffset+s2BandOffsets[b]] * t;
                 }
+
+                s1PixelOffset += s1PixelStride;
+                s2PixelOffset += s2PixelStride;
+                a1PixelOffset += a1PixelStride;
+                dPixelOffset += dPixelStride;
             }
         }
     }
@@ -0,0 +1,256 @@
+package eu.esa.opt.mosaic.internal;
+
+import com.bc.ceres.multilevel.MultiLevelImage;
+import com.bc.ceres.multilevel.MultiLevelModel;
+import com.bc.ceres.multilevel.support.AbstractMultiLevelSource;
+import com.bc.ceres.multilevel.support.DefaultMultiLevelModel;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.CrsGeoCoding;
+import org.esa.snap.core.datamodel.GeoCoding;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.image.ImageManager;
+import org.esa.snap.core.image.ResolutionLevel;
+import org.geotools.referencing.CRS;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.image.DataBuffer;
+import java.awt.image.RenderedImage;
+import java.util.logging.Logger;
+
+/**
+ * A single banded multi-level image source which composites the source bands directly into the mosaic tiles.
+ * <br>Unlike {@link S2MosaicMultiLevelSource}, the source bands do not have to be resampled and reprojected to the
+ * mosaic grid first: for every target tile, the sources covering the tile are found in a {@link MosaicFootprintIndex},
+ * only the needed part of each of them is read from the source level closest to the target resolution, warped to
+ * the target grid and composited into the tile buffer. The tiles not covered by any source are filled without
+ * reading anything.
+ * <br>The source bands must be geo-coded by a {@link CrsGeoCoding}, see {@link #canMosaic(Band)}.
+ *
+ * @since 14.0.0
+ */
+public final class DirectMosaicMultiLevelSource extends AbstractMultiLevelSource {
+
+    public static final String MOSAIC_TYPE_BLEND = "MOSAIC_TYPE_BLEND";
+    public static final String MOSAIC_TYPE_OVERLAY = "MOSAIC_TYPE_OVERLAY";
+
+    private static final Logger logger = Logger.getLogger(DirectMosaicMultiLevelSource.class.getName());
+
+    /**
+     * The number of points of every edge of a source which are transformed to compute its footprint.
+     */
+    private static final int FOOTPRINT_EDGE_POINTS = 16;
+
+    private final Band targetBand;
+    private final Dimension tileSize;
+    private final MosaicSource[] sources;
+    private final MosaicFootprintIndex footprintIndex;
+    private final DirectMosaicOpImage.Resampling resampling;
+    private final boolean lastSourceOnTop;
+
+    /**
+     * @param targetBand     the mosaic band, with its final geo-coding and size
+     * @param sourceBands    the source bands, in the order of the source products; <code>null</code> elements are
+     *                       ignored
+     * @param levels         the number of resolution levels of the mosaic
+     * @param tileSize       the tile size of the mosaic images
+     * @param resamplingName the resampling method, one of <code>Nearest</code>, <code>Bilinear</code> or
+     *                       <code>Bicubic</code>
+     * @param mosaicType     {@link #MOSAIC_TYPE_OVERLAY} to keep the first valid source pixel, or
+     *                       {@link #MOSAIC_TYPE_BLEND} to keep the last one, like the composite images used by
+     *                       {@link S2MosaicMultiLevelSource}
+     */
+    public DirectMosaicMultiLevelSource(Band targetBand, Band[] sourceBands, int levels, Dimension tileSize,
+                                        String resamplingName, String mosaicType) throws FactoryException {
+        super(new DefaultMultiLevelModel(levels,
+                Product.findImageToModelTransform(targetBand.getGeoCoding()),
+                targetBand.getRasterWidth(), targetBand.getRasterHeight()));
+        this.targetBand = targetBand;
+        this.tileSize = tileSize;
+        this.resampling = DirectMosaicOpImage.Resampling.fromName(resamplingName);
+        switch (mosaicType) {
+            case MOSAIC_TYPE_OVERLAY:
+                this.lastSourceOnTop = false;
+                break;
+            case MOSAIC_TYPE_BLEND:
+                this.lastSourceOnTop = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Mosaic type not accepted");
+        }
+
+        final CoordinateReferenceSystem targetCrs = Product.findModelCRS(targetBand.getGeoCoding());
+        final AffineTransform targetModelToImage = getModel().getModelToImageTransform(0);
+        final Rectangle targetBounds = new Rectangle(0, 0, targetBand.getRasterWidth(), targetBand.getRasterHeight());
+        this.sources = new MosaicSource[sourceBands.length];
+        final Rectangle[] footprints = new Rectangle[sourceBands.length];
+        for (int i = 0; i < sourceBands.length; i++) {
+            if (sourceBands[i] != null) {
+                this.sources[i] = new MosaicSource(sourceBands[i], targetCrs);
+                footprints[i] = this.sources[i].computeFootprint(targetModelToImage, targetBounds);
+            }
+        }
+        this.footprintIndex = new MosaicFootprintIndex(targetBounds, footprints, tileSize.width, tileSize.height);
+    }
+
+    /**
+     * Tells whether a band can be a source of this mosaic: its geo-coding must be an affine map geo-coding.
+     */
+    public static boolean canMosaic(Band band) {
+        return band != null && band.getGeoCoding() instanceof CrsGeoCoding;
+    }
+
+    @Override
+    protected RenderedImage createImage(int level) {
+        ResolutionLevel resolutionLevel = ResolutionLevel.create(getModel(), level);
+        return new DirectMosaicOpImage(ImageManager.getDataBufferType(this.targetBand.getDataType()),
+                this.targetBand.getRasterWidth(), this.targetBand.getRasterHeight(), this.tileSize, resolutionLevel,
+                getModel().getImageToModelTransform(level), this.sources, this.footprintIndex, this.resampling,
+                this.lastSourceOnTop, getBackgroundValue());
+    }
+
+    /**
+     * Returns the value of the pixels not covered by any source: NaN for the floating point bands, the no-data
+     * value otherwise.
+     */
+    private double getBackgroundValue() {
+        final int dataBufferType = ImageManager.getDataBufferType(this.targetBand.getDataType());
+        if (dataBufferType == DataBuffer.TYPE_FLOAT || dataBufferType == DataBuffer.TYPE_DOUBLE) {
+            return Double.NaN;
+        }
+        return this.targetBand.getNoDataValue();
+    }
+
+    /**
+     * A source band of the mosaic, with the transformations from the target model to its images.
+     */
+    static final class MosaicSource {
+
+        private final Band band;
+        private final MultiLevelImage image;
+        private final MathTransform targetToSource;
+        private final AffineTransform imageToMap;
+        private final boolean noDataValueUsed;
+        private final double noDataValue;
+        private double targetPixelsPerSourcePixel;
+
+        private MosaicSource(Band band, CoordinateReferenceSystem targetCrs) throws FactoryException {
+            this.band = band;
+            this.image = band.getSourceImage();
+            final GeoCoding geoCoding = band.getGeoCoding();
+            final CoordinateReferenceSystem sourceCrs = Product.findModelCRS(geoCoding);
+            this.targetToSource = CRS.findMathTransform(targetCrs, sourceCrs, true);
+            this.imageToMap = Product.findImageToModelTransform(geoCoding);
+            this.noDataValueUsed = band.isNoDataValueUsed();
+            this.noDataValue = band.getNoDataValue();
+            this.targetPixelsPerSourcePixel = 1.0;
+        }
+
+        Band getBand() {
+            return this.band;
+        }
+
+        boolean isNoDataValueUsed() {
+            return this.noDataValueUsed;
+        }
+
+        double getNoDataValue() {
+            return this.noDataValue;
+        }
+
+        MathTransform getTargetToSource() {
+            return this.targetToSource;
+        }
+
+        /**
+         * Returns the resolution level of the source image which best matches the given target level.
+         */
+        int getSourceLevel(int targetLevel) {
+            final MultiLevelModel model = this.image.getModel();
+            final double scale = Math.pow(2, targetLevel) / this.targetPixelsPerSourcePixel;
+            return Math.max(0, Math.min(model.getLevelCount() - 1, model.getLevel(scale)));
+        }
+
+        RenderedImage getImage(int sourceLevel) {
+            return this.image.getImage(sourceLevel);
+        }
+
+        /**
+         * Returns the transformation from the map coordinates of the source to the pixel coordinates of a level
+         * image of the source.
+         */
+        AffineTransform getMapToImageTransform(int sourceLevel) throws NoninvertibleTransformException {
+            final MultiLevelModel model = this.image.getModel();
+            final AffineTransform levelImageToMap = new AffineTransform(this.imageToMap);
+            levelImageToMap.concatenate(model.getModelToImageTransform(0));
+            levelImageToMap.concatenate(model.getImageToModelTransform(sourceLevel));
+            return levelImageToMap.createInverse();
+        }
+
+        /**
+         * Computes the bounds of the source in the pixel coordinates of the target level zero image, from points
+         * sampled along the edges of the source.
+         */
+        private Rectangle computeFootprint(AffineTransform targetModelToImage, Rectangle targetBounds) {
+            final int width = this.band.getRasterWidth();
+            final int height = this.band.getRasterHeight();
+            final int n = FOOTPRINT_EDGE_POINTS;
+            final double[] points = new double[2 * 4 * n];
+            for (int i = 0; i < n; i++) {
+                final double fraction = (double) i / n;
+                setPoint(points, i, fraction * width, 0);
+                setPoint(points, n + i, width, fraction * height);
+                setPoint(points, 2 * n + i, width - fraction * width, height);
+                setPoint(points, 3 * n + i, 0, height - fraction * height);
+            }
+            final double[] center = new double[]{0.5 * width, 0.5 * height, 0.5 * width + 1, 0.5 * height};
+            try {
+                final MathTransform sourceToTarget = this.targetToSource.inverse();
+                this.imageToMap.transform(points, 0, points, 0, 4 * n);
+                sourceToTarget.transform(points, 0, points, 0, 4 * n);
+                targetModelToImage.transform(points, 0, points, 0, 4 * n);
+                this.imageToMap.transform(center, 0, center, 0, 2);
+                sourceToTarget.transform(center, 0, center, 0, 2);
+                targetModelToImage.transform(center, 0, center, 0, 2);
+            } catch (TransformException e) {
+                logger.fine("Cannot compute the footprint of the band '" + this.band.getName() + "': " + e.getMessage());
+                return new Rectangle(targetBounds);
+            }
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < points.length; i += 2) {
+                if (Double.isFinite(points[i]) && Double.isFinite(points[i + 1])) {
+                    minX = Math.min(minX, points[i]);
+                    maxX = Math.max(maxX, points[i]);
+                    minY = Math.min(minY, points[i + 1]);
+                    maxY = Math.max(maxY, points[i + 1]);
+                }
+            }
+            final double pixelDistance = Math.hypot(center[2] - center[0], center[3] - center[1]);
+            if (Double.isFinite(pixelDistance) && pixelDistance > 0) {
+                this.targetPixelsPerSourcePixel = pixelDistance;
+            }
+            if (minX > maxX || minY > maxY) {
+                return new Rectangle(targetBounds);
+            }
+            // the edges of a reprojected source may bend between the sampled points, keep a margin of one pixel
+            final int x = (int) Math.floor(minX) - 1;
+            final int y = (int) Math.floor(minY) - 1;
+            final Rectangle footprint = new Rectangle(x, y, (int) Math.ceil(maxX) + 1 - x, (int) Math.ceil(maxY) + 1 - y);
+            return footprint.intersection(targetBounds);
+        }
+
+        private static void setPoint(double[] points, int index, double x, double y) {
+            points[2 * index] = x;
+            points[2 * index + 1] = y;
+        }
+    }
+}
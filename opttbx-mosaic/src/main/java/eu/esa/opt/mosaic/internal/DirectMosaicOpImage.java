@@ -0,0 +1,340 @@
+package eu.esa.opt.mosaic.internal;
+
+import org.esa.snap.core.image.ResolutionLevel;
+import org.esa.snap.core.image.SingleBandedOpImage;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+import javax.media.jai.PlanarImage;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * A level image of a {@link DirectMosaicMultiLevelSource}.
+ * <br>The source pixel positions are computed exactly on a coarse grid of target pixels and interpolated linearly
+ * in-between, like the JAI grid warps, which avoids transforming every target pixel through the coordinate
+ * reference systems.
+ *
+ * @since 14.0.0
+ */
+final class DirectMosaicOpImage extends SingleBandedOpImage {
+
+    /**
+     * The distance, in target pixels, between the points of the warp grid.
+     */
+    private static final int WARP_GRID_STEP = 16;
+
+    enum Resampling {
+        NEAREST, BILINEAR, BICUBIC;
+
+        static Resampling fromName(String name) {
+            if (name == null) {
+                return NEAREST;
+            }
+            switch (name) {
+                case "Nearest":
+                    return NEAREST;
+                case "Bilinear":
+                    return BILINEAR;
+                case "Bicubic":
+                    return BICUBIC;
+                default:
+                    throw new IllegalArgumentException("Resampling method not accepted: " + name);
+            }
+        }
+    }
+
+    private final int level;
+    private final AffineTransform targetImageToModel;
+    private final DirectMosaicMultiLevelSource.MosaicSource[] sources;
+    private final int[] sourceLevels;
+    private final AffineTransform[] sourceMapToImage;
+    private final MosaicFootprintIndex footprintIndex;
+    private final Resampling resampling;
+    private final boolean lastSourceOnTop;
+    private final double backgroundValue;
+    private final boolean integerData;
+
+    DirectMosaicOpImage(int dataBufferType, int sourceWidth, int sourceHeight, Dimension tileSize,
+                        ResolutionLevel level, AffineTransform targetImageToModel,
+                        DirectMosaicMultiLevelSource.MosaicSource[] sources, MosaicFootprintIndex footprintIndex,
+                        Resampling resampling, boolean lastSourceOnTop, double backgroundValue) {
+        super(dataBufferType, sourceWidth, sourceHeight, tileSize, null, level);
+        this.level = level.getIndex();
+        this.targetImageToModel = targetImageToModel;
+        this.sources = sources;
+        this.footprintIndex = footprintIndex;
+        this.resampling = resampling;
+        this.lastSourceOnTop = lastSourceOnTop;
+        this.backgroundValue = backgroundValue;
+        this.integerData = dataBufferType != DataBuffer.TYPE_FLOAT && dataBufferType != DataBuffer.TYPE_DOUBLE;
+        this.sourceLevels = new int[sources.length];
+        this.sourceMapToImage = new AffineTransform[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] != null) {
+                this.sourceLevels[i] = sources[i].getSourceLevel(this.level);
+                try {
+                    this.sourceMapToImage[i] = sources[i].getMapToImageTransform(this.sourceLevels[i]);
+                } catch (NoninvertibleTransformException e) {
+                    throw new IllegalArgumentException("The geo-coding of the band '" + sources[i].getBand().getName() + "' is not invertible.", e);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void computeRect(PlanarImage[] sourceImages, WritableRaster tile, Rectangle destRect) {
+        final double[] values = new double[destRect.width * destRect.height];
+        Arrays.fill(values, Double.NaN);
+
+        final int scale = 1 << this.level;
+        final Rectangle levelZeroRect = new Rectangle(destRect.x * scale, destRect.y * scale,
+                destRect.width * scale, destRect.height * scale);
+        final int[] candidates = this.footprintIndex.query(levelZeroRect);
+        int remaining = values.length;
+        for (int i = 0; i < candidates.length && remaining > 0; i++) {
+            final int sourceIndex = this.lastSourceOnTop ? candidates[candidates.length - 1 - i] : candidates[i];
+            remaining -= composite(sourceIndex, destRect, values);
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            if (Double.isNaN(values[i])) {
+                values[i] = this.backgroundValue;
+            } else if (this.integerData) {
+                values[i] = Math.rint(values[i]);
+            }
+        }
+        tile.setSamples(destRect.x, destRect.y, destRect.width, destRect.height, 0, values);
+    }
+
+    /**
+     * Fills the pixels of the tile which are not filled yet with the valid pixels of a source.
+     *
+     * @return the number of pixels filled
+     */
+    private int composite(int sourceIndex, Rectangle destRect, double[] values) {
+        final DirectMosaicMultiLevelSource.MosaicSource source = this.sources[sourceIndex];
+        final RenderedImage sourceImage = source.getImage(this.sourceLevels[sourceIndex]);
+        final Rectangle sourceBounds = new Rectangle(sourceImage.getMinX(), sourceImage.getMinY(),
+                sourceImage.getWidth(), sourceImage.getHeight());
+
+        final int[] gridX = gridOffsets(destRect.width);
+        final int[] gridY = gridOffsets(destRect.height);
+        final double[] grid = new double[2 * gridX.length * gridY.length];
+        for (int j = 0, k = 0; j < gridY.length; j++) {
+            for (int i = 0; i < gridX.length; i++) {
+                grid[k++] = destRect.x + gridX[i] + 0.5;
+                grid[k++] = destRect.y + gridY[j] + 0.5;
+            }
+        }
+        final int pointCount = gridX.length * gridY.length;
+        try {
+            this.targetImageToModel.transform(grid, 0, grid, 0, pointCount);
+            final MathTransform targetToSource = source.getTargetToSource();
+            if (!targetToSource.isIdentity()) {
+                targetToSource.transform(grid, 0, grid, 0, pointCount);
+            }
+            this.sourceMapToImage[sourceIndex].transform(grid, 0, grid, 0, pointCount);
+        } catch (TransformException e) {
+            return 0;
+        }
+
+        final Rectangle readRect = computeReadRect(grid, sourceBounds);
+        if (readRect == null) {
+            return 0;
+        }
+        final Raster raster = sourceImage.getData(readRect);
+        final double[] samples = raster.getSamples(readRect.x, readRect.y, readRect.width, readRect.height, 0, (double[]) null);
+        final SourceSamples sourceSamples = new SourceSamples(samples, readRect, source.isNoDataValueUsed(), source.getNoDataValue());
+
+        int filled = 0;
+        for (int y = 0; y < destRect.height; y++) {
+            final int cellY = cellIndex(gridY, y);
+            final double ty = interpolationWeight(gridY, cellY, y);
+            for (int x = 0; x < destRect.width; x++) {
+                final int index = y * destRect.width + x;
+                if (!Double.isNaN(values[index])) {
+                    continue;
+                }
+                final int cellX = cellIndex(gridX, x);
+                final double tx = interpolationWeight(gridX, cellX, x);
+                final int p00 = 2 * (cellY * gridX.length + cellX);
+                final int p01 = p00 + 2;
+                final int p10 = p00 + 2 * gridX.length;
+                final int p11 = p10 + 2;
+                final double sx = bilinear(grid[p00], grid[p01], grid[p10], grid[p11], tx, ty);
+                final double sy = bilinear(grid[p00 + 1], grid[p01 + 1], grid[p10 + 1], grid[p11 + 1], tx, ty);
+                final double value = sourceSamples.sample(sx, sy, this.resampling);
+                if (!Double.isNaN(value)) {
+                    values[index] = value;
+                    filled++;
+                }
+            }
+        }
+        return filled;
+    }
+
+    /**
+     * Returns the bounds of the source pixels needed to resample the tile, or <code>null</code> if the tile does
+     * not intersect the source.
+     */
+    private static Rectangle computeReadRect(double[] grid, Rectangle sourceBounds) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < grid.length; i += 2) {
+            if (Double.isFinite(grid[i]) && Double.isFinite(grid[i + 1])) {
+                minX = Math.min(minX, grid[i]);
+                maxX = Math.max(maxX, grid[i]);
+                minY = Math.min(minY, grid[i + 1]);
+                maxY = Math.max(maxY, grid[i + 1]);
+            }
+        }
+        if (minX > maxX || minY > maxY) {
+            return null;
+        }
+        // margin for the bicubic kernel and for the interpolation of the grid
+        final int x = (int) Math.floor(minX) - 2;
+        final int y = (int) Math.floor(minY) - 2;
+        final Rectangle readRect = new Rectangle(x, y, (int) Math.ceil(maxX) + 3 - x, (int) Math.ceil(maxY) + 3 - y);
+        final Rectangle intersection = readRect.intersection(sourceBounds);
+        return intersection.isEmpty() ? null : intersection;
+    }
+
+    private static int[] gridOffsets(int size) {
+        final int count = Math.max(2, (size + WARP_GRID_STEP - 2) / WARP_GRID_STEP + 1);
+        final int[] offsets = new int[count];
+        for (int i = 0; i < count - 1; i++) {
+            offsets[i] = i * WARP_GRID_STEP;
+        }
+        offsets[count - 1] = Math.max(size - 1, offsets[count - 2]);
+        return offsets;
+    }
+
+    private static int cellIndex(int[] offsets, int offset) {
+        return Math.min(offset / WARP_GRID_STEP, offsets.length - 2);
+    }
+
+    private static double interpolationWeight(int[] offsets, int cell, int offset) {
+        final int span = offsets[cell + 1] - offsets[cell];
+        return (span == 0) ? 0.0 : (double) (offset - offsets[cell]) / span;
+    }
+
+    private static double bilinear(double v00, double v01, double v10, double v11, double tx, double ty) {
+        final double top = v00 + (v01 - v00) * tx;
+        final double bottom = v10 + (v11 - v10) * tx;
+        return top + (bottom - top) * ty;
+    }
+
+    /**
+     * The samples of the part of a source level image needed by one tile.
+     */
+    static final class SourceSamples {
+
+        private final double[] samples;
+        private final int minX;
+        private final int minY;
+        private final int width;
+        private final int height;
+        private final boolean noDataValueUsed;
+        private final double noDataValue;
+
+        SourceSamples(double[] samples, Rectangle bounds, boolean noDataValueUsed, double noDataValue) {
+            this.samples = samples;
+            this.minX = bounds.x;
+            this.minY = bounds.y;
+            this.width = bounds.width;
+            this.height = bounds.height;
+            this.noDataValueUsed = noDataValueUsed;
+            this.noDataValue = noDataValue;
+        }
+
+        /**
+         * Returns the value of the source at the given pixel coordinates, or NaN if the position is outside of the
+         * samples or the sample is not valid. The interpolating methods fall back to the nearest sample next to
+         * invalid samples.
+         */
+        double sample(double x, double y, Resampling resampling) {
+            if (Double.isNaN(x) || Double.isNaN(y)) {
+                return Double.NaN;
+            }
+            final int column = (int) Math.floor(x) - this.minX;
+            final int row = (int) Math.floor(y) - this.minY;
+            if (column < 0 || row < 0 || column >= this.width || row >= this.height) {
+                return Double.NaN;
+            }
+            final double nearest = valid(this.samples[row * this.width + column]);
+            if (Double.isNaN(nearest) || resampling == Resampling.NEAREST) {
+                return nearest;
+            }
+            final double value = (resampling == Resampling.BILINEAR) ? interpolateBilinear(x, y) : interpolateBicubic(x, y);
+            return Double.isNaN(value) ? nearest : value;
+        }
+
+        private double interpolateBilinear(double x, double y) {
+            final double fx = x - 0.5 - this.minX;
+            final double fy = y - 0.5 - this.minY;
+            final int x0 = (int) Math.floor(fx);
+            final int y0 = (int) Math.floor(fy);
+            final double wx = fx - x0;
+            final double wy = fy - y0;
+            final double v00 = get(x0, y0);
+            final double v01 = get(x0 + 1, y0);
+            final double v10 = get(x0, y0 + 1);
+            final double v11 = get(x0 + 1, y0 + 1);
+            return bilinear(v00, v01, v10, v11, wx, wy);
+        }
+
+        private double interpolateBicubic(double x, double y) {
+            final double fx = x - 0.5 - this.minX;
+            final double fy = y - 0.5 - this.minY;
+            final int x0 = (int) Math.floor(fx);
+            final int y0 = (int) Math.floor(fy);
+            final double wx = fx - x0;
+            final double wy = fy - y0;
+            double result = 0.0;
+            for (int j = -1; j <= 2; j++) {
+                double row = 0.0;
+                for (int i = -1; i <= 2; i++) {
+                    row += get(x0 + i, y0 + j) * cubicWeight(i - wx);
+                }
+                result += row * cubicWeight(j - wy);
+            }
+            return result;
+        }
+
+        /**
+         * Returns a valid sample, the positions outside of the samples being clamped to the border, or NaN.
+         */
+        private double get(int column, int row) {
+            final int clampedColumn = Math.max(0, Math.min(this.width - 1, column));
+            final int clampedRow = Math.max(0, Math.min(this.height - 1, row));
+            return valid(this.samples[clampedRow * this.width + clampedColumn]);
+        }
+
+        private double valid(double value) {
+            return (this.noDataValueUsed && value == this.noDataValue) ? Double.NaN : value;
+        }
+
+        /**
+         * The cubic convolution kernel with a = -0.5.
+         */
+        private static double cubicWeight(double distance) {
+            final double d = Math.abs(distance);
+            if (d <= 1.0) {
+                return (1.5 * d - 2.5) * d * d + 1.0;
+            } else if (d < 2.0) {
+                return ((-0.5 * d + 2.5) * d - 4.0) * d + 2.0;
+            }
+            return 0.0;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package eu.esa.opt.mosaic.internal;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Spatial index of the footprints of the mosaic sources, in target pixel coordinates.
+ * <br>The target area is divided in a grid of cells, usually of the size of a target tile, and every cell keeps the
+ * indices of the sources whose footprint intersects it. A tile is then composited only from the sources returned
+ * by {@link #query(Rectangle)}, instead of from all the sources of the mosaic.
+ *
+ * @since 14.0.0
+ */
+final class MosaicFootprintIndex {
+
+    private static final int[] NO_SOURCES = new int[0];
+
+    private final Rectangle bounds;
+    private final Rectangle[] footprints;
+    private final int cellWidth;
+    private final int cellHeight;
+    private final int columnCount;
+    private final int rowCount;
+    private final int[][] cells;
+
+    /**
+     * @param bounds      the bounds of the target image
+     * @param footprints  the footprints of the sources, in the coordinates of the target image; <code>null</code>
+     *                    or empty for the sources which do not cover the target at all
+     * @param cellWidth   the width of the cells of the index
+     * @param cellHeight  the height of the cells of the index
+     */
+    MosaicFootprintIndex(Rectangle bounds, Rectangle[] footprints, int cellWidth, int cellHeight) {
+        if (cellWidth < 1 || cellHeight < 1) {
+            throw new IllegalArgumentException("The size of the cells must be positive.");
+        }
+        this.bounds = new Rectangle(bounds);
+        this.footprints = new Rectangle[footprints.length];
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.columnCount = Math.max(1, (bounds.width + cellWidth - 1) / cellWidth);
+        this.rowCount = Math.max(1, (bounds.height + cellHeight - 1) / cellHeight);
+
+        List<List<Integer>> cellSources = new ArrayList<>(this.columnCount * this.rowCount);
+        for (int i = 0; i < this.columnCount * this.rowCount; i++) {
+            cellSources.add(null);
+        }
+        for (int index = 0; index < footprints.length; index++) {
+            Rectangle footprint = (footprints[index] == null) ? null : footprints[index].intersection(this.bounds);
+            if (footprint == null || footprint.isEmpty()) {
+                continue;
+            }
+            this.footprints[index] = footprint;
+            int firstColumn = (footprint.x - this.bounds.x) / cellWidth;
+            int lastColumn = (footprint.x + footprint.width - 1 - this.bounds.x) / cellWidth;
+            int firstRow = (footprint.y - this.bounds.y) / cellHeight;
+            int lastRow = (footprint.y + footprint.height - 1 - this.bounds.y) / cellHeight;
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    int cellIndex = row * this.columnCount + column;
+                    List<Integer> sources = cellSources.get(cellIndex);
+                    if (sources == null) {
+                        sources = new ArrayList<>();
+                        cellSources.set(cellIndex, sources);
+                    }
+                    sources.add(index);
+                }
+            }
+        }
+        this.cells = new int[cellSources.size()][];
+        for (int i = 0; i < this.cells.length; i++) {
+            List<Integer> sources = cellSources.get(i);
+            this.cells[i] = (sources == null) ? NO_SOURCES : sources.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Returns the footprint of a source, clipped to the target bounds, or <code>null</code> if the source does not
+     * cover the target.
+     */
+    Rectangle getFootprint(int sourceIndex) {
+        return this.footprints[sourceIndex];
+    }
+
+    /**
+     * Returns, in ascending order, the indices of the sources whose footprint intersects the given region.
+     */
+    int[] query(Rectangle region) {
+        Rectangle clipped = region.intersection(this.bounds);
+        if (clipped.isEmpty()) {
+            return NO_SOURCES;
+        }
+        int firstColumn = (clipped.x - this.bounds.x) / this.cellWidth;
+        int lastColumn = (clipped.x + clipped.width - 1 - this.bounds.x) / this.cellWidth;
+        int firstRow = (clipped.y - this.bounds.y) / this.cellHeight;
+        int lastRow = (clipped.y + clipped.height - 1 - this.bounds.y) / this.cellHeight;
+        if (firstColumn == lastColumn && firstRow == lastRow) {
+            int[] sources = this.cells[firstRow * this.columnCount + firstColumn];
+            if (sources.length == 0 || allIntersect(sources, clipped)) {
+                return sources.clone();
+            }
+        }
+        BitSet found = new BitSet(this.footprints.length);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                for (int index : this.cells[row * this.columnCount + column]) {
+                    if (!found.get(index) && this.footprints[index].intersects(clipped)) {
+                        found.set(index);
+                    }
+                }
+            }
+        }
+        return found.stream().toArray();
+    }
+
+    private boolean allIntersect(int[] sources, Rectangle region) {
+        for (int index : sources) {
+            if (!this.footprints[index].intersects(region)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
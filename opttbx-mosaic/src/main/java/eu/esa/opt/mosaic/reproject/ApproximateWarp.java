@@ -0,0 +1,116 @@
+package eu.esa.opt.mosaic.reproject;
+
+import javax.media.jai.Warp;
+
+/**
+ * Computes the source positions of a warp on a coarse grid and interpolates them bilinearly in-between.
+ * <br>The exact positions are computed at the nodes of a grid and at the centers of its cells. A cell whose center
+ * differs from the interpolated position by more than the error budget, or which touches positions the warp cannot
+ * compute, is computed exactly; the other cells are interpolated. For the pixel geo-codings, where every exact
+ * position requires a geo-coding lookup, this divides the number of lookups by about the area of the cells.
+ *
+ * @since 14.0.0
+ */
+final class ApproximateWarp {
+
+    /**
+     * The distance, in target pixels, between the nodes of the grid.
+     */
+    static final int GRID_STEP = 16;
+
+    private ApproximateWarp() {
+    }
+
+    /**
+     * Computes the source positions of a destination rectangle.
+     *
+     * @param warp     the exact warp
+     * @param xmin     the x coordinate of the destination rectangle
+     * @param ymin     the y coordinate of the destination rectangle
+     * @param width    the width of the destination rectangle
+     * @param height   the height of the destination rectangle
+     * @param maxError the maximum distance, in source pixels, between an interpolated and an exact position
+     * @param destRect the array receiving the source positions, like {@link Warp#warpRect(int, int, int, int, float[])}
+     * @return the number of cells which have been computed exactly
+     */
+    static int warpRect(Warp warp, int xmin, int ymin, int width, int height, double maxError, float[] destRect) {
+        if (width < GRID_STEP || height < GRID_STEP) {
+            warp.warpRect(xmin, ymin, width, height, destRect);
+            return 1;
+        }
+        // nodes at xmin + i * GRID_STEP, the last ones may be outside of the rectangle
+        final int columns = (width + GRID_STEP - 1) / GRID_STEP + 1;
+        final int rows = (height + GRID_STEP - 1) / GRID_STEP + 1;
+        final float[] nodes = warp.warpSparseRect(xmin, ymin, (columns - 1) * GRID_STEP + 1, (rows - 1) * GRID_STEP + 1,
+                                                  GRID_STEP, GRID_STEP, null);
+        final int half = GRID_STEP / 2;
+        final float[] centers = warp.warpSparseRect(xmin + half, ymin + half, (columns - 2) * GRID_STEP + 1,
+                                                    (rows - 2) * GRID_STEP + 1, GRID_STEP, GRID_STEP, null);
+        final double maxErrorSquare = maxError * maxError;
+        float[] cellData = null;
+        int exactCells = 0;
+        for (int row = 0; row < rows - 1; row++) {
+            final int cellY = row * GRID_STEP;
+            final int cellHeight = Math.min(GRID_STEP, height - cellY);
+            for (int column = 0; column < columns - 1; column++) {
+                final int cellX = column * GRID_STEP;
+                final int cellWidth = Math.min(GRID_STEP, width - cellX);
+                final int n00 = 2 * (row * columns + column);
+                final int n01 = n00 + 2;
+                final int n10 = n00 + 2 * columns;
+                final int n11 = n10 + 2;
+                final int c = 2 * (row * (columns - 1) + column);
+                if (isInterpolable(nodes, centers, n00, n01, n10, n11, c, maxErrorSquare)) {
+                    interpolateCell(nodes, n00, n01, n10, n11, cellX, cellY, cellWidth, cellHeight, width, destRect);
+                } else {
+                    if (cellData == null) {
+                        cellData = new float[2 * GRID_STEP * GRID_STEP];
+                    }
+                    warp.warpRect(xmin + cellX, ymin + cellY, cellWidth, cellHeight, cellData);
+                    for (int y = 0; y < cellHeight; y++) {
+                        System.arraycopy(cellData, 2 * y * cellWidth, destRect, 2 * ((cellY + y) * width + cellX), 2 * cellWidth);
+                    }
+                    exactCells++;
+                }
+            }
+        }
+        return exactCells;
+    }
+
+    private static boolean isInterpolable(float[] nodes, float[] centers, int n00, int n01, int n10, int n11, int c,
+                                          double maxErrorSquare) {
+        final float[] values = {
+                nodes[n00], nodes[n00 + 1], nodes[n01], nodes[n01 + 1],
+                nodes[n10], nodes[n10 + 1], nodes[n11], nodes[n11 + 1],
+                centers[c], centers[c + 1]
+        };
+        for (float value : values) {
+            if (!Float.isFinite(value)) {
+                return false;
+            }
+        }
+        final double x = 0.25 * ((double) nodes[n00] + nodes[n01] + nodes[n10] + nodes[n11]);
+        final double y = 0.25 * ((double) nodes[n00 + 1] + nodes[n01 + 1] + nodes[n10 + 1] + nodes[n11 + 1]);
+        final double dx = x - centers[c];
+        final double dy = y - centers[c + 1];
+        return dx * dx + dy * dy <= maxErrorSquare;
+    }
+
+    private static void interpolateCell(float[] nodes, int n00, int n01, int n10, int n11,
+                                        int cellX, int cellY, int cellWidth, int cellHeight, int width, float[] destRect) {
+        final double scale = 1.0 / GRID_STEP;
+        for (int y = 0; y < cellHeight; y++) {
+            final double ty = y * scale;
+            final double leftX = nodes[n00] + (nodes[n10] - nodes[n00]) * ty;
+            final double leftY = nodes[n00 + 1] + (nodes[n10 + 1] - nodes[n00 + 1]) * ty;
+            final double rightX = nodes[n01] + (nodes[n11] - nodes[n01]) * ty;
+            final double rightY = nodes[n01 + 1] + (nodes[n11 + 1] - nodes[n01 + 1]) * ty;
+            int index = 2 * ((cellY + y) * width + cellX);
+            for (int x = 0; x < cellWidth; x++) {
+                final double tx = x * scale;
+                destRect[index++] = (float) (leftX + (rightX - leftX) * tx);
+                destRect[index++] = (float) (leftY + (rightY - leftY) * tx);
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package eu.esa.opt.mosaic.reproject;
 
+import org.esa.snap.core.datamodel.GeoCoding;
 import org.esa.snap.core.datamodel.ImageGeometry;
 import org.geotools.util.factory.Hints;
 import org.geotools.referencing.CRS;
@@ -62,14 +63,34 @@ final class Reproject {
     private static final double EPS = 1.0E-6;
 
     private OpImage[] leveledWarpImages;
+    private final double warpMaxError;
 
     Reproject(int numLevels) {
+        this(numLevels, 0.0);
+    }
+
+    /**
+     * @param numLevels    the number of levels of the target images
+     * @param warpMaxError the maximum error, in source pixels, of the approximated source coordinates of the warp,
+     *                     or <code>0</code> to compute all of them exactly
+     */
+    Reproject(int numLevels, double warpMaxError) {
         leveledWarpImages = new OpImage[numLevels];
+        this.warpMaxError = warpMaxError;
     }
 
-    private synchronized Warp getCachingWarp(Warp warp, int width, int height, Dimension tileSize, int level) {
+    private synchronized Warp getCachingWarp(Warp warp, int width, int height, Dimension tileSize, int level,
+                                             GeoCoding sourceGeoCoding, ImageGeometry sourceGeometry,
+                                             ImageGeometry targetGeometry) {
         if (leveledWarpImages[level] == null) {
-            leveledWarpImages[level] = new WarpSourceCoordinatesOpImage(warp, width, height, tileSize, null);
+            // only the approximated warps are shared, so the default exact reprojection keeps no process wide state
+            if (sourceGeoCoding == null || warpMaxError <= 0.0) {
+                leveledWarpImages[level] = new WarpSourceCoordinatesOpImage(warp, width, height, tileSize, warpMaxError, null);
+            } else {
+                leveledWarpImages[level] = WarpImageCache.get(sourceGeoCoding, sourceGeometry, targetGeometry, tileSize,
+                        level, warpMaxError,
+                        () -> new WarpSourceCoordinatesOpImage(warp, width, height, tileSize, warpMaxError, null));
+            }
         }
         return new WarpFromSourceCoordinates(leveledWarpImages[level]);
     }
@@ -87,6 +108,8 @@ final class Reproject {
      * @param hints           The rendering hints.
      * @param targetLevel     the image level the reproject will operate on
      * @param tileSize        the size of the tiles of the target image
+     * @param sourceGeoCoding the geo-coding of the source, used to share the warp with the other reprojections of
+     *                        the same geo-coding, or {@code null} to not share it
      *
      * @return The new grid coverage, or {@code sourceCoverage} if no resampling was needed.
      *
@@ -98,7 +121,8 @@ final class Reproject {
                                    ImageGeometry targetGeometry,
                                    double backgroundValue,
                                    final Interpolation interpolation,
-                                   final Hints hints, int targetLevel, Dimension tileSize) throws FactoryException,
+                                   final Hints hints, int targetLevel, Dimension tileSize,
+                                   GeoCoding sourceGeoCoding) throws FactoryException,
             TransformException {
 
         ////////////////////////////////////////////////////////////////////////////////////////
@@ -240,7 +264,8 @@ final class Reproject {
                 warp = WarpTransform2D.getWarp(null, allSteps2D);
             }
             Rectangle imageRect = targetGeometry.getImageRect();
-            warp = getCachingWarp(warp, imageRect.width, imageRect.height, tileSize, targetLevel);
+            warp = getCachingWarp(warp, imageRect.width, imageRect.height, tileSize, targetLevel,
+                    sourceGeoCoding, sourceGeometry, targetGeometry);
             paramBlk.add(warp).add(interpolation).add(background);
         }
         return JAI.getDefaultInstance().createNS(operation, paramBlk, targetHints);
@@ -197,6 +197,11 @@ public final class S2tbxReprojectionOp extends Operator {
     @Parameter(description = "The value used to indicate no-data.")
     private Double noDataValue;
 
+    @Parameter(description = "The maximum error, in source pixels, of the source positions interpolated between the " +
+            "positions computed exactly on a coarse grid. If 0, the source positions of all the pixels are computed exactly.",
+            defaultValue = "0", interval = "[0,1]")
+    private double warpMaxError;
+
     @Parameter(description = "Whether tie-point grids should be included in the output product.",
             defaultValue = "true")
     private boolean includeTiePointGrids;
@@ -374,7 +379,7 @@ public final class S2tbxReprojectionOp extends Operator {
         }
         Reproject reprojection = reprojectionSettings.getReprojection();
         if (reprojection == null) {
-            reprojection = new Reproject(targetModel.getLevelCount());
+            reprojection = new Reproject(targetModel.getLevelCount(), warpMaxError);
             reprojectionSettings.setReprojection(reprojection);
         }
         MultiLevelImage projectedImage = createProjectedImage(sourceGeoCoding, sourceImage, reprojectionSettings.getSourceModel(),
@@ -517,7 +522,7 @@ public final class S2tbxReprojectionOp extends Operator {
                 try {
                     return reprojection.reproject(leveledSourceImage, sourceGeometry, targetGeometry,
                             targetBand.getNoDataValue(), resampling, hints, targetLevel,
-                            tileSize);
+                            tileSize, sourceGeoCoding);
                 } catch (FactoryException | TransformException e) {
                     Debug.trace(e);
                     throw new RuntimeException(e);
@@ -819,7 +824,7 @@ public final class S2tbxReprojectionOp extends Operator {
             Band firstBand = sourceProduct.getBandGroup().get(0);
             MultiLevelModel sourceModel = firstBand.getMultiLevelModel();
             MultiLevelModel targetModel = targetProduct.createMultiLevelModel();
-            Reproject reprojection = new Reproject(targetModel.getLevelCount());
+            Reproject reprojection = new Reproject(targetModel.getLevelCount(), warpMaxError);
             defaultReprojectionSettings = new ReprojectionSettings(null, sourceModel, imageGeometry);
             defaultReprojectionSettings.setTargetModel(targetModel);
             defaultReprojectionSettings.setReprojection(reprojection);
@@ -0,0 +1,148 @@
+package eu.esa.opt.mosaic.reproject;
+
+import org.esa.snap.core.datamodel.GeoCoding;
+import org.esa.snap.core.datamodel.ImageGeometry;
+import org.geotools.referencing.CRS;
+
+import javax.media.jai.OpImage;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Process wide cache of the images holding the source coordinates of the reprojection warps.
+ * <br>The warp of a reprojection only depends on the source geo-coding, the source and target image geometries, the
+ * tile size and the approximation error, not on the band which is reprojected. The warp images are shared by all
+ * the reprojections with the same parameters, so that the bands of a product, the bands of the products sharing a
+ * geo-coding and the repeated reprojections of a product compute the source coordinates only once. The tiles of the
+ * warp images are kept in the tile cache like any other tile.
+ * <br>The cache is bounded: it keeps at most the {@link #MAX_ENTRIES} most recently used images, and evicts the least
+ * recently used ones as long as the images together cover more than {@link #MAX_PIXELS} pixels. The images of a
+ * disposed operator are therefore released once they have not been used for a while, without the operator having to
+ * remove them. Only the approximated warps are cached.
+ *
+ * @since 14.0.0
+ */
+final class WarpImageCache {
+
+    static final int MAX_ENTRIES = 16;
+    // each pixel holds two float source coordinates, so the images cover at most 1 GiB of coordinates
+    static final long MAX_PIXELS = 1L << 27;
+
+    // in access order, the least recently used image first
+    private static final Map<Key, OpImage> images = new LinkedHashMap<>(MAX_ENTRIES, 0.75f, true);
+    private static long pixelCount;
+
+    private WarpImageCache() {
+    }
+
+    /**
+     * Returns the cached warp image for the given reprojection, creating it if needed.
+     */
+    static OpImage get(GeoCoding sourceGeoCoding, ImageGeometry sourceGeometry, ImageGeometry targetGeometry,
+                       Dimension tileSize, int level, double maxError, Supplier<OpImage> factory) {
+        final Key key = new Key(sourceGeoCoding, sourceGeometry, targetGeometry, tileSize, level, maxError);
+        synchronized (images) {
+            OpImage image = images.get(key);
+            if (image == null) {
+                image = factory.get();
+                images.put(key, image);
+                pixelCount += getPixelCount(image);
+                evict();
+            }
+            return image;
+        }
+    }
+
+    static int size() {
+        synchronized (images) {
+            return images.size();
+        }
+    }
+
+    static long getPixelCount() {
+        synchronized (images) {
+            return pixelCount;
+        }
+    }
+
+    static void clear() {
+        synchronized (images) {
+            images.clear();
+            pixelCount = 0;
+        }
+    }
+
+    private static void evict() {
+        // the most recently used image is kept, even if it covers more than the maximum number of pixels on its own
+        final Iterator<OpImage> iterator = images.values().iterator();
+        while (images.size() > 1 && (images.size() > MAX_ENTRIES || pixelCount > MAX_PIXELS)) {
+            pixelCount -= getPixelCount(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    private static long getPixelCount(OpImage image) {
+        return (long) image.getWidth() * image.getHeight();
+    }
+
+    private static final class Key {
+
+        private final GeoCoding sourceGeoCoding;
+        private final Rectangle sourceRect;
+        private final AffineTransform sourceImageToMap;
+        private final ImageGeometry targetGeometry;
+        private final Rectangle targetRect;
+        private final AffineTransform targetImageToMap;
+        private final Dimension tileSize;
+        private final int level;
+        private final double maxError;
+
+        private Key(GeoCoding sourceGeoCoding, ImageGeometry sourceGeometry, ImageGeometry targetGeometry,
+                    Dimension tileSize, int level, double maxError) {
+            // the source geo-coding is compared by identity: the image CRS of the pixel geo-codings cannot be
+            // compared by value, and the source map CRS is a function of the geo-coding anyway
+            this.sourceGeoCoding = sourceGeoCoding;
+            this.sourceRect = new Rectangle(sourceGeometry.getImageRect());
+            this.sourceImageToMap = new AffineTransform(sourceGeometry.getImage2MapTransform());
+            this.targetGeometry = targetGeometry;
+            this.targetRect = new Rectangle(targetGeometry.getImageRect());
+            this.targetImageToMap = new AffineTransform(targetGeometry.getImage2MapTransform());
+            this.tileSize = new Dimension(tileSize);
+            this.level = level;
+            this.maxError = maxError;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return this.sourceGeoCoding == other.sourceGeoCoding
+                    && this.level == other.level
+                    && Double.compare(this.maxError, other.maxError) == 0
+                    && this.sourceRect.equals(other.sourceRect)
+                    && this.sourceImageToMap.equals(other.sourceImageToMap)
+                    && this.targetRect.equals(other.targetRect)
+                    && this.targetImageToMap.equals(other.targetImageToMap)
+                    && this.tileSize.equals(other.tileSize)
+                    && CRS.equalsIgnoreMetadata(this.targetGeometry.getMapCrs(), other.targetGeometry.getMapCrs());
+        }
+
+        @Override
+        public int hashCode() {
+            // the target CRS is not part of the hash code, its equality ignores the metadata
+            return Objects.hash(System.identityHashCode(this.sourceGeoCoding), this.sourceRect, this.sourceImageToMap,
+                                this.targetRect, this.targetImageToMap, this.tileSize, this.level, this.maxError);
+        }
+    }
+}
@@ -36,7 +36,9 @@ import java.awt.image.WritableRaster;
 import java.util.Map;
 
 /**
- * todo - add API doc
+ * An image holding, in two float bands, the source coordinates of a warp for every pixel of the target.
+ * <br>If an approximation error is given, the source coordinates are interpolated between the exact ones, see
+ * {@link ApproximateWarp}.
  *
  * @author Marco Zuehlke
  * @since BEAM 4.7
@@ -45,7 +47,9 @@ import java.util.Map;
 class WarpSourceCoordinatesOpImage extends SourcelessOpImage {
 
     private final Warp warp;
+    private final double maxError;
     private final RasterFormatTag rasterFormatTag;
+    private final ThreadLocal<float[]> warpDataBuffer = new ThreadLocal<>();
 
     private static ImageLayout createTwoBandedImageLayout(int width, int height, Dimension tileSize) {
         if (width < 0) {
@@ -72,21 +76,39 @@ class WarpSourceCoordinatesOpImage extends SourcelessOpImage {
 
 
     /**
-     * @param warp
-     * @param width
-     * @param height
-     * @param tileSize
-     * @param configuration
+     * @param warp          the warp of which the source coordinates are computed
+     * @param width         the width of the target image
+     * @param height        the height of the target image
+     * @param tileSize      the tile size of the target image
+     * @param configuration the configuration of the image, may be <code>null</code>
      */
     WarpSourceCoordinatesOpImage(Warp warp, int width, int height, Dimension tileSize,
                                  Map configuration) {
-        this(warp, createTwoBandedImageLayout(width, height, tileSize), configuration);
+        this(warp, width, height, tileSize, 0.0, configuration);
     }
 
-    private WarpSourceCoordinatesOpImage(Warp warp, ImageLayout layout, Map configuration) {
+    /**
+     * @param warp          the warp of which the source coordinates are computed
+     * @param width         the width of the target image
+     * @param height        the height of the target image
+     * @param tileSize      the tile size of the target image
+     * @param maxError      the maximum error, in source pixels, of the interpolated source coordinates, or
+     *                      <code>0</code> to compute all of them exactly
+     * @param configuration the configuration of the image, may be <code>null</code>
+     */
+    WarpSourceCoordinatesOpImage(Warp warp, int width, int height, Dimension tileSize, double maxError,
+                                 Map configuration) {
+        this(warp, maxError, createTwoBandedImageLayout(width, height, tileSize), configuration);
+    }
+
+    private WarpSourceCoordinatesOpImage(Warp warp, double maxError, ImageLayout layout, Map configuration) {
         super(layout, configuration, layout.getSampleModel(null), layout.getMinX(null), layout.getMinY(null),
                 layout.getWidth(null), layout.getHeight(null));
+        if (maxError < 0 || Double.isNaN(maxError)) {
+            throw new IllegalArgumentException("maxError");
+        }
         this.warp = warp;
+        this.maxError = maxError;
         int compatibleTag = RasterAccessor.findCompatibleTag(null, layout.getSampleModel(null));
         rasterFormatTag = new RasterFormatTag(layout.getSampleModel(null), compatibleTag);
         OperatorContext.setTileCache(this);
@@ -113,10 +135,14 @@ class WarpSourceCoordinatesOpImage extends SourcelessOpImage {
         int pixelStride = dst.getPixelStride();
         int[] bandOffsets = dst.getBandOffsets();
         float[][] data = dst.getFloatDataArrays();
-        float[] warpData = new float[2 * dstWidth * dstHeight];
+        float[] warpData = getWarpDataBuffer(2 * dstWidth * dstHeight);
         int lineOffset = 0;
 
-        warp.warpRect(dst.getX(), dst.getY(), dstWidth, dstHeight, warpData);
+        if (maxError > 0) {
+            ApproximateWarp.warpRect(warp, dst.getX(), dst.getY(), dstWidth, dstHeight, maxError, warpData);
+        } else {
+            warp.warpRect(dst.getX(), dst.getY(), dstWidth, dstHeight, warpData);
+        }
         int count = 0;
         for (int h = 0; h < dstHeight; h++) {
             int pixelOffset = lineOffset;
@@ -137,4 +163,16 @@ class WarpSourceCoordinatesOpImage extends SourcelessOpImage {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a buffer of at least the given length, reused by the tiles computed by the same thread.
+     */
+    private float[] getWarpDataBuffer(int length) {
+        float[] buffer = warpDataBuffer.get();
+        if (buffer == null || buffer.length < length) {
+            buffer = new float[length];
+            warpDataBuffer.set(buffer);
+        }
+        return buffer;
+    }
+}
@@ -301,6 +301,47 @@ public class S2tbxMosaicOpTest {
         assertSampleValuesFloat(b3Band, geoPositions, new float[]{2.0f, 2.0f, 7.0f, 7.0f, 7.0f, 0.0f, 2.0f});
 
     }
+    @Test
+    public void testDirectMosaickingTypeOverlay() throws IOException {
+        final Product product = createDirectMosaic("MOSAIC_TYPE_OVERLAY");
+        final GeoPos[] geoPositions = {
+                new GeoPos(-5, 5), new GeoPos(0, 0), new GeoPos(-18, 18), new GeoPos(15, -15)
+        };
+        assertSampleValuesFloat(product.getBand("b2"), geoPositions, new float[]{3.0f, 5.0f, 3.0f, Float.NaN});
+    }
+
+    @Test
+    public void testDirectMosaickingTypeBlend() throws IOException {
+        final Product product = createDirectMosaic("MOSAIC_TYPE_BLEND");
+        final GeoPos[] geoPositions = {
+                new GeoPos(-5, 5), new GeoPos(0, 0), new GeoPos(-18, 18), new GeoPos(15, -15)
+        };
+        assertSampleValuesFloat(product.getBand("b2"), geoPositions, new float[]{5.0f, 5.0f, 3.0f, Float.NaN});
+    }
+
+    private static Product createDirectMosaic(String overlappingMethod) {
+        final S2tbxMosaicOp op = new S2tbxMosaicOp();
+        op.setParameterDefaultValues();
+
+        op.setSourceProducts(product1, product2);
+        op.variables = new MosaicOp.Variable[]{
+                new MosaicOp.Variable("b2", "b2")
+        };
+
+        op.westBound = -20.0;
+        op.northBound = 20.0;
+        op.eastBound = 20.0;
+        op.southBound = -20.0;
+        op.pixelSizeX = 1.0;
+        op.pixelSizeY = 1.0;
+        op.nativeResolution = true;
+        op.overlappingMethod = overlappingMethod;
+        op.directMosaicking = true;
+
+        op.execute(ProgressMonitor.NULL);
+        return op.getTargetProduct();
+    }
+
     private void assertSampleValuesFloat(Band Band, GeoPos[] geoPositions, float[] expectedValues) {
         GeoCoding geoCoding = Band.getGeoCoding();
         final Raster b1Raster = Band.getSourceImage().getData();
@@ -0,0 +1,82 @@
+package eu.esa.opt.mosaic.internal;
+
+import org.junit.Test;
+
+import javax.media.jai.ImageLayout;
+import javax.media.jai.RasterFactory;
+import javax.media.jai.TiledImage;
+import javax.media.jai.operator.ConstantDescriptor;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+
+import static org.junit.Assert.assertEquals;
+
+public class CompositeNoDestAlphaOpImageTest {
+
+    private static final int WIDTH = 16;
+    private static final int HEIGHT = 4;
+
+    @Test
+    public void testFloatSourcesWithOpaqueAlpha() {
+        TiledImage foreground = createImage(DataBuffer.TYPE_FLOAT);
+        TiledImage background = createImage(DataBuffer.TYPE_FLOAT);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                foreground.setSample(x, y, 0, (x % 3 == 0) ? Float.NaN : x + 10.0f * y);
+                background.setSample(x, y, 0, (x % 4 == 0) ? Float.NaN : -x);
+            }
+        }
+        RenderedImage alpha = ConstantDescriptor.create((float) WIDTH, (float) HEIGHT, new Float[]{1.0f}, null);
+
+        Raster result = new CompositeNoDestAlphaOpImage(foreground, background, null, new ImageLayout(foreground),
+                                                        alpha, alpha, false).getData();
+
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                float expected;
+                if (x % 3 != 0) {
+                    expected = x + 10.0f * y;
+                } else if (x % 4 != 0) {
+                    expected = -x;
+                } else {
+                    expected = 0.0f;
+                }
+                assertEquals(expected, result.getSampleFloat(x, y, 0), 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void testByteSourcesWithAlphaRuns() {
+        TiledImage foreground = createImage(DataBuffer.TYPE_BYTE);
+        TiledImage background = createImage(DataBuffer.TYPE_BYTE);
+        TiledImage alpha = createImage(DataBuffer.TYPE_BYTE);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                foreground.setSample(x, y, 0, 200 - x);
+                background.setSample(x, y, 0, 10 * x + y);
+                // runs of opaque, transparent and translucent foreground
+                alpha.setSample(x, y, 0, (x < 5) ? 255 : (x < 10) ? 0 : 128);
+            }
+        }
+
+        Raster result = new CompositeNoDestAlphaOpImage(foreground, background, null, new ImageLayout(foreground),
+                                                        alpha, null, false).getData();
+
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                float weight = alpha.getSample(x, y, 0) * (1.0F / 0xFF);
+                int expected = (byte) ((200 - x) * weight + (10 * x + y) * (1.0F - weight)) & 0xFF;
+                assertEquals(expected, result.getSample(x, y, 0));
+            }
+        }
+        assertEquals(200, result.getSample(0, 0, 0));
+        assertEquals(50, result.getSample(5, 0, 0));
+    }
+
+    private static TiledImage createImage(int dataType) {
+        return new TiledImage(0, 0, WIDTH, HEIGHT, 0, 0,
+                              RasterFactory.createBandedSampleModel(dataType, WIDTH, HEIGHT, 1), null);
+    }
+}
@@ -0,0 +1,59 @@
+package eu.esa.opt.mosaic.internal;
+
+import org.junit.Test;
+
+import java.awt.Rectangle;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MosaicFootprintIndexTest {
+
+    @Test
+    public void testQueryReturnsIntersectingSourcesInOrder() {
+        Rectangle bounds = new Rectangle(0, 0, 1000, 800);
+        Rectangle[] footprints = {
+                new Rectangle(0, 0, 300, 300),
+                new Rectangle(250, 250, 500, 500),
+                null,
+                new Rectangle(-100, 700, 2000, 500),
+                new Rectangle(2000, 2000, 10, 10)
+        };
+        MosaicFootprintIndex index = new MosaicFootprintIndex(bounds, footprints, 256, 256);
+
+        assertArrayEquals(new int[]{0}, index.query(new Rectangle(0, 0, 200, 200)));
+        assertArrayEquals(new int[]{0, 1}, index.query(new Rectangle(256, 256, 256, 256)));
+        assertArrayEquals(new int[]{1}, index.query(new Rectangle(512, 256, 256, 256)));
+        assertArrayEquals(new int[]{1, 3}, index.query(new Rectangle(512, 512, 256, 256)));
+        assertArrayEquals(new int[]{}, index.query(new Rectangle(768, 0, 256, 256)));
+        assertArrayEquals(new int[]{}, index.query(new Rectangle(1024, 1024, 256, 256)));
+        assertArrayEquals(new int[]{0, 1, 3}, index.query(bounds));
+    }
+
+    @Test
+    public void testQueryChecksTheFootprintsInsideACell() {
+        Rectangle bounds = new Rectangle(0, 0, 512, 512);
+        Rectangle[] footprints = {
+                new Rectangle(0, 0, 10, 10),
+                new Rectangle(200, 200, 10, 10)
+        };
+        MosaicFootprintIndex index = new MosaicFootprintIndex(bounds, footprints, 512, 512);
+
+        assertArrayEquals(new int[]{0}, index.query(new Rectangle(0, 0, 64, 64)));
+        assertArrayEquals(new int[]{1}, index.query(new Rectangle(192, 192, 64, 64)));
+        assertArrayEquals(new int[]{0, 1}, index.query(new Rectangle(0, 0, 256, 256)));
+    }
+
+    @Test
+    public void testFootprintsAreClippedToTheBounds() {
+        Rectangle bounds = new Rectangle(0, 0, 100, 100);
+        MosaicFootprintIndex index = new MosaicFootprintIndex(bounds, new Rectangle[]{
+                new Rectangle(-50, 50, 100, 100),
+                new Rectangle(200, 200, 10, 10)
+        }, 32, 32);
+
+        assertEquals(new Rectangle(0, 50, 50, 50), index.getFootprint(0));
+        assertNull(index.getFootprint(1));
+    }
+}
@@ -0,0 +1,98 @@
+package eu.esa.opt.mosaic.reproject;
+
+import org.junit.Test;
+
+import javax.media.jai.Warp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ApproximateWarpTest {
+
+    @Test
+    public void testInterpolatedPositionsAreWithinTheErrorBudget() {
+        final CountingWarp warp = new CountingWarp(Double.POSITIVE_INFINITY);
+        final int width = 123;
+        final int height = 45;
+        final float[] exact = warp.warpRect(100, 37, width, height, null);
+        warp.count = 0;
+        final float[] approximated = new float[2 * width * height];
+        final int exactCells = ApproximateWarp.warpRect(warp, 100, 37, width, height, 0.05, approximated);
+
+        assertEquals(0, exactCells);
+        assertTrue(warp.count < width * height / 50);
+        for (int i = 0; i < exact.length; i++) {
+            assertEquals(exact[i], approximated[i], 0.05);
+        }
+    }
+
+    @Test
+    public void testCellsWithUndefinedPositionsAreComputedExactly() {
+        final CountingWarp warp = new CountingWarp(40);
+        final int width = 64;
+        final int height = 64;
+        final float[] exact = warp.warpRect(0, 0, width, height, null);
+        final float[] approximated = new float[2 * width * height];
+        final int exactCells = ApproximateWarp.warpRect(warp, 0, 0, width, height, 0.05, approximated);
+
+        // the cells of the columns [32, 48[ and [48, 64[ touch the undefined positions
+        assertEquals(8, exactCells);
+        for (int i = 0; i < exact.length; i++) {
+            if (Float.isNaN(exact[i])) {
+                assertTrue(Float.isNaN(approximated[i]));
+            } else {
+                assertEquals(exact[i], approximated[i], 0.05);
+            }
+        }
+    }
+
+    @Test
+    public void testSmallRectanglesAreComputedExactly() {
+        final CountingWarp warp = new CountingWarp(Double.POSITIVE_INFINITY);
+        final float[] exact = warp.warpRect(5, 5, 7, 30, null);
+        final float[] approximated = new float[2 * 7 * 30];
+        ApproximateWarp.warpRect(warp, 5, 5, 7, 30, 0.05, approximated);
+
+        for (int i = 0; i < exact.length; i++) {
+            assertEquals(exact[i], approximated[i], 0.0);
+        }
+    }
+
+    /**
+     * A non-linear warp which cannot compute the positions right of a given x coordinate.
+     */
+    private static final class CountingWarp extends Warp {
+
+        private final double undefinedFromX;
+        private int count;
+
+        private CountingWarp(double undefinedFromX) {
+            this.undefinedFromX = undefinedFromX;
+        }
+
+        @Override
+        public float[] warpSparseRect(int x, int y, int width, int height, int periodX, int periodY, float[] destRect) {
+            final int columns = (width + periodX - 1) / periodX;
+            final int rows = (height + periodY - 1) / periodY;
+            if (destRect == null) {
+                destRect = new float[2 * columns * rows];
+            }
+            int index = 0;
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    final double sourceX = x + column * periodX + 0.5;
+                    final double sourceY = y + row * periodY + 0.5;
+                    this.count++;
+                    if (sourceX < this.undefinedFromX) {
+                        destRect[index++] = (float) (0.7 * sourceX + 0.0004 * sourceX * sourceY + 3);
+                        destRect[index++] = (float) (1.1 * sourceY + 0.0002 * sourceX * sourceX - 5);
+                    } else {
+                        destRect[index++] = Float.NaN;
+                        destRect[index++] = Float.NaN;
+                    }
+                }
+            }
+            return destRect;
+        }
+    }
+}
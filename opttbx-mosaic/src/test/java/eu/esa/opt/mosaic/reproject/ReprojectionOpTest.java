@@ -128,6 +128,36 @@ public class ReprojectionOpTest extends AbstractReprojectionOpTest {
         assertPixelValue(targetProduct.getBand(FLOAT_BAND_NAME), 23.5f, 13.5f, (double) 299, EPS);
     }
 
+    @Test
+    public void testUTM_ApproximateWarp() throws IOException {
+        parameterMap.put("crs", UTM33N_CODE);
+        parameterMap.put("warpMaxError", 0.1);
+        final Product targetProduct = createReprojectedProduct();
+
+        assertNotNull(targetProduct);
+        assertPixelValue(targetProduct.getBand(FLOAT_BAND_NAME), 23.5f, 13.5f, (double) 299, EPS);
+    }
+
+    @Test
+    public void testOnlyApproximateWarpsAreShared() throws IOException {
+        WarpImageCache.clear();
+        parameterMap.put("crs", UTM33N_CODE);
+        Product targetProduct = createReprojectedProduct();
+        assertPixelValue(targetProduct.getBand(FLOAT_BAND_NAME), 23.5f, 13.5f, (double) 299, EPS);
+        assertEquals(0, WarpImageCache.size());
+        targetProduct.dispose();
+
+        parameterMap.put("warpMaxError", 0.1);
+        targetProduct = createReprojectedProduct();
+        assertPixelValue(targetProduct.getBand(FLOAT_BAND_NAME), 23.5f, 13.5f, (double) 299, EPS);
+        final int sharedCount = WarpImageCache.size();
+        assertTrue(sharedCount > 0);
+        targetProduct.dispose();
+        // the images are released by the eviction of the cache, not by the disposal of the operator
+        assertEquals(sharedCount, WarpImageCache.size());
+        WarpImageCache.clear();
+    }
+
     @Test
     public void testStartAndEndTime() throws Exception {
         parameterMap.put("crs", UTM33N_CODE);
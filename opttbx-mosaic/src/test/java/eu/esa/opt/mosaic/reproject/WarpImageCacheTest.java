@@ -0,0 +1,98 @@
+package eu.esa.opt.mosaic.reproject;
+
+import org.esa.snap.core.datamodel.CrsGeoCoding;
+import org.esa.snap.core.datamodel.GeoCoding;
+import org.esa.snap.core.datamodel.ImageGeometry;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.media.jai.OpImage;
+import javax.media.jai.WarpAffine;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class WarpImageCacheTest {
+
+    private static final Dimension TILE_SIZE = new Dimension(512, 512);
+
+    private GeoCoding geoCoding;
+    private ImageGeometry sourceGeometry;
+    private ImageGeometry targetGeometry;
+
+    @Before
+    public void setUp() throws Exception {
+        final Rectangle bounds = new Rectangle(0, 0, 100, 100);
+        final AffineTransform imageToMap = new AffineTransform(0.01, 0.0, 0.0, -0.01, 10.0, 50.0);
+        geoCoding = new CrsGeoCoding(DefaultGeographicCRS.WGS84, bounds, imageToMap);
+        sourceGeometry = new ImageGeometry(bounds, DefaultGeographicCRS.WGS84, imageToMap);
+        targetGeometry = new ImageGeometry(bounds, DefaultGeographicCRS.WGS84, imageToMap);
+        WarpImageCache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        WarpImageCache.clear();
+    }
+
+    @Test
+    public void testImagesAreShared() {
+        final OpImage image = get(0, 100, 100);
+        assertSame(image, get(0, 100, 100));
+        assertNotSame(image, get(1, 100, 100));
+        assertEquals(2, WarpImageCache.size());
+        assertEquals(2 * 100 * 100, WarpImageCache.getPixelCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedImagesAreEvicted() {
+        final OpImage first = get(0, 100, 100);
+        final OpImage second = get(1, 100, 100);
+        for (int level = 2; level < WarpImageCache.MAX_ENTRIES; level++) {
+            get(level, 100, 100);
+        }
+        assertEquals(WarpImageCache.MAX_ENTRIES, WarpImageCache.size());
+
+        // the first image is used again, so the second one is the least recently used
+        assertSame(first, get(0, 100, 100));
+        get(WarpImageCache.MAX_ENTRIES, 100, 100);
+        assertEquals(WarpImageCache.MAX_ENTRIES, WarpImageCache.size());
+        assertSame(first, get(0, 100, 100));
+        assertNotSame(second, get(1, 100, 100));
+    }
+
+    @Test
+    public void testImagesAreEvictedBySize() {
+        final int width = 8192;
+        final int height = (int) (WarpImageCache.MAX_PIXELS / width / 2);
+        final OpImage first = get(0, width, height);
+        final OpImage second = get(1, width, height);
+        assertEquals(2, WarpImageCache.size());
+        assertEquals(WarpImageCache.MAX_PIXELS, WarpImageCache.getPixelCount());
+
+        get(2, 100, 100);
+        assertEquals(2, WarpImageCache.size());
+        assertSame(second, get(1, width, height));
+        assertNotSame(first, get(0, width, height));
+
+        // an image larger than the maximum is kept until the next one is cached
+        final OpImage large = get(3, width, 2 * height + 1);
+        assertEquals(1, WarpImageCache.size());
+        assertSame(large, get(3, width, 2 * height + 1));
+        get(4, 100, 100);
+        assertEquals(1, WarpImageCache.size());
+        assertEquals(100 * 100, WarpImageCache.getPixelCount());
+    }
+
+    private OpImage get(int level, int width, int height) {
+        return WarpImageCache.get(geoCoding, sourceGeometry, targetGeometry, TILE_SIZE, level, 0.1,
+                                  () -> new WarpSourceCoordinatesOpImage(new WarpAffine(new AffineTransform()), width, height,
+                                                                         TILE_SIZE, 0.1, null));
+    }
+}
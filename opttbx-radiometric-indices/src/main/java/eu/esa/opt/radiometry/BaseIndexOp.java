@@ -180,8 +180,6 @@ public abstract class BaseIndexOp extends Operator {
             }
         }
 
-        initDefaultMasks();
-
         // SIITBX-494 (add source band as prefix)
         final String name = sourceProduct.getName() + "_" + getBandName();
 
@@ -196,6 +194,19 @@ public abstract class BaseIndexOp extends Operator {
         targetProduct.setSceneGeoCoding(targetGeocoding);*/
         ProductUtils.copyGeoCoding(sourceProduct, targetProduct);
 
+        addTargetBands(name, sceneWidth, sceneHeight);
+    }
+
+    /**
+     * Adds the index band, the flags band and the flag masks to the target product.
+     *
+     * @param name          the name of the index band
+     * @param sceneWidth    the width of the target bands
+     * @param sceneHeight   the height of the target bands
+     */
+    protected void addTargetBands(String name, int sceneWidth, int sceneHeight) {
+        initDefaultMasks();
+
         Band outputBand = new Band(name, ProductData.TYPE_FLOAT32, sceneWidth, sceneHeight);
         targetProduct.addBand(outputBand);
 
@@ -211,7 +222,6 @@ public abstract class BaseIndexOp extends Operator {
         for (MaskDescriptor maskDescriptor : getMaskDescriptors()) {
             targetProduct.addMask(maskDescriptor.name, maskDescriptor.expression, maskDescriptor.description, maskDescriptor.color, maskDescriptor.transparency);
         }
-
     }
 
     @Override
@@ -0,0 +1,652 @@
+package eu.esa.opt.radiometry;
+
+import com.bc.ceres.core.ProgressMonitor;
+import eu.esa.opt.radiometry.annotations.BandParameter;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.FlagCoding;
+import org.esa.snap.core.datamodel.MetadataAttribute;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.OperatorException;
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.core.gpf.annotations.OperatorMetadata;
+import org.esa.snap.core.gpf.annotations.Parameter;
+
+import java.awt.*;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * The <code>MultiIndexOp</code> computes a selection of radiometric indices in a single pass.
+ * <br>Every source band needed by the selected indices is read once per tile, and each index is computed by its own
+ * loop over the raw sample arrays. The formulas, the default constants, the band selection and the flags are the
+ * same as the ones of the single index operators; each index gets its own band and its own flags band.
+ *
+ * @since 14.0.0
+ */
+@OperatorMetadata(
+        alias = "MultiIndexOp",
+        version = "1.0",
+        category = "Optical/Thematic Land Processing",
+        description = "Computes several radiometric indices in a single pass over the source bands.",
+        copyright = "Copyright (C) 2026 by ESA")
+public class MultiIndexOp extends BaseIndexOp {
+
+    public static final String BAND_NAME = "indices";
+
+    protected static final String FLAGS_BAND_SUFFIX = "_" + FLAGS_BAND_NAME;
+
+    /**
+     * The spectral roles of the source bands.
+     */
+    enum Role {
+        RED, NIR, GREEN, BLUE, MIR, RED_B4, RED_B5, RED_B6
+    }
+
+    /**
+     * The supported indices. The band name, the thresholds and the default wavelength range of each source band are
+     * taken from the single index operator. The source bands are listed in the order used by the formulas.
+     */
+    enum Index {
+        ARVI(ArviOp::new, band(Role.RED, "redSourceBand"), band(Role.BLUE, "blueSourceBand"), band(Role.NIR, "nirSourceBand")),
+        BI2(Bi2Op::new, band(Role.RED, "redSourceBand"), band(Role.GREEN, "greenSourceBand"), band(Role.NIR, "nirSourceBand")),
+        BI(BiOp::new, band(Role.RED, "redSourceBand"), band(Role.GREEN, "greenSourceBand")),
+        CI(CiOp::new, band(Role.RED, "redSourceBand"), band(Role.GREEN, "greenSourceBand")),
+        DVI(DviOp::new, band(Role.RED, "redSourceBand"), band(Role.NIR, "nirSourceBand")),
+        GEMI(GemiOp::new, band(Role.RED, "redSourceBand"), band(Role.NIR, "nirSourceBand")),
+        GNDVI(GndviOp::new, band(Role.GREEN, "greenSourceBand"), band(Role.NIR, "nirSourceBand")),
+        IPVI(IpviOp::new, band(Role.RED, "redSourceBand"), band(Role.NIR, "nirSourceBand")),
+        IRECI(IreciOp::new, band(Role.RED_B4, "redSourceBand4"), band(Role.RED_B5, "redSourceBand5"), band(Role.RED_B6, "redSourceBand6"), band(Role.NIR, "nirSourceBand")),
+        MCARI(McariOp::new, band(Role.RED_B4, "red1SourceBand"), band(Role.RED_B5, "red2SourceBand"), band(Role.GREEN, "greenSourceBand")),
+        MNDWI(MndwiOp::new, band(Role.GREEN, "greenSourceBand"), band(Role.MIR, "mirSourceBand")),
+        MSAVI2(Msavi2Op::new, band(Role.RED, "redSourceBand"), band(Role.NIR, "nirSourceBand")),
+        MSAVI(MsaviOp::new, band(Role.RED, "redSourceBand"), band(Role.NIR, "nirSourceBand")),
+        MTCI(MtciOp::new, band(Role.RED_B4, "redSourceBand4"), band(Role.RED_B5, "redSourceBand5"), band(Role.NIR, "nirSourceBand")),
+        NDI45(Ndi45Op::new, band(Role.RED_B4, "redSourceBand4"), band(Role.RED_B5, "redSourceBand5")),
+        NDPI(NdpiOp::new, band(Role.GREEN, "greenSourceBand"), band(Role.MIR, "mirSourceBand")),
+        NDTI(NdtiOp::new, band(Role.RED, "redSourceBand"), band(Role.GREEN, "greenSourceBand")),
+        NDVI(NdviOp::new, band(Role.RED, "redSourceBand"), band(Role.NIR, "nirSourceBand")),
+        NDWI2(Ndwi2Op::new, band(Role.GREEN, "greenSourceBand"), band(Role.NIR, "nirSourceBand")),
+        NDWI(NdwiOp::new, band(Role.MIR, "mirSourceBand"), band(Role.NIR, "nirSourceBand")),
+        PSSRA(PssraOp::new, band(Role.RED, "redSourceBand"), band(Role.NIR, "nirSourceBand")),
+        PVI(PviOp::new, band(Role.RED, "redSourceBand"), band(Role.NIR, "nirSourceBand")),
+        REIP(ReipOp::new, band(Role.RED_B4, "redSourceBand4"), band(Role.RED_B5, "redSourceBand5"), band(Role.RED_B6, "redSourceBand6"), band(Role.NIR, "nirSourceBand")),
+        RI(RiOp::new, band(Role.RED, "redSourceBand"), band(Role.GREEN, "greenSourceBand")),
+        RVI(RviOp::new, band(Role.RED, "redSourceBand"), band(Role.NIR, "nirSourceBand")),
+        S2REP(S2repOp::new, band(Role.RED_B4, "redSourceBand4"), band(Role.RED_B5, "redSourceBand5"), band(Role.RED_B6, "redSourceBand6"), band(Role.NIR, "nirSourceBand")),
+        SAVI(SaviOp::new, band(Role.RED, "redSourceBand"), band(Role.NIR, "nirSourceBand")),
+        TNDVI(TndviOp::new, band(Role.RED, "redSourceBand"), band(Role.NIR, "nirSourceBand")),
+        TSAVI(TsaviOp::new, band(Role.RED, "redSourceBand"), band(Role.NIR, "nirSourceBand")),
+        WDVI(WdviOp::new, band(Role.RED, "redSourceBand"), band(Role.NIR, "nirSourceBand"));
+
+        final String alias;
+        final float lowValueThreshold;
+        final float highValueThreshold;
+        final SourceBand[] sourceBands;
+
+        Index(Supplier<BaseIndexOp> operatorFactory, BandField... bandFields) {
+            final BaseIndexOp operator = operatorFactory.get();
+            this.alias = operator.getBandName();
+            this.lowValueThreshold = operator.lowValueThreshold;
+            this.highValueThreshold = operator.highValueThreshold;
+            this.sourceBands = new SourceBand[bandFields.length];
+            for (int i = 0; i < bandFields.length; i++) {
+                this.sourceBands[i] = bandFields[i].resolve(operator.getClass());
+            }
+        }
+
+        static Index fromAlias(String alias) {
+            for (Index index : values()) {
+                if (index.alias.equalsIgnoreCase(alias)) {
+                    return index;
+                }
+            }
+            throw new OperatorException("Unknown index '" + alias + "'.");
+        }
+
+        private static BandField band(Role role, String fieldName) {
+            return new BandField(role, fieldName);
+        }
+    }
+
+    @Parameter(label = "Indices", defaultValue = "ndvi",
+            description = "The indices to compute.",
+            valueSet = {"arvi", "bi2", "bi", "ci", "dvi", "gemi", "gndvi", "ipvi", "ireci", "mcari", "mndwi", "msavi2",
+                    "msavi", "mtci", "ndi45", "ndpi", "ndti", "ndvi", "ndwi2", "ndwi", "pssra", "pvi", "reip", "ri",
+                    "rvi", "s2rep", "savi", "tndvi", "tsavi", "wdvi"})
+    private String[] indices;
+
+    @Parameter(label = "Red factor", defaultValue = "1.0F", description = "The value of the red source band is multiplied by this value.")
+    private float redFactor;
+
+    @Parameter(label = "NIR factor", defaultValue = "1.0F", description = "The value of the NIR source band is multiplied by this value.")
+    private float nirFactor;
+
+    @Parameter(label = "Green factor", defaultValue = "1.0F", description = "The value of the green source band is multiplied by this value.")
+    private float greenFactor;
+
+    @Parameter(label = "Blue factor", defaultValue = "1.0F", description = "The value of the blue source band is multiplied by this value.")
+    private float blueFactor;
+
+    @Parameter(label = "MIR factor", defaultValue = "1.0F", description = "The value of the MIR source band is multiplied by this value.")
+    private float mirFactor;
+
+    @Parameter(label = "Red (B4) factor", defaultValue = "1.0F", description = "The value of the red source band (B4) is multiplied by this value.")
+    private float redB4Factor;
+
+    @Parameter(label = "Red (B5) factor", defaultValue = "1.0F", description = "The value of the red source band (B5) is multiplied by this value.")
+    private float redB5Factor;
+
+    @Parameter(label = "Red (B6) factor", defaultValue = "1.0F", description = "The value of the red source band (B6) is multiplied by this value.")
+    private float redB6Factor;
+
+    @Parameter(label = "ARVI gamma parameter", defaultValue = "1.0F", description = "The gamma parameter is like a weighting function that depends on the aerosol type")
+    private float arviGamma;
+
+    @Parameter(label = "MSAVI soil line slope", defaultValue = "0.5F", description = "The soil line slope used by MSAVI.")
+    private float msaviSlope;
+
+    @Parameter(label = "PVI angle between soil line and NIR axis (in degrees)", defaultValue = "45.0", description = "Soil line has an arbitrary slope and passes through origin.")
+    private float pviAngle;
+
+    @Parameter(label = "SAVI soil brightness correction factor", defaultValue = "0.5F", description = "The amount or cover of green vegetation.")
+    private float saviSoilCorrectionFactor;
+
+    @Parameter(label = "TSAVI soil line slope", defaultValue = "0.5F", description = "The soil line slope used by TSAVI.")
+    private float tsaviSlope;
+
+    @Parameter(label = "TSAVI soil line intercept", defaultValue = "0.5F", description = "The soil line intercept used by TSAVI.")
+    private float tsaviIntercept;
+
+    @Parameter(label = "TSAVI adjustment", defaultValue = "0.08F", description = "Adjustment factor to minimize soil background.")
+    private float tsaviAdjustment;
+
+    @Parameter(label = "WDVI slope of the soil line", defaultValue = "1.5F", description = "Soil line has an arbitrary slope and passes through origin")
+    private float wdviSlope;
+
+    @Parameter(label = "Red source band",
+            description = "The red band used by all the indices. If not provided, each index uses its best fitting band.",
+            rasterDataNodeType = Band.class)
+    private String redSourceBand;
+
+    @Parameter(label = "NIR source band",
+            description = "The near-infrared band used by all the indices. If not provided, each index uses its best fitting band.",
+            rasterDataNodeType = Band.class)
+    private String nirSourceBand;
+
+    @Parameter(label = "Green source band",
+            description = "The green band used by all the indices. If not provided, each index uses its best fitting band.",
+            rasterDataNodeType = Band.class)
+    private String greenSourceBand;
+
+    @Parameter(label = "Blue source band",
+            description = "The blue band used by all the indices. If not provided, each index uses its best fitting band.",
+            rasterDataNodeType = Band.class)
+    private String blueSourceBand;
+
+    @Parameter(label = "MIR source band",
+            description = "The mid-infrared band used by all the indices. If not provided, each index uses its best fitting band.",
+            rasterDataNodeType = Band.class)
+    private String mirSourceBand;
+
+    @Parameter(label = "Red source band 4",
+            description = "The red band (B4) used by all the indices. If not provided, each index uses its best fitting band.",
+            rasterDataNodeType = Band.class)
+    private String redSourceBand4;
+
+    @Parameter(label = "Red source band 5",
+            description = "The red band (B5) used by all the indices. If not provided, each index uses its best fitting band.",
+            rasterDataNodeType = Band.class)
+    private String redSourceBand5;
+
+    @Parameter(label = "Red source band 6",
+            description = "The red band (B6) used by all the indices. If not provided, each index uses its best fitting band.",
+            rasterDataNodeType = Band.class)
+    private String redSourceBand6;
+
+    private Index[] selectedIndices;
+    // for each selected index, the names of its source bands in the order of Index.sourceBands
+    private String[][] indexSourceBands;
+
+    public MultiIndexOp() {
+        super();
+    }
+
+    @Override
+    public String getBandName() {
+        return BAND_NAME;
+    }
+
+    @Override
+    protected void loadSourceBands(Product product) throws OperatorException {
+        if (this.indices == null || this.indices.length == 0) {
+            throw new OperatorException("No index selected");
+        }
+        final Set<Index> selection = new LinkedHashSet<>();
+        for (String name : this.indices) {
+            selection.add(Index.fromAlias(name));
+        }
+        this.selectedIndices = selection.toArray(new Index[0]);
+        this.indexSourceBands = new String[this.selectedIndices.length][];
+        final Set<String> bands = new LinkedHashSet<>();
+        for (int i = 0; i < this.selectedIndices.length; i++) {
+            final SourceBand[] sourceBands = this.selectedIndices[i].sourceBands;
+            this.indexSourceBands[i] = new String[sourceBands.length];
+            for (int b = 0; b < sourceBands.length; b++) {
+                String bandName = getSourceBandParameter(sourceBands[b].role);
+                if (bandName == null) {
+                    bandName = findBand(sourceBands[b].minWavelength, sourceBands[b].maxWavelength, product);
+                    if (bandName == null) {
+                        throw new OperatorException(
+                                String.format("Unable to find band that could be used as %s band of %s. Please specify band.",
+                                        sourceBands[b].role, this.selectedIndices[i].alias));
+                    }
+                    getLogger().fine(String.format("Using band '%s' as %s band of %s",
+                            bandName, sourceBands[b].role, this.selectedIndices[i].alias));
+                }
+                this.indexSourceBands[i][b] = bandName;
+                bands.add(bandName);
+            }
+        }
+        this.sourceBandNames = bands.toArray(new String[0]);
+    }
+
+    @Override
+    protected void addTargetBands(String name, int sceneWidth, int sceneHeight) {
+        for (Index index : this.selectedIndices) {
+            Band outputBand = new Band(sourceProduct.getName() + "_" + index.alias, ProductData.TYPE_FLOAT32, sceneWidth, sceneHeight);
+            targetProduct.addBand(outputBand);
+
+            final String flagsBandName = index.alias + FLAGS_BAND_SUFFIX;
+            Band flagsOutputBand = new Band(flagsBandName, ProductData.TYPE_INT32, sceneWidth, sceneHeight);
+            flagsOutputBand.setDescription(outputBand.getName() + " specific flags");
+
+            FlagCoding flagCoding = new FlagCoding(flagsBandName);
+            flagCoding.setDescription("Index Flag Coding");
+            addFlagDescriptor(flagCoding, ARITHMETIC_FLAG_NAME, ARITHMETIC_FLAG_VALUE, "Value calculation failed due to an arithmetic exception");
+            addFlagDescriptor(flagCoding, LOW_FLAG_NAME, LOW_FLAG_VALUE, "Index value is too low");
+            addFlagDescriptor(flagCoding, HIGH_FLAG_NAME, HIGH_FLAG_VALUE, "Index value is too high");
+            flagsOutputBand.setSampleCoding(flagCoding);
+
+            targetProduct.getFlagCodingGroup().add(flagCoding);
+            targetProduct.addBand(flagsOutputBand);
+
+            final String maskPrefix = index.alias + "_";
+            targetProduct.addMask(maskPrefix + ARITHMETIC_FLAG_NAME, flagsBandName + "." + ARITHMETIC_FLAG_NAME,
+                    "An arithmetic exception occurred.", Color.red.brighter(), 0.7);
+            targetProduct.addMask(maskPrefix + LOW_FLAG_NAME, flagsBandName + "." + LOW_FLAG_NAME,
+                    "Index value is too low.", Color.red, 0.7);
+            targetProduct.addMask(maskPrefix + HIGH_FLAG_NAME, flagsBandName + "." + HIGH_FLAG_NAME,
+                    "Index value is too high.", Color.red.darker(), 0.7);
+        }
+    }
+
+    @Override
+    public void computeTileStack(Map<Band, Tile> targetTiles, Rectangle rectangle, ProgressMonitor pm) throws OperatorException {
+        pm.beginTask("Computing indices", this.selectedIndices.length);
+        try {
+            final int count = rectangle.width * rectangle.height;
+            // every source band is read once, whatever the number of indices using it
+            final Map<String, float[]> sourceSamples = new HashMap<>();
+            final Map<Role, Map<String, float[]>> scaledSamples = new EnumMap<>(Role.class);
+            final float[] values = new float[count];
+            final int[] flags = new int[count];
+            for (int i = 0; i < this.selectedIndices.length; i++) {
+                final Index index = this.selectedIndices[i];
+                final float[][] inputs = new float[index.sourceBands.length][];
+                for (int b = 0; b < inputs.length; b++) {
+                    final Role role = index.sourceBands[b].role;
+                    final String bandName = this.indexSourceBands[i][b];
+                    inputs[b] = scaledSamples.computeIfAbsent(role, r -> new HashMap<>()).computeIfAbsent(bandName, n -> {
+                        final float[] samples = sourceSamples.computeIfAbsent(n, k -> getSourceTile(getSourceProduct().getBand(k), rectangle).getSamplesFloat());
+                        return scale(samples, getFactor(role));
+                    });
+                }
+
+                computeIndex(i, inputs, values, count);
+                computeFlags(index, values, flags, count);
+
+                targetTiles.get(targetProduct.getBand(sourceProduct.getName() + "_" + index.alias)).setSamples(values);
+                targetTiles.get(targetProduct.getBand(index.alias + FLAGS_BAND_SUFFIX)).setSamples(flags);
+
+                checkForCancellation();
+                pm.worked(1);
+            }
+        } finally {
+            pm.done();
+        }
+    }
+
+    private void computeIndex(int indexPosition, float[][] inputs, float[] values, int count) {
+        switch (this.selectedIndices[indexPosition]) {
+            case ARVI: {
+                final float[] red = inputs[0], blue = inputs[1], nir = inputs[2];
+                for (int p = 0; p < count; p++) {
+                    final float rb = red[p] - arviGamma * (blue[p] - red[p]);
+                    values[p] = (nir[p] - rb) / (nir[p] + rb);
+                }
+                break;
+            }
+            case BI2: {
+                final float[] red = inputs[0], green = inputs[1], nir = inputs[2];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (float) Math.sqrt(((red[p] * red[p]) + (green[p] * green[p]) + (nir[p] * nir[p])) / 3.0f);
+                }
+                break;
+            }
+            case BI: {
+                final float[] red = inputs[0], green = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (float) Math.sqrt(((red[p] * red[p]) + (green[p] * green[p])) / 2.0f);
+                }
+                break;
+            }
+            case CI:
+            case NDTI: {
+                final float[] red = inputs[0], green = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (red[p] - green[p]) / (red[p] + green[p]);
+                }
+                break;
+            }
+            case DVI: {
+                final float[] red = inputs[0], nir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = nir[p] - red[p];
+                }
+                break;
+            }
+            case GEMI: {
+                final float[] red = inputs[0], nir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    final float eta = (2 * (nir[p] * nir[p] - red[p] * red[p]) + 1.5f * nir[p] + 0.5f * red[p]) / (nir[p] + red[p] + 0.5f);
+                    values[p] = eta * (1f - 0.25f * eta) - (red[p] - 0.125f) / (1 - red[p]);
+                }
+                break;
+            }
+            case GNDVI: {
+                final float[] green = inputs[0], nir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (nir[p] - green[p]) / (nir[p] + green[p]);
+                }
+                break;
+            }
+            case IPVI: {
+                final float[] red = inputs[0], nir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = nir[p] / (nir[p] + red[p]);
+                }
+                break;
+            }
+            case IRECI: {
+                final float[] redB4 = inputs[0], redB5 = inputs[1], redB6 = inputs[2], nir = inputs[3];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (nir[p] - redB4[p]) / (redB5[p] / redB6[p]);
+                }
+                break;
+            }
+            case MCARI: {
+                final float[] redB4 = inputs[0], redB5 = inputs[1], green = inputs[2];
+                for (int p = 0; p < count; p++) {
+                    values[p] = ((redB5[p] - redB4[p]) - 0.2f * (redB5[p] - green[p])) * (redB5[p] / redB4[p]);
+                }
+                break;
+            }
+            case MNDWI: {
+                final float[] green = inputs[0], mir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (green[p] - mir[p]) / (green[p] + mir[p]);
+                }
+                break;
+            }
+            case MSAVI2: {
+                final float[] red = inputs[0], nir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (float) ((1f / 2f) * (2 * nir[p] + 1 - Math.sqrt((2 * nir[p] + 1) * (2 * nir[p] + 1) - 8 * (nir[p] - red[p]))));
+                }
+                break;
+            }
+            case MSAVI: {
+                final float[] red = inputs[0], nir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    final float ndviIndexValue = (nir[p] - red[p]) / (nir[p] + red[p]);
+                    final float wdviIndexValue = nir[p] - (msaviSlope * red[p]);
+                    final float correctionFactor = 1 - (2 * msaviSlope * ndviIndexValue * wdviIndexValue);
+                    values[p] = (1 + correctionFactor) * (nir[p] - red[p]) / (nir[p] + red[p] + correctionFactor);
+                }
+                break;
+            }
+            case MTCI: {
+                final float[] redB4 = inputs[0], redB5 = inputs[1], nir = inputs[2];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (nir[p] - redB5[p]) / (redB5[p] - redB4[p]);
+                }
+                break;
+            }
+            case NDI45: {
+                final float[] redB4 = inputs[0], redB5 = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (redB5[p] - redB4[p]) / (redB5[p] + redB4[p]);
+                }
+                break;
+            }
+            case NDPI: {
+                final float[] green = inputs[0], mir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (mir[p] - green[p]) / (mir[p] + green[p]);
+                }
+                break;
+            }
+            case NDVI: {
+                final float[] red = inputs[0], nir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (nir[p] - red[p]) / (nir[p] + red[p]);
+                }
+                break;
+            }
+            case NDWI2: {
+                final float[] green = inputs[0], nir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (green[p] - nir[p]) / (green[p] + nir[p]);
+                }
+                break;
+            }
+            case NDWI: {
+                final float[] mir = inputs[0], nir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (nir[p] - mir[p]) / (nir[p] + mir[p]);
+                }
+                break;
+            }
+            case PSSRA:
+            case RVI: {
+                final float[] red = inputs[0], nir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = nir[p] / red[p];
+                }
+                break;
+            }
+            case PVI: {
+                final float[] red = inputs[0], nir = inputs[1];
+                final double radiansAngle = Math.toRadians(pviAngle);
+                final double sin = Math.sin(radiansAngle);
+                final double cos = Math.cos(radiansAngle);
+                for (int p = 0; p < count; p++) {
+                    values[p] = (float) ((sin * nir[p]) - (cos * red[p]));
+                }
+                break;
+            }
+            case REIP: {
+                final float[] redB4 = inputs[0], redB5 = inputs[1], redB6 = inputs[2], nir = inputs[3];
+                final String[] bandNames = this.indexSourceBands[indexPosition];
+                final float redB5SpectralWaveLength = getSourceProduct().getBand(bandNames[1]).getSpectralWavelength();
+                final float redB6B5SpectralWaveLengthDiff = getSourceProduct().getBand(bandNames[2]).getSpectralWavelength() - redB5SpectralWaveLength;
+                for (int p = 0; p < count; p++) {
+                    values[p] = redB5SpectralWaveLength + redB6B5SpectralWaveLengthDiff * ((((nir[p] + redB4[p]) / 2.0f) - redB5[p]) / (redB6[p] - redB5[p]));
+                }
+                break;
+            }
+            case RI: {
+                final float[] red = inputs[0], green = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (red[p] * red[p]) / (green[p] * green[p] * green[p]);
+                }
+                break;
+            }
+            case S2REP: {
+                final float[] redB4 = inputs[0], redB5 = inputs[1], redB6 = inputs[2], nir = inputs[3];
+                for (int p = 0; p < count; p++) {
+                    values[p] = 705.0f + 35.0f * ((((nir[p] + redB4[p]) / 2.0f) - redB5[p]) / (redB6[p] - redB5[p]));
+                }
+                break;
+            }
+            case SAVI: {
+                final float[] red = inputs[0], nir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (nir[p] - red[p]) / (nir[p] + red[p] + saviSoilCorrectionFactor) * (1 + saviSoilCorrectionFactor);
+                }
+                break;
+            }
+            case TNDVI: {
+                final float[] red = inputs[0], nir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = (float) Math.sqrt((nir[p] - red[p]) / (nir[p] + red[p]) + 0.5f);
+                }
+                break;
+            }
+            case TSAVI: {
+                final float[] red = inputs[0], nir = inputs[1];
+                final float constant1 = tsaviSlope * tsaviIntercept;
+                final float constant2 = tsaviAdjustment * (1 + tsaviSlope * tsaviSlope);
+                for (int p = 0; p < count; p++) {
+                    values[p] = tsaviSlope * (nir[p] - tsaviSlope * red[p] - tsaviIntercept) / (tsaviSlope * nir[p] + red[p] - constant1 + constant2);
+                }
+                break;
+            }
+            case WDVI: {
+                final float[] red = inputs[0], nir = inputs[1];
+                for (int p = 0; p < count; p++) {
+                    values[p] = nir[p] - (wdviSlope * red[p]);
+                }
+                break;
+            }
+            default:
+                throw new OperatorException("Unsupported index " + this.selectedIndices[indexPosition].alias);
+        }
+    }
+
+    private static void computeFlags(Index index, float[] values, int[] flags, int count) {
+        final float low = index.lowValueThreshold;
+        final float high = index.highValueThreshold;
+        for (int p = 0; p < count; p++) {
+            final float value = values[p];
+            if (Float.isNaN(value) || Float.isInfinite(value)) {
+                flags[p] = ARITHMETIC_FLAG_VALUE;
+                values[p] = 0.0f;
+            } else if (value < low) {
+                flags[p] = LOW_FLAG_VALUE;
+            } else if (value > high) {
+                flags[p] = HIGH_FLAG_VALUE;
+            } else {
+                flags[p] = 0;
+            }
+        }
+    }
+
+    private static float[] scale(float[] samples, float factor) {
+        if (factor == 1.0f) {
+            return samples;
+        }
+        final float[] scaled = new float[samples.length];
+        for (int p = 0; p < samples.length; p++) {
+            scaled[p] = factor * samples[p];
+        }
+        return scaled;
+    }
+
+    private static void addFlagDescriptor(FlagCoding flagCoding, String name, int value, String description) {
+        MetadataAttribute attribute = new MetadataAttribute(name, ProductData.TYPE_INT32);
+        attribute.getData().setElemInt(value);
+        attribute.setDescription(description);
+        flagCoding.addAttribute(attribute);
+    }
+
+    private String getSourceBandParameter(Role role) {
+        switch (role) {
+            case RED: return redSourceBand;
+            case NIR: return nirSourceBand;
+            case GREEN: return greenSourceBand;
+            case BLUE: return blueSourceBand;
+            case MIR: return mirSourceBand;
+            case RED_B4: return redSourceBand4;
+            case RED_B5: return redSourceBand5;
+            default: return redSourceBand6;
+        }
+    }
+
+    private float getFactor(Role role) {
+        switch (role) {
+            case RED: return redFactor;
+            case NIR: return nirFactor;
+            case GREEN: return greenFactor;
+            case BLUE: return blueFactor;
+            case MIR: return mirFactor;
+            case RED_B4: return redB4Factor;
+            case RED_B5: return redB5Factor;
+            default: return redB6Factor;
+        }
+    }
+
+    static final class SourceBand {
+
+        final Role role;
+        final float minWavelength;
+        final float maxWavelength;
+
+        SourceBand(Role role, float minWavelength, float maxWavelength) {
+            this.role = role;
+            this.minWavelength = minWavelength;
+            this.maxWavelength = maxWavelength;
+        }
+    }
+
+    /**
+     * A source band parameter of a single index operator, used in the given role.
+     */
+    private static final class BandField {
+
+        private final Role role;
+        private final String fieldName;
+
+        private BandField(Role role, String fieldName) {
+            this.role = role;
+            this.fieldName = fieldName;
+        }
+
+        private SourceBand resolve(Class<?> operatorClass) {
+            final BandParameter bandParameter;
+            try {
+                bandParameter = operatorClass.getDeclaredField(this.fieldName).getAnnotation(BandParameter.class);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalStateException("No band parameter '" + this.fieldName + "' in " + operatorClass.getSimpleName(), e);
+            }
+            if (bandParameter == null) {
+                throw new IllegalStateException("No band parameter '" + this.fieldName + "' in " + operatorClass.getSimpleName());
+            }
+            return new SourceBand(this.role, bandParameter.minWavelength(), bandParameter.maxWavelength());
+        }
+    }
+
+    public static class Spi extends OperatorSpi {
+
+        public Spi() {
+            super(MultiIndexOp.class);
+        }
+
+    }
+}
@@ -0,0 +1,148 @@
+package eu.esa.opt.radiometry;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.Raster;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class MultiIndexOpTest {
+
+    private static final int WIDTH = 4;
+    private static final int HEIGHT = 3;
+
+    private Product sourceProduct;
+
+    @Before
+    public void setUp() {
+        sourceProduct = new Product("IndexTest", "IndexTestType", WIDTH, HEIGHT);
+        float[] wavelengths = {480, 560, 640, 665, 705, 740, 783, 842, 900, 4000};
+        for (int i = 0; i < wavelengths.length; i++) {
+            Band band = new Band("B" + i, ProductData.TYPE_FLOAT32, WIDTH, HEIGHT);
+            band.setSpectralWavelength(wavelengths[i]);
+            band.setSpectralBandIndex(i);
+            float[] values = new float[WIDTH * HEIGHT];
+            for (int p = 0; p < values.length; p++) {
+                values[p] = 0.02f + 0.03f * ((p * (i + 3)) % 13) + 0.01f * i;
+            }
+            band.setRasterData(ProductData.createInstance(values));
+            sourceProduct.addBand(band);
+        }
+    }
+
+    @Test
+    public void testSameResultsAsSingleOperators() {
+        Map<String, BaseIndexOp> singleOperators = new LinkedHashMap<>();
+        singleOperators.put("arvi", new ArviOp());
+        singleOperators.put("bi2", new Bi2Op());
+        singleOperators.put("bi", new BiOp());
+        singleOperators.put("ci", new CiOp());
+        singleOperators.put("dvi", new DviOp());
+        singleOperators.put("gemi", new GemiOp());
+        singleOperators.put("gndvi", new GndviOp());
+        singleOperators.put("ipvi", new IpviOp());
+        singleOperators.put("ireci", new IreciOp());
+        singleOperators.put("mcari", new McariOp());
+        singleOperators.put("mndwi", new MndwiOp());
+        singleOperators.put("msavi2", new Msavi2Op());
+        singleOperators.put("msavi", new MsaviOp());
+        singleOperators.put("mtci", new MtciOp());
+        singleOperators.put("ndi45", new Ndi45Op());
+        singleOperators.put("ndpi", new NdpiOp());
+        singleOperators.put("ndti", new NdtiOp());
+        singleOperators.put("ndvi", new NdviOp());
+        singleOperators.put("ndwi2", new Ndwi2Op());
+        singleOperators.put("ndwi", new NdwiOp());
+        singleOperators.put("pssra", new PssraOp());
+        singleOperators.put("pvi", new PviOp());
+        singleOperators.put("reip", new ReipOp());
+        singleOperators.put("ri", new RiOp());
+        singleOperators.put("rvi", new RviOp());
+        singleOperators.put("s2rep", new S2repOp());
+        singleOperators.put("savi", new SaviOp());
+        singleOperators.put("tndvi", new TndviOp());
+        singleOperators.put("tsavi", new TsaviOp());
+        singleOperators.put("wdvi", new WdviOp());
+
+        MultiIndexOp multiIndexOp = new MultiIndexOp();
+        multiIndexOp.setSourceProduct(sourceProduct);
+        multiIndexOp.setParameter("indices", singleOperators.keySet().toArray(new String[0]));
+        Product multiProduct = multiIndexOp.getTargetProduct();
+        assertEquals(2 * singleOperators.size(), multiProduct.getNumBands());
+
+        for (Map.Entry<String, BaseIndexOp> entry : singleOperators.entrySet()) {
+            BaseIndexOp operator = entry.getValue();
+            operator.setSourceProduct(sourceProduct);
+            Product singleProduct = operator.getTargetProduct();
+
+            Band multiBand = multiProduct.getBand("IndexTest_" + entry.getKey());
+            Band multiFlags = multiProduct.getBand(entry.getKey() + "_flags");
+            assertNotNull(multiBand);
+            assertNotNull(multiFlags);
+            assertNotNull(multiProduct.getMaskGroup().get(entry.getKey() + "_ARITHMETIC"));
+
+            Raster expected = singleProduct.getBandAt(0).getSourceImage().getData();
+            Raster actual = multiBand.getSourceImage().getData();
+            Raster expectedFlags = singleProduct.getBand("flags").getSourceImage().getData();
+            Raster actualFlags = multiFlags.getSourceImage().getData();
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    assertEquals(entry.getKey(), expected.getSampleFloat(x, y, 0), actual.getSampleFloat(x, y, 0), 1.0e-6f);
+                    assertEquals(entry.getKey(), expectedFlags.getSample(x, y, 0), actualFlags.getSample(x, y, 0));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFactorsAndExplicitBands() {
+        MultiIndexOp multiIndexOp = new MultiIndexOp();
+        multiIndexOp.setSourceProduct(sourceProduct);
+        multiIndexOp.setParameter("indices", new String[]{"ndvi", "dvi"});
+        multiIndexOp.setParameter("redSourceBand", "B2");
+        multiIndexOp.setParameter("nirSourceBand", "B7");
+        multiIndexOp.setParameter("redFactor", 1.0f);
+        multiIndexOp.setParameter("nirFactor", 2.0f);
+        Product multiProduct = multiIndexOp.getTargetProduct();
+
+        Raster red = sourceProduct.getBand("B2").getSourceImage().getData();
+        Raster nir = sourceProduct.getBand("B7").getSourceImage().getData();
+        Raster ndvi = multiProduct.getBand("IndexTest_ndvi").getSourceImage().getData();
+        Raster dvi = multiProduct.getBand("IndexTest_dvi").getSourceImage().getData();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                float r = red.getSampleFloat(x, y, 0);
+                float n = 2.0f * nir.getSampleFloat(x, y, 0);
+                assertEquals((n - r) / (n + r), ndvi.getSampleFloat(x, y, 0), 1.0e-6f);
+                assertEquals(n - r, dvi.getSampleFloat(x, y, 0), 1.0e-6f);
+            }
+        }
+    }
+
+    @Test
+    public void testIndicesUseTheDefinitionsOfTheSingleOperators() {
+        assertEquals(NdviOp.NDVI_BAND_NAME, MultiIndexOp.Index.NDVI.alias);
+        assertEquals(-1f, MultiIndexOp.Index.NDVI.lowValueThreshold, 0.0f);
+        assertEquals(1f, MultiIndexOp.Index.NDVI.highValueThreshold, 0.0f);
+        assertEquals(600f, MultiIndexOp.Index.NDVI.sourceBands[0].minWavelength, 0.0f);
+        assertEquals(665f, MultiIndexOp.Index.NDVI.sourceBands[0].maxWavelength, 0.0f);
+
+        assertEquals(ReipOp.BAND_NAME, MultiIndexOp.Index.REIP.alias);
+        assertEquals(700f, MultiIndexOp.Index.REIP.lowValueThreshold, 0.0f);
+        assertEquals(760f, MultiIndexOp.Index.REIP.highValueThreshold, 0.0f);
+        assertEquals(MultiIndexOp.Role.NIR, MultiIndexOp.Index.REIP.sourceBands[3].role);
+        assertEquals(773f, MultiIndexOp.Index.REIP.sourceBands[3].minWavelength, 0.0f);
+        assertEquals(793f, MultiIndexOp.Index.REIP.sourceBands[3].maxWavelength, 0.0f);
+
+        // GemiOp keeps the default thresholds of BaseIndexOp
+        assertEquals(0f, MultiIndexOp.Index.GEMI.lowValueThreshold, 0.0f);
+        assertEquals(1f, MultiIndexOp.Index.GEMI.highValueThreshold, 0.0f);
+    }
+}
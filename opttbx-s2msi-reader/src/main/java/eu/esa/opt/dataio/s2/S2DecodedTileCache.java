@@ -0,0 +1,375 @@
+package eu.esa.opt.dataio.s2;
+
+import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.runtime.Config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Bounded cache of the product folders receiving the JPEG2000 tiles decoded by the Sentinel-2 readers.
+ * <br>The decoded tiles of a product are kept in its folder between the sessions, so re-opening the product reuses
+ * them instead of decoding the granules again. The product folders are evicted in least recently opened order
+ * when their total size exceeds the maximum size of the cache, the folders opened by a running process being kept.
+ * <br>A folder opened by a process which stopped without closing its product may hold partially decoded tiles:
+ * it is emptied before being reused.
+ * <br>The size of a product folder is stored in a marker file of the folder when the folder is released, so the
+ * eviction only lists the product folders and reads their markers: the decoded tiles are walked only for the folders
+ * opened by this process, whose size changes while they are used, and for the folders without a marker.
+ * <br>The cache has its own root folder, so the folders that other readers keep in the SNAP cache folder are never
+ * listed nor evicted.
+ *
+ * @since 14.0.0
+ */
+public final class S2DecodedTileCache {
+
+    private static final Logger logger = Logger.getLogger(S2DecodedTileCache.class.getName());
+
+    static final String MAXIMUM_SIZE_PREFERENCE = "opttbx.dataio.s2msi.decodedTileCacheSize";
+    private static final long DEFAULT_MAXIMUM_SIZE_MB = 10240;
+    private static final String ROOT_FOLDER_NAME = "s2-decoded-tiles";
+
+    private static final String IN_USE_MARKER_PREFIX = ".in-use-";
+    private static final String LAST_ACCESS_MARKER = ".last-access";
+    private static final String SIZE_MARKER = ".size";
+    // the product folders are the third level below the root: reader, module version, product path checksum
+    private static final int PRODUCT_FOLDER_DEPTH = 3;
+
+    private static S2DecodedTileCache instance;
+
+    private final Path rootFolder;
+    private final long maximumSize;
+    private final String inUseMarker;
+    private final Map<Path, Integer> openedFolders;
+
+    private long hitCount;
+    private long missCount;
+    private long discardedCount;
+    private long evictionCount;
+    private long evictedSize;
+
+    /**
+     * @param rootFolder  the folder containing the product folders
+     * @param maximumSize the maximum total size, in bytes, of the product folders; 0 for no limit
+     */
+    S2DecodedTileCache(Path rootFolder, long maximumSize) {
+        this.rootFolder = rootFolder.toAbsolutePath().normalize();
+        this.maximumSize = maximumSize;
+        this.inUseMarker = IN_USE_MARKER_PREFIX + ProcessHandle.current().pid();
+        this.openedFolders = new HashMap<>();
+    }
+
+    /**
+     * Returns the cache of the <code>s2tbx/s2-decoded-tiles</code> folder of the SNAP cache folder, whose maximum size in megabytes is given by the
+     * <code>opttbx.dataio.s2msi.decodedTileCacheSize</code> preference.
+     */
+    public static synchronized S2DecodedTileCache getInstance() {
+        if (instance == null) {
+            long maximumSizeMB = Config.instance("opttbx").load().preferences().getLong(MAXIMUM_SIZE_PREFERENCE, DEFAULT_MAXIMUM_SIZE_MB);
+            instance = new S2DecodedTileCache(SystemUtils.getCacheDir().toPath().resolve("s2tbx").resolve(ROOT_FOLDER_NAME), Math.max(0, maximumSizeMB) * 1024 * 1024);
+        }
+        return instance;
+    }
+
+    public Path getRootFolder() {
+        return this.rootFolder;
+    }
+
+    /**
+     * Opens a product folder of the cache, created if needed, and evicts the least recently opened folders
+     * exceeding the maximum size of the cache. The folder is kept until it is released.
+     *
+     * @param productFolder the product folder, below the root folder of the cache
+     * @throws IllegalArgumentException if the folder is not a product folder of the cache
+     */
+    public synchronized void open(Path productFolder) throws IOException {
+        Path folder = productFolder.toAbsolutePath().normalize();
+        if (!folder.startsWith(this.rootFolder) || this.rootFolder.relativize(folder).getNameCount() != PRODUCT_FOLDER_DEPTH) {
+            throw new IllegalArgumentException("The folder " + folder + " is not a product folder of the cache " + this.rootFolder);
+        }
+        int openCount = this.openedFolders.getOrDefault(folder, 0);
+        if (openCount == 0) {
+            Files.createDirectories(folder);
+            if (hasMarkersOfStoppedProcesses(folder)) {
+                logger.log(Level.FINE, "Discard the decoded tiles left by a stopped process in " + folder);
+                deleteContent(folder);
+                this.discardedCount++;
+            }
+            if (hasDecodedTiles(folder)) {
+                this.hitCount++;
+            } else {
+                this.missCount++;
+            }
+            Files.write(folder.resolve(this.inUseMarker), new byte[0]);
+            Path lastAccessMarker = folder.resolve(LAST_ACCESS_MARKER);
+            if (!Files.exists(lastAccessMarker)) {
+                Files.createFile(lastAccessMarker);
+            }
+            Files.setLastModifiedTime(lastAccessMarker, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+        this.openedFolders.put(folder, openCount + 1);
+        if (openCount == 0) {
+            evict();
+        }
+    }
+
+    /**
+     * Releases a product folder opened by {@link #open(Path)}, whose decoded tiles stay in the cache.
+     */
+    public synchronized void release(Path productFolder) {
+        Path folder = productFolder.toAbsolutePath().normalize();
+        Integer openCount = this.openedFolders.get(folder);
+        if (openCount == null) {
+            return;
+        }
+        if (openCount > 1) {
+            this.openedFolders.put(folder, openCount - 1);
+        } else {
+            this.openedFolders.remove(folder);
+            try {
+                writeSize(folder, computeSize(folder));
+                Files.deleteIfExists(folder.resolve(this.inUseMarker));
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to release the decoded tile folder " + folder, e);
+            }
+        }
+    }
+
+    public synchronized Statistics getStatistics() {
+        long size;
+        try {
+            size = listProductFolders().stream().mapToLong(CachedFolder::getSize).sum();
+        } catch (IOException e) {
+            size = -1;
+        }
+        return new Statistics(this.hitCount, this.missCount, this.discardedCount, this.evictionCount, this.evictedSize, size);
+    }
+
+    private void evict() throws IOException {
+        if (this.maximumSize <= 0) {
+            return;
+        }
+        List<CachedFolder> folders = listProductFolders();
+        long totalSize = folders.stream().mapToLong(CachedFolder::getSize).sum();
+        folders.sort(Comparator.comparing(CachedFolder::getLastAccess));
+        for (CachedFolder folder : folders) {
+            if (totalSize <= this.maximumSize) {
+                break;
+            }
+            if (this.openedFolders.containsKey(folder.path) || isOpenedByRunningProcess(folder.path)) {
+                continue;
+            }
+            deleteContent(folder.path);
+            Files.deleteIfExists(folder.path);
+            totalSize -= folder.size;
+            this.evictionCount++;
+            this.evictedSize += folder.size;
+        }
+    }
+
+    private List<CachedFolder> listProductFolders() throws IOException {
+        List<CachedFolder> folders = new ArrayList<>();
+        if (!Files.isDirectory(this.rootFolder)) {
+            return folders;
+        }
+        try (Stream<Path> paths = Files.walk(this.rootFolder, PRODUCT_FOLDER_DEPTH)) {
+            List<Path> productFolders = paths.filter(path -> this.rootFolder.relativize(path).getNameCount() == PRODUCT_FOLDER_DEPTH && Files.isDirectory(path))
+                                             .toList();
+            for (Path productFolder : productFolders) {
+                folders.add(new CachedFolder(productFolder, getSize(productFolder), readLastAccess(productFolder)));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return folders;
+    }
+
+    private long getSize(Path folder) throws IOException {
+        if (this.openedFolders.containsKey(folder)) {
+            return computeSize(folder);
+        }
+        Path sizeMarker = folder.resolve(SIZE_MARKER);
+        if (Files.exists(sizeMarker)) {
+            try {
+                return Long.parseLong(new String(Files.readAllBytes(sizeMarker), StandardCharsets.US_ASCII).trim());
+            } catch (NumberFormatException | IOException e) {
+                logger.log(Level.FINE, "Recompute the size of the decoded tile folder " + folder, e);
+            }
+        }
+        long size = computeSize(folder);
+        // the size of a folder used by another process changes until the folder is released
+        if (!isOpenedByRunningProcess(folder)) {
+            writeSize(folder, size);
+        }
+        return size;
+    }
+
+    private boolean hasMarkersOfStoppedProcesses(Path folder) throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.map(path -> path.getFileName().toString())
+                        .filter(name -> name.startsWith(IN_USE_MARKER_PREFIX))
+                        .anyMatch(name -> !isRunningProcess(name));
+        }
+    }
+
+    private boolean isOpenedByRunningProcess(Path folder) throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.map(path -> path.getFileName().toString())
+                        .filter(name -> name.startsWith(IN_USE_MARKER_PREFIX))
+                        .anyMatch(S2DecodedTileCache::isRunningProcess);
+        }
+    }
+
+    private static boolean isRunningProcess(String inUseMarker) {
+        try {
+            long pid = Long.parseLong(inUseMarker.substring(IN_USE_MARKER_PREFIX.length()));
+            return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean hasDecodedTiles(Path folder) throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.anyMatch(path -> !path.getFileName().toString().startsWith("."));
+        }
+    }
+
+    private static void deleteContent(Path folder) throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            List<Path> content = paths.filter(path -> !path.equals(folder))
+                                      .sorted(Comparator.reverseOrder())
+                                      .toList();
+            for (Path path : content) {
+                Files.deleteIfExists(path);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeSize(Path folder, long size) throws IOException {
+        Files.write(folder.resolve(SIZE_MARKER), Long.toString(size).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long computeSize(Path folder) throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            // the markers are not counted, they are the files whose name starts with a dot
+            return paths.filter(path -> Files.isRegularFile(path) && !path.getFileName().toString().startsWith(".")).mapToLong(path -> {
+                try {
+                    return Files.size(path);
+                } catch (IOException e) {
+                    // deleted while walking the folder
+                    return 0L;
+                }
+            }).sum();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static FileTime readLastAccess(Path folder) throws IOException {
+        Path lastAccessMarker = folder.resolve(LAST_ACCESS_MARKER);
+        return Files.getLastModifiedTime(Files.exists(lastAccessMarker) ? lastAccessMarker : folder);
+    }
+
+    private static class CachedFolder {
+
+        private final Path path;
+        private final long size;
+        private final FileTime lastAccess;
+
+        private CachedFolder(Path path, long size, FileTime lastAccess) {
+            this.path = path;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+
+        private long getSize() {
+            return this.size;
+        }
+
+        private FileTime getLastAccess() {
+            return this.lastAccess;
+        }
+    }
+
+    /**
+     * Counters of the cache since the start of the session, and its current size.
+     */
+    public static class Statistics {
+
+        private final long hitCount;
+        private final long missCount;
+        private final long discardedCount;
+        private final long evictionCount;
+        private final long evictedSize;
+        private final long size;
+
+        private Statistics(long hitCount, long missCount, long discardedCount, long evictionCount, long evictedSize, long size) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.discardedCount = discardedCount;
+            this.evictionCount = evictionCount;
+            this.evictedSize = evictedSize;
+            this.size = size;
+        }
+
+        /**
+         * Returns the number of product folders opened with decoded tiles.
+         */
+        public long getHitCount() {
+            return this.hitCount;
+        }
+
+        /**
+         * Returns the number of product folders opened without decoded tiles.
+         */
+        public long getMissCount() {
+            return this.missCount;
+        }
+
+        /**
+         * Returns the number of product folders emptied because a stopped process left them opened.
+         */
+        public long getDiscardedCount() {
+            return this.discardedCount;
+        }
+
+        public long getEvictionCount() {
+            return this.evictionCount;
+        }
+
+        /**
+         * Returns the number of bytes of the evicted product folders.
+         */
+        public long getEvictedSize() {
+            return this.evictedSize;
+        }
+
+        /**
+         * Returns the number of bytes of the product folders, or -1 if they could not be read.
+         */
+        public long getSize() {
+            return this.size;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + this.hitCount + ", misses=" + this.missCount + ", discarded=" + this.discardedCount
+                    + ", evictions=" + this.evictionCount + ", evictedSize=" + this.evictedSize + ", size=" + this.size;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package eu.esa.opt.dataio.s2;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Durations of the phases of the opening of a Sentinel-2 product, in milliseconds.
+ *
+ * @since 14.0.0
+ */
+public class S2OpenMetrics {
+
+    private final Map<String, Long> phaseDurations;
+
+    public S2OpenMetrics() {
+        this.phaseDurations = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds the time elapsed since the start of a phase to the duration of the phase.
+     *
+     * @param phase     the name of the phase
+     * @param startTime the start time of the phase, as given by {@link System#currentTimeMillis()}
+     * @return the time elapsed since the start of the phase
+     */
+    public synchronized long addPhase(String phase, long startTime) {
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        this.phaseDurations.merge(phase, elapsedTime, Long::sum);
+        return elapsedTime;
+    }
+
+    /**
+     * Returns the duration of the phases, in the order of their first run.
+     */
+    public synchronized Map<String, Long> getPhaseDurations() {
+        return new LinkedHashMap<>(this.phaseDurations);
+    }
+
+    public synchronized long getPhaseDuration(String phase) {
+        return this.phaseDurations.getOrDefault(phase, 0L);
+    }
+
+    public synchronized long getTotalDuration() {
+        return this.phaseDurations.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Long> entry : this.phaseDurations.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(entry.getKey()).append('=').append(entry.getValue()).append(" ms");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,100 @@
+package eu.esa.opt.dataio.s2;
+
+import org.esa.snap.utils.SharedExecutor;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Parses the independent parts of a Sentinel-2 product (granule metadata files, mask files, angle grids)
+ * concurrently on the shared executor, the results being returned in the order of the parsed items.
+ *
+ * @since 14.0.0
+ */
+public final class S2ParallelParsing {
+
+    // the granule and mask files are small, the parsing is bound by the latency of the file system
+    private static final int MAX_IO_PARALLELISM = 8;
+
+    private S2ParallelParsing() {
+    }
+
+    /**
+     * Parses items of a product.
+     *
+     * @param taskName the name of the parsing, used in the error messages
+     * @param items    the items to parse
+     * @param mode     {@link SharedExecutor.Mode#IO} if the parsing reads files, {@link SharedExecutor.Mode#COMPUTE}
+     *                 otherwise
+     * @param parser   the parser of an item, called concurrently
+     * @return the results of the parser, in the order of the items
+     */
+    public static <S, T> List<T> parse(String taskName, List<S> items, SharedExecutor.Mode mode, Parser<S, T> parser)
+            throws IOException, ParserConfigurationException, SAXException {
+        if (items.size() <= 1) {
+            List<T> results = new ArrayList<>(items.size());
+            for (S item : items) {
+                results.add(parser.parse(item));
+            }
+            return results;
+        }
+        int maxParallelism = (mode == SharedExecutor.Mode.IO) ? MAX_IO_PARALLELISM : SharedExecutor.getParallelism();
+        SharedExecutor.TaskGroup group = SharedExecutor.newTaskGroup(taskName, Math.min(items.size(), maxParallelism), mode);
+        Object[] results = new Object[items.size()];
+        for (int i = 0; i < results.length; i++) {
+            final int index = i;
+            group.execute(() -> {
+                try {
+                    results[index] = parser.parse(items.get(index));
+                } catch (IOException | ParserConfigurationException | SAXException e) {
+                    throw new ParsingException(e);
+                }
+            });
+        }
+        try {
+            group.awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The " + taskName + " has been interrupted.");
+        } catch (ExecutionException e) {
+            Throwable cause = (e.getCause() instanceof ParsingException) ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof ParserConfigurationException) {
+                throw (ParserConfigurationException) cause;
+            } else if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("The " + taskName + " has failed.", cause);
+        }
+        @SuppressWarnings("unchecked")
+        List<T> list = (List<T>) Arrays.asList(results);
+        return list;
+    }
+
+    /**
+     * Parser of an item of a product.
+     */
+    @FunctionalInterface
+    public interface Parser<S, T> {
+
+        T parse(S item) throws IOException, ParserConfigurationException, SAXException;
+    }
+
+    private static class ParsingException extends RuntimeException {
+
+        private ParsingException(Exception cause) {
+            super(cause);
+        }
+    }
+}
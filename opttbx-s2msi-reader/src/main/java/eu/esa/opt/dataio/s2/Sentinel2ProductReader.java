@@ -74,7 +74,9 @@ public abstract class Sentinel2ProductReader extends AbstractProductReader {
     protected static final Logger logger = Logger.getLogger(Sentinel2ProductReader.class.getName());
 
     private Path cacheDir;
+    private boolean cacheDirOpened;
     private VirtualPath virtualPath;
+    private S2OpenMetrics openMetrics = new S2OpenMetrics();
 
     protected Sentinel2ProductReader(ProductReaderPlugIn readerPlugIn) {
         super(readerPlugIn);
@@ -112,16 +114,20 @@ public abstract class Sentinel2ProductReader extends AbstractProductReader {
         }
         String readerDirName = getReaderCacheDir();
         String productName = productPath.getFileName().toString();
-        Path cacheFolderPath = SystemUtils.getCacheDir().toPath();
-        cacheFolderPath = cacheFolderPath.resolve("s2tbx");
+        S2DecodedTileCache decodedTileCache = S2DecodedTileCache.getInstance();
+        Path cacheFolderPath = decodedTileCache.getRootFolder();
         cacheFolderPath = cacheFolderPath.resolve(readerDirName);
         cacheFolderPath = cacheFolderPath.resolve(version);
         cacheFolderPath = cacheFolderPath.resolve(md5sum);
         //cacheFolderPath = cacheFolderPath.resolve(productName);
-        this.cacheDir = cacheFolderPath;
-        if (!Files.exists(this.cacheDir)) {
-            Files.createDirectories(this.cacheDir);
+        if (this.cacheDirOpened) {
+            decodedTileCache.release(this.cacheDir);
+            this.cacheDirOpened = false;
         }
+        this.cacheDir = cacheFolderPath;
+        // keeps the decoded tiles of the previous sessions and protects the folder from the eviction until closing
+        decodedTileCache.open(this.cacheDir);
+        this.cacheDirOpened = true;
         if (!Files.exists(this.cacheDir) || !Files.isDirectory(this.cacheDir) || !Files.isWritable(this.cacheDir)) {
             throw new IOException("Can't access package cache directory");
         }
@@ -139,12 +145,20 @@ public abstract class Sentinel2ProductReader extends AbstractProductReader {
         return cacheDir;
     }
 
+    /**
+     * @return the durations of the phases of the last opening of a product
+     */
+    public S2OpenMetrics getOpenMetrics() {
+        return openMetrics;
+    }
+
     @Override
     protected final Product readProductNodesImpl() throws IOException {
         if (!validateOpenJpegExecutables(S2Config.OPJ_INFO_EXE, S2Config.OPJ_DECOMPRESSOR_EXE)) {
             throw new IllegalStateException("Invalid OpenJpeg executables.");
         }
 
+        this.openMetrics = new S2OpenMetrics();
         boolean success = false;
         try {
             Object inputObject = super.getInput(); // invoke the 'getInput' method from the parent class
@@ -173,8 +187,9 @@ public abstract class Sentinel2ProductReader extends AbstractProductReader {
 
                 S2Config config = metadataReader.readTileLayouts(inputVirtualPath);
 
+                long elapsedTime = this.openMetrics.addPhase("tile layouts", startTime);
                 if (logger.isLoggable(Level.FINE)) {
-                    double elapsedTimeInSeconds = (System.currentTimeMillis() - startTime) / 1000.d;
+                    double elapsedTimeInSeconds = elapsedTime / 1000.d;
                     logger.log(Level.FINE,
                             "Finish reading the tile layouts using the metadata file '"
                                     + inputVirtualPath.getFullPathString() + "', elapsed time: " + elapsedTimeInSeconds
@@ -191,8 +206,9 @@ public abstract class Sentinel2ProductReader extends AbstractProductReader {
 
                 S2Metadata metadataHeader = metadataReader.readMetadataHeader(inputVirtualPath, config);
 
+                elapsedTime = this.openMetrics.addPhase("metadata header", startTime);
                 if (logger.isLoggable(Level.FINE)) {
-                    double elapsedTimeInSeconds = (System.currentTimeMillis() - startTime) / 1000.d;
+                    double elapsedTimeInSeconds = elapsedTime / 1000.d;
                     logger.log(Level.FINE,
                             "Finish reading the header using the metadata file '" + inputVirtualPath.getFullPathString()
                                     + "', elapsed time: " + elapsedTimeInSeconds + " seconds.");
@@ -220,6 +236,9 @@ public abstract class Sentinel2ProductReader extends AbstractProductReader {
 
             success = true;
 
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Finish opening the product '" + this.virtualPath.getFullPathString() + "': " + this.openMetrics);
+            }
             return product;
         } catch (RuntimeException | IOException exception) {
             throw exception;
@@ -237,6 +256,14 @@ public abstract class Sentinel2ProductReader extends AbstractProductReader {
             this.virtualPath.close();
             this.virtualPath = null;
         }
+        if (this.cacheDirOpened) {
+            S2DecodedTileCache decodedTileCache = S2DecodedTileCache.getInstance();
+            decodedTileCache.release(this.cacheDir);
+            this.cacheDirOpened = false;
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Decoded tile cache: " + decodedTileCache.getStatistics());
+            }
+        }
         System.gc();
     }
 
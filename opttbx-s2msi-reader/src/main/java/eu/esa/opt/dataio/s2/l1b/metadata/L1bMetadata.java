@@ -29,6 +29,7 @@ import eu.esa.opt.dataio.s2.l1b.L1bSceneDescription;
 import eu.esa.opt.dataio.s2.l1b.Sentinel2L1BProductReader;
 import eu.esa.opt.dataio.s2.l1b.filepaterns.S2L1BGranuleDirFilename;
 import org.esa.snap.core.datamodel.MetadataElement;
+import org.esa.snap.utils.SharedExecutor;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -68,7 +69,7 @@ public class L1bMetadata extends S2Metadata {
         if (foundProductMetadata) {
             initProduct(path, granuleFolderName, namingConvention);
         } else {
-            initTile(path);
+            initTile(path, L1bMetadataFactory.createL1bGranuleMetadata(path));
         }
     }
 
@@ -123,14 +124,15 @@ public class L1bMetadata extends S2Metadata {
             granuleMetadataPathList.add(xml);
         }
 
-        //Init Tiles
-        for (VirtualPath granuleMetadataPath : granuleMetadataPathList) {
-            initTile(granuleMetadataPath);
+        //Init Tiles, the granule metadata files being parsed concurrently
+        List<IL1bGranuleMetadata> granuleMetadataList = S2ParallelParsing.parse("granule metadata parsing", granuleMetadataPathList,
+                SharedExecutor.Mode.IO, L1bMetadataFactory::createL1bGranuleMetadata);
+        for (int i = 0; i < granuleMetadataPathList.size(); i++) {
+            initTile(granuleMetadataPathList.get(i), granuleMetadataList.get(i));
         }
     }
 
-    private void initTile(VirtualPath path) throws IOException, ParserConfigurationException, SAXException {
-        IL1bGranuleMetadata granuleMetadata = L1bMetadataFactory.createL1bGranuleMetadata(path);
+    private void initTile(VirtualPath path, IL1bGranuleMetadata granuleMetadata) throws IOException, ParserConfigurationException, SAXException {
         if(granuleMetadata == null) {
             throw new IOException(String.format("Unable to read metadata from %s",path.getFileName().toString()));
         }
@@ -20,11 +20,13 @@ package eu.esa.opt.dataio.s2.l1c.metadata;
 
 import eu.esa.opt.dataio.s2.VirtualPath;
 import eu.esa.opt.dataio.s2.S2Config;
+import eu.esa.opt.dataio.s2.S2ParallelParsing;
 import eu.esa.opt.dataio.s2.S2SpatialResolution;
 import eu.esa.opt.dataio.s2.filepatterns.INamingConvention;
 import eu.esa.opt.dataio.s2.ortho.metadata.S2OrthoMetadata;
 import org.esa.snap.core.datamodel.MetadataElement;
 import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.utils.SharedExecutor;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -32,6 +34,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -66,7 +69,7 @@ public class L1cMetadata extends S2OrthoMetadata {
         if (!isGranule) {
             initProduct(path, granuleName, epsg, namingConvention);
         } else {
-            initTile(path, null,epsg, namingConvention);
+            initTile(path, L1cMetadataFactory.createL1cGranuleMetadata(path, null), epsg, namingConvention);
         }
     }
 
@@ -115,16 +118,16 @@ public class L1cMetadata extends S2OrthoMetadata {
             granuleMetadataPathList.add(xml);
         }
 
-        //Init Tiles
-        for (VirtualPath granuleMetadataPath : granuleMetadataPathList) {
-            initTile(granuleMetadataPath, path, epsg, namingConvention);
+        //Init Tiles, the granule metadata files being parsed concurrently
+        List<IL1cGranuleMetadata> granuleMetadataList = S2ParallelParsing.parse("granule metadata parsing", granuleMetadataPathList,
+                SharedExecutor.Mode.IO, granuleMetadataPath -> L1cMetadataFactory.createL1cGranuleMetadata(granuleMetadataPath, path));
+        for (int i = 0; i < granuleMetadataPathList.size(); i++) {
+            initTile(granuleMetadataPathList.get(i), granuleMetadataList.get(i), epsg, namingConvention);
         }
     }
 
 
-    private void initTile(VirtualPath path, VirtualPath metadataProductpath,String epsg, INamingConvention namingConvention) throws IOException, ParserConfigurationException, SAXException {
-
-        IL1cGranuleMetadata granuleMetadata = L1cMetadataFactory.createL1cGranuleMetadata(path, metadataProductpath);
+    private void initTile(VirtualPath path, IL1cGranuleMetadata granuleMetadata, String epsg, INamingConvention namingConvention) throws IOException, ParserConfigurationException, SAXException {
         if(granuleMetadata == null) {
             throw new IOException(String.format("Unable to read metadata from %s",path.getFileName().toString()));
         }
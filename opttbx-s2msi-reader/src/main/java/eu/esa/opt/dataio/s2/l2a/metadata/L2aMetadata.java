@@ -19,11 +19,13 @@ package eu.esa.opt.dataio.s2.l2a.metadata;
 
 import eu.esa.opt.dataio.s2.VirtualPath;
 import eu.esa.opt.dataio.s2.S2Config;
+import eu.esa.opt.dataio.s2.S2ParallelParsing;
 import eu.esa.opt.dataio.s2.S2SpatialResolution;
 import eu.esa.opt.dataio.s2.filepatterns.INamingConvention;
 import eu.esa.opt.dataio.s2.ortho.metadata.S2OrthoMetadata;
 import org.esa.snap.core.datamodel.MetadataElement;
 import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.utils.SharedExecutor;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -31,6 +33,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -99,7 +102,7 @@ public class L2aMetadata extends S2OrthoMetadata {
         if(!isAGranule) {
             initProduct(path, granuleName, epsg, productResolution, namingConvention);
         } else {
-            initTile(path, epsg, productResolution, namingConvention);
+            initTile(path, L2aMetadataFactory.createL2aGranuleMetadata(path), epsg, productResolution, namingConvention);
         }
     }
 
@@ -148,15 +151,15 @@ public class L2aMetadata extends S2OrthoMetadata {
             granuleMetadataPathList.add(xml);
         }
 
-        //Init Tiles
-        for (VirtualPath granuleMetadataPath : granuleMetadataPathList) {
-            initTile(granuleMetadataPath, epsg, productResolution, namingConvention);
+        //Init Tiles, the granule metadata files being parsed concurrently
+        List<IL2aGranuleMetadata> granuleMetadataList = S2ParallelParsing.parse("granule metadata parsing", granuleMetadataPathList,
+                SharedExecutor.Mode.IO, L2aMetadataFactory::createL2aGranuleMetadata);
+        for (int i = 0; i < granuleMetadataPathList.size(); i++) {
+            initTile(granuleMetadataPathList.get(i), granuleMetadataList.get(i), epsg, productResolution, namingConvention);
         }
     }
 
-    private void initTile(VirtualPath path, String epsg, S2SpatialResolution resolution, INamingConvention namingConvention) throws IOException, ParserConfigurationException, SAXException {
-
-        IL2aGranuleMetadata granuleMetadata = L2aMetadataFactory.createL2aGranuleMetadata(path);
+    private void initTile(VirtualPath path, IL2aGranuleMetadata granuleMetadata, String epsg, S2SpatialResolution resolution, INamingConvention namingConvention) throws IOException, ParserConfigurationException, SAXException {
         if(granuleMetadata == null) {
             throw new IOException(String.format("Unable to read metadata from %s",path.getFileName().toString()));
         }
@@ -3,11 +3,13 @@ package eu.esa.opt.dataio.s2.l3.metadata;
 import eu.esa.opt.dataio.s2.VirtualPath;
 import eu.esa.opt.dataio.s2.S2BandInformation;
 import eu.esa.opt.dataio.s2.S2Config;
+import eu.esa.opt.dataio.s2.S2ParallelParsing;
 import eu.esa.opt.dataio.s2.S2SpatialResolution;
 import eu.esa.opt.dataio.s2.filepatterns.INamingConvention;
 import eu.esa.opt.dataio.s2.ortho.metadata.S2OrthoMetadata;
 import org.esa.snap.core.datamodel.MetadataElement;
 import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.utils.SharedExecutor;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -42,7 +44,7 @@ public class L3Metadata extends S2OrthoMetadata {
         if(!isAGranule) {
             maxIndex = initProduct(path, granuleName, epsg, productResolution, namingConvention);
         } else {
-            maxIndex = initTile(path, epsg, productResolution, namingConvention);
+            maxIndex = initTile(path, L3MetadataFactory.createL3GranuleMetadata(path), epsg, productResolution, namingConvention);
         }
 
         //add band information (at the end because we need to read the metadata to know the maximum index of mosaic)
@@ -94,10 +96,12 @@ public class L3Metadata extends S2OrthoMetadata {
             granuleMetadataPathList.add(xml);
         }
 
-        //Init Tiles
+        //Init Tiles, the granule metadata files being parsed concurrently
+        List<IL3GranuleMetadata> granuleMetadataList = S2ParallelParsing.parse("granule metadata parsing", granuleMetadataPathList,
+                SharedExecutor.Mode.IO, L3MetadataFactory::createL3GranuleMetadata);
         int maxIndex=1;
-        for (VirtualPath granuleMetadataPath : granuleMetadataPathList) {
-            int maxIndexTile =initTile(granuleMetadataPath, epsg, productResolution, namingConvention);
+        for (int i = 0; i < granuleMetadataPathList.size(); i++) {
+            int maxIndexTile =initTile(granuleMetadataPathList.get(i), granuleMetadataList.get(i), epsg, productResolution, namingConvention);
             if (maxIndexTile > maxIndex) {
                 maxIndex = maxIndexTile;
             }
@@ -105,9 +109,7 @@ public class L3Metadata extends S2OrthoMetadata {
         return maxIndex;
     }
 
-    private int initTile(VirtualPath path, String epsg, S2SpatialResolution resolution, INamingConvention namingConvention) throws IOException, ParserConfigurationException, SAXException {
-
-        IL3GranuleMetadata granuleMetadata = L3MetadataFactory.createL3GranuleMetadata(path);
+    private int initTile(VirtualPath path, IL3GranuleMetadata granuleMetadata, String epsg, S2SpatialResolution resolution, INamingConvention namingConvention) throws IOException, ParserConfigurationException, SAXException {
         if(granuleMetadata == null) {
             throw new IOException(String.format("Unable to read metadata from %s",path.getFileName().toString()));
         }
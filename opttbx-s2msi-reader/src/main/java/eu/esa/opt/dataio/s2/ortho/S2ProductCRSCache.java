@@ -30,9 +30,9 @@ import org.esa.snap.core.util.SystemUtils;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -136,55 +136,46 @@ public class S2ProductCRSCache {
         }
     }
 
-    private HashMap<String, S2ProductCRSCacheEntry> cache = new HashMap<>();
+    // the plugins of the different levels and CRS query the cache concurrently when several products are opened
+    private final ConcurrentHashMap<String, S2ProductCRSCacheEntry> cache = new ConcurrentHashMap<>();
 
     /* ctor */
     public S2ProductCRSCache() {
     }
 
     /* Ensure the given product is in cache */
-    public synchronized void ensureIsCached(String productFileName) {
-        if (!cache.containsKey(productFileName)) {
-            S2ProductCRSCacheEntry s2ProductCRSCacheEntry = new S2ProductCRSCacheEntry(productFileName);
-            cache.put(productFileName, s2ProductCRSCacheEntry);
-        }
+    public void ensureIsCached(String productFileName) {
+        cache.computeIfAbsent(productFileName, S2ProductCRSCacheEntry::new);
     }
 
     /* Ensure the given product is in cache */
-    public synchronized void ensureIsCached(Path productPath) {
-        if (!cache.containsKey(productPath.toString())) {
-            S2ProductCRSCacheEntry s2ProductCRSCacheEntry = new S2ProductCRSCacheEntry(productPath);
-            cache.put(productPath.toString(), s2ProductCRSCacheEntry);
-        }
+    public void ensureIsCached(Path productPath) {
+        cache.computeIfAbsent(productPath.toString(), key -> new S2ProductCRSCacheEntry(productPath));
     }
 
     /* Get list of EPSG codes present in specified product */
-    synchronized Set<String> getEPSGList(String productFileName) {
-        if (!cache.containsKey(productFileName)) {
-            throw new RuntimeException(String.format("The product %s was not parsed or does not contain any granule", productFileName));
-        }
-        return cache.get(productFileName).epsgCodeList;
+    Set<String> getEPSGList(String productFileName) {
+        return getEntry(productFileName).epsgCodeList;
     }
 
-    synchronized boolean hasEPSG(String productFileName, String epsg) {
-        if (!cache.containsKey(productFileName)) {
-            throw new RuntimeException(String.format("The product %s was not parsed or does not contain any granule", productFileName));
-        }
-        return cache.get(productFileName).hasEPSG(epsg);
+    boolean hasEPSG(String productFileName, String epsg) {
+        return getEntry(productFileName).hasEPSG(epsg);
     }
 
-    synchronized S2Config.Sentinel2ProductLevel getProductLevel(String productFileName) {
-        if (!cache.containsKey(productFileName)) {
-            throw new RuntimeException(String.format("The product %s was not parsed or does not contain any granule", productFileName));
-        }
-        return cache.get(productFileName).getLevel();
+    S2Config.Sentinel2ProductLevel getProductLevel(String productFileName) {
+        return getEntry(productFileName).getLevel();
+    }
+
+    public S2Config.Sentinel2InputType getInputType(String productFileName) {
+        return getEntry(productFileName).getInputType();
     }
 
-    public synchronized S2Config.Sentinel2InputType getInputType(String productFileName) {
-        if (!cache.containsKey(productFileName)) {
+    private S2ProductCRSCacheEntry getEntry(String productFileName) {
+        S2ProductCRSCacheEntry entry = cache.get(productFileName);
+        if (entry == null) {
             throw new RuntimeException(String.format("The product %s was not parsed or does not contain any granule", productFileName));
         }
-        return cache.get(productFileName).getInputType();
+        return entry;
     }
 
 }
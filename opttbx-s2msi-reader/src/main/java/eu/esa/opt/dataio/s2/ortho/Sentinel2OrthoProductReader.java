@@ -33,6 +33,7 @@ import eu.esa.opt.dataio.s2.S2Config;
 import eu.esa.opt.dataio.s2.S2Constant;
 import eu.esa.opt.dataio.s2.S2IndexBandInformation;
 import eu.esa.opt.dataio.s2.S2Metadata;
+import eu.esa.opt.dataio.s2.S2ParallelParsing;
 import eu.esa.opt.dataio.s2.S2SceneDescription;
 import eu.esa.opt.dataio.s2.S2SpatialResolution;
 import eu.esa.opt.dataio.s2.S2SpectralInformation;
@@ -66,6 +67,7 @@ import org.esa.snap.core.util.ImageUtils;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.dataio.geotiff.GeoTiffMatrixMultiLevelSource;
 import org.esa.snap.lib.openjpeg.utils.StackTraceUtils;
+import org.esa.snap.utils.SharedExecutor;
 import org.geotools.data.simple.SimpleFeatureIterator;
 import org.geotools.feature.DefaultFeatureCollection;
 import org.geotools.referencing.CRS;
@@ -74,6 +76,7 @@ import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.TransformException;
+import org.xml.sax.SAXException;
 
 import javax.media.jai.ImageLayout;
 import javax.media.jai.Interpolation;
@@ -83,6 +86,7 @@ import javax.media.jai.RenderedOp;
 import javax.media.jai.operator.CropDescriptor;
 import javax.media.jai.operator.MosaicDescriptor;
 import javax.media.jai.operator.TranslateDescriptor;
+import javax.xml.parsers.ParserConfigurationException;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Point;
@@ -111,6 +115,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -191,8 +196,9 @@ public abstract class Sentinel2OrthoProductReader extends Sentinel2ProductReader
 
         S2OrthoSceneLayout sceneDescription = S2OrthoSceneLayout.create(this.orthoMetadataHeader);
 
+        long elapsedTime = getOpenMetrics().addPhase("scene layout", startTime);
         if (logger.isLoggable(Level.FINE)) {
-            double elapsedTimeInSeconds = (System.currentTimeMillis() - startTime) / 1000.d;
+            double elapsedTimeInSeconds = elapsedTime / 1000.d;
             logger.log(Level.FINE,
                        "Finish reading the scene description, elapsed time: " + elapsedTimeInSeconds + " seconds.");
         }
@@ -260,6 +266,7 @@ public abstract class Sentinel2OrthoProductReader extends Sentinel2ProductReader
 
         List<BandInfo> bandInfoList = orthoMetadataHeader.computeBandInfoByKey(tileList);
         if (!bandInfoList.isEmpty()) {
+            startTime = System.currentTimeMillis();
             int productMaximumResolutionCount = addBands(product, bandInfoList, sceneDescription, productResolution,
                                                          productDefaultGeoCoding, mapCRS, subsetDef, defaultJAIReadTileSize);
             product.setNumResolutionsMax(productMaximumResolutionCount);
@@ -268,6 +275,9 @@ public abstract class Sentinel2OrthoProductReader extends Sentinel2ProductReader
             if (!isMultiResolution()) {
                 scaleBands(product, bandInfoList, productResolution);
             }
+            getOpenMetrics().addPhase("bands", startTime);
+
+            startTime = System.currentTimeMillis();
             S2Metadata.Tile tile = tileList.get(0);
             if (tile.getMaskFilenames() != null && (!tile.getMaskFilenames()[0].getPath().getFullPathString().endsWith(".gml"))) {
                 addRasterMasks(tileList, product, mapCRS, bandInfoList, sceneDescription, productResolution,
@@ -281,6 +291,7 @@ public abstract class Sentinel2OrthoProductReader extends Sentinel2ProductReader
                 addIndexMasks(product, mapCRS, bandInfoList, sceneDescription, productResolution,
                               productDefaultGeoCoding, subsetDef);
             }
+            getOpenMetrics().addPhase("masks", startTime);
         }
 
         // add TileIndex if there are more than 1 tile
@@ -294,16 +305,22 @@ public abstract class Sentinel2OrthoProductReader extends Sentinel2ProductReader
                 }
             }
             if (tileList.size() > 0) {
+                startTime = System.currentTimeMillis();
                 addTileIndexes(product, mapCRS, resolutions, tileList, sceneDescription, productResolution,
                                productDefaultGeoCoding, subsetDef);
+                getOpenMetrics().addPhase("tile indexes", startTime);
             }
         }
         if (!"Brief".equalsIgnoreCase(productCharacteristics.getMetaDataLevel())) {
+            startTime = System.currentTimeMillis();
+            // the grids of the tiles are built concurrently and kept in the order of the tiles
+            List<S2BandAnglesGrid[]> tileAnglesGrids = S2ParallelParsing.parse("angles grids building", tileList,
+                    SharedExecutor.Mode.COMPUTE, tile -> createS2OrthoAnglesGrids(orthoMetadataHeader, tile.getId()));
             HashMap<String, S2BandAnglesGrid[]> anglesGridsMap = new HashMap<>();
-            for (S2Metadata.Tile tile : tileList) {
-                S2BandAnglesGrid[] bandAnglesGrids = createS2OrthoAnglesGrids(orthoMetadataHeader, tile.getId());
+            for (int i = 0; i < tileList.size(); i++) {
+                S2BandAnglesGrid[] bandAnglesGrids = tileAnglesGrids.get(i);
                 if (bandAnglesGrids != null) {
-                    anglesGridsMap.put(tile.getId(), bandAnglesGrids);
+                    anglesGridsMap.put(tileList.get(i).getId(), bandAnglesGrids);
                 }
             }
             if ((!productLevel.matches(S2Constant.LevelL2H) && !productLevel.matches(S2Constant.LevelL2F))
@@ -313,6 +330,7 @@ public abstract class Sentinel2OrthoProductReader extends Sentinel2ProductReader
 //            } else {
                 // todo: add reader L2HF for the angle tif data
             }
+            getOpenMetrics().addPhase("angles", startTime);
         }
 
         for (S2Metadata.Tile tile : tileList)
@@ -441,20 +459,12 @@ public abstract class Sentinel2OrthoProductReader extends Sentinel2ProductReader
                         // there is an intersection
                         if (bandBounds.x > 0 || bandBounds.y > 0 || bandBounds.width != defaultBandWidth
                                 || bandBounds.height != defaultBandHeight) {
-                            Raster subsetSourceData = bandSourceImage.getData();
-                            WritableRaster subsetRaster = subsetSourceData
-                                    .createCompatibleWritableRaster(bandBounds.width, bandBounds.height);
-                            for (int x = 0; x < bandBounds.width; x++) {
-                                for (int y = 0; y < bandBounds.height; y++) {
-                                    float value = subsetSourceData.getSampleFloat(x + bandBounds.x, y + bandBounds.y,
-                                                                                  0);
-                                    subsetRaster.setSample(x, y, 0, value);
-                                }
-                            }
-                            ColorModel colorModel = bandSourceImage.getColorModel();
-                            BufferedImage image = new BufferedImage(colorModel, subsetRaster,
-                                                                    colorModel.isAlphaPremultiplied(), null);
-                            bandSourceImage = PlanarImage.wrapRenderedImage(image);
+                            // the subset region is computed from the mosaic on tile demand, without copying the mosaic
+                            RenderedOp subsetImage = CropDescriptor.create(bandSourceImage, (float) bandBounds.x,
+                                                                           (float) bandBounds.y, (float) bandBounds.width,
+                                                                           (float) bandBounds.height, null);
+                            bandSourceImage = TranslateDescriptor.create(subsetImage, (float) -bandBounds.x,
+                                                                         (float) -bandBounds.y, null, null);
                         }
                     }
                 }
@@ -965,7 +975,8 @@ public abstract class Sentinel2OrthoProductReader extends Sentinel2ProductReader
     }
 
     private void addVectorMasks(Product product, List<S2Metadata.Tile> tileList, List<BandInfo> bandInfoList,
-                                ProductSubsetDef subsetDef) {
+                                ProductSubsetDef subsetDef) throws IOException, ParserConfigurationException, SAXException {
+        Map<String, List<EopPolygon>> polygonsByMaskFile = readMaskPolygons(tileList);
         for (MaskInfo maskInfo : MaskInfo.values()) {
             if (!maskInfo.isPresentAtLevel(getMaskLevel())) {
                 continue;
@@ -975,21 +986,55 @@ public abstract class Sentinel2OrthoProductReader extends Sentinel2ProductReader
             }
             if (!maskInfo.isPerBand()) {
                 // cloud masks are provided once and valid for all bands
-                addVectorMask(product, tileList, maskInfo, null, bandInfoList, subsetDef);
+                addVectorMask(product, tileList, maskInfo, null, bandInfoList, subsetDef, polygonsByMaskFile);
             } else {
                 // for other masks, we have one mask instance for each spectral band
                 for (BandInfo bandInfo : bandInfoList) {
                     if (bandInfo.getBandInformation() instanceof S2SpectralInformation) {
                         addVectorMask(product, tileList, maskInfo,
-                                      (S2SpectralInformation) bandInfo.getBandInformation(), bandInfoList, subsetDef);
+                                      (S2SpectralInformation) bandInfo.getBandInformation(), bandInfoList, subsetDef,
+                                      polygonsByMaskFile);
                     }
                 }
             }
         }
     }
 
+    /**
+     * Reads concurrently the polygons of the mask files used by the enabled vector masks, keyed by the full path of the files.
+     */
+    private Map<String, List<EopPolygon>> readMaskPolygons(List<S2Metadata.Tile> tileList)
+            throws IOException, ParserConfigurationException, SAXException {
+        Set<String> maskTypes = new HashSet<>();
+        for (MaskInfo maskInfo : MaskInfo.values()) {
+            if (maskInfo.isPresentAtLevel(getMaskLevel()) && maskInfo.isEnabled()) {
+                maskTypes.add(maskInfo.getMainType());
+            }
+        }
+        Map<String, VirtualPath> maskFiles = new LinkedHashMap<>();
+        for (S2Metadata.Tile tile : tileList) {
+            if (tile.getMaskFilenames() == null) {
+                continue;
+            }
+            for (S2Metadata.MaskFilename maskFilename : tile.getMaskFilenames()) {
+                if (maskTypes.contains(maskFilename.getType())) {
+                    maskFiles.putIfAbsent(maskFilename.getPath().getFullPathString(), maskFilename.getPath());
+                }
+            }
+        }
+        List<List<EopPolygon>> polygons = S2ParallelParsing.parse("mask polygons reading", new ArrayList<>(maskFiles.values()),
+                                                                  SharedExecutor.Mode.IO, S2OrthoUtils::readPolygons);
+        Map<String, List<EopPolygon>> polygonsByMaskFile = new HashMap<>();
+        int index = 0;
+        for (String maskFile : maskFiles.keySet()) {
+            polygonsByMaskFile.put(maskFile, polygons.get(index++));
+        }
+        return polygonsByMaskFile;
+    }
+
     private void addVectorMask(Product product, List<S2Metadata.Tile> tileList, MaskInfo maskInfo,
-                               S2SpectralInformation spectralInfo, List<BandInfo> bandInfoList, ProductSubsetDef subsetDef) {
+                               S2SpectralInformation spectralInfo, List<BandInfo> bandInfoList, ProductSubsetDef subsetDef,
+                               Map<String, List<EopPolygon>> polygonsByMaskFile) {
 
         List<EopPolygon>[] productPolygons = new List[maskInfo.getSubType().length];
         for (int i = 0; i < maskInfo.getSubType().length; i++) {
@@ -1021,7 +1066,7 @@ public abstract class Sentinel2OrthoProductReader extends Sentinel2ProductReader
 
                 List<EopPolygon> polygonsForTile;
 
-                polygonsForTile = S2OrthoUtils.readPolygons(maskFilename.getPath());
+                polygonsForTile = polygonsByMaskFile.get(maskFilename.getPath().getFullPathString());
 
                 for (int i = 0; i < maskInfo.getSubType().length; i++) {
                     final int pos = i;
@@ -1480,10 +1525,12 @@ public abstract class Sentinel2OrthoProductReader extends Sentinel2ProductReader
      * are zero, they are removed
      */
     private static RenderedOp cropBordersIfAreZero(RenderedOp planarImage) {
+        // the crops keep the pixel coordinates, so the data of the whole image is computed once for all the borders
+        Raster data = planarImage.getData();
         // First row
         boolean remove = true;
         for (int i = 0; i < planarImage.getWidth(); i++) {
-            if (planarImage.copyData().getSampleFloat(planarImage.getMinX() + i, planarImage.getMinY(), 0) != 0) {
+            if (data.getSampleFloat(planarImage.getMinX() + i, planarImage.getMinY(), 0) != 0) {
                 remove = false;
                 break;
             }
@@ -1496,8 +1543,8 @@ public abstract class Sentinel2OrthoProductReader extends Sentinel2ProductReader
         // Last row
         remove = true;
         for (int i = 0; i < planarImage.getWidth(); i++) {
-            if (planarImage.copyData().getSampleFloat(planarImage.getMinX() + i,
-                                                      planarImage.getMinY() + planarImage.getHeight() - 1, 0) != 0) {
+            if (data.getSampleFloat(planarImage.getMinX() + i,
+                                    planarImage.getMinY() + planarImage.getHeight() - 1, 0) != 0) {
                 remove = false;
                 break;
             }
@@ -1510,7 +1557,7 @@ public abstract class Sentinel2OrthoProductReader extends Sentinel2ProductReader
         // First column
         remove = true;
         for (int i = 0; i < planarImage.getHeight(); i++) {
-            if (planarImage.copyData().getSampleFloat(planarImage.getMinX(), planarImage.getMinY() + i, 0) != 0) {
+            if (data.getSampleFloat(planarImage.getMinX(), planarImage.getMinY() + i, 0) != 0) {
                 remove = false;
                 break;
             }
@@ -1523,8 +1570,8 @@ public abstract class Sentinel2OrthoProductReader extends Sentinel2ProductReader
         // Last column
         remove = true;
         for (int i = 0; i < planarImage.getHeight(); i++) {
-            if (planarImage.copyData().getSampleFloat(planarImage.getMinX() + planarImage.getWidth() - 1,
-                                                      planarImage.getMinY() + i, 0) != 0) {
+            if (data.getSampleFloat(planarImage.getMinX() + planarImage.getWidth() - 1,
+                                    planarImage.getMinY() + i, 0) != 0) {
                 remove = false;
                 break;
             }
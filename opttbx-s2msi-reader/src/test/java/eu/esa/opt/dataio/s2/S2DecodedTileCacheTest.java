@@ -0,0 +1,146 @@
+package eu.esa.opt.dataio.s2;
+
+import org.esa.snap.core.util.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class S2DecodedTileCacheTest {
+
+    private Path rootFolder;
+
+    @Before
+    public void setUp() throws Exception {
+        this.rootFolder = Files.createTempDirectory("s2-decoded-tile-cache");
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteTree(this.rootFolder.toFile());
+    }
+
+    @Test
+    public void testReopenedFolderKeepsTheDecodedTiles() throws Exception {
+        S2DecodedTileCache cache = new S2DecodedTileCache(this.rootFolder, 0);
+        Path productFolder = this.rootFolder.resolve("l1c-reader/1.0/product");
+
+        cache.open(productFolder);
+        Files.write(productFolder.resolve("tile_0.tif"), new byte[100]);
+        cache.release(productFolder);
+        cache.open(productFolder);
+
+        assertTrue(Files.exists(productFolder.resolve("tile_0.tif")));
+        S2DecodedTileCache.Statistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+        assertEquals(100, statistics.getSize());
+    }
+
+    @Test
+    public void testLeastRecentlyOpenedFoldersAreEvicted() throws Exception {
+        S2DecodedTileCache cache = new S2DecodedTileCache(this.rootFolder, 250);
+        Path oldestFolder = createProductFolder(cache, "l1c-reader/1.0/oldest", 100, 1000);
+        Path recentFolder = createProductFolder(cache, "l2a-reader/1.0/recent", 100, 2000);
+        Path openedFolder = this.rootFolder.resolve("l1c-reader/1.0/opened");
+        cache.open(openedFolder);
+        Files.write(openedFolder.resolve("tile_0.tif"), new byte[100]);
+        // the opened folder stays even when it is the least recently opened one
+        Files.setLastModifiedTime(openedFolder.resolve(".last-access"), FileTime.fromMillis(0));
+
+        cache.open(this.rootFolder.resolve("l1c-reader/1.0/new"));
+
+        assertFalse(Files.exists(oldestFolder));
+        assertTrue(Files.exists(recentFolder.resolve("tile_0.tif")));
+        assertTrue(Files.exists(openedFolder.resolve("tile_0.tif")));
+        S2DecodedTileCache.Statistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getEvictionCount());
+        assertEquals(100, statistics.getEvictedSize());
+        assertEquals(200, statistics.getSize());
+    }
+
+    @Test
+    public void testFolderLeftOpenedByAStoppedProcessIsEmptied() throws Exception {
+        S2DecodedTileCache cache = new S2DecodedTileCache(this.rootFolder, 0);
+        Path productFolder = this.rootFolder.resolve("l1c-reader/1.0/product");
+        Files.createDirectories(productFolder);
+        Files.write(productFolder.resolve("tile_0.tif"), new byte[100]);
+        Files.write(productFolder.resolve(".in-use-" + Long.MAX_VALUE), new byte[0]);
+
+        cache.open(productFolder);
+
+        assertFalse(Files.exists(productFolder.resolve("tile_0.tif")));
+        S2DecodedTileCache.Statistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getDiscardedCount());
+        assertEquals(0, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+    }
+
+    @Test
+    public void testFoldersOutsideOfTheRootFolderAreNotEvicted() throws Exception {
+        // the folder of another reader sharing the parent of the cache root folder
+        Path otherReaderFolder = this.rootFolder.resolve("other-reader/1.0/product");
+        Files.createDirectories(otherReaderFolder);
+        Files.write(otherReaderFolder.resolve("tile_0.tif"), new byte[1000]);
+        S2DecodedTileCache cache = new S2DecodedTileCache(this.rootFolder.resolve("s2-decoded-tiles"), 50);
+
+        createProductFolder(cache, "s2-decoded-tiles/l1c-reader/1.0/product", 100, 1000);
+        cache.open(this.rootFolder.resolve("s2-decoded-tiles/l1c-reader/1.0/new"));
+
+        assertTrue(Files.exists(otherReaderFolder.resolve("tile_0.tif")));
+        assertEquals(1, cache.getStatistics().getEvictionCount());
+        assertEquals(0, cache.getStatistics().getSize());
+        try {
+            cache.open(otherReaderFolder);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(Files.exists(otherReaderFolder.resolve("tile_0.tif")));
+        }
+    }
+
+    @Test
+    public void testSizeOfReleasedFolderIsReadFromItsMarker() throws Exception {
+        S2DecodedTileCache cache = new S2DecodedTileCache(this.rootFolder, 0);
+        Path productFolder = createProductFolder(cache, "l1c-reader/1.0/product", 100, 1000);
+        assertEquals("100", new String(Files.readAllBytes(productFolder.resolve(".size")), StandardCharsets.US_ASCII));
+
+        // the tiles of a released folder are not walked again
+        Files.write(productFolder.resolve("tile_1.tif"), new byte[50]);
+        assertEquals(100, cache.getStatistics().getSize());
+
+        // the size of an opened folder is computed, and stored when it is released
+        cache.open(productFolder);
+        assertEquals(150, cache.getStatistics().getSize());
+        cache.release(productFolder);
+        assertEquals("150", new String(Files.readAllBytes(productFolder.resolve(".size")), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testSizeOfFolderWithoutMarkerIsComputed() throws Exception {
+        Path productFolder = this.rootFolder.resolve("l1c-reader/1.0/product");
+        Files.createDirectories(productFolder);
+        Files.write(productFolder.resolve("tile_0.tif"), new byte[100]);
+        S2DecodedTileCache cache = new S2DecodedTileCache(this.rootFolder, 0);
+
+        assertEquals(100, cache.getStatistics().getSize());
+        assertEquals("100", new String(Files.readAllBytes(productFolder.resolve(".size")), StandardCharsets.US_ASCII));
+    }
+
+    private Path createProductFolder(S2DecodedTileCache cache, String name, int size, long lastAccess) throws Exception {
+        Path productFolder = this.rootFolder.resolve(name);
+        cache.open(productFolder);
+        Files.write(productFolder.resolve("tile_0.tif"), new byte[size]);
+        cache.release(productFolder);
+        Files.setLastModifiedTime(productFolder.resolve(".last-access"), FileTime.fromMillis(lastAccess));
+        return productFolder;
+    }
+}
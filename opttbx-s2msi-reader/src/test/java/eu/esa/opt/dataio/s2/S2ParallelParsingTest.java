@@ -0,0 +1,51 @@
+package eu.esa.opt.dataio.s2;
+
+import org.esa.snap.utils.SharedExecutor;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class S2ParallelParsingTest {
+
+    @Test
+    public void testResultsAreInTheOrderOfTheItems() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(i);
+        }
+
+        List<String> results = S2ParallelParsing.parse("test parsing", items, SharedExecutor.Mode.IO, item -> "granule_" + item);
+
+        assertEquals(items.size(), results.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals("granule_" + i, results.get(i));
+        }
+        assertEquals(Collections.singletonList(2),
+                     S2ParallelParsing.parse("test parsing", Collections.singletonList(1), SharedExecutor.Mode.COMPUTE, item -> item + 1));
+    }
+
+    @Test
+    public void testParserExceptionIsRethrown() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            items.add(i);
+        }
+        try {
+            S2ParallelParsing.parse("test parsing", items, SharedExecutor.Mode.COMPUTE, item -> {
+                if (item == 5) {
+                    throw new IOException("corrupted granule");
+                }
+                return item;
+            });
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("corrupted granule", e.getMessage());
+        }
+    }
+}
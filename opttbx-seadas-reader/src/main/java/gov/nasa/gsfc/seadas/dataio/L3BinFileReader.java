@@ -12,6 +12,7 @@ import org.geotools.referencing.crs.DefaultGeographicCRS;
 import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.operation.TransformException;
 import ucar.ma2.Array;
+import ucar.ma2.ArrayStructure;
 import ucar.ma2.DataType;
 import ucar.ma2.InvalidRangeException;
 import ucar.nc2.Structure;
@@ -72,7 +73,7 @@ public class L3BinFileReader extends SeadasFileReader {
     }
 
     @Override
-    public synchronized void readBandData(Band destBand, int sourceOffsetX, int sourceOffsetY, int sourceWidth,
+    public void readBandData(Band destBand, int sourceOffsetX, int sourceOffsetY, int sourceWidth,
                              int sourceHeight, int sourceStepX, int sourceStepY, ProductData destBuffer,
                              ProgressMonitor pm) throws IOException, InvalidRangeException {
 
@@ -102,63 +103,47 @@ public class L3BinFileReader extends SeadasFileReader {
             buffer = ibuffer;
         }
 
-        if (rowInfo == null) {
-            rowInfo = createRowInfos();
-        }
+        final RowInfo[] rowInfos = getRowInfos();
+        final int[] bins = this.bins;
 
         final int height = sceneHeight;
         final int width = sceneWidth;
         final ISINGrid grid = this.grid;
 
 
-        // loop over lines
+        // loop over lines, only the bins of the tile columns are read, the tiles being read concurrently
         try {
-            int[] lineOffsets = new int[1];
-            int[] lineLengths = new int[1];
-            int[] stride = new int[1];
-            stride[0] = 1;
-
-
-//            for (int y = sourceOffsetY; y < sourceOffsetY + sourceHeight; y++) {
             for (int y = sourceOffsetY; y < sourceOffsetY + sourceHeight; y+=sourceStepY) {
-                    if (pm.isCanceled()) {
+                if (pm.isCanceled()) {
                     break;
                 }
                 final int rowIndex = (height - 1) - y;
-                final RowInfo rowInfo = this.rowInfo[rowIndex];
+                final RowInfo rowInfo = rowInfos[rowIndex];
                 if (rowInfo != null) {
 
                     final int lineOffset = rowInfo.offset;
-                    final int lineLength = rowInfo.length;
-
-
-                    lineOffsets[0] = lineOffset;
-                    lineLengths[0] = lineLength;
-                    final Object bindata;
-
-                    synchronized (ncFile) {
-                        bindata = variable.read().section(lineOffsets, lineLengths, stride).copyTo1DJavaArray();
-                    }
-                    int lineIndex0 = 0;
-                    for (int x = sourceOffsetX; x < sourceOffsetX + sourceWidth; x++) {
-                        final double lon = x * 360.0 / width;
-                        final int binIndex = grid.getBinIndex(rowIndex, lon);
-                        int lineIndex = -1;
-                        for (int i = lineIndex0; i < lineLength; i++) {
-                            int binidx = bins[lineOffset + i];
-                            if (binidx >= binIndex) {
-                                if (binidx == binIndex) {
-                                    lineIndex = i;
-                                }
-                                lineIndex0 = i;
-                                break;
+                    final int lineEnd = rowInfo.offset + rowInfo.length;
+
+                    // the bins of the row are in ascending order
+                    final int firstBinIndex = grid.getBinIndex(rowIndex, sourceOffsetX * 360.0 / width);
+                    final int lastBinIndex = grid.getBinIndex(rowIndex, (sourceOffsetX + sourceWidth - 1) * 360.0 / width);
+                    final int tileOffset = findFirstBin(bins, lineOffset, lineEnd, firstBinIndex);
+                    final int tileEnd = findFirstBin(bins, tileOffset, lineEnd, lastBinIndex + 1);
+
+                    if (tileOffset < tileEnd) {
+                        final Object bindata = readBins(variable, tileOffset, tileEnd - tileOffset);
+                        int lineIndex = tileOffset;
+                        for (int x = sourceOffsetX; x < sourceOffsetX + sourceWidth; x++) {
+                            final double lon = x * 360.0 / width;
+                            final int binIndex = grid.getBinIndex(rowIndex, lon);
+                            while (lineIndex < tileEnd && bins[lineIndex] < binIndex) {
+                                lineIndex++;
                             }
-                        }
+                            if (lineIndex < tileEnd && bins[lineIndex] == binIndex) {
+                                final int rasterIndex = sourceWidth * (y - sourceOffsetY) + (x - sourceOffsetX);
 
-                        if (lineIndex >= 0) {
-                            final int rasterIndex = sourceWidth * (y - sourceOffsetY) + (x - sourceOffsetX);
-
-                            System.arraycopy(bindata, lineIndex, buffer, rasterIndex, 1);
+                                System.arraycopy(bindata, lineIndex - tileOffset, buffer, rasterIndex, 1);
+                            }
                         }
                     }
                     pm.worked(1);
@@ -170,12 +155,54 @@ public class L3BinFileReader extends SeadasFileReader {
         }
     }
 
-    // Don't do this...it hurts.  Too much of a memory hog...
-    private void addBandsBinMap (Product product)throws IOException, InvalidRangeException {
-        String[] bandList = product.getBandNames();
+    /**
+     * Reads the records of a bin variable in the range [binOffset, binOffset + binCount) of the bin list.
+     */
+    private Object readBins(Variable variable, int binOffset, int binCount) throws IOException, InvalidRangeException {
+        final int[] origin = {binOffset};
+        final int[] shape = {binCount};
+        final Array bindata;
+        synchronized (ncFile) {
+            if (variable.isMemberOfStructure()) {
+                // a member can not be read by section, the records of its structure are read instead
+                final ArrayStructure records = (ArrayStructure) variable.getParentStructure().read(origin, shape);
+                bindata = records.extractMemberArray(records.findMember(variable.getShortName()));
+            } else {
+                bindata = variable.read(origin, shape);
+            }
+        }
+        return bindata.copyTo1DJavaArray();
+    }
+
+    /**
+     * Returns the position of the first bin of the range [from, to) of the bin list whose index is not less than
+     * the given bin index, or <code>to</code> if there is none.
+     */
+    static int findFirstBin(int[] bins, int from, int to, int binIndex) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (bins[mid] < binIndex) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private synchronized RowInfo[] getRowInfos() throws IOException {
         if (rowInfo == null) {
             rowInfo = createRowInfos();
         }
+        return rowInfo;
+    }
+
+    // Don't do this...it hurts.  Too much of a memory hog...
+    private void addBandsBinMap (Product product)throws IOException, InvalidRangeException {
+        String[] bandList = product.getBandNames();
+        getRowInfos();
 
         final int height = sceneHeight;
         final int width = sceneWidth;
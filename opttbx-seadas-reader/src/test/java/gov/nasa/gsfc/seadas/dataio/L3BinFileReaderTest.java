@@ -0,0 +1,23 @@
+package gov.nasa.gsfc.seadas.dataio;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class L3BinFileReaderTest {
+
+    @Test
+    public void testFindFirstBin() {
+        final int[] bins = {3, 4, 7, 8, 9, 15, 16, 20};
+
+        // the row [2, 6) holds the bins 7, 8, 9 and 15
+        assertEquals(2, L3BinFileReader.findFirstBin(bins, 2, 6, 0));
+        assertEquals(2, L3BinFileReader.findFirstBin(bins, 2, 6, 7));
+        assertEquals(3, L3BinFileReader.findFirstBin(bins, 2, 6, 8));
+        assertEquals(5, L3BinFileReader.findFirstBin(bins, 2, 6, 10));
+        assertEquals(5, L3BinFileReader.findFirstBin(bins, 2, 6, 15));
+        assertEquals(6, L3BinFileReader.findFirstBin(bins, 2, 6, 16));
+        assertEquals(6, L3BinFileReader.findFirstBin(bins, 2, 6, 100));
+        assertEquals(4, L3BinFileReader.findFirstBin(bins, 4, 4, 0));
+    }
+}
@@ -2,6 +2,7 @@ package eu.esa.opt.dataio.s3;
 
 import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.core.VirtualDir;
+import eu.esa.opt.dataio.NetcdfFilePool;
 import eu.esa.opt.dataio.s3.dddb.*;
 import eu.esa.opt.dataio.s3.manifest.Manifest;
 import eu.esa.opt.dataio.s3.manifest.ManifestUtil;
@@ -723,6 +724,9 @@ public class Sentinel3DddbReader extends AbstractProductReader implements Metada
                 }
 
                 netcdfFile = NetcdfFileOpener.open(file.getAbsolutePath());
+                if (netcdfFile != null) {
+                    NetcdfFilePool.open(netcdfFile);
+                }
                 filesMap.put(fileName, netcdfFile);
             }
         }
@@ -741,6 +745,7 @@ public class Sentinel3DddbReader extends AbstractProductReader implements Metada
         specialsMap.clear();
 
         for (final NetcdfFile ncFile : filesMap.values()) {
+            NetcdfFilePool.close(ncFile);
             ncFile.close();
         }
         filesMap.clear();
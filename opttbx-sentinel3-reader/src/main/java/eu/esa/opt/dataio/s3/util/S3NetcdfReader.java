@@ -2,6 +2,7 @@ package eu.esa.opt.dataio.s3.util;
 
 import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.multilevel.support.DefaultMultiLevelImage;
+import eu.esa.opt.dataio.NetcdfFilePool;
 import eu.esa.snap.core.datamodel.band.SparseDataBand;
 import org.esa.snap.core.dataio.AbstractProductReader;
 import org.esa.snap.core.datamodel.*;
@@ -51,6 +52,7 @@ public class S3NetcdfReader extends AbstractProductReader {
         if (netcdfFile == null) {
             throw new IOException(String.format("Not able to read file '%s'. Might be corrupted.", inputFile));
         }
+        NetcdfFilePool.open(netcdfFile);
 
         final String productType = readProductType();
         int productWidth = getWidth();
@@ -77,6 +79,7 @@ public class S3NetcdfReader extends AbstractProductReader {
     @Override
     public void close() throws IOException {
         if (netcdfFile != null) {
+            NetcdfFilePool.close(netcdfFile);
             netcdfFile.close();
             netcdfFile = null;
         }
@@ -1,5 +1,6 @@
 package eu.esa.opt.dataio.s3.util;
 
+import eu.esa.opt.dataio.NetcdfFilePool;
 import org.esa.snap.core.image.ResolutionLevel;
 import org.esa.snap.core.image.SingleBandedOpImage;
 import ucar.ma2.Array;
@@ -94,10 +95,7 @@ public class S3VariableOpImage extends SingleBandedOpImage {
 
         Array array;
         try {
-            synchronized (variable.getParentGroup().getNetcdfFile()) {
-                final Section section = new Section(origin, shape, stride);
-                array = variable.read(section);
-            }
+            array = NetcdfFilePool.read(variable, new Section(origin, shape, stride));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,88 @@
+package eu.esa.opt.mapper;
+
+/**
+ * Classifies spectra by their angle to the mean spectra of the classes.
+ * <br>The class spectra are normalised once, so the cosines of the angles between a pixel and all the classes are
+ * computed in a single pass over the bands. A pixel is assigned to the class of the smallest angle among the classes
+ * whose angle is below the class threshold; the thresholds are compared as cosines, without computing any angle.
+ *
+ * @since 14.0.0
+ */
+final class SpectralAngleClassifier {
+
+    private final int classCount;
+    private final int bandCount;
+    private final double[][] unitSpectra;
+    private final double[] cosineLimits;
+    private final int[] classValues;
+    private final int noDataValue;
+
+    /**
+     * @param classSpectra the mean spectrum of every class, <code>classSpectra[class][band]</code>
+     * @param angleLimits  the maximum angle, in radians, of every class, excluded
+     * @param classValues  the value of every class in the classification
+     * @param noDataValue  the value of the pixels not assigned to any class
+     */
+    SpectralAngleClassifier(float[][] classSpectra, double[] angleLimits, int[] classValues, int noDataValue) {
+        this.classCount = classSpectra.length;
+        this.bandCount = (this.classCount == 0) ? 0 : classSpectra[0].length;
+        this.unitSpectra = new double[this.classCount][this.bandCount];
+        this.cosineLimits = new double[this.classCount];
+        for (int c = 0; c < this.classCount; c++) {
+            double squareSum = 0;
+            for (int b = 0; b < this.bandCount; b++) {
+                squareSum += (double) classSpectra[c][b] * classSpectra[c][b];
+            }
+            final double norm = Math.sqrt(squareSum);
+            for (int b = 0; b < this.bandCount; b++) {
+                // a zero spectrum gives NaN cosines, which match no pixel
+                this.unitSpectra[c][b] = classSpectra[c][b] / norm;
+            }
+            final double limit = angleLimits[c];
+            this.cosineLimits[c] = (limit > 0) ? Math.cos(Math.min(limit, Math.PI)) : Double.POSITIVE_INFINITY;
+        }
+        this.classValues = classValues.clone();
+        this.noDataValue = noDataValue;
+    }
+
+    /**
+     * Classifies a run of pixels.
+     *
+     * @param bands        the samples of every band
+     * @param offset       the index of the first pixel in the band samples
+     * @param count        the number of pixels
+     * @param target       receives the class values
+     * @param targetOffset the index of the first pixel in the target
+     */
+    void classify(float[][] bands, int offset, int count, int[] target, int targetOffset) {
+        final double[] squareSums = new double[count];
+        final double[][] dots = new double[this.classCount][count];
+        for (int b = 0; b < this.bandCount; b++) {
+            final float[] samples = bands[b];
+            for (int p = 0; p < count; p++) {
+                final double value = samples[offset + p];
+                squareSums[p] += value * value;
+            }
+            for (int c = 0; c < this.classCount; c++) {
+                final double weight = this.unitSpectra[c][b];
+                final double[] classDots = dots[c];
+                for (int p = 0; p < count; p++) {
+                    classDots[p] += weight * samples[offset + p];
+                }
+            }
+        }
+        for (int p = 0; p < count; p++) {
+            final double norm = Math.sqrt(squareSums[p]);
+            int value = this.noDataValue;
+            double bestCosine = Double.NEGATIVE_INFINITY;
+            for (int c = 0; c < this.classCount; c++) {
+                final double cosine = dots[c][p] / norm;
+                if (cosine > this.cosineLimits[c] && cosine > bestCosine) {
+                    bestCosine = cosine;
+                    value = this.classValues[c];
+                }
+            }
+            target[targetOffset + p] = value;
+        }
+    }
+}
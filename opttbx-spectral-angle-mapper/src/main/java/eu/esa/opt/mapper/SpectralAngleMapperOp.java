@@ -2,8 +2,8 @@ package eu.esa.opt.mapper;
 
 import com.bc.ceres.core.ProgressMonitor;
 import eu.esa.opt.mapper.common.SpectralAngleMapperConstants;
+import eu.esa.opt.mapper.pixels.computing.ReferencePixelIndex;
 import eu.esa.opt.mapper.pixels.computing.SpectrumClassPixelsComputing;
-import eu.esa.opt.mapper.pixels.computing.SpectrumClassReferencePixels;
 import eu.esa.opt.mapper.pixels.computing.SpectrumClassReferencePixelsContainer;
 import eu.esa.opt.mapper.pixels.mean.Spectrum;
 import eu.esa.opt.mapper.pixels.mean.SpectrumComputing;
@@ -99,6 +99,8 @@ public class SpectralAngleMapperOp extends Operator {
     private SpectrumClassReferencePixelsContainer specPixelsContainer;
     private SpectrumContainer spectrumContainer;
     private int threadCount;
+    private ReferencePixelIndex referencePixelIndex;
+    private SpectralAngleClassifier classifier;
 
     @Override
     public void initialize() throws OperatorException {
@@ -256,6 +258,33 @@ public class SpectralAngleMapperOp extends Operator {
         }
 
         checkForCancellation();
+        this.referencePixelIndex = new ReferencePixelIndex(this.specPixelsContainer.getElements(), this.classColor);
+        this.classifier = createClassifier();
+    }
+
+    /**
+     * Creates the classifier of the class spectra, in the order of the spectrum container. A class is only assigned
+     * below the thresholds of the spectra with its name, and below an angle of 1 radian.
+     */
+    private SpectralAngleClassifier createClassifier() {
+        final List<Spectrum> classSpectra = this.spectrumContainer.getElements();
+        final float[][] meanValues = new float[classSpectra.size()][];
+        final double[] angleLimits = new double[classSpectra.size()];
+        final int[] classValues = new int[classSpectra.size()];
+        for (int i = 0; i < classSpectra.size(); i++) {
+            final Spectrum spec = classSpectra.get(i);
+            meanValues[i] = spec.getMeanValue();
+            double threshold = Double.NEGATIVE_INFINITY;
+            for (int spectrumIndex = 0; spectrumIndex < this.spectra.length; spectrumIndex++) {
+                if (this.spectra[spectrumIndex].getName().equals(spec.getClassName())) {
+                    threshold = Math.max(threshold, this.threshold.get(spectrumIndex));
+                }
+            }
+            angleLimits[i] = Math.min(threshold, 1.0);
+            final Integer color = this.classColor.get(spec.getClassName());
+            classValues[i] = (color == null) ? 0 : color;
+        }
+        return new SpectralAngleClassifier(meanValues, angleLimits, classValues, (int) SpectralAngleMapperConstants.NO_DATA_VALUE);
     }
 
     @Override
@@ -263,76 +292,21 @@ public class SpectralAngleMapperOp extends Operator {
         pm.beginTask("Computing SpectralAngleMapperOp", rectangle.height);
         checkForCancellation();
         try {
-            List<Tile> sourceTileList = new ArrayList<>();
-            for (String bandName : this.referenceBands) {
-                sourceTileList.add(getSourceTile(this.sourceProduct.getBand(bandName), rectangle));
+            float[][] bandSamples = new float[this.referenceBands.length][];
+            for (int i = 0; i < this.referenceBands.length; i++) {
+                bandSamples[i] = getSourceTile(this.sourceProduct.getBand(this.referenceBands[i]), rectangle).getSamplesFloat();
             }
             Tile samTile = targetTiles.get(this.targetProduct.getBand(SpectralAngleMapperConstants.SAM_BAND_NAME));
-            for (int y = rectangle.y; y < rectangle.y + rectangle.height; y++) {
-                for (int x = rectangle.x; x < rectangle.x + rectangle.width; x++) {
-                    // if a specific pixel is one that is already set by the user as making part of a class that pixel will be marked as belonging to that class and no
-                    boolean isSet = false;
-                    for (SpectrumClassReferencePixels spec: specPixelsContainer.getElements() ) {
-                        if (isSet) {
-                            break;
-                        }
-                        if (spec.getXPixelPositions().size() != 2) {
-                            if (x >= spec.getMinXPosition() && x <= spec.getMaxXPosition() &&
-                                    y >= spec.getMinYPosition() && y <= spec.getMaxYPosition()) {
-                                for (int index = 0; index < spec.getXPixelPositions().size(); index++) {
-                                    if (spec.getXPixelPositions().get(index) == x && spec.getYPixelPositions().get(index) == y ) {
-                                            samTile.setSample(x, y, this.classColor.get(spec.getClassName()));
-                                            isSet = true;
-                                            break;
-                                    }
-                                }
-                            }
-                        } else {
-                            for (int index = 0; index < spec.getXPixelPositions().size(); index++) {
-                                if (spec.getXPixelPositions().get(index) == x && spec.getYPixelPositions().get(index) == y) {
-                                    samTile.setSample(x, y, this.classColor.get(spec.getClassName()));
-                                    isSet = true;
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                    // if the pixel is not user set than the algorithm for spectral angle will classify it in one of the classes defined by the user
-                    if(!isSet) {
-                        boolean setPixelColor = false;
-                        double angleValue = 1.0;
-                        for (Spectrum spec : spectrumContainer.getElements()) {
-                            float valueSum = 0;
-                            float pixelValueSquareSum = 0;
-                            float spectrumPixelValueSquareSum = 0;
-                            for (int tileIndex = 0; tileIndex < sourceTileList.size(); tileIndex++) {
-                                float testedPixelValue = sourceTileList.get(tileIndex).getSampleFloat(x, y);
-                                valueSum += testedPixelValue * spec.getMeanValue()[tileIndex];
-                                pixelValueSquareSum += Math.pow(testedPixelValue, 2);
-                                spectrumPixelValueSquareSum += Math.pow(spec.getMeanValue()[tileIndex], 2);
-                            }
-                            double samAngle = Math.acos(valueSum / (Math.sqrt(pixelValueSquareSum) * (Math.sqrt(spectrumPixelValueSquareSum))));
-                            for (int spectrumIndex = 0; spectrumIndex < this.spectra.length; spectrumIndex++) {
-                                if (this.spectra[spectrumIndex].getName().equals(spec.getClassName())) {
-                                    if ((samAngle < this.threshold.get(spectrumIndex)) && (samAngle < angleValue)) {
-                                        samTile.setSample(x, y, this.classColor.get(spec.getClassName()));
-                                        setPixelColor = true;
-                                        angleValue = samAngle;
-                                    }
-                                }
-                            }
-                        }
-                        // if the pixel does not classify in either class then the pixel will be set as no data value
-                        if (!setPixelColor) {
-                            samTile.setSample(x, y, SpectralAngleMapperConstants.NO_DATA_VALUE);
-                        }
-                    }
-                }
+            int[] classes = new int[rectangle.width * rectangle.height];
+            for (int row = 0; row < rectangle.height; row++) {
+                this.classifier.classify(bandSamples, row * rectangle.width, rectangle.width, classes, row * rectangle.width);
                 checkForCancellation();
+                pm.worked(1);
             }
-            checkForCancellation();
-            pm.worked(1);
-        }finally {
+            // the pixels set by the user as belonging to a class keep that class
+            this.referencePixelIndex.apply(rectangle, classes);
+            samTile.setSamples(classes);
+        } finally {
             pm.done();
         }
     }
@@ -0,0 +1,103 @@
+package eu.esa.opt.mapper.pixels.computing;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.awt.Rectangle;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial index of the reference pixels set by the user, giving the value of the class of every reference pixel.
+ * <br>The reference pixels are grouped in square cells, so that the reference pixels of a tile are found by visiting
+ * only the cells intersecting the tile instead of every reference pixel of every class. A pixel belonging to
+ * several classes gets the value of the first of them.
+ *
+ * @since 14.0.0
+ */
+public class ReferencePixelIndex {
+
+    private static final int CELL_SIZE = 64;
+
+    private final Long2ObjectOpenHashMap<IntArrayList> cells;
+    private final int pixelCount;
+
+    /**
+     * @param referencePixels the reference pixels of the classes, in the order of precedence of the classes
+     * @param classValues     the value of every class, by class name
+     */
+    public ReferencePixelIndex(List<SpectrumClassReferencePixels> referencePixels, Map<String, Integer> classValues) {
+        final Long2IntOpenHashMap values = new Long2IntOpenHashMap();
+        for (SpectrumClassReferencePixels spec : referencePixels) {
+            final int value = classValues.get(spec.getClassName());
+            final IntArrayList xPositions = spec.getXPixelPositions();
+            final IntArrayList yPositions = spec.getYPixelPositions();
+            for (int index = 0; index < xPositions.size(); index++) {
+                values.putIfAbsent(pack(xPositions.getInt(index), yPositions.getInt(index)), value);
+            }
+        }
+        this.cells = new Long2ObjectOpenHashMap<>();
+        for (Long2IntMap.Entry entry : values.long2IntEntrySet()) {
+            final int x = (int) (entry.getLongKey() >> 32);
+            final int y = (int) entry.getLongKey();
+            final long cellKey = pack(Math.floorDiv(x, CELL_SIZE), Math.floorDiv(y, CELL_SIZE));
+            IntArrayList cell = this.cells.get(cellKey);
+            if (cell == null) {
+                cell = new IntArrayList();
+                this.cells.put(cellKey, cell);
+            }
+            cell.add(x);
+            cell.add(y);
+            cell.add(entry.getIntValue());
+        }
+        this.pixelCount = values.size();
+    }
+
+    /**
+     * Returns the number of distinct reference pixels.
+     */
+    public int getPixelCount() {
+        return this.pixelCount;
+    }
+
+    /**
+     * Writes the class values of the reference pixels inside a rectangle.
+     *
+     * @param rectangle the rectangle
+     * @param target    the samples of the rectangle, line by line
+     * @return the number of reference pixels found inside the rectangle
+     */
+    public int apply(Rectangle rectangle, int[] target) {
+        if (this.cells.isEmpty() || rectangle.isEmpty()) {
+            return 0;
+        }
+        final int firstColumn = Math.floorDiv(rectangle.x, CELL_SIZE);
+        final int lastColumn = Math.floorDiv(rectangle.x + rectangle.width - 1, CELL_SIZE);
+        final int firstRow = Math.floorDiv(rectangle.y, CELL_SIZE);
+        final int lastRow = Math.floorDiv(rectangle.y + rectangle.height - 1, CELL_SIZE);
+        int count = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                final IntArrayList cell = this.cells.get(pack(column, row));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size(); i += 3) {
+                    final int x = cell.getInt(i);
+                    final int y = cell.getInt(i + 1);
+                    if (rectangle.contains(x, y)) {
+                        target[(y - rectangle.y) * rectangle.width + (x - rectangle.x)] = cell.getInt(i + 2);
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,42 @@
+package eu.esa.opt.mapper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class SpectralAngleClassifierTest {
+
+    @Test
+    public void testClassify() {
+        float[][] classSpectra = {
+                {1.0f, 0.0f, 0.0f},
+                {0.0f, 2.0f, 0.0f},
+                {1.0f, 1.0f, 0.0f},
+        };
+        double[] angleLimits = {0.3, 0.3, 0.1};
+        int[] classValues = {200, 400, 600};
+        SpectralAngleClassifier classifier = new SpectralAngleClassifier(classSpectra, angleLimits, classValues, 0);
+
+        // band samples of 6 pixels, the first one is skipped by the offset
+        float[][] bands = {
+                {9.0f, 5.0f, 0.1f, 3.0f, 3.0f, 0.0f, 1.0f},
+                {9.0f, 0.5f, 4.0f, 3.1f, 1.0f, 0.0f, 0.0f},
+                {9.0f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 5.0f},
+        };
+        int[] target = new int[7];
+        classifier.classify(bands, 1, 6, target, 1);
+
+        // the pixel (3, 1, 0) is at 0.32 rad of the first class and 0.46 rad of the third one
+        assertArrayEquals(new int[]{0, 200, 400, 600, 0, 0, 0}, target);
+    }
+
+    @Test
+    public void testClassesWithoutThresholdAreNeverAssigned() {
+        float[][] classSpectra = {{1.0f, 0.0f}, {1.0f, 0.1f}};
+        SpectralAngleClassifier classifier = new SpectralAngleClassifier(classSpectra, new double[]{Double.NEGATIVE_INFINITY, 0.5},
+                                                                         new int[]{200, 400}, 0);
+        int[] target = new int[1];
+        classifier.classify(new float[][]{{2.0f}, {0.0f}}, 0, 1, target, 0);
+        assertArrayEquals(new int[]{400}, target);
+    }
+}
@@ -0,0 +1,46 @@
+package eu.esa.opt.mapper.pixels.computing;
+
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ReferencePixelIndexTest {
+
+    @Test
+    public void testApply() {
+        SpectrumClassReferencePixels first = new SpectrumClassReferencePixels("first");
+        first.addElements(1, 1);
+        first.addElements(2, 1);
+        first.addElements(100, 70);
+        SpectrumClassReferencePixels second = new SpectrumClassReferencePixels("second");
+        // shared with the first class, which takes precedence
+        second.addElements(2, 1);
+        second.addElements(3, 2);
+        Map<String, Integer> classValues = new HashMap<>();
+        classValues.put("first", 200);
+        classValues.put("second", 400);
+
+        ReferencePixelIndex index = new ReferencePixelIndex(Arrays.asList(first, second), classValues);
+        assertEquals(4, index.getPixelCount());
+
+        int[] samples = new int[4 * 3];
+        assertEquals(3, index.apply(new Rectangle(0, 0, 4, 3), samples));
+        assertArrayEquals(new int[]{
+                0, 0, 0, 0,
+                0, 200, 200, 0,
+                0, 0, 0, 400
+        }, samples);
+
+        samples = new int[64 * 64];
+        assertEquals(1, index.apply(new Rectangle(64, 64, 64, 64), samples));
+        assertEquals(200, samples[6 * 64 + 36]);
+
+        assertEquals(0, index.apply(new Rectangle(200, 200, 64, 64), new int[64 * 64]));
+    }
+}
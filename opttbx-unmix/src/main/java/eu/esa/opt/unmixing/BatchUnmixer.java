@@ -0,0 +1,446 @@
+package eu.esa.opt.unmixing;
+
+import Jama.CholeskyDecomposition;
+import Jama.Matrix;
+import Jama.QRDecomposition;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Linear spectral unmixing of many pixels at once.
+ * <br>The pseudo-inverse of the endmember matrix is computed once, from its QR decomposition, so that the least
+ * squares abundances of a block of pixels are a single matrix product. The sum-to-one constraint is a rank one
+ * correction of these abundances. The fully constrained abundances, which must also be non-negative, are found by
+ * an active set method working on the Gram matrix of the endmembers, which is started from the set of endmembers
+ * used by the previous pixel; the factorisations of the Gram matrix restricted to the sets of endmembers are kept
+ * for the following pixels.
+ * <br>The instances can be used by several threads.
+ *
+ * @since 14.0.0
+ */
+final class BatchUnmixer {
+
+    enum Model {
+        UNCONSTRAINED,
+        CONSTRAINED,
+        FULLY_CONSTRAINED
+    }
+
+    /**
+     * The maximum number of factorisations of the restricted Gram matrix which are kept.
+     */
+    private static final int MAX_CACHED_SUBSETS = 4096;
+
+    private final Model model;
+    private final int numBands;
+    private final int numEndmembers;
+    private final double[][] endmembers;
+    private final double[][] pseudoInverse;
+    private final double[] correctionFactors;
+    private final double[][] gram;
+    private final double gradientTolerance;
+    private final Map<Long, Subset> subsets;
+
+    /**
+     * @param endmembers the endmember matrix, <code>endmembers[band][endmember]</code>
+     * @param model      the constraints of the abundances
+     * @throws IllegalArgumentException if the endmember spectra are linearly dependent
+     */
+    BatchUnmixer(double[][] endmembers, Model model) {
+        this.model = model;
+        this.numBands = endmembers.length;
+        this.numEndmembers = endmembers[0].length;
+        if (this.numBands < this.numEndmembers) {
+            throw new IllegalArgumentException("The number of bands must be at least the number of endmembers.");
+        }
+        this.endmembers = new double[this.numBands][];
+        for (int b = 0; b < this.numBands; b++) {
+            this.endmembers[b] = endmembers[b].clone();
+        }
+        final Matrix matrix = new Matrix(this.endmembers);
+        final QRDecomposition qr = matrix.qr();
+        if (!qr.isFullRank()) {
+            throw new IllegalArgumentException("The endmember spectra are linearly dependent.");
+        }
+        this.pseudoInverse = qr.solve(Matrix.identity(this.numBands, this.numBands)).getArray();
+
+        // (A'A)^-1 = P P', the sum-to-one correction moves the abundances along (A'A)^-1 1
+        this.correctionFactors = new double[this.numEndmembers];
+        double sum = 0;
+        for (int i = 0; i < this.numEndmembers; i++) {
+            for (int j = 0; j < this.numEndmembers; j++) {
+                this.correctionFactors[i] += dot(this.pseudoInverse[i], this.pseudoInverse[j]);
+            }
+            sum += this.correctionFactors[i];
+        }
+        for (int i = 0; i < this.numEndmembers; i++) {
+            this.correctionFactors[i] /= sum;
+        }
+
+        this.gram = matrix.transpose().times(matrix).getArray();
+        double maxDiagonal = 0;
+        for (int i = 0; i < this.numEndmembers; i++) {
+            maxDiagonal = Math.max(maxDiagonal, this.gram[i][i]);
+        }
+        this.gradientTolerance = 1.0e-10 * maxDiagonal;
+        this.subsets = (model == Model.FULLY_CONSTRAINED && this.numEndmembers < Long.SIZE) ? new ConcurrentHashMap<>() : null;
+    }
+
+    int getNumBands() {
+        return this.numBands;
+    }
+
+    int getNumEndmembers() {
+        return this.numEndmembers;
+    }
+
+    /**
+     * Unmixes a block of pixels.
+     *
+     * @param spectra    the spectra, <code>spectra[band][pixel]</code>
+     * @param count      the number of pixels
+     * @param abundances receives the abundances, <code>abundances[endmember][pixel]</code>
+     */
+    void unmix(float[][] spectra, int count, float[][] abundances) {
+        final double[][] leastSquares = new double[this.numEndmembers][count];
+        for (int i = 0; i < this.numEndmembers; i++) {
+            final double[] row = this.pseudoInverse[i];
+            final double[] result = leastSquares[i];
+            for (int b = 0; b < this.numBands; b++) {
+                final double factor = row[b];
+                final float[] bandSpectra = spectra[b];
+                for (int p = 0; p < count; p++) {
+                    result[p] += factor * bandSpectra[p];
+                }
+            }
+        }
+        if (this.model != Model.UNCONSTRAINED) {
+            applySumToOne(leastSquares, count);
+        }
+        if (this.model == Model.FULLY_CONSTRAINED) {
+            applyNonNegativity(leastSquares, count);
+        }
+        for (int i = 0; i < this.numEndmembers; i++) {
+            final double[] source = leastSquares[i];
+            final float[] target = abundances[i];
+            for (int p = 0; p < count; p++) {
+                target[p] = (float) source[p];
+            }
+        }
+    }
+
+    /**
+     * Computes the difference between the spectra and the spectra mixed from the abundances.
+     *
+     * @param spectra    the spectra, <code>spectra[band][pixel]</code>
+     * @param count      the number of pixels
+     * @param abundances the abundances, <code>abundances[endmember][pixel]</code>
+     * @param errors     receives the errors, <code>errors[band][pixel]</code>
+     * @param rmse       receives the root mean square of the errors of every pixel, or <code>null</code>
+     */
+    void computeErrors(float[][] spectra, int count, float[][] abundances, float[][] errors, float[] rmse) {
+        final double[] mixed = new double[count];
+        final double[] squareSum = (rmse == null) ? null : new double[count];
+        for (int b = 0; b < this.numBands; b++) {
+            Arrays.fill(mixed, 0.0);
+            final double[] row = this.endmembers[b];
+            for (int i = 0; i < this.numEndmembers; i++) {
+                final double factor = row[i];
+                final float[] abundance = abundances[i];
+                for (int p = 0; p < count; p++) {
+                    mixed[p] += factor * abundance[p];
+                }
+            }
+            final float[] bandSpectra = spectra[b];
+            final float[] bandErrors = errors[b];
+            for (int p = 0; p < count; p++) {
+                final double error = bandSpectra[p] - mixed[p];
+                bandErrors[p] = (float) error;
+                if (squareSum != null) {
+                    squareSum[p] += error * error;
+                }
+            }
+        }
+        if (rmse != null) {
+            for (int p = 0; p < count; p++) {
+                rmse[p] = (float) Math.sqrt(squareSum[p] / this.numBands);
+            }
+        }
+    }
+
+    private void applySumToOne(double[][] abundances, int count) {
+        final double[] sums = new double[count];
+        for (int i = 0; i < this.numEndmembers; i++) {
+            final double[] abundance = abundances[i];
+            for (int p = 0; p < count; p++) {
+                sums[p] += abundance[p];
+            }
+        }
+        for (int i = 0; i < this.numEndmembers; i++) {
+            final double factor = this.correctionFactors[i];
+            final double[] abundance = abundances[i];
+            for (int p = 0; p < count; p++) {
+                abundance[p] += factor * (1.0 - sums[p]);
+            }
+        }
+    }
+
+    /**
+     * Replaces the sum-to-one abundances having a negative component by the fully constrained ones.
+     */
+    private void applyNonNegativity(double[][] abundances, int count) {
+        final int m = this.numEndmembers;
+        final double[] x = new double[m];
+        final double[] h = new double[m];
+        final boolean[] passive = new boolean[m];
+        final boolean[] warmStart = new boolean[m];
+        boolean warmStartValid = false;
+        for (int p = 0; p < count; p++) {
+            boolean feasible = true;
+            boolean valid = true;
+            for (int i = 0; i < m; i++) {
+                x[i] = abundances[i][p];
+                feasible &= x[i] >= 0.0;
+                valid &= Double.isFinite(x[i]);
+            }
+            if (!valid) {
+                for (int i = 0; i < m; i++) {
+                    abundances[i][p] = Double.NaN;
+                }
+                continue;
+            }
+            if (feasible) {
+                continue;
+            }
+            // the gradient terms A'y of the pixel, from the sum-to-one abundances: G x = A'y - nu 1
+            computeLinearTerm(x, h);
+            solveFullyConstrained(h, x, passive, warmStartValid ? warmStart : null);
+            System.arraycopy(passive, 0, warmStart, 0, m);
+            warmStartValid = true;
+            for (int i = 0; i < m; i++) {
+                abundances[i][p] = x[i];
+            }
+        }
+    }
+
+    private void computeLinearTerm(double[] x, double[] h) {
+        // adding a multiple of the ones vector to h does not change the constrained solutions
+        for (int i = 0; i < this.numEndmembers; i++) {
+            h[i] = dot(this.gram[i], x);
+        }
+    }
+
+    /**
+     * Minimises <code>x'Gx - 2h'x</code> subject to <code>x &gt;= 0</code> and <code>sum(x) = 1</code>, with a primal
+     * active set method.
+     */
+    private void solveFullyConstrained(double[] h, double[] x, boolean[] passive, boolean[] warmStart) {
+        final int m = this.numEndmembers;
+        final double[] z = new double[m];
+        boolean started = false;
+        if (warmStart != null) {
+            System.arraycopy(warmStart, 0, passive, 0, m);
+            if (solveSubset(passive, h, z) && isNonNegative(passive, z)) {
+                System.arraycopy(z, 0, x, 0, m);
+                started = true;
+            }
+        }
+        if (!started) {
+            // start from the best vertex of the simplex
+            int best = 0;
+            double bestValue = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < m; i++) {
+                final double value = this.gram[i][i] - 2.0 * h[i];
+                if (value < bestValue) {
+                    bestValue = value;
+                    best = i;
+                }
+            }
+            Arrays.fill(passive, false);
+            Arrays.fill(x, 0.0);
+            passive[best] = true;
+            x[best] = 1.0;
+        }
+        final int maxIterations = 4 * m + 16;
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            if (!solveSubset(passive, h, z)) {
+                return;
+            }
+            if (isNonNegative(passive, z)) {
+                System.arraycopy(z, 0, x, 0, m);
+                // the multipliers of the inactive bounds, relative to the multiplier of the sum
+                double passiveGradient = 0;
+                int passiveCount = 0;
+                final double[] gradient = new double[m];
+                for (int i = 0; i < m; i++) {
+                    gradient[i] = dot(this.gram[i], x) - h[i];
+                    if (passive[i]) {
+                        passiveGradient += gradient[i];
+                        passiveCount++;
+                    }
+                }
+                passiveGradient /= passiveCount;
+                int entering = -1;
+                double minMultiplier = -this.gradientTolerance;
+                for (int i = 0; i < m; i++) {
+                    if (!passive[i] && gradient[i] - passiveGradient < minMultiplier) {
+                        minMultiplier = gradient[i] - passiveGradient;
+                        entering = i;
+                    }
+                }
+                if (entering == -1) {
+                    return;
+                }
+                passive[entering] = true;
+            } else {
+                // move towards z until the first abundance reaches zero
+                double step = 1.0;
+                int blocking = -1;
+                for (int i = 0; i < m; i++) {
+                    if (passive[i] && z[i] < 0.0) {
+                        final double ratio = x[i] / (x[i] - z[i]);
+                        if (ratio < step) {
+                            step = ratio;
+                            blocking = i;
+                        }
+                    }
+                }
+                for (int i = 0; i < m; i++) {
+                    if (passive[i]) {
+                        x[i] += step * (z[i] - x[i]);
+                        if (i == blocking || x[i] <= 0.0) {
+                            x[i] = 0.0;
+                            passive[i] = false;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isNonNegative(boolean[] passive, double[] z) {
+        for (int i = 0; i < z.length; i++) {
+            if (passive[i] && z[i] < 0.0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solves the sum-to-one problem restricted to the passive endmembers, the other abundances are set to zero.
+     *
+     * @return <code>false</code> if the passive set is empty
+     */
+    private boolean solveSubset(boolean[] passive, double[] h, double[] z) {
+        final Subset subset = getSubset(passive);
+        if (subset == null) {
+            return false;
+        }
+        final int[] indices = subset.indices;
+        final int k = indices.length;
+        final double[] w = new double[k];
+        double wSum = 0;
+        for (int r = 0; r < k; r++) {
+            final double[] inverseRow = subset.inverse[r];
+            double value = 0;
+            for (int c = 0; c < k; c++) {
+                value += inverseRow[c] * h[indices[c]];
+            }
+            w[r] = value;
+            wSum += value;
+        }
+        final double mu = (1.0 - wSum) / subset.onesSum;
+        Arrays.fill(z, 0.0);
+        for (int r = 0; r < k; r++) {
+            z[indices[r]] = w[r] + mu * subset.inverseOnes[r];
+        }
+        return true;
+    }
+
+    private Subset getSubset(boolean[] passive) {
+        if (this.subsets == null) {
+            return createSubset(passive);
+        }
+        long key = 0;
+        for (int i = 0; i < passive.length; i++) {
+            if (passive[i]) {
+                key |= 1L << i;
+            }
+        }
+        if (key == 0) {
+            return null;
+        }
+        Subset subset = this.subsets.get(key);
+        if (subset == null) {
+            subset = createSubset(passive);
+            if (this.subsets.size() < MAX_CACHED_SUBSETS) {
+                this.subsets.put(key, subset);
+            }
+        }
+        return subset;
+    }
+
+    private Subset createSubset(boolean[] passive) {
+        int k = 0;
+        for (boolean p : passive) {
+            if (p) {
+                k++;
+            }
+        }
+        if (k == 0) {
+            return null;
+        }
+        final int[] indices = new int[k];
+        for (int i = 0, n = 0; i < passive.length; i++) {
+            if (passive[i]) {
+                indices[n++] = i;
+            }
+        }
+        final double[][] restricted = new double[k][k];
+        for (int r = 0; r < k; r++) {
+            for (int c = 0; c < k; c++) {
+                restricted[r][c] = this.gram[indices[r]][indices[c]];
+            }
+        }
+        final CholeskyDecomposition cholesky = new Matrix(restricted).chol();
+        final double[][] inverse = cholesky.solve(Matrix.identity(k, k)).getArray();
+        final double[] inverseOnes = new double[k];
+        double onesSum = 0;
+        for (int r = 0; r < k; r++) {
+            for (int c = 0; c < k; c++) {
+                inverseOnes[r] += inverse[r][c];
+            }
+            onesSum += inverseOnes[r];
+        }
+        return new Subset(indices, inverse, inverseOnes, onesSum);
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * The inverse of the Gram matrix restricted to a set of endmembers.
+     */
+    private static final class Subset {
+
+        private final int[] indices;
+        private final double[][] inverse;
+        private final double[] inverseOnes;
+        private final double onesSum;
+
+        private Subset(int[] indices, double[][] inverse, double[] inverseOnes, double onesSum) {
+            this.indices = indices;
+            this.inverse = inverse;
+            this.inverseOnes = inverseOnes;
+            this.onesSum = onesSum;
+        }
+    }
+}
@@ -28,10 +28,6 @@ import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.core.util.io.CsvReader;
-import org.esa.snap.core.util.math.ConstrainedLSU;
-import org.esa.snap.core.util.math.FullyConstrainedLSU;
-import org.esa.snap.core.util.math.SpectralUnmixing;
-import org.esa.snap.core.util.math.UnconstrainedLSU;
 
 import java.awt.Rectangle;
 import java.io.File;
@@ -58,6 +54,11 @@ public class SpectralUnmixingOp extends Operator {
     private final String C_LSU = "Constrained LSU";
     private final String FC_LSU = "Fully Constrained LSU";
 
+    /**
+     * The maximum number of source samples read at once, the tiles are unmixed in strips of rows.
+     */
+    private static final int STRIP_SAMPLE_COUNT = 1 << 20;
+
     @SourceProduct(alias = "source", description = "The source product.")
     Product sourceProduct;
 
@@ -92,43 +93,11 @@ public class SpectralUnmixingOp extends Operator {
     private Band[] abundanceBands;
     private Band[] errorBands;
     private Band summaryErrorBand;
-    private SpectralUnmixing spectralUnmixing;
+    private BatchUnmixer unmixer;
 
     public SpectralUnmixingOp() {
     }
 
-    private static void computeErrorTiles(Rectangle rectangle, Tile[] errorTilesc, Tile summaryErrorTile, int y, double[][] ia, double[][] ia2) {
-        final double[] errSqrSumRow = new double[rectangle.width];
-        for (int i = 0; i < errorTilesc.length; i++) {
-            final Tile errorTile = errorTilesc[i];
-            final double[] iaRow = ia[i];
-            final double[] ia2Row = ia2[i];
-            double err;
-            int j = 0;
-            for (int x = rectangle.x; x < rectangle.x + rectangle.width; x++) {
-                err = iaRow[j] - ia2Row[j];
-                errorTile.setSample(x, y, err);
-                errSqrSumRow[j] += err * err;
-                j++;
-            }
-        }
-        if (summaryErrorTile != null) {
-            int j = 0;
-            for (int x = rectangle.x; x < rectangle.x + rectangle.width; x++) {
-                summaryErrorTile.setSample(x, y, Math.sqrt(errSqrSumRow[j] / errorTilesc.length));
-                j++;
-            }
-        }
-    }
-
-    private static void setAbundances(Rectangle rectangle, Tile targetTile, int y, double[] oaRow) {
-        int i = 0;
-        for (int x = rectangle.x; x < rectangle.x + rectangle.width; x++) {
-            targetTile.setSample(x, y, oaRow[i]);
-            i++;
-        }
-    }
-
     public static int findEndmemberSpectralIndex(double[] endmemberWavelengths, double sourceBandWavelength, double maxBandwidth) {
         double minDelta = Double.MAX_VALUE;
         int bestIndex = -1;
@@ -372,14 +341,16 @@ public class SpectralUnmixingOp extends Operator {
                 }
             }
 
-            if (UC_LSU.equals(unmixingModelName)) {
-                spectralUnmixing = new UnconstrainedLSU(lsuMatrixElements);
-            } else if (C_LSU.equals(unmixingModelName)) {
-                spectralUnmixing = new ConstrainedLSU(lsuMatrixElements);
+            BatchUnmixer.Model model = BatchUnmixer.Model.UNCONSTRAINED;
+            if (C_LSU.equals(unmixingModelName)) {
+                model = BatchUnmixer.Model.CONSTRAINED;
             } else if (FC_LSU.equals(unmixingModelName)) {
-                spectralUnmixing = new FullyConstrainedLSU(lsuMatrixElements);
-            } else if (unmixingModelName == null) {
-                spectralUnmixing = new UnconstrainedLSU(lsuMatrixElements);
+                model = BatchUnmixer.Model.FULLY_CONSTRAINED;
+            }
+            try {
+                unmixer = new BatchUnmixer(lsuMatrixElements, model);
+            } catch (IllegalArgumentException e) {
+                throw new OperatorException(e.getMessage(), e);
             }
             pm.worked(10);
         } finally {
@@ -389,66 +360,81 @@ public class SpectralUnmixingOp extends Operator {
 
     @Override
     public void computeTile(Band band, Tile targetTile, ProgressMonitor pm) throws OperatorException {
-        Rectangle rectangle = targetTile.getRectangle();
         int i = getTargetBandIndex(targetTile);
         if (i == -1) {
             return;
         }
-        Tile[] sourceRaster = getSourceTiles(rectangle);
-        for (int y = rectangle.y; y < rectangle.y + rectangle.height; y++) {
-            double[][] ia = getLineSpectra(sourceRaster, rectangle, y);
-            double[][] oa = unmix(ia);
-            setAbundances(rectangle, targetTile, y, oa[i]);
-            checkForCancellation();
-        }
+        Tile[] abundanceTiles = new Tile[abundanceBands.length];
+        abundanceTiles[i] = targetTile;
+        unmixTile(targetTile.getRectangle(), abundanceTiles, null, null);
     }
 
     @Override
     public void computeTileStack(Map<Band, Tile> targetTiles, Rectangle targetTileRectangle, ProgressMonitor pm) throws OperatorException {
         Tile[] abundanceTiles = new Tile[abundanceBands.length];
-        Tile[] intensityTiles = getSourceTiles(targetTileRectangle);
         for (int i = 0; i < abundanceBands.length; i++) {
             abundanceTiles[i] = targetTiles.get(abundanceBands[i]);
         }
         Tile[] errorTiles = null;
         Tile summaryErrorTile = null;
         if (computeErrorBands) {
-            errorTiles = new Tile[intensityTiles.length];
+            errorTiles = new Tile[sourceBands.length];
             for (int i = 0; i < errorTiles.length; i++) {
                 errorTiles[i] = targetTiles.get(errorBands[i]);
             }
             summaryErrorTile = targetTiles.get(summaryErrorBand);
         }
-        for (int y = targetTileRectangle.y; y < targetTileRectangle.y + targetTileRectangle.height; y++) {
-            double[][] ia = getLineSpectra(intensityTiles, targetTileRectangle, y);
-            double[][] oa = unmix(ia);
-            for (int i = 0; i < abundanceBands.length; i++) {
-                setAbundances(targetTileRectangle, abundanceTiles[i], y, oa[i]);
-                checkForCancellation();
-            }
-            if (computeErrorBands) {
-                final double[][] ia2 = mix(oa);
-                computeErrorTiles(targetTileRectangle, errorTiles, summaryErrorTile, y, ia, ia2);
-            }
-        }
+        unmixTile(targetTileRectangle, abundanceTiles, errorTiles, summaryErrorTile);
     }
 
-    private Tile[] getSourceTiles(Rectangle rectangle) throws OperatorException {
-        Tile[] sourceRaster = new Tile[sourceBands.length];
-        for (int i = 0; i < sourceBands.length; i++) {
-            sourceRaster[i] = getSourceTile(sourceBands[i], rectangle);
+    /**
+     * Unmixes a tile in strips of rows and writes the abundances and errors into the given target tiles, which may
+     * be <code>null</code> for the bands which are not computed.
+     */
+    private void unmixTile(Rectangle rectangle, Tile[] abundanceTiles, Tile[] errorTiles, Tile summaryErrorTile) throws OperatorException {
+        final int numSourceBands = sourceBands.length;
+        final int rowsPerStrip = Math.max(1, Math.min(rectangle.height, STRIP_SAMPLE_COUNT / (numSourceBands * rectangle.width)));
+        final int maxCount = rowsPerStrip * rectangle.width;
+        final float[][] spectra = new float[numSourceBands][];
+        final float[][] abundances = new float[abundanceBands.length][maxCount];
+        final float[][] errors = (errorTiles == null) ? null : new float[numSourceBands][maxCount];
+        final float[] summaryErrors = (summaryErrorTile == null) ? null : new float[maxCount];
+        for (int y = rectangle.y; y < rectangle.y + rectangle.height; y += rowsPerStrip) {
+            final Rectangle strip = new Rectangle(rectangle.x, y, rectangle.width, Math.min(rowsPerStrip, rectangle.y + rectangle.height - y));
+            final int count = strip.width * strip.height;
+            for (int i = 0; i < numSourceBands; i++) {
+                spectra[i] = getSourceTile(sourceBands[i], strip).getSamplesFloat();
+            }
+            unmixer.unmix(spectra, count, abundances);
+            for (int i = 0; i < abundanceTiles.length; i++) {
+                if (abundanceTiles[i] != null) {
+                    setSamples(abundanceTiles[i], strip, abundances[i]);
+                }
+            }
+            if (errors != null) {
+                unmixer.computeErrors(spectra, count, abundances, errors, summaryErrors);
+                for (int i = 0; i < errorTiles.length; i++) {
+                    setSamples(errorTiles[i], strip, errors[i]);
+                }
+                if (summaryErrors != null) {
+                    setSamples(summaryErrorTile, strip, summaryErrors);
+                }
+            }
+            checkForCancellation();
         }
-        return sourceRaster;
     }
 
-    private double[][] getLineSpectra(Tile[] sourceRasters, Rectangle rectangle, int y) throws OperatorException {
-        double[][] ia = new double[sourceBands.length][rectangle.width];
-        for (int i = 0; i < sourceBands.length; i++) {
-            for (int x = rectangle.x; x < rectangle.x + rectangle.width; x++) {
-                ia[i][x - rectangle.x] = sourceRasters[i].getSampleDouble(x, y);
-            }
+    /**
+     * Copies the samples of a strip into the float data buffer of a target tile.
+     */
+    private static void setSamples(Tile targetTile, Rectangle strip, float[] samples) {
+        final float[] data = targetTile.getDataBufferFloat();
+        final int stride = targetTile.getScanlineStride();
+        int offset = targetTile.getScanlineOffset() + (strip.y - targetTile.getMinY()) * stride + (strip.x - targetTile.getMinX());
+        for (int row = 0; row < strip.height; row++) {
+            System.arraycopy(samples, row * strip.width, data, offset, strip.width);
+            offset += stride;
         }
-        return ia;
     }
 
     private int getTargetBandIndex(Tile targetTile) {
@@ -463,14 +449,6 @@ public class SpectralUnmixingOp extends Operator {
         return index;
     }
 
-    private double[][] unmix(double[][] ia) {
-        return spectralUnmixing.unmix(ia);
-    }
-
-    private double[][] mix(double[][] ia) {
-        return spectralUnmixing.mix(ia);
-    }
-
     private void loadEndmemberFile() throws OperatorException {
         try {
             try (FileReader fileReader = new FileReader(endmemberFile)) {
@@ -0,0 +1,218 @@
+package eu.esa.opt.unmixing;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchUnmixerTest {
+
+    // 6 bands, 3 endmembers
+    private static final double[][] ENDMEMBERS = {
+            {0.10, 0.60, 0.30},
+            {0.15, 0.55, 0.35},
+            {0.20, 0.40, 0.45},
+            {0.30, 0.30, 0.40},
+            {0.45, 0.20, 0.30},
+            {0.60, 0.10, 0.25},
+    };
+
+    @Test
+    public void testUnconstrainedRecoversTheAbundancesOfMixtures() {
+        final BatchUnmixer unmixer = new BatchUnmixer(ENDMEMBERS, BatchUnmixer.Model.UNCONSTRAINED);
+        final double[][] abundances = {{0.2, 0.5, 0.3}, {1.5, -0.25, 0.1}, {0.0, 0.0, 0.0}};
+        final float[][] spectra = mix(abundances);
+        final float[][] result = new float[3][abundances.length];
+        unmixer.unmix(spectra, abundances.length, result);
+        for (int p = 0; p < abundances.length; p++) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(abundances[p][i], result[i][p], 1.0e-5);
+            }
+        }
+    }
+
+    @Test
+    public void testConstrainedAbundancesSumToOne() {
+        final BatchUnmixer unmixer = new BatchUnmixer(ENDMEMBERS, BatchUnmixer.Model.CONSTRAINED);
+        final float[][] spectra = randomSpectra(50, 1);
+        final float[][] result = new float[3][50];
+        unmixer.unmix(spectra, 50, result);
+        for (int p = 0; p < 50; p++) {
+            final double[] expected = solveConstrained(spectra, p, new boolean[]{true, true, true});
+            double sum = 0;
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected[i], result[i][p], 1.0e-4);
+                sum += result[i][p];
+            }
+            assertEquals(1.0, sum, 1.0e-5);
+        }
+    }
+
+    @Test
+    public void testFullyConstrainedAbundancesAreOptimal() {
+        final BatchUnmixer unmixer = new BatchUnmixer(ENDMEMBERS, BatchUnmixer.Model.FULLY_CONSTRAINED);
+        final int count = 500;
+        final float[][] spectra = randomSpectra(count, 2);
+        final float[][] result = new float[3][count];
+        unmixer.unmix(spectra, count, result);
+        for (int p = 0; p < count; p++) {
+            // the optimum is the best feasible solution of the sum-to-one problems of all the subsets of endmembers
+            double bestResidual = Double.POSITIVE_INFINITY;
+            for (int mask = 1; mask < 8; mask++) {
+                final boolean[] subset = {(mask & 1) != 0, (mask & 2) != 0, (mask & 4) != 0};
+                final double[] candidate = solveConstrained(spectra, p, subset);
+                if (candidate[0] >= 0 && candidate[1] >= 0 && candidate[2] >= 0) {
+                    bestResidual = Math.min(bestResidual, residual(spectra, p, candidate));
+                }
+            }
+            double sum = 0;
+            final double[] abundances = new double[3];
+            for (int i = 0; i < 3; i++) {
+                assertTrue(result[i][p] >= 0.0f);
+                abundances[i] = result[i][p];
+                sum += result[i][p];
+            }
+            assertEquals(1.0, sum, 1.0e-5);
+            assertEquals(bestResidual, residual(spectra, p, abundances), 1.0e-5);
+        }
+    }
+
+    @Test
+    public void testInvalidSpectraGiveInvalidAbundances() {
+        final BatchUnmixer unmixer = new BatchUnmixer(ENDMEMBERS, BatchUnmixer.Model.FULLY_CONSTRAINED);
+        final float[][] spectra = randomSpectra(1, 3);
+        spectra[2][0] = Float.NaN;
+        final float[][] result = new float[3][1];
+        unmixer.unmix(spectra, 1, result);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(Float.isNaN(result[i][0]));
+        }
+    }
+
+    @Test
+    public void testComputeErrors() {
+        final BatchUnmixer unmixer = new BatchUnmixer(ENDMEMBERS, BatchUnmixer.Model.UNCONSTRAINED);
+        final float[][] spectra = mix(new double[][]{{0.2, 0.5, 0.3}});
+        spectra[0][0] += 0.6f;
+        final float[][] abundances = {{0.2f}, {0.5f}, {0.3f}};
+        final float[][] errors = new float[6][1];
+        final float[] rmse = new float[1];
+        unmixer.computeErrors(spectra, 1, abundances, errors, rmse);
+        assertEquals(0.6, errors[0][0], 1.0e-6);
+        for (int b = 1; b < 6; b++) {
+            assertEquals(0.0, errors[b][0], 1.0e-6);
+        }
+        assertEquals(Math.sqrt(0.36 / 6), rmse[0], 1.0e-6);
+    }
+
+    @Test
+    public void testLinearlyDependentEndmembersAreRejected() {
+        final double[][] endmembers = new double[ENDMEMBERS.length][];
+        for (int b = 0; b < endmembers.length; b++) {
+            endmembers[b] = new double[]{ENDMEMBERS[b][0], ENDMEMBERS[b][1], ENDMEMBERS[b][0] + ENDMEMBERS[b][1]};
+        }
+        try {
+            new BatchUnmixer(endmembers, BatchUnmixer.Model.CONSTRAINED);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+            // the endmember matrix has no pseudo-inverse
+        }
+    }
+
+    private static float[][] mix(double[][] abundances) {
+        final float[][] spectra = new float[ENDMEMBERS.length][abundances.length];
+        for (int p = 0; p < abundances.length; p++) {
+            for (int b = 0; b < ENDMEMBERS.length; b++) {
+                double value = 0;
+                for (int i = 0; i < 3; i++) {
+                    value += ENDMEMBERS[b][i] * abundances[p][i];
+                }
+                spectra[b][p] = (float) value;
+            }
+        }
+        return spectra;
+    }
+
+    private static float[][] randomSpectra(int count, long seed) {
+        final Random random = new Random(seed);
+        final double[][] abundances = new double[count][3];
+        for (int p = 0; p < count; p++) {
+            for (int i = 0; i < 3; i++) {
+                abundances[p][i] = 1.6 * random.nextDouble() - 0.3;
+            }
+        }
+        final float[][] spectra = mix(abundances);
+        for (float[] bandSpectra : spectra) {
+            for (int p = 0; p < count; p++) {
+                bandSpectra[p] += (float) (0.05 * random.nextGaussian());
+            }
+        }
+        return spectra;
+    }
+
+    /**
+     * Solves the sum-to-one least squares problem restricted to a subset of the endmembers with the KKT system.
+     */
+    private static double[] solveConstrained(float[][] spectra, int p, boolean[] subset) {
+        final int n = 4;
+        final double[][] system = new double[n][n + 1];
+        for (int i = 0; i < 3; i++) {
+            if (!subset[i]) {
+                system[i][i] = 1.0;
+                continue;
+            }
+            for (int j = 0; j < 3; j++) {
+                if (subset[j]) {
+                    for (double[] row : ENDMEMBERS) {
+                        system[i][j] += row[i] * row[j];
+                    }
+                }
+            }
+            for (int b = 0; b < ENDMEMBERS.length; b++) {
+                system[i][n] += ENDMEMBERS[b][i] * spectra[b][p];
+            }
+            system[i][3] = 1.0;
+            system[3][i] = 1.0;
+        }
+        system[3][n] = 1.0;
+        for (int c = 0; c < n; c++) {
+            int pivot = c;
+            for (int r = c + 1; r < n; r++) {
+                if (Math.abs(system[r][c]) > Math.abs(system[pivot][c])) {
+                    pivot = r;
+                }
+            }
+            final double[] swap = system[c];
+            system[c] = system[pivot];
+            system[pivot] = swap;
+            for (int r = 0; r < n; r++) {
+                if (r != c) {
+                    final double factor = system[r][c] / system[c][c];
+                    for (int k = c; k <= n; k++) {
+                        system[r][k] -= factor * system[c][k];
+                    }
+                }
+            }
+        }
+        final double[] solution = new double[3];
+        for (int i = 0; i < 3; i++) {
+            solution[i] = system[i][n] / system[i][i];
+        }
+        return solution;
+    }
+
+    private static double residual(float[][] spectra, int p, double[] abundances) {
+        double sum = 0;
+        for (int b = 0; b < ENDMEMBERS.length; b++) {
+            double value = spectra[b][p];
+            for (int i = 0; i < 3; i++) {
+                value -= ENDMEMBERS[b][i] * abundances[i];
+            }
+            sum += value * value;
+        }
+        return sum;
+    }
+}